@@ -3,8 +3,14 @@ package com.samsungxr.script;
 import java.io.IOException;
 import java.io.InputStream;
 
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
 import com.samsungxr.SXRContext;
 import com.samsungxr.script.IScriptManager;
+import com.samsungxr.script.javascript.RhinoScriptEngine;
+
+import org.mozilla.javascript.Function;
 
 /**
  * Represents a Javascript file. The script text can be loaded in one
@@ -53,7 +59,32 @@ public class SXRJavascriptScriptFile extends SXRScriptFile {
         super(gvrContext, IScriptManager.LANG_JAVASCRIPT);
         setScriptText(scriptText);
     }
+
+    SXRJavascriptScriptFile(ScriptEngine engine, String scriptText) {
+        super(null, IScriptManager.LANG_JAVASCRIPT, engine);
+        setScriptText(scriptText);
+    }
     
+    /**
+     * Uses the Rhino function object so calls skip the
+     * name lookup and scope creation of {@code invokeFunction}.
+     */
+    @Override
+    protected Object getFunctionHandle(String funcName) {
+        if (mLocalEngine instanceof RhinoScriptEngine) {
+            return ((RhinoScriptEngine) mLocalEngine).getFunction(mLocalEngine.getContext(), funcName);
+        }
+        return super.getFunctionHandle(funcName);
+    }
+
+    @Override
+    protected Object callFunction(Object handle, Object[] params) throws ScriptException, NoSuchMethodException {
+        if (handle instanceof Function) {
+            return ((RhinoScriptEngine) mLocalEngine).callFunction((Function) handle, params);
+        }
+        return super.callFunction(handle, params);
+    }
+
     protected String getInvokeStatement(String eventName, Object[] params) {
         StringBuilder sb = new StringBuilder();
 
@@ -19,12 +19,17 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
@@ -44,6 +49,12 @@ import com.samsungxr.script.IScriptFile;
  *   text using {@link #setScriptText(String)}, or load it from a stream using
  *   {@link #load(InputStream)}. </li>
  * </ul>
+ *
+ * The script text is compiled once when it changes, if the engine
+ * supports {@link Compilable}. Functions are looked up once and then
+ * called directly through a handle from {@link #getFunctionHandle(String)},
+ * engines which are not {@link Invocable} fall back to evaluating
+ * a call statement with the parameters in the engine bindings.
  */
 public abstract class SXRScriptFile implements IScriptFile {
     private static final String TAG = SXRScriptFile.class.getSimpleName();
@@ -79,6 +90,14 @@ public abstract class SXRScriptFile implements IScriptFile {
     // Cache for function invocation statements
     protected final Map<String, String> mInvokeStatementCache;
 
+    // Function handles by name, cleared when the script changes. Guarded by mEngineLock
+    private final Map<String, Object> mFunctionHandles = new HashMap<String, Object>();
+
+    // Invocation statistics, updated by any thread invoking the script
+    private final AtomicLong mInvocationCount = new AtomicLong();
+    private final AtomicLong mInvocationNanos = new AtomicLong();
+    private final AtomicLong mMaxInvocationNanos = new AtomicLong();
+
     /**
      * Constructor.
      *
@@ -90,17 +109,26 @@ public abstract class SXRScriptFile implements IScriptFile {
      *     as {@code LANG_LUA}, {@code LANG_JAVASCRIPT}, and so on.
      */
     public SXRScriptFile(SXRContext gvrContext, String language) {
+        this(gvrContext, language, gvrContext.getScriptManager().getEngine(language));
+    }
+
+    /*
+     * Tests pass the engine of the language and no context,
+     * the script then has no globals.
+     */
+    SXRScriptFile(SXRContext gvrContext, String language, ScriptEngine engine) {
         mGvrContext = gvrContext;
         mLanguage = language;
         mInvokeStatementCache = new TreeMap<String, String>();
 
         // Get an engine because some impl. requires a new engine to
         // enforce context
-        ScriptEngine engine = mGvrContext.getScriptManager().getEngine(mLanguage);
         mLocalEngine = engine.getFactory().getScriptEngine();
 
         // Add globals
-        mGvrContext.getScriptManager().addGlobalBindings(mLocalEngine);
+        if (gvrContext != null) {
+            gvrContext.getScriptManager().addGlobalBindings(mLocalEngine);
+        }
     }
 
     /**
@@ -181,7 +209,8 @@ public abstract class SXRScriptFile implements IScriptFile {
             return false;
         }
 
-        String statement = getInvokeStatementCached(funcName, params);
+        long start = System.nanoTime();
+        Object handle;
 
         synchronized (mEngineLock) {
             localBindings = mLocalEngine.getBindings(ScriptContext.ENGINE_SCOPE);
@@ -189,24 +218,119 @@ public abstract class SXRScriptFile implements IScriptFile {
                 localBindings = mLocalEngine.createBindings();
                 mLocalEngine.setBindings(localBindings, ScriptContext.ENGINE_SCOPE);
             }
+            handle = mFunctionHandles.get(funcName);
+            if ((handle == null) && !mFunctionHandles.containsKey(funcName)) {
+                handle = getFunctionHandle(funcName);
+                mFunctionHandles.put(funcName, handle);
+            }
         }
 
-        fillBindings(localBindings, params);
-
         try {
-            mLocalEngine.eval(statement);
+            if (handle != null) {
+                callFunction(handle, params);
+            } else {
+                evalInvokeStatement(funcName, params);
+            }
+        } catch (NoSuchMethodException e) {
+            addBadFunction(funcName);
+            mLastError = e.getMessage();
+            return false;
         } catch (ScriptException e) {
             // The function is either undefined or throws, avoid invoking it later
             addBadFunction(funcName);
             mLastError = e.getMessage();
             return false;
         } finally {
-            removeBindings(localBindings, params);
+            long time = System.nanoTime() - start;
+
+            mInvocationCount.incrementAndGet();
+            mInvocationNanos.addAndGet(time);
+            long max = mMaxInvocationNanos.get();
+            while (time > max && !mMaxInvocationNanos.compareAndSet(max, time)) {
+                max = mMaxInvocationNanos.get();
+            }
         }
 
         return true;
     }
 
+    private void evalInvokeStatement(String funcName, Object[] params) throws ScriptException {
+        String statement = getInvokeStatementCached(funcName, params);
+
+        fillBindings(localBindings, params);
+        try {
+            mLocalEngine.eval(statement);
+        } finally {
+            removeBindings(localBindings, params);
+        }
+    }
+
+    /**
+     * Get a handle to call a function of the script with
+     * {@link #callFunction(Object, Object[])}. Called once for each
+     * function name after the script is evaluated.
+     *
+     * @param funcName
+     *     The function name.
+     * @return
+     *     The handle, or null to call the function by evaluating
+     * a call statement instead. The default is the function name
+     * if the engine is {@link Invocable}.
+     */
+    protected Object getFunctionHandle(String funcName) {
+        if (mLocalEngine instanceof Invocable) {
+            return funcName;
+        }
+        return null;
+    }
+
+    /**
+     * Call a function of the script through a handle
+     * from {@link #getFunctionHandle(String)}.
+     *
+     * @param handle
+     *     The function handle.
+     * @param params
+     *     The parameter array.
+     * @throws ScriptException if the function throws.
+     * @throws NoSuchMethodException if the function does not exist.
+     */
+    protected Object callFunction(Object handle, Object[] params) throws ScriptException, NoSuchMethodException {
+        return ((Invocable) mLocalEngine).invokeFunction((String) handle, params);
+    }
+
+    /**
+     * @return number of functions invoked since the last {@link #resetStatistics()}.
+     */
+    public long getInvocationCount() {
+        return mInvocationCount.get();
+    }
+
+    /**
+     * @return total time in milliseconds spent in the functions invoked
+     * since the last {@link #resetStatistics()}.
+     */
+    public float getInvocationTime() {
+        return mInvocationNanos.get() * 1e-6f;
+    }
+
+    /**
+     * @return longest time in milliseconds spent in one function invocation
+     * since the last {@link #resetStatistics()}.
+     */
+    public float getMaxInvocationTime() {
+        return mMaxInvocationNanos.get() * 1e-6f;
+    }
+
+    /**
+     * Reset the invocation counters.
+     */
+    public void resetStatistics() {
+        mInvocationCount.set(0);
+        mInvocationNanos.set(0);
+        mMaxInvocationNanos.set(0);
+    }
+
     /**
      * Access to values modified during invoking of Script file
      * Enables X3D to get values script modifies..
@@ -255,8 +379,17 @@ public abstract class SXRScriptFile implements IScriptFile {
                 // Remove marked bad functions
                 resetBadFunctions();
 
+                synchronized (mEngineLock) {
+                    mFunctionHandles.clear();
+                }
+
                 try {
-                    mLocalEngine.eval(mScriptText);
+                    if (mLocalEngine instanceof Compilable) {
+                        CompiledScript compiled = ((Compilable) mLocalEngine).compile(mScriptText);
+                        compiled.eval();
+                    } else {
+                        mLocalEngine.eval(mScriptText);
+                    }
                 } catch (ScriptException e) {
                     mLastError = e.getMessage();
                     e.printStackTrace();
@@ -39,7 +39,6 @@ final class RhinoCompiledScript extends CompiledScript {
     
     private RhinoScriptEngine engine;
     private Script script;
-    private final static boolean DEBUG = RhinoScriptEngine.DEBUG;
     
     RhinoCompiledScript(RhinoScriptEngine engine, Script script) {
         this.engine = engine;
@@ -59,18 +58,8 @@ final class RhinoCompiledScript extends CompiledScript {
             Scriptable scope = engine.getRuntimeScope(context);
             Object ret = script.exec(cx, scope);
             result = engine.unwrapReturnValue(ret);
-        } catch (JavaScriptException jse) {
-            if (DEBUG) jse.printStackTrace();
-            int line = (line = jse.lineNumber()) == 0 ? -1 : line;
-            Object value = jse.getValue();
-            String str = (value != null && value.getClass().getName().equals("org.mozilla.javascript.NativeError") ?
-                          value.toString() :
-                          jse.toString());
-            throw new ExtendedScriptException(jse, str, jse.sourceName(), line);
         } catch (RhinoException re) {
-            if (DEBUG) re.printStackTrace();
-            int line = (line = re.lineNumber()) == 0 ? -1 : line;
-            throw new ExtendedScriptException(re, re.toString(), re.sourceName(), line);
+            throw RhinoScriptEngine.toScriptException(re);
         } finally {
             Context.exit();
         }
@@ -171,18 +171,8 @@ public class RhinoScriptEngine extends AbstractScriptEngine
             
             filename = filename == null ? "<Unknown source>" : filename;
             ret = cx.evaluateReader(scope, preProcessScriptSource(reader), filename , 1,  null);
-        } catch (JavaScriptException jse) {
-            if (DEBUG) jse.printStackTrace();
-            int line = (line = jse.lineNumber()) == 0 ? -1 : line;
-            Object value = jse.getValue();
-            String str = (value != null && value.getClass().getName().equals("org.mozilla.javascript.NativeError") ?
-                          value.toString() :
-                          jse.toString());
-            throw new ExtendedScriptException(jse, str, jse.sourceName(), line);
         } catch (RhinoException re) {
-            if (DEBUG) re.printStackTrace();
-            int line = (line = re.lineNumber()) == 0 ? -1 : line;
-            throw new ExtendedScriptException(re, re.toString(), re.sourceName(), line);
+            throw toScriptException(re);
         } catch (IOException ee) {
             throw new ScriptException(ee);
         } finally {
@@ -246,23 +236,53 @@ public class RhinoScriptEngine extends AbstractScriptEngine
             Object result = func.call(cx, scope, localScope, 
                                       wrapArguments(args));
             return unwrapReturnValue(result);
-        } catch (JavaScriptException jse) {
-            if (DEBUG) jse.printStackTrace();
-            int line = (line = jse.lineNumber()) == 0 ? -1 : line;
-            Object value = jse.getValue();
-            String str = (value != null && value.getClass().getName().equals("org.mozilla.javascript.NativeError") ?
-                          value.toString() :
-                          jse.toString());
-            throw new ExtendedScriptException(jse, str, jse.sourceName(), line);
         } catch (RhinoException re) {
-            if (DEBUG) re.printStackTrace();
-            int line = (line = re.lineNumber()) == 0 ? -1 : line;
-            throw new ExtendedScriptException(re, re.toString(), re.sourceName(), line);
+            throw toScriptException(re);
         } finally {
             cx.exit();
         }
     }
    
+    /**
+     * Find a function defined in the engine scope of a context,
+     * to call it later with {@link #callFunction(Function, Object[])}
+     * without looking it up again.
+     *
+     * @return the function or null if there is no function with that name.
+     */
+    public Function getFunction(ScriptContext ctxt, String name) {
+        Context cx = enterContext();
+        try {
+            Scriptable engineScope = getRuntimeScope(ctxt);
+            Object obj = ScriptableObject.getProperty(engineScope, name);
+            return (obj instanceof Function) ? (Function) obj : null;
+        } finally {
+            cx.exit();
+        }
+    }
+
+    /**
+     * Call a function found by {@link #getFunction(ScriptContext, String)}.
+     * The function runs in the scope it was defined in.
+     */
+    public Object callFunction(Function func, Object[] args)
+    throws ScriptException {
+
+        Context cx = enterContext();
+        try {
+            Scriptable scope = func.getParentScope();
+            if (scope == null) {
+                scope = getRuntimeScope(context);
+            }
+            Object result = func.call(cx, scope, scope, wrapArguments(args));
+            return unwrapReturnValue(result);
+        } catch (RhinoException re) {
+            throw toScriptException(re);
+        } finally {
+            cx.exit();
+        }
+    }
+
     public <T> T getInterface(Class<T> clasz) {
         try {
             return implementor.getInterface(null, clasz);
@@ -353,6 +373,25 @@ public class RhinoScriptEngine extends AbstractScriptEngine
     
     //package-private helpers
 
+    /**
+     * Translate an exception thrown by Rhino to the {@link ScriptException}
+     * reported to the caller, with the source name and line of the error.
+     * For a {@code throw} of a JavaScript {@code Error} the message is
+     * the error itself.
+     */
+    static ScriptException toScriptException(RhinoException re) {
+        if (DEBUG) re.printStackTrace();
+        int line = (line = re.lineNumber()) == 0 ? -1 : line;
+        String str = re.toString();
+        if (re instanceof JavaScriptException) {
+            Object value = ((JavaScriptException) re).getValue();
+            if (value != null && value.getClass().getName().equals("org.mozilla.javascript.NativeError")) {
+                str = value.toString();
+            }
+        }
+        return new ExtendedScriptException(re, str, re.sourceName(), line);
+    }
+
     static Context enterContext() {
         // call this always so that initializer of this class runs
         // and initializes custom wrap factory and class shutter.
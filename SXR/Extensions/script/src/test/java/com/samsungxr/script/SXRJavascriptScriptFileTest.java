@@ -0,0 +1,113 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.script;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import javax.script.ScriptEngine;
+
+import org.junit.Test;
+import org.mozilla.javascript.Function;
+
+import com.samsungxr.script.javascript.RhinoScriptEngineFactory;
+
+public class SXRJavascriptScriptFileTest {
+    private final ScriptEngine mEngine = new RhinoScriptEngineFactory().getScriptEngine();
+
+    private static double getNumber(SXRScriptFile script, String name) {
+        return ((Number) script.mLocalEngine.get(name)).doubleValue();
+    }
+
+    @Test
+    public void callsThroughFunctionHandle() {
+        SXRJavascriptScriptFile script = new SXRJavascriptScriptFile(mEngine,
+                "var sum = 0; function add(a, b) { sum = a + b; }");
+
+        assertTrue(script.invokeFunction("add", new Object[] { 1, 2 }));
+        assertEquals(3, getNumber(script, "sum"), 0);
+        assertTrue(script.getFunctionHandle("add") instanceof Function);
+        assertNull(script.getFunctionHandle("missing"));
+        assertEquals(1, script.getInvocationCount());
+    }
+
+    @Test
+    public void functionHandleSeesEngineBindings() {
+        SXRJavascriptScriptFile script = new SXRJavascriptScriptFile(mEngine,
+                "var result = 0; function addOffset(a) { result = a + offset; }");
+
+        // set after the script ran and after the handle was made
+        script.mLocalEngine.put("offset", 10);
+        assertTrue(script.invokeFunction("addOffset", new Object[] { 1 }));
+        assertEquals(11, getNumber(script, "result"), 0);
+        script.mLocalEngine.put("offset", 20);
+        assertTrue(script.invokeFunction("addOffset", new Object[] { 1 }));
+        assertEquals(21, getNumber(script, "result"), 0);
+        // and what the function sets is in the bindings X3D reads
+        assertEquals(21, ((Number) script.getLocalBindings().get("result")).doubleValue(), 0);
+    }
+
+    @Test
+    public void setScriptTextDropsFunctionHandles() {
+        SXRJavascriptScriptFile script = new SXRJavascriptScriptFile(mEngine,
+                "var version = 0; function run() { version = 1; }");
+
+        assertTrue(script.invokeFunction("run", new Object[0]));
+        assertEquals(1, getNumber(script, "version"), 0);
+
+        script.setScriptText("function run() { version = 2; }");
+        assertTrue(script.invokeFunction("run", new Object[0]));
+        assertEquals(2, getNumber(script, "version"), 0);
+    }
+
+    @Test
+    public void missingOrThrowingFunctionIsNotCalledAgain() {
+        SXRJavascriptScriptFile script = new SXRJavascriptScriptFile(mEngine,
+                "var calls = 0; function fail() { ++calls; throw new Error('failed'); }");
+
+        assertFalse(script.invokeFunction("missing", new Object[0]));
+        assertNotNull(script.getLastError());
+        assertFalse(script.invokeFunction("fail", new Object[0]));
+        assertTrue(script.getLastError().contains("failed"));
+        assertFalse(script.invokeFunction("fail", new Object[0]));
+        assertEquals(1, getNumber(script, "calls"), 0);
+
+        // a new script may define them
+        script.setScriptText("function missing() { calls = 10; }");
+        assertTrue(script.invokeFunction("missing", new Object[0]));
+        assertEquals(10, getNumber(script, "calls"), 0);
+    }
+
+    @Test
+    public void callStatementGivesSameResult() {
+        SXRJavascriptScriptFile script = new SXRJavascriptScriptFile(mEngine,
+                "var text = ''; function join(a, b, c) { text = a + b + c; }") {
+            @Override
+            protected Object getFunctionHandle(String funcName) {
+                return null;
+            }
+        };
+
+        assertTrue(script.invokeFunction("join", new Object[] { "a", 1, true }));
+        // Rhino may return a ConsString rather than a String
+        assertEquals("a1true", script.mLocalEngine.get("text").toString());
+        // the parameters are taken out of the bindings again
+        assertNull(script.getLocalBindings().get("arg0"));
+    }
+}
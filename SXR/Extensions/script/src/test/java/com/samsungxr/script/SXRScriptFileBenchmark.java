@@ -0,0 +1,91 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.script;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.samsungxr.script.javascript.RhinoScriptEngineFactory;
+
+/**
+ * Times {@link SXRScriptFile#invokeFunction(String, Object[])} calling
+ * a Javascript function through its Rhino function object, through
+ * {@link javax.script.Invocable#invokeFunction(String, Object...)} by name,
+ * and by evaluating a call statement with the parameters in the bindings,
+ * which is how every function was called before. Prints the microseconds
+ * per call of each.
+ */
+public class SXRScriptFileBenchmark {
+    private static final int CALL_COUNT = 20000;
+    private static final String SCRIPT =
+            "var total = 0;" +
+            "function onStep(frameTime, position) { total += frameTime + position.length; }";
+
+    private static SXRScriptFile byName() {
+        return new SXRJavascriptScriptFile(new RhinoScriptEngineFactory().getScriptEngine(), SCRIPT) {
+            @Override
+            protected Object getFunctionHandle(String funcName) {
+                return funcName;
+            }
+        };
+    }
+
+    private static SXRScriptFile byStatement() {
+        return new SXRJavascriptScriptFile(new RhinoScriptEngineFactory().getScriptEngine(), SCRIPT) {
+            @Override
+            protected Object getFunctionHandle(String funcName) {
+                return null;
+            }
+        };
+    }
+
+    private static double time(SXRScriptFile script) {
+        Object[] params = new Object[] { 0.016f, new float[] { 1, 2, 3 } };
+
+        long start = System.nanoTime();
+        for (int i = 0; i < CALL_COUNT; ++i) {
+            assertTrue(script.invokeFunction("onStep", params));
+        }
+        return (System.nanoTime() - start) / 1e3 / CALL_COUNT;
+    }
+
+    @Test
+    public void compareWithCallStatement() {
+        SXRScriptFile handle = new SXRJavascriptScriptFile(new RhinoScriptEngineFactory().getScriptEngine(),
+                                                          SCRIPT);
+        SXRScriptFile name = byName();
+        SXRScriptFile statement = byStatement();
+
+        // the first round warms up the JIT
+        for (int round = 0; round < 2; ++round) {
+            double handleTime = time(handle);
+            double nameTime = time(name);
+            double statementTime = time(statement);
+
+            if (round == 1) {
+                System.out.println(String.format("%-24s %10s", CALL_COUNT + " calls", "us/call"));
+                System.out.println(String.format("%-24s %10.2f", "function handle", handleTime));
+                System.out.println(String.format("%-24s %10.2f", "invokeFunction by name", nameTime));
+                System.out.println(String.format("%-24s %10.2f", "call statement", statementTime));
+            }
+        }
+        double expected = ((Number) statement.mLocalEngine.get("total")).doubleValue();
+        assertEquals(expected, ((Number) handle.mLocalEngine.get("total")).doubleValue(), 1e-3);
+        assertEquals(expected, ((Number) name.mLocalEngine.get("total")).doubleValue(), 1e-3);
+    }
+}
@@ -22,21 +22,34 @@ import com.samsungxr.SXRRenderData;
 import com.samsungxr.SXRNode;
 import com.samsungxr.SXRShaderId;
 import com.samsungxr.SXRTexture;
+import com.samsungxr.SXRVertexBuffer;
 import org.joml.Vector3f;
 import org.joml.Vector4f;
 
+import java.util.Arrays;
+
 import static android.opengl.GLES20.GL_POINTS;
 
 /**
- *  This class is responsible for instancing meshes, with vertices that act as
- *  the actual particles when rendered using GL_POINTS.
+ *  This class keeps the particles of an emitter in a single mesh,
+ *  with vertices that act as the actual particles when rendered using GL_POINTS.
+ *  <p>
+ *  The vertex buffer is allocated once with room for a fixed number of
+ *  particles and used as a ring. New particles overwrite the oldest ones,
+ *  and only the vertices which changed are copied to the GPU.
+ *  The last eight vertices are never overwritten, they hold the
+ *  bounding volume of the system.
  */
 
 class Particles {
 
+    static final int BOUNDING_VERTICES = 8;
+    private static final String VERTEX_DESCRIPTOR = "float3 a_position float2 a_texcoord float3 a_normal";
+
     private  SXRContext mSXRContext;
     private SXRMaterial material;
     private SXRMesh mParticleMesh;
+    private SXRVertexBuffer mVertexBuffer;
     private float mAge;
     private float mSize;
     private Vector3f mAcceleration;
@@ -47,12 +60,40 @@ class Particles {
     private float mNoiseFactor;
 
     private SXRShaderId particleID;
+    private int mTimeHandle = -1;
+
+    // copies of the vertex attributes, only changed ranges are sent to the vertex buffer
+    private final int mCapacity;
+    private final float[] mPositions;
+    private final float[] mVelocities;
+    private final float[] mTimeStamps;
+    private int mNext = 0;
+
+    private long mEmittedCount = 0;
+    private long mRecycledCount = 0;
+    private long mUploadedVertexCount = 0;
 
-    Particles(SXRContext gvrContext, float age, float particleSize,
+    Particles(SXRContext gvrContext, int maxParticles, float age, float particleSize,
                      Vector3f acceleration, float particleSizeRate, boolean fadeWithAge,
                      SXRTexture tex, Vector4f color, float noiseFactor) {
 
         mSXRContext = gvrContext;
+        mCapacity = maxParticles;
+        mPositions = new float[(maxParticles + BOUNDING_VERTICES) * 3];
+        mVelocities = new float[(maxParticles + BOUNDING_VERTICES) * 3];
+        mTimeStamps = new float[(maxParticles + BOUNDING_VERTICES) * 2];
+        setProperties(age, particleSize, acceleration, particleSizeRate, fadeWithAge,
+                      tex, color, noiseFactor);
+    }
+
+    /**
+     * Change the properties of all the particles.
+     * Takes effect immediately if the mesh has been made.
+     */
+    void setProperties(float age, float particleSize,
+                       Vector3f acceleration, float particleSizeRate, boolean fadeWithAge,
+                       SXRTexture tex, Vector4f color, float noiseFactor)
+    {
         mAge = age;
         mSize = particleSize;
         mAcceleration = acceleration;
@@ -64,45 +105,51 @@ class Particles {
             mFadeWithAge = 0.0f;
         mTexture = tex;
         mNoiseFactor = noiseFactor;
+        if (material != null)
+        {
+            updateMaterial();
+        }
     }
 
     /**
-     * Creates and returns a SXRNode with the specified mesh attributes.
+     * Creates and returns a SXRNode with a mesh which has room for
+     * all the particles. Every particle is initially unused,
+     * its spawning time is so far in the future it is never drawn.
      *
-     * @param vertices the vertex positions of that make up the mesh. (x1, y1, z1, x2, y2, z2, ...)
-     * @param velocities the velocity attributes for each vertex. (vx1, vy1, vz1, vx2, vy2, vz2...)
-     * @param particleTimeStamps the spawning times of each vertex. (t1, 0,  t2, 0,  t3, 0 ..)
+     * @param boundingVolume the eight corners of the bounding volume of the system.
      *
      * @return The SXRNode with this mesh.
      */
 
-    SXRNode makeParticleMesh(float[] vertices, float[] velocities,
-                                           float[] particleTimeStamps )
+    SXRNode makeParticleMesh(float[] boundingVolume)
     {
-        mParticleMesh = new SXRMesh(mSXRContext);
+        Arrays.fill(mTimeStamps, Float.MAX_VALUE);
+        for (int i = 1; i < mTimeStamps.length; i += 2)
+        {
+            mTimeStamps[i] = 0;
+        }
+        if (boundingVolume != null)
+        {
+            System.arraycopy(boundingVolume, 0, mPositions, mCapacity * 3, BOUNDING_VERTICES * 3);
+        }
+        mVertexBuffer = new SXRVertexBuffer(mSXRContext, VERTEX_DESCRIPTOR, mCapacity + BOUNDING_VERTICES);
 
         //pass the particle positions as vertices, velocities as normals, and
         //spawning times as texture coordinates.
-        mParticleMesh.setVertices(vertices);
-        mParticleMesh.setNormals(velocities);
-        mParticleMesh.setTexCoords(particleTimeStamps);
+        mVertexBuffer.setFloatArray("a_position", mPositions);
+        mVertexBuffer.setFloatArray("a_normal", mVelocities);
+        mVertexBuffer.setFloatArray("a_texcoord", mTimeStamps);
+        mParticleMesh = new SXRMesh(mVertexBuffer, null);
+        mUploadedVertexCount += mCapacity + BOUNDING_VERTICES;
 
         particleID = new SXRShaderId(ParticleShader.class);
         material = new SXRMaterial(mSXRContext, particleID);
-
-        material.setVec4("u_color", mColorMultiplier.x, mColorMultiplier.y,
-                mColorMultiplier.z, mColorMultiplier.w);
-        material.setFloat("u_particle_age", mAge);
-        material.setVec3("u_acceleration", mAcceleration.x, mAcceleration.y, mAcceleration.z);
-        material.setFloat("u_particle_size", mSize);
-        material.setFloat("u_size_change_rate", mParticleSizeRate);
-        material.setFloat("u_fade", mFadeWithAge);
-        material.setFloat("u_noise_factor", mNoiseFactor);
+        updateMaterial();
+        mTimeHandle = material.getUniformHandle("u_time");
 
         SXRRenderData renderData = new SXRRenderData(mSXRContext);
         renderData.setMaterial(material);
         renderData.setMesh(mParticleMesh);
-        material.setMainTexture(mTexture);
 
         SXRNode meshObject = new SXRNode(mSXRContext);
         meshObject.attachRenderData(renderData);
@@ -121,4 +168,116 @@ class Particles {
 
         return meshObject;
     }
+
+    private void updateMaterial()
+    {
+        material.setVec4("u_color", mColorMultiplier.x, mColorMultiplier.y,
+                mColorMultiplier.z, mColorMultiplier.w);
+        material.setFloat("u_particle_age", mAge);
+        material.setVec3("u_acceleration", mAcceleration.x, mAcceleration.y, mAcceleration.z);
+        material.setFloat("u_particle_size", mSize);
+        material.setFloat("u_size_change_rate", mParticleSizeRate);
+        material.setFloat("u_fade", mFadeWithAge);
+        material.setFloat("u_noise_factor", mNoiseFactor);
+        material.setMainTexture(mTexture);
+    }
+
+    /**
+     * Add particles to the ring, overwriting the oldest ones.
+     * If there are more new particles than the ring holds,
+     * only the last ones are kept.
+     *
+     * @param positions the particle positions. (x1, y1, z1, x2, y2, z2, ...)
+     * @param velocities the velocity of each particle. (vx1, vy1, vz1, vx2, vy2, vz2...)
+     * @param particleTimeStamps the spawning times of each particle. (t1, 0,  t2, 0,  t3, 0 ..)
+     * @param now current time, particles overwritten before this time plus
+     *            their age are counted as recycled early
+     */
+    void emit(float[] positions, float[] velocities, float[] particleTimeStamps, float now)
+    {
+        int count = Math.min(positions.length / 3, Math.min(velocities.length / 3, particleTimeStamps.length / 2));
+        int first = 0;
+
+        if (count > mCapacity)
+        {
+            first = count - mCapacity;
+            count = mCapacity;
+        }
+        int start = mNext;
+        int end = start + count;
+
+        if (end <= mCapacity)
+        {
+            copyParticles(positions, velocities, particleTimeStamps, first, start, count, now);
+            upload(start, count);
+        }
+        else
+        {
+            int n = mCapacity - start;
+            copyParticles(positions, velocities, particleTimeStamps, first, start, n, now);
+            copyParticles(positions, velocities, particleTimeStamps, first + n, 0, count - n, now);
+            upload(start, n);
+            upload(0, count - n);
+        }
+        mNext = end % mCapacity;
+        mEmittedCount += count;
+    }
+
+    private void copyParticles(float[] positions, float[] velocities, float[] timeStamps,
+                               int src, int dst, int count, float now)
+    {
+        for (int i = dst; i < dst + count; ++i)
+        {
+            float spawnTime = mTimeStamps[i * 2];
+            if ((spawnTime != Float.MAX_VALUE) && (spawnTime + mAge > now))
+            {
+                ++mRecycledCount;
+            }
+        }
+        System.arraycopy(positions, src * 3, mPositions, dst * 3, count * 3);
+        System.arraycopy(velocities, src * 3, mVelocities, dst * 3, count * 3);
+        System.arraycopy(timeStamps, src * 2, mTimeStamps, dst * 2, count * 2);
+    }
+
+    private void upload(int firstVertex, int vertexCount)
+    {
+        if ((vertexCount <= 0) || (mVertexBuffer == null))
+        {
+            return;
+        }
+        mVertexBuffer.setFloatRange("a_position", mPositions, firstVertex, vertexCount);
+        mVertexBuffer.setFloatRange("a_normal", mVelocities, firstVertex, vertexCount);
+        mVertexBuffer.setFloatRange("a_texcoord", mTimeStamps, firstVertex, vertexCount);
+        mUploadedVertexCount += vertexCount;
+    }
+
+    /**
+     * Replace the vertices which define the bounding volume of the system.
+     * @param boundingVolume the eight corners of the bounding volume.
+     */
+    void setBoundingVolume(float[] boundingVolume)
+    {
+        System.arraycopy(boundingVolume, 0, mPositions, mCapacity * 3, BOUNDING_VERTICES * 3);
+        if (mVertexBuffer != null)
+        {
+            mVertexBuffer.setFloatRange("a_position", mPositions, mCapacity, BOUNDING_VERTICES);
+            mUploadedVertexCount += BOUNDING_VERTICES;
+        }
+    }
+
+    void setTime(float time)
+    {
+        if (mTimeHandle >= 0)
+        {
+            material.setFloat(mTimeHandle, time);
+        }
+    }
+
+    int getCapacity() { return mCapacity; }
+
+    long getEmittedCount() { return mEmittedCount; }
+
+    long getRecycledCount() { return mRecycledCount; }
+
+    long getUploadedVertexCount() { return mUploadedVertexCount; }
 }
@@ -15,8 +15,6 @@
 
 package com.samsungxr.particlesystem;
 
-import android.util.Pair;
-
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRNode;
 import com.samsungxr.SXRTexture;
@@ -24,21 +22,23 @@ import com.samsungxr.SXRTransform;
 import org.joml.Vector3f;
 import org.joml.Vector4f;
 
-import java.util.ArrayList;
-
 
 /**
  * The base emitter class from which shape-specific emitter classes inherit.
  * This class is used to set up the the behaviour of the particle system in general.
  * Also, this is used to set the specific particle properties.
  *
- * Every emitter has a set of scene objects as its children. These scene
- * objects each have a mesh attached to them, with the number of vertices in the mesh
- * being equal to the emit rate of the emitter, i.e., every second a new scene object with a mesh
- * having an emitRate number of vertices is added to the emitter as a child.
- * These vertices act as the particles of the system. Consequently, all those
- * children objects which have exceeded their age limits are deleted every second.
- *
+ * Every emitter has a single child scene object with a mesh which has room for
+ * a fixed number of particles. The vertices of the mesh act as the particles
+ * of the system. Every second the emitter adds emitRate new particles,
+ * overwriting the oldest ones, so the emitter is drawn with one draw call
+ * and no scene objects are created or deleted while it runs.
+ * <p>
+ * By default there is room for all the particles which can be alive at once,
+ * which is the emit rate times (age + 1) because particles are generated up to
+ * one second in the future. A smaller maximum can be set with
+ * {@link #setMaxParticles(int)}, then the oldest particles are recycled
+ * before they die.
  */
 
 class SXREmitter extends SXRNode {
@@ -50,9 +50,12 @@ class SXREmitter extends SXRNode {
     protected SXRContext mSXRContext = null;
 
 
-    //list of active scene objects containing particle meshes,
-    // and their corresponding spawn times.
-    protected ArrayList<Pair<SXRNode, Float>> meshInfo = null;
+    //ring of particles and the scene object which draws them.
+    private Particles mParticles = null;
+    private SXRNode mParticleObject = null;
+    private int mMaxParticles = 0;
+    private boolean mPropertiesChanged = false;
+    private int mAllocationCount = 0;
 
 
     //particle properties
@@ -77,52 +80,18 @@ class SXREmitter extends SXRNode {
 
     //values corresponding to the particles which degine the bounding volume of the system.
     private float[] particleBoundingVolume;
-    private float[] BVSpawnTimes;
-    private float[] BVVelocities;
 
     private float currTime = 0;
-    ArrayList<Integer> idxsToDelete;
-    
+
     public SXREmitter(SXRContext gvrContext)
     {
         super(gvrContext);
         mSXRContext = gvrContext;
-        meshInfo = new ArrayList<Pair<SXRNode, Float>>();
-        idxsToDelete = new ArrayList<Integer>();
         mEnvironmentAcceleration = new Vector3f(0.0f,0.0f,0.0f);
         mColor = new Vector4f(1.0f, 1.0f, 1.0f, 1.0f);
         setParticleVolume(100,100,100);
     }
 
-    /**
-     * Iterate over the active meshes and delete the ones whose every particle
-     * has exceeded the maximum age limit.
-     * <p>
-     * Particle meshes are generated for upto one second in the future.
-     * Therefore the maximum time particle mesh should be allowed to remain
-     * in the scene is (maxAge of the particles + one second).
-     * <p>
-     */
-
-    protected void onDrawFrame() {
-
-        int numActiveMeshes = meshInfo.size();
-        for (int i = 0; i < numActiveMeshes; i++)
-        {
-            float currMeshSpawnTime = meshInfo.get(i).second;
-            if (currTime - currMeshSpawnTime > mMaxAge + 1) {
-                SXRNode toDelete = meshInfo.get(i).first;
-                SXREmitter.this.removeChildObject(toDelete);
-                idxsToDelete.add(i);
-            }
-        }
-        for( int i = idxsToDelete.size() - 1; i >=0; i -- ) {
-            meshInfo.remove((int)idxsToDelete.get(i));
-        }
-
-        idxsToDelete.clear();
-    }
-
     /**
      * If the burst mode is on, emit the particles only once.
      *
@@ -150,9 +119,9 @@ class SXREmitter extends SXRNode {
     }
 
     /**
-     * Append the bounding volume particle positions, times and velocities to the existing mesh
-     * before creating a new scene object with this mesh attached to it.
-     * Also, append every created scene object and its creation time to corresponding array lists.
+     * Add the particles to the ring, making the ring the first time
+     * and whenever its size has to change.
+     * Only the vertices of the new particles are copied to the GPU.
      *
      * @param particlePositions
      * @param particleVelocities
@@ -162,39 +131,51 @@ class SXREmitter extends SXRNode {
     private void emit(float[] particlePositions, float[] particleVelocities,
                       float[] particleTimeStamps)
     {
-        float[] allParticlePositions = new float[particlePositions.length + particleBoundingVolume.length];
-        System.arraycopy(particlePositions, 0, allParticlePositions, 0, particlePositions.length);
-        System.arraycopy(particleBoundingVolume, 0, allParticlePositions,
-                        particlePositions.length, particleBoundingVolume.length);
-
-        float[] allSpawnTimes = new float[particleTimeStamps.length + BVSpawnTimes.length];
-        System.arraycopy(particleTimeStamps, 0, allSpawnTimes, 0, particleTimeStamps.length);
-        System.arraycopy(BVSpawnTimes, 0, allSpawnTimes, particleTimeStamps.length, BVSpawnTimes.length);
-
-        float[] allParticleVelocities = new float[particleVelocities.length + BVVelocities.length];
-        System.arraycopy(particleVelocities, 0, allParticleVelocities, 0, particleVelocities.length);
-        System.arraycopy(BVVelocities, 0, allParticleVelocities, particleVelocities.length, BVVelocities.length);
-
-
-        Particles particleMesh = new Particles(mSXRContext, mMaxAge,
-                mParticleSize, mEnvironmentAcceleration, mParticleSizeRate, mFadeWithAge,
-                mParticleTexture, mColor, mNoiseFactor);
-
+        int capacity = (mMaxParticles > 0) ? mMaxParticles
+                : Math.max(1, (int) Math.ceil(mEmitRate * (mMaxAge + 1)));
 
-        SXRNode particleObject = particleMesh.makeParticleMesh(allParticlePositions,
-                allParticleVelocities, allSpawnTimes);
-
-        this.addChildObject(particleObject);
-        meshInfo.add(Pair.create(particleObject, currTime));
+        if ((mParticles == null) || (mParticles.getCapacity() != capacity))
+        {
+            if (mParticleObject != null)
+            {
+                removeChildObject(mParticleObject);
+            }
+            mParticles = new Particles(mSXRContext, capacity, mMaxAge,
+                    mParticleSize, mEnvironmentAcceleration, mParticleSizeRate, mFadeWithAge,
+                    mParticleTexture, mColor, mNoiseFactor);
+            mParticleObject = mParticles.makeParticleMesh(particleBoundingVolume);
+            mParticles.setTime(currTime);
+            mPropertiesChanged = false;
+            ++mAllocationCount;
+            addChildObject(mParticleObject);
+        }
+        else if (mPropertiesChanged)
+        {
+            mParticles.setProperties(mMaxAge, mParticleSize, mEnvironmentAcceleration,
+                    mParticleSizeRate, mFadeWithAge, mParticleTexture, mColor, mNoiseFactor);
+            mPropertiesChanged = false;
+        }
+        mParticles.emit(particlePositions, particleVelocities, particleTimeStamps, currTime);
     }
 
+    /**
+     * Get an array of the given size, reusing the old one if it is the right size.
+     */
+    protected static float[] reuseArray(float[] array, int size)
+    {
+        if ((array != null) && (array.length == size))
+        {
+            return array;
+        }
+        return new float[size];
+    }
 
     /**
      * Create a bouding volume for the particle system centered at its position with
      * the specified width, height and depth. This is important to do because the parent scene
      * object might fall outside the viewing frustum and cause the entire system to be
      * culled.
-     * This function creates 8 particles (mesh vertices) with very large spawning time
+     * This function sets 8 particles (mesh vertices) with very large spawning time
      * attributes (i.e. they are always discarded) which define the volume of the system. The
      * system is assumed to stay inside this volume.
      * @param width volume length (along x-axis)
@@ -221,14 +202,10 @@ class SXREmitter extends SXRNode {
                             center.x + width/2, center.y + height/2, center.z + depth/2,
                             center.x - width/2, center.y + height/2, center.z - depth/2};
 
-                    BVSpawnTimes = new float[]{Float.MAX_VALUE, 0, Float.MAX_VALUE, 0, Float.MAX_VALUE,
-                            0, Float.MAX_VALUE, 0, Float.MAX_VALUE, 0, Float.MAX_VALUE, 0,
-                            Float.MAX_VALUE, 0, Float.MAX_VALUE, 0};
-
-                    BVVelocities = new float[24];
-                    for ( int i = 0; i < 24; i ++ )
-                        BVVelocities[i] = 0;
-
+                    if (mParticles != null)
+                    {
+                        mParticles.setBoundingVolume(particleBoundingVolume);
+                    }
                 }
             });
         }
@@ -240,10 +217,9 @@ class SXREmitter extends SXRNode {
     {
         currTime = time;
 
-        for (int i = 0; i < meshInfo.size(); i ++)
+        if (mParticles != null)
         {
-            SXRNode obj = meshInfo.get(i).first;
-            obj.getRenderData().getMaterial().setFloat("u_time", time);
+            mParticles.setTime(time);
         }
     }
 
@@ -276,6 +252,7 @@ class SXREmitter extends SXRNode {
     public void setParticleAge ( float age )
     {
         mMaxAge = age;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -284,6 +261,7 @@ class SXREmitter extends SXRNode {
     public void setParticleSize ( float size )
     {
         mParticleSize = size;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -312,6 +290,7 @@ class SXREmitter extends SXRNode {
     public void setEnvironmentAcceleration( Vector3f acceleration )
     {
         mEnvironmentAcceleration = acceleration;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -324,6 +303,7 @@ class SXREmitter extends SXRNode {
     public void setParticleSizeChangeRate( float rate )
     {
         mParticleSizeRate = rate;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -333,6 +313,7 @@ class SXREmitter extends SXRNode {
     public void setFadeWithAge ( boolean fade )
     {
         mFadeWithAge = fade;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -350,6 +331,7 @@ class SXREmitter extends SXRNode {
     public void setParticleTexture(SXRTexture tex)
     {
         mParticleTexture = tex;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -359,6 +341,7 @@ class SXREmitter extends SXRNode {
     public void  setColorMultiplier( Vector4f color )
     {
         mColor = color;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -373,6 +356,80 @@ class SXREmitter extends SXRNode {
             noise = 1;
 
         mNoiseFactor = noise;
+        mPropertiesChanged = true;
+    }
+
+    /**
+     * Set the maximum number of particles alive at once.
+     * The ring of particles is made again with the new size at the next emission.
+     * @param maxParticles maximum number of particles, 0 to make room
+     *                     for emit rate * (age + 1) particles.
+     */
+    public void setMaxParticles(int maxParticles)
+    {
+        if (maxParticles < 0)
+        {
+            throw new IllegalArgumentException("maximum number of particles cannot be negative");
+        }
+        mMaxParticles = maxParticles;
+    }
+
+    /**
+     * @return maximum number of particles set by {@link #setMaxParticles(int)},
+     *         0 if it depends on the emit rate and age.
+     */
+    public int getMaxParticles()
+    {
+        return mMaxParticles;
+    }
+
+    /**
+     * @return number of particles the vertex buffer has room for, 0 before the first emission.
+     */
+    public int getParticleCapacity()
+    {
+        return (mParticles != null) ? mParticles.getCapacity() : 0;
+    }
+
+    /**
+     * @return total number of particles emitted since the ring was made.
+     */
+    public long getEmittedParticleCount()
+    {
+        return (mParticles != null) ? mParticles.getEmittedCount() : 0;
+    }
+
+    /**
+     * @return number of particles overwritten by new ones before they died.
+     *         If this is not zero the maximum number of particles is too small.
+     */
+    public long getRecycledParticleCount()
+    {
+        return (mParticles != null) ? mParticles.getRecycledCount() : 0;
+    }
+
+    /**
+     * @return number of vertices copied to the vertex buffer since the ring was made.
+     */
+    public long getUploadedVertexCount()
+    {
+        return (mParticles != null) ? mParticles.getUploadedVertexCount() : 0;
+    }
+
+    /**
+     * @return number of times the particle mesh, material and scene object were made.
+     */
+    public int getAllocationCount()
+    {
+        return mAllocationCount;
+    }
+
+    /**
+     * @return number of draw calls this emitter makes, 1 once it has emitted.
+     */
+    public int getDrawCallCount()
+    {
+        return (mParticleObject != null) ? 1 : 0;
     }
 
     /**
@@ -385,6 +442,8 @@ class SXREmitter extends SXRNode {
         {
             this.removeChildObject(this.getChildByIndex(0));
         }
+        mParticles = null;
+        mParticleObject = null;
     }
 
 }
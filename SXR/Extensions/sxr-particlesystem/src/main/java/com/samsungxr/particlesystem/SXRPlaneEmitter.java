@@ -54,7 +54,7 @@ public class SXRPlaneEmitter extends SXREmitter {
 
     private float[] generateParticlePositions()
     {
-        float[] positions = new float[mEmitRate * 3];
+        float[] positions = reuseArray(mParticlePositions, mEmitRate * 3);
         for ( int i = 0; i < mEmitRate * 3; i += 3 ) {
 
             Vector3f nextPos = getNextPosition();
@@ -85,7 +85,7 @@ public class SXRPlaneEmitter extends SXREmitter {
 
     private float[] generateParticleVelocities()
     {
-        float velocities[] = new float[mEmitRate * 3];
+        float velocities[] = reuseArray(mParticleVelocities, mEmitRate * 3);
         for ( int i = 0; i < mEmitRate * 3; i +=3 )
         {
             Vector3f nexVel = getNextVelocity();
@@ -106,7 +106,7 @@ public class SXRPlaneEmitter extends SXREmitter {
      */
     private float[] generateParticleTimeStamps(float totalTime)
     {
-        float timeStamps[] = new float[mEmitRate * 2];
+        float timeStamps[] = reuseArray(mParticleGenTimes, mEmitRate * 2);
         for ( int i = 0; i < mEmitRate * 2; i +=2 )
         {
             timeStamps[i] = totalTime + mRandom.nextFloat();
@@ -154,8 +154,6 @@ public class SXRPlaneEmitter extends SXREmitter {
 
                         emitter.emitWithBurstCheck(emitter.mParticlePositions, emitter.mParticleVelocities,
                                 emitter.mParticleGenTimes);
-
-                        emitter.onDrawFrame();
                     }
                 }
             }
@@ -0,0 +1,203 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.physics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The collisions which started or ended during a physics step,
+ * kept in a direct buffer the native code writes into.
+ * <p>
+ * The buffer is reused every step, so the records must be read
+ * in {@link SXRWorld.ICollisionListener#onCollisions} and not kept.
+ * Each record is {@link #RECORD_SIZE} bytes in native byte order:
+ * <pre>
+ *     long  native pointer of the first body
+ *     long  native pointer of the second body
+ *     float normal X, Y, Z (world coordinates, towards the second body)
+ *     float distance between the bodies (usually zero)
+ *     short collision filter group of the first body
+ *     short collision filter group of the second body
+ *     int   1 if the collision started, 0 if it ended
+ * </pre>
+ * The accessors read the record at an index without allocating.
+ * @see SXRCollisionMatrix#getCollisionFilterGroup(int)
+ */
+public final class SXRCollisionBuffer {
+    /**
+     * Size of a record in bytes, must match CollisionRecord in physics_world_jni.cpp.
+     */
+    public static final int RECORD_SIZE = 40;
+    public static final int BODY_A_OFFSET = 0;
+    public static final int BODY_B_OFFSET = 8;
+    public static final int NORMAL_OFFSET = 16;
+    public static final int DISTANCE_OFFSET = 28;
+    public static final int GROUP_A_OFFSET = 32;
+    public static final int GROUP_B_OFFSET = 34;
+    public static final int ENTER_OFFSET = 36;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final SXRWorld mWorld;
+    private ByteBuffer mBuffer;
+    private int mCapacity = 0;
+    private int mCount = 0;
+
+    SXRCollisionBuffer(SXRWorld world) {
+        mWorld = world;
+        ensureCapacity(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return the direct buffer with the records, in native byte order.
+     */
+    public ByteBuffer getBuffer() {
+        return mBuffer;
+    }
+
+    /**
+     * @return number of records in the buffer.
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * @return true if the collision started in this step, false if it ended.
+     */
+    public boolean isEnter(int index) {
+        return mBuffer.getInt(offset(index) + ENTER_OFFSET) != 0;
+    }
+
+    /**
+     * @return native pointer of the first body, see {@link SXRRigidBody#getNative()}.
+     */
+    public long getNativeBodyA(int index) {
+        return mBuffer.getLong(offset(index) + BODY_A_OFFSET);
+    }
+
+    /**
+     * @return native pointer of the second body, see {@link SXRRigidBody#getNative()}.
+     */
+    public long getNativeBodyB(int index) {
+        return mBuffer.getLong(offset(index) + BODY_B_OFFSET);
+    }
+
+    /**
+     * @return the first body or null if it is no longer in the world.
+     */
+    public SXRRigidBody getBodyA(int index) {
+        return mWorld.findRigidBody(getNativeBodyA(index));
+    }
+
+    /**
+     * @return the second body or null if it is no longer in the world.
+     */
+    public SXRRigidBody getBodyB(int index) {
+        return mWorld.findRigidBody(getNativeBodyB(index));
+    }
+
+    /**
+     * Get the collision normal.
+     * @param index index of the record
+     * @param normal array to get the X, Y and Z of the normal
+     * @return normal
+     */
+    public float[] getNormal(int index, float[] normal) {
+        int offset = offset(index) + NORMAL_OFFSET;
+        normal[0] = mBuffer.getFloat(offset);
+        normal[1] = mBuffer.getFloat(offset + 4);
+        normal[2] = mBuffer.getFloat(offset + 8);
+        return normal;
+    }
+
+    /**
+     * @return distance between the bodies, usually zero.
+     */
+    public float getDistance(int index) {
+        return mBuffer.getFloat(offset(index) + DISTANCE_OFFSET);
+    }
+
+    /**
+     * @return collision filter group bit of the first body.
+     */
+    public int getGroupA(int index) {
+        return mBuffer.getShort(offset(index) + GROUP_A_OFFSET) & 0xFFFF;
+    }
+
+    /**
+     * @return collision filter group bit of the second body.
+     */
+    public int getGroupB(int index) {
+        return mBuffer.getShort(offset(index) + GROUP_B_OFFSET) & 0xFFFF;
+    }
+
+    private int offset(int index) {
+        if ((index < 0) || (index >= mCount)) {
+            throw new IndexOutOfBoundsException("Collision record " + index + " out of range, size is " + mCount);
+        }
+        return index * RECORD_SIZE;
+    }
+
+    void ensureCapacity(int count) {
+        if (count <= mCapacity) {
+            return;
+        }
+        int capacity = Math.max(count, mCapacity * 2);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+
+        if (mBuffer != null) {
+            mBuffer.clear();
+            mBuffer.limit(mCount * RECORD_SIZE);
+            buffer.put(mBuffer);
+            buffer.clear();
+        }
+        mBuffer = buffer;
+        mCapacity = capacity;
+    }
+
+    int getCapacity() {
+        return mCapacity;
+    }
+
+    void setSize(int count) {
+        mCount = count;
+    }
+
+    /**
+     * Copy the records which involve any of the groups in
+     * the mask from another buffer, replacing the contents.
+     */
+    void filter(SXRCollisionBuffer src, int groupMask) {
+        ByteBuffer from = src.mBuffer;
+        int n = 0;
+
+        ensureCapacity(src.mCount);
+        for (int i = 0; i < src.mCount; ++i) {
+            int offset = i * RECORD_SIZE;
+            int groups = (from.getShort(offset + GROUP_A_OFFSET) | from.getShort(offset + GROUP_B_OFFSET)) & 0xFFFF;
+
+            if ((groups & groupMask) != 0) {
+                for (int b = 0; b < RECORD_SIZE; b += 8) {
+                    mBuffer.putLong(n * RECORD_SIZE + b, from.getLong(offset + b));
+                }
+                ++n;
+            }
+        }
+        mCount = n;
+    }
+}
@@ -0,0 +1,208 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.physics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size ring of rigid body commands (operation, body and six floats)
+ * written by any thread and executed by the physics thread.
+ * <p>
+ * Writers claim a slot with a compare and set on the tail and publish it
+ * through the sequence number of the slot, so they never lock or allocate.
+ * Only the physics thread reads, in {@link #drain()}.
+ */
+class SXRPhysicsCommands {
+    static final int APPLY_CENTRAL_FORCE = 1;
+    static final int APPLY_FORCE = 2;
+    static final int APPLY_CENTRAL_IMPULSE = 3;
+    static final int APPLY_IMPULSE = 4;
+    static final int APPLY_TORQUE = 5;
+    static final int APPLY_TORQUE_IMPULSE = 6;
+    static final int RESET = 7;
+
+    private static final int VALUES_PER_COMMAND = 6;
+
+    private final int mCapacity;
+    private final int mMask;
+    private final int[] mOps;
+    private final SXRRigidBody[] mBodies;
+    private final float[] mValues;
+
+    /*
+     * A slot can be written at position p when its sequence is p,
+     * it can be read when its sequence is p + 1. After reading it
+     * becomes p + capacity, the next time around the ring.
+     */
+    private final AtomicLongArray mSequence;
+    private final AtomicLong mTail = new AtomicLong(0);
+    private volatile long mHead = 0;
+    private volatile long mDrainCount = 0;
+
+    /**
+     * @param capacity maximum number of commands waiting, rounded up to a power of two.
+     */
+    SXRPhysicsCommands(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+
+        mCapacity = size;
+        mMask = size - 1;
+        mOps = new int[size];
+        mBodies = new SXRRigidBody[size];
+        mValues = new float[size * VALUES_PER_COMMAND];
+        mSequence = new AtomicLongArray(size);
+        for (int i = 0; i < size; ++i) {
+            mSequence.set(i, i);
+        }
+    }
+
+    int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Add a command to the ring. Can be called from any thread.
+     * @return true if added, false if the ring is full.
+     */
+    boolean push(int op, SXRRigidBody body, float v0, float v1, float v2,
+                 float v3, float v4, float v5) {
+        long tail;
+        int slot;
+
+        while (true) {
+            tail = mTail.get();
+            slot = (int) (tail & mMask);
+            long seq = mSequence.get(slot);
+
+            if (seq < tail) {
+                return false;
+            }
+            if ((seq == tail) && mTail.compareAndSet(tail, tail + 1)) {
+                break;
+            }
+        }
+        int v = slot * VALUES_PER_COMMAND;
+
+        mOps[slot] = op;
+        mBodies[slot] = body;
+        mValues[v] = v0;
+        mValues[v + 1] = v1;
+        mValues[v + 2] = v2;
+        mValues[v + 3] = v3;
+        mValues[v + 4] = v4;
+        mValues[v + 5] = v5;
+        mSequence.set(slot, tail + 1);
+        return true;
+    }
+
+    /**
+     * Execute the commands added so far, in the order they were added.
+     * Must be called from the physics thread.
+     * @return number of commands executed.
+     */
+    int drain() {
+        long head = mHead;
+        long end = mTail.get();
+        int n = 0;
+
+        while (head < end) {
+            int slot = (int) (head & mMask);
+
+            if (mSequence.get(slot) != head + 1) {
+                // claimed but not written yet, the rest waits for the next drain
+                break;
+            }
+            SXRRigidBody body = mBodies[slot];
+
+            mBodies[slot] = null;
+            execute(mOps[slot], body, mValues, slot * VALUES_PER_COMMAND);
+            mSequence.set(slot, head + mCapacity);
+            ++head;
+            ++n;
+        }
+        mHead = head;
+        if (n > 0) {
+            ++mDrainCount;
+        }
+        return n;
+    }
+
+    /**
+     * @return total number of commands added to the ring.
+     */
+    long getQueuedCount() {
+        return mTail.get();
+    }
+
+    /**
+     * @return total number of commands executed from the ring.
+     */
+    long getExecutedCount() {
+        return mHead;
+    }
+
+    /**
+     * @return number of times {@link #drain()} executed any command.
+     */
+    long getDrainCount() {
+        return mDrainCount;
+    }
+
+    /**
+     * Execute one command on the physics thread.
+     * @param values array holding the six values of the command
+     * @param v      index of the first value of the command
+     */
+    void execute(int op, SXRRigidBody body, float[] values, int v) {
+        long nativeBody = body.getNative();
+
+        switch (op) {
+            case APPLY_CENTRAL_FORCE:
+                Native3DRigidBody.applyCentralForce(nativeBody, values[v], values[v + 1], values[v + 2]);
+                break;
+
+            case APPLY_FORCE:
+                Native3DRigidBody.applyForce(nativeBody, values[v], values[v + 1], values[v + 2],
+                        values[v + 3], values[v + 4], values[v + 5]);
+                break;
+
+            case APPLY_CENTRAL_IMPULSE:
+                Native3DRigidBody.applyCentralImpulse(nativeBody, values[v], values[v + 1], values[v + 2]);
+                break;
+
+            case APPLY_IMPULSE:
+                Native3DRigidBody.applyImpulse(nativeBody, values[v], values[v + 1], values[v + 2],
+                        values[v + 3], values[v + 4], values[v + 5]);
+                break;
+
+            case APPLY_TORQUE:
+                Native3DRigidBody.applyTorque(nativeBody, values[v], values[v + 1], values[v + 2]);
+                break;
+
+            case APPLY_TORQUE_IMPULSE:
+                Native3DRigidBody.applyTorqueImpulse(nativeBody, values[v], values[v + 1], values[v + 2]);
+                break;
+
+            case RESET:
+                Native3DRigidBody.reset(nativeBody, values[v] != 0);
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown rigid body command " + op);
+        }
+    }
+}
@@ -18,15 +18,40 @@ package com.samsungxr.physics;
 import android.os.Handler;
 import android.os.HandlerThread;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * This class represents the Physics context
  * with its own main loop.
+ * <p>
+ * Forces, impulses and resets of rigid bodies are not posted as
+ * separate messages, they are added to a command ring which the
+ * physics thread executes in one pass just before each simulation step.
+ * If no world is being simulated one message is posted to execute
+ * all the commands added since the last one.
  */
 public class SXRPhysicsContext {
+    private static final int COMMAND_CAPACITY = 4096;
+
     private static SXRPhysicsContext mInstance;
     private final HandlerThread mHandlerThread;
     private final Handler mHandler;
 
+    private final SXRPhysicsCommands mCommands = new SXRPhysicsCommands(COMMAND_CAPACITY);
+    private final AtomicBoolean mDrainPosted = new AtomicBoolean(false);
+    private final AtomicLong mPostedCommandCount = new AtomicLong(0);
+    private volatile boolean mUseCommandRing = true;
+    private volatile int mSteppingWorlds = 0;
+
+    private final Runnable mDrainTask = new Runnable() {
+        @Override
+        public void run() {
+            mDrainPosted.set(false);
+            mCommands.drain();
+        }
+    };
+
     public static SXRPhysicsContext getInstance() {
         if (mInstance == null) {
             mInstance = new SXRPhysicsContext();
@@ -56,4 +81,112 @@ public class SXRPhysicsContext {
     public void removeTask(Runnable r) {
         mHandler.removeCallbacks(r);
     }
+
+    /**
+     * Choose how rigid body commands reach the physics thread.
+     * <p>
+     * The command ring is the default. Posting a message for each
+     * command is kept to compare the two with
+     * {@link #getQueuedCommandCount()} and {@link #getPostedCommandCount()}.
+     * @param enable true to use the command ring, false to post a message per command.
+     */
+    public void setCommandRingEnabled(boolean enable) {
+        mUseCommandRing = enable;
+    }
+
+    /**
+     * @return true if rigid body commands go through the command ring.
+     */
+    public boolean isCommandRingEnabled() {
+        return mUseCommandRing;
+    }
+
+    /**
+     * @return total number of rigid body commands added to the command ring.
+     */
+    public long getQueuedCommandCount() {
+        return mCommands.getQueuedCount();
+    }
+
+    /**
+     * @return total number of rigid body commands executed from the command ring.
+     */
+    public long getExecutedCommandCount() {
+        return mCommands.getExecutedCount();
+    }
+
+    /**
+     * @return number of passes over the command ring which executed any command.
+     */
+    public long getCommandDrainCount() {
+        return mCommands.getDrainCount();
+    }
+
+    /**
+     * @return total number of rigid body commands posted as separate messages,
+     * because the command ring was disabled or full.
+     */
+    public long getPostedCommandCount() {
+        return mPostedCommandCount.get();
+    }
+
+    /**
+     * Send a rigid body command to the physics thread.
+     * Can be called from any thread.
+     */
+    void queueCommand(final int op, final SXRRigidBody body, final float v0, final float v1,
+                      final float v2, final float v3, final float v4, final float v5) {
+        if (mUseCommandRing && mCommands.push(op, body, v0, v1, v2, v3, v4, v5)) {
+            // the command is published before checking for a stepping world,
+            // so the drain in setStepping(false) either sees it or we post one
+            if (mSteppingWorlds == 0) {
+                postDrain();
+            }
+            return;
+        }
+        mPostedCommandCount.incrementAndGet();
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                // commands already in the ring go first
+                mCommands.drain();
+                mCommands.execute(op, body, new float[] { v0, v1, v2, v3, v4, v5 }, 0);
+            }
+        });
+    }
+
+    /**
+     * Execute the rigid body commands waiting in the ring.
+     * Called from the physics thread before each simulation step.
+     */
+    void drainCommands() {
+        mCommands.drain();
+    }
+
+    /**
+     * Called from the physics thread when a world starts
+     * or stops draining the commands before each step.
+     */
+    void setStepping(boolean stepping) {
+        if (stepping) {
+            ++mSteppingWorlds;
+        } else {
+            --mSteppingWorlds;
+            // commands added before this world stopped
+            mCommands.drain();
+            // the drain stops at a command claimed but not written yet, the
+            // commands after it may come from threads which saw this world
+            // stepping and did not post a drain
+            if ((mSteppingWorlds == 0) &&
+                (mCommands.getQueuedCount() > mCommands.getExecutedCount())) {
+                postDrain();
+            }
+        }
+    }
+
+    private void postDrain() {
+        if (mDrainPosted.compareAndSet(false, true)) {
+            mHandler.post(mDrainTask);
+        }
+    }
 }
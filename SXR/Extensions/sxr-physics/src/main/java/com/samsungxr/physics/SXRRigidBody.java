@@ -176,13 +176,8 @@ public class SXRRigidBody extends SXRPhysicsWorldObject {
      * @param y factor on the 'Y' axis.
      * @param z factor on the 'Z' axis.
      */
-    public void applyCentralForce(final float x, final float y, final float z) {
-                mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-           public void run() {
-                                Native3DRigidBody.applyCentralForce(getNative(), x, y, z);
-                           }
-        });
+    public void applyCentralForce(float x, float y, float z) {
+        mPhysicsContext.queueCommand(SXRPhysicsCommands.APPLY_CENTRAL_FORCE, this, x, y, z, 0, 0, 0);
     }
 
     /**
@@ -196,15 +191,10 @@ public class SXRRigidBody extends SXRPhysicsWorldObject {
      * @param relY relative position on y-axis to apply the force.
      * @param relZ relative position on z-axis to apply the force.
      */
-    public void applyForce(final float forceX, final float forceY, final float forceZ,
-                           final float relX, final float relY, final float relZ) {
-        mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-            public void run() {
-                Native3DRigidBody.applyForce(getNative(), forceX, forceY, forceZ,
-                        relX, relY, relZ);
-            }
-        });
+    public void applyForce(float forceX, float forceY, float forceZ,
+                           float relX, float relY, float relZ) {
+        mPhysicsContext.queueCommand(SXRPhysicsCommands.APPLY_FORCE, this, forceX, forceY, forceZ,
+                relX, relY, relZ);
     }
 
     /**
@@ -214,13 +204,8 @@ public class SXRRigidBody extends SXRPhysicsWorldObject {
      * @param y impulse factor on the 'Y' axis.
      * @param z impulse factor on the 'Z' axis.
      */
-    public void applyCentralImpulse(final float x, final float y, final float z) {
-        mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-            public void run() {
-                Native3DRigidBody.applyCentralImpulse(getNative(), x, y, z);
-            }
-        });
+    public void applyCentralImpulse(float x, float y, float z) {
+        mPhysicsContext.queueCommand(SXRPhysicsCommands.APPLY_CENTRAL_IMPULSE, this, x, y, z, 0, 0, 0);
     }
 
     /**
@@ -234,15 +219,10 @@ public class SXRRigidBody extends SXRPhysicsWorldObject {
      * @param relY relative position on y-axis to apply the force.
      * @param relZ relative position on z-axis to apply the force.
      */
-    public void applyImpulse(final float impulseX, final float impulseY, final float impulseZ,
-                           final float relX, final float relY, final float relZ) {
-        mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-            public void run() {
-                Native3DRigidBody.applyImpulse(getNative(), impulseX, impulseY, impulseZ,
-                        relX, relY, relZ);
-            }
-        });
+    public void applyImpulse(float impulseX, float impulseY, float impulseZ,
+                           float relX, float relY, float relZ) {
+        mPhysicsContext.queueCommand(SXRPhysicsCommands.APPLY_IMPULSE, this, impulseX, impulseY, impulseZ,
+                relX, relY, relZ);
     }
 
     /**
@@ -252,13 +232,8 @@ public class SXRRigidBody extends SXRPhysicsWorldObject {
      * @param y factor on the 'Y' axis.
      * @param z factor on the 'Z' axis.
      */
-    public void applyTorque(final float x, final float y, final float z) {
-                mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-            public void run() {
-                                Native3DRigidBody.applyTorque(getNative(), x, y, z);
-                            }
-        });
+    public void applyTorque(float x, float y, float z) {
+        mPhysicsContext.queueCommand(SXRPhysicsCommands.APPLY_TORQUE, this, x, y, z, 0, 0, 0);
     }
 
     /**
@@ -268,13 +243,8 @@ public class SXRRigidBody extends SXRPhysicsWorldObject {
      * @param y impulse factor on the 'Y' axis.
      * @param z impulse factor on the 'Z' axis.
      */
-    public void applyTorqueImpulse(final float x, final float y, final float z) {
-        mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-            public void run() {
-                Native3DRigidBody.applyTorqueImpulse(getNative(), x, y, z);
-            }
-        });
+    public void applyTorqueImpulse(float x, float y, float z) {
+        mPhysicsContext.queueCommand(SXRPhysicsCommands.APPLY_TORQUE_IMPULSE, this, x, y, z, 0, 0, 0);
     }
 
     /**
@@ -522,13 +492,8 @@ public class SXRRigidBody extends SXRPhysicsWorldObject {
      *
      * @param rebuildCollider rebuilds the physics collider if true.
      */
-    public void reset(final boolean rebuildCollider) {
-        mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-            public void run() {
-                Native3DRigidBody.reset(getNative(), rebuildCollider);
-            }
-        });
+    public void reset(boolean rebuildCollider) {
+        mPhysicsContext.queueCommand(SXRPhysicsCommands.RESET, this, rebuildCollider ? 1 : 0, 0, 0, 0, 0, 0);
     }
 
     /**
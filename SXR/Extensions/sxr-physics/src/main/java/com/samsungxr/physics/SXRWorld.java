@@ -21,6 +21,8 @@ import android.util.LongSparseArray;
 import com.samsungxr.SXRComponent;
 import com.samsungxr.SXRComponentGroup;
 import com.samsungxr.SXRContext;
+import com.samsungxr.SXRDrawFrameListener;
+import com.samsungxr.SXREventManager;
 import com.samsungxr.SXREventReceiver;
 import com.samsungxr.SXRNode;
 import com.samsungxr.SXRNode.ComponentVisitor;
@@ -31,23 +33,63 @@ import com.samsungxr.INodeEvents;
 import org.joml.Quaternionf;
 import org.joml.Vector3f;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents a physics world where all {@link SXRNode} with {@link SXRRigidBody} component
  * attached to are simulated.
  * <p>
  * {@link SXRWorld} is a component that must be attached to the scene's root object.
+ * <p>
+ * The simulation always advances in steps of the same length
+ * ({@link #setFixedTimeStep(float)}). Each time the physics thread runs
+ * it takes as many steps as needed to catch up with the real time,
+ * up to {@link #setMaxSubSteps(int)}; if it falls further behind the
+ * extra time is dropped instead of making the next run even longer.
+ * The cost of the simulation is available from {@link #getLastStepTime()},
+ * {@link #getLastSubStepCount()} and {@link #getDroppedTime()}, and is sent
+ * after each iteration to the listeners which implement {@link IPhysicsStatsEvents}.
+ * By default the nodes are not moved by the physics thread, they are
+ * moved before each frame is rendered to a pose interpolated between
+ * the last two steps, so motion is smooth even if the physics thread
+ * and the display run at different rates.
  */
 public class SXRWorld extends SXRComponent implements IEventReceiver
 {
     private final SXRPhysicsContext mPhysicsContext;
     private SXRWorldTask mWorldTask;
     private static final long DEFAULT_INTERVAL = 15;
+    private static final float DEFAULT_TIME_STEP = 1.0f / 60.0f;
+    private static final int DEFAULT_MAX_SUB_STEPS = 4;
     private SXREventReceiver mListeners;
 
+    private volatile float mFixedTimeStep = DEFAULT_TIME_STEP;
+    private volatile int mMaxSubSteps = DEFAULT_MAX_SUB_STEPS;
+    private volatile boolean mInterpolate = true;
+
     private long mNativeLoader;
 
     static {
         System.loadLibrary("sxr-physics");
+
+        SXREventManager.registerInvoker(ICollisionEvents.class, "onEnter",
+            new SXREventManager.IEventInvoker<ICollisionEvents>()
+            {
+                public void invoke(ICollisionEvents handler, Object[] params)
+                {
+                    handler.onEnter((SXRNode) params[0], (SXRNode) params[1],
+                                    (float[]) params[2], (Float) params[3]);
+                }
+            });
+        SXREventManager.registerInvoker(ICollisionEvents.class, "onExit",
+            new SXREventManager.IEventInvoker<ICollisionEvents>()
+            {
+                public void invoke(ICollisionEvents handler, Object[] params)
+                {
+                    handler.onExit((SXRNode) params[0], (SXRNode) params[1],
+                                   (float[]) params[2], (Float) params[3]);
+                }
+            });
     }
 
     private final LongSparseArray<SXRPhysicsWorldObject> mPhysicsObject = new LongSparseArray<SXRPhysicsWorldObject>();
@@ -56,6 +98,16 @@ public class SXRWorld extends SXRComponent implements IEventReceiver
     private final PhysicsDragger mPhysicsDragger;
     private SXRRigidBody mRigidBodyDragMe = null;
 
+    private final SXRCollisionBuffer mCollisions = new SXRCollisionBuffer(this);
+    private volatile CollisionListenerEntry[] mCollisionListeners = new CollisionListenerEntry[0];
+    private volatile boolean mCollisionEventsEnabled = false;
+
+    /**
+     * Group mask which accepts the collisions of all the groups.
+     * @see #addCollisionListener(ICollisionListener, int)
+     */
+    public static final int ALL_GROUPS = 0xFFFF;
+
     /**
      * Events generated during physics simulation.
      * These are called from the physics thread.
@@ -83,6 +135,59 @@ public class SXRWorld extends SXRComponent implements IEventReceiver
         public void onStepPhysics(SXRWorld world);
     }
 
+    /**
+     * Cost of the physics simulation, sent after each iteration
+     * to the listeners which implement this interface.
+     * It is separate from {@link IPhysicsEvents} so the existing
+     * implementations of that interface are not affected.
+     * Called from the physics thread.
+     */
+    public interface IPhysicsStatsEvents extends IEvents
+    {
+        /**
+         * Called after each iteration of the physics simulation
+         * with the cost of the iteration.
+         * @param world     physics world being simulated
+         * @param subSteps  number of fixed steps taken in this iteration
+         * @param stepTime  time spent simulating in milliseconds
+         * @param droppedTime simulation time in seconds skipped because
+         *                  more than the maximum number of steps were needed
+         * @see #setMaxSubSteps(int)
+         */
+        public void onStepStatistics(SXRWorld world, int subSteps, float stepTime, float droppedTime);
+    }
+
+    /**
+     * Receives all the collisions which started or ended
+     * during a physics step in one call.
+     * Called from the physics thread.
+     */
+    public interface ICollisionListener
+    {
+        /**
+         * Called after each iteration of the physics simulation
+         * which started or ended any collision the listener accepts.
+         * @param world      physics world being simulated
+         * @param collisions collision records, only valid during the call
+         * @param count      number of records in collisions
+         */
+        public void onCollisions(SXRWorld world, SXRCollisionBuffer collisions, int count);
+    }
+
+    private static class CollisionListenerEntry
+    {
+        final ICollisionListener listener;
+        final int groupMask;
+        final SXRCollisionBuffer filtered;
+
+        CollisionListenerEntry(ICollisionListener listener, int groupMask, SXRCollisionBuffer filtered)
+        {
+            this.listener = listener;
+            this.groupMask = groupMask;
+            this.filtered = filtered;
+        }
+    }
+
     /**
      * Constructs new instance to simulate the Physics World of the Scene.
      *
@@ -296,32 +401,56 @@ public class SXRWorld extends SXRComponent implements IEventReceiver
     }
 
     private void generateCollisionEvents() {
-        SXRCollisionInfo collisionInfos[] = NativePhysics3DWorld.listCollisions(getNative());
-
-        String onEnter = "onEnter";
-        String onExit = "onExit";
-
-        for (SXRCollisionInfo info : collisionInfos) {
-            if (info.isHit) {
-                sendCollisionEvent(info, onEnter);
-            } else if (mPhysicsObject.get(info.bodyA) != null
-                    && mPhysicsObject.get(info.bodyB) != null) {
-                // If both bodies are in the scene.
-                sendCollisionEvent(info, onExit);
-            }
+        int count = NativePhysics3DWorld.updateCollisions(getNative());
+        CollisionListenerEntry[] listeners = mCollisionListeners;
+
+        if ((count == 0) || ((listeners.length == 0) && !mCollisionEventsEnabled)) {
+            mCollisions.setSize(0);
+            return;
         }
+        mCollisions.ensureCapacity(count);
+        count = NativePhysics3DWorld.getCollisions(getNative(), mCollisions.getBuffer(), count);
+        mCollisions.setSize(count);
+
+        for (CollisionListenerEntry entry : listeners) {
+            SXRCollisionBuffer collisions = mCollisions;
 
+            if (entry.filtered != null) {
+                collisions = entry.filtered;
+                collisions.filter(mCollisions, entry.groupMask);
+            }
+            if (collisions.size() > 0) {
+                entry.listener.onCollisions(this, collisions, collisions.size());
+            }
+        }
+        if (mCollisionEventsEnabled) {
+            sendCollisionEvents(count);
+        }
     }
 
-    private void sendCollisionEvent(SXRCollisionInfo info, String eventName) {
-        SXRNode bodyA = mPhysicsObject.get(info.bodyA).getOwnerObject();
-        SXRNode bodyB = mPhysicsObject.get(info.bodyB).getOwnerObject();
+    private void sendCollisionEvents(int count) {
+        SXREventManager eventManager = getSXRContext().getEventManager();
+
+        for (int i = 0; i < count; ++i) {
+            SXRRigidBody bodyA = mCollisions.getBodyA(i);
+            SXRRigidBody bodyB = mCollisions.getBodyB(i);
+
+            // Only if both bodies are in the scene.
+            if ((bodyA == null) || (bodyB == null)) {
+                continue;
+            }
+            String eventName = mCollisions.isEnter(i) ? "onEnter" : "onExit";
+            float[] normal = mCollisions.getNormal(i, new float[3]);
+            float distance = mCollisions.getDistance(i);
+            SXRNode nodeA = bodyA.getOwnerObject();
+            SXRNode nodeB = bodyB.getOwnerObject();
 
-        getSXRContext().getEventManager().sendEvent(bodyA, ICollisionEvents.class, eventName,
-                bodyA, bodyB, info.normal, info.distance);
+            eventManager.sendEvent(nodeA, ICollisionEvents.class, eventName,
+                    nodeA, nodeB, normal, distance);
 
-        getSXRContext().getEventManager().sendEvent(bodyB, ICollisionEvents.class, eventName,
-                bodyB, bodyA, info.normal, info.distance);
+            eventManager.sendEvent(nodeB, ICollisionEvents.class, eventName,
+                    nodeB, nodeA, normal, distance);
+        }
     }
 
     private void doPhysicsAttach(SXRNode rootNode) {
@@ -390,14 +519,210 @@ public class SXRWorld extends SXRComponent implements IEventReceiver
         NativePhysics3DWorld.getGravity(getNative(), gravity);
     }
 
-    private class SXRWorldTask implements Runnable {
+    /**
+     * Set the length of a simulation step.
+     * Each run of the physics thread takes as many steps
+     * of this length as needed to catch up with the real time.
+     * @param seconds length of a step in seconds, 1/60 by default.
+     */
+    public void setFixedTimeStep(float seconds) {
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("Time step must be positive");
+        }
+        mFixedTimeStep = seconds;
+    }
+
+    /**
+     * @return length of a simulation step in seconds.
+     */
+    public float getFixedTimeStep() {
+        return mFixedTimeStep;
+    }
+
+    /**
+     * Set the maximum number of steps taken in one run of the physics thread.
+     * If the simulation falls further behind the real time,
+     * the extra time is dropped so the simulation slows down
+     * instead of taking longer and longer to catch up.
+     * @param maxSubSteps maximum number of steps, 4 by default.
+     */
+    public void setMaxSubSteps(int maxSubSteps) {
+        if (maxSubSteps < 1) {
+            throw new IllegalArgumentException("Maximum number of sub steps must be at least 1");
+        }
+        mMaxSubSteps = maxSubSteps;
+    }
+
+    /**
+     * @return maximum number of steps taken in one run of the physics thread.
+     */
+    public int getMaxSubSteps() {
+        return mMaxSubSteps;
+    }
+
+    /**
+     * Enable or disable interpolation of the rigid body poses.
+     * <p>
+     * When enabled (the default) the nodes are moved before each frame
+     * is rendered, between their poses after the last two steps.
+     * What is displayed is up to one step behind the simulation.
+     * When disabled the nodes are moved by the physics thread
+     * after every step.
+     * @param enable true to interpolate, false to update the nodes after each step.
+     */
+    public void setInterpolation(boolean enable) {
+        mInterpolate = enable;
+    }
+
+    /**
+     * @return true if the rigid body poses are interpolated when rendering.
+     */
+    public boolean isInterpolationEnabled() {
+        return mInterpolate;
+    }
+
+    /**
+     * @return number of steps taken in the last run of the physics thread.
+     */
+    public int getLastSubStepCount() {
+        return mWorldTask.lastSubSteps;
+    }
+
+    /**
+     * @return time spent simulating in the last run of the physics thread in milliseconds.
+     */
+    public float getLastStepTime() {
+        return mWorldTask.lastStepTime;
+    }
+
+    /**
+     * @return total number of steps taken since the world was created.
+     */
+    public long getTotalStepCount() {
+        return mWorldTask.totalSteps;
+    }
+
+    /**
+     * @return total simulation time in seconds dropped because
+     * more than the maximum number of steps were needed.
+     */
+    public float getDroppedTime() {
+        return mWorldTask.totalDroppedTime;
+    }
+
+    /**
+     * Add a listener for all the collisions.
+     * @param listener listener to call after each step with collisions.
+     * @see #addCollisionListener(ICollisionListener, int)
+     */
+    public void addCollisionListener(ICollisionListener listener) {
+        addCollisionListener(listener, ALL_GROUPS);
+    }
+
+    /**
+     * Add a listener for the collisions of some collision groups.
+     * <p>
+     * The listener only gets the collisions where either body is in one
+     * of the groups in the mask. The bits in the mask are the filter groups
+     * from {@link SXRCollisionMatrix#getCollisionFilterGroup(int)}.
+     * Bodies added without a collision matrix are in the default group
+     * of the physics engine (1 for dynamic bodies, 2 for static ones).
+     * @param listener  listener to call after each step with collisions.
+     * @param groupMask filter groups of interest, {@link #ALL_GROUPS} for all.
+     */
+    public void addCollisionListener(ICollisionListener listener, int groupMask) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Collision listener must not be null");
+        }
+        groupMask &= ALL_GROUPS;
+        SXRCollisionBuffer filtered = (groupMask == ALL_GROUPS) ? null : new SXRCollisionBuffer(this);
+
+        synchronized (mCollisions) {
+            CollisionListenerEntry[] old = mCollisionListeners;
+            CollisionListenerEntry[] listeners = new CollisionListenerEntry[old.length + 1];
+
+            System.arraycopy(old, 0, listeners, 0, old.length);
+            listeners[old.length] = new CollisionListenerEntry(listener, groupMask, filtered);
+            mCollisionListeners = listeners;
+        }
+    }
+
+    /**
+     * Remove a collision listener.
+     * @param listener listener added by {@link #addCollisionListener(ICollisionListener, int)}.
+     */
+    public void removeCollisionListener(ICollisionListener listener) {
+        synchronized (mCollisions) {
+            CollisionListenerEntry[] old = mCollisionListeners;
+            int n = 0;
+
+            for (CollisionListenerEntry entry : old) {
+                if (entry.listener != listener) {
+                    ++n;
+                }
+            }
+            if (n == old.length) {
+                return;
+            }
+            CollisionListenerEntry[] listeners = new CollisionListenerEntry[n];
+            n = 0;
+            for (CollisionListenerEntry entry : old) {
+                if (entry.listener != listener) {
+                    listeners[n++] = entry;
+                }
+            }
+            mCollisionListeners = listeners;
+        }
+    }
+
+    /**
+     * Enable or disable the {@link ICollisionEvents} events.
+     * <p>
+     * These send two events through the event manager for each
+     * collision, which is costly in scenes with many collisions.
+     * They are disabled by default, use a {@link ICollisionListener}
+     * to get all the collisions of a step at once.
+     * @param enable true to send {@link ICollisionEvents} events to the nodes.
+     */
+    public void setCollisionEventsEnabled(boolean enable) {
+        mCollisionEventsEnabled = enable;
+    }
+
+    /**
+     * @return true if {@link ICollisionEvents} events are sent.
+     */
+    public boolean isCollisionEventsEnabled() {
+        return mCollisionEventsEnabled;
+    }
+
+    /**
+     * Find a rigid body in this world from its native pointer.
+     * @return rigid body or null if it is not in this world.
+     */
+    SXRRigidBody findRigidBody(long nativeBody) {
+        SXRPhysicsWorldObject physicsObject = mPhysicsObject.get(nativeBody);
+
+        if (physicsObject instanceof SXRRigidBody) {
+            return (SXRRigidBody) physicsObject;
+        }
+        return null;
+    }
+
+    private class SXRWorldTask implements Runnable, SXRDrawFrameListener {
         private boolean running = false;
         private final long intervalMillis;
-        private float timeStep;
-        private int maxSubSteps;
         private long simulationTime;
-        private long lastSimulTime;
+        private long lastSimulNanos;
+        private float accumulator;
+
+        // render time (System.nanoTime) at which the interpolated pose reaches the last step
+        private volatile long interpolationBase;
+        private volatile long stepNanos;
 
+        volatile int lastSubSteps;
+        volatile float lastStepTime;
+        volatile long totalSteps;
+        volatile float totalDroppedTime;
 
         public SXRWorldTask(long milliseconds) {
             intervalMillis = milliseconds;
@@ -412,20 +737,40 @@ public class SXRWorld extends SXRComponent implements IEventReceiver
 
             simulationTime = SystemClock.uptimeMillis();
 
-            /* To debug physics step
-            if (BuildConfig.DEBUG && timeStep != simulationTime - lastSimulTime) {
-                Log.v("SXRPhysicsWorld", "onStep " + timeStep + "ms" + ", subSteps " + maxSubSteps);
-            }*/
-
-            timeStep  = simulationTime - lastSimulTime;
-            maxSubSteps = (int) (timeStep * 60) / 1000 + 1;
-
-            NativePhysics3DWorld.step(getNative(), timeStep, maxSubSteps);
-
-            generateCollisionEvents();
-            getSXRContext().getEventManager().sendEvent(SXRWorld.this, IPhysicsEvents.class, "onStepPhysics", SXRWorld.this);
-
-            lastSimulTime = simulationTime;
+            long now = System.nanoTime();
+            float fixedTimeStep = mFixedTimeStep;
+            int maxSubSteps = mMaxSubSteps;
+            int subSteps;
+            float dropped = 0;
+
+            accumulator += (now - lastSimulNanos) * 1e-9f;
+            lastSimulNanos = now;
+            subSteps = (int) (accumulator / fixedTimeStep);
+            if (subSteps > maxSubSteps) {
+                dropped = (subSteps - maxSubSteps) * fixedTimeStep;
+                subSteps = maxSubSteps;
+            }
+            accumulator -= dropped + subSteps * fixedTimeStep;
+
+            if (subSteps > 0) {
+                boolean interpolate = mInterpolate;
+
+                mPhysicsContext.drainCommands();
+                NativePhysics3DWorld.stepFixed(getNative(), fixedTimeStep, subSteps, interpolate);
+
+                long end = System.nanoTime();
+                stepNanos = (long) (fixedTimeStep * 1e9f);
+                interpolationBase = now - (long) (accumulator * 1e9f);
+                lastSubSteps = subSteps;
+                lastStepTime = (end - now) * 1e-6f;
+                totalSteps += subSteps;
+                totalDroppedTime += dropped;
+
+                generateCollisionEvents();
+                getSXRContext().getEventManager().sendEvent(SXRWorld.this, IPhysicsEvents.class, "onStepPhysics", SXRWorld.this);
+                getSXRContext().getEventManager().sendEvent(SXRWorld.this, IPhysicsStatsEvents.class, "onStepStatistics",
+                                                            SXRWorld.this, subSteps, lastStepTime, dropped);
+            }
 
             simulationTime = intervalMillis + simulationTime - SystemClock.uptimeMillis();
             if (simulationTime < 0) {
@@ -444,7 +789,10 @@ public class SXRWorld extends SXRComponent implements IEventReceiver
                 public void run() {
                     if (!running) {
                         running = true;
-                        lastSimulTime = SystemClock.uptimeMillis();
+                        lastSimulNanos = System.nanoTime();
+                        accumulator = 0;
+                        mPhysicsContext.setStepping(true);
+                        getSXRContext().registerDrawFrameListener(SXRWorldTask.this);
                         mPhysicsContext.runDelayedOnPhysicsThread(SXRWorldTask.this,
                                 intervalMillis);
                     }
@@ -459,11 +807,28 @@ public class SXRWorld extends SXRComponent implements IEventReceiver
                 public void run() {
                     if (running) {
                         running = false;
+                        getSXRContext().unregisterDrawFrameListener(SXRWorldTask.this);
                         mPhysicsContext.removeTask(SXRWorldTask.this);
+                        mPhysicsContext.setStepping(false);
                     }
                 }
             });
         }
+
+        /**
+         * Move the nodes between the poses of the last two steps
+         * before the frame is rendered.
+         */
+        @Override
+        public void onDrawFrame(float frameTime) {
+            long step = stepNanos;
+
+            if (!running || !mInterpolate || (step <= 0)) {
+                return;
+            }
+            float alpha = (float) (System.nanoTime() - interpolationBase) / step;
+            NativePhysics3DWorld.interpolate(getNative(), Math.min(Math.max(alpha, 0.0f), 1.0f));
+        }
     }
 
     private ComponentVisitor mRigidBodiesVisitor = new ComponentVisitor() {
@@ -534,9 +899,15 @@ class NativePhysics3DWorld {
 
     static native void step(long jphysics_world, float jtime_step, int maxSubSteps);
 
+    static native void stepFixed(long jphysics_world, float fixedTimeStep, int numSteps, boolean interpolate);
+
+    static native void interpolate(long jphysics_world, float alpha);
+
     static native void getGravity(long jworld, float[] array);
 
     static native void setGravity(long jworld, float x, float y, float z);
 
-    static native SXRCollisionInfo[] listCollisions(long jphysics_world);
+    static native int updateCollisions(long jphysics_world);
+
+    static native int getCollisions(long jphysics_world, ByteBuffer buffer, int count);
 }
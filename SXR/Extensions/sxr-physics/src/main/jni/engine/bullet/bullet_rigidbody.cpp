@@ -190,6 +190,9 @@ void BulletRigidBody::getWorldTransform(btTransform &centerOfMassWorldTrans) con
 }
 
 void BulletRigidBody::setWorldTransform(const btTransform &centerOfMassWorldTrans) {
+    // interpolatePose moves the node and prevPos together under the lock,
+    // read the node under it too or the two may not match
+    std::lock_guard<std::mutex> lock(mPoseLock);
     Transform* trans = owner_object()->transform();
     btTransform aux; getWorldTransform(aux);
 
@@ -199,17 +202,69 @@ void BulletRigidBody::setWorldTransform(const btTransform &centerOfMassWorldTran
     {
         mRigidBody->setWorldTransform(aux);
         prevPos = aux;
+        // the node was moved by the application, do not interpolate it back
+        mHasPose = false;
         //TODO: incomplete solution
     }
     else
     {
         btTransform physicBody = (centerOfMassWorldTrans  * m_centerOfMassOffset);
-        convertBtTransform2Transform(physicBody, trans);
-        prevPos = physicBody;
+        if (mInterpolate)
+        {
+            // the node is updated by interpolatePose on the render thread
+            if (!mHasPose)
+            {
+                mPrevPose = physicBody;
+            }
+            mCurrPose = physicBody;
+            mHasPose = true;
+            mPoseChanged = true;
+        }
+        else
+        {
+            convertBtTransform2Transform(physicBody, trans);
+            prevPos = physicBody;
+        }
     }
     //convertBtTransform2Transform(centerOfMassWorldTrans * m_centerOfMassOffset, trans);
 }
 
+void BulletRigidBody::beginStep(bool interpolate) {
+    std::lock_guard<std::mutex> lock(mPoseLock);
+
+    if (mInterpolate && !interpolate && mHasPose)
+    {
+        // interpolation turned off, leave the node at the last pose
+        convertBtTransform2Transform(mCurrPose, owner_object()->transform());
+        prevPos = mCurrPose;
+        mHasPose = false;
+    }
+    mInterpolate = interpolate;
+    if (mHasPose)
+    {
+        mPrevPose = mCurrPose;
+    }
+}
+
+void BulletRigidBody::interpolatePose(float alpha) {
+    std::lock_guard<std::mutex> lock(mPoseLock);
+
+    if (!mInterpolate || !mHasPose || (owner_object() == nullptr))
+    {
+        return;
+    }
+    if (!mPoseChanged && (mPrevPose == mCurrPose))
+    {
+        return;                 // node already at rest pose
+    }
+    btTransform pose;
+    pose.setOrigin(mPrevPose.getOrigin().lerp(mCurrPose.getOrigin(), alpha));
+    pose.setRotation(mPrevPose.getRotation().slerp(mCurrPose.getRotation(), alpha));
+    convertBtTransform2Transform(pose, owner_object()->transform());
+    prevPos = pose;
+    mPoseChanged = !(mPrevPose == mCurrPose);
+}
+
 void BulletRigidBody::applyCentralForce(float x, float y, float z) {
     mRigidBody->applyCentralForce(btVector3(x, y, z));
     if (!mRigidBody->isActive()) {
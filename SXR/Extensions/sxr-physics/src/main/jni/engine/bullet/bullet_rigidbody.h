@@ -21,6 +21,7 @@
 
 #include <BulletDynamics/Dynamics/btRigidBody.h>
 #include <LinearMath/btMotionState.h>
+#include <mutex>
 
 class btDynamicsWorld;
 
@@ -62,6 +63,18 @@ class BulletRigidBody : public PhysicsRigidBody,
 
     void setWorldTransform(const btTransform &worldTrans);
 
+    /*
+     * Called before each fixed step, the pose after the
+     * last step becomes the pose before this one.
+     */
+    void beginStep(bool interpolate);
+
+    /*
+     * Move the node between the poses before and after
+     * the last step. Called from the render thread.
+     */
+    void interpolatePose(float alpha);
+
     void applyCentralForce(float x, float y, float z);
 
 	void applyForce(float force_x, float force_y, float force_z,
@@ -166,6 +179,12 @@ private:
     btRigidBody *mRigidBody;
     btTransform m_centerOfMassOffset;
     btTransform prevPos;
+    std::mutex mPoseLock;
+    btTransform mPrevPose;      // pose of the node before the last step
+    btTransform mCurrPose;      // pose of the node after the last step
+    bool mHasPose = false;
+    bool mPoseChanged = false;
+    bool mInterpolate = false;
     btVector3 mScale;
     SimulationType mSimType;
 
@@ -121,6 +121,7 @@ void BulletWorld::stopDrag() {
 
 void BulletWorld::addRigidBody(PhysicsRigidBody *body) {
     BulletRigidBody *rb = static_cast<BulletRigidBody *>(body);
+    std::lock_guard<std::mutex> lock(mBodiesLock);
     body->updateConstructionInfo();
     mPhysicsWorld->addRigidBody(rb->getRigidBody());
     rb->mWorld = mPhysicsWorld;
@@ -128,12 +129,14 @@ void BulletWorld::addRigidBody(PhysicsRigidBody *body) {
 
 void BulletWorld::addRigidBody(PhysicsRigidBody *body, int collisiontype, int collidesWith) {
     BulletRigidBody *rb = static_cast<BulletRigidBody *>(body);
+    std::lock_guard<std::mutex> lock(mBodiesLock);
     body->updateConstructionInfo();
     mPhysicsWorld->addRigidBody(rb->getRigidBody(), collidesWith, collisiontype);
     rb->mWorld = mPhysicsWorld;
 }
 
 void BulletWorld::removeRigidBody(PhysicsRigidBody *body) {
+    std::lock_guard<std::mutex> lock(mBodiesLock);
     mPhysicsWorld->removeRigidBody((static_cast<BulletRigidBody *>(body))->getRigidBody());
 }
 
@@ -147,11 +150,51 @@ void BulletWorld::step(float timeStep, int maxSubSteps) {
     mPhysicsWorld->stepSimulation(timeStep, maxSubSteps);
 }
 
+/*
+ * Each step is simulated on its own (maxSubSteps = 0) so Bullet
+ * does not accumulate or interpolate time itself, the caller
+ * keeps the accumulator and decides how many steps to take.
+ */
+void BulletWorld::stepFixed(float fixedTimeStep, int numSteps, bool interpolate) {
+    for (int i = 0; i < numSteps; ++i)
+    {
+        {
+            std::lock_guard<std::mutex> lock(mBodiesLock);
+            btCollisionObjectArray& objects = mPhysicsWorld->getCollisionObjectArray();
+
+            for (int j = 0; j < objects.size(); ++j)
+            {
+                btRigidBody* rb = btRigidBody::upcast(objects[j]);
+                if (rb && rb->getUserPointer())
+                {
+                    static_cast<BulletRigidBody*>(rb->getUserPointer())->beginStep(interpolate);
+                }
+            }
+        }
+        step(fixedTimeStep, 0);
+    }
+}
+
+void BulletWorld::interpolate(float alpha) {
+    std::lock_guard<std::mutex> lock(mBodiesLock);
+    btCollisionObjectArray& objects = mPhysicsWorld->getCollisionObjectArray();
+
+    alpha = std::min(std::max(alpha, 0.0f), 1.0f);
+    for (int i = 0; i < objects.size(); ++i)
+    {
+        btRigidBody* rb = btRigidBody::upcast(objects[i]);
+        if (rb && rb->getUserPointer())
+        {
+            static_cast<BulletRigidBody*>(rb->getUserPointer())->interpolatePose(alpha);
+        }
+    }
+}
+
 /**
  * Returns by reference the list of new and ceased collisions
  *  that will be the objects of ONENTER and ONEXIT events.
  */
-void BulletWorld::listCollisions(std::list <ContactPoint> &contactPoints) {
+void BulletWorld::listCollisions(std::vector <ContactPoint> &contactPoints) {
 
 /*
  * Creates a list of all the current collisions on the World
@@ -172,6 +215,8 @@ void BulletWorld::listCollisions(std::list <ContactPoint> &contactPoints) {
         contactPt.normal[1] = contactManifold->getContactPoint(0).m_normalWorldOnB.getY();
         contactPt.normal[2] = contactManifold->getContactPoint(0).m_normalWorldOnB.getZ();
         contactPt.distance = contactManifold->getContactPoint(0).getDistance();
+        contactPt.group0 = contactManifold->getBody0()->getBroadphaseHandle()->m_collisionFilterGroup;
+        contactPt.group1 = contactManifold->getBody1()->getBroadphaseHandle()->m_collisionFilterGroup;
         contactPt.isHit = true;
 
         std::pair<long, long> collisionPair((long)contactPt.body0, (long)contactPt.body1);
@@ -184,8 +229,8 @@ void BulletWorld::listCollisions(std::list <ContactPoint> &contactPoints) {
          * */
         auto it = prevCollisions.find(collisionPair);
         if ( it == prevCollisions.end()) {
-            contactPoints.push_front(contactPt);
-        } 
+            contactPoints.push_back(contactPt);
+        }
         contactManifold = 0;
     }
 
@@ -198,7 +243,7 @@ void BulletWorld::listCollisions(std::list <ContactPoint> &contactPoints) {
         if (currCollisions.find(it->first) == currCollisions.end()) {
             ContactPoint cp = it->second;
             cp.isHit = false;
-            contactPoints.push_front(cp);
+            contactPoints.push_back(cp);
         }
     }
 
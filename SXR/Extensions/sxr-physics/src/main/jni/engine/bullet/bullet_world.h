@@ -25,6 +25,7 @@
 
 #include <utility>
 #include <map>
+#include <mutex>
 #include <BulletDynamics/ConstraintSolver/btPoint2PointConstraint.h>
 
 class btDynamicsWorld;
@@ -61,7 +62,11 @@ class BulletWorld : public PhysicsWorld {
 
     void step(float timeStep, int maxSubSteps);
 
-    void listCollisions(std::list <ContactPoint> &contactPoints);
+    void stepFixed(float fixedTimeStep, int numSteps, bool interpolate);
+
+    void interpolate(float alpha);
+
+    void listCollisions(std::vector <ContactPoint> &contactPoints);
 
     void setGravity(float x, float y, float z);
 
@@ -83,6 +88,7 @@ class BulletWorld : public PhysicsWorld {
     btBroadphaseInterface *mOverlappingPairCache;
 
     btPoint2PointConstraint *mDraggingConstraint;
+    std::mutex mBodiesLock;     // guards the body list against the render thread
     Node *mPivotObject;
     int mActivationState;
 
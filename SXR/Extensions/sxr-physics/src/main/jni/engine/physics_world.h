@@ -24,7 +24,7 @@
 #include "physics_rigidbody.h"
 #include "physics_constraint.h"
 #include "../objects/node.h"
-#include <list>
+#include <vector>
 
 namespace sxr {
 
@@ -33,6 +33,8 @@ struct ContactPoint {
 	PhysicsRigidBody* body1 = 0;
 	float normal[3] = {0.0f, 0.0f, 0.0f};
 	float distance = 0.0f;
+	int group0 = 0;
+	int group1 = 0;
 	bool isHit = true;
 };
 
@@ -63,11 +65,48 @@ public:
 
     virtual void step(float timeStep, int maxSubSteps) = 0;
 
-    virtual void listCollisions(std::list<ContactPoint>& contactPoints) = 0;
+    /*
+     * Run several simulation steps of the same length.
+     * If interpolate is true the bodies keep their poses before
+     * and after the last step instead of updating their nodes,
+     * interpolate() moves the nodes between the two.
+     */
+    virtual void stepFixed(float fixedTimeStep, int numSteps, bool interpolate) = 0;
+
+    /*
+     * Move the nodes of the bodies between their poses
+     * before (alpha = 0) and after (alpha = 1) the last step.
+     * Called from the render thread.
+     */
+    virtual void interpolate(float alpha) = 0;
+
+    /*
+     * Add the collisions which started or ended
+     * since the last call to the end of contactPoints.
+     */
+    virtual void listCollisions(std::vector<ContactPoint>& contactPoints) = 0;
+
+    /*
+     * Find the collisions which started or ended since the last call.
+     * The same storage is reused every step.
+     * @returns number of collisions, see getCollisions()
+     */
+    int updateCollisions() {
+        mCollisions.clear();
+        listCollisions(mCollisions);
+        return (int) mCollisions.size();
+    }
+
+    const std::vector<ContactPoint>& getCollisions() const {
+        return mCollisions;
+    }
 
     virtual void setGravity(float gx, float gy, float gz) = 0;
 
     virtual PhysicsVec3 getGravity() const = 0;
+
+private:
+    std::vector<ContactPoint> mCollisions;
 };
 
 }
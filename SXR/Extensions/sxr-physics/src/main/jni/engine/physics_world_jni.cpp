@@ -17,6 +17,7 @@
  * Represents a physics 3D world
  ***************************************************************************/
 #include <jni.h>
+#include <algorithm>
 
 #include <android/asset_manager.h>
 #include <android/asset_manager_jni.h>
@@ -70,9 +71,21 @@ extern "C" {
     Java_com_samsungxr_physics_NativePhysics3DWorld_step(JNIEnv * env, jobject obj,
             jlong jworld, jfloat jtime_step, int maxSubSteps);
 
-    JNIEXPORT jobjectArray JNICALL
-    Java_com_samsungxr_physics_NativePhysics3DWorld_listCollisions(JNIEnv * env, jobject obj,
-                                                                    jlong jworld);
+    JNIEXPORT void JNICALL
+    Java_com_samsungxr_physics_NativePhysics3DWorld_stepFixed(JNIEnv * env, jobject obj,
+            jlong jworld, jfloat jfixed_time_step, jint numSteps, jboolean interpolate);
+
+    JNIEXPORT void JNICALL
+    Java_com_samsungxr_physics_NativePhysics3DWorld_interpolate(JNIEnv * env, jobject obj,
+            jlong jworld, jfloat alpha);
+
+    JNIEXPORT jint JNICALL
+    Java_com_samsungxr_physics_NativePhysics3DWorld_updateCollisions(JNIEnv * env, jobject obj,
+            jlong jworld);
+
+    JNIEXPORT jint JNICALL
+    Java_com_samsungxr_physics_NativePhysics3DWorld_getCollisions(JNIEnv * env, jobject obj,
+            jlong jworld, jobject jbuffer, jint count);
 
     JNIEXPORT void JNICALL
     Java_com_samsungxr_physics_NativePhysics3DWorld_setGravity(JNIEnv* env, jobject obj,
@@ -165,39 +178,74 @@ Java_com_samsungxr_physics_NativePhysics3DWorld_step(JNIEnv * env, jobject obj,
     world->step((float)jtime_step, maxSubSteps);
 }
 
-JNIEXPORT jobjectArray JNICALL
-Java_com_samsungxr_physics_NativePhysics3DWorld_listCollisions(JNIEnv * env, jobject obj, jlong jworld) {
-
-    jclass collisionInfoClass = env->FindClass("com/samsungxr/physics/SXRCollisionInfo");
-    jmethodID collisionInfoConstructor = env->GetMethodID(collisionInfoClass, "<init>", "(JJ[FFZ)V");
+JNIEXPORT void JNICALL
+Java_com_samsungxr_physics_NativePhysics3DWorld_stepFixed(JNIEnv * env, jobject obj,
+        jlong jworld, jfloat jfixed_time_step, jint numSteps, jboolean interpolate) {
+    PhysicsWorld *world = reinterpret_cast<PhysicsWorld*>(jworld);
 
-    PhysicsWorld *world = reinterpret_cast <PhysicsWorld*> (jworld);
-    std::list <ContactPoint> contactPoints;
+    world->stepFixed((float)jfixed_time_step, numSteps, interpolate);
+}
 
-    world->listCollisions(contactPoints);
+JNIEXPORT void JNICALL
+Java_com_samsungxr_physics_NativePhysics3DWorld_interpolate(JNIEnv * env, jobject obj,
+        jlong jworld, jfloat alpha) {
+    PhysicsWorld *world = reinterpret_cast<PhysicsWorld*>(jworld);
 
-    int size = contactPoints.size();
-    jobjectArray jNewList = env->NewObjectArray(size, collisionInfoClass, NULL);
+    world->interpolate(alpha);
+}
 
-    int i = 0;
-    for (auto it = contactPoints.begin(); it != contactPoints.end(); ++it) {
-        const ContactPoint& data = *it;
+JNIEXPORT jint JNICALL
+Java_com_samsungxr_physics_NativePhysics3DWorld_updateCollisions(JNIEnv * env, jobject obj,
+        jlong jworld) {
+    PhysicsWorld *world = reinterpret_cast <PhysicsWorld*> (jworld);
 
-        jfloatArray normal = env->NewFloatArray(3);
-        env->SetFloatArrayRegion(normal, 0, 3, data.normal);
+    return world->updateCollisions();
+}
 
-        jobject contactObject = env->NewObject(collisionInfoClass, collisionInfoConstructor,
-                                               (jlong)data.body0, (jlong)data.body1,
-                                               (jfloatArray)normal, (jfloat)data.distance,
-                                               (jboolean)data.isHit);
+/*
+ * Copies the collisions found by updateCollisions into a direct buffer
+ * owned by Java. Must match the layout in SXRCollisionBuffer.
+ */
+struct CollisionRecord {
+    jlong   body0;
+    jlong   body1;
+    jfloat  normal[3];
+    jfloat  distance;
+    jshort  group0;
+    jshort  group1;
+    jint    isHit;
+};
+
+static_assert(sizeof(CollisionRecord) == 40, "CollisionRecord must match SXRCollisionBuffer.RECORD_SIZE");
+
+JNIEXPORT jint JNICALL
+Java_com_samsungxr_physics_NativePhysics3DWorld_getCollisions(JNIEnv * env, jobject obj,
+        jlong jworld, jobject jbuffer, jint count) {
+    PhysicsWorld *world = reinterpret_cast <PhysicsWorld*> (jworld);
+    CollisionRecord* records = static_cast<CollisionRecord*>(env->GetDirectBufferAddress(jbuffer));
+    const std::vector<ContactPoint>& contactPoints = world->getCollisions();
 
-        env->SetObjectArrayElement(jNewList, i++, contactObject);
-        env->DeleteLocalRef(contactObject);
-        env->DeleteLocalRef(normal);
+    if (records == nullptr) {
+        return 0;
     }
-
-    env->DeleteLocalRef(collisionInfoClass);
-    return jNewList;
+    int capacity = (int) (env->GetDirectBufferCapacity(jbuffer) / sizeof(CollisionRecord));
+    int n = std::min(std::min((int) count, capacity), (int) contactPoints.size());
+
+    for (int i = 0; i < n; ++i) {
+        const ContactPoint& data = contactPoints[i];
+        CollisionRecord& rec = records[i];
+
+        rec.body0 = reinterpret_cast<jlong>(data.body0);
+        rec.body1 = reinterpret_cast<jlong>(data.body1);
+        rec.normal[0] = data.normal[0];
+        rec.normal[1] = data.normal[1];
+        rec.normal[2] = data.normal[2];
+        rec.distance = data.distance;
+        rec.group0 = (jshort) data.group0;
+        rec.group1 = (jshort) data.group1;
+        rec.isHit = data.isHit ? 1 : 0;
+    }
+    return n;
 }
 
 JNIEXPORT void JNICALL
@@ -0,0 +1,167 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.physics;
+
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Times sending rigid body commands from several threads to one consumer
+ * thread through {@link SXRPhysicsCommands} against posting a Runnable for
+ * each command, which is what SXRPhysicsContext did with its Handler.
+ * android.os.Handler only runs on a device, so the posting path goes through
+ * a blocking queue serviced by one thread, like a Looper's message queue:
+ * one allocation and one locked enqueue per command.
+ */
+public class SXRPhysicsCommandsBenchmark {
+    private static final int PRODUCER_COUNT = 4;
+    private static final int COMMANDS_PER_PRODUCER = 250000;
+
+    private static class CountingCommands extends SXRPhysicsCommands {
+        long mExecuted = 0;
+
+        CountingCommands() {
+            super(4096);
+        }
+
+        @Override
+        void execute(int op, SXRRigidBody body, float[] values, int v) {
+            ++mExecuted;
+        }
+    }
+
+    private interface Producer {
+        void send(int producer, int command);
+    }
+
+    private static double runProducers(final Producer producer) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[PRODUCER_COUNT];
+
+        for (int p = 0; p < PRODUCER_COUNT; ++p) {
+            final int id = p;
+            threads[p] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < COMMANDS_PER_PRODUCER; ++i) {
+                        producer.send(id, i);
+                    }
+                }
+            };
+            threads[p].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (System.nanoTime() - begin) / 1e6;
+    }
+
+    private static double[] timeRing() throws InterruptedException {
+        final CountingCommands commands = new CountingCommands();
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final long total = (long) PRODUCER_COUNT * COMMANDS_PER_PRODUCER;
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                while (!done.get() || (commands.mExecuted < total)) {
+                    if (commands.drain() == 0) {
+                        Thread.yield();
+                    }
+                }
+            }
+        };
+        consumer.start();
+        long begin = System.nanoTime();
+        double sendTime = runProducers(new Producer() {
+            @Override
+            public void send(int producer, int command) {
+                while (!commands.push(SXRPhysicsCommands.APPLY_CENTRAL_FORCE, null,
+                                      producer, command, 0, 0, 0, 0)) {
+                    Thread.yield();
+                }
+            }
+        });
+        done.set(true);
+        consumer.join();
+        double totalTime = (System.nanoTime() - begin) / 1e6;
+        assertEquals(total, commands.mExecuted);
+        return new double[] { sendTime, totalTime };
+    }
+
+    private static double[] timePosting() throws InterruptedException {
+        final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
+        final long[] executed = new long[1];
+        final long total = (long) PRODUCER_COUNT * COMMANDS_PER_PRODUCER;
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (executed[0] < total) {
+                        queue.take().run();
+                    }
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        consumer.start();
+        long begin = System.nanoTime();
+        double sendTime = runProducers(new Producer() {
+            @Override
+            public void send(final int producer, final int command) {
+                final float[] values = new float[] { producer, command, 0, 0, 0, 0 };
+                queue.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (values[0] >= 0) {
+                            ++executed[0];
+                        }
+                    }
+                });
+            }
+        });
+        consumer.join();
+        double totalTime = (System.nanoTime() - begin) / 1e6;
+        assertEquals(total, executed[0]);
+        return new double[] { sendTime, totalTime };
+    }
+
+    @Test
+    public void compareWithPosting() throws InterruptedException {
+        // the first runs warm up the JIT
+        timeRing();
+        timePosting();
+
+        double[] ring = timeRing();
+        double[] posting = timePosting();
+        System.out.println(String.format("%d threads x %d commands   %10s %10s",
+                PRODUCER_COUNT, COMMANDS_PER_PRODUCER, "send ms", "total ms"));
+        System.out.println(String.format("%-30s %10.1f %10.1f", "command ring", ring[0], ring[1]));
+        System.out.println(String.format("%-30s %10.1f %10.1f", "runnable per command", posting[0], posting[1]));
+    }
+}
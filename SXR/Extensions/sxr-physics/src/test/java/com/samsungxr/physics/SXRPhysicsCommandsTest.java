@@ -0,0 +1,153 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.physics;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SXRPhysicsCommandsTest {
+    /**
+     * Records the commands instead of calling the rigid bodies.
+     * The first value is the producer, the second one its command number.
+     */
+    private static class RecordingCommands extends SXRPhysicsCommands {
+        final int[] mNextCommand;
+        int mExecuted = 0;
+        String mError = null;
+
+        RecordingCommands(int capacity, int producers) {
+            super(capacity);
+            mNextCommand = new int[producers];
+        }
+
+        @Override
+        void execute(int op, SXRRigidBody body, float[] values, int v) {
+            int producer = (int) values[v];
+            int command = (int) values[v + 1];
+
+            if ((mError == null) && (command != mNextCommand[producer])) {
+                mError = "producer " + producer + " command " + command +
+                         " executed, expected " + mNextCommand[producer];
+            }
+            if ((mError == null) && ((op != SXRPhysicsCommands.APPLY_FORCE) || (values[v + 5] != -command))) {
+                mError = "command " + command + " of producer " + producer + " was not written whole";
+            }
+            mNextCommand[producer] = command + 1;
+            ++mExecuted;
+        }
+    }
+
+    private static boolean push(SXRPhysicsCommands commands, int producer, int command) {
+        return commands.push(SXRPhysicsCommands.APPLY_FORCE, null, producer, command, 1, 2, 3, -command);
+    }
+
+    @Test
+    public void executesInOrder() {
+        RecordingCommands commands = new RecordingCommands(8, 1);
+
+        assertEquals(8, commands.getCapacity());
+        assertEquals(0, commands.drain());
+        for (int i = 0; i < 5; ++i) {
+            assertTrue(push(commands, 0, i));
+        }
+        assertEquals(5, commands.drain());
+        assertEquals(5, commands.getQueuedCount());
+        assertEquals(5, commands.getExecutedCount());
+        assertEquals(1, commands.getDrainCount());
+        assertEquals(null, commands.mError);
+    }
+
+    @Test
+    public void rejectsWhenFullAndWrapsAround() {
+        RecordingCommands commands = new RecordingCommands(5, 1);
+        int command = 0;
+
+        // rounded up to a power of two
+        assertEquals(8, commands.getCapacity());
+        for (int round = 0; round < 10; ++round) {
+            for (int i = 0; i < 8; ++i) {
+                assertTrue(push(commands, 0, command++));
+            }
+            assertFalse(push(commands, 0, command));
+            assertEquals(8, commands.drain());
+        }
+        assertEquals(80, commands.mExecuted);
+        assertEquals(null, commands.mError);
+    }
+
+    @Test
+    public void manyProducersOneConsumer() throws InterruptedException {
+        final int producerCount = 4;
+        final int commandsPerProducer = 200000;
+        final RecordingCommands commands = new RecordingCommands(1024, producerCount);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        Thread[] producers = new Thread[producerCount];
+
+        for (int p = 0; p < producerCount; ++p) {
+            final int producer = p;
+            producers[p] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < commandsPerProducer; ) {
+                        // retry while the ring is full, as the context would post instead
+                        if (push(commands, producer, i)) {
+                            ++i;
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+            producers[p].start();
+        }
+
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                while (!done.get()) {
+                    commands.drain();
+                }
+                commands.drain();
+            }
+        };
+        consumer.start();
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        done.set(true);
+        consumer.join();
+
+        assertEquals(null, commands.mError);
+        assertEquals(producerCount * commandsPerProducer, commands.mExecuted);
+        assertEquals(commands.getQueuedCount(), commands.getExecutedCount());
+        for (int p = 0; p < producerCount; ++p) {
+            assertEquals(commandsPerProducer, commands.mNextCommand[p]);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.samsungxr.widgetlib.widget;
 
 import android.database.DataSetObserver;
+import android.util.SparseArray;
 
 import com.samsungxr.widgetlib.main.WidgetLib;
 import com.samsungxr.widgetlib.widget.animation.SimpleAnimationTracker;
@@ -10,6 +11,7 @@ import com.samsungxr.widgetlib.adapter.Adapter;
 import com.samsungxr.widgetlib.log.Log;
 import static com.samsungxr.widgetlib.main.Utility.equal;
 
+import com.samsungxr.widgetlib.thread.ExecutionChain;
 import com.samsungxr.widgetlib.thread.FPSCounter;
 
 import com.samsungxr.widgetlib.widget.animation.Animation;
@@ -33,6 +35,7 @@ import static com.samsungxr.widgetlib.widget.properties.JSONHelpers.optJSONObjec
 import com.samsungxr.SXRContext;
 import org.json.JSONObject;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -51,6 +54,11 @@ import java.util.Set;
  * - item selection
  * - item focus listener
  * - scrolling
+ *
+ * Only the items in the viewport are attached to the list. The hosts of the items scrolled out
+ * are kept in recycle pools by {@linkplain Adapter#getItemViewType(int) view type}, and their
+ * views are passed back to {@link Adapter#getView(int, Widget, GroupWidget)} as the convert
+ * view for new items of the same type.
  */
 public class ListWidget extends GroupWidget implements ScrollableList {
     /**
@@ -386,12 +394,9 @@ public class ListWidget extends GroupWidget implements ScrollableList {
      */
     public Widget getView(int dataIndex) {
         Widget view = null;
-        for (Widget child: mContent.getChildren()) {
-            ListItemHostWidget host = ((ListItemHostWidget) child);
-            if (host.getDataIndex() == dataIndex) {
-                view = host.getGuest();
-                break;
-            }
+        ListItemHostWidget host = getHostView(dataIndex, false);
+        if (host != null) {
+            view = host.getGuest();
         }
         return view;
     }
@@ -401,7 +406,9 @@ public class ListWidget extends GroupWidget implements ScrollableList {
      */
     public void clear() {
         clearSelection(false);
+        discardPrefetchedViews();
         mContent.clear();
+        mActiveViews.clear();
     }
 
     /**
@@ -741,6 +748,17 @@ public class ListWidget extends GroupWidget implements ScrollableList {
             }
             if (direction != Direction.NONE) {
                 offset = layout.preMeasureNext(measuredChildren, axis, direction);
+                if (!mScrollByOffset.isNaN()) {
+                    // measure only the items coming into the viewport over the scrolling distance
+                    float distance = Math.abs(mScrollByOffset.get(axis));
+                    while (!Float.isNaN(offset) && Math.abs(offset) < distance) {
+                        float next = layout.preMeasureNext(measuredChildren, axis, direction);
+                        if (Float.isNaN(next) || equal(next, 0)) {
+                            break;
+                        }
+                        offset += next;
+                    }
+                }
                 // reached the end of list, just move to some amount
                 if (Float.isNaN(offset)) {
                     if (mScrollByOffset.isNaN()) {
@@ -930,6 +948,7 @@ public class ListWidget extends GroupWidget implements ScrollableList {
     private void setupHost(ListItemHostWidget host, Widget view, final int dataIndex) {
         boolean selected = setupView(view, dataIndex);
         host.setGuest(view, dataIndex);
+        host.mViewType = getItemViewType(dataIndex);
         host.setSelected(selected);
         host.requestLayout();
 
@@ -949,7 +968,17 @@ public class ListWidget extends GroupWidget implements ScrollableList {
      * @return view displays the data at the specified position
      */
     protected Widget getViewFromAdapter(final int index, ListItemHostWidget host) {
-        return mAdapter == null ? null : mAdapter.getView(index, host.getGuest(), host);
+        if (mAdapter == null) {
+            return null;
+        }
+        ++mBindCount;
+        return mAdapter.getView(index, host.getConvertView(), host);
+    }
+
+    private int getItemViewType(final int index) {
+        return mAdapter == null || index < 0 || index >= getDataCount() ?
+                android.widget.Adapter.IGNORE_ITEM_VIEW_TYPE :
+                mAdapter.getItemViewType(index);
     }
 
     /**
@@ -1013,6 +1042,7 @@ public class ListWidget extends GroupWidget implements ScrollableList {
                     }
                 }
                 boolean added = mContent.addChild(host, true);
+                mActiveViews.put(dataIndex, host);
                 host.layout();
                 Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "getRecycleableView: item [%s] is added [%b] to the list",
                         host, added);
@@ -1031,6 +1061,7 @@ public class ListWidget extends GroupWidget implements ScrollableList {
      */
     protected ListItemHostWidget makeHost(SXRContext sxrContext) {
         ListItemHostWidget host = new ListItemHostWidget(sxrContext);
+        ++mCreateCount;
         return host;
     }
 
@@ -1063,6 +1094,7 @@ public class ListWidget extends GroupWidget implements ScrollableList {
                 }
                 mGuestWidget = guest;
                 if (mGuestWidget != null) {
+                    mConvertWidget = null;
                     addChild(mGuestWidget, true);
                     hostWidth = mGuestWidget.getWidth();
                     hostHeight = mGuestWidget.getHeight();
@@ -1103,6 +1135,9 @@ public class ListWidget extends GroupWidget implements ScrollableList {
         public void recycle() {
             Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "recycle(%s), dataIndex = %d", getName(), mDataIndex);
             setSelected(false);
+            if (mGuestWidget != null) {
+                mConvertWidget = mGuestWidget;
+            }
             setGuest(null, -1);
             setViewPortVisibility(ViewPortVisibility.INVISIBLE);
             hostWidth = hostHeight = hostDepth = 0;
@@ -1162,6 +1197,17 @@ public class ListWidget extends GroupWidget implements ScrollableList {
             return mGuestWidget;
         }
 
+        /**
+         * @return the guest widget, or the last guest widget if the host is recycled. It is
+         * passed to the {@link Adapter} as the view to convert.
+         */
+        protected Widget getConvertView() {
+            if (mGuestWidget != null) {
+                return mGuestWidget;
+            }
+            return mViewType == android.widget.Adapter.IGNORE_ITEM_VIEW_TYPE ? null : mConvertWidget;
+        }
+
         private boolean isRecycled() {
             return mDataIndex == -1 || mGuestWidget == null;
         }
@@ -1172,7 +1218,9 @@ public class ListWidget extends GroupWidget implements ScrollableList {
 
         private float hostWidth, hostHeight, hostDepth;
         private Widget mGuestWidget;
+        private Widget mConvertWidget;
         private int mDataIndex = -1;
+        private int mViewType = android.widget.Adapter.IGNORE_ITEM_VIEW_TYPE;
     }
     private boolean isScrolling() {
         return mScroller == null ? false : mScroller.doScrolling();
@@ -1243,6 +1291,9 @@ public class ListWidget extends GroupWidget implements ScrollableList {
 
     private void recycle(ListItemHostWidget host) {
         mContent.removeChild(host, true);
+        if (mActiveViews.get(host.getDataIndex()) == host) {
+            mActiveViews.remove(host.getDataIndex());
+        }
 
         if (!host.isRecycled()) {
             Widget view = host.getGuest();
@@ -1251,8 +1302,52 @@ public class ListWidget extends GroupWidget implements ScrollableList {
             mContent.invalidateAllLayouts(host);
 
             host.recycle();
-            if (!mRecycledViews.contains(host)) {
-                mRecycledViews.add(host);
+            addRecycledView(host);
+        }
+    }
+
+    private void addRecycledView(ListItemHostWidget host) {
+        ArrayDeque<ListItemHostWidget> pool = mRecycledViews.get(host.mViewType);
+        if (pool == null) {
+            pool = new ArrayDeque<>();
+            mRecycledViews.put(host.mViewType, pool);
+        }
+        pool.push(host);
+        ++mRecycleCount;
+    }
+
+    /**
+     * Get a recycled host, preferably one whose last view has the same type so the
+     * {@link Adapter} can convert it.
+     * @param viewType view type of the item
+     * @return recycled host or null if the pools are empty
+     */
+    private ListItemHostWidget obtainRecycledView(final int viewType) {
+        ArrayDeque<ListItemHostWidget> pool = mRecycledViews.get(viewType);
+        if (pool != null && !pool.isEmpty()) {
+            return pool.pop();
+        }
+        for (int i = 0; i < mRecycledViews.size(); ++i) {
+            pool = mRecycledViews.valueAt(i);
+            if (!pool.isEmpty()) {
+                ListItemHostWidget host = pool.pop();
+                // different type, the view cannot be converted
+                host.mConvertWidget = null;
+                return host;
+            }
+        }
+        return null;
+    }
+
+    private void trimRecycledViews() {
+        for (int i = 0; i < mRecycledViews.size(); ++i) {
+            ArrayDeque<ListItemHostWidget> pool = mRecycledViews.valueAt(i);
+            if (pool.size() > mRecyclePoolSize) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "Trim %d items of type %d",
+                        pool.size() - mRecyclePoolSize, mRecycledViews.keyAt(i));
+            }
+            while (pool.size() > mRecyclePoolSize) {
+                pool.removeLast();
             }
         }
     }
@@ -1281,6 +1376,7 @@ public class ListWidget extends GroupWidget implements ScrollableList {
 
         // TODO: selectively recycle data based on the changes in the data set
         mPreferableCenterPosition = preferableCenterPosition;
+        discardPrefetchedViews();
         recycleChildren();
     }
 
@@ -1324,6 +1420,7 @@ public class ListWidget extends GroupWidget implements ScrollableList {
             Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "measure layout mPreferableCenterPosition = %d, newPosition = %d",
                     mPreferableCenterPosition, centerPosition);
 
+            prefetch(measuredChildren, centerPosition);
             return true;
         }
 
@@ -1340,10 +1437,10 @@ public class ListWidget extends GroupWidget implements ScrollableList {
             }
 
             if (mTrimRequest) {
-                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "Trim %d items ", mRecycledViews.size());
-                mRecycledViews.clear();
+                trimRecycledViews();
                 mTrimRequest = false;
             }
+            updateFrameMetrics();
 
             notifyOnInvalidated();
             notifyOnChanged();
@@ -1430,29 +1527,258 @@ public class ListWidget extends GroupWidget implements ScrollableList {
     }
 
     protected ListItemHostWidget getHostView(int dataIndex, boolean enforceNew) {
-        ListItemHostWidget host = null;
-
-        for (Widget child: mContent.getChildren()) {
-            ListItemHostWidget next  = (ListItemHostWidget)child;
-            if (next.getDataIndex() == dataIndex) {
-                host = next;
-                break;
-            }
+        ListItemHostWidget host = mActiveViews.get(dataIndex);
+        if (host != null && host.getDataIndex() != dataIndex) {
+            host = null;
         }
 
         if (host == null  && enforceNew) {
-            if (!mRecycledViews.isEmpty()) {
-                host = mRecycledViews.remove(0);
-                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "reuse recycled view: %s", host);
-
+            host = mPrefetchedViews.get(dataIndex);
+            if (host != null) {
+                mPrefetchedViews.remove(dataIndex);
+                host.setSelected(isSelected(dataIndex));
+                ++mPrefetchHitCount;
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "use prefetched view: %s", host);
             } else {
-                host = makeHost(getSXRContext());
+                host = obtainRecycledView(getItemViewType(dataIndex));
+                if (host != null) {
+                    Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "reuse recycled view: %s", host);
+                } else {
+                    host = makeHost(getSXRContext());
+                }
             }
         }
 
         return host;
     }
 
+    //===================== Prefetching <start> =============================
+
+    /**
+     * Set the number of items to get ready past the end of the viewport, in the direction
+     * the list was last scrolled. The data is requested by {@link Adapter#getItem(int)} on a
+     * background thread, then the views are set up on the GL thread before the items come
+     * into the viewport. The adapter has to support calls to {@link Adapter#getItem(int)}
+     * from a background thread if prefetching is enabled.
+     * @param count number of items, 0 disables prefetching (default)
+     */
+    public void setPrefetchCount(final int count) {
+        mPrefetchCount = Math.max(count, 0);
+        if (mPrefetchCount == 0) {
+            runOnGlThread(new Runnable() {
+                @Override
+                public void run() {
+                    discardPrefetchedViews();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return number of items prefetched past the end of the viewport
+     */
+    public int getPrefetchCount() {
+        return mPrefetchCount;
+    }
+
+    private void prefetch(final Collection<Widget> measuredChildren, final int centerPosition) {
+        if (mPrefetchCount == 0 || mAdapter == null) {
+            return;
+        }
+        int firstIndex = Integer.MAX_VALUE, lastIndex = -1;
+        for (Widget next: measuredChildren) {
+            int dataIndex = mContent.getDataIndex(next);
+            if (dataIndex >= 0) {
+                firstIndex = Math.min(firstIndex, dataIndex);
+                lastIndex = Math.max(lastIndex, dataIndex);
+            }
+        }
+        if (lastIndex < 0) {
+            return;
+        }
+
+        if (centerPosition != mLastCenterPosition && mLastCenterPosition >= 0) {
+            mPrefetchDirection = centerPosition > mLastCenterPosition ?
+                    Direction.FORWARD : Direction.BACKWARD;
+        }
+        mLastCenterPosition = centerPosition;
+
+        final int first, last;
+        if (mPrefetchDirection == Direction.BACKWARD) {
+            first = Math.max(firstIndex - mPrefetchCount, 0);
+            last = firstIndex - 1;
+        } else {
+            first = lastIndex + 1;
+            last = Math.min(lastIndex + mPrefetchCount, getDataCount() - 1);
+        }
+
+        if (mPrefetchChain != null) {
+            mPrefetchChain.cancel();
+            mPrefetchChain = null;
+        }
+        // drop the prefetched views the list moved away from
+        for (int i = mPrefetchedViews.size(); --i >= 0; ) {
+            int dataIndex = mPrefetchedViews.keyAt(i);
+            if (dataIndex < first || dataIndex > last) {
+                discardPrefetchedView(mPrefetchedViews.valueAt(i));
+                mPrefetchedViews.removeAt(i);
+            }
+        }
+        if (first > last) {
+            return;
+        }
+
+        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "prefetch(%s): items [%d, %d]", getName(), first, last);
+        final Adapter adapter = mAdapter;
+        mPrefetchChain = new ExecutionChain(getSXRContext())
+                .runOnBackgroundThread(new ExecutionChain.Task<Void, Void>() {
+                    @Override
+                    public Void run(ExecutionChain.Task<Void, ?> task) {
+                        for (int i = first; i <= last && !isCancelled(); ++i) {
+                            if (i < adapter.getCount()) {
+                                adapter.getItem(i);
+                            }
+                        }
+                        return null;
+                    }
+                })
+                .runOnGLThread(new ExecutionChain.Task<Void, Void>() {
+                    @Override
+                    public Void run(ExecutionChain.Task<Void, ?> task) {
+                        for (int i = first; i <= last && !isCancelled() && adapter == mAdapter; ++i) {
+                            prefetchView(i);
+                        }
+                        return null;
+                    }
+                });
+        mPrefetchChain.execute();
+    }
+
+    private void prefetchView(final int dataIndex) {
+        if (dataIndex >= getDataCount() || mPrefetchedViews.get(dataIndex) != null ||
+                getHostView(dataIndex, false) != null) {
+            return;
+        }
+        ListItemHostWidget host = obtainRecycledView(getItemViewType(dataIndex));
+        if (host == null) {
+            host = makeHost(getSXRContext());
+        }
+        Widget view = getViewFromAdapter(dataIndex, host);
+        if (view != null) {
+            setupHost(host, view, dataIndex);
+            mPrefetchedViews.put(dataIndex, host);
+            ++mPrefetchedTotal;
+        } else {
+            addRecycledView(host);
+        }
+    }
+
+    private void discardPrefetchedView(ListItemHostWidget host) {
+        onRecycle(host.getGuest(), host.getDataIndex());
+        host.recycle();
+        addRecycledView(host);
+    }
+
+    private void discardPrefetchedViews() {
+        if (mPrefetchChain != null) {
+            mPrefetchChain.cancel();
+            mPrefetchChain = null;
+        }
+        for (int i = 0; i < mPrefetchedViews.size(); ++i) {
+            discardPrefetchedView(mPrefetchedViews.valueAt(i));
+        }
+        mPrefetchedViews.clear();
+    }
+
+    //===================== Prefetching <end> =============================
+
+    //===================== Metrics <start> =============================
+
+    /**
+     * Set the number of recycled hosts kept for each view type when the list is trimmed.
+     * @param size number of hosts per {@linkplain Adapter#getItemViewType(int) view type}
+     */
+    public void setRecyclePoolSize(final int size) {
+        mRecyclePoolSize = Math.max(size, 0);
+    }
+
+    /**
+     * @return number of recycled hosts kept for each view type
+     */
+    public int getRecyclePoolSize() {
+        return mRecyclePoolSize;
+    }
+
+    /**
+     * @return total number of views requested from the {@link Adapter}
+     */
+    public long getBindCount() {
+        return mBindCount;
+    }
+
+    /**
+     * @return total number of hosts created for the items
+     */
+    public long getCreateCount() {
+        return mCreateCount;
+    }
+
+    /**
+     * @return total number of hosts recycled
+     */
+    public long getRecycleCount() {
+        return mRecycleCount;
+    }
+
+    /**
+     * @return total number of items prefetched
+     */
+    public long getPrefetchedCount() {
+        return mPrefetchedTotal;
+    }
+
+    /**
+     * @return total number of prefetched items which came into the viewport
+     */
+    public long getPrefetchHitCount() {
+        return mPrefetchHitCount;
+    }
+
+    /**
+     * @return number of views requested from the {@link Adapter} up to the last layout of the
+     * list, since the layout before. The list is laid out at most once per frame.
+     */
+    public int getLastFrameBindCount() {
+        return mLastFrameBindCount;
+    }
+
+    /**
+     * @return number of hosts created up to the last layout of the list, since the layout before
+     */
+    public int getLastFrameCreateCount() {
+        return mLastFrameCreateCount;
+    }
+
+    /**
+     * @return number of hosts recycled up to the last layout of the list, since the layout before
+     */
+    public int getLastFrameRecycleCount() {
+        return mLastFrameRecycleCount;
+    }
+
+    private void updateFrameMetrics() {
+        mLastFrameBindCount = (int) (mBindCount - mFrameBindBase);
+        mLastFrameCreateCount = (int) (mCreateCount - mFrameCreateBase);
+        mLastFrameRecycleCount = (int) (mRecycleCount - mFrameRecycleBase);
+        mFrameBindBase = mBindCount;
+        mFrameCreateBase = mCreateCount;
+        mFrameRecycleBase = mRecycleCount;
+        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "frame metrics(%s): binds = %d creates = %d recycles = %d",
+                getName(), mLastFrameBindCount, mLastFrameCreateCount, mLastFrameRecycleCount);
+    }
+
+    //===================== Metrics <end> =============================
+
     protected int getViewCount() {
         return mContent.getChildren().size();
     }
@@ -1621,9 +1947,26 @@ public class ListWidget extends GroupWidget implements ScrollableList {
     private boolean mOnChanged;
     private boolean mOnInvalidated;
 
-    private List<ListItemHostWidget> mRecycledViews = new ArrayList<>();
+    private static final int DEFAULT_RECYCLE_POOL_SIZE = 8;
+
+    // hosts in the content by data index, recycled hosts by view type
+    private final SparseArray<ListItemHostWidget> mActiveViews = new SparseArray<>();
+    private final SparseArray<ArrayDeque<ListItemHostWidget>> mRecycledViews = new SparseArray<>();
+    private int mRecyclePoolSize = DEFAULT_RECYCLE_POOL_SIZE;
     private boolean mTrimRequest;
 
+    // hosts set up ahead of the viewport by data index
+    private final SparseArray<ListItemHostWidget> mPrefetchedViews = new SparseArray<>();
+    private ExecutionChain mPrefetchChain;
+    private int mPrefetchCount;
+    private Direction mPrefetchDirection = Direction.FORWARD;
+    private int mLastCenterPosition = -1;
+
+    private long mBindCount, mCreateCount, mRecycleCount;
+    private long mPrefetchedTotal, mPrefetchHitCount;
+    private long mFrameBindBase, mFrameCreateBase, mFrameRecycleBase;
+    private int mLastFrameBindCount, mLastFrameCreateCount, mLastFrameRecycleCount;
+
     private boolean mMultiSelectionSupported;
     private boolean mSelectOnTouchEnabled;
     protected Set<Integer> mSelectedItemsList = new HashSet<>();
@@ -216,17 +216,19 @@ public class GridLayout extends OrientedLayout {
         }
 
         protected CacheDataSet getCache(final int dataIndex) {
-            for (int i = mCaches.size(); --i >=0; ) {
-                CacheDataSet cache = mCaches.valueAt(i);
-                if (cache.contains(dataIndex)) {
-                    return cache;
-                }
-            }
-            return null;
+            int cacheId = getCacheId(dataIndex);
+            return cacheId >= 0 ? mCaches.valueAt(cacheId) : null;
         }
 
 
         protected int getCacheId(final int dataIndex) {
+            // the item is measured into the cache of its chunk
+            if (mChunkBreaker != null) {
+                int i = mCaches.indexOfKey(mChunkBreaker.getChunkIndex(dataIndex));
+                if (i >= 0 && mCaches.valueAt(i).contains(dataIndex)) {
+                    return i;
+                }
+            }
             for (int i = mCaches.size(); --i >=0; ) {
                 CacheDataSet cache = mCaches.valueAt(i);
                 if (cache.contains(dataIndex)) {
@@ -1,17 +1,21 @@
 package com.samsungxr.widgetlib.widget.layout.basic;
 
-import android.util.SparseArray;
-
 import com.samsungxr.widgetlib.log.Log;
 import com.samsungxr.widgetlib.widget.layout.CacheData;
 import com.samsungxr.widgetlib.widget.layout.CacheDataSet;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 /**
  * Implementation of CacheDataSet for LinearLayout
+ * <p>
+ * The data is kept in a {@link PrefixSumTree} by position, with the item size and
+ * both paddings as the value, so adding, removing or resizing an item, the position
+ * of an id, the id at a position and the item at a given offset are O(log n).
+ * <p>
+ * The items are laid out one after the other, so the offsets are not stored: the
+ * offset of an item is a common origin plus the sum of the items before it.
+ * Setting the offset of an item only moves the origin and marks the item as laid
+ * out; the items which have not been laid out since the last invalidation have no
+ * offset (NaN). Shifting all the offsets only moves the origin.
  */
 
 class LinearCacheDataSet implements CacheDataSet {
@@ -23,11 +27,14 @@ class LinearCacheDataSet implements CacheDataSet {
             copy.mTotalSize = mTotalSize;
             copy.mOuterPaddingEnabled = mOuterPaddingEnabled;
 
+            copy.mTree.clear();
             for (int pos = 0; pos < count(); ++pos) {
-                copy.mCacheDataSet.put(mCacheDataSet.keyAt(pos),
-                        new CacheData(mCacheDataSet.valueAt(pos)));
-                copy.mIdsSet.add(pos, mIdsSet.get(pos));
+                CacheData data = new CacheData(mTree.getAt(pos));
+                copy.mTree.insert(pos, mTree.getId(pos), data, getExtent(data));
             }
+            copy.mOrigin = mOrigin;
+            copy.mLaidOutFrom = mLaidOutFrom;
+            copy.mLaidOutTo = mLaidOutTo;
             if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
                 to.dump();
             }
@@ -40,12 +47,15 @@ class LinearCacheDataSet implements CacheDataSet {
     @Override
     synchronized public void dump() {
         Log.d(TAG, "\n==== DUMP CACHE start ======\nCache size = %d " +
-                        "totalSize = %f totalPadding = %f mOuterPaddingEnabled = %b",
-                count(), mTotalSize, mTotalPadding, mOuterPaddingEnabled);
+                        "totalSize = %f totalPadding = %f mOuterPaddingEnabled = %b " +
+                        "laid out = [%d, %d)",
+                count(), mTotalSize, mTotalPadding, mOuterPaddingEnabled,
+                mLaidOutFrom, mLaidOutTo);
 
         for (int pos = 0; pos < count(); ++pos) {
-            Log.d(TAG, "data[%d, %d]: %s", mIdsSet.get(pos), pos,
-                    mCacheDataSet.valueAt(pos));
+            CacheData data = mTree.getAt(pos);
+            Log.d(TAG, "data[%d, %d]: %s layout offset [%f]", mTree.getId(pos), pos,
+                    data, getDataOffset(pos, data));
         }
 
         Log.d(TAG, "\n==== DUMP CACHE end ======\n");
@@ -53,19 +63,40 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public boolean contains(final int id) {
-        return mCacheDataSet.indexOfKey(id) >= 0;
+        return mTree.contains(id);
     }
 
+    /**
+     * Adds the data at the position. If the id is already in the set, it keeps its
+     * position and only gets the new size and padding.
+     */
     @Override
     synchronized public float addData(final int id, final int pos,
                                       final float size, final float startPadding, final float endPadding) {
-        CacheData data = new CacheData(id);
+        CacheData data = mTree.get(id);
+        if (data != null) {
+            int actualPos = mTree.getPos(id);
+            double extent = getExtent(data);
+            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "addData id = %d pos = %d resized", id, actualPos);
+
+            mTotalSize -= data.getSize();
+            updateTotalPadding(actualPos, data, false);
+
+            data.setSize(size);
+            data.setPadding(startPadding, endPadding);
+            mTree.setValue(id, getExtent(data));
+            onResized(actualPos, getExtent(data) - extent);
+
+            mTotalSize += data.getSize();
+            float paddingSpace = updateTotalPadding(actualPos, data, true);
+            return paddingSpace + size;
+        }
+
+        data = new CacheData(id);
 
         data.setSize(size);
         data.setPadding(startPadding, endPadding);
 
-        mCacheDataSet.append(id, data);
-
         mTotalSize += data.getSize();
 
         int actualPos = pos;
@@ -75,7 +106,8 @@ class LinearCacheDataSet implements CacheDataSet {
             actualPos = count();
         }
         Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "addData id = %d pos = %d", id, actualPos);
-        mIdsSet.add(actualPos, id);
+        mTree.insert(actualPos, id, data, getExtent(data));
+        onInserted(actualPos, getExtent(data));
 
         // update total padding
         float paddingSpace = updateTotalPadding(actualPos, data, true);
@@ -85,27 +117,44 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public int getId(final int pos) {
-        return pos < 0 || pos >= mIdsSet.size() ? -1 : mIdsSet.get(pos);
+        return mTree.getId(pos);
     }
 
     @Override
     synchronized public int getPos(final int id) {
-        int pos = 0;
-        for (int nextId : mIdsSet) {
-            if (nextId == id) {
-                break;
+        return mTree.getPos(id);
+    }
+
+    /**
+     * Finds the item laid out over the offset, for instance the one at the center
+     * of the viewport for offset 0.
+     * @param offset offset in the layout
+     * @return position of the item, or -1 if no laid out item covers the offset
+     */
+    synchronized public int findPos(final float offset) {
+        if (mLaidOutFrom == mLaidOutTo) {
+            return -1;
+        }
+        int pos = Math.min(mTree.find(offset - mOrigin), count() - 1);
+
+        // check the neighbours too for rounding at the item edges
+        for (int i = Math.max(pos - 1, 0); i <= Math.min(pos + 1, count() - 1); ++i) {
+            CacheData data = mTree.getAt(i);
+            float center = getDataOffset(i, data);
+            if (center - getStartPadding(i, data) - data.getSize() / 2 <= offset &&
+                    center + data.getSize() / 2 + getEndPadding(i, data) >= offset) {
+                return i;
             }
-            pos++;
         }
-        return pos == mIdsSet.size() ? -1 : pos;
+        return -1;
     }
 
     @Override
     synchronized public float getDataOffset(final int id) {
         float offset = Float.NaN;
-        CacheData data = mCacheDataSet.get(id);
+        CacheData data = mTree.get(id);
         if (data != null) {
-            offset = data.getOffset();
+            offset = getDataOffset(getPos(id), data);
         }
         return offset;
     }
@@ -113,7 +162,7 @@ class LinearCacheDataSet implements CacheDataSet {
     @Override
     synchronized public float getSizeWithPadding(final int id) {
         float sizeWithPadding = Float.NaN;
-        CacheData data = mCacheDataSet.get(id);
+        CacheData data = mTree.get(id);
         if (data != null) {
             int pos = getPos(id);
             sizeWithPadding = getStartPadding(pos, data) + data.getSize() + getEndPadding(pos, data);
@@ -125,10 +174,10 @@ class LinearCacheDataSet implements CacheDataSet {
     @Override
     synchronized public float getStartDataOffset(final int id) {
         float offset = Float.NaN;
-        CacheData data = mCacheDataSet.get(id);
+        CacheData data = mTree.get(id);
         if (data != null) {
             int pos = getPos(id);
-            offset = data.getOffset() - getStartPadding(pos, data) - data.getSize() / 2;
+            offset = getDataOffset(pos, data) - getStartPadding(pos, data) - data.getSize() / 2;
         }
         return offset;
     }
@@ -136,24 +185,24 @@ class LinearCacheDataSet implements CacheDataSet {
     @Override
     synchronized public float getEndDataOffset(final int id) {
         float offset = Float.NaN;
-        CacheData data = mCacheDataSet.get(id);
+        CacheData data = mTree.get(id);
         if (data != null) {
             int pos = getPos(id);
-            offset = data.getOffset() + data.getSize() / 2 + getEndPadding(pos, data);
+            offset = getDataOffset(pos, data) + data.getSize() / 2 + getEndPadding(pos, data);
         }
         return offset;
     }
 
     @Override
     synchronized public void removeData(final int id) {
-        CacheData data = mCacheDataSet.get(id);
-        int pos = getPos(id);
-        if (data != null && pos >= 0) {
+        CacheData data = mTree.get(id);
+        if (data != null) {
+            int pos = getPos(id);
             mTotalSize -= data.getSize();
             updateTotalPadding(pos, data, false);
 
-            mCacheDataSet.remove(id);
-            mIdsSet.remove(pos);
+            onRemoved(pos, getExtent(data));
+            mTree.remove(id);
         }
     }
 
@@ -166,33 +215,29 @@ class LinearCacheDataSet implements CacheDataSet {
     synchronized public void invalidate(InvalidateOp op) {
         switch (op) {
             case ALL:
-                mCacheDataSet.clear();
-                mIdsSet.clear();
+                mTree.clear();
+                mLaidOutFrom = mLaidOutTo = 0;
+                mOrigin = 0;
                 mTotalSize = 0;
                 mTotalPadding = 0;
                 break;
             case OFFSET:
-                for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
-                    CacheData data = mCacheDataSet.valueAt(pos);
-                    data.setOffset(Float.NaN);
-                }
+                mLaidOutFrom = mLaidOutTo = 0;
                 break;
             case SIZE:
                 mTotalSize = 0;
                 mTotalPadding = 0;
-                for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
-                    CacheData data = mCacheDataSet.valueAt(pos);
-                    data.setOffset(Float.NaN);
+                for (int pos = count(); --pos >= 0; ) {
+                    CacheData data = mTree.getAt(pos);
                     data.setSize(0);
+                    mTree.setValue(mTree.getId(pos), getExtent(data));
                 }
+                mLaidOutFrom = mLaidOutTo = 0;
                 break;
             case PADDING:
                 mTotalSize = 0;
                 mTotalPadding = 0;
-                for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
-                    CacheData data = mCacheDataSet.valueAt(pos);
-                    data.setOffset(Float.NaN);
-                }
+                mLaidOutFrom = mLaidOutTo = 0;
                 break;
             case POSITION:
             default:
@@ -203,17 +248,17 @@ class LinearCacheDataSet implements CacheDataSet {
     @Override
     synchronized public float uniformSize() {
         float maxSize = 0;
-        for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
-            CacheData data = mCacheDataSet.valueAt(pos);
+        for (int pos = count(); --pos >= 0; ) {
+            CacheData data = mTree.getAt(pos);
             maxSize = Math.max(maxSize, data.getSize());
         }
 
-        for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
-            CacheData data = mCacheDataSet.valueAt(pos);
+        for (int pos = count(); --pos >= 0; ) {
+            CacheData data = mTree.getAt(pos);
             data.setSize(maxSize);
-            mCacheDataSet.setValueAt(pos, data);
+            mTree.setValue(mTree.getId(pos), getExtent(data));
         }
-        mTotalSize = mCacheDataSet.size() * maxSize;
+        mTotalSize = count() * maxSize;
         invalidate(InvalidateOp.OFFSET);
 
         return maxSize;
@@ -225,12 +270,12 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public float uniformPadding(final float uniformPadding) {
-        for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
-            CacheData data = mCacheDataSet.valueAt(pos);
+        for (int pos = count(); --pos >= 0; ) {
+            CacheData data = mTree.getAt(pos);
             data.setPadding(uniformPadding / 2, uniformPadding / 2);
-            mCacheDataSet.setValueAt(pos, data);
+            mTree.setValue(mTree.getId(pos), getExtent(data));
         }
-        mTotalPadding = (mCacheDataSet.size() - 1) * uniformPadding;
+        mTotalPadding = (count() - 1) * uniformPadding;
         invalidate(InvalidateOp.OFFSET);
 
         return uniformPadding;
@@ -238,13 +283,12 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public float setDataAfter(final int id, float alignment) {
-        CacheData data = mCacheDataSet.get(id);
+        CacheData data = mTree.get(id);
         if (data != null) {
             int pos = getPos(id);
             float startPadding = getStartPadding(pos, data);
             float offset = alignment + (startPadding + data.getSize() / 2);
-            data.setOffset(offset);
-            mCacheDataSet.put(id, data);
+            setDataOffset(pos, data, offset);
 
             float endPadding = getEndPadding(pos, data);
             return alignment + (startPadding + data.getSize() + endPadding);
@@ -254,13 +298,12 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public float setDataBefore(final int id, float alignment) {
-        CacheData data = mCacheDataSet.get(id);
+        CacheData data = mTree.get(id);
         if (data != null) {
             int pos = getPos(id);
             float endPadding = getEndPadding(pos, data);
             float offset = alignment - (endPadding + data.getSize() / 2);
-            data.setOffset(offset);
-            mCacheDataSet.put(id, data);
+            setDataOffset(pos, data, offset);
 
             float startPadding = getStartPadding(pos, data);
             return alignment - (startPadding + data.getSize() + endPadding);
@@ -268,10 +311,29 @@ class LinearCacheDataSet implements CacheDataSet {
         return Float.NaN;
     }
 
+    /**
+     * Lays out all the items one after the other, as calling {@link #setDataAfter}
+     * for each of them in position order would.
+     * @param alignment start offset of the first item
+     * @return end offset of the last item
+     */
+    synchronized public float setAllDataAfter(float alignment) {
+        if (count() == 0) {
+            return alignment;
+        }
+        CacheData first = mTree.getAt(0);
+        CacheData last = mTree.getAt(count() - 1);
+        mOrigin = alignment + getStartPadding(0, first) - first.getStartPadding();
+        mLaidOutFrom = 0;
+        mLaidOutTo = count();
+        return (float) (mOrigin + mTree.total()
+                - last.getEndPadding() + getEndPadding(count() - 1, last));
+    }
+
     @Override
     public float getStartPadding(final int id) {
         float padding = Float.NaN;
-        CacheData data = mCacheDataSet.get(id);
+        CacheData data = mTree.get(id);
         if (data != null) {
             int pos = getPos(id);
             padding = getStartPadding(pos, data);
@@ -282,7 +344,7 @@ class LinearCacheDataSet implements CacheDataSet {
     @Override
     public float getEndPadding(final int id) {
         float padding = Float.NaN;
-        CacheData data = mCacheDataSet.get(id);
+        CacheData data = mTree.get(id);
         if (data != null) {
             int pos = getPos(id);
             padding = getEndPadding(pos, data);
@@ -292,14 +354,9 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public void shiftBy(final float amount) {
-        for (int pos = mCacheDataSet.size(); --pos >= 0;) {
-            CacheData data =  mCacheDataSet.valueAt(pos);
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "shiftBy item[%s] newOffset = %f",
-                    data, (data.getOffset() + amount));
-
-            data.setOffset(data.getOffset() + amount);
-            mCacheDataSet.setValueAt(pos, data);
-        }
+        // all the offsets are relative to the origin
+        mOrigin += amount;
+        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "shiftBy %f newOrigin = %f", amount, mOrigin);
     }
 
 
@@ -319,7 +376,7 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public int count() {
-        return mCacheDataSet.size();
+        return mTree.count();
     }
 
     synchronized private float updateTotalPadding(final int pos, final CacheData data,
@@ -332,17 +389,85 @@ class LinearCacheDataSet implements CacheDataSet {
         if (count() > 1) {
             // first item updated
             if (pos == 0 && !mOuterPaddingEnabled) {
-                paddingSpace += mCacheDataSet.get(mIdsSet.get(pos + 1)).getStartPadding();
+                paddingSpace += mTree.getAt(pos + 1).getStartPadding();
             }
             // last item updated
             if (pos == count() - 1 && !mOuterPaddingEnabled) {
-                paddingSpace += mCacheDataSet.get(mIdsSet.get(pos - 1)).getEndPadding();
+                paddingSpace += mTree.getAt(pos - 1).getEndPadding();
             }
         }
         mTotalPadding += (addPadding ? 1 : -1) * paddingSpace;
         return paddingSpace;
     }
 
+    /**
+     * @return the offset of the center of the item, or NaN if it is not laid out
+     */
+    private float getDataOffset(final int pos, final CacheData data) {
+        if (pos < mLaidOutFrom || pos >= mLaidOutTo) {
+            return Float.NaN;
+        }
+        return (float) (mOrigin + mTree.prefix(pos) + data.getStartPadding() + data.getSize() / 2);
+    }
+
+    /**
+     * Moves the origin to put the center of the item at the offset. The laid out
+     * range grows to the item if it is next to it, or restarts from the item.
+     */
+    private void setDataOffset(final int pos, final CacheData data, final float offset) {
+        mOrigin = offset - data.getSize() / 2 - data.getStartPadding() - mTree.prefix(pos);
+        if (mLaidOutFrom == mLaidOutTo || pos < mLaidOutFrom - 1 || pos > mLaidOutTo) {
+            mLaidOutFrom = pos;
+            mLaidOutTo = pos + 1;
+        } else {
+            mLaidOutFrom = Math.min(mLaidOutFrom, pos);
+            mLaidOutTo = Math.max(mLaidOutTo, pos + 1);
+        }
+    }
+
+    // An item added, removed or resized before the laid out ones moves the origin,
+    // so they keep their offsets. Inside the laid out range, the items after it move.
+
+    private void onInserted(final int pos, final double extent) {
+        if (mLaidOutFrom < mLaidOutTo) {
+            if (pos <= mLaidOutFrom) {
+                ++mLaidOutFrom;
+                ++mLaidOutTo;
+                mOrigin -= extent;
+            } else if (pos < mLaidOutTo) {
+                ++mLaidOutTo;
+            }
+        }
+    }
+
+    private void onRemoved(final int pos, final double extent) {
+        if (mLaidOutFrom < mLaidOutTo) {
+            if (pos <= mLaidOutFrom) {
+                if (pos < mLaidOutFrom) {
+                    --mLaidOutFrom;
+                }
+                --mLaidOutTo;
+                mOrigin += extent;
+            } else if (pos < mLaidOutTo) {
+                --mLaidOutTo;
+            }
+        }
+    }
+
+    private void onResized(final int pos, final double delta) {
+        if (mLaidOutFrom < mLaidOutTo && pos < mLaidOutFrom) {
+            mOrigin -= delta;
+        }
+    }
+
+    /**
+     * Size of the item with both paddings. The offsets are computed from these,
+     * the outer padding is taken off only at the ends.
+     */
+    private static double getExtent(final CacheData data) {
+        return data.getStartPadding() + data.getSize() + data.getEndPadding();
+    }
+
     private float getStartPadding(final int pos, final CacheData data) {
         float startPadding = pos > 0 || mOuterPaddingEnabled ? data.getStartPadding() : 0;
         return startPadding;
@@ -358,11 +483,18 @@ class LinearCacheDataSet implements CacheDataSet {
     protected float mTotalPadding;
     private boolean mOuterPaddingEnabled;
 
-    SparseArray<CacheData> mCacheDataSet = new SparseArray<>();
-    List<Integer> mIdsSet = new ArrayList<>();
+    // the data by position, with the extent of each item as the value
+    private final PrefixSumTree<CacheData> mTree = new PrefixSumTree<>();
+
+    // offset of the start of the first item, with its padding
+    private double mOrigin;
+
+    // positions of the items which have an offset
+    private int mLaidOutFrom;
+    private int mLaidOutTo;
 
     LinearCacheDataSet(boolean outerPaddingEnabled) {
         mOuterPaddingEnabled = outerPaddingEnabled;
     }
 
-}
\ No newline at end of file
+}
@@ -534,6 +534,13 @@ public class LinearLayout extends OrientedLayout {
                 id = cache.getId(cache.count() - 1);
                 break;
             case CENTER:
+                if (cache instanceof LinearCacheDataSet) {
+                    int pos = ((LinearCacheDataSet) cache).findPos(0);
+                    if (pos >= 0) {
+                        id = cache.getId(pos);
+                        break;
+                    }
+                }
                 int i = cache.count() / 2;
                 while (i < cache.count() && i >= 0) {
                     id =  cache.getId(i);
@@ -657,6 +664,18 @@ public class LinearLayout extends OrientedLayout {
 
         boolean inBounds = startDataOffset < -layoutOffset;
 
+        if (cache instanceof LinearCacheDataSet) {
+            ((LinearCacheDataSet) cache).setAllDataAfter(startDataOffset);
+            if (cache.count() > 0) {
+                // the offsets grow with the position: the first item ends first
+                // and the last one starts last
+                inBounds = inBounds &&
+                        cache.getEndDataOffset(cache.getId(0)) > layoutOffset &&
+                        cache.getStartDataOffset(cache.getId(cache.count() - 1)) < -layoutOffset;
+            }
+            return inBounds;
+        }
+
         for (int pos = 0; pos < cache.count(); ++pos) {
             int id = cache.getId(pos);
             if (id != -1) {
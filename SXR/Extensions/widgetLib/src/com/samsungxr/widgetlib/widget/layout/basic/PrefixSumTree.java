@@ -0,0 +1,390 @@
+package com.samsungxr.widgetlib.widget.layout.basic;
+
+import java.util.Arrays;
+
+/**
+ * List of unique ids in position order, each with an item and a value.
+ * <p>
+ * The list is a treap over primitive arrays: a binary tree in position order,
+ * balanced by random priorities, where every node keeps the number of nodes and
+ * the sum of the values in its subtree. The node of an id is found through an
+ * open addressing hash table. Inserting or removing at any position, changing a
+ * value, the position of an id, the id at a position, the sum of the values
+ * before a position and the position at a given distance from the start are
+ * all O(log n).
+ */
+class PrefixSumTree<T> {
+    PrefixSumTree() {
+        clear();
+    }
+
+    /**
+     * Remove all the ids.
+     */
+    void clear() {
+        Arrays.fill(mItems, null);
+        Arrays.fill(mSlots, NIL);
+        mRoot = NIL;
+        mNextNode = 1;
+        mFreeNode = NIL;
+    }
+
+    int count() {
+        return mCount[mRoot];
+    }
+
+    /**
+     * @return sum of all the values
+     */
+    double total() {
+        return mSum[mRoot];
+    }
+
+    boolean contains(final int id) {
+        return findNode(id) != NIL;
+    }
+
+    /**
+     * Insert an id which is not in the list yet.
+     * @param pos position of the new id, from 0 to {@link #count()}
+     * @param id id to insert
+     * @param item item of the id
+     * @param value value of the id
+     */
+    void insert(final int pos, final int id, final T item, final double value) {
+        int node = allocateNode();
+        mIds[node] = id;
+        mItems[node] = item;
+        mValue[node] = value;
+        mPriority[node] = nextPriority();
+        mLeft[node] = NIL;
+        mRight[node] = NIL;
+        update(node);
+        mapId(id, node);
+
+        split(mRoot, pos);
+        int right = mSplitRight;
+        mRoot = merge(merge(mSplitLeft, node), right);
+        mParent[mRoot] = NIL;
+    }
+
+    /**
+     * Remove an id.
+     * @return the item of the id, or null if the id is not in the list
+     */
+    T remove(final int id) {
+        int node = findNode(id);
+        if (node == NIL) {
+            return null;
+        }
+        T item = getItem(node);
+
+        // the merged children take the place of the node
+        int child = merge(mLeft[node], mRight[node]);
+        int parent = mParent[node];
+        mParent[child] = parent;
+        if (parent == NIL) {
+            mRoot = child;
+        } else if (mLeft[parent] == node) {
+            mLeft[parent] = child;
+        } else {
+            mRight[parent] = child;
+        }
+        for (; parent != NIL; parent = mParent[parent]) {
+            update(parent);
+        }
+
+        unmapId(id);
+        mItems[node] = null;
+        mLeft[node] = mFreeNode;
+        mFreeNode = node;
+        return item;
+    }
+
+    /**
+     * @return the item of the id, or null if the id is not in the list
+     */
+    T get(final int id) {
+        int node = findNode(id);
+        return node == NIL ? null : getItem(node);
+    }
+
+    /**
+     * @return the item at the position, or null if the position is out of the list
+     */
+    T getAt(final int pos) {
+        int node = findNodeAt(pos);
+        return node == NIL ? null : getItem(node);
+    }
+
+    /**
+     * @return the id at the position, or -1 if the position is out of the list
+     */
+    int getId(final int pos) {
+        int node = findNodeAt(pos);
+        return node == NIL ? -1 : mIds[node];
+    }
+
+    /**
+     * @return the position of the id, or -1 if the id is not in the list
+     */
+    int getPos(final int id) {
+        int node = findNode(id);
+        if (node == NIL) {
+            return -1;
+        }
+        int pos = mCount[mLeft[node]];
+        for (int parent = mParent[node]; parent != NIL; node = parent, parent = mParent[parent]) {
+            if (mRight[parent] == node) {
+                pos += mCount[mLeft[parent]] + 1;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Change the value of an id in the list.
+     */
+    void setValue(final int id, final double value) {
+        int node = findNode(id);
+        if (node != NIL) {
+            mValue[node] = value;
+            for (; node != NIL; node = mParent[node]) {
+                update(node);
+            }
+        }
+    }
+
+    /**
+     * @return the value of the id, or 0 if the id is not in the list
+     */
+    double getValue(final int id) {
+        return mValue[findNode(id)];
+    }
+
+    /**
+     * @return sum of the values before pos.
+     */
+    double prefix(int pos) {
+        double sum = 0;
+        int node = mRoot;
+        while (node != NIL) {
+            int left = mLeft[node];
+            if (pos <= mCount[left]) {
+                node = left;
+            } else {
+                sum += mSum[left] + mValue[node];
+                pos -= mCount[left] + 1;
+                node = mRight[node];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return position of the value which contains the distance from the start
+     * of the list (prefix(pos) <= distance < prefix(pos + 1)), 0 if the distance
+     * is negative or count() if the distance is past the end.
+     */
+    int find(double distance) {
+        int pos = 0;
+        int node = mRoot;
+        while (node != NIL) {
+            int left = mLeft[node];
+            if (distance < mSum[left]) {
+                node = left;
+            } else {
+                distance -= mSum[left];
+                if (distance < mValue[node]) {
+                    return pos + mCount[left];
+                }
+                distance -= mValue[node];
+                pos += mCount[left] + 1;
+                node = mRight[node];
+            }
+        }
+        return pos;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T getItem(final int node) {
+        return (T) mItems[node];
+    }
+
+    private int findNodeAt(int pos) {
+        if (pos < 0 || pos >= count()) {
+            return NIL;
+        }
+        int node = mRoot;
+        while (true) {
+            int left = mLeft[node];
+            if (pos < mCount[left]) {
+                node = left;
+            } else if (pos == mCount[left]) {
+                return node;
+            } else {
+                pos -= mCount[left] + 1;
+                node = mRight[node];
+            }
+        }
+    }
+
+    private void update(final int node) {
+        int left = mLeft[node];
+        int right = mRight[node];
+        mCount[node] = mCount[left] + 1 + mCount[right];
+        mSum[node] = mSum[left] + mValue[node] + mSum[right];
+        // the parent of NIL is never read
+        mParent[left] = node;
+        mParent[right] = node;
+    }
+
+    /**
+     * Split the subtree before pos into mSplitLeft and mSplitRight.
+     */
+    private void split(final int node, final int pos) {
+        if (node == NIL) {
+            mSplitLeft = NIL;
+            mSplitRight = NIL;
+        } else if (pos <= mCount[mLeft[node]]) {
+            split(mLeft[node], pos);
+            mLeft[node] = mSplitRight;
+            update(node);
+            mSplitRight = node;
+        } else {
+            split(mRight[node], pos - mCount[mLeft[node]] - 1);
+            mRight[node] = mSplitLeft;
+            update(node);
+            mSplitLeft = node;
+        }
+    }
+
+    /**
+     * @return the root of the subtrees joined, all of left before all of right
+     */
+    private int merge(final int left, final int right) {
+        if (left == NIL) {
+            return right;
+        }
+        if (right == NIL) {
+            return left;
+        }
+        if (mPriority[left] > mPriority[right]) {
+            mRight[left] = merge(mRight[left], right);
+            update(left);
+            return left;
+        } else {
+            mLeft[right] = merge(left, mLeft[right]);
+            update(right);
+            return right;
+        }
+    }
+
+    private int nextPriority() {
+        // xorshift
+        mSeed ^= mSeed << 13;
+        mSeed ^= mSeed >>> 17;
+        mSeed ^= mSeed << 5;
+        return mSeed;
+    }
+
+    private int allocateNode() {
+        int node = mFreeNode;
+        if (node != NIL) {
+            mFreeNode = mLeft[node];
+        } else {
+            node = mNextNode++;
+            if (node == mIds.length) {
+                int capacity = node * 2;
+                mIds = Arrays.copyOf(mIds, capacity);
+                mItems = Arrays.copyOf(mItems, capacity);
+                mValue = Arrays.copyOf(mValue, capacity);
+                mSum = Arrays.copyOf(mSum, capacity);
+                mCount = Arrays.copyOf(mCount, capacity);
+                mPriority = Arrays.copyOf(mPriority, capacity);
+                mLeft = Arrays.copyOf(mLeft, capacity);
+                mRight = Arrays.copyOf(mRight, capacity);
+                mParent = Arrays.copyOf(mParent, capacity);
+            }
+        }
+        return node;
+    }
+
+    private int hash(final int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (mSlots.length - 1);
+    }
+
+    private int findSlot(final int id) {
+        int mask = mSlots.length - 1;
+        int slot = hash(id);
+        while (mSlots[slot] != NIL && mKeys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int findNode(final int id) {
+        return mSlots[findSlot(id)];
+    }
+
+    private void mapId(final int id, final int node) {
+        // keep the table at most half full
+        if (2 * (count() + 1) > mSlots.length) {
+            int[] keys = mKeys;
+            int[] slots = mSlots;
+            mKeys = new int[keys.length * 2];
+            mSlots = new int[slots.length * 2];
+            for (int i = 0; i < slots.length; ++i) {
+                if (slots[i] != NIL) {
+                    int slot = findSlot(keys[i]);
+                    mKeys[slot] = keys[i];
+                    mSlots[slot] = slots[i];
+                }
+            }
+        }
+        int slot = findSlot(id);
+        mKeys[slot] = id;
+        mSlots[slot] = node;
+    }
+
+    private void unmapId(final int id) {
+        int mask = mSlots.length - 1;
+        int empty = findSlot(id);
+        mSlots[empty] = NIL;
+        // move back the following ids which could not take their own slot
+        for (int slot = (empty + 1) & mask; mSlots[slot] != NIL; slot = (slot + 1) & mask) {
+            int home = hash(mKeys[slot]);
+            if (((slot - home) & mask) >= ((slot - empty) & mask)) {
+                mKeys[empty] = mKeys[slot];
+                mSlots[empty] = mSlots[slot];
+                mSlots[slot] = NIL;
+                empty = slot;
+            }
+        }
+    }
+
+    // node 0 is the empty subtree, with no nodes and a sum of 0
+    private static final int NIL = 0;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] mIds = new int[INITIAL_CAPACITY];
+    private Object[] mItems = new Object[INITIAL_CAPACITY];
+    private double[] mValue = new double[INITIAL_CAPACITY];
+    private double[] mSum = new double[INITIAL_CAPACITY];
+    private int[] mCount = new int[INITIAL_CAPACITY];
+    private int[] mPriority = new int[INITIAL_CAPACITY];
+    private int[] mLeft = new int[INITIAL_CAPACITY];
+    private int[] mRight = new int[INITIAL_CAPACITY];
+    private int[] mParent = new int[INITIAL_CAPACITY];
+    private int mRoot;
+    private int mNextNode;
+    private int mFreeNode;
+    private int mSplitLeft;
+    private int mSplitRight;
+    private int mSeed = 0x2545F491;
+
+    // id -> node, NIL for an empty slot
+    private int[] mKeys = new int[INITIAL_CAPACITY * 2];
+    private int[] mSlots = new int[INITIAL_CAPACITY * 2];
+}
@@ -0,0 +1,145 @@
+package com.samsungxr.widgetlib.widget.layout.basic;
+
+import com.samsungxr.widgetlib.widget.layout.CacheDataSet;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Times the layout cache operations of a 10k item list with {@link LinearCacheDataSet}
+ * against the list based {@link ListCacheDataSet} it replaced. Prints one line per
+ * operation with the milliseconds taken by each.
+ */
+public class LinearCacheDataSetBenchmark {
+    private static final int ITEM_COUNT = 10000;
+    private static final int CHANGE_COUNT = 1000;
+    private static final int QUERY_COUNT = 10000;
+
+    private interface Operation {
+        void run(CacheDataSet cache);
+    }
+
+    private static double time(final CacheDataSet cache, final Operation operation) {
+        long start = System.nanoTime();
+        operation.run(cache);
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    private static void measureAll(final CacheDataSet cache) {
+        // half of the items are measured scrolling forward, half scrolling back
+        for (int i = 0; i < ITEM_COUNT; ++i) {
+            boolean forward = (i % 2) == 0;
+            int id = forward ? ITEM_COUNT + i / 2 : ITEM_COUNT - 1 - i / 2;
+            int pos = forward ? cache.count() : 0;
+            cache.addData(id, pos, 1 + id % 3, 0.5f, 0.5f);
+            if (cache.count() == 1) {
+                cache.setDataAfter(id, 0);
+            } else if (forward) {
+                cache.setDataAfter(id, cache.getEndDataOffset(cache.getId(pos - 1)));
+            } else {
+                cache.setDataBefore(id, cache.getStartDataOffset(cache.getId(1)));
+            }
+        }
+    }
+
+    private static void layOut(final CacheDataSet cache) {
+        if (cache instanceof LinearCacheDataSet) {
+            ((LinearCacheDataSet) cache).setAllDataAfter(-cache.getTotalSizeWithPadding() / 2);
+            return;
+        }
+        float start = -cache.getTotalSizeWithPadding() / 2;
+        for (int pos = 0; pos < cache.count(); ++pos) {
+            start = cache.setDataAfter(cache.getId(pos), start);
+        }
+    }
+
+    private static int findCenter(final CacheDataSet cache) {
+        if (cache instanceof LinearCacheDataSet) {
+            return ((LinearCacheDataSet) cache).findPos(0);
+        }
+        // the walk from the middle which LinearLayout.getCenterChild falls back to
+        int i = cache.count() / 2;
+        while (i < cache.count() && i >= 0) {
+            int id = cache.getId(i);
+            if (cache.getStartDataOffset(id) <= 0) {
+                if (cache.getEndDataOffset(id) >= 0) {
+                    break;
+                }
+                i++;
+            } else {
+                i--;
+            }
+        }
+        return i;
+    }
+
+    private static void run(final String name, final CacheDataSet list,
+                            final CacheDataSet tree, final Operation operation) {
+        double listTime = time(list, operation);
+        double treeTime = time(tree, operation);
+        System.out.println(String.format("%-28s %12.2f %12.2f", name, listTime, treeTime));
+    }
+
+    @Test
+    public void compareWithListCache() {
+        CacheDataSet list = new ListCacheDataSet(false);
+        CacheDataSet tree = new LinearCacheDataSet(false);
+
+        System.out.println(String.format("%-28s %12s %12s", ITEM_COUNT + " items", "list ms", "tree ms"));
+        run("measure at both ends", list, tree, new Operation() {
+            public void run(CacheDataSet cache) {
+                measureAll(cache);
+            }
+        });
+        run("lay out all", list, tree, new Operation() {
+            public void run(CacheDataSet cache) {
+                layOut(cache);
+            }
+        });
+        run("shift all", list, tree, new Operation() {
+            public void run(CacheDataSet cache) {
+                for (int i = 0; i < 100; ++i) {
+                    cache.shiftBy(0.25f);
+                }
+            }
+        });
+        run("offset by id x" + QUERY_COUNT, list, tree, new Operation() {
+            public void run(CacheDataSet cache) {
+                Random random = new Random(1234);
+                for (int i = 0; i < QUERY_COUNT; ++i) {
+                    cache.getStartDataOffset(ITEM_COUNT / 2 + random.nextInt(ITEM_COUNT));
+                }
+            }
+        });
+        run("center item x" + CHANGE_COUNT, list, tree, new Operation() {
+            public void run(CacheDataSet cache) {
+                for (int i = 0; i < CHANGE_COUNT; ++i) {
+                    findCenter(cache);
+                }
+            }
+        });
+        run("remove in the middle x" + CHANGE_COUNT, list, tree, new Operation() {
+            public void run(CacheDataSet cache) {
+                for (int i = 0; i < CHANGE_COUNT; ++i) {
+                    cache.removeData(ITEM_COUNT / 2 + 3 * i);
+                }
+            }
+        });
+        run("insert in the middle x" + CHANGE_COUNT, list, tree, new Operation() {
+            public void run(CacheDataSet cache) {
+                for (int i = 0; i < CHANGE_COUNT; ++i) {
+                    cache.addData(3 * ITEM_COUNT + i, cache.count() / 2, 2, 0.5f, 0.5f);
+                }
+            }
+        });
+
+        assertEquals(list.count(), tree.count());
+        assertEquals(list.getTotalSizeWithPadding(), tree.getTotalSizeWithPadding(), 1e-2f);
+        layOut(list);
+        layOut(tree);
+        assertEquals(list.getId(findCenter(list)), tree.getId(findCenter(tree)));
+    }
+}
@@ -0,0 +1,256 @@
+package com.samsungxr.widgetlib.widget.layout.basic;
+
+import com.samsungxr.widgetlib.widget.layout.CacheDataSet;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LinearCacheDataSetTest {
+    private static final float EPSILON = 1e-3f;
+    private final Random mRandom = new Random(1234);
+
+    /**
+     * Measure the items as LinearLayout does: each one is added at the start or
+     * the end and placed next to its neighbour.
+     */
+    private void measure(final CacheDataSet cache, final int id, final boolean atStart,
+                         final float size, final float padding) {
+        int pos = atStart ? 0 : cache.count();
+        cache.addData(id, pos, size, padding, padding);
+        if (pos > 0) {
+            float start = cache.getEndDataOffset(cache.getId(pos - 1));
+            if (!Float.isNaN(start)) {
+                cache.setDataAfter(id, start);
+            }
+        } else if (cache.count() > 1) {
+            float end = cache.getStartDataOffset(cache.getId(1));
+            if (!Float.isNaN(end)) {
+                cache.setDataBefore(id, end);
+            }
+        } else {
+            cache.setDataAfter(id, -size / 2);
+        }
+    }
+
+    private static void layOut(final CacheDataSet cache, float start) {
+        for (int pos = 0; pos < cache.count(); ++pos) {
+            start = cache.setDataAfter(cache.getId(pos), start);
+        }
+    }
+
+    private static void assertSameLayout(final ListCacheDataSet expected,
+                                         final LinearCacheDataSet actual) {
+        assertEquals(expected.count(), actual.count());
+        assertEquals(expected.getTotalSize(), actual.getTotalSize(), EPSILON);
+        assertEquals(expected.getTotalSizeWithPadding(), actual.getTotalSizeWithPadding(), EPSILON);
+        for (int pos = 0; pos < expected.count(); ++pos) {
+            int id = expected.getId(pos);
+            assertEquals(id, actual.getId(pos));
+            assertEquals(pos, actual.getPos(id));
+            assertTrue(actual.contains(id));
+            assertEquals(expected.getDataOffset(id), actual.getDataOffset(id), EPSILON);
+            assertEquals(expected.getStartDataOffset(id), actual.getStartDataOffset(id), EPSILON);
+            assertEquals(expected.getEndDataOffset(id), actual.getEndDataOffset(id), EPSILON);
+            assertEquals(expected.getSizeWithPadding(id), actual.getSizeWithPadding(id), EPSILON);
+            assertEquals(expected.getStartPadding(id), actual.getStartPadding(id), EPSILON);
+            assertEquals(expected.getEndPadding(id), actual.getEndPadding(id), EPSILON);
+        }
+    }
+
+    private void matchesListCache(final boolean outerPadding) {
+        ListCacheDataSet expected = new ListCacheDataSet(outerPadding);
+        LinearCacheDataSet actual = new LinearCacheDataSet(outerPadding);
+        int first = 500;
+        int last = 499;
+
+        for (int round = 0; round < 30; ++round) {
+            // scroll: measure new items at one end and drop some at the other
+            boolean forward = mRandom.nextBoolean();
+            for (int i = mRandom.nextInt(20); i >= 0; --i) {
+                int id = forward ? ++last : --first;
+                float size = 1 + mRandom.nextInt(4);
+                float padding = mRandom.nextInt(3) / 2.0f;
+                measure(expected, id, !forward, size, padding);
+                measure(actual, id, !forward, size, padding);
+            }
+            for (int i = Math.min(mRandom.nextInt(10), expected.count() - 1); i > 0; --i) {
+                int id = forward ? first++ : last--;
+                expected.removeData(id);
+                actual.removeData(id);
+            }
+            float shift = mRandom.nextFloat() * 4 - 2;
+            expected.shiftBy(shift);
+            actual.shiftBy(shift);
+            assertSameLayout(expected, actual);
+
+            if (round % 5 == 4) {
+                float padding = mRandom.nextInt(4);
+                expected.uniformPadding(padding);
+                actual.uniformPadding(padding);
+                expected.uniformSize();
+                actual.uniformSize();
+                float start = mRandom.nextFloat() * 10 - 20;
+                layOut(expected, start);
+                actual.setAllDataAfter(start);
+                assertSameLayout(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void matchesListCacheWithOuterPadding() {
+        matchesListCache(true);
+    }
+
+    @Test
+    public void matchesListCacheWithoutOuterPadding() {
+        matchesListCache(false);
+    }
+
+    @Test
+    public void setAllDataAfterMatchesSetDataAfter() {
+        for (boolean outerPadding : new boolean[] { true, false }) {
+            LinearCacheDataSet chained = new LinearCacheDataSet(outerPadding);
+            LinearCacheDataSet all = new LinearCacheDataSet(outerPadding);
+            for (int id = 0; id < 50; ++id) {
+                float size = 1 + mRandom.nextInt(5);
+                float start = mRandom.nextInt(3);
+                float end = mRandom.nextInt(3);
+                chained.addData(id, id, size, start, end);
+                all.addData(id, id, size, start, end);
+            }
+            layOut(chained, -7);
+            float end = chained.getEndDataOffset(chained.getId(chained.count() - 1));
+            assertEquals(end, all.setAllDataAfter(-7), EPSILON);
+            for (int id = 0; id < 50; ++id) {
+                assertEquals(chained.getDataOffset(id), all.getDataOffset(id), EPSILON);
+                assertEquals(chained.getStartDataOffset(id), all.getStartDataOffset(id), EPSILON);
+                assertEquals(chained.getEndDataOffset(id), all.getEndDataOffset(id), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void offsetsAreNotSetUntilLaidOut() {
+        LinearCacheDataSet cache = new LinearCacheDataSet(true);
+        for (int id = 0; id < 10; ++id) {
+            cache.addData(id, id, 2, 0, 0);
+        }
+        assertTrue(Float.isNaN(cache.getDataOffset(3)));
+        assertEquals(-1, cache.findPos(0));
+
+        // laid out from item 4 up to item 6, and then down to item 3
+        cache.setDataAfter(4, 0);
+        cache.setDataAfter(5, 2);
+        cache.setDataAfter(6, 4);
+        cache.setDataBefore(3, 0);
+        assertEquals(-2, cache.getStartDataOffset(3), EPSILON);
+        assertEquals(5, cache.getDataOffset(6), EPSILON);
+        assertTrue(Float.isNaN(cache.getDataOffset(2)));
+        assertTrue(Float.isNaN(cache.getDataOffset(7)));
+
+        cache.invalidate(CacheDataSet.InvalidateOp.OFFSET);
+        for (int id = 0; id < 10; ++id) {
+            assertTrue(Float.isNaN(cache.getDataOffset(id)));
+        }
+        assertEquals(20, cache.getTotalSizeWithPadding(), 0);
+    }
+
+    @Test
+    public void changesBeforeTheLaidOutItemsKeepTheirOffsets() {
+        LinearCacheDataSet cache = new LinearCacheDataSet(false);
+        for (int id = 0; id < 10; ++id) {
+            cache.addData(id, id, 2, 0.5f, 0.5f);
+        }
+        for (int id = 5; id < 10; ++id) {
+            cache.setDataAfter(id, id * 3);
+        }
+        float offset = cache.getDataOffset(7);
+
+        cache.addData(100, 0, 8, 1, 1);
+        assertEquals(offset, cache.getDataOffset(7), EPSILON);
+        cache.removeData(2);
+        assertEquals(offset, cache.getDataOffset(7), EPSILON);
+        // measured again with a new size
+        cache.addData(3, 0, 5, 1, 1);
+        assertEquals(offset, cache.getDataOffset(7), EPSILON);
+        cache.removeData(5);
+        assertEquals(offset, cache.getDataOffset(7), EPSILON);
+        assertTrue(Float.isNaN(cache.getDataOffset(4)));
+    }
+
+    @Test
+    public void changesInsideTheLaidOutItemsMoveTheNextOnes() {
+        LinearCacheDataSet cache = new LinearCacheDataSet(true);
+        for (int id = 0; id < 5; ++id) {
+            cache.addData(id, id, 2, 0, 0);
+        }
+        cache.setAllDataAfter(0);
+        assertEquals(7, cache.getDataOffset(3), EPSILON);
+
+        cache.addData(10, 2, 4, 0, 0);
+        assertEquals(2, cache.getPos(10));
+        assertEquals(6, cache.getDataOffset(10), EPSILON);
+        assertEquals(11, cache.getDataOffset(3), EPSILON);
+
+        // measured again with a new size, at the same position
+        cache.addData(10, 0, 1, 0, 0);
+        assertEquals(2, cache.getPos(10));
+        assertEquals(6, cache.count());
+        assertEquals(8, cache.getDataOffset(3), EPSILON);
+        assertEquals(11, cache.getTotalSize(), EPSILON);
+
+        cache.removeData(10);
+        assertEquals(7, cache.getDataOffset(3), EPSILON);
+        assertFalse(cache.contains(10));
+        assertEquals(10, cache.getTotalSize(), EPSILON);
+    }
+
+    @Test
+    public void findsItemAtOffset() {
+        LinearCacheDataSet cache = new LinearCacheDataSet(true);
+        for (int id = 0; id < 100; ++id) {
+            cache.addData(id, id, 1 + id % 3, 0.25f, 0.25f);
+        }
+        cache.setAllDataAfter(-60);
+        cache.shiftBy(3.5f);
+        for (float offset = -56; offset < 100; offset += 0.3f) {
+            int pos = cache.findPos(offset);
+            if (offset >= cache.getEndDataOffset(99)) {
+                assertEquals(-1, pos);
+            } else {
+                int id = cache.getId(pos);
+                assertTrue(cache.getStartDataOffset(id) <= offset);
+                assertTrue(cache.getEndDataOffset(id) >= offset);
+            }
+        }
+    }
+
+    @Test
+    public void copiesTheLayout() {
+        LinearCacheDataSet cache = new LinearCacheDataSet(false);
+        for (int id = 0; id < 20; ++id) {
+            cache.addData(id, 0, id, 1, 1);
+        }
+        cache.setAllDataAfter(-10);
+        cache.shiftBy(2);
+
+        LinearCacheDataSet copy = new LinearCacheDataSet(true);
+        copy.addData(50, 0, 1, 1, 1);
+        cache.copyTo(copy);
+        assertFalse(copy.contains(50));
+        assertEquals(cache.count(), copy.count());
+        assertEquals(cache.getTotalSizeWithPadding(), copy.getTotalSizeWithPadding(), 0);
+        for (int pos = 0; pos < cache.count(); ++pos) {
+            int id = cache.getId(pos);
+            assertEquals(id, copy.getId(pos));
+            assertEquals(cache.getStartDataOffset(id), copy.getStartDataOffset(id), 0);
+            assertEquals(cache.getEndDataOffset(id), copy.getEndDataOffset(id), 0);
+        }
+    }
+}
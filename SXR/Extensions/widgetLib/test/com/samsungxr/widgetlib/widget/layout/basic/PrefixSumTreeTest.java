@@ -0,0 +1,174 @@
+package com.samsungxr.widgetlib.widget.layout.basic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PrefixSumTreeTest {
+    private final PrefixSumTree<String> mTree = new PrefixSumTree<>();
+    private final List<Integer> mIds = new ArrayList<>();
+    private final List<Double> mValues = new ArrayList<>();
+    private final Random mRandom = new Random(1234);
+
+    private void insert(final int pos, final int id, final double value) {
+        mTree.insert(pos, id, "item" + id, value);
+        mIds.add(pos, id);
+        mValues.add(pos, value);
+    }
+
+    private void remove(final int pos) {
+        int id = mIds.remove(pos);
+        mValues.remove(pos);
+        assertEquals("item" + id, mTree.remove(id));
+    }
+
+    private void checkAgainstList() {
+        assertEquals(mIds.size(), mTree.count());
+        double sum = 0;
+        for (int pos = 0; pos < mIds.size(); ++pos) {
+            int id = mIds.get(pos);
+            assertEquals(id, mTree.getId(pos));
+            assertEquals(pos, mTree.getPos(id));
+            assertTrue(mTree.contains(id));
+            assertEquals("item" + id, mTree.get(id));
+            assertEquals("item" + id, mTree.getAt(pos));
+            assertEquals(mValues.get(pos), mTree.getValue(id), 0);
+            assertEquals(sum, mTree.prefix(pos), 1e-9);
+            sum += mValues.get(pos);
+        }
+        assertEquals(sum, mTree.prefix(mIds.size()), 1e-9);
+        assertEquals(sum, mTree.total(), 1e-9);
+        assertEquals(-1, mTree.getId(-1));
+        assertEquals(-1, mTree.getId(mIds.size()));
+        assertNull(mTree.getAt(mIds.size()));
+    }
+
+    @Test
+    public void matchesListUnderRandomChanges() {
+        int nextId = 0;
+        for (int round = 0; round < 20; ++round) {
+            for (int i = 0; i < 100; ++i) {
+                insert(mRandom.nextInt(mIds.size() + 1), nextId++, mRandom.nextInt(10));
+            }
+            for (int i = 0; i < 40; ++i) {
+                remove(mRandom.nextInt(mIds.size()));
+            }
+            for (int i = 0; i < 20; ++i) {
+                int pos = mRandom.nextInt(mIds.size());
+                double value = mRandom.nextDouble() * 10;
+                mTree.setValue(mIds.get(pos), value);
+                mValues.set(pos, value);
+            }
+            checkAgainstList();
+        }
+    }
+
+    @Test
+    public void keepsIdsInInsertionOrder() {
+        // appends, prepends and inserts in the middle, as a layout measures its items
+        insert(0, 5, 1);
+        insert(1, 6, 1);
+        insert(0, 4, 1);
+        insert(3, 7, 1);
+        insert(2, 100, 1);
+        checkAgainstList();
+        assertEquals(2, mTree.getPos(100));
+        remove(2);
+        checkAgainstList();
+        assertEquals(-1, mTree.getPos(100));
+        assertFalse(mTree.contains(100));
+        assertNull(mTree.remove(100));
+    }
+
+    @Test
+    public void findsPositionAtDistance() {
+        insert(0, 10, 2);
+        insert(1, 11, 0);
+        insert(2, 12, 3);
+        insert(3, 13, 5);
+
+        assertEquals(0, mTree.find(-1));
+        assertEquals(0, mTree.find(0));
+        assertEquals(0, mTree.find(1.9));
+        // the empty item is skipped
+        assertEquals(2, mTree.find(2));
+        assertEquals(2, mTree.find(4.9));
+        assertEquals(3, mTree.find(5));
+        assertEquals(3, mTree.find(9.9));
+        assertEquals(4, mTree.find(10));
+        assertEquals(4, mTree.find(100));
+    }
+
+    @Test
+    public void findMatchesPrefix() {
+        for (int i = 0; i < 1000; ++i) {
+            insert(mRandom.nextInt(mIds.size() + 1), i, 1 + mRandom.nextInt(5));
+        }
+        for (int i = 0; i < 1000; ++i) {
+            double distance = mRandom.nextDouble() * mTree.total();
+            int pos = mTree.find(distance);
+            assertTrue(mTree.prefix(pos) <= distance);
+            assertTrue(distance < mTree.prefix(pos + 1));
+        }
+    }
+
+    @Test
+    public void acceptsAnyIds() {
+        int[] ids = { Integer.MIN_VALUE, -1, 0, 1, 16, 32, 1 << 20, Integer.MAX_VALUE };
+        for (int id : ids) {
+            insert(mIds.size(), id, 1);
+        }
+        checkAgainstList();
+
+        // ids stay found as the hash table grows and ids are removed
+        for (int i = 0; i < 64; ++i) {
+            insert(mIds.size(), (i + 1) * 1024, 1);
+        }
+        for (int i = 0; i < 64; i += 3) {
+            remove(mIds.indexOf((i + 1) * 1024));
+        }
+        checkAgainstList();
+    }
+
+    @Test
+    public void reusesNodesAfterClear() {
+        for (int i = 0; i < 100; ++i) {
+            insert(i, i, i);
+        }
+        mTree.clear();
+        mIds.clear();
+        mValues.clear();
+        checkAgainstList();
+        assertFalse(mTree.contains(5));
+        assertEquals(0, mTree.total(), 0);
+
+        for (int i = 0; i < 50; ++i) {
+            insert(0, i, 2);
+        }
+        checkAgainstList();
+    }
+
+    @Test
+    public void staysShallowForSortedInserts() {
+        // a layout only appends or prepends, which would make a plain binary tree a list
+        int count = 100000;
+        for (int i = 0; i < count; ++i) {
+            mTree.insert(i, i, null, 1);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < count; ++i) {
+            assertEquals(i, mTree.getPos(i));
+        }
+        long elapsed = System.nanoTime() - start;
+        // a list would take seconds here
+        assertTrue("getPos took " + elapsed / 1000000 + " ms", elapsed < 2000000000L);
+        assertEquals(count, mTree.total(), 0);
+    }
+}
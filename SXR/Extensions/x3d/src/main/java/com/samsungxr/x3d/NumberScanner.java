@@ -0,0 +1,263 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.x3d;
+
+/**
+ * Scans the numbers in an X3D numeric field without allocating.
+ * <p>
+ * Reads directly from an attribute string and handles
+ * all the X3D number forms: signs, leading or trailing
+ * decimal points, exponents (3e-2, 1.5E+3) and hexadecimal integers.
+ * Whitespace, commas and anything else which is not part of a
+ * number separates the values. Words (like "true") are skipped.
+ * <p>
+ * The same scanner is reused for every field parsed, call
+ * {@link #reset(CharSequence)} before scanning a new field.
+ */
+final class NumberScanner
+{
+    private static final double[] POW10 =
+    {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_DIGITS = 18;
+
+    private CharSequence mChars = null;
+    private int mPos = 0;
+    private int mEnd = 0;
+    private double mValue = 0;
+    private long mHexValue = 0;
+    private boolean mIsHex = false;
+
+    /**
+     * Start scanning a string.
+     * @param chars characters to scan
+     * @return this scanner
+     */
+    NumberScanner reset(CharSequence chars)
+    {
+        mChars = chars;
+        mPos = 0;
+        mEnd = (chars != null) ? chars.length() : 0;
+        return this;
+    }
+
+    private char at(int i)
+    {
+        return mChars.charAt(i);
+    }
+
+    /**
+     * Find the next number in the input.
+     * @return true if a number was found, false at the end of the input.
+     */
+    boolean next()
+    {
+        while (mPos < mEnd)
+        {
+            char c = at(mPos);
+
+            if (((c >= '0') && (c <= '9')) || (c == '-') || (c == '+') || (c == '.'))
+            {
+                if (scanNumber())
+                {
+                    return true;
+                }
+            }
+            else if (Character.isLetter(c))
+            {
+                skipWord();
+            }
+            else
+            {
+                ++mPos;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the value of the number found by {@link #next()}.
+     * @return number as a float
+     */
+    float floatValue() { return (float) mValue; }
+
+    /**
+     * Get the value of the number found by {@link #next()}.
+     * @return number as an integer, fractions are truncated.
+     * Hexadecimal numbers keep their low 32 bits so 0xFFFFFFFF is -1.
+     */
+    int intValue() { return mIsHex ? (int) mHexValue : (int) mValue; }
+
+    /**
+     * Get the value of the number found by {@link #next()}.
+     * @return number as a double
+     */
+    double doubleValue() { return mValue; }
+
+    private void skipWord()
+    {
+        while ((mPos < mEnd) && isWordChar(at(mPos)))
+        {
+            ++mPos;
+        }
+    }
+
+    private static boolean isWordChar(char c)
+    {
+        return Character.isLetterOrDigit(c) || (c == '_') || (c == '-') || (c == '+') || (c == '.');
+    }
+
+    /*
+     * Scans [+-]? (digits [. digits?] | . digits) ([eE] [+-]? digits)?
+     * or [+-]? 0x hexdigits. If there are no digits, one character
+     * is consumed and false is returned.
+     */
+    private boolean scanNumber()
+    {
+        int start = mPos;
+        boolean negative = false;
+        char c = at(mPos);
+
+        if ((c == '-') || (c == '+'))
+        {
+            negative = (c == '-');
+            if (++mPos >= mEnd)
+            {
+                return false;
+            }
+        }
+        if ((at(mPos) == '0') && (mPos + 1 < mEnd) &&
+            ((at(mPos + 1) == 'x') || (at(mPos + 1) == 'X')))
+        {
+            return scanHex(start, negative);
+        }
+        long mantissa = 0;
+        int numDigits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+
+        while ((mPos < mEnd) && ((c = at(mPos)) >= '0') && (c <= '9'))
+        {
+            if (numDigits < MAX_DIGITS)
+            {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0)
+                {
+                    ++numDigits;
+                }
+            }
+            else
+            {
+                ++exponent;
+            }
+            anyDigits = true;
+            ++mPos;
+        }
+        if ((mPos < mEnd) && (at(mPos) == '.'))
+        {
+            ++mPos;
+            while ((mPos < mEnd) && ((c = at(mPos)) >= '0') && (c <= '9'))
+            {
+                if (numDigits < MAX_DIGITS)
+                {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0)
+                    {
+                        ++numDigits;
+                    }
+                    --exponent;
+                }
+                anyDigits = true;
+                ++mPos;
+            }
+        }
+        if (!anyDigits)
+        {
+            mPos = start + 1;
+            return false;
+        }
+        if ((mPos < mEnd) && (((c = at(mPos)) == 'e') || (c == 'E')))
+        {
+            int expPos = mPos + 1;
+            boolean expNegative = false;
+
+            if ((expPos < mEnd) && (((c = at(expPos)) == '-') || (c == '+')))
+            {
+                expNegative = (c == '-');
+                ++expPos;
+            }
+            if ((expPos < mEnd) && ((c = at(expPos)) >= '0') && (c <= '9'))
+            {
+                int e = 0;
+
+                while ((expPos < mEnd) && ((c = at(expPos)) >= '0') && (c <= '9'))
+                {
+                    if (e < 10000)
+                    {
+                        e = e * 10 + (c - '0');
+                    }
+                    ++expPos;
+                }
+                exponent += expNegative ? -e : e;
+                mPos = expPos;
+            }
+        }
+        double value = mantissa;
+
+        if (exponent > 0)
+        {
+            value = (exponent < POW10.length) ? value * POW10[exponent] : value * Math.pow(10, exponent);
+        }
+        else if (exponent < 0)
+        {
+            value = (-exponent < POW10.length) ? value / POW10[-exponent] : value * Math.pow(10, exponent);
+        }
+        mValue = negative ? -value : value;
+        mIsHex = false;
+        return true;
+    }
+
+    private boolean scanHex(int start, boolean negative)
+    {
+        long value = 0;
+        boolean anyDigits = false;
+
+        mPos += 2;
+        while (mPos < mEnd)
+        {
+            int d = Character.digit(at(mPos), 16);
+
+            if (d < 0)
+            {
+                break;
+            }
+            value = (value << 4) | d;
+            anyDigits = true;
+            ++mPos;
+        }
+        if (!anyDigits)
+        {
+            mPos = start + 1;
+            return false;
+        }
+        mHexValue = negative ? -value : value;
+        mValue = mHexValue;
+        mIsHex = true;
+        return true;
+    }
+}
@@ -36,6 +36,7 @@ import com.samsungxr.SXRIndexBuffer;
 import com.samsungxr.SXRVertexBuffer;
 import com.samsungxr.nodes.SXRVideoNodePlayer;
 import com.samsungxr.utility.Log;
+import com.samsungxr.utility.Threads;
 import org.joml.Vector3f;
 
 import java.io.IOException;
@@ -43,9 +44,9 @@ import java.io.StreamTokenizer;
 import java.io.StringReader;
 import java.util.Arrays;
 import java.util.EnumSet;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.samsungxr.x3d.X3Dobject.*;
 
@@ -62,6 +63,8 @@ public class Utility
     X3Dobject mX3DObject;
     MeshCreatorX meshCreator;
     SXRContext gvrContext;
+    private final NumberScanner mScanner = new NumberScanner();
+    private final float[][] mComponentFloats = new float[5][];
 
     public Utility()
     {
@@ -84,67 +87,41 @@ public class Utility
 
     public float[] parseFixedLengthFloatString(String numberString,
                                                 int componentCount, boolean constrained0to1, boolean zeroOrGreater) {
-        StringReader sr = new StringReader(numberString);
-        StreamTokenizer st = new StreamTokenizer(sr);
-        st.parseNumbers();
-        int tokenType;
         float componentFloat[] = new float[componentCount];
-        try {
-            for (int i = 0; i < componentCount; i++) {
-                if ((tokenType = st.nextToken()) == StreamTokenizer.TT_NUMBER) {
-                    componentFloat[i] = (float) st.nval;
-                } else { // check for an exponent 'e'
-                    if (tokenType == StreamTokenizer.TT_WORD) {
-                        String word = st.sval;
-                        if (word.startsWith("e-")) { // negative exponent
-                            String exponentString = word.substring(2, word.length());
-                            try {
-                                --i; // with this exponent, we are still working with the
-                                // previous number
-                                Integer exponentInt = Integer.parseInt(exponentString);
-                                componentFloat[i] *= (float) Math
-                                        .pow(10, -exponentInt.intValue());
-                            } catch (NumberFormatException e) {
-                                Log.e(TAG,
-                                        "parsing fixed length string, exponent number conversion error: "
-                                                + exponentString);
-                            }
-                        } else if (word.equalsIgnoreCase("e")) { // exponent with plus sign
-                            tokenType = st.nextToken();
-                            if (tokenType == 43) { // "+" plus sign
-                                if ((tokenType = st.nextToken()) == StreamTokenizer.TT_NUMBER) {
-                                    --i; // with this exponent, we are still working with the
-                                    // previous number
-                                    float exponent = (float) st.nval;
-                                    componentFloat[i] *= (float) Math.pow(10, exponent);
-                                } else {
-                                    st.pushBack();
-                                    Log.e(TAG,
-                                            "Error: exponent in X3D parser with fixed length float");
-                                }
-                            } else
-                                st.pushBack();
-                        } else
-                            st.pushBack();
-                    }
-                } // end check for 'e' exponent
-                if (constrained0to1) {
-                    if (componentFloat[i] < 0)
-                        componentFloat[i] = 0;
-                    else if (componentFloat[i] > 1)
-                        componentFloat[i] = 1;
-                } else if (zeroOrGreater) {
-                    if (componentFloat[i] < 0)
-                        componentFloat[i] = 0;
-                }
-            } // end for-loop
-        } // end 'try'
-        catch (IOException e) {
-            Log.d(TAG, "Error parsing fixed length float string: " + e);
-        }
+        parseFixedLengthFloatString(numberString, componentFloat, constrained0to1, zeroOrGreater);
         return componentFloat;
     } // end parseFixedLengthFloatString
 
+    /**
+     * Parse a fixed number of floats into an existing array.
+     * Components missing from the string are left unchanged.
+     * @param numberString    string with the numbers to parse
+     * @param componentFloat  array to get the values, its length is the number of components
+     * @param constrained0to1 true to clamp the values between 0 and 1
+     * @param zeroOrGreater   true to clamp negative values to 0
+     * @return number of components parsed
+     */
+    public int parseFixedLengthFloatString(CharSequence numberString, float[] componentFloat,
+                                           boolean constrained0to1, boolean zeroOrGreater) {
+        NumberScanner scanner = mScanner.reset(numberString);
+        int i = 0;
+
+        while ((i < componentFloat.length) && scanner.next()) {
+            float value = scanner.floatValue();
+            if (constrained0to1) {
+                if (value < 0)
+                    value = 0;
+                else if (value > 1)
+                    value = 1;
+            } else if (zeroOrGreater) {
+                if (value < 0)
+                    value = 0;
+            }
+            componentFloat[i++] = value;
+        }
+        return i;
+    }
+
     public float parseSingleFloatString(String numberString,
                                          boolean constrained0to1, boolean zeroOrGreater) {
         float[] value = parseFixedLengthFloatString(numberString, 1,
@@ -172,23 +149,8 @@ public class Utility
     }  //  end parseBooleanString
 
     public int parseIntegerString(String numberString) {
-        StringReader sr = new StringReader(numberString);
-        StreamTokenizer st = new StreamTokenizer(sr);
-        st.parseNumbers();
-        int tokenType;
-        int returnValue = 0;
-
-        try {
-            if ((tokenType = st.nextToken()) != StreamTokenizer.TT_EOF) {
-                if (tokenType == StreamTokenizer.TT_NUMBER) {
-                    returnValue = (int) st.nval;
-                }
-            }
-        }
-        catch (IOException e) {
-            Log.e(TAG, "Error: parseIntegerString - " + e);
-        }
-        return returnValue;
+        NumberScanner scanner = mScanner.reset(numberString);
+        return scanner.next() ? scanner.intValue() : 0;
     } // end parseIntegerString
 
     // multi-field string
@@ -223,146 +185,95 @@ public class Utility
 
     protected void parseNumbersString(String numberString, int componentType,
                                     int componentCount) {
-        //preprocessing to get rid of 'e' or 'E' exponent
-        // otherwise the SAX parser splits 3e-2 (which is .03) into two
-        // number, 3 and -2.
-        if ( (numberString.indexOf('e') != -1) || (numberString.indexOf('E') != -1) ) {
-            int stringPos = 0;
-            String newReplacementString = "";
-            // we do assume the numberString won't be mixing 'e' and 'E'
-            // but we want to handle any either character
-            char eChar = 'e';
-            if ( numberString.indexOf('E') != -1 ) eChar = 'E';
-            while (numberString.indexOf(eChar, stringPos) != -1)  {
-                int ePos = numberString.indexOf(eChar, stringPos);
-                // check for the first space or comma before 'e'.
-                int prevSpaceBefore_e = Math.max( (numberString.lastIndexOf(' ', ePos)), (numberString.lastIndexOf(',', ePos)) );
-                prevSpaceBefore_e++;
-                // Copy from the current position until the comma or space before the 'e'
-                newReplacementString += numberString.substring(stringPos, prevSpaceBefore_e);
-                // check for the next space or comma after 'e'.
-                // Otherwise, we might be at the end of the string.
-                int nextSpaceAfter_e = Math.min( (numberString.indexOf(' ', ePos)), (numberString.indexOf(',', ePos)) );
-                if (nextSpaceAfter_e == -1) {
-                    // at the end of the original string, find the last space, comma or EOL of the string
-                    nextSpaceAfter_e = Math.max( (numberString.indexOf(' ', ePos)), (numberString.indexOf(',', ePos)) );
-                    if (nextSpaceAfter_e == -1) nextSpaceAfter_e = Math.max( nextSpaceAfter_e, numberString.length() );
-                }
-                String exponentString = numberString.substring(ePos+1, nextSpaceAfter_e);
-                try {
-                    double newReplacementNumber =
-                            ( (float) (new Float( numberString.substring(prevSpaceBefore_e, ePos) )) )
-                                    * Math.pow(10, (int) (new Integer(exponentString)) );
-                    // At < 1/1000th, it might be more efficient as 0.
-                    if ( Math.abs(newReplacementNumber) < .001 ) newReplacementNumber = 0;
-                    newReplacementString += " " + newReplacementNumber + " ";
-                }
-                catch (java.lang.NumberFormatException exception) {
-                    Log.e(TAG, "NumberFormatException in " + numberString.substring(prevSpaceBefore_e, nextSpaceAfter_e) + "; " + exception);
-                }
-                catch (Exception exception) {
-                    Log.e(TAG, "Exception in " + numberString.substring(prevSpaceBefore_e, nextSpaceAfter_e) + "; " + exception);
-                }
-                stringPos = nextSpaceAfter_e;
-            }
-            // Add any remainder of a string
-            numberString = newReplacementString + numberString.substring(stringPos, numberString.length());
-        }
-        StringReader sr = new StringReader(numberString);
-        StreamTokenizer st = new StreamTokenizer(sr);
-        st.parseNumbers();
-        int tokenType;
-        short componentShort[] = new short[componentCount];
-        float componentFloat[] = new float[componentCount];
-        try {
-            int index = 0;
-            while ((tokenType = st.nextToken()) != StreamTokenizer.TT_EOF) {
-                if (tokenType == StreamTokenizer.TT_NUMBER) {
+        parseNumbersString(mScanner.reset(numberString), componentType, componentCount);
+    } // parseNumbersString
 
-                    // first componentType's parse for short values
-                    // (integers) and will have no exponents
+    /*
+     * The receivers copy the components so one array
+     * of each length is reused for every field parsed.
+     */
+    private float[] getComponentArray(int componentCount) {
+        if (componentCount >= mComponentFloats.length) {
+            return new float[componentCount];
+        }
+        float[] componentFloat = mComponentFloats[componentCount];
+        if (componentFloat == null) {
+            componentFloat = mComponentFloats[componentCount] = new float[componentCount];
+        }
+        return componentFloat;
+    }
 
-                    if (componentType == indexedFaceSetComponent) {
-                        if ((int) st.nval != -1) {
-                            meshCreator.addPositionIndex((int) st.nval);
-                            index++;
-                            if (index == componentCount) {
-                                index = 0;
-                            }
-                        }
-                    } else if (componentType == textureIndexComponent) {
-                        if ((int) st.nval != -1) {
-                            meshCreator.addTexcoordIndex((int) st.nval);
-                            index++;
-                            if (index == componentCount) {
-                                index = 0;
-                            }
-                        }
-                    } else if (componentType == normalIndexComponent) {
-                        if ((int) st.nval != -1) {
-                            meshCreator.addNormalIndex((int) st.nval);
-                            index++;
-                            if (index == componentCount) {
-                                index = 0;
-                            }
-                        }
-                    }
+    private void parseNumbersString(NumberScanner scanner, int componentType,
+                                    int componentCount) {
+        float componentFloat[] = getComponentArray(componentCount);
+        int index = 0;
+
+        while (scanner.next()) {
+            // first componentType's parse for integer indices,
+            // -1 separates the faces
+            if (componentType == indexedFaceSetComponent) {
+                int value = scanner.intValue();
+                if (value != -1) {
+                    meshCreator.addPositionIndex(value);
+                }
+            } else if (componentType == textureIndexComponent) {
+                int value = scanner.intValue();
+                if (value != -1) {
+                    meshCreator.addTexcoordIndex(value);
+                }
+            } else if (componentType == normalIndexComponent) {
+                int value = scanner.intValue();
+                if (value != -1) {
+                    meshCreator.addNormalIndex(value);
+                }
+            }
 
-                    // The rest of these will be parsing floats that could
-                    // have 'e' exponent value.  3DSMax will export X3D/VRML
-                    // with the 'e' exponent
-                    //TODO: check for 'e' exponent values.
-
-                    else if (componentType == verticesComponent) {
-                        componentFloat[index] = (float) (st.nval);
-                        index++;
-                        if (index == componentCount) {
-                            meshCreator.addInputPosition(componentFloat);
-                            index = 0;
-                        }
-                    } else if (componentType == textureCoordComponent) {
-                        componentFloat[index] = (float) st.nval;
-                        index++;
-                        if (index == componentCount) {
-                            meshCreator.addInputTexcoord(componentFloat);
-                            index = 0;
-                        }
-                    } else if (componentType == normalsComponent) {
-                        componentFloat[index] = (float) st.nval;
-                        index++;
-                        if (index == componentCount) {
-                            meshCreator.addInputNormal(componentFloat);
-                            index = 0;
-                        }
-                    } else if (componentType == interpolatorKeyComponent) {
-                        componentFloat[index] = (float) st.nval;
-                        index++;
-                        if (index == componentCount) {
-                            mX3DObject.AddKeys(componentFloat[0]);
-                            index = 0;
-                        }
-                    } else if (componentType == interpolatorKeyValueComponent) {
-                        componentFloat[index] = (float) st.nval;
-                        index++;
-                        if (index == componentCount) {
-                            mX3DObject.AddKeyValues(componentFloat);
-                            index = 0;
-                        }
-                    } else if (componentType == LODComponent) {
-                        componentFloat[index] = (float) st.nval;
-                        mX3DObject.AddKeys(componentFloat[0]);
-                    } else if (componentType == elevationGridHeight) {
-                        // Elevation Grid not currently supported
-                        mX3DObject.floatArray.add(new Float((float) st.nval));
-                    }
+            // The rest of these parse floats, the component array
+            // is reused and copied by the receiver.
 
-                } // end if token = number
-            } // end while loop
-        } // end try statement
-        catch (IOException e) {
-            Log.e(TAG, "Error: parseNumbersString - " + e);
+            else if (componentType == verticesComponent) {
+                componentFloat[index] = scanner.floatValue();
+                index++;
+                if (index == componentCount) {
+                    meshCreator.addInputPosition(componentFloat);
+                    index = 0;
+                }
+            } else if (componentType == textureCoordComponent) {
+                componentFloat[index] = scanner.floatValue();
+                index++;
+                if (index == componentCount) {
+                    meshCreator.addInputTexcoord(componentFloat);
+                    index = 0;
+                }
+            } else if (componentType == normalsComponent) {
+                componentFloat[index] = scanner.floatValue();
+                index++;
+                if (index == componentCount) {
+                    meshCreator.addInputNormal(componentFloat);
+                    index = 0;
+                }
+            } else if (componentType == interpolatorKeyComponent) {
+                componentFloat[index] = scanner.floatValue();
+                index++;
+                if (index == componentCount) {
+                    mX3DObject.AddKeys(componentFloat[0]);
+                    index = 0;
+                }
+            } else if (componentType == interpolatorKeyValueComponent) {
+                componentFloat[index] = scanner.floatValue();
+                index++;
+                if (index == componentCount) {
+                    mX3DObject.AddKeyValues(componentFloat);
+                    index = 0;
+                }
+            } else if (componentType == LODComponent) {
+                mX3DObject.AddKeys(scanner.floatValue());
+            } else if (componentType == elevationGridHeight) {
+                // Elevation Grid not currently supported
+                mX3DObject.floatArray.add(scanner.floatValue());
+            }
         }
-    } // parseNumbersString
+    }
 
     /*
     private void AddKeys(float key)
@@ -418,6 +329,12 @@ public class Utility
 
             void fill(float v) { Arrays.fill(mData, v); }
 
+            void setData(float[] data)
+            {
+                mData = data;
+                mCurSize = data.length;
+            }
+
             void setCapacity(int c)
             {
                 if ((mData == null) || (c > mData.length))
@@ -466,7 +383,7 @@ public class Utility
                 }
                 else if (mCurSize + entry.length > mData.length)
                 {
-                    mData = Arrays.copyOf(mData, (mCurSize * 3) / 2);
+                    mData = Arrays.copyOf(mData, Math.max(mCurSize + entry.length, (mCurSize * 3) / 2));
                 }
                 for (int i = 0; i < entry.length; ++i)
                 {
@@ -517,7 +434,7 @@ public class Utility
                 }
                 else if (mCurSize + 1 > mData.length)
                 {
-                    mData = Arrays.copyOf(mData, (mCurSize * 3) / 2);
+                    mData = Arrays.copyOf(mData, Math.max(mCurSize + 1, (mCurSize * 3) / 2));
                 }
                 mData[mCurSize++] = v;
             }
@@ -547,6 +464,7 @@ public class Utility
         private SXRContext mContext;
         private DefinedItem mVertexBufferDefine;
         private float mMaxYTexcoord = Float.NEGATIVE_INFINITY;
+        private SXRIndexBuffer mIndexBuffer = null;
         private boolean mUseNormals;
         private boolean mUseTexCoords;
 
@@ -656,6 +574,149 @@ public class Utility
             }
         }
 
+        /*
+         * Hash map from (position, normal, texcoord) index triples
+         * to output vertex indices. Open addressing with linear probing
+         * on primitive arrays so no objects are made per vertex.
+         */
+        static class VertexMap
+        {
+            private int[] mKeys;
+            private int[] mValues;
+            private int   mMask;
+            private int   mSize;
+
+            VertexMap(int expectedSize)
+            {
+                int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+                mKeys = new int[capacity * 3];
+                mValues = new int[capacity];
+                mMask = capacity - 1;
+                Arrays.fill(mValues, -1);
+            }
+
+            int size() { return mSize; }
+
+            private static int hash(int p, int n, int t)
+            {
+                int h = p * 0x9E3779B1;
+                h ^= n * 0x85EBCA77;
+                h ^= t * 0xC2B2AE3D;
+                return h ^ (h >>> 15);
+            }
+
+            /*
+             * Returns the vertex index for the triple,
+             * adding it with the next index if it is not there.
+             * The new index is returned as -(index + 1).
+             */
+            int putIfAbsent(int p, int n, int t)
+            {
+                int slot = hash(p, n, t) & mMask;
+
+                while (mValues[slot] >= 0)
+                {
+                    int k = slot * 3;
+                    if ((mKeys[k] == p) && (mKeys[k + 1] == n) && (mKeys[k + 2] == t))
+                    {
+                        return mValues[slot];
+                    }
+                    slot = (slot + 1) & mMask;
+                }
+                int index = mSize++;
+                int k = slot * 3;
+                mKeys[k] = p;
+                mKeys[k + 1] = n;
+                mKeys[k + 2] = t;
+                mValues[slot] = index;
+                if (mSize * 2 > mValues.length)
+                {
+                    rehash();
+                }
+                return -(index + 1);
+            }
+
+            private void rehash()
+            {
+                int[] oldKeys = mKeys;
+                int[] oldValues = mValues;
+                int capacity = oldValues.length * 2;
+
+                mKeys = new int[capacity * 3];
+                mValues = new int[capacity];
+                mMask = capacity - 1;
+                Arrays.fill(mValues, -1);
+                for (int i = 0; i < oldValues.length; ++i)
+                {
+                    if (oldValues[i] >= 0)
+                    {
+                        int k = i * 3;
+                        int slot = hash(oldKeys[k], oldKeys[k + 1], oldKeys[k + 2]) & mMask;
+                        while (mValues[slot] >= 0)
+                        {
+                            slot = (slot + 1) & mMask;
+                        }
+                        System.arraycopy(oldKeys, k, mKeys, slot * 3, 3);
+                        mValues[slot] = oldValues[i];
+                    }
+                }
+            }
+        }
+
+        interface RangeTask
+        {
+            void run(int start, int end);
+        }
+
+        private static final int PARALLEL_MIN_FACES = 16384;
+        private static final int PARALLEL_GRAIN = 4096;
+
+        /*
+         * Runs the task over [0, count) in chunks on the thread pool.
+         * The calling thread takes chunks too and only waits for
+         * chunks other threads have already started, so this cannot
+         * deadlock when called from a pool thread.
+         */
+        static void parallelFor(int count, final int grain, final RangeTask task)
+        {
+            final int numChunks = (count + grain - 1) / grain;
+            final int total = count;
+            final AtomicInteger nextChunk = new AtomicInteger();
+            final CountDownLatch done = new CountDownLatch(numChunks);
+            Runnable worker = new Runnable()
+            {
+                public void run()
+                {
+                    int c;
+                    while ((c = nextChunk.getAndIncrement()) < numChunks)
+                    {
+                        try
+                        {
+                            task.run(c * grain, Math.min(total, (c + 1) * grain));
+                        }
+                        finally
+                        {
+                            done.countDown();
+                        }
+                    }
+                }
+            };
+            int numHelpers = Math.min(numChunks, Runtime.getRuntime().availableProcessors()) - 1;
+            for (int i = 0; i < numHelpers; ++i)
+            {
+                Threads.spawn(worker);
+            }
+            worker.run();
+            try
+            {
+                done.await();
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
         /*
          * Generates normals for the output vertices by computing
          * face normals and averaging them.
@@ -663,74 +724,144 @@ public class Utility
          * 2 lines of the polygon.  Second, for each vertex, sum the polygon
          * normals shared by this vertex. Then normalize the normals.
          * The resulting normals are in mOutputNormals.
+         * Face normals and normalization are computed in parallel
+         * for large meshes.
          */
-        private void generateNormals(int[] faces, int numIndices, FloatArray positions)
+        private void generateNormals(final int[] faces, int numIndices, FloatArray positions)
         {
-            Vector3f side0 = new Vector3f();
-            Vector3f side1 = new Vector3f();
-            Vector3f normal = new Vector3f();
-            try
+            final float[] pos = positions.array();
+            final int numFaces = numIndices / 3;
+            final int numVerts = positions.getSize() / 3;
+            final float[] faceNormals = new float[numFaces * 3];
+            final float[] normals = new float[numVerts * 3];
+            RangeTask faceTask = new RangeTask()
             {
-                mInputNormals.setCapacity(numIndices * 3);
-                mOutputNormals.setCapacity(positions.getSize());
-                mOutputNormals.fill(0.0f);
-                /*
-                 * Compute face normals
-                 */
-                for (int f = 0; f < numIndices; f += 3)
+                public void run(int start, int end)
                 {
-                    int v1Index = faces[f] * 3;
-                    int v2Index = faces[f + 1] * 3;
-                    int v3Index = faces[f + 2] * 3;
-
-                    side0.setComponent(0, positions.get(v1Index) - positions.get(v2Index));
-                    side0.setComponent(1, positions.get(v1Index + 1) - positions.get(v2Index + 1));
-                    side0.setComponent(2, positions.get(v1Index + 2) - positions.get(v2Index + 2));
-                    side1.setComponent(0, positions.get(v2Index) - positions.get(v3Index));
-                    side1.setComponent(1, positions.get(v2Index + 1) - positions.get(v3Index + 1));
-                    side1.setComponent(2, positions.get(v2Index + 2) - positions.get(v3Index + 2));
-                    side0.cross(side1, normal);
-                    normal.normalize();
-                    mInputNormals.set(f * 3, normal);
-                }
-                /*
-                 * Add face normals to produce vertex normals
-                 */
-                float[] normals = mOutputNormals.array();
-                for (int f = 0; f < numIndices; f += 3)
+                    for (int f = start; f < end; ++f)
+                    {
+                        int v1Index = faces[f * 3] * 3;
+                        int v2Index = faces[f * 3 + 1] * 3;
+                        int v3Index = faces[f * 3 + 2] * 3;
+                        float ax = pos[v1Index] - pos[v2Index];
+                        float ay = pos[v1Index + 1] - pos[v2Index + 1];
+                        float az = pos[v1Index + 2] - pos[v2Index + 2];
+                        float bx = pos[v2Index] - pos[v3Index];
+                        float by = pos[v2Index + 1] - pos[v3Index + 1];
+                        float bz = pos[v2Index + 2] - pos[v3Index + 2];
+                        float nx = ay * bz - az * by;
+                        float ny = az * bx - ax * bz;
+                        float nz = ax * by - ay * bx;
+                        float len = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+                        if (len > 0)
+                        {
+                            nx /= len;
+                            ny /= len;
+                            nz /= len;
+                        }
+                        faceNormals[f * 3] = nx;
+                        faceNormals[f * 3 + 1] = ny;
+                        faceNormals[f * 3 + 2] = nz;
+                    }
+                }
+            };
+            RangeTask normalizeTask = new RangeTask()
+            {
+                public void run(int start, int end)
                 {
-                    int v1Index = faces[f] * 3;
-                    int v2Index = faces[f + 1] * 3;
-                    int v3Index = faces[f + 2] * 3;
-
-                    mInputNormals.get(f * 3, normal);
-                    normals[v1Index] += normal.x;
-                    normals[v1Index + 1] += normal.y;
-                    normals[v1Index + 2] += normal.z;
-                    normals[v2Index] += normal.x;
-                    normals[v2Index + 1] += normal.y;
-                    normals[v2Index + 2] += normal.z;
-                    normals[v3Index] += normal.x;
-                    normals[v3Index + 1] += normal.y;
-                    normals[v3Index + 2] += normal.z;
-                }
-                /*
-                 * Normalize output normals
-                 */
-                for (int i = 0; i < mOutputNormals.getSize(); ++i)
+                    for (int i = start * 3; i < end * 3; i += 3)
+                    {
+                        float nx = normals[i];
+                        float ny = normals[i + 1];
+                        float nz = normals[i + 2];
+                        float len = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+                        if (len > 0)
+                        {
+                            normals[i] = nx / len;
+                            normals[i + 1] = ny / len;
+                            normals[i + 2] = nz / len;
+                        }
+                    }
+                }
+            };
+            boolean parallel = numFaces >= PARALLEL_MIN_FACES;
+
+            if (parallel)
+            {
+                parallelFor(numFaces, PARALLEL_GRAIN, faceTask);
+            }
+            else
+            {
+                faceTask.run(0, numFaces);
+            }
+            /*
+             * Add face normals to produce vertex normals
+             */
+            for (int f = 0; f < numFaces * 3; f += 3)
+            {
+                float nx = faceNormals[f];
+                float ny = faceNormals[f + 1];
+                float nz = faceNormals[f + 2];
+
+                for (int j = 0; j < 3; ++j)
                 {
-                    int nindex = i * 3;
-                    mOutputNormals.get(nindex, normal);
-                    normal.normalize();
-                    mOutputNormals.set(nindex, normal);
+                    int vindex = faces[f + j] * 3;
+                    normals[vindex] += nx;
+                    normals[vindex + 1] += ny;
+                    normals[vindex + 2] += nz;
                 }
             }
-            catch (Exception e)
+            if (parallel)
             {
-                Log.e(TAG, e.toString());
+                parallelFor(numVerts, PARALLEL_GRAIN, normalizeTask);
             }
+            else
+            {
+                normalizeTask.run(0, numVerts);
+            }
+            mOutputNormals.setData(normals);
         }  //  end generateNormals
 
+        /*
+         * Gets the index buffer made by the last call to
+         * {@link #organizeVertices(SXRIndexBuffer)}. This may not be
+         * the buffer passed in if 16 bit indices were sufficient.
+         */
+        SXRIndexBuffer getIndexBuffer()
+        {
+            return mIndexBuffer;
+        }
+
+        /*
+         * Puts the indices into an index buffer. If the input buffer is
+         * still empty, a buffer with 16 bit indices is used instead
+         * when there are no more than 65535 vertices.
+         */
+        private void setIndices(SXRIndexBuffer ibuf, int[] indices, int numIndices, int numVertices)
+        {
+            if ((ibuf == null) ||
+                ((ibuf.getIndexCount() == 0) && (ibuf.getIndexSize() == 4) && (numVertices <= 65535)))
+            {
+                ibuf = new SXRIndexBuffer(mContext, (numVertices <= 65535) ? 2 : 4, 0);
+            }
+            if (ibuf.getIndexSize() == 2)
+            {
+                char[] shortIndices = new char[numIndices];
+                for (int i = 0; i < numIndices; ++i)
+                {
+                    shortIndices[i] = (char) indices[i];
+                }
+                ibuf.setShortVec(shortIndices);
+            }
+            else
+            {
+                ibuf.setIntVec((indices.length == numIndices) ? indices : Arrays.copyOf(indices, numIndices));
+            }
+            mIndexBuffer = ibuf;
+        }
+
         /*
          * Create a vertex and index buffer from the X3D indices,
          * positions, normals and texture coordinates.
@@ -781,60 +912,52 @@ public class Utility
              * normals and texture coordinates. We must regenerate the
              * vertex table to duplicate vertices in the cases where
              * a position has more than one normal or textoord.
+             * Vertices are welded on their index triples.
              */
-            Map<String, Integer> vertexMap = new LinkedHashMap<String, Integer>();
-            int[] newIndices = new int[mPositionIndices.getSize()];
+            int numIndices = mPositionIndices.getSize();
+            VertexMap vertexMap = new VertexMap(mInputPositions.getSize() / 3);
+            int[] newIndices = new int[numIndices];
+            int[] positionIndices = mPositionIndices.array();
             float[] pos = new float[3];
             float[] norm = new float[3];
             float[] tc = new float[2];
-            int[] normalIndices = (mNormalIndices.getSize() > 0) ? mNormalIndices.array() : mPositionIndices.array();
-            int[] texcoordIndices = (mTexcoordIndices.getSize() > 0) ? mTexcoordIndices.array() : mPositionIndices.array();
+            int[] normalIndices = (mNormalIndices.getSize() > 0) ? mNormalIndices.array() : positionIndices;
+            int[] texcoordIndices = (mTexcoordIndices.getSize() > 0) ? mTexcoordIndices.array() : positionIndices;
 
             /*
              * Scan all the faces and compose the set of unique vertices
              * (where a vertex has a position, normal and texcoord)
              */
             mOutputPositions.setCapacity(mInputPositions.getSize());
-            for (char f = 0; f < mPositionIndices.getSize(); f++)
+            for (int f = 0; f < numIndices; f++)
             {
-                String key = "";
-                int vindex = mPositionIndices.get(f) * 3;
+                int pindex = positionIndices[f];
+                int tindex = hasTexCoords ? texcoordIndices[f] : -1;
+                int nindex = hasNormals ? normalIndices[f] : -1;
+                int newindex = vertexMap.putIfAbsent(pindex, nindex, tindex);
 
-                mInputPositions.get(vindex, pos);
-                key += String.valueOf(pos[0]) + String.valueOf(pos[1]) + String.valueOf(pos[2]);
-                if (hasTexCoords)
-                {
-                    int tindex = texcoordIndices[f] * 2;
-                    mInputTexCoords.get(tindex, tc);
-                    // flip the Y texture coordinate
-                    //tc[1] = -tc[1];
-                    tc[1] = mMaxYTexcoord - tc[1];
-                    key += String.valueOf(tc[0]) + String.valueOf(tc[1]);
-                }
-                if (hasNormals)
-                {
-                    int nindex = normalIndices[f] * 3;
-                    mInputNormals.get(nindex, norm);
-                    key += String.valueOf(norm[0]) + String.valueOf(norm[1]) + String.valueOf(norm[2]);
-                }
-                Integer newindex = vertexMap.get(key);
-                if (newindex == null)
+                if (newindex < 0)
                 {
-                    newindex = vertexMap.size();
-                    vertexMap.put(key, newindex);
+                    newindex = -(newindex + 1);
+                    mInputPositions.get(pindex * 3, pos);
                     mOutputPositions.add(pos);
                     if (hasNormals)
                     {
+                        mInputNormals.get(nindex * 3, norm);
                         mOutputNormals.add(norm);
                     }
                     if (hasTexCoords)
                     {
+                        mInputTexCoords.get(tindex * 2, tc);
+                        // flip the Y texture coordinate
+                        tc[1] = mMaxYTexcoord - tc[1];
                         mOutputTexCoords.add(tc);
                     }
                 }
                 newIndices[f] = newindex;
             }
-            SXRVertexBuffer vbuffer = new SXRVertexBuffer(mContext, descriptor, mOutputPositions.getSize() / 3);
+            int numVertices = mOutputPositions.getSize() / 3;
+            SXRVertexBuffer vbuffer = new SXRVertexBuffer(mContext, descriptor, numVertices);
             if (mVertexBufferDefine != null)
             {
                 mVertexBufferDefine.setVertexBuffer(vbuffer);
@@ -852,7 +975,7 @@ public class Utility
             {
                 vbuffer.setFloatArray("a_texcoord", mOutputTexCoords.array(), 2, 0);
             }
-            ibuf.setIntVec(newIndices);
+            setIndices(ibuf, newIndices, numIndices, numVertices);
             clear();
             return vbuffer;
         }
@@ -907,7 +1030,8 @@ public class Utility
                 }
                 vbuffer.setFloatArray("a_texcoord", texCoords, 2, 0);
             }
-            ibuf.setIntVec(mPositionIndices.array());
+            setIndices(ibuf, mPositionIndices.array(), mPositionIndices.getSize(),
+                       mInputPositions.getSize() / 3);
             clear();
             return vbuffer;
         }
@@ -3883,6 +3883,7 @@ public class X3Dobject {
                 else {
                     if (reorganizeVerts) {
                         gvrVertexBuffer = utility.meshCreator.organizeVertices(gvrIndexBuffer);
+                        gvrIndexBuffer = utility.meshCreator.getIndexBuffer();
                         reorganizeVerts = false;
                     }
                     SXRMesh mesh = new SXRMesh(gvrContext, gvrVertexBuffer.getDescriptor());
@@ -4140,6 +4141,7 @@ public class X3Dobject {
                         utility.meshCreator.addInputNormal(normals);
                         utility.meshCreator.addInputTexcoord(texCoords);
                         gvrVertexBuffer = utility.meshCreator.organizeVertices(gvrIndexBuffer);
+                        gvrIndexBuffer = utility.meshCreator.getIndexBuffer();
 
                         SXRMesh mesh = new SXRMesh(gvrContext, gvrVertexBuffer.getDescriptor());
 
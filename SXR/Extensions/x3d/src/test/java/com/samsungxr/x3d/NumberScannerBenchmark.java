@@ -0,0 +1,151 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.x3d;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StreamTokenizer;
+import java.io.StringReader;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Times parsing the coordinates and indices of a large X3D mesh with
+ * {@link NumberScanner} against the StreamTokenizer loop the parser used
+ * before, and against splitting the string and calling Float.parseFloat.
+ * Every parser runs a few times and the best run is printed, in milliseconds.
+ */
+public class NumberScannerBenchmark
+{
+    private static final int POINT_COUNT = 100000;
+    private static final int ROUNDS = 5;
+
+    private interface Parser
+    {
+        double parse(String field) throws IOException;
+    }
+
+    private static final Parser SCANNER = new Parser()
+    {
+        private final NumberScanner mScanner = new NumberScanner();
+
+        public double parse(String field)
+        {
+            double sum = 0;
+            mScanner.reset(field);
+            while (mScanner.next())
+            {
+                sum += mScanner.floatValue();
+            }
+            return sum;
+        }
+    };
+
+    private static final Parser TOKENIZER = new Parser()
+    {
+        public double parse(String field) throws IOException
+        {
+            double sum = 0;
+            StreamTokenizer st = new StreamTokenizer(new StringReader(field));
+            st.parseNumbers();
+            while (st.nextToken() != StreamTokenizer.TT_EOF)
+            {
+                if (st.ttype == StreamTokenizer.TT_NUMBER)
+                {
+                    sum += (float) st.nval;
+                }
+            }
+            return sum;
+        }
+    };
+
+    private static final Parser SPLIT = new Parser()
+    {
+        public double parse(String field)
+        {
+            double sum = 0;
+            for (String token : field.trim().split("[\\s,]+"))
+            {
+                sum += Float.parseFloat(token);
+            }
+            return sum;
+        }
+    };
+
+    private static double time(Parser parser, String field, double[] sum) throws IOException
+    {
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; ++round)
+        {
+            long start = System.nanoTime();
+            sum[0] = parser.parse(field);
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        return best;
+    }
+
+    private static void warmUp(String field) throws IOException
+    {
+        double[] sum = new double[1];
+        time(SCANNER, field, sum);
+        time(TOKENIZER, field, sum);
+        time(SPLIT, field, sum);
+    }
+
+    private static void run(String name, String field) throws IOException
+    {
+        double[] scannerSum = new double[1];
+        double[] tokenizerSum = new double[1];
+        double[] splitSum = new double[1];
+        double scannerTime = time(SCANNER, field, scannerSum);
+        double tokenizerTime = time(TOKENIZER, field, tokenizerSum);
+        double splitTime = time(SPLIT, field, splitSum);
+
+        System.out.println(String.format("%-24s %12.2f %12.2f %12.2f",
+                                         name, tokenizerTime, splitTime, scannerTime));
+        assertEquals(splitSum[0], scannerSum[0], Math.abs(splitSum[0]) * 1e-9);
+        assertEquals(splitSum[0], tokenizerSum[0], Math.abs(splitSum[0]) * 1e-6);
+    }
+
+    @Test
+    public void compareWithTokenizer() throws IOException
+    {
+        Random random = new Random(1234);
+        StringBuilder points = new StringBuilder();
+        StringBuilder indices = new StringBuilder();
+
+        // as an exporter writes them, no exponents, which the tokenizer cannot read
+        for (int i = 0; i < POINT_COUNT; ++i)
+        {
+            points.append(String.format(Locale.US, "%.4f %.4f %.4f, ",
+                                        random.nextFloat() * 20 - 10,
+                                        random.nextFloat() * 20 - 10,
+                                        random.nextFloat() * 20 - 10));
+            indices.append(random.nextInt(POINT_COUNT)).append(' ')
+                   .append(random.nextInt(POINT_COUNT)).append(' ')
+                   .append(random.nextInt(POINT_COUNT)).append(" -1 ");
+        }
+
+        warmUp(points.toString());
+        System.out.println(String.format("%-24s %12s %12s %12s", POINT_COUNT + " points",
+                                         "tokenizer ms", "split ms", "scanner ms"));
+        run("point", points.toString());
+        run("coordIndex", indices.toString());
+    }
+}
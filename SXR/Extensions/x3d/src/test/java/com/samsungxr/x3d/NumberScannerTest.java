@@ -0,0 +1,86 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.x3d;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class NumberScannerTest
+{
+    private final NumberScanner mScanner = new NumberScanner();
+
+    private int nextInt()
+    {
+        assertTrue(mScanner.next());
+        return mScanner.intValue();
+    }
+
+    private float nextFloat()
+    {
+        assertTrue(mScanner.next());
+        return mScanner.floatValue();
+    }
+
+    @Test
+    public void scansFloatForms()
+    {
+        mScanner.reset("1 -2.5, +.5 3. 1.5E+3 3e-2 true 7");
+        assertEquals(1, nextFloat(), 0);
+        assertEquals(-2.5f, nextFloat(), 0);
+        assertEquals(0.5f, nextFloat(), 0);
+        assertEquals(3, nextFloat(), 0);
+        assertEquals(1500, nextFloat(), 0);
+        assertEquals(0.03f, nextFloat(), 1e-7f);
+        assertEquals(7, nextFloat(), 0);
+        assertFalse(mScanner.next());
+    }
+
+    @Test
+    public void scansIndices()
+    {
+        mScanner.reset("0 1 2 -1 3,4,5,-1");
+        int[] expected = { 0, 1, 2, -1, 3, 4, 5, -1 };
+
+        for (int value : expected)
+        {
+            assertEquals(value, nextInt());
+        }
+        assertFalse(mScanner.next());
+    }
+
+    @Test
+    public void hexIntegersWrapLikeDecode()
+    {
+        String[] hex = { "0x7FFFFFFF", "0x80000000", "0xFFFFFFFF", "0xff00ff", "-0x10", "0x1FFFFFFFF" };
+
+        for (String s : hex)
+        {
+            mScanner.reset(s);
+            assertEquals(s, Long.decode(s).intValue(), nextInt());
+        }
+    }
+
+    @Test
+    public void decimalAfterHexIsNotWrapped()
+    {
+        mScanner.reset("0xFFFFFFFF 2.75");
+        assertEquals(-1, nextInt());
+        assertEquals(2, nextInt());
+    }
+}
@@ -16,6 +16,7 @@
 package com.samsungxr;
 
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.util.TypedValue;
@@ -27,10 +28,14 @@ import com.samsungxr.utility.MarkingFileInputStream;
 
 import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * A class to minimize overload fan-out.
@@ -403,6 +408,67 @@ public class SXRAndroidResource {
         }
     }
 
+    /**
+     * Map the resource contents into memory.
+     * <p>
+     * Files, uncompressed assets and uncompressed raw resources can be
+     * mapped with NIO instead of being read through {@link #getStream()}:
+     * the contents are paged in on demand and are not copied onto the Java
+     * heap. Assets and resources which are compressed in the APK, network
+     * resources and input streams cannot be mapped.
+     *
+     * @return A read-only direct buffer with the resource contents, or
+     *         {@code null} if the resource cannot be mapped.
+     * @throws IOException
+     */
+    public synchronized ByteBuffer mapBuffer() throws IOException {
+        AssetFileDescriptor afd;
+
+        switch (resourceType) {
+        case LINUX_FILESYSTEM:
+            RandomAccessFile file = new RandomAccessFile(filePath, "r");
+            try {
+                FileChannel channel = file.getChannel();
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } finally {
+                file.close();
+            }
+
+        case ANDROID_ASSETS:
+            try {
+                afd = context.getResources().getAssets().openFd(assetPath);
+            } catch (FileNotFoundException e) {
+                // compressed in the APK
+                return null;
+            }
+            break;
+
+        case ANDROID_RESOURCE:
+            afd = context.getResources().openRawResourceFd(resourceId);
+            break;
+
+        default:
+            return null;
+        }
+        if (afd == null) {
+            return null;
+        }
+        try {
+            if (afd.getLength() == AssetFileDescriptor.UNKNOWN_LENGTH) {
+                return null;
+            }
+            FileInputStream in = new FileInputStream(afd.getFileDescriptor());
+            try {
+                return in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                        afd.getStartOffset(), afd.getLength());
+            } finally {
+                in.close();
+            }
+        } finally {
+            afd.close();
+        }
+    }
+
     /**
      * Save the stream position, for later use with {@link #reset()}.
      * 
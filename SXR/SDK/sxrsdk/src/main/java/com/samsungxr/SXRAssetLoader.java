@@ -44,11 +44,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
@@ -601,8 +603,9 @@ public final class SXRAssetLoader implements IEventReceiver
 
 
     /**
-     * When the application is restarted we recreate the texture cache
+     * When the application is restarted we empty the texture cache
      * since all of the GL textures have been deleted.
+     * Its byte budget and statistics are kept.
      */
     static
     {
@@ -610,7 +613,7 @@ public final class SXRAssetLoader implements IEventReceiver
 
             @Override
             public void run() {
-                mTextureCache = new ResourceCache<SXRImage>();
+                mTextureCache.clear();
                 mEmbeddedCache = new HashMap<String, SXRImage>();
                 mDefaultImage = null;
             }
@@ -988,48 +991,125 @@ public final class SXRAssetLoader implements IEventReceiver
     }
 
     // IO Handler for Jassimp
+    /*
+     * Stream handed to Jassimp for each file it opens.
+     * <p>
+     * Files on the local file system are memory mapped and copied
+     * directly into the native buffer Jassimp supplies, they are never
+     * on the Java heap. Other resources are read once into a buffer
+     * sized from the stream and copied from that buffer without
+     * making another copy. The data is released on close.
+     */
     static class ResourceStream implements AiIOStream
     {
         protected final SXRAndroidResource resource;
-        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        protected final String path;
+        private ByteBuffer mapped = null;
+        private ExposedByteArrayOutputStream output = null;
+        private int size = 0;
 
         ResourceStream(SXRResourceVolume v, String path) throws IOException
         {
+            this.path = path;
             resource = v.openResource(path);
+            if (resource.getResourceType() == SXRAndroidResource.ResourceType.LINUX_FILESYSTEM)
+            {
+                mapped = map(new File(resource.getResourcePath()));
+                size = mapped.remaining();
+                return;
+            }
             InputStream stream = resource.getStream();
             if (stream == null)
             {
                 throw new IOException("Cannot open " + path);
             }
-            int read;
-            byte[] data = new byte[1024];
-            while((read = stream.read(data, 0, data.length)) != -1)
+            try
+            {
+                int read;
+                byte[] data = new byte[8192];
+                output = new ExposedByteArrayOutputStream(Math.max(stream.available(), data.length));
+                while ((read = stream.read(data, 0, data.length)) != -1)
+                {
+                    output.write(data, 0, read);
+                }
+                size = output.size();
+            }
+            finally
             {
-                output.write(data, 0, read);
+                resource.closeStream();
             }
-            output.flush();
-            resource.closeStream();
         }
 
-        public int getFileSize() { return output.size(); }
+        private static ByteBuffer map(File file) throws IOException
+        {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try
+            {
+                FileChannel channel = raf.getChannel();
+                long length = channel.size();
 
-        public boolean read(ByteBuffer buffer)
+                if (length > Integer.MAX_VALUE)
+                {
+                    throw new IOException(file.getPath() + " is too large to import");
+                }
+                // the mapping stays valid after the channel is closed
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            }
+            finally
+            {
+                raf.close();
+            }
+        }
+
+        public boolean isMapped() { return mapped != null; }
+
+        public int getFileSize() { return size; }
+
+        public synchronized boolean read(ByteBuffer buffer)
         {
-            if (output.size() > 0)
+            if (mapped != null)
             {
-                buffer.put(output.toByteArray());
+                buffer.put(mapped.duplicate());
+                return true;
+            }
+            if ((output != null) && (size > 0))
+            {
+                buffer.put(output.getBuffer(), 0, size);
                 return true;
             }
             return false;
         }
+
+        synchronized void release()
+        {
+            mapped = null;
+            output = null;
+        }
     };
 
+    /*
+     * Lets the stream contents be copied without calling toByteArray.
+     */
+    private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream
+    {
+        ExposedByteArrayOutputStream(int size)
+        {
+            super(size);
+        }
+
+        byte[] getBuffer() { return buf; }
+    }
+
     // IO Handler for Jassimp
     static class ResourceVolumeIO implements AiIOSystem<ResourceStream>
     {
         protected Throwable lastError = null;
         protected final SXRResourceVolume volume;
         protected final HashMap<String, ResourceStream> cache = new HashMap<>();
+        private long bytesMapped = 0;
+        private long bytesRead = 0;
+        private int cachedBytes = 0;
+        private int peakCachedBytes = 0;
 
         ResourceVolumeIO(SXRResourceVolume v)
         {
@@ -1041,7 +1121,7 @@ public final class SXRAssetLoader implements IEventReceiver
             return '/';
         }
 
-        public ResourceStream open(String path, String iomode)
+        public synchronized ResourceStream open(String path, String iomode)
         {
             ResourceStream rs = cache.get(path);
             if (rs != null)
@@ -1052,6 +1132,16 @@ public final class SXRAssetLoader implements IEventReceiver
             {
                 rs = new ResourceStream(volume, path);
                 cache.put(path, rs);
+                if (rs.isMapped())
+                {
+                    bytesMapped += rs.getFileSize();
+                }
+                else
+                {
+                    bytesRead += rs.getFileSize();
+                    cachedBytes += rs.getFileSize();
+                    peakCachedBytes = Math.max(peakCachedBytes, cachedBytes);
+                }
                 return rs;
             }
             catch (IOException ex)
@@ -1061,9 +1151,35 @@ public final class SXRAssetLoader implements IEventReceiver
             }
         }
 
-        public void close(ResourceStream rs)
+        /*
+         * Jassimp copies the data into its own buffer when the file
+         * is opened so the stream is released as soon as it is closed.
+         */
+        public synchronized void close(ResourceStream rs)
+        {
+            if (cache.get(rs.path) == rs)
+            {
+                cache.remove(rs.path);
+                if (!rs.isMapped())
+                {
+                    cachedBytes -= rs.getFileSize();
+                }
+            }
+            rs.release();
+        }
+
+        /*
+         * Releases the streams which were opened but never closed,
+         * for example by {@link #exists(String)}.
+         */
+        public synchronized void closeAll()
         {
-            cache.remove(rs);
+            for (ResourceStream rs : cache.values())
+            {
+                rs.release();
+            }
+            cache.clear();
+            cachedBytes = 0;
         }
 
         public boolean exists(String path)
@@ -1072,6 +1188,21 @@ public final class SXRAssetLoader implements IEventReceiver
         }
 
         public Throwable getLastError() { return lastError; }
+
+        /*
+         * Number of bytes imported from memory mapped files.
+         */
+        public synchronized long getBytesMapped() { return bytesMapped; }
+
+        /*
+         * Number of bytes read into the Java heap.
+         */
+        public synchronized long getBytesRead() { return bytesRead; }
+
+        /*
+         * Largest number of bytes held on the Java heap at once.
+         */
+        public synchronized int getPeakCachedBytes() { return peakCachedBytes; }
     };
 
     /**
@@ -1751,34 +1882,56 @@ public final class SXRAssetLoader implements IEventReceiver
      * @see #findMesh(SXRNode)
      */
     public SXRMesh loadMesh(SXRAndroidResource androidResource,
-                            EnumSet<SXRImportSettings> settings)
+                            final EnumSet<SXRImportSettings> settings)
     {
-        SXRMesh mesh = mMeshCache.get(androidResource);
-        if (mesh == null)
+        try
         {
-            try
+            return mMeshCache.get(androidResource, new ResourceCacheBase.Loader<SXRMesh>()
             {
-                SXRNode model = loadModel(androidResource, settings, true, null);
-                mesh = findMesh(model);
-                if (mesh != null)
+                @Override
+                public SXRMesh load(SXRAndroidResource resource) throws IOException
                 {
-                    mMeshCache.put(androidResource, mesh);
-                }
-                else
-                {
-                    throw new IOException("No mesh found in model " + androidResource.getResourcePath());
+                    SXRNode model = loadModel(resource, settings, true, null);
+                    SXRMesh mesh = findMesh(model);
+                    if (mesh == null)
+                    {
+                        throw new IOException("No mesh found in model " + resource.getResourcePath());
+                    }
+                    return mesh;
                 }
-            }
-            catch (IOException ex)
-            {
-                mContext.getEventManager().sendEvent(this, IAssetImportEvents.class,
-                                                     "onModelError", mContext, ex.getMessage(), androidResource.getResourcePath());
-                mContext.getEventManager().sendEvent(this, IAssetEvents.class,
-                        "onModelError", mContext, ex.getMessage(), androidResource.getResourcePath());
-                return null;
-            }
+            });
         }
-        return mesh;
+        catch (IOException ex)
+        {
+            mContext.getEventManager().sendEvent(this, IAssetImportEvents.class,
+                                                 "onModelError", mContext, ex.getMessage(), androidResource.getResourcePath());
+            mContext.getEventManager().sendEvent(this, IAssetEvents.class,
+                    "onModelError", mContext, ex.getMessage(), androidResource.getResourcePath());
+            return null;
+        }
+    }
+
+    /**
+     * Get the cache shared by all asset loaders for textures.
+     * <p>
+     * By default it only keeps weak references to the textures.
+     * Call {@link ResourceCacheBase#setByteBudget(long)} to keep
+     * recently used textures alive up to a memory budget.
+     * @return texture cache
+     */
+    public static ResourceCache<SXRImage> getTextureCache()
+    {
+        return mTextureCache;
+    }
+
+    /**
+     * Get the cache this asset loader uses for meshes
+     * loaded by {@link #loadMesh(SXRAndroidResource)}.
+     * @return mesh cache
+     */
+    public ResourceCacheBase<SXRMesh> getMeshCache()
+    {
+        return mMeshCache;
     }
 
     /**
@@ -1909,6 +2062,7 @@ public final class SXRAssetLoader implements IEventReceiver
 
         model.setName(filePath);
         ResourceVolumeIO jassimpIO = new ResourceVolumeIO(request.getVolume());
+        long startTime = System.nanoTime();
         try
         {
             assimpScene = Jassimp.importFile(FileNameUtils.getFilename(filePath),
@@ -1921,6 +2075,14 @@ public final class SXRAssetLoader implements IEventReceiver
             request.onModelError(mContext, errmsg, filePath);
             throw new IOException(errmsg);
         }
+        finally
+        {
+            jassimpIO.closeAll();
+        }
+        Log.d(TAG, "Imported %s in %d ms: %d bytes mapped, %d bytes read, %d bytes peak heap",
+              filePath, (System.nanoTime() - startTime) / 1000000,
+              jassimpIO.getBytesMapped(), jassimpIO.getBytesRead(),
+              jassimpIO.getPeakCachedBytes());
         if (assimpScene == null)
         {
             String errmsg = "Cannot load model: " + filePath;
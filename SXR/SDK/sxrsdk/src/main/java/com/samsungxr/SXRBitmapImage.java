@@ -25,6 +25,10 @@ import com.samsungxr.utility.Log;
 
 import java.io.IOException;
 import java.nio.Buffer;
+import java.nio.CharBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.Arrays;
 import java.util.List;
 
@@ -109,6 +113,7 @@ public class SXRBitmapImage extends SXRImage
     {
         super(gvrContext, NativeBitmapImage.constructor(ImageType.BITMAP.Value, GL_LUMINANCE));
         NativeBitmapImage.updateFromMemory(getNative(), width, height, grayscaleData);
+        mDataSize = getMipChainSize(width, height, 1);
     }
 
     /**
@@ -137,6 +142,21 @@ public class SXRBitmapImage extends SXRImage
             bmap = getBitmapSupported(bmap);
 
         NativeBitmapImage.updateFromBitmap(getNative(), bmap, bmap.hasAlpha(), bmap.getConfig().name());
+        mDataSize = getMipChainSize(bmap.getWidth(), bmap.getHeight(),
+                                    bmap.getByteCount() / Math.max(1, bmap.getWidth() * bmap.getHeight()));
+    }
+
+    /**
+     * Checks if the GPU texture has been updated from the {@link Bitmap} last
+     * passed to {@link #setBitmap(Bitmap)}. After that the image no longer
+     * references the bitmap, which can be reused.
+     * Should be called on the GL thread.
+     *
+     * @return true if the bitmap has been copied to the GPU
+     */
+    public boolean isBitmapReleased()
+    {
+        return NativeBitmapImage.isBitmapReleased(getNative());
     }
 
     private Bitmap getBitmapSupported(Bitmap orig)
@@ -176,6 +196,7 @@ public class SXRBitmapImage extends SXRImage
     public void setBuffer(final int width, final int height, final int format, final int type, final Buffer pixels)
     {
         NativeBitmapImage.updateFromBuffer(getNative(), 0, 0, width, height, format, type, pixels);
+        mDataSize = (long) pixels.capacity() * getElementSize(pixels);
     }
 
     /**
@@ -228,6 +249,20 @@ public class SXRBitmapImage extends SXRImage
     public void update(int width, int height, byte[] grayscaleData)
     {
         NativeBitmapImage.updateFromMemory(getNative(), width, height, grayscaleData);
+        mDataSize = getMipChainSize(width, height, 1);
+    }
+
+    private static int getElementSize(Buffer buffer)
+    {
+        if ((buffer instanceof FloatBuffer) || (buffer instanceof IntBuffer))
+        {
+            return 4;
+        }
+        if ((buffer instanceof ShortBuffer) || (buffer instanceof CharBuffer))
+        {
+            return 2;
+        }
+        return 1;
     }
 
     private static Bitmap loadBitmap(SXRContext gvrContext, String pngAssetFilename)
@@ -259,7 +294,10 @@ class NativeBitmapImage {
     static native String getFileName(long pointer);
     static native void updateFromMemory(long pointer, int width, int height, byte[] data);
     static native void updateFromBitmap(long pointer, Bitmap bitmap, boolean hasAlpha, String format);
+    static native boolean isBitmapReleased(long pointer);
     static native void updateFromBuffer(long pointer, int xoffset, int yoffset, int width, int height, int format, int type, Buffer pixels);
     static native void updateCompressed(long pointer, int width, int height, int imageSize, byte[] data, int levels, int[] offsets);
+    static native void updateCompressedLevels(long pointer, int width, int height, int imageSize, byte[] data, int levels, int[] offsets, int[] sizes);
+    static native void updateCompressedBuffer(long pointer, int width, int height, int imageSize, Buffer data, int levels, int[] offsets, int[] sizes, boolean smallestFirst);
 
 }
\ No newline at end of file
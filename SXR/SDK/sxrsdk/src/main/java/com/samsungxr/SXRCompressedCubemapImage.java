@@ -41,6 +41,7 @@ public class SXRCompressedCubemapImage extends SXRImage
         mWidth = width;
         mHeight = height;
         mImageSize = imageSize;
+        mDataSize = (long) imageSize * data.length;
         NativeCubemapImage.updateCompressed(getNative(), width, height, imageSize, data, dataOffsets);
     }
 
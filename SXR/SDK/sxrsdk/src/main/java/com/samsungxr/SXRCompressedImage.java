@@ -17,6 +17,8 @@ package com.samsungxr;
 
 import com.samsungxr.utility.Log;
 
+import java.nio.ByteBuffer;
+
 /**
  * Describes a compressed bitmap texture.
  * <p>
@@ -40,6 +42,7 @@ public class SXRCompressedImage extends SXRImage
      */
     protected int mQuality;
     private byte[] mData;
+    private ByteBuffer mBuffer;
     private int mWidth;
     private int mHeight;
     private int mLevels;
@@ -67,6 +70,35 @@ public class SXRCompressedImage extends SXRImage
         mImageSize = imageSize;
     }
 
+    /**
+     * Create a compressed texture from data outside the Java heap.
+     * <p>
+     * The data is uploaded directly from the buffer, which is typically
+     * a memory-mapped file, without copying it.
+     * @param gvrContext    SXRContext to use for texture.
+     * @param width         pixel width of image.
+     * @param height        pixel height of image.
+     * @param imageSize     number of bytes in compressed image data.
+     * @param format        image format (GL_RGB, GL_RGBA, ...)
+     * @param data          direct buffer with the image data
+     * @param levels        number of mip-map levels
+     * @param quality       compression quality
+     */
+    public SXRCompressedImage(SXRContext gvrContext, int width, int height, int imageSize, int format, ByteBuffer data, int levels, int quality)
+    {
+        super(gvrContext, NativeBitmapImage.constructor(ImageType.BITMAP.Value, format));
+        if (!data.isDirect())
+        {
+            throw new IllegalArgumentException("SXRCompressedImage requires a direct buffer");
+        }
+        mQuality = SXRCompressedImage.clamp(quality);
+        mBuffer = data;
+        mWidth = width;
+        mHeight = height;
+        mLevels = levels;
+        mImageSize = imageSize;
+    }
+
     /**
      * Set the offsets in the compressed data area for each mip-map level.
      * @param offsets array of offsets
@@ -75,9 +107,42 @@ public class SXRCompressedImage extends SXRImage
     {
         assert(mLevels == offsets.length);
         NativeBitmapImage.updateCompressed(getNative(), mWidth, mHeight, mImageSize, mData, mLevels, offsets);
+        mDataSize = (mImageSize > 0) ? mImageSize : mData.length - offsets[0];
         mData = null;
     }
 
+    /**
+     * Set the location and size of the compressed data for each mip-map level.
+     * <p>
+     * If the data is in a direct buffer and there are several levels,
+     * they may be uploaded one per frame starting with the smallest,
+     * so a low resolution version of the texture is usable immediately.
+     * @param offsets       offset of each level in the compressed data
+     * @param sizes         number of bytes in each level
+     * @param smallestFirst true to upload the levels smallest first,
+     *                      false to upload them all at once
+     */
+    public void setDataOffsets(int[] offsets, int[] sizes, boolean smallestFirst)
+    {
+        assert(mLevels == offsets.length);
+        assert(mLevels == sizes.length);
+        mDataSize = 0;
+        for (int size : sizes)
+        {
+            mDataSize += size;
+        }
+        if (mBuffer != null)
+        {
+            NativeBitmapImage.updateCompressedBuffer(getNative(), mWidth, mHeight, mImageSize, mBuffer, mLevels, offsets, sizes, smallestFirst);
+            mBuffer = null;
+        }
+        else
+        {
+            NativeBitmapImage.updateCompressedLevels(getNative(), mWidth, mHeight, mImageSize, mData, mLevels, offsets, sizes);
+            mData = null;
+        }
+    }
+
     /**
      * Get compression quality
      * @return compression quality
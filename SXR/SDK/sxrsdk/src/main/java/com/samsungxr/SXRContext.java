@@ -416,6 +416,38 @@ public abstract class SXRContext implements IEventReceiver {
      */
     public abstract void runOnGlThread(Runnable runnable);
 
+    /**
+     * Enqueues a callback to be run in the GL thread with a given priority.
+     *
+     * Callbacks are run in priority order. If a
+     * {@linkplain SXRGlTaskScheduler#setFrameBudget(long) frame budget} is
+     * set, {@link SXRGlTaskScheduler#PRIORITY_NORMAL normal} and
+     * {@link SXRGlTaskScheduler#PRIORITY_LOW low} priority callbacks which do
+     * not fit in the budget are deferred to a later frame. If called from the
+     * GL thread, the callback runs immediately.
+     *
+     * @param runnable
+     *            A bit of code that must run on the GL thread
+     * @param priority
+     *            {@link SXRGlTaskScheduler#PRIORITY_HIGH},
+     *            {@link SXRGlTaskScheduler#PRIORITY_NORMAL} or
+     *            {@link SXRGlTaskScheduler#PRIORITY_LOW}
+     * @see #getGlTaskScheduler()
+     */
+    public void runOnGlThread(Runnable runnable, int priority) {
+        runOnGlThread(runnable);
+    }
+
+    /**
+     * Get the scheduler which runs the {@link #runOnGlThread(Runnable)}
+     * callbacks, to set the frame budget or read its counters.
+     *
+     * @return {@link SXRGlTaskScheduler} or null if there is none.
+     */
+    public SXRGlTaskScheduler getGlTaskScheduler() {
+        return null;
+    }
+
     /**
      * Enqueues a callback to be run in the GL thread after rendering a frame.
      *
@@ -59,6 +59,11 @@ public class SXRCubemapImage extends SXRImage
     public void update(Bitmap[] bitmapArray)
     {
         NativeCubemapImage.update(getNative(), bitmapArray);
+        mDataSize = 0;
+        for (Bitmap bitmap : bitmapArray)
+        {
+            mDataSize += bitmap.getByteCount();
+        }
     }
 
     /**
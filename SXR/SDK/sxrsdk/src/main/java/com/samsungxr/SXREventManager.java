@@ -18,13 +18,12 @@ package com.samsungxr;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.samsungxr.script.IScriptManager;
 import com.samsungxr.script.IScriptFile;
 import com.samsungxr.script.IScriptable;
+import com.samsungxr.utility.Log;
 
 /**
  * This class provides API for event-related operations in the
@@ -58,9 +57,15 @@ import com.samsungxr.script.IScriptable;
 public class SXREventManager {
     private static final String TAG = SXREventManager.class.getSimpleName();
     private SXRContext mGvrContext;
+    private volatile boolean mUseInvokers = true;
 
-    // Cache for Java handler methods; keys *must* be weakly referenced
-    private final WeakHashMap<Object, Map<String, Method>> mHandlerMethodCache;
+    /*
+     * Handlers resolved per (events interface, event name). The method only depends
+     * on the interface, never on the target instance, so the cache is shared by all
+     * targets and all event managers. Lookups are lock-free.
+     */
+    private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, EventHandler>> sHandlerCache =
+            new ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, EventHandler>>();
 
     public static final int SEND_MASK_OBJECT = 0x1;
     protected static final int SEND_MASK_LISTENERS = 0x2;
@@ -69,7 +74,82 @@ public class SXREventManager {
 
     SXREventManager(SXRContext gvrContext) {
         mGvrContext = gvrContext;
-        mHandlerMethodCache = new WeakHashMap<Object, Map<String, Method>>();
+    }
+
+    /**
+     * Precompiled dispatcher for a single event of an {@link IEvents} interface.
+     * <p>
+     * An invoker calls the interface method directly on the handler,
+     * casting the parameters itself, so no reflection is involved when
+     * the event is delivered. Invokers are registered once per
+     * (interface, event name) with {@link #registerInvoker(Class, String, IEventInvoker)}.
+     * <pre>
+     * SXREventManager.registerInvoker(IPickEvents.class, "onPick",
+     *     new SXREventManager.IEventInvoker&lt;IPickEvents&gt;() {
+     *         public void invoke(IPickEvents handler, Object[] params) {
+     *             handler.onPick((SXRPicker) params[0]);
+     *         }
+     *     });
+     * </pre>
+     * @param <T> events interface the invoker dispatches to
+     */
+    public interface IEventInvoker<T extends IEvents> {
+        /**
+         * Call the event method on the handler.
+         * @param handler   object implementing the events interface
+         * @param params    event parameters, in the order of the interface method
+         */
+        void invoke(T handler, Object[] params);
+    }
+
+    /**
+     * Register a precompiled invoker for an event.
+     * <p>
+     * Once registered, the event is delivered to Java handlers through the invoker
+     * instead of {@link Method#invoke}. Events without an invoker still use reflection.
+     * The event must exist in the interface; overloaded events cannot have invokers.
+     * @param eventsClass   interface class of the event group, such as {@link IPickEvents}.class
+     * @param eventName     name of the event, such as "onPick"
+     * @param invoker       invoker to call for this event
+     * @throws IllegalArgumentException if the interface has zero or several methods
+     *                                  with the given name
+     */
+    public static <T extends IEvents> void registerInvoker(Class<T> eventsClass, String eventName,
+                                                           IEventInvoker<T> invoker) {
+        Method match = null;
+        for (Method method : eventsClass.getMethods()) {
+            if (method.getName().equals(eventName)) {
+                if (match != null) {
+                    throw new IllegalArgumentException(String.format("The interface contains "
+                            + "several methods %s, cannot register an invoker", eventName));
+                }
+                match = method;
+            }
+        }
+        if (match == null) {
+            throw new IllegalArgumentException(String.format("The interface contains no method %s", eventName));
+        }
+        getClassCache(eventsClass).put(eventName, new EventHandler(match, invoker));
+    }
+
+    /**
+     * Enable or disable dispatch through registered invokers.
+     * <p>
+     * Precompiled invokers are used by default. Disabling them makes every
+     * Java handler go through reflection, which is only useful to compare
+     * the two paths.
+     * @param flag true to use invokers, false to always use reflection
+     */
+    public void setUseInvokers(boolean flag) {
+        mUseInvokers = flag;
+    }
+
+    /**
+     * @return true if registered invokers are used to deliver events
+     * @see #setUseInvokers(boolean)
+     */
+    public boolean getUseInvokers() {
+        return mUseInvokers;
     }
 
     /**
@@ -118,12 +198,12 @@ public class SXREventManager {
         // Set to true if an event is handled.
         boolean handledSuccessful = false;
 
-        // Verify the event name and parameters (cached)
-        Method method = findHandlerMethod(target, eventsClass, eventName, params);
+        // Verify the event name and parameters (cached per interface)
+        EventHandler handler = findHandler(eventsClass, eventName, params);
         if ((sendMask & SEND_MASK_OBJECT) != 0) {
             // Invoke the method if the target implements the interface
             if (eventsClass.isInstance(target)) {
-                invokeMethod(target, method, params);
+                invokeHandler(target, handler, params);
                 handledSuccessful = true;
             }
         }
@@ -141,12 +221,9 @@ public class SXREventManager {
                     if (!eventsClass.isInstance(listener) || receiver.getOwner() != target)
                         continue;
 
-                    Method listenerMethod = findHandlerMethod(listener, eventsClass, eventName, params);
-                    if (listenerMethod != null) {
-                        // This may throw RuntimeException if the handler does so.
-                        invokeMethod(listener, listenerMethod, params);
-                        handledSuccessful = true;
-                    }
+                    // This may throw RuntimeException if the handler does so.
+                    invokeHandler(listener, handler, params);
+                    handledSuccessful = true;
                 }
             }
         }
@@ -162,17 +239,45 @@ public class SXREventManager {
     }
 
     /*
-     * Return the method in eventsClass by checking the signature.
+     * Resolved event method and its optional precompiled invoker.
+     */
+    private static final class EventHandler {
+        final Method method;
+        final Class<?>[] paramTypes;
+        final IEventInvoker invoker;
+
+        EventHandler(Method method, IEventInvoker invoker) {
+            this.method = method;
+            this.paramTypes = method.getParameterTypes();
+            this.invoker = invoker;
+        }
+    }
+
+    private static ConcurrentHashMap<String, EventHandler> getClassCache(Class<?> eventsClass) {
+        ConcurrentHashMap<String, EventHandler> classCache = sHandlerCache.get(eventsClass);
+        if (classCache == null) {
+            classCache = new ConcurrentHashMap<String, EventHandler>();
+            ConcurrentHashMap<String, EventHandler> existing = sHandlerCache.putIfAbsent(eventsClass, classCache);
+            if (existing != null) {
+                classCache = existing;
+            }
+        }
+        return classCache;
+    }
+
+    /*
+     * Return the handler for the event in eventsClass by checking the signature.
      * RuntimeException is thrown if the event is not found in the eventsClass interface,
      * or the parameter types don't match.
      */
-    private Method findHandlerMethod(Object target, Class<? extends IEvents> eventsClass,
+    private EventHandler findHandler(Class<? extends IEvents> eventsClass,
             String eventName, Object[] params) {
-        // Use cached method if available. Note: no further type checking is done if the
-        // method has been cached. It will be checked by JRE when the method is invoked.
-        Method cachedMethod = getCachedMethod(target, eventName);
-        if (cachedMethod != null) {
-            return cachedMethod;
+        // Use cached handler if the parameters match its signature. Overloads
+        // with the same number of parameters are told apart by their types.
+        ConcurrentHashMap<String, EventHandler> classCache = getClassCache(eventsClass);
+        EventHandler cached = classCache.get(eventName);
+        if ((cached != null) && paramsMatch(cached.paramTypes, params)) {
+            return cached;
         }
 
         // Check the event and params against the eventsClass interface object.
@@ -183,23 +288,8 @@ public class SXREventManager {
             if (method.getName().equals(eventName)) {
                 nameMatch = method;
 
-                // Check number of parameters
-                Class<?>[] types = method.getParameterTypes();
-                if (types.length != params.length)
-                    continue;
-
-                // Check parameter types
-                int i = 0;
-                boolean foundMatchedMethod = true;
-                for (Class<?> type : types) {
-                    Object param = params[i++];
-                    if (!isInstanceWithAutoboxing(type, param)) {
-                        foundMatchedMethod = false;
-                        break;
-                    }
-                }
-
-                if (foundMatchedMethod) {
+                // Check number and types of parameters
+                if (paramsMatch(method.getParameterTypes(), params)) {
                     signatureMatch = method;
                     break;
                 }
@@ -214,11 +304,28 @@ public class SXREventManager {
                     + "parameters don't match", eventName));
         }
 
-        // Cache the method for the target, even if it doesn't implement the interface. This is
-        // to avoid always verifying the event.
-        addCachedMethod(target, eventName, signatureMatch);
+        EventHandler handler = new EventHandler(signatureMatch, null);
+        // Overloaded events keep the first resolved signature in the cache,
+        // other overloads are resolved on every call.
+        if (cached == null) {
+            cached = classCache.putIfAbsent(eventName, handler);
+            if ((cached != null) && (cached.method.equals(signatureMatch))) {
+                return cached;
+            }
+        }
+        return handler;
+    }
 
-        return signatureMatch;
+    private boolean paramsMatch(Class<?>[] types, Object[] params) {
+        if (types.length != params.length) {
+            return false;
+        }
+        for (int i = 0; i < types.length; ++i) {
+            if (!isInstanceWithAutoboxing(types[i], params[i])) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private boolean isInstanceWithAutoboxing(Class<?> type, Object value) {
@@ -268,31 +375,6 @@ public class SXREventManager {
         return false;
     }
 
-    private Method getCachedMethod(Object target, String eventName) {
-        // Lock the whole cache for both first- and second-level lookup
-        synchronized (mHandlerMethodCache) {
-            Map<String, Method> targetCache = mHandlerMethodCache.get(target);
-            if (targetCache == null) {
-                return null;
-            }
-
-            return targetCache.get(eventName);
-        }
-    }
-
-    private void addCachedMethod(Object target, String eventName, Method method) {
-        // Lock the whole cache for both first- and second-level lookup
-        synchronized (mHandlerMethodCache) {
-            Map<String, Method> targetCache = mHandlerMethodCache.get(target);
-            if (targetCache == null) {
-                targetCache = new TreeMap<String, Method>();
-                mHandlerMethodCache.put(target, targetCache);
-            }
-
-            targetCache.put(eventName, method);
-        }
-    }
-
     private boolean tryInvokeScript(IScriptable target, String eventName,
             Object[] params) {
         IScriptManager sm = mGvrContext.getScriptManager();
@@ -307,9 +389,20 @@ public class SXREventManager {
         return script.invokeFunction(eventName, params);
     }
 
-    private void invokeMethod(Object target, Method method, Object[] params) {
+    @SuppressWarnings("unchecked")
+    private void invokeHandler(Object target, EventHandler handler, Object[] params) {
+        if ((handler.invoker != null) && mUseInvokers) {
+            try {
+                handler.invoker.invoke((IEvents) target, params);
+            } catch (RuntimeException e) {
+                // log which event failed, then rethrow back to the application
+                Log.e(TAG, "Exception in %s handler of %s: %s", handler.method.getName(), target, e);
+                throw e;
+            }
+            return;
+        }
         try {
-            method.invoke(target, params);
+            handler.method.invoke(target, params);
         } catch (IllegalAccessException e) {
             e.printStackTrace();
             mGvrContext.logError(e.getMessage(), target);
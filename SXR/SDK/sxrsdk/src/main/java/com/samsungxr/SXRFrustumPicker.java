@@ -17,7 +17,6 @@ package com.samsungxr;
 
 import org.joml.FrustumIntersection;
 import org.joml.Matrix4f;
-import org.joml.Vector4f;
 
 /**
  * Finds the nodes that are within a view frustum.
@@ -172,44 +171,24 @@ public class SXRFrustumPicker extends SXRPicker {
     public void doPick()
     {
         SXRNode owner = getOwnerObject();
-        SXRPickedObject[] picked = pickVisible(mScene);
+        SXRPickedObject[] picked;
 
         if (mProjection != null)
         {
-            Matrix4f view_matrix;
+            SXRTransform viewer;
             if (owner != null)
             {
-                view_matrix = owner.getTransform().getModelMatrix4f();
+                viewer = owner.getTransform();
             }
             else
             {
-                view_matrix = mScene.getMainCameraRig().getHeadTransform().getModelMatrix4f();
-            }
-            view_matrix.invert();
-
-            for (int i = 0; i < picked.length; ++i)
-            {
-                SXRPickedObject hit = picked[i];
-
-                if (hit != null)
-                {
-                    SXRNode sceneObj = hit.hitObject;
-                    SXRNode.BoundingVolume bv = sceneObj.getBoundingVolume();
-                    Vector4f center = new Vector4f(bv.center.x, bv.center.y, bv.center.z, 1);
-                    Vector4f p = new Vector4f(bv.center.x, bv.center.y, bv.center.z + bv.radius, 1);
-                    float radius;
-
-                    center.mul(view_matrix);
-                    p.mul(view_matrix);
-                    p.sub(center, p);
-                    p.w = 0;
-                    radius = p.length();
-                    if (!mCuller.testSphere(center.x, center.y, center.z, radius))
-                    {
-                        picked[i] = null;
-                    }
-                }
+                viewer = mScene.getMainCameraRig().getHeadTransform();
             }
+            picked = pickVisible(mScene, viewer, mProjection);
+        }
+        else
+        {
+            picked = pickVisible(mScene);
         }
         generatePickEvents(picked);
     }
@@ -246,4 +225,54 @@ public class SXRFrustumPicker extends SXRPicker {
             sFindObjectsLock.unlock();
         }
     }
+
+    /**
+     * Returns the list of colliders attached to nodes that are
+     * inside a view frustum.
+     * <p>
+     * A node is inside if its bounding sphere is inside or
+     * intersects the frustum. Only the nodes near the frustum
+     * are tested, using the bounding volume hierarchy the
+     * scene keeps of its colliders.
+     * The hit location returned is the world position of the node center.
+     *
+     * @param scene
+     *            The {@link SXRScene} with all the objects to be tested.
+     * @param viewer
+     *            Transform of the viewpoint, the frustum looks down
+     *            its forward direction.
+     * @param projMatrix
+     *            Projection matrix which defines the frustum.
+     *
+     * @return A list of {@link com.samsungxr.SXRPicker.SXRPickedObject}, sorted by distance from the
+     *         viewpoint. Each {@link com.samsungxr.SXRPicker.SXRPickedObject} contains the node
+     *         which owns the {@link SXRCollider} along with the hit
+     *         location and distance from the viewpoint.
+     */
+    public static final SXRPickedObject[] pickVisible(SXRScene scene, SXRTransform viewer, Matrix4f projMatrix) {
+        Matrix4f m = viewer.getModelMatrix4f().invert();
+        float[] planes = new float[24];
+
+        projMatrix.mul(m, m);
+        // Gribb-Hartmann: each plane is the 4th row of the matrix plus or minus another row
+        float[] rows = {
+            m.m00(), m.m10(), m.m20(), m.m30(),
+            m.m01(), m.m11(), m.m21(), m.m31(),
+            m.m02(), m.m12(), m.m22(), m.m32()
+        };
+        float[] w = { m.m03(), m.m13(), m.m23(), m.m33() };
+        for (int i = 0; i < 3; ++i) {
+            for (int j = 0; j < 4; ++j) {
+                planes[i * 8 + j] = w[j] + rows[i * 4 + j];
+                planes[i * 8 + 4 + j] = w[j] - rows[i * 4 + j];
+            }
+        }
+        sFindObjectsLock.lock();
+        try {
+            final SXRPickedObject[] result = NativePicker.pickFrustum(scene.getNative(), viewer.getNative(), planes);
+            return result;
+        } finally {
+            sFindObjectsLock.unlock();
+        }
+    }
 }
@@ -0,0 +1,323 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samsungxr;
+
+import com.samsungxr.utility.Log;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the tasks queued by {@link SXRContext#runOnGlThread(Runnable, int)}
+ * on the GL thread, within a per-frame time budget.
+ * <p>
+ * Each task belongs to a priority class. Every frame, before the
+ * {@linkplain SXRDrawFrameListener frame listeners} are called, the
+ * scheduler runs the queued tasks in priority order and in FIFO order
+ * within a priority. {@link #PRIORITY_HIGH} tasks always run. Once the
+ * {@linkplain #setFrameBudget(long) frame budget} is used up, the rest of
+ * the {@link #PRIORITY_NORMAL} and {@link #PRIORITY_LOW} tasks are deferred
+ * to the next frame. A task which has been deferred for
+ * {@linkplain #setMaxDeferredFrames(int) too many frames} runs regardless
+ * of the budget so a busy scene cannot starve resource uploads.
+ * <p>
+ * The default budget is zero, which means unlimited: every queued task
+ * runs in the frame after it is queued and tasks run in the order they were
+ * queued, whatever their priority, as {@link SXRContext#runOnGlThread(Runnable)}
+ * always has.
+ * <p>
+ * Tasks may be queued from any thread. {@link #runFrame()} must only be
+ * called from the GL thread.
+ */
+public final class SXRGlTaskScheduler {
+    /**
+     * Input, animation and other work which must happen this frame.
+     * Never deferred.
+     */
+    public static final int PRIORITY_HIGH = 0;
+
+    /**
+     * Default priority, used by {@link SXRContext#runOnGlThread(Runnable)}.
+     */
+    public static final int PRIORITY_NORMAL = 1;
+
+    /**
+     * Resource uploads and other work which can wait a few frames.
+     */
+    public static final int PRIORITY_LOW = 2;
+
+    private static final int NUM_PRIORITIES = 3;
+    private static final int DEFAULT_MAX_DEFERRED_FRAMES = 8;
+
+    private static final class Task {
+        final Runnable runnable;
+        final int frame;
+        final long sequence;
+
+        Task(Runnable runnable, int frame, long sequence) {
+            this.runnable = runnable;
+            this.frame = frame;
+            this.sequence = sequence;
+        }
+    }
+
+    private final Queue<Task>[] mQueues;
+    private final AtomicInteger mPendingCount = new AtomicInteger(0);
+    private final AtomicLong mQueuedCount = new AtomicLong(0);
+    private volatile int mFrame = 0;
+    private volatile long mFrameBudget = 0;
+    private volatile int mMaxDeferredFrames = DEFAULT_MAX_DEFERRED_FRAMES;
+
+    private long mExecutedCount = 0;
+    private long mDeferredCount = 0;
+    private long mLastFrameNanos = 0;
+    private int mLastFrameExecuted = 0;
+    private int mLastFrameDeferred = 0;
+
+    @SuppressWarnings("unchecked")
+    SXRGlTaskScheduler() {
+        mQueues = new Queue[NUM_PRIORITIES];
+        for (int i = 0; i < NUM_PRIORITIES; ++i) {
+            mQueues[i] = new ConcurrentLinkedQueue<Task>();
+        }
+    }
+
+    /**
+     * Queue a task to run on the GL thread.
+     *
+     * @param runnable
+     *            task to run
+     * @param priority
+     *            {@link #PRIORITY_HIGH}, {@link #PRIORITY_NORMAL} or
+     *            {@link #PRIORITY_LOW}
+     */
+    public void enqueue(Runnable runnable, int priority) {
+        if (runnable == null) {
+            throw new IllegalArgumentException("runnable must not be null");
+        }
+        if ((priority < PRIORITY_HIGH) || (priority > PRIORITY_LOW)) {
+            throw new IllegalArgumentException("Unknown GL task priority " + priority);
+        }
+        mPendingCount.incrementAndGet();
+        mQueues[priority].add(new Task(runnable, mFrame, mQueuedCount.incrementAndGet()));
+    }
+
+    /**
+     * Set the time the scheduler may spend running tasks each frame.
+     * <p>
+     * {@link #PRIORITY_HIGH} tasks are not limited by the budget.
+     *
+     * @param nanos
+     *            time budget in nanoseconds, 0 for unlimited.
+     */
+    public void setFrameBudget(long nanos) {
+        mFrameBudget = (nanos > 0) ? nanos : 0;
+    }
+
+    /**
+     * @return time budget in nanoseconds, 0 if unlimited.
+     */
+    public long getFrameBudget() {
+        return mFrameBudget;
+    }
+
+    /**
+     * Set how many frames a task may be deferred before it runs
+     * regardless of the frame budget.
+     *
+     * @param frames
+     *            number of frames, at least 1.
+     */
+    public void setMaxDeferredFrames(int frames) {
+        mMaxDeferredFrames = (frames > 1) ? frames : 1;
+    }
+
+    /**
+     * @return number of frames a task may be deferred.
+     */
+    public int getMaxDeferredFrames() {
+        return mMaxDeferredFrames;
+    }
+
+    /**
+     * @return number of tasks waiting to run.
+     */
+    public int getPendingCount() {
+        return mPendingCount.get();
+    }
+
+    /**
+     * @return total number of tasks queued.
+     */
+    public long getQueuedCount() {
+        return mQueuedCount.get();
+    }
+
+    /**
+     * @return total number of tasks run.
+     */
+    public long getExecutedCount() {
+        return mExecutedCount;
+    }
+
+    /**
+     * @return total number of times a task which was due was deferred to a
+     *         later frame because the frame budget was used up.
+     */
+    public long getDeferredCount() {
+        return mDeferredCount;
+    }
+
+    /**
+     * @return nanoseconds spent running tasks in the last frame.
+     */
+    public long getLastFrameNanos() {
+        return mLastFrameNanos;
+    }
+
+    /**
+     * @return number of tasks run in the last frame.
+     */
+    public int getLastFrameExecuted() {
+        return mLastFrameExecuted;
+    }
+
+    /**
+     * @return number of tasks the last frame deferred because the frame
+     *         budget was used up.
+     */
+    public int getLastFrameDeferred() {
+        return mLastFrameDeferred;
+    }
+
+    /**
+     * Run the queued tasks for this frame within the frame budget.
+     * Called once per frame from the GL thread.
+     */
+    void runFrame() {
+        final long budget = mFrameBudget;
+        final int frame = mFrame;
+        final long start = System.nanoTime();
+        int executed = 0;
+        int deferred = 0;
+
+        mFrame = frame + 1;
+        if (budget <= 0) {
+            executed = runInQueuedOrder();
+        } else {
+            final long deadline = start + budget;
+            final int maxDeferred = mMaxDeferredFrames;
+
+            for (int priority = 0; priority < NUM_PRIORITIES; ++priority) {
+                final Queue<Task> queue = mQueues[priority];
+                final boolean limited = (priority != PRIORITY_HIGH);
+                Task task;
+
+                while ((task = queue.peek()) != null) {
+                    if (limited && (System.nanoTime() >= deadline)
+                            && (frame - task.frame < maxDeferred)) {
+                        deferred += countDue(queue, frame);
+                        break;
+                    }
+                    queue.poll();
+                    run(task.runnable);
+                    ++executed;
+                }
+            }
+        }
+        mLastFrameNanos = System.nanoTime() - start;
+        mLastFrameExecuted = executed;
+        mLastFrameDeferred = deferred;
+        mExecutedCount += executed;
+        mDeferredCount += deferred;
+    }
+
+    /**
+     * Run every queued task regardless of the frame budget.
+     * Called from the GL thread.
+     */
+    void runAll() {
+        mExecutedCount += runInQueuedOrder();
+    }
+
+    /**
+     * Run the tasks of all priorities in the order they were queued,
+     * including the ones they queue.
+     */
+    private int runInQueuedOrder() {
+        int executed = 0;
+
+        while (true) {
+            Queue<Task> next = null;
+            long sequence = Long.MAX_VALUE;
+
+            for (int priority = 0; priority < NUM_PRIORITIES; ++priority) {
+                final Task task = mQueues[priority].peek();
+
+                if ((task != null) && (task.sequence < sequence)) {
+                    next = mQueues[priority];
+                    sequence = task.sequence;
+                }
+            }
+            if (next == null) {
+                return executed;
+            }
+            run(next.poll().runnable);
+            ++executed;
+        }
+    }
+
+    /**
+     * @return number of tasks in the queue queued before this frame started.
+     */
+    private static int countDue(Queue<Task> queue, int frame) {
+        int due = 0;
+
+        for (Task task : queue) {
+            if (task.frame > frame) {
+                break;
+            }
+            ++due;
+        }
+        return due;
+    }
+
+    /**
+     * Discard all queued tasks.
+     */
+    void clear() {
+        for (int priority = 0; priority < NUM_PRIORITIES; ++priority) {
+            final Queue<Task> queue = mQueues[priority];
+
+            while (queue.poll() != null) {
+                mPendingCount.decrementAndGet();
+            }
+        }
+    }
+
+    private void run(Runnable runnable) {
+        mPendingCount.decrementAndGet();
+        try {
+            runnable.run();
+        } catch (final Exception exc) {
+            Log.e(TAG, "Runnable-on-GL %s threw %s", runnable, exc.toString());
+            exc.printStackTrace();
+        }
+    }
+
+    private static final String TAG = "SXRGlTaskScheduler";
+}
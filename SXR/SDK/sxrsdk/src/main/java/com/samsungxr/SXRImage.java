@@ -51,6 +51,46 @@ public class SXRImage extends SXRHybridObject
 
     protected static final String TAG = "SXRImage";
 
+    /**
+     * Estimated number of bytes of image data, 0 if unknown.
+     */
+    protected long mDataSize = 0;
+
+    /**
+     * Get the estimated number of bytes of GPU memory used by this image.
+     * <p>
+     * The estimate is based on the image dimensions, pixel format and
+     * mip-map levels. It is 0 if the image has no data yet.
+     * @return estimated image size in bytes.
+     */
+    public long getDataSize()
+    {
+        return mDataSize;
+    }
+
+    /**
+     * Compute the size of an uncompressed image with a full mip-map chain.
+     * @param width         width of level 0 in pixels.
+     * @param height        height of level 0 in pixels.
+     * @param bytesPerPixel number of bytes in each pixel.
+     * @return total bytes in all of the mip-map levels.
+     */
+    protected static long getMipChainSize(int width, int height, int bytesPerPixel)
+    {
+        long size = 0;
+
+        while (true)
+        {
+            size += (long) width * height * bytesPerPixel;
+            if ((width <= 1) && (height <= 1))
+            {
+                return size;
+            }
+            width = Math.max(1, width >> 1);
+            height = Math.max(1, height >> 1);
+        }
+    }
+
     public String getFileName()
     {
         return NativeBitmapImage.getFileName(getNative());
@@ -108,7 +108,13 @@ public enum SXRImportSettings {
     /**
      * Do not include blend shapes (morphs)
      */
-    NO_MORPH(0x10000000);
+    NO_MORPH(0x10000000),
+
+    /**
+     * Compress skeleton animations with the default tolerances
+     * of {@link com.samsungxr.animation.keyframe.SXRSkeletonAnimation#compress()}
+     */
+    COMPRESS_ANIMATIONS(0x20000000);
 
 
     private int mValue;
@@ -332,6 +332,15 @@ public class SXRIndexBuffer extends SXRHybridObject implements PrettyPrint
         return NativeIndexBuffer.getIndexSize(getNative());
     }
 
+    /**
+     * Get the number of bytes of index data.
+     * @return index count times the size of an index in bytes.
+     */
+    public int getDataSize()
+    {
+        return getIndexCount() * getIndexSize();
+    }
+
 
     @Override
     public void prettyPrint(StringBuffer sb, int indent) {
@@ -64,6 +64,7 @@ class  SXRJassimpAdapter
     private String mFileName;
     private SXRSkeleton mSkeleton;
     private SXRNode mMeshParent = null;
+    private boolean mCompressAnimations = false;
     private static final int MAX_TEX_COORDS = JassimpConfig.MAX_NUMBER_TEXCOORDS;
     private static final int MAX_VERTEX_COLORS = JassimpConfig.MAX_NUMBER_COLORSETS;
 
@@ -516,6 +517,10 @@ class  SXRJassimpAdapter
 
             anim.setSkeleton(mSkeleton, null);
             attachBoneAnimations(anim, animMap);
+            if (mCompressAnimations)
+            {
+                anim.compress();
+            }
             animator.addAnimation(anim);
         }
         /*
@@ -826,6 +831,7 @@ class  SXRJassimpAdapter
             case NO_LIGHTING:
             case NO_TEXTURING:
             case NO_MORPH:
+            case COMPRESS_ANIMATIONS:
                 return null;
             default:
                 // Unsupported setting
@@ -839,6 +845,7 @@ class  SXRJassimpAdapter
         Hashtable<String, SXRLight> lightList = new Hashtable<String, SXRLight>();
         EnumSet<SXRImportSettings> settings = request.getImportSettings();
         boolean doAnimation = !settings.contains(SXRImportSettings.NO_ANIMATION);
+        mCompressAnimations = settings.contains(SXRImportSettings.COMPRESS_ANIMATIONS);
         SXRNode modelParent = model.getParent();
 
         if (modelParent != null)
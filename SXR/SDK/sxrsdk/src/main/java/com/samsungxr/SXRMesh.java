@@ -176,6 +176,24 @@ public class SXRMesh extends SXRHybridObject implements PrettyPrint {
      */
     public SXRIndexBuffer getIndexBuffer() { return mIndices; }
 
+    /**
+     * Get the number of bytes of vertex and index data used by this mesh.
+     * <p>
+     * Shared vertex and index buffers are counted in full.
+     * </p>
+     * @return size of the vertex buffer plus the size of the index buffer.
+     */
+    public long getDataSize()
+    {
+        long size = (mVertices != null) ? mVertices.getDataSize() : 0;
+
+        if (mIndices != null)
+        {
+            size += mIndices.getDataSize();
+        }
+        return size;
+    }
+
     /**
      * Changes the vertex buffer associated with this mesh.
      * @param vbuf new vertex buffer to use
@@ -94,6 +94,102 @@ public class SXRPicker extends SXRBehavior implements IEventReceiver {
             EventOptions.SEND_TO_HIT_OBJECT,
             EventOptions.SEND_TO_LISTENERS);
 
+    /*
+     * Pick and touch events are sent several times per frame for every
+     * cursor controller, deliver them without reflection.
+     */
+    static
+    {
+        SXREventManager.registerInvoker(IPickEvents.class, "onPick",
+            new SXREventManager.IEventInvoker<IPickEvents>()
+            {
+                public void invoke(IPickEvents handler, Object[] params)
+                {
+                    handler.onPick((SXRPicker) params[0]);
+                }
+            });
+        SXREventManager.registerInvoker(IPickEvents.class, "onNoPick",
+            new SXREventManager.IEventInvoker<IPickEvents>()
+            {
+                public void invoke(IPickEvents handler, Object[] params)
+                {
+                    handler.onNoPick((SXRPicker) params[0]);
+                }
+            });
+        SXREventManager.registerInvoker(IPickEvents.class, "onEnter",
+            new SXREventManager.IEventInvoker<IPickEvents>()
+            {
+                public void invoke(IPickEvents handler, Object[] params)
+                {
+                    handler.onEnter((SXRNode) params[0], (SXRPickedObject) params[1]);
+                }
+            });
+        SXREventManager.registerInvoker(IPickEvents.class, "onExit",
+            new SXREventManager.IEventInvoker<IPickEvents>()
+            {
+                public void invoke(IPickEvents handler, Object[] params)
+                {
+                    handler.onExit((SXRNode) params[0]);
+                }
+            });
+        SXREventManager.registerInvoker(IPickEvents.class, "onInside",
+            new SXREventManager.IEventInvoker<IPickEvents>()
+            {
+                public void invoke(IPickEvents handler, Object[] params)
+                {
+                    handler.onInside((SXRNode) params[0], (SXRPickedObject) params[1]);
+                }
+            });
+        SXREventManager.registerInvoker(ITouchEvents.class, "onEnter",
+            new SXREventManager.IEventInvoker<ITouchEvents>()
+            {
+                public void invoke(ITouchEvents handler, Object[] params)
+                {
+                    handler.onEnter((SXRNode) params[0], (SXRPickedObject) params[1]);
+                }
+            });
+        SXREventManager.registerInvoker(ITouchEvents.class, "onExit",
+            new SXREventManager.IEventInvoker<ITouchEvents>()
+            {
+                public void invoke(ITouchEvents handler, Object[] params)
+                {
+                    handler.onExit((SXRNode) params[0], (SXRPickedObject) params[1]);
+                }
+            });
+        SXREventManager.registerInvoker(ITouchEvents.class, "onTouchStart",
+            new SXREventManager.IEventInvoker<ITouchEvents>()
+            {
+                public void invoke(ITouchEvents handler, Object[] params)
+                {
+                    handler.onTouchStart((SXRNode) params[0], (SXRPickedObject) params[1]);
+                }
+            });
+        SXREventManager.registerInvoker(ITouchEvents.class, "onTouchEnd",
+            new SXREventManager.IEventInvoker<ITouchEvents>()
+            {
+                public void invoke(ITouchEvents handler, Object[] params)
+                {
+                    handler.onTouchEnd((SXRNode) params[0], (SXRPickedObject) params[1]);
+                }
+            });
+        SXREventManager.registerInvoker(ITouchEvents.class, "onInside",
+            new SXREventManager.IEventInvoker<ITouchEvents>()
+            {
+                public void invoke(ITouchEvents handler, Object[] params)
+                {
+                    handler.onInside((SXRNode) params[0], (SXRPickedObject) params[1]);
+                }
+            });
+        SXREventManager.registerInvoker(ITouchEvents.class, "onMotionOutside",
+            new SXREventManager.IEventInvoker<ITouchEvents>()
+            {
+                public void invoke(ITouchEvents handler, Object[] params)
+                {
+                    handler.onMotionOutside((SXRPicker) params[0], (MotionEvent) params[1]);
+                }
+            });
+    }
+
     /**
      * One or more of these options may be combined to control
      * what events the picker sends and to which objects.
@@ -955,6 +1051,45 @@ public class SXRPicker extends SXRBehavior implements IEventReceiver {
                 lookat[0], lookat[1], lookat[2]);
     }
 
+    /**
+     * Tests the {@link SXRNode} against the ray information passed to the function
+     * and returns every hit, not just the closest one.
+     * <p>
+     * If the node has a {@link SXRMeshCollider} there is a hit for each triangle
+     * the ray passes through. Large meshes are hit tested using a hierarchy of
+     * their triangles which is built the first time they are picked.
+     * Other colliders return at most one hit.
+     *
+     * @param node
+     *            The {@link SXRNode} to be tested.
+     *
+     * @param ox
+     *            The x coordinate of the ray origin (in world coords).
+     *
+     * @param oy
+     *            The y coordinate of the ray origin (in world coords).
+     *
+     * @param oz
+     *            The z coordinate of the ray origin (in world coords).
+     *
+     * @param dx
+     *            The x vector of the ray direction (in world coords).
+     *
+     * @param dy
+     *            The y vector of the ray direction (in world coords).
+     *
+     * @param dz
+     *            The z vector of the ray direction (in world coords).
+     *
+     * @return  an array of {@link SXRPicker.SXRPickedObject} sorted by distance
+     *          from the ray origin, nearest first. The array is empty if
+     *          nothing was hit.
+     */
+    public static final SXRPickedObject[] pickNodeAll(SXRNode node, float ox, float oy, float oz, float dx,
+                                                      float dy, float dz) {
+        return NativePicker.pickNodeAll(node.getNative(), ox, oy, oz, dx, dy, dz);
+    }
+
     /**
      *
      * Tests the {@link SXRNode} against the specified ray.
@@ -1448,8 +1583,13 @@ final class NativePicker {
     static native SXRPicker.SXRPickedObject pickNode(long node, float ox, float oy, float oz,
                                                             float dx, float dy, float dz);
 
+    static native SXRPicker.SXRPickedObject[] pickNodeAll(long node, float ox, float oy, float oz,
+                                                            float dx, float dy, float dz);
+
     static native SXRPicker.SXRPickedObject[] pickVisible(long scene);
 
+    static native SXRPicker.SXRPickedObject[] pickFrustum(long scene, long transform, float[] planes);
+
     static native boolean pickNodeAgainstBoundingBox(long node,
                                                      float ox, float oy, float oz,
                                                      float dx, float dy, float dz,
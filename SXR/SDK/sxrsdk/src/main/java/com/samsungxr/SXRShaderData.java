@@ -436,6 +436,170 @@ public class SXRShaderData extends SXRHybridObject
         NativeShaderData.setIntVec(getNative(), key, val, val.length);
     }
 
+    /**
+     * Get a handle for a uniform which can be used to set it
+     * without looking up its name each time.
+     * <p>
+     * Setting a uniform by name searches the uniform descriptor.
+     * Code which updates the same uniform every frame (animations,
+     * per-frame effects) can look up the handle once and use the
+     * handle setters like {@link #setFloat(int, float)} instead.
+     * The handle depends only on the uniform descriptor so it can
+     * be used with any material made from the same shader.
+     * The byte offset of the uniform in the uniform block is
+     * {@code handle >>> 14}.
+     *
+     * @param key name of the uniform
+     * @return handle for the uniform
+     * @throws IllegalArgumentException if key is not in the uniform descriptor.
+     */
+    public int getUniformHandle(String key)
+    {
+        checkKeyIsUniform(key);
+        int handle = NativeShaderData.getUniformHandle(getNative(), key);
+        if (handle < 0)
+        {
+            throw Exceptions.IllegalArgument("key " + key + " not in material");
+        }
+        return handle;
+    }
+
+    /**
+     * Set a {@code float} uniform from its handle.
+     *
+     * @param handle    handle from {@link #getUniformHandle(String)}
+     * @param value     New data
+     * @throws IllegalArgumentException if the handle is not a float uniform in this material.
+     */
+    public void setFloat(int handle, float value)
+    {
+        checkFloatNotNaNOrInfinity("value", value);
+        checkHandleResult(handle, NativeShaderData.setFloatHandle(getNative(), handle, value));
+    }
+
+    /**
+     * Set an {@code int} uniform from its handle.
+     *
+     * @param handle    handle from {@link #getUniformHandle(String)}
+     * @param value     New data
+     * @throws IllegalArgumentException if the handle is not an int uniform in this material.
+     */
+    public void setInt(int handle, int value)
+    {
+        checkHandleResult(handle, NativeShaderData.setIntHandle(getNative(), handle, value));
+    }
+
+    /**
+     * Set a {@code vec2} uniform from its handle.
+     *
+     * @param handle    handle from {@link #getUniformHandle(String)}
+     * @throws IllegalArgumentException if the handle is not a vec2 uniform in this material.
+     */
+    public void setVec2(int handle, float x, float y)
+    {
+        checkHandleResult(handle, NativeShaderData.setVec2Handle(getNative(), handle, x, y));
+    }
+
+    /**
+     * Set a {@code vec3} uniform from its handle.
+     *
+     * @param handle    handle from {@link #getUniformHandle(String)}
+     * @throws IllegalArgumentException if the handle is not a vec3 uniform in this material.
+     */
+    public void setVec3(int handle, float x, float y, float z)
+    {
+        checkHandleResult(handle, NativeShaderData.setVec3Handle(getNative(), handle, x, y, z));
+    }
+
+    /**
+     * Set a {@code vec4} uniform from its handle.
+     *
+     * @param handle    handle from {@link #getUniformHandle(String)}
+     * @throws IllegalArgumentException if the handle is not a vec4 uniform in this material.
+     */
+    public void setVec4(int handle, float x, float y, float z, float w)
+    {
+        checkHandleResult(handle, NativeShaderData.setVec4Handle(getNative(), handle, x, y, z, w));
+    }
+
+    /**
+     * Set a {@code mat4} uniform from its handle.
+     *
+     * @param handle    handle from {@link #getUniformHandle(String)}
+     * @param m         16 floats in column major order
+     * @throws IllegalArgumentException if the handle is not a float uniform in this material
+     *         or the array has less than 16 floats.
+     */
+    public void setMat4(int handle, float[] m)
+    {
+        if (m.length < 16)
+        {
+            throw Exceptions.IllegalArgument("matrix must have 16 floats");
+        }
+        checkHandleResult(handle, NativeShaderData.setFloatVecHandle(getNative(), handle, m, 16));
+    }
+
+    /**
+     * Set a floating point vector uniform from its handle.
+     * The array is copied directly into the uniform block,
+     * extra values beyond the size of the uniform are ignored.
+     *
+     * @param handle    handle from {@link #getUniformHandle(String)}
+     * @param val       floating point array with new data
+     * @throws IllegalArgumentException if the handle is not a float uniform in this material.
+     */
+    public void setFloatArray(int handle, float val[])
+    {
+        checkHandleResult(handle, NativeShaderData.setFloatVecHandle(getNative(), handle, val, val.length));
+    }
+
+    /**
+     * Set an integer vector uniform from its handle.
+     * The array is copied directly into the uniform block,
+     * extra values beyond the size of the uniform are ignored.
+     *
+     * @param handle    handle from {@link #getUniformHandle(String)}
+     * @param val       integer array with new data
+     * @throws IllegalArgumentException if the handle is not an int uniform in this material.
+     */
+    public void setIntArray(int handle, int val[])
+    {
+        checkHandleResult(handle, NativeShaderData.setIntVecHandle(getNative(), handle, val, val.length));
+    }
+
+    /**
+     * Set several adjacent float uniforms with one copy.
+     * <p>
+     * The values are copied into the uniform block starting at the
+     * uniform for the handle and may run on into the uniforms after it
+     * in the uniform descriptor. This is the fastest way to update a
+     * group of uniforms every frame. Uniforms are laid out in the order
+     * of the uniform descriptor.
+     *
+     * @param handle    handle of the first uniform to set
+     * @param values    array with the new data
+     * @param offset    index of the first value in the array
+     * @param count     number of floats to copy
+     * @throws IllegalArgumentException if the handle is not a float uniform in this material
+     *         or the range is outside the array or the uniform block.
+     */
+    public void setFloatRange(int handle, float[] values, int offset, int count)
+    {
+        if ((offset < 0) || (count < 0) || (offset + count > values.length))
+        {
+            throw Exceptions.IllegalArgument("range " + offset + ", " + count + " outside of array");
+        }
+        checkHandleResult(handle, NativeShaderData.setFloatRange(getNative(), handle, values, offset, count));
+    }
+
+    private void checkHandleResult(int handle, boolean ok)
+    {
+        if (!ok)
+        {
+            throw Exceptions.IllegalArgument("uniform handle " + handle + " not valid for this material");
+        }
+    }
+
     private void checkKeyIsTexture(String key)
     {
         checkStringNotNullOrEmpty("key", key);
@@ -571,4 +735,14 @@ class NativeShaderData {
     static native String makeShaderLayout(long shaderData);
 
     static native boolean copyUniforms(long shaderDataDest, long shaderDataSrc);
+
+    static native int getUniformHandle(long shaderData, String key);
+    static native boolean setIntHandle(long shaderData, int handle, int value);
+    static native boolean setFloatHandle(long shaderData, int handle, float value);
+    static native boolean setVec2Handle(long shaderData, int handle, float x, float y);
+    static native boolean setVec3Handle(long shaderData, int handle, float x, float y, float z);
+    static native boolean setVec4Handle(long shaderData, int handle, float x, float y, float z, float w);
+    static native boolean setFloatVecHandle(long shaderData, int handle, float[] val, int n);
+    static native boolean setIntVecHandle(long shaderData, int handle, int[] val, int n);
+    static native boolean setFloatRange(long shaderData, int handle, float[] val, int offset, int count);
 }
\ No newline at end of file
@@ -15,10 +15,23 @@
 
 package com.samsungxr;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.lang.reflect.*;
 
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+
 import com.samsungxr.SXRShaderTemplate;
 import com.samsungxr.SXRContext;
 import com.samsungxr.utility.Log;
@@ -30,6 +43,9 @@ import com.samsungxr.utility.Log;
  */
 public class SXRShaderManager extends SXRHybridObject
 {
+    private static final String TAG = Log.tag(SXRShaderManager.class);
+    private static final int SOURCE_CACHE_MAGIC = 0x53585253;
+
     SXRShaderManager(SXRContext gvrContext)
     {
         this(gvrContext, NativeShaderManager.ctor());
@@ -96,6 +112,286 @@ public class SXRShaderManager extends SXRHybridObject
         getShaderType(shaderID.ID);
     }
 
+    /**
+     * Find a shader variant which was already bound
+     * from the compact key made by the shader template.
+     * @param key variant key from {@link SXRShaderTemplate}
+     * @return native shader ID or 0 if not found
+     */
+    int findVariant(Object key)
+    {
+        synchronized (mVariants)
+        {
+            Integer id = mVariants.get(key);
+            if (id != null)
+            {
+                ++mVariantHits;
+                return id;
+            }
+            ++mVariantMisses;
+            return 0;
+        }
+    }
+
+    /**
+     * Remember the native shader for a variant key
+     * so the next bind does not have to make the signature.
+     * @param key      variant key from {@link SXRShaderTemplate}
+     * @param shaderId native shader ID
+     */
+    void addVariant(Object key, int shaderId)
+    {
+        synchronized (mVariants)
+        {
+            mVariants.put(key, shaderId);
+        }
+    }
+
+    /**
+     * Get the number of shader binds which found their variant
+     * from its compact key without making the shader signature.
+     * @return number of variant cache hits
+     * @see #getVariantCacheMisses()
+     */
+    public long getVariantCacheHits()
+    {
+        synchronized (mVariants)
+        {
+            return mVariantHits;
+        }
+    }
+
+    /**
+     * Get the number of shader binds which had to make the shader signature
+     * (and generate the shader if it did not exist yet).
+     * @return number of variant cache misses
+     * @see #getVariantCacheHits()
+     */
+    public long getVariantCacheMisses()
+    {
+        synchronized (mVariants)
+        {
+            return mVariantMisses;
+        }
+    }
+
+    /**
+     * Enable the persistent shader cache.
+     * <p>
+     * The sources generated for each shader variant are saved in this
+     * directory so they do not have to be generated again the next time
+     * the application runs. With the OpenGL renderer the linked program
+     * binaries are saved there as well, keyed by the shader sources and
+     * the GL vendor, renderer and version, so shaders are not compiled again
+     * unless the driver changes. Nothing is cached until this is called.
+     * <p>
+     * The files are kept in a subdirectory for the installed version
+     * of the application, an update starts with an empty cache.
+     * A good place for the cache is {@link Context#getCacheDir()}.
+     * @param cacheDir directory for the shader cache, null to disable it
+     * @see #warmUp(SXRScene)
+     */
+    public void setShaderCacheDirectory(File cacheDir)
+    {
+        File dir = null;
+
+        if (cacheDir != null)
+        {
+            dir = new File(cacheDir, "shaders-" + getInstalledVersion());
+            if (!dir.isDirectory() && !dir.mkdirs())
+            {
+                Log.w(TAG, "Cannot create shader cache directory %s", dir.getPath());
+                dir = null;
+            }
+        }
+        synchronized (this)
+        {
+            mShaderCacheDir = dir;
+        }
+        NativeShaderManager.setProgramCacheDirectory((dir != null) ? dir.getAbsolutePath() : null);
+    }
+
+    /**
+     * Get the directory used by the persistent shader cache.
+     * @return shader cache directory or null if the cache is not enabled
+     * @see #setShaderCacheDirectory(File)
+     */
+    public synchronized File getShaderCacheDirectory()
+    {
+        return mShaderCacheDir;
+    }
+
+    /**
+     * Generate the shaders for everything in a scene before it is shown.
+     * <p>
+     * The shader for each render pass of each {@link SXRRenderData} in the
+     * scene is selected with the scene's current lights, generating
+     * the variants which do not exist yet. Calling this while a scene
+     * is loading avoids a stall the first time each variant is used.
+     * Combined with {@link #setShaderCacheDirectory(File)} the sources and
+     * programs of those variants are also saved for the next run.
+     * @param scene scene whose shaders should be made
+     * @return number of render data components bound
+     */
+    public int warmUp(final SXRScene scene)
+    {
+        final boolean isMultiview = getSXRContext().getApplication().getAppSettings().isMultiviewSet();
+        final int[] count = { 0 };
+
+        scene.getRoot().forAllComponents(new SXRNode.ComponentVisitor()
+        {
+            @Override
+            public boolean visit(SXRComponent comp)
+            {
+                SXRRenderData rdata = (SXRRenderData) comp;
+
+                if ((rdata.getMesh() != null) && (rdata.getMaterial() != null))
+                {
+                    rdata.bindShader(scene, isMultiview);
+                    ++count[0];
+                }
+                return true;
+            }
+        }, SXRRenderData.getComponentType());
+        return count[0];
+    }
+
+    /**
+     * Load the cached sources for a shader variant.
+     * @param key signature of the variant and hash of its template
+     * @return array with vertex and fragment shader source,
+     *         null if not in the cache
+     */
+    String[] loadShaderSources(String key)
+    {
+        File file = getSourceFile(key);
+        if ((file == null) || !file.exists())
+        {
+            return null;
+        }
+        DataInputStream stream = null;
+        try
+        {
+            stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if ((stream.readInt() != SOURCE_CACHE_MAGIC) || !key.equals(readString(stream)))
+            {
+                return null;
+            }
+            String vertexShader = readString(stream);
+            String fragmentShader = readString(stream);
+            return new String[] { vertexShader, fragmentShader };
+        }
+        catch (IOException ex)
+        {
+            Log.w(TAG, "Cannot read cached shader %s", file.getName());
+            return null;
+        }
+        finally
+        {
+            close(stream);
+        }
+    }
+
+    /**
+     * Save the generated sources for a shader variant in the cache.
+     * @param key            signature of the variant and hash of its template
+     * @param vertexShader   vertex shader source
+     * @param fragmentShader fragment shader source
+     */
+    void saveShaderSources(String key, String vertexShader, String fragmentShader)
+    {
+        File file = getSourceFile(key);
+        if (file == null)
+        {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream stream = null;
+        try
+        {
+            stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            stream.writeInt(SOURCE_CACHE_MAGIC);
+            writeString(stream, key);
+            writeString(stream, vertexShader);
+            writeString(stream, fragmentShader);
+            stream.close();
+            stream = null;
+            if (!temp.renameTo(file))
+            {
+                temp.delete();
+            }
+        }
+        catch (IOException ex)
+        {
+            Log.w(TAG, "Cannot write cached shader %s", file.getName());
+            close(stream);
+            temp.delete();
+        }
+    }
+
+    private File getSourceFile(String key)
+    {
+        File dir = getShaderCacheDirectory();
+        if (dir == null)
+        {
+            return null;
+        }
+        // names collide rarely, the key stored in the file decides
+        long hash = 1125899906842597L;
+        for (int i = 0; i < key.length(); ++i)
+        {
+            hash = 31 * hash + key.charAt(i);
+        }
+        return new File(dir, Long.toHexString(hash) + ".src");
+    }
+
+    private String getInstalledVersion()
+    {
+        Context context = getSXRContext().getContext();
+        try
+        {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            return info.versionCode + "-" + info.lastUpdateTime;
+        }
+        catch (PackageManager.NameNotFoundException ex)
+        {
+            return "0";
+        }
+    }
+
+    private static String readString(DataInputStream stream) throws IOException
+    {
+        int length = stream.readInt();
+        if ((length < 0) || (length > (1 << 24)))
+        {
+            throw new IOException("Bad string length in shader cache");
+        }
+        byte[] bytes = new byte[length];
+        stream.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void writeString(DataOutputStream stream, String s) throws IOException
+    {
+        byte[] bytes = s.getBytes("UTF-8");
+        stream.writeInt(bytes.length);
+        stream.write(bytes);
+    }
+
+    private static void close(Closeable stream)
+    {
+        if (stream != null)
+        {
+            try
+            {
+                stream.close();
+            }
+            catch (IOException ex)
+            {
+            }
+        }
+    }
+
     /**
      * Make a string with the shader layout for a uniform block
      * with a given descriptor. The format of the descriptor is
@@ -121,6 +417,15 @@ public class SXRShaderManager extends SXRHybridObject
      * shaders are global.
      */
     protected Map<Class<? extends SXRShader>, SXRShaderId> mShaderTemplates = new HashMap<Class<? extends SXRShader>, SXRShaderId>();
+
+    /**
+     * Maps the compact variant keys made by the shader templates
+     * to native shader IDs.
+     */
+    private final Map<Object, Integer> mVariants = new HashMap<Object, Integer>();
+    private long mVariantHits = 0;
+    private long mVariantMisses = 0;
+    private File mShaderCacheDir = null;
 }
 
 class NativeShaderManager {
@@ -132,4 +437,5 @@ class NativeShaderManager {
     static native void bindCalcMatrix(long shaderManager, int nativeShader, Class<? extends SXRShader> javaShaderClass);
     static native int getShader(long shaderManager, String signature);
     static native String makeLayout(String descriptor, String blockName, boolean useUBO);
+    static native void setProgramCacheDirectory(String directory);
 }
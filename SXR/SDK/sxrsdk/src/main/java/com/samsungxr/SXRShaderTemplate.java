@@ -17,6 +17,8 @@ package com.samsungxr;
 import com.samsungxr.shaders.SXRPhongShader;
 import com.samsungxr.utility.Log;
 
+import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -65,6 +67,10 @@ import java.util.regex.Pattern;
 public class SXRShaderTemplate extends SXRShader
 {
     private final static String TAG = "SXRShaderTemplate";
+    private final static Pattern sDefinePattern = Pattern.compile("HAS_([a-zA-Z0-9_]+)");
+    private final static Pattern sDescriptorPattern = Pattern.compile("([a-zA-Z0-9]+)[ \t]+([a-zA-Z0-9_]+)[^ ]*");
+    private final static Pattern sLightOutPattern = Pattern.compile("@LIGHTOUT.([A-Za-z0-9_]+)*");
+    private final static Pattern sDeclarationPattern = Pattern.compile("[ ]*([a-zA-Z0-9_]+)[ ]+([A-Za-z0-9_]+)[,;:]*");
     // Keeping the start of shadow attribute from 25 since locations less than it are used up by vertex descriptor and texture coords.
     private final int shadowmapStartLocation = 25;
 
@@ -88,6 +94,68 @@ public class SXRShaderTemplate extends SXRShader
         public String VertexDescriptor;
     };
 
+    /**
+     * Compact key for a shader variant. It holds the same information
+     * as the signature made by {@link #generateVariantDefines} and
+     * {@link #generateLightSignature} as bit masks over the shader defines
+     * and the light classes, so a variant which was already bound
+     * can be found without building the signature string.
+     */
+    private static final class VariantKey
+    {
+        private final SXRShaderTemplate mTemplate;
+        private final int mGeneration;
+        private final long mDefined;
+        private final long mTextured;
+        private final String[] mTexCoords;
+        private final Class<?>[] mLights;
+        private final int mHashCode;
+
+        VariantKey(SXRShaderTemplate template, int generation, long defined, long textured,
+                   String[] texCoords, Class<?>[] lights)
+        {
+            mTemplate = template;
+            mGeneration = generation;
+            mDefined = defined;
+            mTextured = textured;
+            mTexCoords = texCoords;
+            mLights = lights;
+            int h = System.identityHashCode(template);
+            h = 31 * h + generation;
+            h = 31 * h + (int) (defined ^ (defined >>> 32));
+            h = 31 * h + (int) (textured ^ (textured >>> 32));
+            h = 31 * h + Arrays.hashCode(texCoords);
+            h = 31 * h + Arrays.hashCode(lights);
+            mHashCode = h;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return mHashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof VariantKey))
+            {
+                return false;
+            }
+            VariantKey other = (VariantKey) obj;
+            return (mTemplate == other.mTemplate) &&
+                   (mGeneration == other.mGeneration) &&
+                   (mDefined == other.mDefined) &&
+                   (mTextured == other.mTextured) &&
+                   Arrays.equals(mTexCoords, other.mTexCoords) &&
+                   Arrays.equals(mLights, other.mLights);
+        }
+    }
+
     /**
      * Construct a shader template for a shader using GLSL version 100.
      * To make a shader for another version use the other form of the constructor.
@@ -103,6 +171,7 @@ public class SXRShaderTemplate extends SXRShader
     {
         super(uniformDescriptor, textureDescriptor, vertexDescriptor);
         mHasVariants = true;
+        mCanMakeVariantKeys = !overridesSignature();
     }
 
     /**
@@ -121,6 +190,7 @@ public class SXRShaderTemplate extends SXRShader
     {
         super(uniformDescriptor, textureDescriptor, vertexDescriptor, glslVersion);
         mHasVariants = true;
+        mCanMakeVariantKeys = !overridesSignature();
     }
 
     /**
@@ -143,8 +213,7 @@ public class SXRShaderTemplate extends SXRShader
         {
             return;
         }
-        Pattern pattern = Pattern.compile("HAS_([a-zA-Z0-9_]+)");
-        Matcher matcher = pattern.matcher(shaderSource);
+        Matcher matcher = sDefinePattern.matcher(shaderSource);
         if (mShaderDefines == null) mShaderDefines = new HashSet<String>();
         int index = 0;
         while (((index = shaderSource.indexOf("HAS_", index)) >= 0) && matcher.find(index))
@@ -153,6 +222,9 @@ public class SXRShaderTemplate extends SXRShader
             mShaderDefines.add(match);
             index = matcher.end();
         }
+        mDefineNames = null;
+        mSourceHash = null;
+        ++mVariantGeneration;
     }
 
     /**
@@ -244,11 +316,151 @@ public class SXRShaderTemplate extends SXRShader
         return signature;
     }
 
+    /**
+     * Make the compact key for the variant {@link #generateVariantDefines}
+     * and {@link #generateLightSignature} would select. The same rules
+     * decide whether each name is defined but the result is kept as
+     * bit masks instead of a string.
+     *
+     * @param definedNames
+     *            names defined by the render data, not modified
+     * @param vertexDesc
+     *            String with vertex attributes, null to ignore them
+     * @param material
+     *            material used with this shader (may not be null)
+     * @param lightlist
+     *            lights used with this shader, may be null
+     * @return variant key or null if this template cannot make keys
+     *         (too many defines or signature methods overridden)
+     */
+    private VariantKey makeVariantKey(HashMap<String, Integer> definedNames, String vertexDesc,
+                                      SXRShaderData material, SXRLight[] lightlist)
+    {
+        String[] names = getDefineNames();
+        long defined = 0;
+        long textured = 0;
+        String[] texCoords = null;
+        int ntex = 0;
+
+        if (names == null)
+        {
+            return null;
+        }
+        for (int i = 0; i < names.length; ++i)
+        {
+            String name = names[i];
+            long bit = 1L << i;
+            Integer value = definedNames.get(name);
+
+            if (value != null)
+            {
+                if (value != 0)
+                {
+                    defined |= bit;
+                }
+            }
+            else if (material.hasUniform(name) ||
+                     ((vertexDesc != null) && vertexDesc.contains(name)))
+            {
+                defined |= bit;
+            }
+            else if (material.getTexture(name) != null)
+            {
+                String attrname = material.getTexCoordAttr(name);
+
+                defined |= bit;
+                textured |= bit;
+                if (texCoords == null)
+                {
+                    texCoords = new String[names.length];
+                }
+                texCoords[ntex++] = (attrname != null) ? attrname : "a_texcoord";
+            }
+        }
+        Class<?>[] lights = null;
+        if ((lightlist != null) && (lightlist.length > 0))
+        {
+            lights = new Class<?>[lightlist.length];
+            for (int i = 0; i < lightlist.length; ++i)
+            {
+                lights[i] = lightlist[i].getClass();
+            }
+        }
+        return new VariantKey(this, mVariantGeneration, defined, textured, texCoords, lights);
+    }
+
+    /**
+     * Get the shader defines in a fixed order so each
+     * can be represented by a bit in a {@link VariantKey}.
+     * @return array of define names or null if variant keys cannot be used
+     */
+    private synchronized String[] getDefineNames()
+    {
+        if (mDefineNames == null)
+        {
+            if (!mCanMakeVariantKeys ||
+                (mShaderDefines == null) ||
+                (mShaderDefines.size() > Long.SIZE))
+            {
+                return null;
+            }
+            mDefineNames = mShaderDefines.toArray(new String[mShaderDefines.size()]);
+        }
+        return mDefineNames;
+    }
+
+    /**
+     * Determine if a subclass overrides the methods which make the shader signature.
+     * Variant keys are not used for those templates because they
+     * may not follow the same rules.
+     */
+    private boolean overridesSignature()
+    {
+        for (Class<?> c = getClass(); c != SXRShaderTemplate.class; c = c.getSuperclass())
+        {
+            for (Method m : c.getDeclaredMethods())
+            {
+                String name = m.getName();
+                if (name.equals("generateVariantDefines") || name.equals("generateLightSignature"))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the key for the generated sources of a variant in
+     * the shader cache. Besides the signature, it includes a hash of
+     * the shader segments and descriptors so the cached sources are
+     * not used after the template changes.
+     */
+    private String getSourceKey(String signature)
+    {
+        String hash = mSourceHash;
+        if (hash == null)
+        {
+            int h = mGLSLVersion.toString().hashCode();
+            h = 31 * h + String.valueOf(mUniformDescriptor).hashCode();
+            h = 31 * h + String.valueOf(mTextureDescriptor).hashCode();
+            h = 31 * h + String.valueOf(mVertexDescriptor).hashCode();
+            h = 31 * h + sBonesDescriptor.hashCode();
+            for (Map.Entry<String, String> entry : mShaderSegments.entrySet())
+            {
+                h = 31 * h + entry.getKey().hashCode();
+                h = 31 * h + String.valueOf(entry.getValue()).hashCode();
+            }
+            hash = (isVulkanInstance() ? "VK" : "GL") + Integer.toHexString(h);
+            mSourceHash = hash;
+        }
+        return signature + "@" + hash;
+    }
+
     protected void updateDescriptors(SXRShaderData material, String meshDesc,
                                      StringBuilder uniformDesc, StringBuilder textureDesc, StringBuilder vertexDesc)
     {
-        Pattern pattern = Pattern.compile("([a-zA-Z0-9]+)[ \t]+([a-zA-Z0-9_]+)[^ ]*");
-        Matcher matcher = pattern.matcher(mTextureDescriptor);
+        Matcher matcher = sDescriptorPattern.matcher(mTextureDescriptor);
         String name;
         String type;
 
@@ -267,7 +479,7 @@ public class SXRShaderTemplate extends SXRShader
                 textureDesc.append(' ');
             }
         }
-        matcher = pattern.matcher(mUniformDescriptor);
+        matcher = sDescriptorPattern.matcher(mUniformDescriptor);
         while (matcher.find())
         {
             type = matcher.group(1);
@@ -283,7 +495,7 @@ public class SXRShaderTemplate extends SXRShader
         }
         if (meshDesc != null)
         {
-            matcher = pattern.matcher(mVertexDescriptor);
+            matcher = sDescriptorPattern.matcher(mVertexDescriptor);
             while (matcher.find())
             {
                 type = matcher.group(1);
@@ -437,21 +649,43 @@ public class SXRShaderTemplate extends SXRShader
             variantDefines.put("MULTIVIEW", 0);
 
         String meshDesc = mesh.getVertexBuffer().getDescriptor();
+        SXRShaderManager shaderManager = context.getShaderManager();
+        VariantKey key = makeVariantKey(variantDefines, meshDesc, material, lightlist);
+        int nativeShader = (key != null) ? shaderManager.findVariant(key) : 0;
+
+        if (nativeShader > 0)
+        {
+            rdata.setShader(nativeShader, isMultiview);
+            return nativeShader;
+        }
         String signature = generateVariantDefines(variantDefines, meshDesc, material);
         signature += generateLightSignature(lightlist);
-        SXRShaderManager shaderManager = context.getShaderManager();
-        int nativeShader = shaderManager.getShader(signature);
+        nativeShader = shaderManager.getShader(signature);
 
         synchronized (shaderManager)
         {
             if (nativeShader == 0)
             {
-                Map<String, LightClass> lightClasses = scanLights(lightlist);
+                String sourceKey = getSourceKey(signature);
+                String[] sources = shaderManager.loadShaderSources(sourceKey);
+                String vertexShaderSource;
+                String fragmentShaderSource;
+
+                if (sources != null)
+                {
+                    vertexShaderSource = sources[0];
+                    fragmentShaderSource = sources[1];
+                }
+                else
+                {
+                    Map<String, LightClass> lightClasses = scanLights(lightlist);
 
-                String vertexShaderSource = generateShaderVariant("Vertex", variantDefines,
-                                                                  scene, lightClasses, material);
-                String fragmentShaderSource = generateShaderVariant("Fragment", variantDefines,
-                                                                    scene, lightClasses, material);
+                    vertexShaderSource = generateShaderVariant("Vertex", variantDefines,
+                                                               scene, lightClasses, material);
+                    fragmentShaderSource = generateShaderVariant("Fragment", variantDefines,
+                                                                 scene, lightClasses, material);
+                    shaderManager.saveShaderSources(sourceKey, vertexShaderSource, fragmentShaderSource);
+                }
                 StringBuilder uniformDescriptor = new StringBuilder();
                 StringBuilder textureDescriptor = new StringBuilder();
                 StringBuilder vertexDescriptor = new StringBuilder();
@@ -474,6 +708,10 @@ public class SXRShaderTemplate extends SXRShader
             }
             if (nativeShader > 0)
             {
+                if (key != null)
+                {
+                    shaderManager.addVariant(key, nativeShader);
+                }
                 rdata.setShader(nativeShader, isMultiview);
             }
             return nativeShader;
@@ -495,18 +733,39 @@ public class SXRShaderTemplate extends SXRShader
     public int bindShader(SXRContext context, SXRShaderData material, String meshDesc)
     {
         HashMap<String, Integer> variantDefines = new HashMap<String, Integer>();
-        String signature = generateVariantDefines(variantDefines, meshDesc, material);
         SXRShaderManager shaderManager = context.getShaderManager();
-        int nativeShader = shaderManager.getShader(signature);
+        VariantKey key = makeVariantKey(variantDefines, meshDesc, material, null);
+        int nativeShader = (key != null) ? shaderManager.findVariant(key) : 0;
+
+        if (nativeShader > 0)
+        {
+            return nativeShader;
+        }
+        String signature = generateVariantDefines(variantDefines, meshDesc, material);
+        nativeShader = shaderManager.getShader(signature);
 
         synchronized (shaderManager)
         {
             if (nativeShader == 0)
             {
-                String vertexShaderSource =
-                        generateShaderVariant("Vertex", variantDefines, null, null, material);
-                String fragmentShaderSource =
-                        generateShaderVariant("Fragment", variantDefines, null, null, material);
+                String sourceKey = getSourceKey(signature);
+                String[] sources = shaderManager.loadShaderSources(sourceKey);
+                String vertexShaderSource;
+                String fragmentShaderSource;
+
+                if (sources != null)
+                {
+                    vertexShaderSource = sources[0];
+                    fragmentShaderSource = sources[1];
+                }
+                else
+                {
+                    vertexShaderSource =
+                            generateShaderVariant("Vertex", variantDefines, null, null, material);
+                    fragmentShaderSource =
+                            generateShaderVariant("Fragment", variantDefines, null, null, material);
+                    shaderManager.saveShaderSources(sourceKey, vertexShaderSource, fragmentShaderSource);
+                }
                 StringBuilder uniformDescriptor = new StringBuilder();
                 StringBuilder textureDescriptor = new StringBuilder();
                 StringBuilder vertexDescriptor = new StringBuilder();
@@ -527,6 +786,10 @@ public class SXRShaderTemplate extends SXRShader
             {
                 //Log.v(TAG, "SHADER: found shader #%d %s", nativeShader, signature);
             }
+            if ((nativeShader > 0) && (key != null))
+            {
+                shaderManager.addVariant(key, nativeShader);
+            }
             return nativeShader;
         }
     }
@@ -703,16 +966,24 @@ public class SXRShaderTemplate extends SXRShader
 
     private String processLightShader(String lightShader, String lightType, String lightIndex, String lightArray)
     {
-        Pattern pattern = Pattern.compile("@LIGHTOUT.([A-Za-z0-9_]+)*");
         lightShader = lightShader.replace("@LIGHTIN", lightArray + lightIndex);
-        Matcher m = pattern.matcher(lightShader);
+        Matcher m = sLightOutPattern.matcher(lightShader);
+        StringBuffer result = null;
 
-        while (m.find(0))
+        while (m.find())
+        {
+            if (result == null)
+            {
+                result = new StringBuffer(lightShader.length() + 64);
+            }
+            m.appendReplacement(result, Matcher.quoteReplacement(lightType + "_" + m.group(1) + lightIndex));
+        }
+        if (result == null)
         {
-            lightShader = m.replaceFirst(lightType + "_" + m.group(1) + lightIndex);
-            m.reset(lightShader);
+            return lightShader;
         }
-        return lightShader;
+        m.appendTail(result);
+        return result.toString();
     }
 
     private Map<String, LightClass> scanLights(SXRLight[] lightlist)
@@ -761,8 +1032,7 @@ public class SXRShaderTemplate extends SXRShader
 
     private String makeShaderStruct(String descriptor, String structName, String shaderSource)
     {
-        Pattern pattern = Pattern.compile("[ ]*([a-zA-Z0-9_]+)[ ]+([A-Za-z0-9_]+)[,;:]*");
-        Matcher matcher = pattern.matcher(descriptor);
+        Matcher matcher = sDeclarationPattern.matcher(descriptor);
         String structDesc = "struct " + structName + " {\n";
         while (matcher.find())
         {
@@ -788,8 +1058,7 @@ public class SXRShaderTemplate extends SXRShader
     private String makeVertexOutputsLoop(SXRLight light)
     {
         String lightClassName = light.getLightClass();
-        Pattern pattern = Pattern.compile("[ ]*([a-zA-Z0-9_]+)[ ]+([A-Za-z0-9_]+)[,;:]*");
-        Matcher matcher = pattern.matcher(light.getVertexDescriptor());
+        Matcher matcher = sDeclarationPattern.matcher(light.getVertexDescriptor());
         String desc = "";
         while (matcher.find())
         {
@@ -804,8 +1073,7 @@ public class SXRShaderTemplate extends SXRShader
 
     private String makeVertexCopyLoop(String descriptor, String inBase, String outBase, String elemIndex)
     {
-        Pattern pattern = Pattern.compile("[ ]*([a-zA-Z0-9_]+)[ ]+([A-Za-z0-9_]+)[,;:]*");
-        Matcher matcher = pattern.matcher(descriptor);
+        Matcher matcher = sDeclarationPattern.matcher(descriptor);
         String desc = "";
         while (matcher.find())
         {
@@ -817,4 +1085,8 @@ public class SXRShaderTemplate extends SXRShader
     }
 
     protected Set<String> mShaderDefines;
+    private String[] mDefineNames;
+    private String mSourceHash;
+    private int mVariantGeneration;
+    private boolean mCanMakeVariantKeys;
 }
@@ -17,6 +17,8 @@ package com.samsungxr;
 
 import org.joml.Matrix4f;
 
+import java.nio.ByteBuffer;
+
 /**
  * One of the key SXRF classes: Encapsulates a 4x4 matrix that controls how GL
  * draws a mesh.
@@ -592,4 +594,8 @@ class NativeTransform {
             float quatX, float quatY, float quatZ, float pivotX, float pivotY,
             float pivotZ);
 
+    static native boolean commitBatch(ByteBuffer records, int count);
+
+    static native boolean getModelMatrices(ByteBuffer records, int count, ByteBuffer matrices);
+
 }
@@ -0,0 +1,338 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr;
+
+import org.joml.Matrix4f;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Updates the position, rotation and scale of many {@link SXRTransform}s
+ * with a single call into native code.
+ * <p>
+ * Every {@link SXRTransform} setter is a separate native call, so moving
+ * thousands of nodes a frame (layouts, particles, crowds) spends much of
+ * its time crossing into native code. A batch collects the new values in
+ * a direct buffer shared with native code and applies them all when
+ * {@link #commit()} is called:
+ * <pre>
+ *     batch.begin();
+ *     for (SXRNode node : nodes) {
+ *         batch.writePosition(node.getTransform(), x, y, z);
+ *     }
+ *     batch.commit();
+ * </pre>
+ * The world matrices of all the transforms in the batch can be read back
+ * the same way with {@link #readModelMatrices()}.
+ * <p>
+ * A batch keeps references to the transforms written until the next
+ * {@link #begin()}. It is not thread safe, use one batch per thread.
+ */
+public class SXRTransformBatch {
+    /**
+     * Record sets the position.
+     */
+    public static final int POSITION = 1;
+
+    /**
+     * Record sets the rotation.
+     */
+    public static final int ROTATION = 2;
+
+    /**
+     * Record sets the scale.
+     */
+    public static final int SCALE = 4;
+
+    /*
+     * Each record is the native transform pointer, the flags,
+     * ten floats of position, rotation and scale and four unused
+     * bytes so the next pointer is aligned. Must match
+     * TransformRecord in transform_jni.cpp, which checks the
+     * same sizes and offsets.
+     */
+    static final int RECORD_SIZE = 56;
+    static final int FLAGS_OFFSET = 8;
+    static final int POSITION_OFFSET = 12;
+    static final int ROTATION_OFFSET = 24;
+    static final int SCALE_OFFSET = 40;
+
+    private final int mCapacity;
+    private final ByteBuffer mRecords;
+    private final SXRTransform[] mTransforms;
+    private ByteBuffer mMatrixBytes = null;
+    private FloatBuffer mMatrices = null;
+    private int mCount = 0;
+    private long mNativeCallCount = 0;
+
+    /**
+     * Make a batch which can hold up to the given number of records.
+     *
+     * @param capacity
+     *            maximum number of transforms written between
+     *            {@link #begin()} and {@link #commit()}.
+     */
+    public SXRTransformBatch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Transform batch capacity must be positive");
+        }
+        mCapacity = capacity;
+        mRecords = ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+        mTransforms = new SXRTransform[capacity];
+    }
+
+    /**
+     * @return maximum number of records in the batch.
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * @return number of records written since {@link #begin()}.
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * @return number of native calls made by this batch, to compare with
+     *         the one or more calls per transform the setters would make.
+     */
+    public long getNativeCallCount() {
+        return mNativeCallCount;
+    }
+
+    /**
+     * Start a new batch, discarding any records written before.
+     *
+     * @return this batch
+     */
+    public SXRTransformBatch begin() {
+        for (int i = 0; i < mCount; ++i) {
+            mTransforms[i] = null;
+        }
+        mCount = 0;
+        return this;
+    }
+
+    /**
+     * Set the position, rotation and scale of a transform.
+     *
+     * @param transform
+     *            transform to update
+     * @param px
+     *            'X' component of the absolute position
+     * @param py
+     *            'Y' component of the absolute position
+     * @param pz
+     *            'Z' component of the absolute position
+     * @param qw
+     *            'W' component of the rotation quaternion
+     * @param qx
+     *            'X' component of the rotation quaternion
+     * @param qy
+     *            'Y' component of the rotation quaternion
+     * @param qz
+     *            'Z' component of the rotation quaternion
+     * @param sx
+     *            'X' scale factor
+     * @param sy
+     *            'Y' scale factor
+     * @param sz
+     *            'Z' scale factor
+     * @return index of the record, also the index of its matrix
+     *         in {@link #readModelMatrices()}.
+     */
+    public int write(SXRTransform transform, float px, float py, float pz,
+                     float qw, float qx, float qy, float qz,
+                     float sx, float sy, float sz) {
+        int offset = addRecord(transform, POSITION | ROTATION | SCALE);
+        putPosition(offset, px, py, pz);
+        putRotation(offset, qw, qx, qy, qz);
+        putScale(offset, sx, sy, sz);
+        return mCount - 1;
+    }
+
+    /**
+     * Set the absolute position of a transform.
+     *
+     * @see SXRTransform#setPosition(float, float, float)
+     * @return index of the record
+     */
+    public int writePosition(SXRTransform transform, float x, float y, float z) {
+        putPosition(addRecord(transform, POSITION), x, y, z);
+        return mCount - 1;
+    }
+
+    /**
+     * Set the absolute rotation of a transform as a quaternion.
+     *
+     * @see SXRTransform#setRotation(float, float, float, float)
+     * @return index of the record
+     */
+    public int writeRotation(SXRTransform transform, float w, float x, float y, float z) {
+        putRotation(addRecord(transform, ROTATION), w, x, y, z);
+        return mCount - 1;
+    }
+
+    /**
+     * Set the scale of a transform.
+     *
+     * @see SXRTransform#setScale(float, float, float)
+     * @return index of the record
+     */
+    public int writeScale(SXRTransform transform, float x, float y, float z) {
+        putScale(addRecord(transform, SCALE), x, y, z);
+        return mCount - 1;
+    }
+
+    /**
+     * Add a transform to the batch without changing it,
+     * so its matrix is returned by {@link #readModelMatrices()}.
+     *
+     * @return index of the record
+     */
+    public int add(SXRTransform transform) {
+        addRecord(transform, 0);
+        return mCount - 1;
+    }
+
+    /**
+     * Apply all the records written since {@link #begin()}
+     * with a single native call. Records are applied in the order
+     * written, so a later record for the same transform wins.
+     * <p>
+     * The records are kept, so the matrices can still be read
+     * and the same changes committed again.
+     */
+    public void commit() {
+        if (mCount == 0) {
+            return;
+        }
+        ++mNativeCallCount;
+        if (!commitRecords(mRecords, mCount)) {
+            throw new IllegalStateException("SXRTransformBatch: cannot commit " + mCount + " records");
+        }
+    }
+
+    /**
+     * Read the world matrices of all the transforms in the batch
+     * with a single native call.
+     *
+     * @return buffer with 16 floats (column major) for each record,
+     *         in the order the records were written. The buffer is
+     *         reused by the next call.
+     */
+    public FloatBuffer readModelMatrices() {
+        int size = mCount * 16 * 4;
+        if ((mMatrixBytes == null) || (mMatrixBytes.capacity() < size)) {
+            mMatrixBytes = ByteBuffer.allocateDirect(mCapacity * 16 * 4).order(ByteOrder.nativeOrder());
+            mMatrices = mMatrixBytes.asFloatBuffer();
+        }
+        if (mCount > 0) {
+            ++mNativeCallCount;
+            if (!readMatrices(mRecords, mCount, mMatrixBytes)) {
+                throw new IllegalStateException("SXRTransformBatch: cannot read " + mCount + " matrices");
+            }
+        }
+        mMatrices.limit(mCount * 16);
+        mMatrices.position(0);
+        return mMatrices;
+    }
+
+    /**
+     * Get a world matrix read by the last {@link #readModelMatrices()}.
+     *
+     * @param index
+     *            index of the record
+     * @param dest
+     *            matrix to get the result
+     * @return dest
+     */
+    public Matrix4f getModelMatrix(int index, Matrix4f dest) {
+        if ((mMatrices == null) || (index < 0) || (index * 16 >= mMatrices.limit())) {
+            throw new IndexOutOfBoundsException("No matrix read for transform batch record " + index);
+        }
+        return dest.set(index * 16, mMatrices);
+    }
+
+    /*
+     * The native calls, tests replace them to run without native code.
+     */
+    boolean commitRecords(ByteBuffer records, int count) {
+        return NativeTransform.commitBatch(records, count);
+    }
+
+    boolean readMatrices(ByteBuffer records, int count, ByteBuffer matrices) {
+        return NativeTransform.getModelMatrices(records, count, matrices);
+    }
+
+    /*
+     * Records and their buffer, for tests.
+     */
+    ByteBuffer getRecords() {
+        return mRecords;
+    }
+
+    private int addRecord(SXRTransform transform, int flags) {
+        if (transform == null) {
+            throw new IllegalArgumentException("transform must not be null");
+        }
+        int offset = addRecord(transform.getNative(), flags);
+        mTransforms[mCount - 1] = transform;
+        return offset;
+    }
+
+    /*
+     * Add a record for a native transform. Tests call this
+     * directly, they have no SXRTransform.
+     */
+    int addRecord(long nativeTransform, int flags) {
+        if (mCount >= mCapacity) {
+            throw new IllegalStateException("SXRTransformBatch is full, capacity is " + mCapacity);
+        }
+        int offset = mCount * RECORD_SIZE;
+        mRecords.putLong(offset, nativeTransform);
+        mRecords.putInt(offset + FLAGS_OFFSET, flags);
+        ++mCount;
+        return offset;
+    }
+
+    void putPosition(int offset, float x, float y, float z) {
+        offset += POSITION_OFFSET;
+        mRecords.putFloat(offset, x);
+        mRecords.putFloat(offset + 4, y);
+        mRecords.putFloat(offset + 8, z);
+    }
+
+    void putRotation(int offset, float w, float x, float y, float z) {
+        offset += ROTATION_OFFSET;
+        mRecords.putFloat(offset, w);
+        mRecords.putFloat(offset + 4, x);
+        mRecords.putFloat(offset + 8, y);
+        mRecords.putFloat(offset + 12, z);
+    }
+
+    void putScale(int offset, float x, float y, float z) {
+        offset += SCALE_OFFSET;
+        mRecords.putFloat(offset, x);
+        mRecords.putFloat(offset + 4, y);
+        mRecords.putFloat(offset + 8, z);
+    }
+}
@@ -352,6 +352,30 @@ public class SXRVertexBuffer extends SXRHybridObject implements PrettyPrint
         }
     }
 
+    /**
+     * Updates a float vertex attribute for a range of vertices.
+     * <p>
+     * The data array has values for every vertex in the buffer
+     * but only those for the vertices in the range are copied.
+     * Only the changed vertices are sent to the GPU, so a small
+     * part of a large vertex buffer can be updated every frame
+     * without copying all of it.
+     * The vertex count must already be established, either
+     * in the constructor or by setting a whole attribute.
+     * @param attributeName name of the attribute to update
+     * @param data float array with values for all the vertices
+     * @param firstVertex index of the first vertex to update
+     * @param vertexCount number of vertices to update
+     * @throws IllegalArgumentException if attribute name not in descriptor or range is outside the buffer
+     */
+    public void setFloatRange(String attributeName, float[] data, int firstVertex, int vertexCount)
+    {
+        if (!NativeVertexBuffer.setFloatRange(getNative(), attributeName, data, firstVertex, vertexCount))
+        {
+            throw new IllegalArgumentException("Attribute name " + attributeName + " cannot be updated");
+        }
+    }
+
     /**
      * Updates a vertex attribute from a float buffer.
      * All of the entries of the input float buffer are copied into
@@ -513,6 +537,15 @@ public class SXRVertexBuffer extends SXRHybridObject implements PrettyPrint
         return NativeVertexBuffer.getVertexCount(getNative());
     }
 
+    /**
+     * Get the number of bytes of vertex data.
+     * @return vertex count times the size of a vertex in bytes.
+     */
+    public int getDataSize()
+    {
+        return NativeVertexBuffer.getDataSize(getNative());
+    }
+
     /**
      * Get the vertex descriptor with the names and types of vertex attributes.
      * The types may be "int", "float" or "mat"
@@ -629,6 +662,8 @@ class NativeVertexBuffer {
 
     static native int getVertexCount(long vbuf);
 
+    static native int getDataSize(long vbuf);
+
     static native boolean isSet(long vbuf, String name);
 
     static native boolean getIntVec(long vbuf, String name, IntBuffer data, int stride, int offset);
@@ -647,6 +682,8 @@ class NativeVertexBuffer {
 
     static native boolean setFloatArray(long vbuf, String name, float[] data, int stride, int offset);
 
+    static native boolean setFloatRange(long vbuf, String name, float[] data, int firstVertex, int vertexCount);
+
     static native int  getAttributeSize(long vbuf, String name);
 
     static native int getBoundingVolume(long vbuf, float[] bv);
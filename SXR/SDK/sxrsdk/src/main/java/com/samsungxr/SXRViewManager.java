@@ -39,9 +39,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.locks.ReentrantLock;
 
 abstract class SXRViewManager extends SXRContext {
@@ -87,7 +85,7 @@ abstract class SXRViewManager extends SXRContext {
         }
 
         mFrameListeners.clear();
-        mRunnables.clear();
+        mGlTasks.clear();
         mRunnablesPostRender.clear();
         super.onDestroy();
     }
@@ -264,15 +262,7 @@ abstract class SXRViewManager extends SXRContext {
          * Without the sensor data, can't draw a scene properly.
          */
         if (!(mSensoredScene == null || !mMainScene.equals(mSensoredScene))) {
-            Runnable runnable;
-            while ((runnable = mRunnables.poll()) != null) {
-                try {
-                    runnable.run();
-                } catch (final Exception exc) {
-                    Log.e(TAG, "Runnable-on-GL %s threw %s", runnable, exc.toString());
-                    exc.printStackTrace();
-                }
-            }
+            mGlTasks.runFrame();
 
             final List<SXRDrawFrameListener> frameListeners = mFrameListeners;
             for (SXRDrawFrameListener listener : frameListeners) {
@@ -332,17 +322,7 @@ abstract class SXRViewManager extends SXRContext {
             // execute pending runnables now so any necessary gl calls
             // are done before onInit().  As an example the request to
             // get the GL_MAX_TEXTURE_SIZE needs to be fulfilled.
-            synchronized (mRunnables) {
-                Runnable runnable = null;
-                while ((runnable = mRunnables.poll()) != null) {
-                    try {
-                        runnable.run();
-                    } catch (final Exception exc) {
-                        Log.e(TAG, "Runnable-on-GL %s threw %s", runnable, exc.toString());
-                        exc.printStackTrace();
-                    }
-                }
-            }
+            mGlTasks.runAll();
 
             runOnTheFrameworkThread(new Runnable() {
                 @Override
@@ -498,10 +478,24 @@ abstract class SXRViewManager extends SXRContext {
         if (mGLThreadID == Thread.currentThread().getId()) {
             runnable.run();
         } else {
-            mRunnables.add(runnable);
+            mGlTasks.enqueue(runnable, SXRGlTaskScheduler.PRIORITY_NORMAL);
         }
     }
 
+    @Override
+    public void runOnGlThread(Runnable runnable, int priority) {
+        if (mGLThreadID == Thread.currentThread().getId()) {
+            runnable.run();
+        } else {
+            mGlTasks.enqueue(runnable, priority);
+        }
+    }
+
+    @Override
+    public SXRGlTaskScheduler getGlTaskScheduler() {
+        return mGlTasks;
+    }
+
     @Override
     public void runOnGlThreadPostRender(int delayFrames, Runnable runnable) {
         synchronized (mRunnablesPostRender) {
@@ -814,7 +808,7 @@ abstract class SXRViewManager extends SXRContext {
     protected FrameHandler mFrameHandler = firstFrame;
 
     protected List<SXRDrawFrameListener> mFrameListeners = new CopyOnWriteArrayList<SXRDrawFrameListener>();
-    protected final Queue<Runnable> mRunnables = new LinkedBlockingQueue<Runnable>();
+    protected final SXRGlTaskScheduler mGlTasks = new SXRGlTaskScheduler();
     protected final Map<Runnable, Integer> mRunnablesPostRender = new HashMap<Runnable, Integer>();
 
     protected SXRScene mMainScene;
@@ -121,6 +121,8 @@ public abstract class SXRAnimation {
     protected int mIterations = 0;
     protected boolean isFinished = false;
     protected boolean mReverse = false;
+    private boolean mStillRunning = true;
+    private boolean mAdvanced = false;
     protected String mName = null;
 
     /**
@@ -451,6 +453,18 @@ public abstract class SXRAnimation {
      */
 
     final boolean onDrawFrame(float frameTime) {
+        animate(advance(frameTime));
+        return finishFrame();
+    }
+
+    /*
+     * Advances the animation clock by the frame time and returns
+     * the time to pass to {@link #animate(float)}. The animation is
+     * not evaluated, {@link #finishFrame()} must be called after it has been.
+     * This lets the animation engine evaluate poses on worker threads
+     * while the callbacks still happen on the GL thread.
+     */
+    final float advance(float frameTime) {
         final int previousCycleCount = (int) (mElapsedTime / mDuration);
 
         mElapsedTime += (frameTime * mSpeed);
@@ -481,28 +495,37 @@ public abstract class SXRAnimation {
         final boolean countDown = mReverse ||
                                  ((mRepeatMode == SXRRepeatMode.PINGPONG) &&
                                  ((mIterations & 1) == 1));
+        mStillRunning = stillRunning;
+        mAdvanced = true;
         if (stillRunning) {
-
             float elapsedRatio = countDown ? interpolate(mDuration - cycleTime, mDuration) :
                                              interpolate(cycleTime, mDuration);
-            animate(elapsedRatio * mDuration);
+            return elapsedRatio * mDuration;
+        } else if (countDown) {
+            return 0;
+        }
+        float endRatio = interpolate(mDuration, mDuration);
+        return endRatio * mDuration;
+    }
 
-        } else {
-            if (countDown) {
-                animate(0);
-            }
-            else {
-                float endRatio = interpolate(mDuration, mDuration);
-                animate(endRatio * mDuration);
-            }
+    /*
+     * Completes the frame started by {@link #advance(float)},
+     * calling the finish callbacks if the animation is done.
+     */
+    final boolean finishFrame() {
+        mAdvanced = false;
+        if (!mStillRunning) {
             onFinish();
             isFinished = true;
             if (mOnFinish != null) {
                 mOnFinish.finished(this);
             }
         }
+        return mStillRunning;
+    }
 
-        return stillRunning;
+    final boolean isAdvanced() {
+        return mAdvanced;
     }
 
     private float interpolate(float cycleTime, float duration)
@@ -15,8 +15,11 @@
 
 package com.samsungxr.animation;
 
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRDrawFrameListener;
@@ -44,9 +47,58 @@ import com.samsungxr.SXRNode;
  * {@linkplain SXROnRepeat callback,} which allows you to terminate the
  * animation before the next loop.
  * </ul>
+ *
+ * <p>
+ * Skeletal animations can be expensive when there are many characters.
+ * {@link #setPoseEvaluationThreads(int)} lets the engine compute the
+ * poses of all the {@linkplain IPoseEvaluator pose evaluators}
+ * in parallel on a pool of worker threads. The bones are
+ * still updated on the GL thread after all the poses are done,
+ * in the order the animations were started.
  */
 public class SXRAnimationEngine {
 
+    /**
+     * Implemented by animations which only compute the pose of a skeleton.
+     * <p>
+     * When pose evaluation threads are enabled, the engine calls
+     * {@link #evaluatePose(float)} from a worker thread instead of
+     * {@link SXRAnimation#animate(float)}. Evaluators which write or read
+     * the same skeleton are evaluated on the same thread in the order they
+     * were started. {@link SXRSkeleton#poseToBones()} is called afterwards
+     * on the GL thread, once per skeleton which needs it, in the place of
+     * the last evaluator of that skeleton among the running animations.
+     * @see SXRAnimationEngine#setPoseEvaluationThreads(int)
+     */
+    public interface IPoseEvaluator {
+        /**
+         * Get the skeleton whose current pose is computed.
+         * @return skeleton written by {@link #evaluatePose(float)}
+         */
+        SXRSkeleton getSkeleton();
+
+        /**
+         * Get the skeleton whose pose is read, if any.
+         * @return skeleton read by {@link #evaluatePose(float)} or null
+         */
+        SXRSkeleton getInputSkeleton();
+
+        /**
+         * Compute the pose of the skeleton at the given time.
+         * This function may be called on a worker thread, it
+         * must not modify the scene graph.
+         * @param timeInSec animation time in seconds.
+         */
+        void evaluatePose(float timeInSec);
+
+        /**
+         * Determine whether the bones should be updated from the pose
+         * after it is computed.
+         * @return true to call {@link SXRSkeleton#poseToBones()}
+         */
+        boolean isPoseToBones();
+    }
+
     private static SXRAnimationEngine sInstance = null;
 
     static {
@@ -54,13 +106,23 @@ public class SXRAnimationEngine {
 
             @Override
             public void run() {
-                sInstance = null;
+                synchronized (SXRAnimationEngine.class) {
+                    if (sInstance != null) {
+                        sInstance.setPoseEvaluationThreads(0);
+                    }
+                    sInstance = null;
+                }
             }
         });
     }
 
     private final List<SXRAnimation> mAnimations = new CopyOnWriteArrayList<SXRAnimation>();
     private final SXRDrawFrameListener mOnDrawFrame = new DrawFrame();
+    private volatile EvaluationStage mStage = null;
+    private volatile long mEvaluationTime = 0;
+    private volatile long mCommitTime = 0;
+    private volatile int mEvaluatedCount = 0;
+    private volatile int mGroupCount = 0;
 
     protected SXRAnimationEngine(SXRContext gvrContext) {
         gvrContext.registerDrawFrameListener(mOnDrawFrame);
@@ -143,16 +205,393 @@ public class SXRAnimationEngine {
         mAnimations.remove(animation);
     }
 
+    /**
+     * Set the number of worker threads used to compute skeleton poses.
+     * <p>
+     * By default (0) all animations run on the GL thread in the order
+     * they were started. With one or more threads, the
+     * {@linkplain IPoseEvaluator pose evaluators} are computed in parallel
+     * before the other animations run. Evaluators which share a skeleton
+     * still run sequentially. The GL thread helps evaluate the poses
+     * so {@code numThreads} should usually be the number of cores minus one.
+     * @param numThreads number of worker threads, 0 to disable.
+     */
+    public void setPoseEvaluationThreads(int numThreads) {
+        if (numThreads < 0) {
+            throw new IllegalArgumentException("numThreads must not be negative");
+        }
+        // the same lock as getInstance and the reset handler, which stops the threads
+        synchronized (SXRAnimationEngine.class) {
+            EvaluationStage stage = mStage;
+            if ((stage != null) && (stage.getThreadCount() == numThreads)) {
+                return;
+            }
+            mStage = (numThreads > 0) ? new EvaluationStage(numThreads) : null;
+            if (stage != null) {
+                stage.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Get the number of threads used to compute skeleton poses.
+     * @return number of worker threads, 0 if poses are computed on the GL thread.
+     * @see #setPoseEvaluationThreads(int)
+     */
+    public int getPoseEvaluationThreads() {
+        EvaluationStage stage = mStage;
+        return (stage != null) ? stage.getThreadCount() : 0;
+    }
+
+    /**
+     * Get the time it took to compute the poses during the last frame.
+     * Only updated when pose evaluation threads are enabled.
+     * @return evaluation time in nanoseconds
+     */
+    public long getEvaluationTimeNanos() {
+        return mEvaluationTime;
+    }
+
+    /**
+     * Get the time it took to update the bones from the poses
+     * on the GL thread during the last frame.
+     * Only updated when pose evaluation threads are enabled.
+     * @return commit time in nanoseconds
+     */
+    public long getCommitTimeNanos() {
+        return mCommitTime;
+    }
+
+    /**
+     * Get the number of pose evaluators computed during the last frame.
+     * @return number of {@link IPoseEvaluator} animations evaluated
+     */
+    public int getEvaluatedCount() {
+        return mEvaluatedCount;
+    }
+
+    /**
+     * Get the number of independent groups of pose evaluators
+     * during the last frame. Each group runs on one thread.
+     * @return number of evaluation groups
+     */
+    public int getEvaluationGroupCount() {
+        return mGroupCount;
+    }
+
     private final class DrawFrame implements SXRDrawFrameListener {
 
         @Override
         public void onDrawFrame(float frameTime) {
+            EvaluationStage stage = mStage;
+            boolean evaluated = false;
+
+            try {
+                if (stage != null) {
+                    for (SXRAnimation animation : mAnimations) {
+                        if (animation instanceof IPoseEvaluator) {
+                            IPoseEvaluator evaluator = (IPoseEvaluator) animation;
+
+                            if (evaluator.getSkeleton() != null) {
+                                stage.add(evaluator, animation.advance(frameTime));
+                            }
+                        }
+                    }
+                    stage.evaluate();
+                }
+                evaluated = true;
+            } finally {
+                // finish the advanced animations even if a pose failed
+                finishFrame(stage, frameTime, evaluated);
+            }
+        }
+
+        /*
+         * Runs the animations in the order they were started. The bones
+         * of an evaluated skeleton are updated at the place of the last
+         * evaluator which wrote it, as if it had been animated there.
+         */
+        private void finishFrame(EvaluationStage stage, float frameTime, boolean evaluated) {
+            long commitTime = 0;
+
             for (SXRAnimation animation : mAnimations) {
-                if (animation.onDrawFrame(frameTime) == false) {
+                boolean stillRunning;
+
+                if (animation.isAdvanced()) {
+                    if (evaluated && (stage != null)) {
+                        long start = System.nanoTime();
+                        stage.commit((IPoseEvaluator) animation);
+                        commitTime += System.nanoTime() - start;
+                    }
+                    stillRunning = animation.finishFrame();
+                } else if (evaluated) {
+                    stillRunning = animation.onDrawFrame(frameTime);
+                } else {
+                    continue;
+                }
+                if (stillRunning == false) {
                     animation.isFinished = true;
                     mAnimations.remove(animation);
                 }
             }
+            if (stage != null) {
+                stage.clear();
+                mCommitTime = commitTime;
+            }
+        }
+    }
+
+    /*
+     * Computes the poses of a set of pose evaluators on a pool of
+     * worker threads and updates the bones on the GL thread.
+     * <p>
+     * Evaluators touching the same skeleton are merged into one group
+     * (union-find on the job indices) and each group is run by a single
+     * thread in the original order. Workers claim groups from an atomic
+     * cursor and acknowledge every generation so a worker can never
+     * still be running when the next frame starts.
+     */
+    private final class EvaluationStage {
+        private final Thread[] mThreads;
+        private final Object mLock = new Object();
+        private final AtomicInteger mNextGroup = new AtomicInteger();
+        private final IdentityHashMap<SXRSkeleton, Integer> mSkeletonJob = new IdentityHashMap<SXRSkeleton, Integer>();
+        private final IdentityHashMap<SXRSkeleton, IPoseEvaluator> mCommitJob = new IdentityHashMap<SXRSkeleton, IPoseEvaluator>();
+        private IPoseEvaluator[] mJobs = new IPoseEvaluator[16];
+        private float[] mTimes = new float[16];
+        private int[] mParent = new int[16];
+        private int[] mJobGroup = new int[16];
+        private int[] mGroupStart = new int[17];
+        private int[] mGroupJobs = new int[16];
+        private int mNumJobs = 0;
+        private int mNumGroups = 0;
+        private int mGeneration = 0;
+        private int mPending = 0;
+        private boolean mShutdown = false;
+        private volatile Throwable mError = null;
+
+        EvaluationStage(int numThreads) {
+            mThreads = new Thread[numThreads];
+            for (int i = 0; i < numThreads; ++i) {
+                mThreads[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        workerLoop();
+                    }
+                }, "sxr-anim-" + i);
+                mThreads[i].setDaemon(true);
+                mThreads[i].start();
+            }
+        }
+
+        int getThreadCount() {
+            return mThreads.length;
+        }
+
+        void shutdown() {
+            synchronized (mLock) {
+                mShutdown = true;
+                mLock.notifyAll();
+            }
+        }
+
+        void add(IPoseEvaluator evaluator, float time) {
+            if (mNumJobs == mJobs.length) {
+                int n = mNumJobs * 2;
+                mJobs = Arrays.copyOf(mJobs, n);
+                mTimes = Arrays.copyOf(mTimes, n);
+                mParent = new int[n];
+                mJobGroup = new int[n];
+                mGroupStart = new int[n + 1];
+                mGroupJobs = new int[n];
+            }
+            mJobs[mNumJobs] = evaluator;
+            mTimes[mNumJobs] = time;
+            ++mNumJobs;
+        }
+
+        void evaluate() {
+            long start = System.nanoTime();
+
+            makeGroups();
+            mEvaluatedCount = mNumJobs;
+            mGroupCount = mNumGroups;
+            if (mNumGroups > 1) {
+                evaluateParallel();
+            } else {
+                drain(0, mNumGroups);
+            }
+            mEvaluationTime = System.nanoTime() - start;
+            Throwable error = mError;
+
+            mError = null;
+            if (error == null) {
+                // the last evaluator of each skeleton updates its bones
+                for (int i = 0; i < mNumJobs; ++i) {
+                    IPoseEvaluator job = mJobs[i];
+
+                    if (job.isPoseToBones()) {
+                        mCommitJob.put(job.getSkeleton(), job);
+                    }
+                }
+            } else if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            } else if (error instanceof Error) {
+                throw (Error) error;
+            } else {
+                throw new RuntimeException(error);
+            }
+        }
+
+        void clear() {
+            Arrays.fill(mJobs, 0, mNumJobs, null);
+            mNumJobs = 0;
+            mNumGroups = 0;
+            mCommitJob.clear();
+        }
+
+        private void evaluateParallel() {
+            synchronized (mLock) {
+                if (mShutdown) {
+                    drain(0, mNumGroups);
+                    return;
+                }
+                mNextGroup.set(0);
+                mPending = mThreads.length;
+                ++mGeneration;
+                mLock.notifyAll();
+            }
+            drain();
+            boolean interrupted = false;
+            synchronized (mLock) {
+                while (mPending > 0) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException ex) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void workerLoop() {
+            int seen = 0;
+
+            while (true) {
+                synchronized (mLock) {
+                    while (!mShutdown && (mGeneration == seen)) {
+                        try {
+                            mLock.wait();
+                        } catch (InterruptedException ex) {
+                            // keep waiting, only shutdown() stops the worker
+                        }
+                    }
+                    if (mGeneration == seen) {
+                        return;
+                    }
+                    seen = mGeneration;
+                }
+                drain();
+                synchronized (mLock) {
+                    if (--mPending == 0) {
+                        mLock.notifyAll();
+                    }
+                }
+            }
+        }
+
+        private void drain() {
+            int g;
+
+            while ((g = mNextGroup.getAndIncrement()) < mNumGroups) {
+                drain(g, g + 1);
+            }
+        }
+
+        private void drain(int firstGroup, int lastGroup) {
+            for (int i = mGroupStart[firstGroup]; i < mGroupStart[lastGroup]; ++i) {
+                int j = mGroupJobs[i];
+
+                try {
+                    mJobs[j].evaluatePose(mTimes[j]);
+                } catch (Throwable ex) {
+                    mError = ex;
+                }
+            }
+        }
+
+        void commit(IPoseEvaluator job) {
+            SXRSkeleton skel = job.getSkeleton();
+
+            if (mCommitJob.get(skel) == job) {
+                synchronized (skel) {
+                    skel.poseToBones();
+                }
+            }
+        }
+
+        private int find(int i) {
+            while (mParent[i] != i) {
+                mParent[i] = mParent[mParent[i]];
+                i = mParent[i];
+            }
+            return i;
+        }
+
+        private void union(int job, SXRSkeleton skel) {
+            if (skel == null) {
+                return;
+            }
+            Integer other = mSkeletonJob.get(skel);
+            if (other == null) {
+                mSkeletonJob.put(skel, job);
+                return;
+            }
+            int a = find(job);
+            int b = find(other);
+            if (a != b) {
+                // keep the earliest job as the root
+                if (a < b) {
+                    mParent[b] = a;
+                } else {
+                    mParent[a] = b;
+                }
+            }
+        }
+
+        private void makeGroups() {
+            for (int i = 0; i < mNumJobs; ++i) {
+                mParent[i] = i;
+            }
+            for (int i = 0; i < mNumJobs; ++i) {
+                union(i, mJobs[i].getSkeleton());
+                union(i, mJobs[i].getInputSkeleton());
+            }
+            mSkeletonJob.clear();
+
+            // number the groups in the order of their first job
+            int numGroups = 0;
+            for (int i = 0; i < mNumJobs; ++i) {
+                int root = find(i);
+                mJobGroup[i] = (root == i) ? numGroups++ : mJobGroup[root];
+            }
+            // counting sort keeps the jobs of each group in start order
+            Arrays.fill(mGroupStart, 0, numGroups + 1, 0);
+            for (int i = 0; i < mNumJobs; ++i) {
+                ++mGroupStart[mJobGroup[i] + 1];
+            }
+            for (int g = 0; g < numGroups; ++g) {
+                mGroupStart[g + 1] += mGroupStart[g];
+            }
+            int[] next = mParent;
+            System.arraycopy(mGroupStart, 0, next, 0, numGroups);
+            for (int i = 0; i < mNumJobs; ++i) {
+                mGroupJobs[next[mJobGroup[i]]++] = i;
+            }
+            mNumGroups = numGroups;
         }
     }
 }
@@ -4,6 +4,7 @@ import com.samsungxr.IEventReceiver;
 import com.samsungxr.IEvents;
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRDrawFrameListener;
+import com.samsungxr.SXREventManager;
 import com.samsungxr.SXREventReceiver;
 import com.samsungxr.utility.Log;
 
@@ -125,6 +126,34 @@ public class SXRAnimationQueue implements SXRDrawFrameListener, IEventReceiver
     protected SXREventReceiver mListeners;
     protected IAnimationQueueEvents mQueueListener;
 
+    static
+    {
+        SXREventManager.registerInvoker(IAnimationQueueEvents.class, "onAnimationStarted",
+            new SXREventManager.IEventInvoker<IAnimationQueueEvents>()
+            {
+                public void invoke(IAnimationQueueEvents handler, Object[] params)
+                {
+                    handler.onAnimationStarted((SXRAnimationQueue) params[0], (SXRAnimator) params[1]);
+                }
+            });
+        SXREventManager.registerInvoker(IAnimationQueueEvents.class, "onAnimationFinished",
+            new SXREventManager.IEventInvoker<IAnimationQueueEvents>()
+            {
+                public void invoke(IAnimationQueueEvents handler, Object[] params)
+                {
+                    handler.onAnimationFinished((SXRAnimationQueue) params[0], (SXRAnimator) params[1]);
+                }
+            });
+        SXREventManager.registerInvoker(IAnimationQueueEvents.class, "removeBlendAnimation",
+            new SXREventManager.IEventInvoker<IAnimationQueueEvents>()
+            {
+                public void invoke(IAnimationQueueEvents handler, Object[] params)
+                {
+                    handler.removeBlendAnimation((SXRAnimationQueue) params[0], (SXRAnimator) params[1]);
+                }
+            });
+    }
+
     /**
      * Create an animation queue with a handler.
      * The handler must implement {@link IAnimationQueueEvents},
@@ -36,6 +36,7 @@ public class SXRColorAnimation extends SXRMaterialAnimation
 
     private final float mStartR, mStartG, mStartB;
     private final float mDeltaR, mDeltaG, mDeltaB;
+    private final int mColorHandle;
 
     /**
      * Animate the {@linkplain SXRMaterial#setColor(float, float, float) overlay
@@ -63,6 +64,7 @@ public class SXRColorAnimation extends SXRMaterialAnimation
         mDeltaR = rgb[0] - mStartR;
         mDeltaG = rgb[1] - mStartG;
         mDeltaB = rgb[2] - mStartB;
+        mColorHandle = mMaterial.hasUniform("u_color") ? mMaterial.getUniformHandle("u_color") : -1;
     }
 
     /**
@@ -142,13 +144,24 @@ public class SXRColorAnimation extends SXRMaterialAnimation
         mDeltaR = src.mDeltaR;
         mDeltaG = src.mDeltaG;
         mDeltaB = src.mDeltaB;
+        mColorHandle = src.mColorHandle;
     }
 
     @Override
     public void animate(float timeInSec)
     {
         float ratio = timeInSec / getDuration();
-        mMaterial.setColor(mStartR + ratio * mDeltaR,
-                mStartG + ratio * mDeltaG, mStartB + ratio * mDeltaB);
+        float r = mStartR + ratio * mDeltaR;
+        float g = mStartG + ratio * mDeltaG;
+        float b = mStartB + ratio * mDeltaB;
+
+        if (mColorHandle >= 0)
+        {
+            mMaterial.setVec3(mColorHandle, r, g, b);
+        }
+        else
+        {
+            mMaterial.setColor(r, g, b);
+        }
     }
 }
@@ -37,6 +37,7 @@ public class SXROpacityAnimation extends SXRMaterialAnimation
     private final float mInitialOpacity;
     private final float mDeltaOpacity;
     private final float[] mInitialColor;
+    private final int mHandle;
 
     /**
      * Animate the {@link SXRMaterial#setOpacity(float) opacity} property.
@@ -59,12 +60,14 @@ public class SXROpacityAnimation extends SXRMaterialAnimation
             mInitialOpacity = mMaterial.getOpacity();
             mDeltaOpacity = opacity - mInitialOpacity;
             mInitialColor = null;
+            mHandle = mMaterial.getUniformHandle("u_opacity");
         }
         else if (mMaterial.hasUniform("diffuse_color"))
         {
             mInitialOpacity = 1.0f;
             mInitialColor = mMaterial.getVec4("diffuse_color");
             mDeltaOpacity = opacity - mInitialColor[3];
+            mHandle = mMaterial.getUniformHandle("diffuse_color");
         }
         else
         {
@@ -82,6 +85,7 @@ public class SXROpacityAnimation extends SXRMaterialAnimation
         mInitialOpacity = src.mInitialOpacity;
         mDeltaOpacity = src.mDeltaOpacity;
         mInitialColor = src.mInitialColor;
+        mHandle = src.mHandle;
     }
 
     /**
@@ -117,13 +121,13 @@ public class SXROpacityAnimation extends SXRMaterialAnimation
         float opacity = mDeltaOpacity * timeInSec / mDuration;
         if (mInitialColor != null)
         {
-            mMaterial.setVec4("diffuse_color", mInitialColor[0],
+            mMaterial.setVec4(mHandle, mInitialColor[0],
                     mInitialColor[1], mInitialColor[2],
                     mInitialColor[3] + opacity);
         }
         else
         {
-            mMaterial.setOpacity(mInitialOpacity + opacity);
+            mMaterial.setFloat(mHandle, mInitialOpacity + opacity);
         }
     }
 }
@@ -23,14 +23,9 @@ import org.joml.Quaternionf;
 import org.joml.Vector3f;
 import org.joml.Vector4f;
 
-import java.util.BitSet;
 import java.util.Formatter;
 import java.util.Locale;
 
-import static com.samsungxr.animation.SXRPose.Bone.LOCAL_ROT;
-import static com.samsungxr.animation.SXRPose.Bone.WORLD_POS;
-import static com.samsungxr.animation.SXRPose.Bone.WORLD_ROT;
-
 /*!
  * Set of transformations on the bones of a skeleton.
  * p>
@@ -47,6 +42,10 @@ import static com.samsungxr.animation.SXRPose.Bone.WORLD_ROT;
  * <p>
  * Each skeleton has a current pose. Usually the current pose of a skeleton is used to
  * drive a skinned animation.
+ * <p>
+ * The bone matrices are kept in flat float arrays, 16 floats per bone in
+ * column-major order, so a pose can be updated and handed to the
+ * native skeleton without touching a {@link Matrix4f} per bone.
  *
  * @see SXRTransform
  * @see SXRSkeleton
@@ -55,10 +54,23 @@ import static com.samsungxr.animation.SXRPose.Bone.WORLD_ROT;
 public class SXRPose implements PrettyPrint
 {
     static final float EPSILON = Float.intBitsToFloat(1);
+
+    /*
+     * Flags indicating which part of a bone changed since the last sync.
+     */
+    static final int LOCAL_ROT = 1;
+    static final int WORLD_ROT = 2;
+    static final int WORLD_POS = 4;
+
     protected SXRSkeleton mSkeleton;
     private boolean	      mNeedSync;
-    private Bone[]        mBones;
+    private final int     mNumBones;
+    final float[]         mLocalMatrices;   // local matrices (relative to parent), 16 floats per bone
+    final float[]         mWorldMatrices;   // world matrices (relative to skeleton root), 16 floats per bone
+    final int[]           mChanged;         // WORLD_ROT, LOCAL_ROT, WORLD_POS per bone
     private final Quaternionf mTempQuat = new Quaternionf();
+    private final Matrix4f mTempMtx1 = new Matrix4f();
+    private final Matrix4f mTempMtx2 = new Matrix4f();
     public static final Matrix4f mTempMtxA = new Matrix4f();
     public static final Matrix4f mTempMtxB = new Matrix4f();
     private static boolean sDebug = false;
@@ -90,10 +102,14 @@ public class SXRPose implements PrettyPrint
     public SXRPose(SXRSkeleton skel)
     {
         mSkeleton = skel;
-        mBones = new Bone[skel.getNumBones()];
-        for (int i = 0; i < mBones.length; ++i)
+        mNumBones = skel.getNumBones();
+        mLocalMatrices = new float[mNumBones * 16];
+        mWorldMatrices = new float[mNumBones * 16];
+        mChanged = new int[mNumBones];
+        for (int i = 0; i < mNumBones; ++i)
         {
-            mBones[i] = new Bone();
+            setIdentity(mLocalMatrices, i * 16);
+            setIdentity(mWorldMatrices, i * 16);
         }
     }
 
@@ -109,11 +125,13 @@ public class SXRPose implements PrettyPrint
     public SXRPose(SXRPose src)
     {
         mSkeleton = src.getSkeleton();
-        mBones = new Bone[mSkeleton.getNumBones()];
-        for (int i = 0; i < mBones.length; ++i)
-        {
-            mBones[i] = new Bone(src.getBone(i));
-        }
+        mNumBones = mSkeleton.getNumBones();
+        mLocalMatrices = new float[mNumBones * 16];
+        mWorldMatrices = new float[mNumBones * 16];
+        mChanged = new int[mNumBones];
+        System.arraycopy(src.mLocalMatrices, 0, mLocalMatrices, 0, mLocalMatrices.length);
+        System.arraycopy(src.mWorldMatrices, 0, mWorldMatrices, 0, mWorldMatrices.length);
+        System.arraycopy(src.mChanged, 0, mChanged, 0, mChanged.length);
     }
 
 
@@ -121,7 +139,7 @@ public class SXRPose implements PrettyPrint
     * @return number of bones in the skeleton associated with this pose.
     * If there is no skeleton associated with the pose, 0 is returned.
     */
-    public int          getNumBones() { return mBones.length; }
+    public int          getNumBones() { return mNumBones; }
 
     /**
      * Get the skeleton for this pose.
@@ -133,7 +151,9 @@ public class SXRPose implements PrettyPrint
     public SXRSkeleton	getSkeleton() { return mSkeleton; }
 
 
-    Bone	getBone(int boneindex) { return mBones[boneindex]; }
+    int     getChanged(int boneindex) { return mChanged[boneindex]; }
+
+    void    clearChanged(int boneindex) { mChanged[boneindex] = 0; }
 
 
     /**
@@ -151,13 +171,13 @@ public class SXRPose implements PrettyPrint
 
     public void     getWorldPosition(int boneindex, Vector3f pos) 
     {
-        Bone bone = mBones[boneindex];
         int boneParent = mSkeleton.getParentBoneIndex(boneindex);
+        int ofs = boneindex * 16;
 
-        calcWorld(bone, boneParent);
-        pos.x = bone.WorldMatrix.m30();
-        pos.y = bone.WorldMatrix.m31();
-        pos.z = bone.WorldMatrix.m32();
+        calcWorld(boneindex, boneParent);
+        pos.x = mWorldMatrices[ofs + 12];
+        pos.y = mWorldMatrices[ofs + 13];
+        pos.z = mWorldMatrices[ofs + 14];
     }
 
     /**
@@ -181,17 +201,18 @@ public class SXRPose implements PrettyPrint
      */
     public void	getWorldPositions(float[] dest)
     {
-        if (dest.length != mBones.length * 3)
+        if (dest.length != mNumBones * 3)
         {
             throw new IllegalArgumentException("Destination array is the wrong size");
         }
         sync();
-        for (int i = 0; i < mBones.length; ++i)
+        for (int i = 0; i < mNumBones; ++i)
         {
             int t = i * 3;
-            dest[t] = mBones[i].WorldMatrix.m30();
-            dest[t + 1] = mBones[i].WorldMatrix.m31();
-            dest[t + 2] = mBones[i].WorldMatrix.m32();
+            int ofs = i * 16;
+            dest[t] = mWorldMatrices[ofs + 12];
+            dest[t + 1] = mWorldMatrices[ofs + 13];
+            dest[t + 2] = mWorldMatrices[ofs + 14];
         }
     }
 
@@ -210,15 +231,12 @@ public class SXRPose implements PrettyPrint
      */
     public void	getWorldMatrices(float[] dest)
     {
-        if (dest.length != mBones.length * 16)
+        if (dest.length != mNumBones * 16)
         {
             throw new IllegalArgumentException("Destination array is the wrong size");
         }
         sync();
-        for (int i = 0; i < mBones.length; ++i)
-        {
-            mBones[i].WorldMatrix.get(dest, i * 16);
-        }
+        System.arraycopy(mWorldMatrices, 0, dest, 0, dest.length);
     }
 
     /**
@@ -242,22 +260,21 @@ public class SXRPose implements PrettyPrint
      */
     public void	setWorldPositions(float[] positions)
     {
-        if (positions.length != mBones.length * 3)
+        if (positions.length != mNumBones * 3)
         {
             throw new IllegalArgumentException("Destination array is the wrong size");
         }
         mNeedSync = true;
-        mBones[0].setLocalPosition(positions[0], positions[1], positions[2]);
-        for (int i = 0; i < mBones.length; ++i)
+        setTranslation(mLocalMatrices, 0, positions[0], positions[1], positions[2]);
+        for (int i = 0; i < mNumBones; ++i)
         {
-            Bone bone = mBones[i];
             int t = i * 3;
 
-            bone.setWorldPosition(positions[t], positions[t + 1], positions[t + 2]);
-            bone.Changed = WORLD_POS;
+            setTranslation(mWorldMatrices, i * 16, positions[t], positions[t + 1], positions[t + 2]);
+            mChanged[i] = WORLD_POS;
             if (sDebug)
             {
-                Log.d("BONE", "setWorldPosition: %s %s", mSkeleton.getBoneName(i), bone.toString());
+                Log.d("BONE", "setWorldPosition: %s %s", mSkeleton.getBoneName(i), boneToString(i));
             }
         }
         sync();
@@ -285,22 +302,21 @@ public class SXRPose implements PrettyPrint
      */
     public void setWorldRotations(float[] rotations)
     {
-        if (rotations.length != mBones.length * 4)
+        if (rotations.length != mNumBones * 4)
         {
             throw new IllegalArgumentException("Source array is the wrong size");
         }
         mNeedSync = true;
-        for (int i = 0; i < mBones.length; ++i)
+        for (int i = 0; i < mNumBones; ++i)
         {
-            Bone bone = mBones[i];
             int t = i * 4;
 
-            bone.setWorldRotation(rotations[t], rotations[t + 1], rotations[t + 2], rotations[t + 3]);
-            bone.Changed |= WORLD_ROT;
-            calcLocal(bone, mSkeleton.getParentBoneIndex(i));
+            setRotation(mWorldMatrices, i * 16, rotations[t], rotations[t + 1], rotations[t + 2], rotations[t + 3]);
+            mChanged[i] |= WORLD_ROT;
+            calcLocal(i, mSkeleton.getParentBoneIndex(i));
             if (sDebug)
             {
-                Log.d("BONE", "setWorldRotation: %s %s", mSkeleton.getBoneName(i), bone.toString());
+                Log.d("BONE", "setWorldRotation: %s %s", mSkeleton.getBoneName(i), boneToString(i));
             }
         }
     }
@@ -322,7 +338,7 @@ public class SXRPose implements PrettyPrint
      */
     public void getWorldMatrix(int boneindex, Matrix4f mtx)
     {
-        mBones[boneindex].getWorldMatrix(mtx);
+        mtx.set(mWorldMatrices, boneindex * 16);
     }
 
     /**
@@ -342,22 +358,22 @@ public class SXRPose implements PrettyPrint
      */
     public void setWorldMatrix(int boneindex, Matrix4f mtx)
     {
-        Bone bone = mBones[boneindex];
+        int ofs = boneindex * 16;
 
-        bone.WorldMatrix.set(mtx);
+        mtx.get(mWorldMatrices, ofs);
         if (mSkeleton.getParentBoneIndex(boneindex) >= 0)
         {
-            calcLocal(bone, mSkeleton.getParentBoneIndex(boneindex));
+            calcLocal(boneindex, mSkeleton.getParentBoneIndex(boneindex));
         }
         else
         {
-            bone.LocalMatrix.set(mtx);
+            mtx.get(mLocalMatrices, ofs);
         }
         mNeedSync = true;
-        bone.Changed = Bone.WORLD_POS | Bone.WORLD_ROT;
+        mChanged[boneindex] = WORLD_POS | WORLD_ROT;
         if (sDebug)
         {
-            Log.d("BONE", "setWorldMatrix: %s %s", mSkeleton.getBoneName(boneindex), bone.toString());
+            Log.d("BONE", "setWorldMatrix: %s %s", mSkeleton.getBoneName(boneindex), boneToString(boneindex));
         }
     }
 
@@ -382,18 +398,16 @@ public class SXRPose implements PrettyPrint
      */
     public void getWorldRotations(float[] rotations)
     {
-        if (rotations.length != mBones.length * 4)
+        if (rotations.length != mNumBones * 4)
         {
             throw new IllegalArgumentException("Destination array is the wrong size");
         }
         sync();
-        for (int i = 0; i < mBones.length; i++)
+        for (int i = 0; i < mNumBones; i++)
         {
-            Bone bone = mBones[i];
             int t = i * 4;
 
-            bone.WorldMatrix.getUnnormalizedRotation(mTempQuat);
-            mTempQuat.normalize();
+            getRotation(mWorldMatrices, i * 16, mTempQuat);
 
             rotations[t++] = mTempQuat.x;
             rotations[t++] = mTempQuat.y;
@@ -414,14 +428,11 @@ public class SXRPose implements PrettyPrint
      */
     public void	getWorldRotation(int boneindex, Quaternionf q)
     {
-        Bone bone = mBones[boneindex];
-
-        if ((bone.Changed & LOCAL_ROT) == LOCAL_ROT)
+        if ((mChanged[boneindex] & LOCAL_ROT) == LOCAL_ROT)
         {
-            calcWorld(bone, mSkeleton.getParentBoneIndex(boneindex));
+            calcWorld(boneindex, mSkeleton.getParentBoneIndex(boneindex));
         }
-        bone.WorldMatrix.getUnnormalizedRotation(q);
-        q.normalize();
+        getRotation(mWorldMatrices, boneindex * 16, q);
     }
 
     /**
@@ -442,12 +453,13 @@ public class SXRPose implements PrettyPrint
             return false;
         }
 
-        Bone	bone = mBones[boneindex];
-        bone.setWorldRotation(x, y, z, w);
-        bone.Changed |= WORLD_ROT;
+        int ofs = boneindex * 16;
+
+        setRotation(mWorldMatrices, ofs, x, y, z, w);
+        mChanged[boneindex] |= WORLD_ROT;
         if (mSkeleton.getParentBoneIndex(boneindex) < 0)
         {
-            bone.LocalMatrix.set3x3(bone.WorldMatrix);
+            copy3x3(mWorldMatrices, mLocalMatrices, ofs);
         }
         else
         {
@@ -472,13 +484,11 @@ public class SXRPose implements PrettyPrint
      */
     public void getLocalMatrix(int boneindex, Matrix4f mtx)
     {
-        Bone bone = mBones[boneindex];
-
-        if ((bone.Changed & (WORLD_ROT | WORLD_POS)) != 0)
+        if ((mChanged[boneindex] & (WORLD_ROT | WORLD_POS)) != 0)
         {
-            calcLocal(bone, mSkeleton.getParentBoneIndex(boneindex));
+            calcLocal(boneindex, mSkeleton.getParentBoneIndex(boneindex));
         }
-        bone.getLocalMatrix(mtx);
+        mtx.set(mLocalMatrices, boneindex * 16);
     }
 
     /**
@@ -496,15 +506,12 @@ public class SXRPose implements PrettyPrint
      */
     public void	getLocalMatrices(float[] dest)
     {
-        if (dest.length != mBones.length * 16)
+        if (dest.length != mNumBones * 16)
         {
             throw new IllegalArgumentException("Destination array is the wrong size");
         }
         sync();
-        for (int i = 0; i < mBones.length; ++i)
-        {
-            mBones[i].LocalMatrix.get(dest, i * 16);
-        }
+        System.arraycopy(mLocalMatrices, 0, dest, 0, dest.length);
     }
 
     /**
@@ -522,14 +529,14 @@ public class SXRPose implements PrettyPrint
      */
     public void setLocalMatrix(int boneindex, Matrix4f mtx)
     {
-        Bone	  bone = mBones[boneindex];
         int		  parentid = mSkeleton.getParentBoneIndex(boneindex);
+        int       ofs = boneindex * 16;
 
-        bone.LocalMatrix.set(mtx);
-        bone.Changed = Bone.LOCAL_ROT;
+        mtx.get(mLocalMatrices, ofs);
+        mChanged[boneindex] = LOCAL_ROT;
         if (parentid < 0)
         {
-            bone.WorldMatrix.set(bone.LocalMatrix);
+            System.arraycopy(mLocalMatrices, ofs, mWorldMatrices, ofs, 16);
         }
         else
         {
@@ -540,7 +547,7 @@ public class SXRPose implements PrettyPrint
             Log.d("BONE",
                   "setLocalMatrix: %s %s",
                   mSkeleton.getBoneName(boneindex),
-                  bone.toString());
+                  boneToString(boneindex));
         }
     }
 
@@ -566,18 +573,16 @@ public class SXRPose implements PrettyPrint
     public void setLocalRotations(float[] rotations)
     {
         mNeedSync = true;
-        for (int i = 0; i < mBones.length; ++i)
+        for (int i = 0; i < mNumBones; ++i)
         {
             int t = i * 4;
             if (!mSkeleton.isLocked(i))
             {
-                Bone bone = mBones[i];
-
-                bone.setLocalRotation(rotations[t], rotations[t + 1], rotations[t + 2], rotations[t + 3]);
-                bone.Changed = LOCAL_ROT;
+                setRotation(mLocalMatrices, i * 16, rotations[t], rotations[t + 1], rotations[t + 2], rotations[t + 3]);
+                mChanged[i] = LOCAL_ROT;
                 if (sDebug)
                 {
-                    Log.d("BONE", "setLocalRotation: %s %s", mSkeleton.getBoneName(i), bone.toString());
+                    Log.d("BONE", "setLocalRotation: %s %s", mSkeleton.getBoneName(i), boneToString(i));
                 }
             }
         }
@@ -594,14 +599,11 @@ public class SXRPose implements PrettyPrint
      */
     public void getLocalRotation(int boneindex, Quaternionf q)
     {
-        Bone bone = mBones[boneindex];
-
-        if ((bone.Changed & (WORLD_POS | WORLD_ROT)) != 0)
+        if ((mChanged[boneindex] & (WORLD_POS | WORLD_ROT)) != 0)
         {
-            calcLocal(bone, mSkeleton.getParentBoneIndex(boneindex));
+            calcLocal(boneindex, mSkeleton.getParentBoneIndex(boneindex));
         }
-        bone.LocalMatrix.getUnnormalizedRotation(q);
-        q.normalize();
+        getRotation(mLocalMatrices, boneindex * 16, q);
     }
 
     /**
@@ -623,21 +625,21 @@ public class SXRPose implements PrettyPrint
         if (mSkeleton.isLocked(boneindex))
             return false;
 
-        Bone bone = mBones[boneindex];
+        int ofs = boneindex * 16;
 
-        bone.setLocalRotation(x, y, z, w);
+        setRotation(mLocalMatrices, ofs, x, y, z, w);
         if (mSkeleton.getParentBoneIndex(boneindex) < 0)
         {
-            bone.WorldMatrix.set(bone.LocalMatrix);
+            System.arraycopy(mLocalMatrices, ofs, mWorldMatrices, ofs, 16);
         }
         else
         {
             mNeedSync = true;
         }
-        bone.Changed = LOCAL_ROT;
+        mChanged[boneindex] = LOCAL_ROT;
         if (sDebug)
         {
-            Log.d("BONE", "setLocalRotation: %s %s", mSkeleton.getBoneName(boneindex), bone.toString());
+            Log.d("BONE", "setLocalRotation: %s %s", mSkeleton.getBoneName(boneindex), boneToString(boneindex));
         }
         return true;
     }
@@ -658,33 +660,35 @@ public class SXRPose implements PrettyPrint
      */
     public void     getLocalPosition(int boneindex, Vector3f pos)
     {
-        pos.x = mBones[boneindex].LocalMatrix.m30();
-        pos.y = mBones[boneindex].LocalMatrix.m31();
-        pos.z = mBones[boneindex].LocalMatrix.m32();
+        int ofs = boneindex * 16;
+
+        pos.x = mLocalMatrices[ofs + 12];
+        pos.y = mLocalMatrices[ofs + 13];
+        pos.z = mLocalMatrices[ofs + 14];
     }
 
     public void getLocalScale(int boneindex, Vector3f scale)
     {
-        mBones[boneindex].getScale(scale);
+        getScale(mLocalMatrices, boneindex * 16, scale);
     }
 
     public void setLocalPosition(int boneindex, float x, float y, float z)
     {
-        Bone bone = mBones[boneindex];
-        bone.setLocalPosition(x, y, z);
+        int ofs = boneindex * 16;
 
+        setTranslation(mLocalMatrices, ofs, x, y, z);
         if (mSkeleton.getParentBoneIndex(boneindex) < 0)
         {
-            bone.WorldMatrix.set(bone.LocalMatrix);
+            System.arraycopy(mLocalMatrices, ofs, mWorldMatrices, ofs, 16);
         }
         else
         {
             mNeedSync = true;
         }
-        bone.Changed = LOCAL_ROT;
+        mChanged[boneindex] = LOCAL_ROT;
         if (sDebug)
         {
-            Log.d("BONE", "setLocalPosition: %s %s", mSkeleton.getBoneName(boneindex), bone.toString());
+            Log.d("BONE", "setLocalPosition: %s %s", mSkeleton.getBoneName(boneindex), boneToString(boneindex));
         }
     }
 
@@ -698,20 +702,20 @@ public class SXRPose implements PrettyPrint
     public float[] getBound()
     {
         sync();
-        float x = mBones[0].WorldMatrix.m30();
-        float y = mBones[0].WorldMatrix.m31();
-        float z = mBones[0].WorldMatrix.m32();
+        float x = mWorldMatrices[12];
+        float y = mWorldMatrices[13];
+        float z = mWorldMatrices[14];
         float[] bv = new float[6];
 
         bv[0] = bv[3] = x;
         bv[1] = bv[4] = y;
         bv[2] = bv[5] = z;
-        for (int i = 1; i < mBones.length; ++i)
+        for (int i = 1; i < mNumBones; ++i)
         {
-            int t = i * 3;
-            x = mBones[i].WorldMatrix.m30();
-            y = mBones[i].WorldMatrix.m31();
-            z = mBones[i].WorldMatrix.m32();
+            int ofs = i * 16;
+            x = mWorldMatrices[ofs + 12];
+            y = mWorldMatrices[ofs + 13];
+            z = mWorldMatrices[ofs + 14];
             if (x < bv[0])
             {
                 bv[0] = x;
@@ -746,11 +750,9 @@ public class SXRPose implements PrettyPrint
      */
     public void transformPose(Matrix4f trans)
     {
-        Bone bone = mBones[0];
-
-        bone.LocalMatrix.set(trans);
-        bone.WorldMatrix.set(trans);
-        bone.Changed = WORLD_POS | WORLD_ROT;
+        trans.get(mLocalMatrices, 0);
+        trans.get(mWorldMatrices, 0);
+        mChanged[0] = WORLD_POS | WORLD_ROT;
         mNeedSync = true;
         sync();
     }
@@ -771,9 +773,11 @@ public class SXRPose implements PrettyPrint
             return false;
         }
         sync();
-        for (int i = 0; i < numbones; ++i)
+        src.sync();
+        for (int i = 0; i < numbones * 16; ++i)
         {
-            if (!mBones[i].equals(src.getBone(i)))
+            if ((java.lang.Math.abs(mLocalMatrices[i] - src.mLocalMatrices[i]) > tolerance) ||
+                (java.lang.Math.abs(mWorldMatrices[i] - src.mWorldMatrices[i]) > tolerance))
             {
                 return false;
             }
@@ -802,10 +806,9 @@ public class SXRPose implements PrettyPrint
             numbones = src.getNumBones();
         }
         src.sync();
-        for (int i = 0; i < numbones; ++i)
-        {
-            mBones[i].copy(src.getBone(i));
-        }
+        System.arraycopy(src.mLocalMatrices, 0, mLocalMatrices, 0, numbones * 16);
+        System.arraycopy(src.mWorldMatrices, 0, mWorldMatrices, 0, numbones * 16);
+        System.arraycopy(src.mChanged, 0, mChanged, 0, numbones);
     }
 
     /**
@@ -825,15 +828,18 @@ public class SXRPose implements PrettyPrint
         src.sync();
         for (int i = 0; i < numbones; ++i)
         {
-            Bone bone = mBones[i];
+            int ofs = i * 16;
 
-            bone.WorldMatrix.mul(src.mBones[i].WorldMatrix);
-            calcLocal(bone, mSkeleton.getParentBoneIndex(i));
+            mTempMtx1.set(mWorldMatrices, ofs);
+            mTempMtx2.set(src.mWorldMatrices, ofs);
+            mTempMtx1.mul(mTempMtx2);
+            mTempMtx1.get(mWorldMatrices, ofs);
+            calcLocal(i, mSkeleton.getParentBoneIndex(i));
             if (sDebug)
             {
-                Log.d("BONE", "combine: %s %s", mSkeleton.getBoneName(i), bone.toString());
+                Log.d("BONE", "combine: %s %s", mSkeleton.getBoneName(i), boneToString(i));
             }
-            bone.Changed = 0;
+            mChanged[i] = 0;
         }
         sync();
     }
@@ -847,7 +853,7 @@ public class SXRPose implements PrettyPrint
     {
         int numbones = getNumBones();
 
-        if (numbones != mBones.length)
+        if (numbones != mSkeleton.getNumBones())
         {
             Log.e("ANIMATION", "pose and skeleton do not match");
         }
@@ -855,10 +861,8 @@ public class SXRPose implements PrettyPrint
         mNeedSync = true;
         for (int i = 0; i < numbones; ++i)
         {
-            Bone bone = mBones[i];
-
-            bone.clearRotation();
-            bone.Changed = 0;
+            setRotation(mLocalMatrices, i * 16, 0, 0, 0, 1);
+            mChanged[i] = 0;
         }
     }
 
@@ -872,25 +876,27 @@ public class SXRPose implements PrettyPrint
             throw new IllegalArgumentException("SXRPose.inverse: input pose is incompatible with this pose");
         src.sync();
         int numbones = getNumBones();
-        Bone srcBone = src.mBones[0];
-        Bone dstBone = mBones[0];
 
         mNeedSync = true;
-        srcBone.WorldMatrix.invertAffine(dstBone.WorldMatrix);
-        dstBone.LocalMatrix.set(dstBone.WorldMatrix);
+        mTempMtx1.set(src.mWorldMatrices, 0);
+        mTempMtx1.invertAffine();
+        mTempMtx1.get(mWorldMatrices, 0);
+        mTempMtx1.get(mLocalMatrices, 0);
         if (sDebug)
         {
-            Log.d("BONE", "invert: %s %s", mSkeleton.getBoneName(0), dstBone.toString());
+            Log.d("BONE", "invert: %s %s", mSkeleton.getBoneName(0), boneToString(0));
         }
         for (int i = 1; i < numbones; ++i)
         {
-            srcBone = src.mBones[i];
-            dstBone = mBones[i];
-            srcBone.WorldMatrix.invertAffine(dstBone.WorldMatrix);
-            dstBone.Changed = WORLD_ROT | WORLD_POS;
+            int ofs = i * 16;
+
+            mTempMtx1.set(src.mWorldMatrices, ofs);
+            mTempMtx1.invertAffine();
+            mTempMtx1.get(mWorldMatrices, ofs);
+            mChanged[i] = WORLD_ROT | WORLD_POS;
             if (sDebug)
             {
-                Log.d("BONE", "invert: %s %s", mSkeleton.getBoneName(i), dstBone.toString());
+                Log.d("BONE", "invert: %s %s", mSkeleton.getBoneName(i), boneToString(i));
             }
         }
         sync();
@@ -909,16 +915,14 @@ public class SXRPose implements PrettyPrint
      */
     public boolean	setPosition(float x, float y, float z)
     {
-        Bone bone = mBones[0];
-
         sync();
-        bone.LocalMatrix.setTranslation(x, y, z);
-        bone.WorldMatrix.setTranslation(x, y, z);
-        bone.Changed = WORLD_ROT;
+        setTranslation(mLocalMatrices, 0, x, y, z);
+        setTranslation(mWorldMatrices, 0, x, y, z);
+        mChanged[0] = WORLD_ROT;
         mNeedSync = true;
         if (sDebug)
         {
-            Log.d("BONE", "setWorldPosition: %s ", mSkeleton.getBoneName(0), bone.toString());
+            Log.d("BONE", "setWorldPosition: %s ", mSkeleton.getBoneName(0), boneToString(0));
         }
         sync();
         return true;
@@ -926,29 +930,35 @@ public class SXRPose implements PrettyPrint
 
     public boolean	setScale(float sx, float sy, float sz)
     {
-        Bone bone = mBones[0];
         Vector3f v = new Vector3f();
 
-        bone.getScale(v);
+        getScale(mLocalMatrices, 0, v);
         sx /= v.x;
         sy /= v.y;
         sz /= v.z;
-        bone.WorldMatrix.scale(sx, sy, sz);
-        bone.LocalMatrix.scale(1 / sx, 1 / sy, 1 / sz);
-        for (int i = 0; i < mBones.length; ++i)
+        mTempMtx1.set(mWorldMatrices, 0);
+        mTempMtx1.scale(sx, sy, sz);
+        mTempMtx1.get(mWorldMatrices, 0);
+        mTempMtx1.set(mLocalMatrices, 0);
+        mTempMtx1.scale(1 / sx, 1 / sy, 1 / sz);
+        mTempMtx1.get(mLocalMatrices, 0);
+        for (int i = 0; i < mNumBones; ++i)
         {
-            bone = mBones[i];
-            bone.WorldMatrix.scale(sx, sy, sz);
-            bone.WorldMatrix.getTranslation(v);
+            int ofs = i * 16;
+
+            mTempMtx1.set(mWorldMatrices, ofs);
+            mTempMtx1.scale(sx, sy, sz);
+            mTempMtx1.getTranslation(v);
             v.x *= sx;
             v.y *= sy;
             v.z *= sz;
-            bone.WorldMatrix.setTranslation(v);
-            bone.Changed = WORLD_ROT | WORLD_POS;
+            mTempMtx1.setTranslation(v);
+            mTempMtx1.get(mWorldMatrices, ofs);
+            mChanged[i] = WORLD_ROT | WORLD_POS;
         }
         if (sDebug)
         {
-            Log.d("BONE", "setWorldScale: %s ", mSkeleton.getBoneName(0), bone.toString());
+            Log.d("BONE", "setWorldScale: %s ", mSkeleton.getBoneName(0), boneToString(mNumBones - 1));
         }
         mNeedSync = true;
         sync();
@@ -967,44 +977,44 @@ public class SXRPose implements PrettyPrint
         if (!mNeedSync)
             return false;
         mNeedSync = false;
-        for (int i = 0; i < mBones.length; ++i)
+        for (int i = 0; i < mNumBones; ++i)
         {
-            Bone 	bone = mBones[i];
             int		pid = mSkeleton.getParentBoneIndex(i);
+            int     changed = mChanged[i];
             boolean	update;
 
             if (pid < 0)							        // root bone?
             {
                 continue;
             }
-            update = (mBones[pid].Changed & (WORLD_ROT | LOCAL_ROT)) != 0;
+            update = (mChanged[pid] & (WORLD_ROT | LOCAL_ROT)) != 0;
             if (!mSkeleton.isLocked(i))				        // bone not locked?
             {
-                if ((bone.Changed == WORLD_ROT) ||
-                    ((bone.Changed & Bone.WORLD_POS) != 0))	// world matrix changed?
+                if ((changed == WORLD_ROT) ||
+                    ((changed & WORLD_POS) != 0))	        // world matrix changed?
                 {
-                    calcLocal(bone, pid);					// calculate local rotation and position
+                    calcLocal(i, pid);					    // calculate local rotation and position
                     if (sDebug)
                     {
-                        Log.d("BONE", "sync: %s %s", mSkeleton.getBoneName(i), bone.toString());
+                        Log.d("BONE", "sync: %s %s", mSkeleton.getBoneName(i), boneToString(i));
                     }
                     continue;
                 }
             }
             if (update ||								    // use local pos & rot?
-                (bone.Changed & (LOCAL_ROT | WORLD_ROT)) != 0)
+                (changed & (LOCAL_ROT | WORLD_ROT)) != 0)
             {
-                bone.Changed = LOCAL_ROT;
-                calcWorld(bone, pid);				        // update world rotation & position
+                mChanged[i] = LOCAL_ROT;
+                calcWorld(i, pid);				            // update world rotation & position
                 if (sDebug)
                 {
-                    Log.d("BONE", "sync: %s %s", mSkeleton.getBoneName(i), bone.toString());
+                    Log.d("BONE", "sync: %s %s", mSkeleton.getBoneName(i), boneToString(i));
                 }
             }
         }
-        for (int i = 0; i < mBones.length; ++i)
+        for (int i = 0; i < mNumBones; ++i)
         {
-            mBones[i].Changed = 0;
+            mChanged[i] = 0;
         }
         return true;
     }
@@ -1012,17 +1022,18 @@ public class SXRPose implements PrettyPrint
     /**
      * Calculates the world matrix based on the local matrix.
      */
-    protected void		calcWorld(Bone bone, int parentId)
+    protected void		calcWorld(int boneindex, int parentId)
     {
+        int ofs = boneindex * 16;
+
         if (parentId >= 0)
         {
-            getWorldMatrix(parentId, mTempMtxB);   // WorldMatrix (parent) TempMtxB
-            mTempMtxB.mul(bone.LocalMatrix);       // WorldMatrix = WorldMatrix(parent) * LocalMatrix
-            bone.WorldMatrix.set(mTempMtxB);
+            // WorldMatrix = WorldMatrix(parent) * LocalMatrix
+            mulAffine(mWorldMatrices, parentId * 16, mLocalMatrices, ofs, mWorldMatrices, ofs);
         }
         else
         {
-            bone.WorldMatrix.set(bone.LocalMatrix);
+            System.arraycopy(mLocalMatrices, ofs, mWorldMatrices, ofs, 16);
         }
      }
 
@@ -1030,186 +1041,180 @@ public class SXRPose implements PrettyPrint
      * Calculates the local translation and rotation for a bone.
      * Assumes WorldRot and WorldPos have been calculated for the bone.
      */
-    protected void		calcLocal(Bone bone, int parentId)
+    protected void		calcLocal(int boneindex, int parentId)
     {
+        int ofs = boneindex * 16;
+
         if (parentId < 0)
         {
-            bone.LocalMatrix.set(bone.WorldMatrix);
+            System.arraycopy(mWorldMatrices, ofs, mLocalMatrices, ofs, 16);
             return;
         }
 	/*
 	 * WorldMatrix = WorldMatrix(parent) * LocalMatrix
 	 * LocalMatrix = INVERSE[ WorldMatrix(parent) ] * WorldMatrix
 	 */
-        getWorldMatrix(parentId, mTempMtxA);	// WorldMatrix(par)
-        mTempMtxA.invert();					    // INVERSE[ WorldMatrix(parent) ]
-        mTempMtxA.mul(bone.WorldMatrix, bone.LocalMatrix);  // LocalMatrix = INVERSE[ WorldMatrix(parent) ] * WorldMatrix
+        mTempMtx1.set(mWorldMatrices, parentId * 16);   // WorldMatrix(par)
+        mTempMtx1.invert();                             // INVERSE[ WorldMatrix(parent) ]
+        mTempMtx2.set(mWorldMatrices, ofs);
+        mTempMtx1.mul(mTempMtx2, mTempMtx2);            // LocalMatrix = INVERSE[ WorldMatrix(parent) ] * WorldMatrix
+        mTempMtx2.get(mLocalMatrices, ofs);
     }
 
-    @Override
-    public void prettyPrint(StringBuffer sb, int indent)
+    /*
+     * Helpers operating on 4x4 column-major matrices stored
+     * in a float array at the given offset.
+     */
+    static void setIdentity(float[] m, int ofs)
     {
-        SXRSkeleton skel = mSkeleton;
-        int numBones = skel.getNumBones();
-        sb.append(Log.getSpaces(indent));
-        sb.append(getClass().getSimpleName());
-        sb.append(System.lineSeparator());
-        for (int i = 0; i < numBones; ++i)
+        for (int i = 0; i < 16; ++i)
         {
-            String boneName = skel.getBoneName(i);
-            Bone bone = mBones[i];
-            sb.append(Log.getSpaces(indent) + 2);
-            sb.append(boneName);
-            sb.append(bone.toString());
+            m[ofs + i] = 0;
         }
+        m[ofs] = m[ofs + 5] = m[ofs + 10] = m[ofs + 15] = 1;
     }
 
-    @Override
-    public String toString()
+    static void setTranslation(float[] m, int ofs, float x, float y, float z)
     {
-        StringBuffer sb = new StringBuffer();
-        prettyPrint(sb, 0);
-        return sb.toString();
+        m[ofs + 12] = x;
+        m[ofs + 13] = y;
+        m[ofs + 14] = z;
     }
 
-
-/**
- * Internal structure used to maintain information about each bone.
- */
-static class Bone
-{
-    public int Changed;             // WORLD_ROT, LOCAL_ROT, WORLD_POS
-    public Matrix4f LocalMatrix;    // local transformations (relative to parent)
-    public Matrix4f WorldMatrix;    // world transformations (relative to root of skeleton)
-
-    public static final int LOCAL_ROT = 1;
-    public static final int WORLD_ROT = 2;
-    public static final int WORLD_POS = 4;
-    private static final Quaternionf mTempQuat = new Quaternionf();
-
-    public Bone()
-    {
-        LocalMatrix = new Matrix4f();
-        WorldMatrix = new Matrix4f();
-    }
-
-    public Bone(Bone src)
-    {
-        LocalMatrix = new Matrix4f();
-        WorldMatrix = new Matrix4f();
-        copy(src);
-    }
-
-    public void copy(Bone src)
-    {
-        LocalMatrix.set(src.LocalMatrix);
-        WorldMatrix.set(src.WorldMatrix);
-        Changed = src.Changed;
-    }
-
-    public void clearRotation()
-    {
-        setLocalRotation(0, 0, 0, 1);
-    }
-
-    public void getWorldMatrix(Matrix4f mtx)
+    static void getScale(float[] m, int ofs, Vector3f scale)
     {
-        mtx.set(WorldMatrix);
+        scale.x = (float) Math.sqrt(m[ofs] * m[ofs] + m[ofs + 1] * m[ofs + 1] + m[ofs + 2] * m[ofs + 2]);
+        scale.y = (float) Math.sqrt(m[ofs + 4] * m[ofs + 4] + m[ofs + 5] * m[ofs + 5] + m[ofs + 6] * m[ofs + 6]);
+        scale.z = (float) Math.sqrt(m[ofs + 8] * m[ofs + 8] + m[ofs + 9] * m[ofs + 9] + m[ofs + 10] * m[ofs + 10]);
     }
 
-    public void getLocalMatrix(Matrix4f mtx)
+    /*
+     * Replace the rotation of the matrix with the given quaternion,
+     * keeping the translation and the scale.
+     */
+    static void setRotation(float[] m, int ofs, float x, float y, float z, float w)
     {
-        mtx.set(LocalMatrix);
+        float sx = (float) Math.sqrt(m[ofs] * m[ofs] + m[ofs + 1] * m[ofs + 1] + m[ofs + 2] * m[ofs + 2]);
+        float sy = (float) Math.sqrt(m[ofs + 4] * m[ofs + 4] + m[ofs + 5] * m[ofs + 5] + m[ofs + 6] * m[ofs + 6]);
+        float sz = (float) Math.sqrt(m[ofs + 8] * m[ofs + 8] + m[ofs + 9] * m[ofs + 9] + m[ofs + 10] * m[ofs + 10]);
+        float dqx = x + x, dqy = y + y, dqz = z + z;
+        float q00 = dqx * x;
+        float q11 = dqy * y;
+        float q22 = dqz * z;
+        float q01 = dqx * y;
+        float q02 = dqx * z;
+        float q03 = dqx * w;
+        float q12 = dqy * z;
+        float q13 = dqy * w;
+        float q23 = dqz * w;
+
+        m[ofs] = sx - (q11 + q22) * sx;
+        m[ofs + 1] = (q01 + q23) * sx;
+        m[ofs + 2] = (q02 - q13) * sx;
+        m[ofs + 3] = 0;
+        m[ofs + 4] = (q01 - q23) * sy;
+        m[ofs + 5] = sy - (q22 + q00) * sy;
+        m[ofs + 6] = (q12 + q03) * sy;
+        m[ofs + 7] = 0;
+        m[ofs + 8] = (q02 + q13) * sz;
+        m[ofs + 9] = (q12 - q03) * sz;
+        m[ofs + 10] = sz - (q11 + q00) * sz;
+        m[ofs + 11] = 0;
+        m[ofs + 15] = 1;
     }
 
-    public void setWorldPosition(float x, float y, float z)
+    /*
+     * Copy the upper 3x3 of a matrix, leaving the translation alone.
+     */
+    static void copy3x3(float[] src, float[] dst, int ofs)
     {
-        WorldMatrix.setTranslation(x, y, z);
+        System.arraycopy(src, ofs, dst, ofs, 3);
+        System.arraycopy(src, ofs + 4, dst, ofs + 4, 3);
+        System.arraycopy(src, ofs + 8, dst, ofs + 8, 3);
     }
 
-    public void setLocalPosition(float x, float y, float z)
+    /*
+     * dst = a * b for bone matrices, whose bottom row is always 0 0 0 1,
+     * as Matrix4f.mulAffine. The destination must not overlap the first matrix.
+     */
+    static void mulAffine(float[] a, int aofs, float[] b, int bofs, float[] dst, int dofs)
     {
-        LocalMatrix.setTranslation(x, y, z);
+        for (int c = 0; c < 3; ++c)
+        {
+            int bc = bofs + c * 4;
+            int dc = dofs + c * 4;
+            float b0 = b[bc];
+            float b1 = b[bc + 1];
+            float b2 = b[bc + 2];
+
+            dst[dc] = a[aofs] * b0 + a[aofs + 4] * b1 + a[aofs + 8] * b2;
+            dst[dc + 1] = a[aofs + 1] * b0 + a[aofs + 5] * b1 + a[aofs + 9] * b2;
+            dst[dc + 2] = a[aofs + 2] * b0 + a[aofs + 6] * b1 + a[aofs + 10] * b2;
+            dst[dc + 3] = 0;
+        }
+        float b0 = b[bofs + 12];
+        float b1 = b[bofs + 13];
+        float b2 = b[bofs + 14];
+
+        dst[dofs + 12] = a[aofs] * b0 + a[aofs + 4] * b1 + a[aofs + 8] * b2 + a[aofs + 12];
+        dst[dofs + 13] = a[aofs + 1] * b0 + a[aofs + 5] * b1 + a[aofs + 9] * b2 + a[aofs + 13];
+        dst[dofs + 14] = a[aofs + 2] * b0 + a[aofs + 6] * b1 + a[aofs + 10] * b2 + a[aofs + 14];
+        dst[dofs + 15] = 1;
     }
 
-    public void getScale(Vector3f scale)
+    private void getRotation(float[] m, int ofs, Quaternionf q)
     {
-        scale.x = (float) Math.sqrt( LocalMatrix.m00() *  LocalMatrix.m00() +
-                LocalMatrix.m01() *  LocalMatrix.m01() +
-                LocalMatrix.m02() *  LocalMatrix.m02());
-        scale.y = (float) Math.sqrt( LocalMatrix.m10() *  LocalMatrix.m10() +
-                LocalMatrix.m11() *  LocalMatrix.m11() +
-                LocalMatrix.m12() *  LocalMatrix.m12());
-        scale.z = (float) Math.sqrt( LocalMatrix.m20() *  LocalMatrix.m20() +
-                LocalMatrix.m21() *  LocalMatrix.m21() +
-                LocalMatrix.m22() *  LocalMatrix.m22());
+        mTempMtx1.set(m, ofs);
+        mTempMtx1.getUnnormalizedRotation(q);
+        q.normalize();
     }
 
-    public void setLocalRotation(float x, float y, float z, float w)
+    String boneToString(int boneindex)
     {
-        float posx = LocalMatrix.m30();
-        float posy = LocalMatrix.m31();
-        float posz = LocalMatrix.m32();
-        float scalex = (float) Math.sqrt( LocalMatrix.m00() *  LocalMatrix.m00() +
-                                            LocalMatrix.m01() *  LocalMatrix.m01() +
-                                            LocalMatrix.m02() *  LocalMatrix.m02());
-        float scaley = (float) Math.sqrt( LocalMatrix.m10() *  LocalMatrix.m10() +
-                                        LocalMatrix.m11() *  LocalMatrix.m11() +
-                                        LocalMatrix.m12() *  LocalMatrix.m12());
-        float scalez = (float) Math.sqrt( LocalMatrix.m20() *  LocalMatrix.m20() +
-                LocalMatrix.m21() *  LocalMatrix.m21() +
-                LocalMatrix.m22() *  LocalMatrix.m22());
-
-        LocalMatrix.translationRotateScale(posx, posy, posz, x, y, z, w, scalex, scaley, scalez);
-    }
+        int ofs = boneindex * 16;
+        Vector3f scale = new Vector3f();
+        Quaternionf q = new Quaternionf();
+        StringBuilder sb = new StringBuilder();
+        Formatter format = new Formatter(sb, Locale.US);
 
-    public void setWorldRotation(float x, float y, float z, float w)
-    {
-        float posx = WorldMatrix.m30();
-        float posy = WorldMatrix.m31();
-        float posz = WorldMatrix.m32();
-        float scalex = (float) Math.sqrt( WorldMatrix.m00() *  WorldMatrix.m00() +
-                WorldMatrix.m01() *  WorldMatrix.m01() +
-                WorldMatrix.m02() *  WorldMatrix.m02());
-        float scaley = (float) Math.sqrt( WorldMatrix.m10() *  WorldMatrix.m10() +
-                WorldMatrix.m11() *  WorldMatrix.m11() +
-                WorldMatrix.m12() *  WorldMatrix.m12());
-        float scalez = (float) Math.sqrt( WorldMatrix.m20() *  WorldMatrix.m20() +
-                WorldMatrix.m21() *  WorldMatrix.m21() +
-                WorldMatrix.m22() *  WorldMatrix.m22());
-
-        WorldMatrix.translationRotateScale(posx, posy, posz, x, y, z, w, scalex, scaley, scalez);
+        getScale(mLocalMatrices, ofs, scale);
+        format.format(" wpos (%.2f %.2f %.2f)",
+                mWorldMatrices[ofs + 12], mWorldMatrices[ofs + 13], mWorldMatrices[ofs + 14]);
+        getRotation(mWorldMatrices, ofs, q);
+        format.format(" wrot (%.2f %.2f %.2f %.2f)", q.x, q.y, q.z, q.w);
+        format.format(" lpos (%.2f %.2f %.2f)",
+                mLocalMatrices[ofs + 12], mLocalMatrices[ofs + 13], mLocalMatrices[ofs + 14]);
+        getRotation(mLocalMatrices, ofs, q);
+        format.format(" lrot (%.2f %.2f %.2f %.2f)", q.x, q.y, q.z, q.w);
+        format.format(" lscale (%.2f %.2f %.2f)", scale.x, scale.y, scale.z);
+        return sb.toString();
     }
 
-    public void setWorldRotation(Quaternionf q)
+    @Override
+    public void prettyPrint(StringBuffer sb, int indent)
     {
-        setWorldRotation(q.z, q.y, q.z, q.w);
+        SXRSkeleton skel = mSkeleton;
+        int numBones = skel.getNumBones();
+        sb.append(Log.getSpaces(indent));
+        sb.append(getClass().getSimpleName());
+        sb.append(System.lineSeparator());
+        for (int i = 0; i < numBones; ++i)
+        {
+            String boneName = skel.getBoneName(i);
+            sb.append(Log.getSpaces(indent) + 2);
+            sb.append(boneName);
+            sb.append(boneToString(i));
+        }
     }
 
     @Override
     public String toString()
     {
-        Vector3f scale = new Vector3f();
-        StringBuilder sb = new StringBuilder();
-        Formatter format = new Formatter(sb, Locale.US);
-
-        LocalMatrix.getScale(scale);
-        format.format(" wpos (%.2f %.2f %.2f)",
-                WorldMatrix.m30(), WorldMatrix.m31(), WorldMatrix.m32());
-        mTempQuat.setFromUnnormalized(WorldMatrix);
-        mTempQuat.normalize();
-        format.format(" wrot (%.2f %.2f %.2f %.2f)",
-                mTempQuat.x, mTempQuat.y, mTempQuat.z, mTempQuat.w);
-        format.format(" lpos (%.2f %.2f %.2f)",
-                LocalMatrix.m30(), LocalMatrix.m31(), LocalMatrix.m32());
-        mTempQuat.setFromUnnormalized(LocalMatrix);
-        mTempQuat.normalize();
-        format.format(" lrot (%.2f %.2f %.2f %.2f)",
-                mTempQuat.x, mTempQuat.y, mTempQuat.z, mTempQuat.w);
-        format.format(" lscale (%.2f %.2f %.2f)", scale.x, scale.y, scale.z);
+        StringBuffer sb = new StringBuffer();
+        prettyPrint(sb, 0);
         return sb.toString();
     }
-}
+
 
 };
 
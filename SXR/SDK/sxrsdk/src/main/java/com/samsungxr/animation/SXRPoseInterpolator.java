@@ -35,7 +35,7 @@ import com.samsungxr.utility.Log;
  * @see SXRSkeleton
  * @see SXRPose
  */
-public class SXRPoseInterpolator extends SXRAnimation
+public class SXRPoseInterpolator extends SXRAnimation implements SXRAnimationEngine.IPoseEvaluator
 {
     private SXRSkeleton mDestSkeleton;
     private SXRPose mInputPose;
@@ -96,6 +96,30 @@ public class SXRPoseInterpolator extends SXRAnimation
      * @param timer animation time in seconds.
      */
     public void animate(float timer)
+    {
+        evaluatePose(timer);
+    }
+
+    /**
+     * Get the skeleton whose pose is blended.
+     * @return destination {@link SXRSkeleton}
+     */
+    public SXRSkeleton getSkeleton() { return mDestSkeleton; }
+
+    /**
+     * Get the skeleton the input pose belongs to.
+     * @return source {@link SXRSkeleton}
+     */
+    public SXRSkeleton getInputSkeleton() { return mInputPose.getSkeleton(); }
+
+    public boolean isPoseToBones() { return false; }
+
+    /**
+     * Blend the input pose into the pose of the destination skeleton.
+     * @param timer animation time in seconds.
+     * @see #animate(float)
+     */
+    public void evaluatePose(float timer)
     {
         SXRPose pose2 = mDestSkeleton.getPose();
         for (int k = 0; k < mDestSkeleton.getNumBones(); k++)
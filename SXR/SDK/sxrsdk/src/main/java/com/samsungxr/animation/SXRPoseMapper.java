@@ -236,8 +236,8 @@ public class SXRPoseMapper extends SXRAnimation
             {
                 dstskel.setBoneOptions(boneindex, dstskel.getBoneOptions(boneindex) | SXRSkeleton.BONE_ANIMATE);
                 Log.w("BONE", "%s\n%d: %s\n%d: %s",
-                        bonename, i, srcPose.getBone(i).toString(),
-                        boneindex, dstPose.getBone(boneindex).toString());
+                        bonename, i, srcPose.boneToString(i),
+                        boneindex, dstPose.boneToString(boneindex));
             }
             else
             {
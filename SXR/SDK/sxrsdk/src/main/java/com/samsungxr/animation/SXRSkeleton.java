@@ -116,6 +116,7 @@ public class SXRSkeleton extends SXRComponent implements PrettyPrint
     final private Quaternionf mTempQuatA = new Quaternionf();
     final private Quaternionf mTempQuatB = new Quaternionf();
     final private Matrix4f mTempMtx = new Matrix4f();
+    final private Matrix4f mTempMtxB = new Matrix4f();
     private static int[] sTempBoneParents;
     private SXRNode sTempRoot;
 
@@ -465,13 +466,11 @@ public class SXRSkeleton extends SXRComponent implements PrettyPrint
             {
                 for (int i = 0; i < numbones; ++i)
                 {
-                    SXRPose.Bone srcBone = newpose.getBone(i);
-
-                    if ((srcBone.Changed != 0) && !isLocked(i))
+                    if ((newpose.getChanged(i) != 0) && !isLocked(i))
                     {
                         newpose.getLocalRotation(i, mTempQuatA);
                         mPose.setLocalRotation(i, mTempQuatA.x, mTempQuatA.y, mTempQuatA.z, mTempQuatA.w);
-                        srcBone.Changed = 0;
+                        newpose.clearChanged(i);
                     }
                 }
             }
@@ -489,8 +488,7 @@ public class SXRSkeleton extends SXRComponent implements PrettyPrint
                     {
                         if (!isLocked(i))
                         {
-                            SXRPose.Bone srcBone = newpose.getBone(i);
-                            srcBone.getLocalMatrix(mTempMtx);
+                            mTempMtx.set(newpose.mLocalMatrices, i * 16);
                             mPose.setLocalMatrix(i, mTempMtx);
                         }
                     }
@@ -526,12 +524,10 @@ public class SXRSkeleton extends SXRComponent implements PrettyPrint
             newpose.sync();
             for (int i = 0; i < numbones; ++i)
             {
-                SXRPose.Bone srcBone = newpose.getBone(i);
-
                 if ((mBoneOptions[i] & BONE_LOCK_ROTATION) == 0)
                 {
                     rootMtx.mul(mTempMtx, mTempMtx);
-                    mTempMtx.mul(srcBone.LocalMatrix, mTempMtx);
+                    mTempMtx.mul(mTempMtxB.set(newpose.mLocalMatrices, i * 16), mTempMtx);
                     mPose.setWorldMatrix(i, mTempMtx);
                 }
             }
@@ -873,12 +869,13 @@ public class SXRSkeleton extends SXRComponent implements PrettyPrint
         synchronized (this)
         {
             mPose.sync();
+            float[] localMatrices = mPose.mLocalMatrices;
             for (int i = 0; i < getNumBones(); ++i)
             {
                 SXRNode bone = mBones[i];
                 if ((bone != null) && ((mBoneOptions[i] & BONE_LOCK_ROTATION) == 0))
                 {
-                    mPose.getLocalMatrix(i, mTempMtx);
+                    mTempMtx.set(localMatrices, i * 16);
                     bone.getTransform().setModelMatrix(mTempMtx);
                 }
             }
@@ -902,15 +899,14 @@ public class SXRSkeleton extends SXRComponent implements PrettyPrint
      * of the mesh so it can be multiplied by the world bone pose
      * to compute the proper skin pose.
      * This function updates the local and world pose matrices each frame.
+     * The matrices are passed to C++ straight from the arrays in the pose.
      * @see SXRSkin
      */
     public void updateBonePose()
     {
         mPose.sync();
-        mPose.getLocalMatrices(mPoseMatrices);
-        NativeSkeleton.setPose(getNative(), mPoseMatrices);
-        mPose.getWorldMatrices(mPoseMatrices);
-        NativeSkeleton.setWorldPose(getNative(), mPoseMatrices);
+        NativeSkeleton.setPose(getNative(), mPose.mLocalMatrices);
+        NativeSkeleton.setWorldPose(getNative(), mPose.mWorldMatrices);
     }
 
     /**
@@ -59,6 +59,10 @@ public class BVHImporter
     private final BVHKey  mKeyMaker;
     private BufferedReader mReader;
     private SXRSkeleton mSkeleton;
+    private float mSampleRate = 0;
+    private float mPosTolerance;
+    private float mRotTolerance;
+    private float mScaleTolerance;
 
     /**
      * Interface for making position and rotation keys from BVH data.
@@ -259,6 +263,27 @@ public class BVHImporter
         mKeyMaker = mDefaultKeyMaker;
     }
 
+    /**
+     * Compress the animations made by this importer.
+     * <p>
+     * The channels of each imported animation are replaced
+     * by {@link SXRCompressedAnimationChannel} instances
+     * with the given sample rate and tolerances.
+     * @param sampleRate     number of samples per second, 0 to disable compression.
+     * @param posTolerance   largest allowed position error.
+     * @param rotTolerance   largest allowed rotation error in radians.
+     * @param scaleTolerance largest allowed scale error.
+     * @see SXRSkeletonAnimation#compress(float, float, float, float)
+     */
+    public void setCompression(float sampleRate, float posTolerance,
+                               float rotTolerance, float scaleTolerance)
+    {
+        mSampleRate = sampleRate;
+        mPosTolerance = posTolerance;
+        mRotTolerance = rotTolerance;
+        mScaleTolerance = scaleTolerance;
+    }
+
     /**
      * Import the animation from the input resource and apply it to the specified skeleton.
      * <p>
@@ -635,6 +660,10 @@ public class BVHImporter
             channel = mKeyMaker.makeAnimationChannel(bonename, posKeys, rotKeys);
             skelanim.addChannel(bonename, channel);
         }
+        if (mSampleRate > 0)
+        {
+            skelanim.compress(mSampleRate, mPosTolerance, mRotTolerance, mScaleTolerance);
+        }
         return skelanim;
     }
 }
@@ -271,7 +271,7 @@ public class SXRAnimationChannel implements PrettyPrint
      * @return the time component
      */
     public double getScaleKeyTime(int keyIndex) {
-        return mRotInterpolator.getTime(keyIndex);
+        return mSclInterpolator.getTime(keyIndex);
     }
 
     /**
@@ -313,6 +313,81 @@ public class SXRAnimationChannel implements PrettyPrint
         mSclInterpolator.setKey(keyIndex, time, mTempVec);
     }
 
+    /**
+     * Returns the number of bytes used by the keys of this channel.
+     *
+     * @return size of the key data in bytes
+     * @see SXRCompressedAnimationChannel
+     */
+    public int getKeyDataSize() {
+        return (mPosInterpolator.getNumKeys() * mPosInterpolator.getKeySize()
+                + mRotInterpolator.getNumKeys() * mRotInterpolator.getKeySize()
+                + mSclInterpolator.getNumKeys() * mSclInterpolator.getKeySize()) * 4;
+    }
+
+    /**
+     * Returns the number of keys per second, from the
+     * shortest time between two keys of the same kind.
+     *
+     * @return the key rate, 0 if there are not two keys of any kind
+     */
+    public float getKeyRate() {
+        float interval = Float.MAX_VALUE;
+
+        for (int i = 1; i < getNumPosKeys(); ++i) {
+            interval = minInterval(interval, getPosKeyTime(i) - getPosKeyTime(i - 1));
+        }
+        for (int i = 1; i < getNumRotKeys(); ++i) {
+            interval = minInterval(interval, getRotKeyTime(i) - getRotKeyTime(i - 1));
+        }
+        for (int i = 1; i < getNumScaleKeys(); ++i) {
+            interval = minInterval(interval, (float) (getScaleKeyTime(i) - getScaleKeyTime(i - 1)));
+        }
+        return (interval < Float.MAX_VALUE) ? 1.0f / interval : 0;
+    }
+
+    private static float minInterval(float interval, float dt) {
+        // keys at the same time do not set the rate
+        return (dt > 0) ? Math.min(interval, dt) : interval;
+    }
+
+    /**
+     * Create a compressed copy of this channel sampled at its key rate,
+     * between {@link SXRCompressedAnimationChannel#MIN_SAMPLE_RATE}
+     * and {@link SXRCompressedAnimationChannel#MAX_SAMPLE_RATE}.
+     *
+     * @param posTolerance   largest allowed position error.
+     * @param rotTolerance   largest allowed rotation error in radians.
+     * @param scaleTolerance largest allowed scale error.
+     * @return read-only channel with quantized keys
+     * @see #getKeyRate()
+     */
+    public SXRCompressedAnimationChannel compress(float posTolerance, float rotTolerance,
+                                                  float scaleTolerance) {
+        // round away the error of the key times
+        float sampleRate = Math.round(getKeyRate());
+
+        sampleRate = Math.max(SXRCompressedAnimationChannel.MIN_SAMPLE_RATE,
+                              Math.min(sampleRate, SXRCompressedAnimationChannel.MAX_SAMPLE_RATE));
+        return compress(sampleRate, posTolerance, rotTolerance, scaleTolerance);
+    }
+
+    /**
+     * Create a compressed copy of this channel.
+     *
+     * @param sampleRate     number of samples per second.
+     * @param posTolerance   largest allowed position error.
+     * @param rotTolerance   largest allowed rotation error in radians.
+     * @param scaleTolerance largest allowed scale error.
+     * @return read-only channel with quantized keys
+     * @see SXRCompressedAnimationChannel
+     */
+    public SXRCompressedAnimationChannel compress(float sampleRate, float posTolerance,
+                                                  float rotTolerance, float scaleTolerance) {
+        return new SXRCompressedAnimationChannel(this, sampleRate, posTolerance,
+                                                 rotTolerance, scaleTolerance);
+    }
+
     /**
      * Obtains the transform for a specific time in animation.
      *
@@ -322,10 +397,52 @@ public class SXRAnimationChannel implements PrettyPrint
      */
     public void animate(float animationTime, Matrix4f mat)
     {
-        mRotInterpolator.animate(animationTime, mRotKey);
-        mPosInterpolator.animate(animationTime, mPosKey);
-        mSclInterpolator.animate(animationTime, mScaleKey);
-        mat.translationRotateScale(mPosKey[0], mPosKey[1], mPosKey[2], mRotKey[0], mRotKey[1], mRotKey[2], mRotKey[3], mScaleKey[0], mScaleKey[1], mScaleKey[2]);
+        animate(animationTime, mat, mPosKey, mRotKey, mScaleKey);
+    }
+
+    /**
+     * Obtains the transform for a specific time in animation
+     * using caller supplied storage for the interpolated keys.
+     * <p>
+     * Channels may be shared by several skeleton animations.
+     * This form does not modify the channel so it can be
+     * called from several threads at once.
+     * A position, rotation or scale series without keys
+     * gives 0, the identity or 1.
+     * @param animationTime The time in animation.
+     * @param mat           matrix to get the transform.
+     * @param pos           array of 3 floats to get the position.
+     * @param rot           array of 4 floats to get the rotation.
+     * @param scale         array of 3 floats to get the scale.
+     */
+    public void animate(float animationTime, Matrix4f mat, float[] pos, float[] rot, float[] scale)
+    {
+        if (mRotInterpolator.getNumKeys() > 0)
+        {
+            mRotInterpolator.animate(animationTime, rot);
+        }
+        else
+        {
+            rot[0] = rot[1] = rot[2] = 0;
+            rot[3] = 1;
+        }
+        if (mPosInterpolator.getNumKeys() > 0)
+        {
+            mPosInterpolator.animate(animationTime, pos);
+        }
+        else
+        {
+            pos[0] = pos[1] = pos[2] = 0;
+        }
+        if (mSclInterpolator.getNumKeys() > 0)
+        {
+            mSclInterpolator.animate(animationTime, scale);
+        }
+        else
+        {
+            scale[0] = scale[1] = scale[2] = 1;
+        }
+        mat.translationRotateScale(pos[0], pos[1], pos[2], rot[0], rot[1], rot[2], rot[3], scale[0], scale[1], scale[2]);
     }
 
     @Override
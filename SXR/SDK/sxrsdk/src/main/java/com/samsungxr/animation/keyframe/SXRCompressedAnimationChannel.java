@@ -0,0 +1,788 @@
+/* Copyright 2018 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samsungxr.animation.keyframe;
+
+import com.samsungxr.utility.Log;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+
+/**
+ * Describes the animation of a single node's transform
+ * with compact, quantized keys.
+ * <p>
+ * The keys of the source {@link SXRAnimationChannel} are resampled
+ * at a uniform rate so the keys for a given time are found without
+ * searching. Positions and scales are stored as 16 bit values within
+ * the range of each channel. Rotations are stored in 48 bits per key
+ * as the three smallest components of the quaternion.
+ * <p>
+ * A series of keys which does not change is stored as a single value.
+ * A series of keys which changes slowly (or linearly) is sampled at
+ * a lower rate as long as the error stays within the given tolerance.
+ * The largest error measured at the sample points and at the times of
+ * the source keys is available after compression from
+ * {@link #getPositionError()}, {@link #getRotationError()} and
+ * {@link #getScaleError()}. Keys closer together than the sample
+ * rate are not all kept, which shows in these errors.
+ * <p>
+ * A compressed channel is read-only, the functions which
+ * change keys throw {@link UnsupportedOperationException}.
+ * @see SXRSkeletonAnimation#compress(float, float, float, float)
+ */
+public class SXRCompressedAnimationChannel extends SXRAnimationChannel
+{
+    /**
+     * Lowest sample rate picked from the key rate, in samples per second.
+     * Sparse keys are still sampled often enough for the normalized
+     * interpolation of the compressed rotations to follow the source.
+     */
+    public static final float MIN_SAMPLE_RATE = 30.0f;
+
+    /**
+     * Highest sample rate picked from the key rate, in samples per second.
+     */
+    public static final float MAX_SAMPLE_RATE = 1000.0f;
+
+    private static final float SQRT2 = 1.4142135f;
+    // even so zero is exactly representable
+    private static final float QUAT_RANGE = 32766.0f;
+    private static final float VEC_RANGE = 65535.0f;
+
+    private final float mSampleRate;
+    private final float mStartTime;
+    private final int mLastSample;
+    private final VectorTrack mPosTrack;
+    private final QuatTrack mRotTrack;
+    private final VectorTrack mScaleTrack;
+
+    /**
+     * Construct a compressed animation channel from another channel.
+     *
+     * @param src            channel with the keys to compress.
+     * @param sampleRate     number of samples per second, this should not be
+     *                       less than the key rate of the source channel.
+     * @param posTolerance   largest allowed position error (distance).
+     * @param rotTolerance   largest allowed rotation error (angle in radians).
+     * @param scaleTolerance largest allowed scale error.
+     */
+    public SXRCompressedAnimationChannel(SXRAnimationChannel src, float sampleRate,
+                                         float posTolerance, float rotTolerance,
+                                         float scaleTolerance)
+    {
+        super(src.getNodeName(), 0, 0, 0);
+        if (sampleRate <= 0)
+        {
+            throw new IllegalArgumentException("The sample rate must be greater than zero");
+        }
+        int numPos = src.getNumPosKeys();
+        int numRot = src.getNumRotKeys();
+        int numScale = src.getNumScaleKeys();
+        float start = Float.MAX_VALUE;
+        float end = -Float.MAX_VALUE;
+
+        if (numPos > 0)
+        {
+            start = Math.min(start, src.getPosKeyTime(0));
+            end = Math.max(end, src.getPosKeyTime(numPos - 1));
+        }
+        if (numRot > 0)
+        {
+            start = Math.min(start, src.getRotKeyTime(0));
+            end = Math.max(end, src.getRotKeyTime(numRot - 1));
+        }
+        if (numScale > 0)
+        {
+            start = Math.min(start, (float) src.getScaleKeyTime(0));
+            end = Math.max(end, (float) src.getScaleKeyTime(numScale - 1));
+        }
+        if (start > end)
+        {
+            start = end = 0;
+        }
+        int numSamples = (int) Math.ceil((end - start) * sampleRate) + 1;
+        float[] pos = new float[numSamples * 3];
+        float[] rot = new float[numSamples * 4];
+        float[] scale = new float[numSamples * 3];
+        float[] p = new float[3];
+        float[] r = new float[4];
+        float[] s = new float[3];
+        Matrix4f temp = new Matrix4f();
+
+        for (int i = 0; i < numSamples; ++i)
+        {
+            src.animate(start + i / sampleRate, temp, p, r, s);
+            System.arraycopy(p, 0, pos, i * 3, 3);
+            System.arraycopy(r, 0, rot, i * 4, 4);
+            System.arraycopy(s, 0, scale, i * 3, 3);
+        }
+        mSampleRate = sampleRate;
+        mStartTime = start;
+        mLastSample = numSamples - 1;
+        mPosTrack = (numPos > 0) ? new VectorTrack(pos, numSamples, posTolerance) : null;
+        mRotTrack = (numRot > 0) ? new QuatTrack(rot, numSamples, rotTolerance) : null;
+        mScaleTrack = (numScale > 0) ? new VectorTrack(scale, numSamples, scaleTolerance) : null;
+        measureKeyErrors(src);
+    }
+
+    /**
+     * Construct an animation channel which shares data with another.
+     */
+    public SXRCompressedAnimationChannel(final SXRCompressedAnimationChannel src)
+    {
+        super(src.getNodeName(), 0, 0, 0);
+        mSampleRate = src.mSampleRate;
+        mStartTime = src.mStartTime;
+        mLastSample = src.mLastSample;
+        mPosTrack = src.mPosTrack;
+        mRotTrack = src.mRotTrack;
+        mScaleTrack = src.mScaleTrack;
+    }
+
+    /**
+     * Gets the number of samples per second used to resample the keys.
+     * @return sample rate
+     */
+    public float getSampleRate() { return mSampleRate; }
+
+    /**
+     * Gets the largest position error measured at the sample points
+     * and the source keys.
+     * @return position error, 0 if there are no position keys.
+     */
+    public float getPositionError()
+    {
+        return (mPosTrack != null) ? mPosTrack.mError : 0;
+    }
+
+    /**
+     * Gets the largest rotation error measured at the sample points
+     * and the source keys.
+     * @return rotation error in radians, 0 if there are no rotation keys.
+     */
+    public float getRotationError()
+    {
+        return (mRotTrack != null) ? mRotTrack.mError : 0;
+    }
+
+    /**
+     * Gets the largest scale error measured at the sample points
+     * and the source keys.
+     * @return scale error, 0 if there are no scale keys.
+     */
+    public float getScaleError()
+    {
+        return (mScaleTrack != null) ? mScaleTrack.mError : 0;
+    }
+
+    @Override
+    public int getKeyDataSize()
+    {
+        int size = 0;
+
+        if (mPosTrack != null)
+        {
+            size += mPosTrack.getDataSize();
+        }
+        if (mRotTrack != null)
+        {
+            size += mRotTrack.getDataSize();
+        }
+        if (mScaleTrack != null)
+        {
+            size += mScaleTrack.getDataSize();
+        }
+        return size;
+    }
+
+    @Override
+    public int getNumPosKeys()
+    {
+        return (mPosTrack != null) ? mPosTrack.mNumSamples : 0;
+    }
+
+    @Override
+    public float getPosKeyTime(int keyIndex)
+    {
+        return getKeyTime(mPosTrack, keyIndex);
+    }
+
+    @Override
+    public void getPosKeyVector(int keyIndex, float[] pos)
+    {
+        mPosTrack.evaluate(mPosTrack.getKeySample(keyIndex, mLastSample), pos);
+    }
+
+    @Override
+    public int getNumRotKeys()
+    {
+        return (mRotTrack != null) ? mRotTrack.mNumSamples : 0;
+    }
+
+    @Override
+    public float getRotKeyTime(int keyIndex)
+    {
+        return getKeyTime(mRotTrack, keyIndex);
+    }
+
+    @Override
+    public void getRotKeyQuaternion(int keyIndex, float[] rot)
+    {
+        mRotTrack.evaluate(mRotTrack.getKeySample(keyIndex, mLastSample), rot);
+    }
+
+    @Override
+    public int getNumScaleKeys()
+    {
+        return (mScaleTrack != null) ? mScaleTrack.mNumSamples : 0;
+    }
+
+    @Override
+    public double getScaleKeyTime(int keyIndex)
+    {
+        return getKeyTime(mScaleTrack, keyIndex);
+    }
+
+    @Override
+    public void getScaleKeyVector(int keyIndex, float[] scale)
+    {
+        mScaleTrack.evaluate(mScaleTrack.getKeySample(keyIndex, mLastSample), scale);
+    }
+
+    @Override
+    public void resizePosKeys(int numPosKeys) { throw readOnly(); }
+
+    @Override
+    public void setPosKeyVector(int keyIndex, float time, final float[] pos) { throw readOnly(); }
+
+    @Override
+    public void setPosKeyVector(int keyIndex, float time, float x, float y, float z) { throw readOnly(); }
+
+    @Override
+    public void resizeRotKeys(int numRotKeys) { throw readOnly(); }
+
+    @Override
+    public void setRotKeyQuaternion(int keyIndex, float time, float[] rot) { throw readOnly(); }
+
+    @Override
+    public void setRotKeyQuaternion(int keyIndex, float time, Quaternionf rot) { throw readOnly(); }
+
+    @Override
+    public void resizeScaleKeys(int numScaleKeys) { throw readOnly(); }
+
+    @Override
+    public void setScaleKeyVector(int keyIndex, float time, final float[] scale) { throw readOnly(); }
+
+    @Override
+    public void setScaleKeyVector(int keyIndex, float time, float x, float y, float z) { throw readOnly(); }
+
+    /**
+     * Obtains the transform for a specific time in animation
+     * using caller supplied storage for the interpolated keys.
+     * <p>
+     * The keys are found directly from the time,
+     * there is no search or cached key index.
+     * @param animationTime The time in animation.
+     * @param mat           matrix to get the transform.
+     * @param pos           array of 3 floats to get the position.
+     * @param rot           array of 4 floats to get the rotation.
+     * @param scale         array of 3 floats to get the scale.
+     */
+    @Override
+    public void animate(float animationTime, Matrix4f mat, float[] pos, float[] rot, float[] scale)
+    {
+        float sample = toSample(animationTime);
+
+        if (mRotTrack != null)
+        {
+            mRotTrack.evaluate(sample, rot);
+        }
+        else
+        {
+            rot[0] = rot[1] = rot[2] = 0;
+            rot[3] = 1;
+        }
+        if (mPosTrack != null)
+        {
+            mPosTrack.evaluate(sample, pos);
+        }
+        else
+        {
+            pos[0] = pos[1] = pos[2] = 0;
+        }
+        if (mScaleTrack != null)
+        {
+            mScaleTrack.evaluate(sample, scale);
+        }
+        else
+        {
+            scale[0] = scale[1] = scale[2] = 1;
+        }
+        mat.translationRotateScale(pos[0], pos[1], pos[2], rot[0], rot[1], rot[2], rot[3], scale[0], scale[1], scale[2]);
+    }
+
+    @Override
+    public void prettyPrint(StringBuffer sb, int indent)
+    {
+        sb.append(Log.getSpaces(indent));
+        sb.append(SXRCompressedAnimationChannel.class.getSimpleName());
+        sb.append(" [nodeName=" + m_nodeName + ", sampleRate=" + mSampleRate
+                + ", positionKeys=" + getNumPosKeys()
+                + ", rotationKeys=" + getNumRotKeys()
+                + ", scaleKeys=" + getNumScaleKeys()
+                + ", bytes=" + getKeyDataSize() + "]");
+        sb.append(System.lineSeparator());
+    }
+
+    private float toSample(float animationTime)
+    {
+        float sample = (animationTime - mStartTime) * mSampleRate;
+
+        return Math.max(0.0f, Math.min(sample, mLastSample));
+    }
+
+    /*
+     * Adds the errors at the times of the source keys, which fall
+     * between samples if the keys are not on the sample grid
+     * or are closer together than the samples.
+     */
+    private void measureKeyErrors(SXRAnimationChannel src)
+    {
+        float[] key = new float[3];
+        float[] value = new float[3];
+        float[] keyRot = new float[4];
+        float[] valueRot = new float[4];
+
+        if (mPosTrack != null)
+        {
+            for (int i = 0; i < src.getNumPosKeys(); ++i)
+            {
+                src.getPosKeyVector(i, key);
+                mPosTrack.evaluate(toSample(src.getPosKeyTime(i)), value);
+                mPosTrack.mError = Math.max(mPosTrack.mError, VectorTrack.distance(key, value));
+            }
+        }
+        if (mRotTrack != null)
+        {
+            for (int i = 0; i < src.getNumRotKeys(); ++i)
+            {
+                src.getRotKeyQuaternion(i, keyRot);
+                QuatTrack.normalize(keyRot, 0);
+                mRotTrack.evaluate(toSample(src.getRotKeyTime(i)), valueRot);
+                mRotTrack.mError = Math.max(mRotTrack.mError,
+                        QuatTrack.angle(keyRot, 0, valueRot[0], valueRot[1], valueRot[2], valueRot[3]));
+            }
+        }
+        if (mScaleTrack != null)
+        {
+            for (int i = 0; i < src.getNumScaleKeys(); ++i)
+            {
+                src.getScaleKeyVector(i, key);
+                mScaleTrack.evaluate(toSample((float) src.getScaleKeyTime(i)), value);
+                mScaleTrack.mError = Math.max(mScaleTrack.mError, VectorTrack.distance(key, value));
+            }
+        }
+    }
+
+    private float getKeyTime(Track track, int keyIndex)
+    {
+        if (track == null)
+        {
+            return -1.0f;
+        }
+        return mStartTime + track.getKeySample(keyIndex, mLastSample) / mSampleRate;
+    }
+
+    private static UnsupportedOperationException readOnly()
+    {
+        return new UnsupportedOperationException("Compressed animation channels cannot be modified");
+    }
+
+    /*
+     * Series of keys sampled every mStride samples of the channel.
+     * A constant series has a single sample.
+     */
+    private static abstract class Track
+    {
+        protected int mStride = 1;
+        protected int mNumSamples = 1;
+        protected int mLastSample = 0;
+        protected float mError = 0;
+        protected short[] mData;
+
+        /*
+         * Computes the value at the given channel sample position.
+         */
+        abstract void evaluate(float sample, float[] dst);
+
+        abstract int getDataSize();
+
+        /*
+         * Encodes the source with the given stride and
+         * returns the largest error at the source samples.
+         */
+        abstract float encodeStride(float[] src, int numSamples, int stride);
+
+        int getKeySample(int keyIndex, int lastSample)
+        {
+            return Math.min(keyIndex * mStride, lastSample);
+        }
+
+        /*
+         * Index of the first key of the segment containing the sample.
+         */
+        int segment(float sample)
+        {
+            return Math.max(0, Math.min((int) (sample / mStride), mNumSamples - 2));
+        }
+
+        /*
+         * Interpolation factor within a segment. The last key is at
+         * the last sample so the last segment may be shorter than the stride.
+         */
+        float factor(float sample, int segment)
+        {
+            int start = segment * mStride;
+            int end = Math.min(start + mStride, mLastSample);
+            float factor = (sample - start) / (end - start);
+
+            return Math.max(0.0f, Math.min(factor, 1.0f));
+        }
+
+        /*
+         * Picks the largest stride which meets the tolerance,
+         * trying the whole channel as one linear segment first.
+         */
+        void encode(float[] src, int numSamples, float tolerance)
+        {
+            int stride = numSamples - 1;
+
+            mLastSample = numSamples - 1;
+            while (true)
+            {
+                mError = encodeStride(src, numSamples, stride);
+                if ((mError <= tolerance) || (stride <= 1))
+                {
+                    break;
+                }
+                int next = Integer.highestOneBit(stride);
+                stride = (next == stride) ? (stride / 2) : next;
+            }
+        }
+    }
+
+    /*
+     * 3 component vector quantized to 16 bits within its range.
+     */
+    private static final class VectorTrack extends Track
+    {
+        private final float[] mMin = new float[3];
+        private final float[] mStep = new float[3];
+
+        VectorTrack(float[] src, int numSamples, float tolerance)
+        {
+            float[] max = new float[3];
+
+            for (int c = 0; c < 3; ++c)
+            {
+                mMin[c] = Float.MAX_VALUE;
+                max[c] = -Float.MAX_VALUE;
+            }
+            for (int i = 0; i < numSamples * 3; i += 3)
+            {
+                for (int c = 0; c < 3; ++c)
+                {
+                    mMin[c] = Math.min(mMin[c], src[i + c]);
+                    max[c] = Math.max(max[c], src[i + c]);
+                }
+            }
+            float halfRange = 0;
+            for (int c = 0; c < 3; ++c)
+            {
+                float d = (max[c] - mMin[c]) / 2;
+                halfRange += d * d;
+                mStep[c] = (max[c] - mMin[c]) / VEC_RANGE;
+            }
+            halfRange = (float) Math.sqrt(halfRange);
+            if ((halfRange <= tolerance) || (numSamples == 1))
+            {
+                // constant, keep the middle of the range
+                for (int c = 0; c < 3; ++c)
+                {
+                    mMin[c] = (mMin[c] + max[c]) / 2;
+                    mStep[c] = 0;
+                }
+                mData = new short[] { 0, 0, 0 };
+                mNumSamples = 1;
+                mStride = numSamples;
+                mError = halfRange;
+                return;
+            }
+            encode(src, numSamples, tolerance);
+        }
+
+        @Override
+        int getDataSize()
+        {
+            return mData.length * 2 + 6 * 4;
+        }
+
+        @Override
+        float encodeStride(float[] src, int numSamples, int stride)
+        {
+            int n = (numSamples - 1 + stride - 1) / stride + 1;
+            float[] v = new float[3];
+            float error = 0;
+
+            mStride = stride;
+            mNumSamples = n;
+            mData = new short[n * 3];
+            for (int k = 0; k < n; ++k)
+            {
+                int ofs = Math.min(k * stride, numSamples - 1) * 3;
+
+                for (int c = 0; c < 3; ++c)
+                {
+                    int q = (mStep[c] > 0) ? Math.round((src[ofs + c] - mMin[c]) / mStep[c]) : 0;
+                    mData[k * 3 + c] = (short) Math.max(0, Math.min(q, 65535));
+                }
+            }
+            for (int i = 0; i < numSamples; ++i)
+            {
+                evaluate(i, v);
+                float dx = v[0] - src[i * 3];
+                float dy = v[1] - src[i * 3 + 1];
+                float dz = v[2] - src[i * 3 + 2];
+                error = Math.max(error, (float) Math.sqrt(dx * dx + dy * dy + dz * dz));
+            }
+            return error;
+        }
+
+        static float distance(float[] a, float[] b)
+        {
+            float dx = a[0] - b[0];
+            float dy = a[1] - b[1];
+            float dz = a[2] - b[2];
+
+            return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+
+        @Override
+        void evaluate(float sample, float[] dst)
+        {
+            if (mNumSamples == 1)
+            {
+                dst[0] = mMin[0];
+                dst[1] = mMin[1];
+                dst[2] = mMin[2];
+                return;
+            }
+            int i = segment(sample);
+            float factor = factor(sample, i);
+            int a = i * 3;
+            int b = a + 3;
+            for (int c = 0; c < 3; ++c)
+            {
+                float va = mMin[c] + (mData[a + c] & 0xFFFF) * mStep[c];
+                float vb = mMin[c] + (mData[b + c] & 0xFFFF) * mStep[c];
+                dst[c] = va + factor * (vb - va);
+            }
+        }
+    }
+
+    /*
+     * Quaternion stored as its three smallest components, 15 bits each.
+     * The index of the largest component is kept in the top bits of the
+     * first two values and the largest component is made positive so it
+     * can be rebuilt from the others.
+     */
+    private static final class QuatTrack extends Track
+    {
+        private final float[] mConstant = new float[4];
+
+        QuatTrack(float[] src, int numSamples, float tolerance)
+        {
+            for (int i = 0; i < numSamples * 4; i += 4)
+            {
+                normalize(src, i);
+            }
+            float maxAngle = 0;
+            for (int i = 4; i < numSamples * 4; i += 4)
+            {
+                maxAngle = Math.max(maxAngle, angle(src, 0, src[i], src[i + 1], src[i + 2], src[i + 3]));
+            }
+            if (maxAngle <= tolerance)
+            {
+                System.arraycopy(src, 0, mConstant, 0, 4);
+                mData = new short[0];
+                mNumSamples = 1;
+                mStride = numSamples;
+                mError = maxAngle;
+                return;
+            }
+            encode(src, numSamples, tolerance);
+        }
+
+        @Override
+        int getDataSize()
+        {
+            return mData.length * 2;
+        }
+
+        @Override
+        float encodeStride(float[] src, int numSamples, int stride)
+        {
+            int n = (numSamples - 1 + stride - 1) / stride + 1;
+            float[] q = new float[4];
+            float error = 0;
+
+            mStride = stride;
+            mNumSamples = n;
+            mData = new short[n * 3];
+            for (int k = 0; k < n; ++k)
+            {
+                int ofs = Math.min(k * stride, numSamples - 1) * 4;
+                pack(src[ofs], src[ofs + 1], src[ofs + 2], src[ofs + 3], mData, k * 3);
+            }
+            for (int i = 0; i < numSamples; ++i)
+            {
+                evaluate(i, q);
+                error = Math.max(error, angle(src, i * 4, q[0], q[1], q[2], q[3]));
+            }
+            return error;
+        }
+
+        @Override
+        void evaluate(float sample, float[] dst)
+        {
+            if (mNumSamples == 1)
+            {
+                System.arraycopy(mConstant, 0, dst, 0, 4);
+                return;
+            }
+            int i = segment(sample);
+            float factor = factor(sample, i);
+            unpack(mData, i * 3, dst);
+            float x0 = dst[0], y0 = dst[1], z0 = dst[2], w0 = dst[3];
+            unpack(mData, i * 3 + 3, dst);
+            float x1 = dst[0], y1 = dst[1], z1 = dst[2], w1 = dst[3];
+
+            // normalized lerp along the shortest path
+            if (x0 * x1 + y0 * y1 + z0 * z1 + w0 * w1 < 0)
+            {
+                x1 = -x1; y1 = -y1; z1 = -z1; w1 = -w1;
+            }
+            float x = x0 + factor * (x1 - x0);
+            float y = y0 + factor * (y1 - y0);
+            float z = z0 + factor * (z1 - z0);
+            float w = w0 + factor * (w1 - w0);
+            float s = 1.0f / (float) Math.sqrt(x * x + y * y + z * z + w * w);
+            dst[0] = x * s;
+            dst[1] = y * s;
+            dst[2] = z * s;
+            dst[3] = w * s;
+        }
+
+        static void normalize(float[] q, int ofs)
+        {
+            float x = q[ofs], y = q[ofs + 1], z = q[ofs + 2], w = q[ofs + 3];
+            float len = (float) Math.sqrt(x * x + y * y + z * z + w * w);
+
+            if (len > 0)
+            {
+                q[ofs] /= len;
+                q[ofs + 1] /= len;
+                q[ofs + 2] /= len;
+                q[ofs + 3] /= len;
+            }
+        }
+
+        /*
+         * Angle between two rotations from the chord between the quaternions,
+         * acos of their dot product loses too much precision for small angles.
+         */
+        static float angle(float[] src, int ofs, float x, float y, float z, float w)
+        {
+            double dx = src[ofs] - x, dy = src[ofs + 1] - y, dz = src[ofs + 2] - z, dw = src[ofs + 3] - w;
+            double sx = src[ofs] + x, sy = src[ofs + 1] + y, sz = src[ofs + 2] + z, sw = src[ofs + 3] + w;
+            double chord = Math.sqrt(Math.min(dx * dx + dy * dy + dz * dz + dw * dw,
+                                              sx * sx + sy * sy + sz * sz + sw * sw));
+            return (float) (4.0 * Math.asin(Math.min(chord / 2.0, 1.0)));
+        }
+
+        private static int quantize(float v)
+        {
+            int q = Math.round((v * SQRT2 + 1.0f) * 0.5f * QUAT_RANGE);
+            return Math.max(0, Math.min(q, 32767));
+        }
+
+        private static float dequantize(int q)
+        {
+            return (q / QUAT_RANGE * 2.0f - 1.0f) / SQRT2;
+        }
+
+        private static void pack(float x, float y, float z, float w, short[] data, int ofs)
+        {
+            float ax = Math.abs(x), ay = Math.abs(y), az = Math.abs(z), aw = Math.abs(w);
+            int largest = 3;
+            float a, b, c, l;
+
+            if ((ax >= ay) && (ax >= az) && (ax >= aw))
+            {
+                largest = 0;
+                l = x; a = y; b = z; c = w;
+            }
+            else if ((ay >= az) && (ay >= aw))
+            {
+                largest = 1;
+                l = y; a = x; b = z; c = w;
+            }
+            else if (az >= aw)
+            {
+                largest = 2;
+                l = z; a = x; b = y; c = w;
+            }
+            else
+            {
+                l = w; a = x; b = y; c = z;
+            }
+            if (l < 0)
+            {
+                a = -a; b = -b; c = -c;
+            }
+            data[ofs] = (short) (quantize(a) | ((largest & 2) << 14));
+            data[ofs + 1] = (short) (quantize(b) | ((largest & 1) << 15));
+            data[ofs + 2] = (short) quantize(c);
+        }
+
+        private static void unpack(short[] data, int ofs, float[] dst)
+        {
+            int s0 = data[ofs] & 0xFFFF;
+            int s1 = data[ofs + 1] & 0xFFFF;
+            int largest = ((s0 >> 14) & 2) | (s1 >> 15);
+            float a = dequantize(s0 & 0x7FFF);
+            float b = dequantize(s1 & 0x7FFF);
+            float c = dequantize(data[ofs + 2] & 0x7FFF);
+            float l = (float) Math.sqrt(Math.max(0.0f, 1.0f - a * a - b * b - c * c));
+
+            switch (largest)
+            {
+                case 0: dst[0] = l; dst[1] = a; dst[2] = b; dst[3] = c; break;
+                case 1: dst[0] = a; dst[1] = l; dst[2] = b; dst[3] = c; break;
+                case 2: dst[0] = a; dst[1] = b; dst[2] = l; dst[3] = c; break;
+                default: dst[0] = a; dst[1] = b; dst[2] = c; dst[3] = l; break;
+            }
+        }
+    }
+}
@@ -161,36 +161,38 @@ public class SXRFloatAnimation implements PrettyPrint
 
         public int getKeyIndex(float time)
         {
-            // Try cached key first
+            // Try cached key first. The cache is only a hint, it is read
+            // and written once so several threads may share the interpolator.
+            int lastIndex = mLastKeyIndex;
             int numKeys = getNumKeys();
-            int lastOfs = getKeyOffset(mLastKeyIndex + 1);
-            float lastTime = getTime(mLastKeyIndex);
-            float nextTime = getTime(mLastKeyIndex + 1);
+            int lastOfs = getKeyOffset(lastIndex + 1);
+            float lastTime = getTime(lastIndex);
+            float nextTime = getTime(lastIndex + 1);
 
-            if ((mLastKeyIndex != -1) && (lastOfs >= 0))
+            if ((lastIndex != -1) && (lastOfs >= 0))
             {
                 if ((lastTime <= time) &&
                         (time < nextTime))
                 {
-                    return mLastKeyIndex;
+                    return lastIndex;
                 }
-                float prevTime = getTime(mLastKeyIndex - 1);
+                float prevTime = getTime(lastIndex - 1);
 
                 if ((prevTime >= 0) &&
                         (prevTime <= time) &&
                         (time < lastTime))
                 {
-                    return --mLastKeyIndex;
+                    return mLastKeyIndex = lastIndex - 1;
                 }
                 lastTime = nextTime;
-                nextTime = getTime(mLastKeyIndex + 2);
+                nextTime = getTime(lastIndex + 2);
 
                 // Try neighboring keys
                 if ((nextTime >= 0) &&
                         (lastTime <= time) &&
                         (time < nextTime))
                 {
-                    return ++mLastKeyIndex;
+                    return mLastKeyIndex = lastIndex + 1;
                 }
             }
 
@@ -15,9 +15,6 @@ public final class SXRQuatAnimation extends SXRFloatAnimation
 
     public static class SphericalInterpolator extends LinearInterpolator
     {
-        private Quaternionf mTempQuatA = new Quaternionf();
-        private Quaternionf mTempQuatB = new Quaternionf();
-
         public SphericalInterpolator(float[] keyData, int keySize)
         {
             super(keyData, keySize);
@@ -25,6 +22,11 @@ public final class SXRQuatAnimation extends SXRFloatAnimation
 
         public float[] getKeyData() { return mKeyData; }
 
+        /*
+         * Spherical interpolation between two keys, computed with
+         * local variables only so the interpolator can be shared
+         * by animations evaluated on different threads.
+         */
         public boolean interpolateValues(int keyIndex, float[] values, float factor)
         {
             int firstOfs = getKeyOffset(keyIndex);
@@ -36,19 +38,36 @@ public final class SXRQuatAnimation extends SXRFloatAnimation
             }
             ++firstOfs;
             ++lastOfs;
-            mTempQuatA.x = mKeyData[firstOfs + 0];
-            mTempQuatA.y = mKeyData[firstOfs + 1];
-            mTempQuatA.z = mKeyData[firstOfs + 2];
-            mTempQuatA.w = mKeyData[firstOfs + 3];
-            mTempQuatB.x = mKeyData[lastOfs + 0];
-            mTempQuatB.y = mKeyData[lastOfs + 1];
-            mTempQuatB.z = mKeyData[lastOfs + 2];
-            mTempQuatB.w = mKeyData[lastOfs + 3];
-            mTempQuatA.slerp(mTempQuatB, factor, mTempQuatA);
-            values[0] = mTempQuatA.x;
-            values[1] = mTempQuatA.y;
-            values[2] = mTempQuatA.z;
-            values[3] = mTempQuatA.w;
+            float ax = mKeyData[firstOfs + 0];
+            float ay = mKeyData[firstOfs + 1];
+            float az = mKeyData[firstOfs + 2];
+            float aw = mKeyData[firstOfs + 3];
+            float bx = mKeyData[lastOfs + 0];
+            float by = mKeyData[lastOfs + 1];
+            float bz = mKeyData[lastOfs + 2];
+            float bw = mKeyData[lastOfs + 3];
+            float cosom = ax * bx + ay * by + az * bz + aw * bw;
+            float absCosom = Math.abs(cosom);
+            float scale0, scale1;
+
+            if (1.0f - absCosom > 1E-6f)
+            {
+                float sinSqr = 1.0f - absCosom * absCosom;
+                float sinom = (float) (1.0 / Math.sqrt(sinSqr));
+                float omega = (float) Math.atan2(sinSqr * sinom, absCosom);
+                scale0 = (float) (Math.sin((1.0 - factor) * omega) * sinom);
+                scale1 = (float) (Math.sin(factor * omega) * sinom);
+            }
+            else
+            {
+                scale0 = 1.0f - factor;
+                scale1 = factor;
+            }
+            scale1 = (cosom >= 0.0f) ? scale1 : -scale1;
+            values[0] = scale0 * ax + scale1 * bx;
+            values[1] = scale0 * ay + scale1 * by;
+            values[2] = scale0 * az + scale1 * bz;
+            values[3] = scale0 * aw + scale1 * bw;
             return true;
         }
     };
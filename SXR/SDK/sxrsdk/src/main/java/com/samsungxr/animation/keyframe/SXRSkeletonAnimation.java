@@ -19,6 +19,7 @@ import com.samsungxr.PrettyPrint;
 import com.samsungxr.SXRHybridObject;
 import com.samsungxr.SXRNode;
 import com.samsungxr.animation.SXRAnimation;
+import com.samsungxr.animation.SXRAnimationEngine;
 import com.samsungxr.animation.SXRPose;
 import com.samsungxr.animation.SXRSkeleton;
 import com.samsungxr.utility.Log;
@@ -49,15 +50,37 @@ import java.util.List;
  * @see com.samsungxr.animation.SXRSkin
  * @see SXRPose
  */
-public class SXRSkeletonAnimation extends SXRAnimation implements PrettyPrint
+public class SXRSkeletonAnimation extends SXRAnimation
+        implements PrettyPrint, SXRAnimationEngine.IPoseEvaluator
 {
     private SXRSkeleton mSkeleton = null;
+    private final Matrix4f mTempMtx = new Matrix4f();
+    private final float[] mPosKey = new float[] { 0, 0, 0 };
+    private final float[] mRotKey = new float[] { 0, 0, 0, 1 };
+    private final float[] mScaleKey = new float[] { 1, 1, 1 };
+
+    /**
+     * Largest position error allowed by {@link #compress()}.
+     */
+    public static final float DEFAULT_POSITION_TOLERANCE = 0.001f;
+
+    /**
+     * Largest rotation error allowed by {@link #compress()}, in radians.
+     */
+    public static final float DEFAULT_ROTATION_TOLERANCE = 0.001f;
+
+    /**
+     * Largest scale error allowed by {@link #compress()}.
+     */
+    public static final float DEFAULT_SCALE_TOLERANCE = 0.001f;
 
     /**
      * List of animation channels for each of the
-     * animated bones.
+     * animated bones. {@link #compress} replaces the whole
+     * array so a thread evaluating the pose always sees
+     * a consistent set of channels.
      */
-    protected SXRAnimationChannel[] mBoneChannels;
+    protected volatile SXRAnimationChannel[] mBoneChannels;
 
     /**
      * Create a skeleton animation with bones from the given hierarchy.
@@ -94,8 +117,10 @@ public class SXRSkeletonAnimation extends SXRAnimation implements PrettyPrint
     /**
      * Create a skeleton animation which shares animation data with another.
      * <p>
-     * Both skeleton animations will share the same animation channels.
+     * Both skeleton animations will share the same animation channels
+     * until one of them is compressed.
      * @see SXRAnimationChannel
+     * @see #compress(float, float, float, float)
      */
     public SXRSkeletonAnimation(final SXRSkeletonAnimation src)
     {
@@ -159,6 +184,68 @@ public class SXRSkeletonAnimation extends SXRAnimation implements PrettyPrint
         return null;
     }
 
+    /**
+     * Replace the animation channels with compressed channels
+     * using the default tolerances. Each channel is sampled at
+     * the rate of its keys, so keys at 60 or 120 per second are
+     * not lost.
+     * @return number of bytes used by the compressed keys.
+     * @see #compress(float, float, float, float)
+     */
+    public int compress()
+    {
+        return compress(0, DEFAULT_POSITION_TOLERANCE,
+                        DEFAULT_ROTATION_TOLERANCE, DEFAULT_SCALE_TOLERANCE);
+    }
+
+    /**
+     * Replace the animation channels with compressed channels.
+     * <p>
+     * The keys are resampled at a uniform rate and quantized.
+     * Keys which are constant or can be interpolated within the
+     * given tolerances are removed. The compressed channels are
+     * put in a new array, skeleton animations copied from this one
+     * before it was compressed keep the original channels.
+     * @param sampleRate     number of samples per second, or 0 to sample
+     *                       each channel at the rate of its keys.
+     * @param posTolerance   largest allowed position error.
+     * @param rotTolerance   largest allowed rotation error in radians.
+     * @param scaleTolerance largest allowed scale error.
+     * @return number of bytes used by the compressed keys.
+     * @see SXRCompressedAnimationChannel
+     * @see SXRAnimationChannel#compress(float, float, float)
+     */
+    public int compress(float sampleRate, float posTolerance, float rotTolerance, float scaleTolerance)
+    {
+        SXRAnimationChannel[] channels = mBoneChannels;
+        int size = 0;
+
+        if (channels == null)
+        {
+            return 0;
+        }
+        SXRAnimationChannel[] compressed = new SXRAnimationChannel[channels.length];
+        for (int i = 0; i < channels.length; ++i)
+        {
+            SXRAnimationChannel channel = channels[i];
+
+            if (channel == null)
+            {
+                continue;
+            }
+            if (!(channel instanceof SXRCompressedAnimationChannel))
+            {
+                channel = (sampleRate > 0) ?
+                          channel.compress(sampleRate, posTolerance, rotTolerance, scaleTolerance) :
+                          channel.compress(posTolerance, rotTolerance, scaleTolerance);
+            }
+            compressed[i] = channel;
+            size += channel.getKeyDataSize();
+        }
+        mBoneChannels = compressed;
+        return size;
+    }
+
     /**
      * Create a skeleton from the target hierarchy which has the given bones.
      * <p>
@@ -238,6 +325,31 @@ public class SXRSkeletonAnimation extends SXRAnimation implements PrettyPrint
         }
     }
 
+    /**
+     * Compute the current pose of the skeleton without updating the bones.
+     * <p>
+     * Called by the {@link SXRAnimationEngine} from a worker thread
+     * when pose evaluation is done in parallel.
+     * @param timeInSec animation time in seconds.
+     * @see SXRAnimationEngine#setPoseEvaluationThreads(int)
+     */
+    public void evaluatePose(float timeInSec)
+    {
+        SXRSkeleton skel = getSkeleton();
+
+        if (skel.isEnabled())
+        {
+            synchronized (skel)
+            {
+                computePose(timeInSec, skel.getPose());
+            }
+        }
+    }
+
+    public SXRSkeleton getInputSkeleton() { return null; }
+
+    public boolean isPoseToBones() { return mSkeleton.isEnabled(); }
+
     /**
      * Compute the pose for the skeleton at the given time.
      * <p>
@@ -249,17 +361,18 @@ public class SXRSkeletonAnimation extends SXRAnimation implements PrettyPrint
      */
     public SXRPose computePose(float timeInSec, SXRPose pose)
     {
-        Matrix4f temp = new Matrix4f();
+        Matrix4f temp = mTempMtx;
         SXRSkeleton skel = getSkeleton();
         Vector3f rootOffset = skel.getRootOffset();
+        SXRAnimationChannel[] channels = mBoneChannels;
 
         for (int i = 0; i < skel.getNumBones(); ++i)
         {
-            SXRAnimationChannel channel = mBoneChannels[i];
+            SXRAnimationChannel channel = channels[i];
             if ((channel != null) &&
                 (skel.getBoneOptions(i) == SXRSkeleton.BONE_ANIMATE))
             {
-                channel.animate(timeInSec, temp);
+                channel.animate(timeInSec, temp, mPosKey, mRotKey, mScaleKey);
                 if (rootOffset != null)
                 {
                     temp.m30(rootOffset.x + temp.m30());
@@ -26,6 +26,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import com.samsungxr.SXRAndroidResource;
 import com.samsungxr.SXRAndroidResource.CancelableCallback;
@@ -48,6 +49,7 @@ import android.graphics.BitmapFactory;
 import android.graphics.BitmapFactory.Options;
 import android.graphics.BitmapRegionDecoder;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Point;
 import android.graphics.Rect;
@@ -142,6 +144,12 @@ class AsyncBitmapTexture {
      */
     private static final float MAXIMUM_IMAGE_FACTOR = 0.625f;
 
+    /**
+     * Bytes of decoded bitmaps kept for reuse, as a multiple of the "memory
+     * class"
+     */
+    private static final float BITMAP_POOL_FACTOR = 0.125f;
+
     /**
      * When {@link #fractionalDecode(FractionalDecodeShim, Options, int, int)}
      * reads large bitmaps one 'stripe' at a time, this is the maximum number of
@@ -160,6 +168,12 @@ class AsyncBitmapTexture {
      */
     protected static int maxImageSize = 1024 * 1024; // bytes
 
+    /**
+     * Bitmaps to decode into. Its size is set by {@link #setup(Context)}; the
+     * compiled in value holds a few thumbnails.
+     */
+    static final BitmapPool bitmapPool = new BitmapPool(4 * 1024 * 1024);
+
     /**
      * Either {@link #setup(Context)} or
      * {@link #setup(Context, ImageSizePolicy)} <em>should</em> be called before
@@ -194,6 +208,7 @@ class AsyncBitmapTexture {
         int heapSize = Memory.getMemoryClass();
         maxImageSize = (int) (heapSize * sizePolicy.getMaximumImageFactor());
         Log.d(TAG, "Set maxImageSize == %, d", maxImageSize);
+        bitmapPool.setMaxSize((long) (heapSize * BITMAP_POOL_FACTOR));
 
         gvrContext.runOnGlThread(new Runnable() {
 
@@ -333,7 +348,9 @@ class AsyncBitmapTexture {
 
             @Override
             public SXRBitmapImage convert(SXRContext gvrContext, Bitmap bitmap) {
-                return new SXRBitmapImage(gvrContext, bitmap);
+                SXRBitmapImage image = new SXRBitmapImage(gvrContext, bitmap);
+                bitmapPool.putAfterUpload(image, bitmap);
+                return image;
             }
         };
 
@@ -398,9 +415,22 @@ class AsyncBitmapTexture {
         int size = width * height * 4;
         int t;
 
-        if (depth == 24)
+        if ((depth != 24) && (depth != 32))
+        {
+            return null;
+        }
+        rgb = rgbBin.get();
+        if ((rgb == null) || (rgb.length < size))
         {
             rgb = new byte[size];
+        }
+        else
+        {
+            // rows missing from a short file stay transparent
+            Arrays.fill(rgb, 0, size, (byte) 0);
+        }
+        if (depth == 24)
+        {
             data = new byte[width * 3];
 
             if ((descriptor & RIGHT_ORIGIN) == 0)
@@ -494,9 +524,8 @@ class AsyncBitmapTexture {
                 }
             }
         }
-        else if (depth == 32)
+        else
         {
-            rgb = new byte[width * height * 4];
             data = new byte[width * 4];
 
             if ((descriptor & RIGHT_ORIGIN) == 0)
@@ -590,12 +619,13 @@ class AsyncBitmapTexture {
                 }
             }
         }
-        else
+        bitmap = bitmapPool.get(width, height);
+        if (bitmap == null)
         {
-            return null;
+            bitmap = Bitmap.createBitmap(width, height, Config.ARGB_8888);
         }
-        bitmap = Bitmap.createBitmap(width, height, Config.ARGB_8888);
-        bitmap.copyPixelsFromBuffer(ByteBuffer.wrap(rgb));
+        bitmap.copyPixelsFromBuffer(ByteBuffer.wrap(rgb, 0, size));
+        rgbBin.put(rgb);
         if(depth == 24) {
             bitmap.setHasAlpha(false);
         }
@@ -649,6 +679,8 @@ class AsyncBitmapTexture {
             int requestedHeight, final boolean canShrink,
             Bitmap possibleAlternative, boolean closeStream) {
         BitmapFactory.Options options = standardBitmapFactoryOptions();
+        Bitmap pooled = null;
+        Bitmap result = null;
 
         try {
             DecodeHelper helper;
@@ -663,20 +695,39 @@ class AsyncBitmapTexture {
                 return possibleAlternative;
             }
 
-            do {
+            pooled = options.inBitmap = bitmapPool.get(
+                    divideRoundingUp(options.outWidth, options.inSampleSize),
+                    divideRoundingUp(options.outHeight, options.inSampleSize));
+
+            while (true) {
                 try {
-                    return helper.decode(options, requestedWidth,
+                    result = helper.decode(options, requestedWidth,
                             requestedHeight);
+                    return result;
                 } catch (OutOfMemoryError m) {
+                    if (!canShrink) {
+                        break;
+                    }
                     // Rewind stream to read again
                     helper.rewind();
                     options.inSampleSize *= 2; // try again, at half-size
+                } catch (IllegalArgumentException e) {
+                    if (pooled == null || options.inBitmap != pooled) {
+                        throw e;
+                    }
+                    // The image does not fit in the pooled bitmap: try again,
+                    // into a new one
+                    helper.rewind();
+                    options.inBitmap = null;
                 }
-            } while (canShrink);
+            }
 
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
+            if (pooled != null && pooled != result) {
+                bitmapPool.put(pooled);
+            }
             if (options != null && options.inTempStorage != null) {
                 bufferBin.put(options.inTempStorage);
             }
@@ -716,6 +767,8 @@ class AsyncBitmapTexture {
         options.inPurgeable = false;
         options.inDither = false;
         options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        // mutable, to go back to the bitmapPool once uploaded
+        options.inMutable = true;
         options.inTempStorage = bufferBin.get();
         if (options.inTempStorage == null) {
             options.inTempStorage = new byte[DECODE_BUFFER_SIZE];
@@ -894,8 +947,15 @@ class AsyncBitmapTexture {
             int sliceRows = (int) (rawHeight / slices);
             float scaledSliceRows = sliceRows / options.inSampleSize * scale;
 
-            Bitmap result = Bitmap.createBitmap((int) (sampledWidth * scale),
-                    (int) (sampledHeight * scale), Config.ARGB_8888);
+            int resultWidth = (int) (sampledWidth * scale);
+            int resultHeight = (int) (sampledHeight * scale);
+            Bitmap result = bitmapPool.get(resultWidth, resultHeight);
+            if (result == null) {
+                result = Bitmap.createBitmap(resultWidth, resultHeight,
+                        Config.ARGB_8888);
+            } else {
+                result.eraseColor(Color.TRANSPARENT);
+            }
             Canvas canvas = new Canvas(result);
             Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
 
@@ -917,7 +977,8 @@ class AsyncBitmapTexture {
                 decode.offset(0, sliceRows);
                 target.offset(0, scaledSliceRows);
             }
-            slice.recycle();
+            options.inBitmap = null;
+            bitmapPool.put(slice);
 
             // log(TAG,
             // "fractionalDecode: result.hasAlpha() == %b, slices' hasAlpha == %b",
@@ -932,6 +993,10 @@ class AsyncBitmapTexture {
         }
     }
 
+    private static int divideRoundingUp(int dividend, int divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+
     private static int roundUp(float f) {
         // The (int) cast rounds towards 0
         // http://docs.oracle.com/javase/specs/jls/se7/html/jls-5.html#jls-5.1.3
@@ -1074,6 +1139,12 @@ class AsyncBitmapTexture {
     private static RecycleBin<byte[]> bufferBin = RecycleBin.<byte[]> soft()
             .synchronize();
 
+    /**
+     * A soft referenced set of TGA pixel arrays, of any size.
+     */
+    private static RecycleBin<byte[]> rgbBin = RecycleBin.<byte[]> soft()
+            .synchronize();
+
     /*
      * Image size policy
      */
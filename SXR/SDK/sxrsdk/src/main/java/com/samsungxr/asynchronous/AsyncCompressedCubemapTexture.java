@@ -81,6 +81,12 @@ class AsyncCompressedCubemapTexture {
                         return new AsyncLoadCompressedCubemapTextureResource(gvrContext,
                                 request, cancelableCallback, priority);
                     }
+
+                    @Override
+                    int getLoadClass() {
+                        // the data is mapped and uploaded as is, reading it is the slow part
+                        return LoaderExecutor.IO_BOUND;
+                    }
                 });
     }
 
@@ -72,6 +72,12 @@ class AsyncCompressedTexture {
                         return new AsyncLoadTextureResource(gvrContext, request,
                                 callback, priority);
                     }
+
+                    @Override
+                    int getLoadClass() {
+                        // the data is mapped and uploaded as is, reading it is the slow part
+                        return LoaderExecutor.IO_BOUND;
+                    }
                 });
     }
 
@@ -105,6 +111,11 @@ class AsyncCompressedTexture {
             SXRCompressedTextureLoader loader = resource.getCompressedLoader();
             CompressedTexture compressedTexture = null;
             try {
+                compressedTexture = CompressedTexture.map(resource, loader);
+                if (compressedTexture != null) {
+                    Log.d("ASYNC", "mapped compressed texture %s", resource);
+                    return compressedTexture;
+                }
                 compressedTexture = CompressedTexture
                         .parse(resource.getStream(), false, loader);
                 Log.d("ASYNC", "parse compressed texture %s", resource);
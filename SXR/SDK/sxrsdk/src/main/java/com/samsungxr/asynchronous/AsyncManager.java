@@ -50,6 +50,25 @@ public class AsyncManager {
         mScheduler = scheduler;
     }
 
+    /**
+     * Gets the executor which runs the loads of the default scheduler, for its
+     * queue depths and timings. Loads go through it only if the default
+     * scheduler is in use.
+     * @return The executor of the default scheduler.
+     */
+    public LoaderExecutor getLoaderExecutor() {
+        return Throttler.get().getExecutor();
+    }
+
+    /**
+     * Gets the pool of bitmaps which asynchronous bitmap texture loads decode
+     * into, for its size and reuse counts.
+     * @return The bitmap pool.
+     */
+    public BitmapPool getBitmapPool() {
+        return AsyncBitmapTexture.bitmapPool;
+    }
+
     /**
      * Loaders call this method to register themselves. This method can be called by
      * loaders provided by the application.
@@ -0,0 +1,293 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.asynchronous;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import com.samsungxr.SXRBitmapImage;
+import com.samsungxr.SXRContext;
+import com.samsungxr.SXRDrawFrameListener;
+import com.samsungxr.utility.Log;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+
+/**
+ * Mutable {@code ARGB_8888} bitmaps kept for the bitmap texture loader to
+ * decode into, through {@link android.graphics.BitmapFactory.Options#inBitmap
+ * inBitmap}, instead of allocating a new bitmap for each image.
+ * <p>
+ * Bitmaps are kept in buckets by power of two of their allocation size, so a
+ * request only looks at bitmaps which are large enough without being much
+ * larger. When the bitmaps in the pool take more than its
+ * {@linkplain #setMaxSize(long) maximum size}, the ones returned the longest
+ * time ago are recycled.
+ * <p>
+ * A loaded bitmap goes back to the pool once its image has been copied to the
+ * GPU.
+ *
+ * @see AsyncManager#getBitmapPool()
+ */
+public final class BitmapPool {
+    private static final String TAG = Log.tag(BitmapPool.class);
+
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /*
+     * Bucket k holds the bitmaps whose allocation size is in
+     * (2^(k - 1), 2^k] bytes.
+     */
+    private static final int BUCKET_COUNT = 32;
+
+    private final ArrayDeque<Bitmap>[] mBuckets;
+    // oldest first, for eviction
+    private final LinkedHashSet<Bitmap> mLru = new LinkedHashSet<Bitmap>();
+    private long mMaxSize;
+    private long mSize;
+
+    private long mHitCount;
+    private long mMissCount;
+    private long mPutCount;
+    private long mEvictionCount;
+
+    private final List<PendingUpload> mPendingUploads = new ArrayList<PendingUpload>();
+    private SXRContext mListenerContext;
+
+    /**
+     * @param maxSize
+     *            Maximum number of bytes in the bitmaps kept
+     */
+    @SuppressWarnings("unchecked")
+    BitmapPool(long maxSize) {
+        mMaxSize = maxSize;
+        mBuckets = new ArrayDeque[BUCKET_COUNT];
+        for (int k = 0; k < BUCKET_COUNT; ++k) {
+            mBuckets[k] = new ArrayDeque<Bitmap>();
+        }
+    }
+
+    /**
+     * Take a bitmap out of the pool and reconfigure it to the size.
+     *
+     * @return An {@code ARGB_8888} bitmap of the size, or {@code null} if the
+     *         pool has none large enough
+     */
+    synchronized Bitmap get(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        long bytes = (long) width * height * BYTES_PER_PIXEL;
+        int k = bucketOf(bytes);
+        Bitmap bitmap = null;
+
+        if (k < BUCKET_COUNT) {
+            // newest first: the most likely to still be in the CPU cache
+            for (Iterator<Bitmap> it = mBuckets[k].descendingIterator(); it.hasNext();) {
+                Bitmap candidate = it.next();
+                if (candidate.getAllocationByteCount() >= bytes) {
+                    it.remove();
+                    bitmap = candidate;
+                    break;
+                }
+            }
+            // anything in the next bucket is large enough
+            if (bitmap == null && k + 1 < BUCKET_COUNT) {
+                bitmap = mBuckets[k + 1].pollLast();
+            }
+        }
+
+        if (bitmap == null) {
+            ++mMissCount;
+            return null;
+        }
+        ++mHitCount;
+        mLru.remove(bitmap);
+        mSize -= bitmap.getAllocationByteCount();
+
+        bitmap.reconfigure(width, height, Config.ARGB_8888);
+        bitmap.setHasAlpha(true);
+        return bitmap;
+    }
+
+    /**
+     * Return a bitmap to the pool. Bitmaps which cannot be decoded into
+     * (immutable or recycled) are ignored.
+     */
+    synchronized void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()
+                || mLru.contains(bitmap)) {
+            return;
+        }
+        int bytes = bitmap.getAllocationByteCount();
+        int k = bucketOf(bytes);
+        if (bytes > mMaxSize || k >= BUCKET_COUNT) {
+            return;
+        }
+
+        ++mPutCount;
+        mBuckets[k].offerLast(bitmap);
+        mLru.add(bitmap);
+        mSize += bytes;
+        trimToSize(mMaxSize);
+    }
+
+    /**
+     * Return a bitmap to the pool once {@code image} has been copied to the
+     * GPU, which is checked on the GL thread after each frame. Until then the
+     * image still references the bitmap. If the image is garbage collected
+     * first the bitmap is not returned.
+     */
+    synchronized void putAfterUpload(SXRBitmapImage image, Bitmap bitmap) {
+        if (bitmap == null || !bitmap.isMutable()) {
+            return;
+        }
+        mPendingUploads.add(new PendingUpload(image, bitmap));
+        if (mListenerContext == null) {
+            mListenerContext = image.getSXRContext();
+            mListenerContext.registerDrawFrameListener(mUploadListener);
+        }
+    }
+
+    private final SXRDrawFrameListener mUploadListener = new SXRDrawFrameListener() {
+        @Override
+        public void onDrawFrame(float frameTime) {
+            synchronized (BitmapPool.this) {
+                checkUploads();
+            }
+        }
+
+        private void checkUploads() {
+            for (Iterator<PendingUpload> it = mPendingUploads.iterator(); it.hasNext();) {
+                PendingUpload pending = it.next();
+                SXRBitmapImage image = pending.mImage.get();
+
+                if (image == null) {
+                    it.remove();
+                } else if (image.isBitmapReleased()) {
+                    it.remove();
+                    put(pending.mBitmap);
+                }
+            }
+            if (mPendingUploads.isEmpty()) {
+                mListenerContext.unregisterDrawFrameListener(this);
+                mListenerContext = null;
+            }
+        }
+    };
+
+    private static final class PendingUpload {
+        private final WeakReference<SXRBitmapImage> mImage;
+        private final Bitmap mBitmap;
+
+        PendingUpload(SXRBitmapImage image, Bitmap bitmap) {
+            mImage = new WeakReference<SXRBitmapImage>(image);
+            mBitmap = bitmap;
+        }
+    }
+
+    private void trimToSize(long maxSize) {
+        Iterator<Bitmap> it = mLru.iterator();
+        while (mSize > maxSize && it.hasNext()) {
+            Bitmap bitmap = it.next();
+            int bytes = bitmap.getAllocationByteCount();
+
+            it.remove();
+            mBuckets[bucketOf(bytes)].remove(bitmap);
+            mSize -= bytes;
+            ++mEvictionCount;
+            bitmap.recycle();
+        }
+    }
+
+    private static int bucketOf(long bytes) {
+        return 64 - Long.numberOfLeadingZeros(Math.max(bytes, 1) - 1);
+    }
+
+    /**
+     * Sets the maximum number of bytes in the bitmaps kept, recycling the
+     * oldest bitmaps if the pool is now too large.
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        mMaxSize = Math.max(maxSize, 0);
+        trimToSize(mMaxSize);
+        Log.d(TAG, "Bitmap pool max size %,d", mMaxSize);
+    }
+
+    /**
+     * @return Maximum number of bytes in the bitmaps kept
+     */
+    public synchronized long getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Recycle all the bitmaps in the pool.
+     */
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    /*
+     * Statistics
+     */
+
+    /**
+     * @return Number of bytes in the bitmaps in the pool
+     */
+    public synchronized long getSize() {
+        return mSize;
+    }
+
+    /**
+     * @return Number of bitmaps in the pool
+     */
+    public synchronized int getCount() {
+        return mLru.size();
+    }
+
+    /**
+     * @return Number of requests given a bitmap from the pool
+     */
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * @return Number of requests for which the pool had no bitmap large enough
+     */
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @return Number of bitmaps returned to the pool
+     */
+    public synchronized long getPutCount() {
+        return mPutCount;
+    }
+
+    /**
+     * @return Number of bitmaps recycled to stay under the maximum size
+     */
+    public synchronized long getEvictionCount() {
+        return mEvictionCount;
+    }
+}
@@ -21,6 +21,7 @@ import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
+import com.samsungxr.SXRAndroidResource;
 import com.samsungxr.SXRCompressedImage;
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRTextureParameters;
@@ -34,6 +35,11 @@ import android.opengl.GLES20;
  * file contents in memory: don't hold onto them any longer than necessary.
  * 
  * <p>
+ * Files and uncompressed assets are {@linkplain #map(SXRAndroidResource, SXRCompressedTextureLoader)
+ * memory-mapped} instead of being read onto the heap: the headers are parsed
+ * in place and each mip level is passed to GL straight from the mapping.
+ * 
+ * <p>
  * Get an instance by calling one of the {@code load()} overloads; register a
  * new loader by calling
  * {@link SXRCompressedTextureLoader#register()}
@@ -118,20 +124,97 @@ public class CompressedTexture {
         return data;
     }
 
+    /**
+     * Find the texture data for each mip level.
+     * 
+     * Offsets are from the start of the buffer returned by
+     * {@link #getData()}, which is also the start of the backing array for
+     * heap buffers. The default implementation describes a single level
+     * starting at {@link #getArrayOffset()}: loaders for formats with
+     * mipmap chains override it.
+     * 
+     * @param offsets
+     *            Receives the offset of each level, {@link #levels} entries
+     * @param sizes
+     *            Receives the number of bytes in each level
+     * @return Number of levels found
+     */
+    protected int computeLevels(int[] offsets, int[] sizes) {
+        offsets[0] = dataOffset;
+        sizes[0] = (imageSize > 0) ? imageSize : data.limit() - dataOffset;
+        return 1;
+    }
+
+    /**
+     * Get the texture data for a mip level, without copying it.
+     * 
+     * @param level
+     *            Mip level, 0 is the largest.
+     * @return A read-only buffer containing just the data for that level.
+     */
+    public ByteBuffer getLevelData(int level) {
+        int[] offsets = new int[Math.max(1, levels)];
+        int[] sizes = new int[offsets.length];
+        int numLevels = computeLevels(offsets, sizes);
+
+        if ((level < 0) || (level >= numLevels)) {
+            throw new IndexOutOfBoundsException("Mip level " + level
+                    + " out of range 0.." + (numLevels - 1));
+        }
+        ByteBuffer slice = data.asReadOnlyBuffer();
+        slice.limit(offsets[level] + sizes[level]);
+        slice.position(offsets[level]);
+        return slice.slice();
+    }
+
+    /**
+     * Is the texture data memory-mapped (or otherwise off the Java heap)?
+     */
+    public boolean isMapped() {
+        return !data.hasArray();
+    }
+
+    /**
+     * Upload mipmapped textures which are memory-mapped one level at a
+     * time, smallest first.
+     * 
+     * The texture can be used as soon as the smallest level has been
+     * uploaded; the larger levels are uploaded over the following frames.
+     * This is on by default.
+     * 
+     * @param smallestFirst
+     *            true to stream mip levels, false to upload all the levels
+     *            at once.
+     */
+    public static void setStreamMipLevels(boolean smallestFirst) {
+        sStreamMipLevels = smallestFirst;
+    }
+
     SXRCompressedImage toTexture(SXRContext gvrContext, int quality) {
-        SXRCompressedImage tex = new SXRCompressedImage(gvrContext, width,
-                                                        height, imageSize, internalformat, getArray(), levels, quality);
-        tex.setDataOffsets(new int[] { dataOffset });
+        int[] offsets = new int[Math.max(1, levels)];
+        int[] sizes = new int[offsets.length];
+        int numLevels = computeLevels(offsets, sizes);
+        SXRCompressedImage tex;
+
+        if (numLevels < offsets.length) {
+            offsets = Arrays.copyOf(offsets, numLevels);
+            sizes = Arrays.copyOf(sizes, numLevels);
+        }
+        if (data.hasArray()) {
+            tex = new SXRCompressedImage(gvrContext, width, height, imageSize,
+                    internalformat, getArray(), numLevels, quality);
+        } else {
+            tex = new SXRCompressedImage(gvrContext, width, height, imageSize,
+                    internalformat, data, numLevels, quality);
+        }
+        tex.setDataOffsets(offsets, sizes, sStreamMipLevels);
         return tex;
     }
 
     // Texture parameters
     SXRCompressedImage toTexture(SXRContext gvrContext, int quality,
                                  SXRTextureParameters textureParameters) {
-        SXRCompressedImage tex = new SXRCompressedImage(gvrContext, width,
-                                                        height, imageSize, internalformat, getArray(), levels, quality);
-        tex.setDataOffsets(new int[] { dataOffset });
-        return tex;
+        return toTexture(gvrContext, quality);
     }
 
     /**
@@ -216,6 +299,30 @@ public class CompressedTexture {
         }
     }
 
+    /**
+     * Maps a resource into memory and parses it in place, without reading
+     * the texture data onto the Java heap. The GL upload reads directly from
+     * the mapped file.
+     * 
+     * @param resource
+     *            A file, or an uncompressed asset or raw resource
+     * @param loader
+     *            The loader that {@linkplain #sniff(InputStream) recognized}
+     *            the resource
+     * @return The compressed texture, or {@code null} if the resource
+     *         cannot be mapped
+     * @throws IOException
+     */
+    static CompressedTexture map(SXRAndroidResource resource,
+            SXRCompressedTextureLoader loader) throws IOException {
+        ByteBuffer data = resource.mapBuffer();
+
+        if (data == null) {
+            return null;
+        }
+        return loader.parse(data, new Reader(data));
+    }
+
     static CompressedTexture parse(InputStream stream, boolean closeStream,
             SXRCompressedTextureLoader loader) throws IOException {
         byte[] data;
@@ -271,6 +378,8 @@ public class CompressedTexture {
         return capacity == length ? result : Arrays.copyOf(result, length);
     }
 
+    private static volatile boolean sStreamMipLevels = true;
+
     private static final int INITIAL_CAPACITY = 4 * 1024;
     private static final int BUFFER_SIZE = 4 * 1024;
 }
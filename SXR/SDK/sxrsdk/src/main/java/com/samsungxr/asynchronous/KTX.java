@@ -18,8 +18,6 @@ package com.samsungxr.asynchronous;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
-import com.samsungxr.SXRCompressedImage;
-import com.samsungxr.SXRContext;
 import com.samsungxr.utility.Log;
 import com.samsungxr.utility.RuntimeAssertion;
 
@@ -65,6 +63,11 @@ class KTX extends SXRCompressedTextureLoader {
 
     @Override
     public CompressedTexture parse(byte[] data, Reader reader) {
+        return parse(ByteBuffer.wrap(data), reader);
+    }
+
+    @Override
+    public CompressedTexture parse(ByteBuffer data, Reader reader) {
         reader.skip(SIGNATURE.length * Reader.INTEGER_BYTES);
 
         int endianness = reader.readLE(Reader.INTEGER_BYTES);
@@ -125,11 +128,13 @@ class KTX extends SXRCompressedTextureLoader {
         int headerSize = (SIGNATURE.length + 13) * Reader.INTEGER_BYTES
                 + bytesOfKeyValueData;
 
-        ByteBuffer buffer = ByteBuffer.wrap(data, headerSize, data.length
-                - headerSize);
+        ByteBuffer buffer = data.duplicate();
+        buffer.position(headerSize);
+
+        // 0 levels means the app should generate mipmaps
         return new KtxCompressedTexture(
         /* glBaseInternalFormat */glInternalFormat, pixelWidth, pixelHeight,
-                numberOfMipmapLevels, buffer, littleEndian);
+                Math.max(1, numberOfMipmapLevels), buffer, littleEndian);
     }
 
     private static class KtxReader {
@@ -158,65 +163,26 @@ class KTX extends SXRCompressedTextureLoader {
             this.littleEndian = littleEndian;
         }
 
+        /*
+         * Each mip level is preceded by its UInt32 imageSize and padded to a
+         * multiple of 4 bytes.
+         */
         @Override
-        public SXRCompressedImage toTexture(SXRContext gvrContext, int quality) {
-
-            ByteBuffer data = getData();
-            ByteOrder defaultOrder = data.order();
-            ByteOrder dataOrder = littleEndian ? ByteOrder.LITTLE_ENDIAN
-                    : ByteOrder.BIG_ENDIAN;
-            int[]   outOffsets = new int[levels];
-
-            for (int fileLevel = 0; fileLevel < levels; ++fileLevel)
-            {
-                data.order(dataOrder);
-                int imageSize = data.getInt();
-                data.order(defaultOrder);
+        protected int computeLevels(int[] offsets, int[] sizes) {
+            ByteBuffer data = getData().duplicate();
+            int position = getArrayOffset();
+
+            data.order(littleEndian ? ByteOrder.LITTLE_ENDIAN
+                    : ByteOrder.BIG_ENDIAN);
+            for (int level = 0; level < levels; ++level) {
+                int imageSize = data.getInt(position);
                 int imagePadding = (4 - (imageSize & 0x03)) & 0x03;
 
-                outOffsets[fileLevel] = data.position();
-                data.position(data.position() + imageSize + imagePadding);
+                offsets[level] = position + Reader.INTEGER_BYTES;
+                sizes[level] = imageSize;
+                position += Reader.INTEGER_BYTES + imageSize + imagePadding;
             }
-            SXRCompressedImage result = new SXRCompressedImage(gvrContext,
-                                                               width, height, imageSize, internalformat, data.array(), levels, quality);
-            result.setDataOffsets(outOffsets);
-/*
-            SXRCompressedImage result = new SXRCompressedImage(gvrContext,
-                    SXRCompressedImage.GL_TARGET, levels, quality);
-            result.rebind();
-
-            for (int fileLevel = 0; fileLevel < levels; ++fileLevel) {
-                data.order(dataOrder);
-                int imageSize = data.getInt();
-                data.order(defaultOrder);
-                if (fileLevel == 0)
-                {
-                    outData = new byte[imageSize * 2];
-                }
-
-                int imagePadding = (4 - (imageSize & 0x03)) & 0x03;
-
-                Log.d(TAG,
-                        "Creating level %d as %dx%d, internalformat = %x; imageSize = %d (imagePadding = %d), position = %d",
-                        fileLevel, //
-                        width >>> fileLevel, height >>> fileLevel, //
-                        internalformat, imageSize, imagePadding, //
-                        data.position());
-                System.arraycopy(data, data.position(), outData, outOffset, imageSize);
-                outOffset += imageSize;
-                outSize += imageSize >> 1;
-                // Note that this call does NOT advance the Buffer position
-                GLES30.glCompressedTexImage2D(GL_TEXTURE_2D, fileLevel,
-                        internalformat, Math.max(1, width >> fileLevel),
-                        Math.max(1, height >> fileLevel), 0, imageSize, data);
-                data.position(data.position() + imageSize + imagePadding);
-            }
-            SXRCompressedImage result2 = new SXRCompressedImage(gvrContext,
-                    SXRCompressedImage.GL_TARGET, width, height, outSize, outData, 0, levels, quality);
-            result.unbind();
-*/
-            return result;
+            return levels;
         }
-
     }
 }
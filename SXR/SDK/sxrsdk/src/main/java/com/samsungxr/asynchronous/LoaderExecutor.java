@@ -0,0 +1,343 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.asynchronous;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.samsungxr.SXRContext;
+import com.samsungxr.utility.Log;
+import com.samsungxr.utility.Threads.Cancelable;
+
+/**
+ * Runs the resource loads of the default {@link Scheduler} on a work-stealing
+ * {@link ForkJoinPool}.
+ * <p>
+ * Each load belongs to a class, {@link #IO_BOUND} or {@link #DECODE_BOUND},
+ * with its own limit on the loads running at the same time, so loads waiting
+ * for their streams do not hold back the decoders. Within a class, loads wait
+ * in priority lanes and the newest load of the highest lane runs first.
+ * Right before running, a load is asked if it is
+ * {@linkplain Cancelable#stillWanted() still wanted}; if not it is dropped
+ * without being decoded.
+ * <p>
+ * Queuing, rescheduling and picking the next load do not lock.
+ *
+ * @see AsyncManager#getLoaderExecutor()
+ */
+public final class LoaderExecutor {
+    /**
+     * Loads which mostly wait for their stream, like compressed textures,
+     * which are read as they are.
+     */
+    public static final int IO_BOUND = 0;
+
+    /**
+     * Loads which mostly use the CPU, like decoding images and parsing meshes.
+     */
+    public static final int DECODE_BOUND = 1;
+
+    private static final int CLASS_COUNT = 2;
+
+    /*
+     * Lanes, highest first: HIGHEST_PRIORITY, above default,
+     * DEFAULT_PRIORITY, below default, LOWEST_PRIORITY
+     */
+    private static final int LANE_COUNT = 5;
+
+    private static final String TAG = Log.tag(LoaderExecutor.class);
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+
+    /**
+     * A load in the executor, used to reschedule it.
+     */
+    static final class Ticket {
+        private final Cancelable mLoad;
+        private final int mLoadClass;
+        private final AtomicInteger mState = new AtomicInteger(QUEUED);
+        private final long mQueuedTime = System.nanoTime();
+        private volatile int mLane;
+
+        private Ticket(Cancelable load, int loadClass, int lane) {
+            mLoad = load;
+            mLoadClass = loadClass;
+            mLane = lane;
+        }
+    }
+
+    private final ForkJoinPool mPool;
+    private final int[] mLimits = new int[CLASS_COUNT];
+    private final AtomicInteger[] mActive = new AtomicInteger[CLASS_COUNT];
+    private final AtomicInteger[] mQueued = new AtomicInteger[CLASS_COUNT];
+    private final ConcurrentLinkedDeque<Ticket>[][] mLanes;
+
+    private final AtomicLong mSubmittedCount = new AtomicLong();
+    private final AtomicLong mDuplicateCount = new AtomicLong();
+    private final AtomicLong mCancelledCount = new AtomicLong();
+    private final AtomicLong mCompletedCount = new AtomicLong();
+    private final AtomicLong mTotalWaitTime = new AtomicLong();
+    private final AtomicLong mMaxWaitTime = new AtomicLong();
+    private final AtomicLong mTotalRunTime = new AtomicLong();
+
+    /**
+     * @param ioLimit maximum number of {@link #IO_BOUND} loads at the same time
+     * @param decodeLimit maximum number of {@link #DECODE_BOUND} loads at the same time
+     */
+    @SuppressWarnings("unchecked")
+    LoaderExecutor(int ioLimit, int decodeLimit) {
+        mLimits[IO_BOUND] = Math.max(ioLimit, 1);
+        mLimits[DECODE_BOUND] = Math.max(decodeLimit, 1);
+        mLanes = new ConcurrentLinkedDeque[CLASS_COUNT][LANE_COUNT];
+        for (int c = 0; c < CLASS_COUNT; ++c) {
+            mActive[c] = new AtomicInteger();
+            mQueued[c] = new AtomicInteger();
+            for (int lane = 0; lane < LANE_COUNT; ++lane) {
+                mLanes[c][lane] = new ConcurrentLinkedDeque<Ticket>();
+            }
+        }
+        mPool = new ForkJoinPool(mLimits[IO_BOUND] + mLimits[DECODE_BOUND],
+                sThreadFactory, null, true);
+    }
+
+    /**
+     * Queue a load.
+     *
+     * @param load
+     *            The load to run
+     * @param priority
+     *            Its priority, from {@link SXRContext#LOWEST_PRIORITY} to
+     *            {@link SXRContext#HIGHEST_PRIORITY}
+     * @param loadClass
+     *            {@link #IO_BOUND} or {@link #DECODE_BOUND}
+     * @return The ticket to {@linkplain #reschedule(Ticket, int) reschedule}
+     *         the load
+     */
+    Ticket submit(Cancelable load, int priority, int loadClass) {
+        if (loadClass != IO_BOUND) {
+            loadClass = DECODE_BOUND;
+        }
+        Ticket ticket = new Ticket(load, loadClass, getLane(priority));
+
+        mSubmittedCount.incrementAndGet();
+        mQueued[loadClass].incrementAndGet();
+        mLanes[loadClass][ticket.mLane].offerFirst(ticket);
+        dispatch(loadClass);
+        return ticket;
+    }
+
+    /**
+     * Called when the same resource is requested again while its load is
+     * pending: moves the load to a higher lane if the new request has a
+     * higher priority.
+     */
+    void reschedule(Ticket ticket, int priority) {
+        mDuplicateCount.incrementAndGet();
+
+        int lane = getLane(priority);
+        if ((lane < ticket.mLane) && (ticket.mState.get() == QUEUED)) {
+            /*
+             * The ticket stays in its old lane too, whichever copy is
+             * polled first runs it and the other one is skipped.
+             */
+            ticket.mLane = lane;
+            mLanes[ticket.mLoadClass][lane].offerFirst(ticket);
+            dispatch(ticket.mLoadClass);
+        }
+    }
+
+    private static int getLane(int priority) {
+        if (priority == SXRContext.HIGHEST_PRIORITY) {
+            return 0;
+        } else if (priority > SXRContext.DEFAULT_PRIORITY) {
+            return 1;
+        } else if (priority == SXRContext.DEFAULT_PRIORITY) {
+            return 2;
+        } else if (priority > SXRContext.LOWEST_PRIORITY) {
+            return 3;
+        }
+        return 4;
+    }
+
+    /**
+     * Start a worker for the class if it has loads waiting and is below its
+     * limit. Workers run loads until the class has none waiting, so one more
+     * worker for each load queued is enough.
+     */
+    private void dispatch(int loadClass) {
+        AtomicInteger active = mActive[loadClass];
+
+        while (mQueued[loadClass].get() > 0) {
+            int running = active.get();
+            if (running >= mLimits[loadClass]) {
+                return;
+            }
+            if (active.compareAndSet(running, running + 1)) {
+                mPool.execute(new Worker(loadClass));
+                return;
+            }
+        }
+    }
+
+    private Ticket poll(int loadClass) {
+        for (ConcurrentLinkedDeque<Ticket> lane : mLanes[loadClass]) {
+            Ticket ticket;
+            while ((ticket = lane.pollFirst()) != null) {
+                if (ticket.mState.compareAndSet(QUEUED, RUNNING)) {
+                    mQueued[loadClass].decrementAndGet();
+                    return ticket;
+                }
+                // the other copy of a rescheduled ticket
+            }
+        }
+        return null;
+    }
+
+    private void execute(Ticket ticket) {
+        long start = System.nanoTime();
+        long wait = start - ticket.mQueuedTime;
+
+        mTotalWaitTime.addAndGet(wait);
+        for (long max = mMaxWaitTime.get(); wait > max; max = mMaxWaitTime.get()) {
+            if (mMaxWaitTime.compareAndSet(max, wait)) {
+                break;
+            }
+        }
+
+        try {
+            if (!ticket.mLoad.stillWanted()) {
+                mCancelledCount.incrementAndGet();
+                return;
+            }
+            ticket.mLoad.run();
+        } catch (Throwable t) {
+            Log.e(TAG, "load %s failed: %s", ticket.mLoad, t);
+        }
+        mTotalRunTime.addAndGet(System.nanoTime() - start);
+        mCompletedCount.incrementAndGet();
+    }
+
+    private final class Worker implements Runnable {
+        private final int mLoadClass;
+
+        Worker(int loadClass) {
+            mLoadClass = loadClass;
+        }
+
+        @Override
+        public void run() {
+            for (Ticket ticket = poll(mLoadClass); ticket != null; ticket = poll(mLoadClass)) {
+                execute(ticket);
+            }
+            mActive[mLoadClass].decrementAndGet();
+            // a load may have been queued after the last poll while this worker still counted
+            dispatch(mLoadClass);
+        }
+    }
+
+    private static final ForkJoinPool.ForkJoinWorkerThreadFactory sThreadFactory =
+            new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+                @Override
+                public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                    ForkJoinWorkerThread thread =
+                            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("SXRLoader-" + thread.getPoolIndex());
+                    return thread;
+                }
+            };
+
+    /*
+     * Statistics
+     */
+
+    /**
+     * @return Maximum number of loads of the class running at the same time
+     */
+    public int getConcurrencyLimit(int loadClass) {
+        return mLimits[loadClass];
+    }
+
+    /**
+     * @return Number of loads of the class waiting to run
+     */
+    public int getQueueDepth(int loadClass) {
+        return mQueued[loadClass].get();
+    }
+
+    /**
+     * @return Number of workers running loads of the class
+     */
+    public int getActiveCount(int loadClass) {
+        return mActive[loadClass].get();
+    }
+
+    /**
+     * @return Number of loads queued
+     */
+    public long getSubmittedCount() {
+        return mSubmittedCount.get();
+    }
+
+    /**
+     * @return Number of requests merged with a load already pending for the
+     *         same resource
+     */
+    public long getDuplicateCount() {
+        return mDuplicateCount.get();
+    }
+
+    /**
+     * @return Number of loads dropped because they were no longer wanted
+     */
+    public long getCancelledCount() {
+        return mCancelledCount.get();
+    }
+
+    /**
+     * @return Number of loads which have run
+     */
+    public long getCompletedCount() {
+        return mCompletedCount.get();
+    }
+
+    /**
+     * @return Average time in nanoseconds between queuing a load and picking
+     *         it to run, including the dropped ones
+     */
+    public long getAverageWaitTime() {
+        long count = mCompletedCount.get() + mCancelledCount.get();
+        return count == 0 ? 0 : mTotalWaitTime.get() / count;
+    }
+
+    /**
+     * @return Longest time in nanoseconds a load waited to run
+     */
+    public long getMaxWaitTime() {
+        return mMaxWaitTime.get();
+    }
+
+    /**
+     * @return Average time in nanoseconds to run a load
+     */
+    public long getAverageRunTime() {
+        long count = mCompletedCount.get();
+        return count == 0 ? 0 : mTotalRunTime.get() / count;
+    }
+}
@@ -27,6 +27,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import com.samsungxr.SXRCompressedImage;
+import com.samsungxr.SXRGlTaskScheduler;
 import com.samsungxr.SXRAndroidResource;
 import com.samsungxr.SXRAndroidResource.CancelableCallback;
 import com.samsungxr.SXRAndroidResource.CompressedTextureCallback;
@@ -144,7 +145,7 @@ public class SXRAsynchronousResourceLoader {
                 public void run() {
                     callback.loaded(cached, resource);
                 }
-            });
+            }, SXRGlTaskScheduler.PRIORITY_LOW);
         }
         else
         {
@@ -379,7 +380,7 @@ public class SXRAsynchronousResourceLoader {
                 {
                     callback.loaded(cached, resource);
                 }
-            });
+            }, SXRGlTaskScheduler.PRIORITY_LOW);
         }
         else
         {
@@ -435,7 +436,7 @@ public class SXRAsynchronousResourceLoader {
                 {
                     callback.loaded(cached, resource);
                 }
-            });
+            }, SXRGlTaskScheduler.PRIORITY_LOW);
         }
         else
         {
@@ -115,6 +115,33 @@ public abstract class SXRCompressedTextureLoader {
      */
     public abstract CompressedTexture parse(byte[] data, Reader reader);
 
+    /**
+     * Parse the header of a memory-mapped file, and return a
+     * {@link CompressedTexture} which refers to the texture data in place.
+     * 
+     * Called instead of {@link #parse(byte[], Reader)} when the file can be
+     * {@linkplain com.samsungxr.SXRAndroidResource#mapBuffer() mapped}. The
+     * default implementation copies the file onto the heap and calls
+     * {@link #parse(byte[], Reader)}: loaders should override it and use
+     * {@link #CompressedTexture(int, int, int, int, int, ByteBuffer, int, int)}
+     * to avoid the copy.
+     * 
+     * @param data
+     *            A compressed texture file's contents, from position 0 to
+     *            the limit.
+     * @param reader
+     *            A data reader, pointing to the start of the file
+     * @return A {@code CompressedImage}
+     */
+    public CompressedTexture parse(ByteBuffer data, Reader reader) {
+        byte[] bytes = new byte[data.limit()];
+        ByteBuffer source = data.duplicate();
+
+        source.position(0);
+        source.get(bytes);
+        return parse(bytes, new Reader(bytes));
+    }
+
     /**
      * Provides external parsers access to the internal
      * {@code CompressedImage} constructor.
@@ -166,6 +193,45 @@ public abstract class SXRCompressedTextureLoader {
                 levels, buffer);
     }
 
+    /**
+     * Provides external parsers access to the internal
+     * {@code CompressedImage} constructor, for texture data which stays in
+     * the buffer passed to {@link #parse(ByteBuffer, Reader)}.
+     * 
+     * @param internalformat
+     *            The {@code glCompressedTexImage2D()}
+     *            <code>internalformat</code> parameter.
+     * @param width
+     *            The {@code glCompressedTexImage2D()} <code>width</code>
+     *            parameter.
+     * @param height
+     *            The {@code glCompressedTexImage2D()} <code>height</code>
+     *            parameter.
+     * @param imageSize
+     *            The {@code glCompressedTexImage2D()} <code>imageSize</code>
+     *            parameter.
+     * @param levels
+     *            The number of mipmap levels
+     * @param data
+     *            The {@code ByteBuffer} passed to
+     *            {@link #parse(ByteBuffer, Reader)}
+     * @param dataOffset
+     *            Header length - offset of first byte of texture data
+     * @param dataBytes
+     *            Number of bytes of texture data
+     * @return An internal buffer that the GL thread can use to create a
+     *         {@link SXRCompressedImage}
+     */
+    protected CompressedTexture CompressedTexture(int internalformat,
+            int width, int height, int imageSize, int levels, ByteBuffer data,
+            int dataOffset, int dataBytes) {
+        ByteBuffer buffer = data.duplicate();
+        buffer.limit(dataOffset + dataBytes);
+        buffer.position(dataOffset);
+        return new CompressedTexture(internalformat, width, height, imageSize,
+                levels, buffer);
+    }
+
     /**
      * Register a loader with the 'sniffer'.
      * 
@@ -216,18 +282,30 @@ public abstract class SXRCompressedTextureLoader {
     /** Utility class for reading big- and little-endian numbers from a header */
     protected static final class Reader {
         private final byte[] data;
+        private final ByteBuffer buffer;
         // private final int length;
         private int readPointer;
 
         /** Wrap a Reader around a byte array */
         protected Reader(byte[] data) {
             this.data = data;
+            this.buffer = null;
             // this.length = data.length;
             this.readPointer = 0;
         }
 
+        /**
+         * Wrap a Reader around a buffer. Reads start at index 0 and do not
+         * change the buffer position.
+         */
+        protected Reader(ByteBuffer buffer) {
+            this.data = null;
+            this.buffer = buffer;
+            this.readPointer = 0;
+        }
+
         private byte read() {
-            return data[readPointer++];
+            return (data != null) ? data[readPointer++] : buffer.get(readPointer++);
         }
 
         protected static final int INTEGER_BYTES = Integer.SIZE / Byte.SIZE;
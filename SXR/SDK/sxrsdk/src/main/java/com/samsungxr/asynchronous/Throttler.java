@@ -22,7 +22,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.samsungxr.SXRAndroidResource;
@@ -36,11 +35,8 @@ import com.samsungxr.utility.Log;
 import com.samsungxr.utility.RuntimeAssertion;
 import com.samsungxr.utility.Threads;
 import com.samsungxr.utility.Threads.Cancelable;
-import com.samsungxr.utility.Threads.ThreadLimiter;
-import com.samsungxr.utility.Threads.ThreadPolicyProvider;
 
 import android.graphics.Bitmap;
-import android.util.SparseArray;
 
 /**
  * Asynchronous, heterogeneous resource loading with integrated thread
@@ -87,7 +83,15 @@ class Throttler implements Scheduler {
      * suspended.
      */
     private static final int DECODE_THREAD_LIMIT = Math.max(CORE_COUNT - 1, 1);
-    
+
+    /**
+     * Max threads doing loads which mostly wait for their streams.
+     *
+     * These threads use little CPU, they only make sure a slow stream does
+     * not hold back the decodes.
+     */
+    private static final int IO_THREAD_LIMIT = Math.max(CORE_COUNT, 2);
+
     /*
      * Singleton
      */
@@ -101,6 +105,13 @@ class Throttler implements Scheduler {
     private Throttler() {
     }
 
+    /**
+     * @return The executor which runs the loads
+     */
+    LoaderExecutor getExecutor() {
+        return requests.executor;
+    }
+
     /*
      * Extension points
      */
@@ -233,8 +244,8 @@ class Throttler implements Scheduler {
      * {@link Throttler#registerCallback(SXRContext, Class, CancelableCallback, SXRAndroidResource, int)}
      * uses the {@code .class} constant to find the right
      * {@link AsyncLoaderFactory} when it's time to actually run a request; it
-     * creates an {@link AsyncLoaderFactory} and runs it on a
-     * {@link Threads#spawn(Runnable) background thread.}
+     * creates an {@link AsyncLoader} and runs it on a {@link LoaderExecutor}
+     * thread.
      * 
      * @param <OUTPUT>
      *            The SXRF type, delivered to the app's
@@ -249,6 +260,15 @@ class Throttler implements Scheduler {
         abstract AsyncLoader<OUTPUT, INTERMEDIATE> threadProc(
                 SXRContext gvrContext, SXRAndroidResource request,
                 CancelableCallback<OUTPUT> cancelableCallback, int priority);
+
+        /**
+         * @return {@link LoaderExecutor#DECODE_BOUND} if the loads mostly use
+         *         the CPU, {@link LoaderExecutor#IO_BOUND} if they mostly wait
+         *         for their stream
+         */
+        int getLoadClass() {
+            return LoaderExecutor.DECODE_BOUND;
+        }
     }
 
     /*
@@ -281,11 +301,8 @@ class Throttler implements Scheduler {
             return AsyncManager.get().getFactories();
         }
 
-        private final ThreadLimiter<PriorityCancelable> deviceThreadLimiter = new ThreadLimiter<PriorityCancelable>(
-                DECODE_THREAD_LIMIT,
-                new PriorityCancelingLifoThreadPolicyProvider(),
-                /* Don't exceed DECODE_THREAD_LIMIT when a download gets wedged */
-                Integer.MAX_VALUE);
+        private final LoaderExecutor executor = new LoaderExecutor(
+                IO_THREAD_LIMIT, DECODE_THREAD_LIMIT);
 
         <OUTPUT extends SXRHybridObject, INTER> void registerCallback(SXRContext gvrContext,
                 Class<OUTPUT> outClass,
@@ -305,8 +322,6 @@ class Throttler implements Scheduler {
                 }
             }
 
-            ThreadLimiter<PriorityCancelable> threadLimiter = deviceThreadLimiter;
-
             synchronized (pendingRequests) {
                 PendingRequest<OUTPUT, INTER> pending = (PendingRequest<OUTPUT, INTER>) pendingRequests
                         .get(request);
@@ -314,12 +329,12 @@ class Throttler implements Scheduler {
                 if (pending != null) {
                     // There is already a request for this resource: add
                     // callback, and reschedule
-                    pending.addCallback(callback, priority);
+                    pending.addCallback(callback);
                     if (VERBOSE_SCHEDULING) {
                         Log.d(TAG, "Thread %d: rescheduling %s for request %s",
                                 threadId(), pending, request);
                     }
-                    threadLimiter.reschedule(pending);
+                    executor.reschedule(pending.ticket, priority);
                 } else {
                     // There is no current request for this resource. Create a
                     // new PendingRequest, using a threadFactory to create the
@@ -339,34 +354,32 @@ class Throttler implements Scheduler {
                     pendingRequests.put(request, pending);
 
                     if (VERBOSE_SCHEDULING) {
-                        Log.d(TAG, "Thread %d: spawning %s for request %s",
+                        Log.d(TAG, "Thread %d: queuing %s for request %s",
                                 threadId(), pending, request);
                     }
-                    threadLimiter.spawn(pending);
+                    pending.ticket = executor.submit(pending, priority,
+                            pending.loadClass);
                 }
             }
         }
 
         private class PendingRequest<OUTPUT extends SXRHybridObject, INTER> implements
-                CancelableCallback<OUTPUT>, PriorityCancelable {
+                CancelableCallback<OUTPUT>, Cancelable {
 
             private final String TAG = Log.tag(PendingRequest.class);
 
-            private final int EMPTY_LIST = SXRContext.LOWEST_PRIORITY - 1;
-
             private final SXRAndroidResource request;
             private final List<CancelableCallback<OUTPUT>> callbacks = new ArrayList<CancelableCallback<OUTPUT>>(1);
             private final Cancelable cancelable;
-            private int priority = EMPTY_LIST;
-            private int highestPriority = priority;
+            private final int loadClass;
+            private LoaderExecutor.Ticket ticket;
 
             public PendingRequest(SXRContext gvrContext,
                     SXRAndroidResource request,
                     CancelableCallback<OUTPUT> callback,
                     int priority, Class<OUTPUT> outClass) {
                 this.request = request;
-                addCallback(callback, priority);
-                updatePriority();
+                addCallback(callback);
 
                 @SuppressWarnings("unchecked")
                 AsyncLoaderFactory<OUTPUT, INTER> factory =
@@ -374,14 +387,11 @@ class Throttler implements Scheduler {
 
                 cancelable = factory.threadProc(
                         gvrContext, request, PendingRequest.this, priority);
+                loadClass = factory.getLoadClass();
             }
 
-            public void addCallback(CancelableCallback<OUTPUT> callback,
-                    int priority) {
+            public void addCallback(CancelableCallback<OUTPUT> callback) {
                 callbacks.add(callback);
-                if (priority > this.highestPriority) {
-                    this.highestPriority = priority;
-                }
             }
 
             @Override
@@ -502,189 +512,47 @@ class Throttler implements Scheduler {
                 return false;
             }
 
-            // PriorityCancelable
+            // Cancelable
 
             @Override
             public void run() {
                 cancelable.run();
             }
 
+            /**
+             * Called by the {@link LoaderExecutor} right before the load runs.
+             * Locks like {@link #registerCallback}, so a callback is either
+             * added before the load is cancelled, or to a new request.
+             */
             @Override
             public boolean stillWanted() {
-                List<CancelableCallback<OUTPUT>> canceled = new ArrayList<CancelableCallback<OUTPUT>>(
-                        callbacks.size());
-                for (CancelableCallback<OUTPUT> callback : callbacks) {
-                    if (callback.stillWanted(request) != true) {
-                        canceled.add(callback);
-                    }
-                }
-                callbacks.removeAll(canceled);
-
-                boolean cancel = callbacks.size() == 0;
-
-                if (cancel) {
-                    if (VERBOSE_SCHEDULING) {
-                        Log.d(TAG, "Canceling %s, request %s", this, request);
-                    }
-                    @SuppressWarnings("unchecked")
-                    PendingRequest<OUTPUT, INTER> removed = (PendingRequest<OUTPUT, INTER>) pendingRequests
-                            .remove(request);
-                    if (removed != this) {
-                        throw new RuntimeAssertion("removed = %s, this = %s",
-                                removed, this);
+                synchronized (pendingRequests) {
+                    List<CancelableCallback<OUTPUT>> canceled = new ArrayList<CancelableCallback<OUTPUT>>(
+                            callbacks.size());
+                    for (CancelableCallback<OUTPUT> callback : callbacks) {
+                        if (callback.stillWanted(request) != true) {
+                            canceled.add(callback);
+                        }
                     }
-                }
-
-                return cancel != true;
-
-            }
-
-            @Override
-            public int getPriority() {
-                return priority;
-            }
-
-            @Override
-            public void updatePriority() {
-                priority = highestPriority;
-            }
-        }
-    }
-
-    private interface PriorityCancelable extends Cancelable {
-
-        /**
-         * The value that {@link #getPriority()} returns may be random until
-         * {@link #updatePriority()} is called; once {@link #updatePriority()}
-         * has been called the value that {@link #getPriority()} returns should
-         * not change until {@link #updatePriority()} is called again.
-         * 
-         * This allows {@link ThreadPolicyProvider#reschedule(Cancelable)} to
-         * detect that a group's priority has changed because another request
-         * has been added.
-         */
-        void updatePriority();
-
-        /**
-         * Every request has a priority: the larger the number, the higher
-         * priority. That is, {@link Throttler#LOWEST_PRIORITY} is a negative
-         * number, while {@link Throttler#HIGHEST_PRIORITY} is a positive
-         * number.
-         */
-        int getPriority();
-    }
-
-    private static class PriorityGroup implements Comparable<PriorityGroup> {
-        private int priority;
-        final List<PriorityCancelable> content = new ArrayList<PriorityCancelable>();
-
-        public PriorityGroup(int priority) {
-            this.priority = priority;
-        }
-
-        @Override
-        public int compareTo(PriorityGroup another) {
-            // Reverse order: Integer.MAX_VALUE is a higher priority than
-            // Integer.MIN_VALUE
-            return another.priority - priority;
-        }
-    }
-
-    private static class PriorityCancelingLifoThreadPolicyProvider implements
-            ThreadPolicyProvider<PriorityCancelable> {
-
-        private final PriorityQueue<PriorityGroup> queue = new PriorityQueue<PriorityGroup>();
-        private final SparseArray<PriorityGroup> groups = new SparseArray<PriorityGroup>();
+                    callbacks.removeAll(canceled);
 
-        private void addGroup(int priority, PriorityGroup newGroup) {
-            queue.add(newGroup);
-            groups.put(priority, newGroup);
-        }
-
-        private void removeGroup(PriorityGroup group) {
-            queue.remove(group);
-            groups.delete(group.priority);
-        }
+                    boolean cancel = callbacks.size() == 0;
 
-        @Override
-        public void put(PriorityCancelable procedure) {
-            int priority = procedure.getPriority();
-
-            PriorityGroup group = groups.get(priority);
-            if (group != null) {
-                group.content.add(procedure);
-                return;
-            }
-
-            PriorityGroup newGroup = new PriorityGroup(priority);
-            newGroup.content.add(procedure);
-            addGroup(priority, newGroup);
-        }
-
-        @Override
-        public boolean isEmpty() {
-            while (queue.size() > 0) {
-                PriorityGroup first = queue.peek();
-
-                List<Cancelable> cancel = new ArrayList<Cancelable>();
-                for (Cancelable cancelable : first.content) {
-                    // Find cancelable requests
-                    if (cancelable.stillWanted() != true) {
-                        cancel.add(cancelable);
+                    if (cancel) {
+                        if (VERBOSE_SCHEDULING) {
+                            Log.d(TAG, "Canceling %s, request %s", this, request);
+                        }
+                        @SuppressWarnings("unchecked")
+                        PendingRequest<OUTPUT, INTER> removed = (PendingRequest<OUTPUT, INTER>) pendingRequests
+                                .remove(request);
+                        if (removed != this) {
+                            throw new RuntimeAssertion("removed = %s, this = %s",
+                                    removed, this);
+                        }
                     }
-                }
-                first.content.removeAll(cancel);
 
-                if (first.content.size() > 0) {
-                    return false;
-                }
-
-                // remove empty group
-                removeGroup(first);
-            }
-
-            return true;
-        }
-
-        @Override
-        public Runnable get() {
-            PriorityGroup first = queue.peek();
-            if (first == null) {
-                return null;
-            }
-
-            List<PriorityCancelable> content = first.content;
-            Cancelable threadProc = content.remove(content.size() - 1);
-            if (content.isEmpty()) {
-                removeGroup(first);
-            }
-            return threadProc;
-        }
-
-        @Override
-        public void reschedule(PriorityCancelable threadProc) {
-            int priority = threadProc.getPriority();
-            threadProc.updatePriority();
-            int newPriority = threadProc.getPriority();
-
-            PriorityGroup group = groups.get(priority);
-            if (group != null) {
-                if (group.content.remove(threadProc)) {
-                    if (priority == newPriority) {
-
-                        group.content.add(threadProc);
-                    } else {
-                        put(threadProc);
-                    }
-                    if (group.content.isEmpty()) {
-                        removeGroup(group);
-                    }
-                } else if (VERBOSE_SCHEDULING) {
-                    Log.d(TAG,
-                            "reschedule() didn't find %s - it must be running (or have already run)",
-                            threadProc);
+                    return cancel != true;
                 }
-                return;
             }
         }
     }
@@ -15,7 +15,9 @@
 
 package com.samsungxr.periodic;
 
-import java.util.PriorityQueue;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRDrawFrameListener;
@@ -54,9 +56,10 @@ import com.samsungxr.SXRDrawFrameListener;
  * something like a notification.
  * 
  * <p>
- * The engine maintains a priority queue of events, which it checks in a
- * {@linkplain SXRDrawFrameListener frame listener}; events run as
- * {@linkplain SXRContext#runOnGlThread(Runnable) run-once events.} Every frame,
+ * The engine keeps the events in a hierarchical timing wheel, which it
+ * advances in a {@linkplain SXRDrawFrameListener frame listener}; all the
+ * events which are due run together in one
+ * {@linkplain SXRContext#runOnGlThread(Runnable) run-once event.} Every frame,
  * SXRF runs any run-once events; then any frame listeners (including
  * animations); then your {@linkplain com.samsungxr.SXRMain#onStep() method;} and
  * then it renders the scene. This means that any periodic events that run on a
@@ -69,6 +72,17 @@ import com.samsungxr.SXRDrawFrameListener;
  * each frame is normally 17 milliseconds apart, unless you add too many
  * callbacks or put too much code into your {@code onStep()}; Android garbage
  * collection can introduce additional delays.
+ *
+ * <p>
+ * Times are kept in nanoseconds, so the engine stays accurate however
+ * long the device has been running. Scheduling, rescheduling and
+ * canceling events from any thread take constant time and never block:
+ * the change is handed to the GL thread, which applies it before
+ * advancing the wheel. A periodic event stays in phase with its first
+ * execution; if a frame is so late that whole periods have passed, those
+ * executions are skipped rather than run back to back.
+ * {@link #getLateCount()} and {@link #getSkippedCount()} count how often
+ * this happens.
  */
 public class SXRPeriodicEngine {
     private static SXRPeriodicEngine sInstance = null;
@@ -83,13 +97,69 @@ public class SXRPeriodicEngine {
         });
     }
 
+    /*
+     * The wheel has LEVELS levels of SLOTS slots. A slot of level 0 is
+     * one tick, a slot of level n is SLOTS times a slot of level n - 1.
+     * An event is in the lowest level whose range covers its distance
+     * from the current tick; when the current tick enters a slot of a
+     * higher level its events are moved down.
+     */
+    private static final long TICK_NANOS = 1000000L;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    /**
+     * An execution later than this after its scheduled time is counted as late.
+     */
+    private static final long LATE_NANOS = 33333333L;
+    private static final long UNSCHEDULED_NANOS = Long.MIN_VALUE;
+
+    private static final AtomicIntegerFieldUpdater<Event> POSTED =
+            AtomicIntegerFieldUpdater.newUpdater(Event.class, "mInPostedStack");
+
     private final SXRContext mContext;
     private final DrawFrameListener mDrawFrameListener = new DrawFrameListener();
-    private final PriorityQueue<EventImplementation> mQueue = new PriorityQueue<EventImplementation>();
+
+    // Wheel state, only used by the GL thread
+    private final long mOrigin;
+    private final Event[][] mWheel = new Event[LEVELS][SLOTS];
+    private long mCurrentTick = 0;
+    private ArrayList<Event> mDue = new ArrayList<Event>();
+    private ArrayList<Event> mFiringBatch = new ArrayList<Event>();
+    private final ArrayList<Event> mRebuild = new ArrayList<Event>();
+    private boolean mBatchPosted = false;
+    private volatile int mWheelCount = 0;
+
+    // Events changed by any thread, not applied to the wheel yet
+    private final AtomicReference<Event> mPosted = new AtomicReference<Event>();
+
+    private volatile long mFiredCount = 0;
+    private volatile long mLateCount = 0;
+    private volatile long mSkippedCount = 0;
+
+    private final Runnable mBatchTask = new Runnable() {
+        @Override
+        public void run() {
+            fireDue();
+        }
+    };
 
     protected SXRPeriodicEngine(SXRContext context) {
+        this(context, System.nanoTime());
+    }
+
+    /*
+     * Tests pass a null context, override now() and postBatch(),
+     * and call onFrame() themselves.
+     */
+    SXRPeriodicEngine(SXRContext context, long origin) {
         mContext = context;
-        context.registerDrawFrameListener(mDrawFrameListener);
+        mOrigin = origin;
+        if (context != null) {
+            context.registerDrawFrameListener(mDrawFrameListener);
+        }
     }
 
     /**
@@ -190,6 +260,36 @@ public class SXRPeriodicEngine {
         return new Event(task, delay, period, callback);
     }
 
+    /**
+     * @return number of times an event has run.
+     */
+    public long getFiredCount() {
+        return mFiredCount;
+    }
+
+    /**
+     * @return number of times an event has run more than two
+     *         frames (at 60 fps) after its scheduled time.
+     */
+    public long getLateCount() {
+        return mLateCount;
+    }
+
+    /**
+     * @return number of executions of periodic events skipped
+     *         because a whole period passed before the event could run.
+     */
+    public long getSkippedCount() {
+        return mSkippedCount;
+    }
+
+    /**
+     * @return number of events waiting in the timing wheel.
+     */
+    public int getScheduledEventCount() {
+        return mWheelCount;
+    }
+
     /**
      * Optional callback that you can supply to
      * {@link SXRPeriodicEngine#runEvery(Runnable, float, float, KeepRunning)}.
@@ -328,40 +428,236 @@ public class SXRPeriodicEngine {
         void runEvery(float delay, float period, KeepRunning callback);
     }
 
-    private interface EventImplementation extends PeriodicEvent,
-            Comparable<EventImplementation>, Runnable {
-        float getScheduledTime();
-    }
-
     /**
      * The periodic engine's time base.
      * 
-     * Unit is seconds.
+     * Unit is nanoseconds.
      */
-    private static float now() {
-        return System.nanoTime() / 1e9f;
+    long now() {
+        return System.nanoTime();
+    }
+
+    private static long toNanos(float seconds) {
+        return (long) (seconds * 1e9);
     }
 
     private class DrawFrameListener implements SXRDrawFrameListener {
 
         @Override
         public void onDrawFrame(float frameTime) {
-            float now = SXRPeriodicEngine.now();
-            synchronized (mQueue) {
-                for (EventImplementation //
-                first = mQueue.peek(); //
-                first != null && first.getScheduledTime() <= now; //
-                first = mQueue.peek() //
-                ) {
+            onFrame(now());
+        }
+    }
+
+    void onFrame(long now) {
+        applyPosted();
+        advance(now);
+        if (!mDue.isEmpty() && !mBatchPosted) {
+            mBatchPosted = true;
+            postBatch(mBatchTask);
+        }
+    }
+
+    void postBatch(Runnable batch) {
+        mContext.runOnGlThread(batch);
+    }
+
+    /*
+     * Hand an event changed by any thread to the GL thread.
+     * Each event is on the posted stack at most once.
+     */
+    private void post(Event event) {
+        if (POSTED.compareAndSet(event, 0, 1)) {
+            Event head;
+            do {
+                head = mPosted.get();
+                event.mNextPosted = head;
+            } while (!mPosted.compareAndSet(head, event));
+        }
+    }
+
+    /*
+     * Move the posted events to where their current schedule says.
+     */
+    private void applyPosted() {
+        Event event = mPosted.getAndSet(null);
+
+        while (event != null) {
+            Event next = event.mNextPosted;
+            event.mNextPosted = null;
+            POSTED.set(event, 0);
+
+            if (event.mLevel >= 0) {
+                unlink(event);
+            }
+            long time = event.getScheduledNanos();
+            if ((time != UNSCHEDULED_NANOS) && !event.mDue) {
+                insert(event, time);
+            }
+            event = next;
+        }
+    }
+
+    private long toTick(long time) {
+        return (time - mOrigin) / TICK_NANOS;
+    }
+
+    private void insert(Event event, long time) {
+        long tick = toTick(time);
+        long delta = tick - mCurrentTick;
+
+        if (delta <= 0) {
+            event.mDue = true;
+            mDue.add(event);
+            return;
+        }
+        int level = 0;
+        while ((level < LEVELS - 1) && (delta >= (1L << (SLOT_BITS * (level + 1))))) {
+            ++level;
+        }
+        int slot = (int) ((tick >> (SLOT_BITS * level)) & SLOT_MASK);
+        Event head = mWheel[level][slot];
+
+        event.mLevel = level;
+        event.mSlot = slot;
+        event.mPrev = null;
+        event.mNext = head;
+        if (head != null) {
+            head.mPrev = event;
+        }
+        mWheel[level][slot] = event;
+        ++mWheelCount;
+    }
+
+    private void unlink(Event event) {
+        if (event.mPrev != null) {
+            event.mPrev.mNext = event.mNext;
+        } else {
+            mWheel[event.mLevel][event.mSlot] = event.mNext;
+        }
+        if (event.mNext != null) {
+            event.mNext.mPrev = event.mPrev;
+        }
+        event.mPrev = null;
+        event.mNext = null;
+        event.mLevel = -1;
+        --mWheelCount;
+    }
+
+    /*
+     * Take all the events out of a slot.
+     * Returns the first one, they stay chained through mNext.
+     */
+    private Event takeSlot(int level, int slot) {
+        Event first = mWheel[level][slot];
+
+        mWheel[level][slot] = null;
+        for (Event e = first; e != null; e = e.mNext) {
+            e.mLevel = -1;
+            --mWheelCount;
+        }
+        return first;
+    }
+
+    private void reinsert(Event first) {
+        while (first != null) {
+            Event next = first.mNext;
+
+            first.mPrev = null;
+            first.mNext = null;
+            insert(first, first.getScheduledNanos());
+            first = next;
+        }
+    }
+
+    private void advance(long now) {
+        long target = toTick(now);
+
+        if (target <= mCurrentTick) {
+            return;
+        }
+        if (mWheelCount == 0) {
+            mCurrentTick = target;
+            return;
+        }
+        if (target - mCurrentTick > SLOTS * SLOTS) {
+            // after a long pause it is cheaper to start over than to visit every tick
+            rebuild(target);
+            return;
+        }
+        while (mCurrentTick < target) {
+            ++mCurrentTick;
+            int slot = (int) (mCurrentTick & SLOT_MASK);
 
-                    mContext.runOnGlThread(mQueue.poll());
+            if (slot == 0) {
+                cascade(1);
+            }
+            reinsert(takeSlot(0, slot));
+        }
+    }
+
+    private void cascade(int level) {
+        if (level >= LEVELS) {
+            return;
+        }
+        int slot = (int) ((mCurrentTick >> (SLOT_BITS * level)) & SLOT_MASK);
+
+        if (slot == 0) {
+            cascade(level + 1);
+        }
+        reinsert(takeSlot(level, slot));
+    }
 
+    private void rebuild(long target) {
+        for (int level = 0; level < LEVELS; ++level) {
+            for (int slot = 0; slot < SLOTS; ++slot) {
+                for (Event e = takeSlot(level, slot); e != null; ) {
+                    Event next = e.mNext;
+
+                    e.mPrev = null;
+                    e.mNext = null;
+                    mRebuild.add(e);
+                    e = next;
                 }
             }
         }
+        mCurrentTick = target;
+        for (int i = 0; i < mRebuild.size(); ++i) {
+            Event e = mRebuild.get(i);
+            insert(e, e.getScheduledNanos());
+        }
+        mRebuild.clear();
+    }
+
+    /*
+     * Run all the due events, in one GL thread task.
+     */
+    private void fireDue() {
+        ArrayList<Event> firing = mDue;
+
+        mBatchPosted = false;
+        mDue = mFiringBatch;
+        mFiringBatch = firing;
+
+        long now = now();
+        int i = 0;
+        try {
+            for (; i < firing.size(); ++i) {
+                Event event = firing.get(i);
+
+                event.mDue = false;
+                event.fire(now);
+            }
+        } finally {
+            // if an event threw, the ones after it are still due
+            for (int j = i + 1; j < firing.size(); ++j) {
+                mDue.add(firing.get(j));
+            }
+            firing.clear();
+        }
     }
 
-    private class Event implements EventImplementation {
+    private class Event implements PeriodicEvent, Runnable {
 
         /*
          * Task, and run-count
@@ -377,108 +673,132 @@ public class SXRPeriodicEngine {
          */
         private boolean mRunning = false;
 
-        /*
-         * Queue management
-         */
-
         /**
-         * Set by {@link #cancel()} to assure that events canceled from non-GL
-         * thread during execution are not rescheduled.
+         * Set while the task or the {@link KeepRunning} callback runs, so
+         * rescheduling from either is not overridden by the normal
+         * rescheduling after an execution.
          */
-        private boolean mCanceled = false;
+        private boolean mFiring = false;
+        private boolean mRescheduled = false;
 
-        private void lockedEnqueue() {
-            if (mCanceled != true) {
-                mQueue.add(this);
-            }
-        }
-
-        private void lockedDequeue() {
-            mQueue.remove(this);
-        }
-
-        private void enqueue() {
-            synchronized (mQueue) {
-                lockedEnqueue();
-            }
-        }
+        /*
+         * Wheel links, only used by the GL thread. mLevel is -1
+         * if the event is not in the wheel, mDue is true if it is
+         * waiting to run.
+         */
+        private Event mPrev;
+        private Event mNext;
+        private int mLevel = -1;
+        private int mSlot;
+        private boolean mDue = false;
 
-        @SuppressWarnings("unused")
-        private void dequeue() {
-            synchronized (mQueue) {
-                lockedDequeue();
-            }
-        }
+        /*
+         * Posted stack link, see post().
+         */
+        volatile int mInPostedStack = 0;
+        private Event mNextPosted;
 
         /*
-         * Scheduling fields.
+         * Scheduling fields, guarded by this.
          * 
-         * A run-once event has an mPeriod == UNSCHEDULED.
+         * A run-once event has an mPeriod == 0.
          * 
-         * We allow the user to change the scheduling at any time. To assure
-         * consistency, neither constructors nor the rescheduling methods set
-         * these fields directly: both go through setDelay() or setRepeat().
+         * We allow the user to change the scheduling at any time from any
+         * thread. The new schedule is posted to the GL thread, which moves
+         * the event in the wheel.
          */
 
-        private float mTimeBase;
-        private float mScheduledTime;
-        private float mPeriod;
+        private long mScheduledTime = UNSCHEDULED_NANOS;
+        private long mPeriod;
         private KeepRunning mCallback;
 
-        private void setDelay(float delay) {
-            mTimeBase = now();
-            schedule(mTimeBase + delay);
-            mPeriod = UNSCHEDULED;
+        /**
+         * Set by {@link #cancel()} to assure that events canceled from non-GL
+         * thread during execution are not rescheduled.
+         */
+        private boolean mCanceled = false;
+
+        private synchronized void setDelay(float delay) {
+            mScheduledTime = now() + toNanos(delay);
+            mPeriod = 0;
             mCallback = null;
+            mCanceled = false;
+            mRescheduled = mFiring;
         }
 
-        private void setRepeat(float delay, float period, KeepRunning callback) {
-            mTimeBase = now();
-            schedule(mTimeBase + delay);
-            mPeriod = period;
+        private synchronized void setRepeat(float delay, float period, KeepRunning callback) {
+            // Later executions are multiples of the period after the first
+            mScheduledTime = now() + toNanos(delay);
+            mPeriod = Math.max(toNanos(period), 1L);
             mCallback = callback;
-        }
-
-        private void schedule(float time) {
-            mScheduledTime = time;
             mCanceled = false;
+            mRescheduled = mFiring;
         }
 
-        private void deschedule() {
-            mScheduledTime = UNSCHEDULED;
+        private synchronized long getScheduledNanos() {
+            return mCanceled ? UNSCHEDULED_NANOS : mScheduledTime;
         }
 
-        private void reschedule() {
-            if (repeats()) {
-                if (mCallback != null && mCallback.keepRunning(this) != true) {
-                    return; // Do NOT reschedule
-                }
+        /*
+         * Called from the GL thread when the wheel says the event is due.
+         */
+        private void fire(long now) {
+            long scheduled = getScheduledNanos();
 
-                float next = mTimeBase + (((now() - mTimeBase) / mPeriod) + 1)
-                        * mPeriod;
-                schedule(next);
-                enqueue();
+            if (scheduled == UNSCHEDULED_NANOS) {
+                return;
             }
-        }
-
-        private boolean enqueued() {
-            synchronized (mQueue) {
-                for (EventImplementation event : mQueue) {
-                    if (this == event) {
-                        return true;
-                    }
+            if (toTick(scheduled) > mCurrentTick) {
+                // rescheduled to later since it was found due
+                insert(this, scheduled);
+                return;
+            }
+            if (now - scheduled > LATE_NANOS) {
+                ++mLateCount;
+            }
+            ++mFiredCount;
+
+            mFiring = true;
+            mRescheduled = false;
+            try {
+                run();
+                if (!mRescheduled) {
+                    reschedule(scheduled, now);
                 }
+            } finally {
+                mFiring = false;
             }
-            // else
-            return false;
         }
 
-        private boolean scheduled() {
-            return mScheduledTime != UNSCHEDULED;
-        }
+        private void reschedule(long scheduled, long now) {
+            KeepRunning callback;
+
+            synchronized (this) {
+                mScheduledTime = UNSCHEDULED_NANOS;
+                if (mCanceled || (mPeriod == 0)) {
+                    return;
+                }
+                callback = mCallback;
+            }
+            if (callback != null && callback.keepRunning(this) != true) {
+                return; // Do NOT reschedule
+            }
+            long next;
+            synchronized (this) {
+                if (mCanceled || mRescheduled) {
+                    return;
+                }
+                // stay in phase, skip only the executions a whole period behind
+                next = scheduled + mPeriod;
+                if (now - next >= mPeriod) {
+                    long skipped = (now - next) / mPeriod;
 
-        private boolean repeats() {
-            return mPeriod != UNSCHEDULED;
+                    next += skipped * mPeriod;
+                    mSkippedCount += skipped;
+                }
+                mScheduledTime = next;
+            }
+            insert(this, next);
         }
 
         /*
@@ -489,7 +809,7 @@ public class SXRPeriodicEngine {
             mTask = task;
             setDelay(delay);
 
-            enqueue();
+            post(this);
         }
 
         private Event(Runnable task, float delay, float period,
@@ -497,7 +817,7 @@ public class SXRPeriodicEngine {
             mTask = task;
             setRepeat(delay, period, callback);
 
-            enqueue();
+            post(this);
         }
 
         /*
@@ -511,27 +831,25 @@ public class SXRPeriodicEngine {
 
         @Override
         public float getCurrentWait() {
-            return scheduled() ? mScheduledTime - now() : UNSCHEDULED;
+            long scheduled = getScheduledNanos();
+            return (scheduled != UNSCHEDULED_NANOS) ? (scheduled - now()) / 1e9f : UNSCHEDULED;
         }
 
         @Override
         public void cancel() {
-            synchronized (mQueue) {
-                deschedule();
-                lockedDequeue();
+            synchronized (this) {
+                mScheduledTime = UNSCHEDULED_NANOS;
                 mCanceled = true;
             }
+            post(this);
         }
 
         @Override
         public void runAfter(float delay) {
             validateDelay(delay);
 
-            synchronized (mQueue) {
-                lockedDequeue();
-                setDelay(delay);
-                lockedEnqueue();
-            }
+            setDelay(delay);
+            post(this);
         }
 
         @Override
@@ -550,30 +868,8 @@ public class SXRPeriodicEngine {
             validateDelay(delay);
             validatePeriod(period);
 
-            synchronized (mQueue) {
-                lockedDequeue();
-                setRepeat(delay, period, callback);
-                lockedEnqueue();
-            }
-        }
-
-        /*
-         * EventImplementation
-         */
-
-        @Override
-        public float getScheduledTime() {
-            return mScheduledTime;
-        }
-
-        /*
-         * Comparable<EventImplementation>
-         */
-
-        @Override
-        public int compareTo(EventImplementation other) {
-            final float delta = getScheduledTime() - other.getScheduledTime();
-            return delta < 0 ? -1 : (delta == 0 ? 0 : 1);
+            setRepeat(delay, period, callback);
+            post(this);
         }
 
         /*
@@ -586,17 +882,6 @@ public class SXRPeriodicEngine {
             mTask.run();
             mRunning = false;
             mRunCount += 1;
-
-            /*
-             * Normally, the event will NOT be enqueued at this point. But, if
-             * the event has rescheduled itself (using the PeriodicEvent
-             * returned when it was created) then it WILL be enqueued, and we
-             * shouldn't re-enqueue it.
-             */
-            if (enqueued() != true) {
-                deschedule();
-                reschedule();
-            }
         }
 
     }
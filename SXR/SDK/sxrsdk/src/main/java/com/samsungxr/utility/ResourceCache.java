@@ -36,7 +36,7 @@ import com.samsungxr.SXRImage;
  * 
  * @since 2.0.2
  */
-public class ResourceCache<T extends SXRHybridObject> extends ResourceCacheBase {
+public class ResourceCache<T extends SXRHybridObject> extends ResourceCacheBase<T> {
     private static final String TAG = Log.tag(ResourceCache.class);
 
     /** Save a weak reference to the resource */
@@ -48,7 +48,7 @@ public class ResourceCache<T extends SXRHybridObject> extends ResourceCacheBase
 
     /** Get the cached resource, or {@code null} */
     public T get(SXRAndroidResource androidResource) {
-        return (T) super.get(androidResource);
+        return super.get(androidResource);
     }
 
     /**
@@ -16,49 +16,399 @@
 package com.samsungxr.utility;
 
 import com.samsungxr.SXRAndroidResource;
+import com.samsungxr.SXRImage;
+import com.samsungxr.SXRMesh;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Basic cache-by-resource-description.
  *
  * Keeps system from reloading resources, so long as a previous copy is still in
  * memory.
+ * <p>
+ * By default the cache only holds weak references, so a resource stays cached
+ * as long as something else is using it. Setting a
+ * {@linkplain #setByteBudget(long) byte budget} also keeps the most recently
+ * used resources alive, up to that many bytes, so a texture or mesh which is
+ * dropped and reloaded soon after does not have to be decoded again. The least
+ * recently used resources are evicted first; evicted resources stay in the
+ * weak cache until they are garbage collected.
+ * {@linkplain #pin(SXRAndroidResource) Pinned} resources are never evicted.
  *
  * @since 2.0.2
  */
 public class ResourceCacheBase<T> {
     private static final String TAG = Log.tag(ResourceCacheBase.class);
 
+    /**
+     * Computes how many bytes a cached resource uses, for the byte budget.
+     */
+    public interface SizeEstimator<T> {
+        /**
+         * @param resource
+         *            cached resource
+         * @return number of bytes the resource uses, 0 if unknown.
+         */
+        long sizeOf(T resource);
+    }
+
+    /**
+     * Loads a resource which is not in the cache.
+     *
+     * @see ResourceCacheBase#get(SXRAndroidResource, Loader)
+     */
+    public interface Loader<T> {
+        /**
+         * @param androidResource
+         *            resource to load
+         * @return loaded resource
+         */
+        T load(SXRAndroidResource androidResource) throws IOException;
+    }
+
+    private static final class Entry<T> {
+        final T resource;
+        final long size;
+        int pinCount;
+
+        Entry(T resource, long size) {
+            this.resource = resource;
+            this.size = size;
+        }
+    }
+
     private final Map<SXRAndroidResource, WeakReference<T>> cache //
             = new ConcurrentHashMap<SXRAndroidResource, WeakReference<T>>();
 
+    /** Strong references in LRU order, guarded by itself */
+    private final LinkedHashMap<SXRAndroidResource, Entry<T>> mRecent //
+            = new LinkedHashMap<SXRAndroidResource, Entry<T>>(16, 0.75f, true);
+
+    private final ConcurrentHashMap<SXRAndroidResource, FutureTask<T>> mLoading //
+            = new ConcurrentHashMap<SXRAndroidResource, FutureTask<T>>();
+
+    private SizeEstimator<T> mSizeEstimator = new SizeEstimator<T>() {
+        @Override
+        public long sizeOf(T resource) {
+            if (resource instanceof SXRImage) {
+                return ((SXRImage) resource).getDataSize();
+            } else if (resource instanceof SXRMesh) {
+                return ((SXRMesh) resource).getDataSize();
+            }
+            return 0;
+        }
+    };
+
+    private volatile long mByteBudget = 0;
+    private long mCachedBytes = 0;
+    private final AtomicLong mHitCount = new AtomicLong(0);
+    private final AtomicLong mMissCount = new AtomicLong(0);
+    private final AtomicLong mEvictionCount = new AtomicLong(0);
+    private final AtomicLong mSharedLoadCount = new AtomicLong(0);
+
     /** Save a weak reference to the resource */
     public void put(SXRAndroidResource androidResource, T resource) {
         Log.d(TAG, "put resource %s to cache", androidResource);
 
         cache.put(androidResource, new WeakReference<T>(resource));
+        synchronized (mRecent) {
+            if (mByteBudget > 0) {
+                retain(androidResource, resource);
+                trim();
+            } else {
+                Entry<T> entry = mRecent.get(androidResource);
+                if ((entry != null) && (entry.resource != resource)) {
+                    // Keep the pins on the new copy
+                    retain(androidResource, resource);
+                }
+            }
+        }
     }
 
     /** Get the cached resource, or {@code null} */
     public T get(SXRAndroidResource androidResource) {
-        WeakReference<T> reference = cache.get(androidResource);
-        if (reference == null) {
-            // Not in map
-            // Log.d(TAG, "get(%s) returning %s", androidResource, null);
-            return null;
+        T cached = null;
+
+        synchronized (mRecent) {
+            Entry<T> entry = mRecent.get(androidResource);
+            if (entry != null) {
+                cached = entry.resource;
+            }
+        }
+        if (cached == null) {
+            WeakReference<T> reference = cache.get(androidResource);
+            if (reference != null) {
+                cached = reference.get();
+                if (cached == null) {
+                    // In map, but not in memory
+                    cache.remove(androidResource);
+                } else if (mByteBudget > 0) {
+                    // Still in use: make it recent again
+                    synchronized (mRecent) {
+                        retain(androidResource, cached);
+                        trim();
+                    }
+                }
+            }
         }
-        T cached = reference.get();
         if (cached == null) {
-            // In map, but not in memory
-            cache.remove(androidResource);
+            mMissCount.incrementAndGet();
         } else {
+            mHitCount.incrementAndGet();
             // No one will ever read this stream
             androidResource.closeStream();
         }
         // Log.d(TAG, "get(%s) returning %s", androidResource, cached);
         return cached;
     }
+
+    /**
+     * Get the cached resource, loading it if it is not cached.
+     * <p>
+     * If several threads ask for the same resource at the same time, it is
+     * only loaded once: the other threads wait for that load and share the
+     * result.
+     *
+     * @param androidResource
+     *            resource to get
+     * @param loader
+     *            loads the resource on a cache miss. The loaded resource is
+     *            put in the cache.
+     * @return cached or loaded resource
+     * @throws IOException
+     *             if the resource could not be loaded
+     */
+    public T get(final SXRAndroidResource androidResource, final Loader<T> loader)
+            throws IOException {
+        T cached = get(androidResource);
+        if (cached != null) {
+            return cached;
+        }
+        FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                T resource = loader.load(androidResource);
+                if (resource != null) {
+                    put(androidResource, resource);
+                }
+                return resource;
+            }
+        });
+        FutureTask<T> loading = mLoading.putIfAbsent(androidResource, task);
+        if (loading == null) {
+            loading = task;
+            try {
+                task.run();
+            } finally {
+                mLoading.remove(androidResource);
+            }
+        } else {
+            mSharedLoadCount.incrementAndGet();
+            androidResource.closeStream();
+        }
+        try {
+            return loading.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted loading " + androidResource);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Set how many bytes of recently used resources the cache keeps alive.
+     * <p>
+     * The least recently used resources are evicted when the budget is
+     * exceeded. Evicted resources are still returned by {@link #get} until
+     * they are garbage collected.
+     *
+     * @param bytes
+     *            byte budget, 0 to only keep weak references (the default).
+     */
+    public void setByteBudget(long bytes) {
+        synchronized (mRecent) {
+            mByteBudget = (bytes > 0) ? bytes : 0;
+            trim();
+        }
+    }
+
+    /**
+     * @return byte budget, 0 if the cache only keeps weak references.
+     */
+    public long getByteBudget() {
+        return mByteBudget;
+    }
+
+    /**
+     * Set how the size of a cached resource is computed.
+     * The default uses {@link SXRImage#getDataSize()} and
+     * {@link SXRMesh#getDataSize()}.
+     *
+     * @param estimator
+     *            size estimator
+     */
+    public void setSizeEstimator(SizeEstimator<T> estimator) {
+        Assert.checkNotNull("estimator", estimator);
+        synchronized (mRecent) {
+            mSizeEstimator = estimator;
+        }
+    }
+
+    /**
+     * Keep a cached resource alive regardless of the byte budget,
+     * until {@link #unpin(SXRAndroidResource)} is called as many times as
+     * this.
+     *
+     * @param androidResource
+     *            resource to pin
+     * @return true if the resource was cached and is now pinned.
+     */
+    public boolean pin(SXRAndroidResource androidResource) {
+        synchronized (mRecent) {
+            Entry<T> entry = mRecent.get(androidResource);
+            if (entry == null) {
+                WeakReference<T> reference = cache.get(androidResource);
+                T cached = (reference != null) ? reference.get() : null;
+                if (cached == null) {
+                    return false;
+                }
+                entry = retain(androidResource, cached);
+            }
+            ++entry.pinCount;
+            return true;
+        }
+    }
+
+    /**
+     * Undo a {@link #pin(SXRAndroidResource)}.
+     *
+     * @param androidResource
+     *            resource to unpin
+     * @return true if the resource was pinned.
+     */
+    public boolean unpin(SXRAndroidResource androidResource) {
+        synchronized (mRecent) {
+            Entry<T> entry = mRecent.get(androidResource);
+            if ((entry == null) || (entry.pinCount == 0)) {
+                return false;
+            }
+            if (--entry.pinCount == 0) {
+                trim();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Remove every resource from the cache, including pinned ones.
+     * The statistics are not reset.
+     */
+    public void clear() {
+        synchronized (mRecent) {
+            mRecent.clear();
+            mCachedBytes = 0;
+        }
+        cache.clear();
+    }
+
+    /**
+     * @return number of bytes used by the resources the cache keeps alive.
+     */
+    public long getCachedBytes() {
+        synchronized (mRecent) {
+            return mCachedBytes;
+        }
+    }
+
+    /**
+     * @return number of resources the cache keeps alive.
+     */
+    public int getCachedCount() {
+        synchronized (mRecent) {
+            return mRecent.size();
+        }
+    }
+
+    /**
+     * @return number of {@link #get} calls which found the resource.
+     */
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * @return number of {@link #get} calls which did not find the resource.
+     */
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    /**
+     * @return number of resources evicted to stay within the byte budget.
+     */
+    public long getEvictionCount() {
+        return mEvictionCount.get();
+    }
+
+    /**
+     * @return number of loads which waited for the same resource to be
+     *         loaded by another thread instead of loading it again.
+     */
+    public long getSharedLoadCount() {
+        return mSharedLoadCount.get();
+    }
+
+    /** Call with mRecent locked */
+    private Entry<T> retain(SXRAndroidResource androidResource, T resource) {
+        Entry<T> old = mRecent.get(androidResource);
+        if ((old != null) && (old.resource == resource)) {
+            return old;
+        }
+        long size = mSizeEstimator.sizeOf(resource);
+        Entry<T> entry = new Entry<T>(resource, (size > 0) ? size : 0);
+        if (old != null) {
+            entry.pinCount = old.pinCount;
+            mCachedBytes -= old.size;
+        }
+        mRecent.put(androidResource, entry);
+        mCachedBytes += entry.size;
+        return entry;
+    }
+
+    /** Evict least recently used entries. Call with mRecent locked */
+    private void trim() {
+        Iterator<Map.Entry<SXRAndroidResource, Entry<T>>> iter = mRecent.entrySet().iterator();
+
+        while (iter.hasNext() && ((mByteBudget == 0) || (mCachedBytes > mByteBudget))) {
+            Entry<T> entry = iter.next().getValue();
+            if (entry.pinCount > 0) {
+                continue;
+            }
+            iter.remove();
+            mCachedBytes -= entry.size;
+            if (mByteBudget > 0) {
+                mEvictionCount.incrementAndGet();
+            }
+        }
+    }
 }
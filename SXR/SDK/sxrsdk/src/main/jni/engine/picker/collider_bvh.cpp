@@ -0,0 +1,528 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Bounding volume hierarchy of the colliders in a scene.
+ ***************************************************************************/
+
+#include "collider_bvh.h"
+
+#include <algorithm>
+#include "objects/components/collider.h"
+
+namespace sxr {
+
+/*
+ * Leaf boxes are enlarged by this fraction of their size
+ * (and at least FAT_MINIMUM) so that small movements
+ * do not need to change the tree.
+ */
+static const float FAT_FRACTION = 0.1f;
+static const float FAT_MINIMUM = 0.001f;
+
+ColliderBVH::ColliderBVH() :
+        root_(-1),
+        free_list_(-1),
+        collider_count_(0)
+{ }
+
+ColliderBVH::~ColliderBVH()
+{
+    clear();
+}
+
+void ColliderBVH::insert(Collider* collider)
+{
+    if (collider->bvh_ == this)
+    {
+        return;
+    }
+    collider->bvh_proxy_ = -1;
+    collider->bvh_unbounded_ = false;
+    collider->bvh_ = this;
+    ++collider_count_;
+    markDirty(collider);
+}
+
+void ColliderBVH::remove(Collider* collider)
+{
+    if (collider->bvh_ != this)
+    {
+        return;
+    }
+    {
+        std::lock_guard<std::mutex> lock(dirty_mutex_);
+        if (collider->bvh_dirty_)
+        {
+            dirty_.erase(std::remove(dirty_.begin(), dirty_.end(), collider), dirty_.end());
+            collider->bvh_dirty_ = false;
+        }
+        collider->bvh_ = nullptr;
+    }
+    detach(collider);
+    --collider_count_;
+}
+
+void ColliderBVH::clear()
+{
+    {
+        std::lock_guard<std::mutex> lock(dirty_mutex_);
+        for (auto it = dirty_.begin(); it != dirty_.end(); ++it)
+        {
+            (*it)->bvh_dirty_ = false;
+            (*it)->bvh_ = nullptr;
+        }
+        dirty_.clear();
+    }
+    for (auto it = nodes_.begin(); it != nodes_.end(); ++it)
+    {
+        if ((it->height == 0) && (it->collider != nullptr))
+        {
+            it->collider->bvh_ = nullptr;
+            it->collider->bvh_proxy_ = -1;
+        }
+    }
+    for (auto it = unbounded_.begin(); it != unbounded_.end(); ++it)
+    {
+        (*it)->bvh_ = nullptr;
+        (*it)->bvh_unbounded_ = false;
+    }
+    nodes_.clear();
+    unbounded_.clear();
+    root_ = -1;
+    free_list_ = -1;
+    collider_count_ = 0;
+}
+
+void ColliderBVH::markDirty(Collider* collider)
+{
+    std::lock_guard<std::mutex> lock(dirty_mutex_);
+    if ((collider->bvh_ == this) && !collider->bvh_dirty_)
+    {
+        collider->bvh_dirty_ = true;
+        dirty_.push_back(collider);
+    }
+}
+
+void ColliderBVH::update()
+{
+    {
+        std::lock_guard<std::mutex> lock(dirty_mutex_);
+        if (dirty_.empty())
+        {
+            return;
+        }
+        updating_.swap(dirty_);
+        for (auto it = updating_.begin(); it != updating_.end(); ++it)
+        {
+            (*it)->bvh_dirty_ = false;
+        }
+    }
+    for (auto it = updating_.begin(); it != updating_.end(); ++it)
+    {
+        refit(*it);
+    }
+    updating_.clear();
+}
+
+/*
+ * Recompute the world bounds of a collider and move it
+ * in the tree if it is no longer inside its leaf box.
+ */
+void ColliderBVH::refit(Collider* collider)
+{
+    Node* owner = collider->owner_object();
+    glm::vec3 minCorner;
+    glm::vec3 maxCorner;
+
+    if ((owner == nullptr) || !collider->getWorldBounds(owner, minCorner, maxCorner))
+    {
+        if (!collider->bvh_unbounded_)
+        {
+            detach(collider);
+            unbounded_.push_back(collider);
+            collider->bvh_unbounded_ = true;
+        }
+        return;
+    }
+    int leaf = collider->bvh_proxy_;
+    glm::vec3 margin = glm::max((maxCorner - minCorner) * FAT_FRACTION, glm::vec3(FAT_MINIMUM));
+    glm::vec3 fatMin = minCorner - margin;
+    glm::vec3 fatMax = maxCorner + margin;
+
+    if (leaf >= 0)
+    {
+        const TreeNode& node = nodes_[leaf];
+        bool inside = glm::all(glm::lessThanEqual(node.minCorner, minCorner)) &&
+                      glm::all(glm::greaterThanEqual(node.maxCorner, maxCorner));
+
+        // keep the leaf unless the collider left it or shrank a lot
+        if (inside && (surfaceArea(node.minCorner, node.maxCorner) <= 4 * surfaceArea(fatMin, fatMax)))
+        {
+            return;
+        }
+        removeLeaf(leaf);
+    }
+    else
+    {
+        detach(collider);
+        leaf = allocateNode();
+        nodes_[leaf].collider = collider;
+        collider->bvh_proxy_ = leaf;
+    }
+    nodes_[leaf].minCorner = fatMin;
+    nodes_[leaf].maxCorner = fatMax;
+    insertLeaf(leaf);
+}
+
+/*
+ * Take a collider out of the tree or the unbounded list.
+ */
+void ColliderBVH::detach(Collider* collider)
+{
+    if (collider->bvh_proxy_ >= 0)
+    {
+        removeLeaf(collider->bvh_proxy_);
+        freeNode(collider->bvh_proxy_);
+        collider->bvh_proxy_ = -1;
+    }
+    if (collider->bvh_unbounded_)
+    {
+        unbounded_.erase(std::remove(unbounded_.begin(), unbounded_.end(), collider), unbounded_.end());
+        collider->bvh_unbounded_ = false;
+    }
+}
+
+int ColliderBVH::allocateNode()
+{
+    int index = free_list_;
+
+    if (index >= 0)
+    {
+        free_list_ = nodes_[index].parent;
+    }
+    else
+    {
+        index = nodes_.size();
+        nodes_.emplace_back();
+    }
+    TreeNode& node = nodes_[index];
+    node.parent = -1;
+    node.child1 = -1;
+    node.child2 = -1;
+    node.height = 0;
+    node.collider = nullptr;
+    return index;
+}
+
+void ColliderBVH::freeNode(int index)
+{
+    TreeNode& node = nodes_[index];
+    node.parent = free_list_;
+    node.height = -1;
+    node.collider = nullptr;
+    free_list_ = index;
+}
+
+float ColliderBVH::surfaceArea(const glm::vec3& minCorner, const glm::vec3& maxCorner)
+{
+    glm::vec3 d = maxCorner - minCorner;
+    return 2.0f * (d.x * d.y + d.y * d.z + d.z * d.x);
+}
+
+/*
+ * Insert a leaf next to the sibling which
+ * least increases the surface area of the tree.
+ */
+void ColliderBVH::insertLeaf(int leaf)
+{
+    if (root_ < 0)
+    {
+        root_ = leaf;
+        nodes_[leaf].parent = -1;
+        return;
+    }
+    glm::vec3 leafMin = nodes_[leaf].minCorner;
+    glm::vec3 leafMax = nodes_[leaf].maxCorner;
+    int index = root_;
+
+    while (!nodes_[index].isLeaf())
+    {
+        const TreeNode& node = nodes_[index];
+        float area = surfaceArea(node.minCorner, node.maxCorner);
+        float combinedArea = surfaceArea(glm::min(node.minCorner, leafMin), glm::max(node.maxCorner, leafMax));
+        // cost of making a new parent for this node and the new leaf
+        float cost = 2.0f * combinedArea;
+        // minimum cost of pushing the leaf further down the tree
+        float inheritanceCost = 2.0f * (combinedArea - area);
+        float childCost[2];
+        int children[2] = { node.child1, node.child2 };
+
+        for (int i = 0; i < 2; ++i)
+        {
+            const TreeNode& child = nodes_[children[i]];
+            float childArea = surfaceArea(glm::min(child.minCorner, leafMin), glm::max(child.maxCorner, leafMax));
+
+            if (child.isLeaf())
+            {
+                childCost[i] = childArea + inheritanceCost;
+            }
+            else
+            {
+                childCost[i] = childArea - surfaceArea(child.minCorner, child.maxCorner) + inheritanceCost;
+            }
+        }
+        if ((cost < childCost[0]) && (cost < childCost[1]))
+        {
+            break;
+        }
+        index = (childCost[0] < childCost[1]) ? children[0] : children[1];
+    }
+
+    int sibling = index;
+    int oldParent = nodes_[sibling].parent;
+    int newParent = allocateNode();
+    TreeNode& parent = nodes_[newParent];
+
+    parent.parent = oldParent;
+    parent.minCorner = glm::min(nodes_[sibling].minCorner, leafMin);
+    parent.maxCorner = glm::max(nodes_[sibling].maxCorner, leafMax);
+    parent.height = nodes_[sibling].height + 1;
+    parent.child1 = sibling;
+    parent.child2 = leaf;
+    if (oldParent >= 0)
+    {
+        if (nodes_[oldParent].child1 == sibling)
+        {
+            nodes_[oldParent].child1 = newParent;
+        }
+        else
+        {
+            nodes_[oldParent].child2 = newParent;
+        }
+    }
+    else
+    {
+        root_ = newParent;
+    }
+    nodes_[sibling].parent = newParent;
+    nodes_[leaf].parent = newParent;
+    fixUpwards(newParent);
+}
+
+void ColliderBVH::removeLeaf(int leaf)
+{
+    if (leaf == root_)
+    {
+        root_ = -1;
+        return;
+    }
+    int parent = nodes_[leaf].parent;
+    int grandParent = nodes_[parent].parent;
+    int sibling = (nodes_[parent].child1 == leaf) ? nodes_[parent].child2 : nodes_[parent].child1;
+
+    if (grandParent >= 0)
+    {
+        if (nodes_[grandParent].child1 == parent)
+        {
+            nodes_[grandParent].child1 = sibling;
+        }
+        else
+        {
+            nodes_[grandParent].child2 = sibling;
+        }
+        nodes_[sibling].parent = grandParent;
+        freeNode(parent);
+        fixUpwards(grandParent);
+    }
+    else
+    {
+        root_ = sibling;
+        nodes_[sibling].parent = -1;
+        freeNode(parent);
+    }
+    nodes_[leaf].parent = -1;
+}
+
+/*
+ * Rebalance and recompute the boxes and heights
+ * from the given node up to the root.
+ */
+void ColliderBVH::fixUpwards(int index)
+{
+    while (index >= 0)
+    {
+        index = balance(index);
+
+        TreeNode& node = nodes_[index];
+        const TreeNode& child1 = nodes_[node.child1];
+        const TreeNode& child2 = nodes_[node.child2];
+
+        node.height = 1 + std::max(child1.height, child2.height);
+        node.minCorner = glm::min(child1.minCorner, child2.minCorner);
+        node.maxCorner = glm::max(child1.maxCorner, child2.maxCorner);
+        index = node.parent;
+    }
+}
+
+/*
+ * If one child of node A is more than one level taller
+ * than the other, rotate the taller child up.
+ * Returns the index of the node now in A's place.
+ */
+int ColliderBVH::balance(int iA)
+{
+    TreeNode& A = nodes_[iA];
+    if (A.isLeaf() || (A.height < 2))
+    {
+        return iA;
+    }
+    int iB = A.child1;
+    int iC = A.child2;
+    TreeNode& B = nodes_[iB];
+    TreeNode& C = nodes_[iC];
+    int diff = C.height - B.height;
+
+    if ((diff >= -1) && (diff <= 1))
+    {
+        return iA;
+    }
+    // rotate the taller child (C or B) up
+    int iUp = (diff > 0) ? iC : iB;
+    int iDown = (diff > 0) ? iB : iC;
+    TreeNode& Up = nodes_[iUp];
+    TreeNode& Down = nodes_[iDown];
+    int iF = Up.child1;
+    int iG = Up.child2;
+    TreeNode& F = nodes_[iF];
+    TreeNode& G = nodes_[iG];
+
+    Up.child1 = iA;
+    Up.parent = A.parent;
+    A.parent = iUp;
+    if (Up.parent >= 0)
+    {
+        if (nodes_[Up.parent].child1 == iA)
+        {
+            nodes_[Up.parent].child1 = iUp;
+        }
+        else
+        {
+            nodes_[Up.parent].child2 = iUp;
+        }
+    }
+    else
+    {
+        root_ = iUp;
+    }
+    // keep the taller grandchild under Up, move the other one to A
+    int iKeep = (F.height > G.height) ? iF : iG;
+    int iMove = (F.height > G.height) ? iG : iF;
+    TreeNode& Keep = nodes_[iKeep];
+    TreeNode& Move = nodes_[iMove];
+
+    Up.child2 = iKeep;
+    if (diff > 0)
+    {
+        A.child2 = iMove;
+    }
+    else
+    {
+        A.child1 = iMove;
+    }
+    Move.parent = iA;
+    A.minCorner = glm::min(Down.minCorner, Move.minCorner);
+    A.maxCorner = glm::max(Down.maxCorner, Move.maxCorner);
+    A.height = 1 + std::max(Down.height, Move.height);
+    Up.minCorner = glm::min(A.minCorner, Keep.minCorner);
+    Up.maxCorner = glm::max(A.maxCorner, Keep.maxCorner);
+    Up.height = 1 + std::max(A.height, Keep.height);
+    return iUp;
+}
+
+/*
+ * Slab test of a ray against the box of a tree node.
+ * Returns the distance along the ray where it enters the box
+ * (0 if the ray starts inside).
+ */
+bool ColliderBVH::intersectRay(const TreeNode& node, const glm::vec3& start,
+                               const glm::vec3& dir, const glm::vec3& invDir,
+                               float maxDistance, float& entry)
+{
+    float tmin = 0;
+    float tmax = maxDistance;
+
+    for (int i = 0; i < 3; ++i)
+    {
+        if (dir[i] == 0)
+        {
+            if ((start[i] < node.minCorner[i]) || (start[i] > node.maxCorner[i]))
+            {
+                return false;
+            }
+            continue;
+        }
+        float t1 = (node.minCorner[i] - start[i]) * invDir[i];
+        float t2 = (node.maxCorner[i] - start[i]) * invDir[i];
+
+        if (t1 > t2)
+        {
+            std::swap(t1, t2);
+        }
+        tmin = std::max(tmin, t1);
+        tmax = std::min(tmax, t2);
+        if (tmin > tmax)
+        {
+            return false;
+        }
+    }
+    entry = tmin;
+    return true;
+}
+
+/*
+ * Returns -1 if the box of the node is outside the frustum,
+ * 1 if it is entirely inside and 0 if it crosses a plane.
+ */
+int ColliderBVH::classifyFrustum(const TreeNode& node, const float planes[6][4])
+{
+    int result = 1;
+
+    for (int i = 0; i < 6; ++i)
+    {
+        const float* p = planes[i];
+        // corner farthest along the plane normal
+        float px = (p[0] >= 0) ? node.maxCorner.x : node.minCorner.x;
+        float py = (p[1] >= 0) ? node.maxCorner.y : node.minCorner.y;
+        float pz = (p[2] >= 0) ? node.maxCorner.z : node.minCorner.z;
+
+        if (p[0] * px + p[1] * py + p[2] * pz + p[3] < 0)
+        {
+            return -1;
+        }
+        // corner nearest along the plane normal
+        float nx = (p[0] >= 0) ? node.minCorner.x : node.maxCorner.x;
+        float ny = (p[1] >= 0) ? node.minCorner.y : node.maxCorner.y;
+        float nz = (p[2] >= 0) ? node.minCorner.z : node.maxCorner.z;
+
+        if (p[0] * nx + p[1] * ny + p[2] * nz + p[3] < 0)
+        {
+            result = 0;
+        }
+    }
+    return result;
+}
+
+}
@@ -0,0 +1,324 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Bounding volume hierarchy of the colliders in a scene.
+ ***************************************************************************/
+
+#ifndef COLLIDER_BVH_H_
+#define COLLIDER_BVH_H_
+
+#include <vector>
+#include <mutex>
+#include <limits>
+#include <utility>
+#include "glm/glm.hpp"
+
+namespace sxr {
+class Collider;
+
+/*
+ * Dynamic bounding volume hierarchy over the world space
+ * bounds of the colliders in a scene, used to speed up picking.
+ *
+ * Each collider is a leaf whose box is a little larger than
+ * the collider, so small movements do not change the tree.
+ * When a collider moves outside of its box it is removed
+ * and inserted again, rebalancing the tree on the way.
+ * Colliders which cannot compute their bounds are kept
+ * in a separate list and are always visited.
+ *
+ * Colliders are marked dirty from any thread when their
+ * transform or mesh changes. The tree is only updated and
+ * queried with the scene collider list locked.
+ *
+ * A collider removes itself when it is destroyed, so every
+ * collider in the hierarchy is alive. This matters when a
+ * scene and its colliders are finalized together in any order.
+ */
+class ColliderBVH {
+public:
+    ColliderBVH();
+    ~ColliderBVH();
+
+    /*
+     * Add a collider to the hierarchy.
+     * Its bounds are computed by the next update.
+     */
+    void insert(Collider* collider);
+
+    /*
+     * Remove a collider from the hierarchy.
+     */
+    void remove(Collider* collider);
+
+    /*
+     * Remove all the colliders, leaving them
+     * ready to be inserted in another hierarchy.
+     */
+    void clear();
+
+    /*
+     * Mark a collider as moved. Can be called from any thread.
+     */
+    void markDirty(Collider* collider);
+
+    /*
+     * Refit the colliders which moved since the last update.
+     * Called at the start of every query.
+     */
+    void update();
+
+    /*
+     * Visit the colliders whose boxes are entered by the ray
+     * nearer than maxDistance, nearest boxes first.
+     * The visitor is called as float visit(Collider*, float maxDistance)
+     * and returns the new maximum distance, letting closest hit
+     * queries skip everything behind the closest hit found so far.
+     * @param start origin of ray in world coordinates
+     * @param dir   normalized direction of ray in world coordinates
+     */
+    template <class Visitor>
+    void queryRay(const glm::vec3& start, const glm::vec3& dir, float maxDistance, Visitor visit);
+
+    /*
+     * Visit the colliders whose boxes overlap the input box.
+     * The visitor is called as void visit(Collider*).
+     */
+    template <class Visitor>
+    void queryBox(const glm::vec3& minCorner, const glm::vec3& maxCorner, Visitor visit);
+
+    /*
+     * Visit the colliders whose boxes are inside or intersect a frustum.
+     * The visitor is called as void visit(Collider*).
+     * @param planes six planes (a, b, c, d) in world coordinates,
+     *               a point is inside if ax + by + cz + d >= 0
+     *               for all of them.
+     */
+    template <class Visitor>
+    void queryFrustum(const float planes[6][4], Visitor visit);
+
+    int getColliderCount() const { return collider_count_; }
+    int getHeight() const { return (root_ >= 0) ? nodes_[root_].height : 0; }
+
+private:
+    struct TreeNode {
+        glm::vec3   minCorner;
+        glm::vec3   maxCorner;
+        int         parent;     // next free node when on the free list
+        int         child1;     // -1 for leaves
+        int         child2;
+        int         height;     // 0 for leaves, -1 when free
+        Collider*   collider;
+
+        bool isLeaf() const { return child1 < 0; }
+    };
+
+    ColliderBVH(const ColliderBVH& bvh) = delete;
+    ColliderBVH(ColliderBVH&& bvh) = delete;
+    ColliderBVH& operator=(const ColliderBVH& bvh) = delete;
+    ColliderBVH& operator=(ColliderBVH&& bvh) = delete;
+
+    void refit(Collider* collider);
+    void detach(Collider* collider);
+    int  allocateNode();
+    void freeNode(int index);
+    void insertLeaf(int leaf);
+    void removeLeaf(int leaf);
+    int  balance(int index);
+    void fixUpwards(int index);
+
+    static float surfaceArea(const glm::vec3& minCorner, const glm::vec3& maxCorner);
+    static bool  intersectRay(const TreeNode& node, const glm::vec3& start,
+                              const glm::vec3& dir, const glm::vec3& invDir,
+                              float maxDistance, float& entry);
+    static int   classifyFrustum(const TreeNode& node, const float planes[6][4]);
+
+    template <class Visitor>
+    void visitAll(int index, Visitor& visit);
+
+    std::vector<TreeNode>   nodes_;
+    int                     root_;
+    int                     free_list_;
+    int                     collider_count_;
+    std::vector<Collider*>  unbounded_;
+    std::vector<int>        stack_;
+    std::vector<std::pair<int, float>> ray_stack_;
+
+    std::mutex              dirty_mutex_;
+    std::vector<Collider*>  dirty_;
+    std::vector<Collider*>  updating_;
+};
+
+template <class Visitor>
+void ColliderBVH::queryRay(const glm::vec3& start, const glm::vec3& dir, float maxDistance, Visitor visit)
+{
+    update();
+    for (auto it = unbounded_.begin(); it != unbounded_.end(); ++it)
+    {
+        maxDistance = visit(*it, maxDistance);
+    }
+    if (root_ < 0)
+    {
+        return;
+    }
+    glm::vec3 invDir(1.0f / dir.x, 1.0f / dir.y, 1.0f / dir.z);
+    float entry;
+
+    ray_stack_.clear();
+    if (intersectRay(nodes_[root_], start, dir, invDir, maxDistance, entry))
+    {
+        ray_stack_.push_back(std::make_pair(root_, entry));
+    }
+    while (!ray_stack_.empty())
+    {
+        std::pair<int, float> top = ray_stack_.back();
+        ray_stack_.pop_back();
+        if (top.second > maxDistance)
+        {
+            continue;
+        }
+        const TreeNode& node = nodes_[top.first];
+        if (node.isLeaf())
+        {
+            maxDistance = visit(node.collider, maxDistance);
+            continue;
+        }
+        float entry1, entry2;
+        bool hit1 = intersectRay(nodes_[node.child1], start, dir, invDir, maxDistance, entry1);
+        bool hit2 = intersectRay(nodes_[node.child2], start, dir, invDir, maxDistance, entry2);
+
+        // push the farther child first so the nearer one is visited first
+        if (hit1 && hit2)
+        {
+            if (entry1 < entry2)
+            {
+                ray_stack_.push_back(std::make_pair(node.child2, entry2));
+                ray_stack_.push_back(std::make_pair(node.child1, entry1));
+            }
+            else
+            {
+                ray_stack_.push_back(std::make_pair(node.child1, entry1));
+                ray_stack_.push_back(std::make_pair(node.child2, entry2));
+            }
+        }
+        else if (hit1)
+        {
+            ray_stack_.push_back(std::make_pair(node.child1, entry1));
+        }
+        else if (hit2)
+        {
+            ray_stack_.push_back(std::make_pair(node.child2, entry2));
+        }
+    }
+}
+
+template <class Visitor>
+void ColliderBVH::queryBox(const glm::vec3& minCorner, const glm::vec3& maxCorner, Visitor visit)
+{
+    update();
+    for (auto it = unbounded_.begin(); it != unbounded_.end(); ++it)
+    {
+        visit(*it);
+    }
+    if (root_ < 0)
+    {
+        return;
+    }
+    stack_.clear();
+    stack_.push_back(root_);
+    while (!stack_.empty())
+    {
+        const TreeNode& node = nodes_[stack_.back()];
+        stack_.pop_back();
+        if ((node.minCorner.x > maxCorner.x) || (node.maxCorner.x < minCorner.x) ||
+            (node.minCorner.y > maxCorner.y) || (node.maxCorner.y < minCorner.y) ||
+            (node.minCorner.z > maxCorner.z) || (node.maxCorner.z < minCorner.z))
+        {
+            continue;
+        }
+        if (node.isLeaf())
+        {
+            visit(node.collider);
+        }
+        else
+        {
+            stack_.push_back(node.child1);
+            stack_.push_back(node.child2);
+        }
+    }
+}
+
+template <class Visitor>
+void ColliderBVH::queryFrustum(const float planes[6][4], Visitor visit)
+{
+    update();
+    for (auto it = unbounded_.begin(); it != unbounded_.end(); ++it)
+    {
+        visit(*it);
+    }
+    if (root_ < 0)
+    {
+        return;
+    }
+    stack_.clear();
+    stack_.push_back(root_);
+    while (!stack_.empty())
+    {
+        int index = stack_.back();
+        const TreeNode& node = nodes_[index];
+        stack_.pop_back();
+
+        int side = classifyFrustum(node, planes);
+        if (side < 0)
+        {
+            continue;
+        }
+        if (node.isLeaf())
+        {
+            visit(node.collider);
+        }
+        else if (side > 0)
+        {
+            // entirely inside, no need to test the children
+            visitAll(index, visit);
+        }
+        else
+        {
+            stack_.push_back(node.child1);
+            stack_.push_back(node.child2);
+        }
+    }
+}
+
+template <class Visitor>
+void ColliderBVH::visitAll(int index, Visitor& visit)
+{
+    const TreeNode& node = nodes_[index];
+    if (node.isLeaf())
+    {
+        visit(node.collider);
+    }
+    else
+    {
+        visitAll(node.child1, visit);
+        visitAll(node.child2, visit);
+    }
+}
+
+}
+
+#endif
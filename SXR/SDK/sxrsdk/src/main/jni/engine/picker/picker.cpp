@@ -20,6 +20,7 @@
 #include "picker.h"
 
 #include <limits>
+#include <algorithm>
 #include "glm/glm.hpp"
 #include "glm/gtc/matrix_inverse.hpp"
 
@@ -32,35 +33,53 @@
 
 namespace sxr {
 
+/*
+ * Hit test one collider against the input ray.
+ * Returns false if the collider is disabled, not pickable,
+ * missed or was hit beyond its pick distance.
+ */
+static bool hitCollider(Scene* scene, Collider* collider,
+                        const glm::vec3& rayStart, const glm::vec3& rayDir,
+                        ColliderData& data)
+{
+    Node* owner = collider->owner_object();
+    if (!collider->enabled() || (owner == NULL) || !owner->enabled() ||
+        !scene->isPickable(collider))
+    {
+        return false;
+    }
+    data = collider->isHit(owner, rayStart, rayDir);
+    if ((collider->pick_distance() > 0) && (collider->pick_distance() < data.Distance))
+    {
+        return false;
+    }
+    return data.IsHit;
+}
+
 /*
  * Intersects all the colliders in the scene with the input ray
  * and returns the list of collisions.
+ * Only the colliders whose bounds are along the ray are hit tested.
  */
 void Picker::pickScene(Scene* scene, std::vector<ColliderData>& picklist, Transform* t,
                        float ox, float oy, float oz, float dx, float dy, float dz)
 {
     glm::vec3 ray_start(ox, oy, oz);
     glm::vec3 ray_dir(dx, dy, dz);
-    const std::vector<Component*>& colliders = scene->lockColliders();
     const glm::mat4& model_matrix = t->getModelMatrix();
 
     Collider::transformRay(model_matrix, ray_start, ray_dir);
-    for (auto it = colliders.begin(); it != colliders.end(); ++it)
-    {
-        Collider* collider = static_cast<Collider*>(*it);
-        Node* owner = collider->owner_object();
-        if (collider->enabled() && (owner != NULL) && owner->enabled())
+    scene->lockColliders();
+    scene->getColliderBVH().queryRay(ray_start, ray_dir, std::numeric_limits<float>::infinity(),
+        [scene, &picklist, &ray_start, &ray_dir](Collider* collider, float maxDistance)
         {
-            ColliderData data = collider->isHit(owner, ray_start, ray_dir);
-            if ((collider->pick_distance() > 0) && (collider->pick_distance() < data.Distance))
+            ColliderData data;
+            if (hitCollider(scene, collider, ray_start, ray_dir, data))
             {
-                data.IsHit = false;
-            }
-            if (data.IsHit) {
                 picklist.push_back(data);
             }
-        }
-    }
+            return maxDistance;
+        });
     std::sort(picklist.begin(), picklist.end(), compareColliderData);
     scene->unlockColliders();
 }
@@ -68,6 +87,8 @@ void Picker::pickScene(Scene* scene, std::vector<ColliderData>& picklist, Transf
 /*
  * Intersects all the colliders in the scene with the input ray
  * and returns the one closest to the camera.
+ * Colliders whose bounds are farther away than the
+ * closest hit found so far are not hit tested.
  */
 void Picker::pickClosest(Scene* scene,
                          ColliderData& closest,
@@ -77,28 +98,22 @@ void Picker::pickClosest(Scene* scene,
 {
     glm::vec3 ray_start(ox, oy, oz);
     glm::vec3 ray_dir(dx, dy, dz);
-    const std::vector<Component*>& colliders = scene->lockColliders();
     const glm::mat4& model_matrix = t->getModelMatrix();
 
     closest.Distance = std::numeric_limits<float>::infinity();
     Collider::transformRay(model_matrix, ray_start, ray_dir);
-    for (auto it = colliders.begin(); it != colliders.end(); ++it)
-    {
-        Collider* collider = static_cast<Collider*>(*it);
-        Node* owner = collider->owner_object();
-        if (collider->enabled() && (owner != NULL) && owner->enabled())
+    scene->lockColliders();
+    scene->getColliderBVH().queryRay(ray_start, ray_dir, closest.Distance,
+        [scene, &closest, &ray_start, &ray_dir](Collider* collider, float maxDistance)
         {
-            ColliderData data = collider->isHit(owner, ray_start, ray_dir);
-            if ((collider->pick_distance() > 0) && (collider->pick_distance() < data.Distance))
-            {
-                data.IsHit = false;
-            }
-            if (data.IsHit && (data.Distance < closest.Distance))
+            ColliderData data;
+            if (hitCollider(scene, collider, ray_start, ray_dir, data) &&
+                (data.Distance < closest.Distance))
             {
                 closest = data;
             }
-        }
-    }
+            return std::min(maxDistance, closest.Distance);
+        });
     scene->unlockColliders();
 }
 
@@ -107,47 +122,115 @@ void Picker::pickClosest(Scene* scene,
  * input nodes (collidables) and returns the list of collisions.
  * The index of the collidable that hit is returned as the
  * CursorID field of the ColliderData resulting from the hit.
+ * Only the colliders whose bounds overlap a collidable are hit tested.
  */
 void Picker::pickBounds(Scene* scene,
                         std::vector<ColliderData>& picklist,
                         const std::vector<Node*>& collidables)
 {
-    const std::vector<Component*>& colliders = scene->lockColliders();
+    scene->lockColliders();
+    ColliderBVH& bvh = scene->getColliderBVH();
+    int cursorID = 0;
 
-    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    for (auto it = collidables.begin(); it != collidables.end(); ++it, ++cursorID)
     {
-        int cursorID = 0;
-        for (auto it2 = collidables.begin(); it2 != collidables.end(); ++it2)
+        Node* collidable = *it;
+        if ((collidable == NULL) || !collidable->enabled())
         {
-            Node* collidable = *it2;
-            if ((collidable == NULL) || !collidable->enabled())
+            continue;
+        }
+        BoundingVolume& bv = collidable->getBoundingVolume();
+        glm::vec3 center(bv.center());
+        float radius = bv.radius();
+        float bsphere[4] = { center.x, center.y, center.z, radius };
+
+        if ((radius <= 0) || (radius == std::numeric_limits<float>::infinity()))
+        {
+            continue;
+        }
+        bvh.queryBox(center - glm::vec3(radius), center + glm::vec3(radius),
+            [scene, &picklist, &bsphere, cursorID](Collider* collider)
             {
-                ++cursorID;
-                continue;
-            }
-            BoundingVolume& bv = collidable->getBoundingVolume();
-            glm::vec3 center(bv.center());
-            float bsphere[4] = { center.x, center.y, center.z, bv.radius()};
-            Collider* collider = reinterpret_cast<Collider*>(*it);
+                Node* owner = collider->owner_object();
+
+                if (collider->enabled() &&
+                    (owner != NULL) &&
+                    owner->enabled() &&
+                    scene->isPickable(collider))
+                {
+                    ColliderData data = collider->isHit(owner, bsphere);
+                    if (data.IsHit)
+                    {
+                        data.CollidableIndex = cursorID;      // cursor ID is index of collidable
+                        data.ObjectHit = owner;
+                        picklist.push_back(data);
+                    }
+                }
+            });
+    }
+    scene->unlockColliders();
+}
+
+/*
+ * Returns the colliders attached to nodes whose bounding
+ * spheres are inside or intersect the input frustum.
+ * The hit position is the world position of the node,
+ * the distance is from the viewpoint to that position.
+ * Only the colliders whose bounds are near the frustum are tested.
+ */
+void Picker::pickFrustum(Scene* scene, Transform* t, const float planes[6][4],
+                         std::vector<ColliderData>& picklist)
+{
+    glm::vec3 eye(t->getModelMatrix()[3]);
+    float frustum[6][4];
+
+    for (int i = 0; i < 6; ++i)
+    {
+        float len = glm::length(glm::vec3(planes[i][0], planes[i][1], planes[i][2]));
+        if (len == 0)
+        {
+            len = 1;
+        }
+        for (int j = 0; j < 4; ++j)
+        {
+            frustum[i][j] = planes[i][j] / len;
+        }
+    }
+    scene->lockColliders();
+    scene->getColliderBVH().queryFrustum(frustum,
+        [scene, &picklist, &frustum, &eye](Collider* collider)
+        {
             Node* owner = collider->owner_object();
 
-            if (collider->enabled() &&
-                (owner != NULL) &&
-                owner->enabled() &&
-                (bsphere[3] > 0) &&
-                (bsphere[3] != std::numeric_limits<float>::infinity()))
+            if (!collider->enabled() || (owner == NULL) || !owner->enabled() ||
+                !scene->isPickable(collider))
             {
-                ColliderData data = collider->isHit(owner, bsphere);
-                if (data.IsHit)
+                return;
+            }
+            const BoundingVolume& bv = owner->getBoundingVolume();
+            glm::vec3 center(owner->transform()->getModelMatrix()[3]);
+            float radius = 0;
+
+            if (bv.radius() > 0)
+            {
+                center = bv.center();
+                radius = bv.radius();
+            }
+            for (int i = 0; i < 6; ++i)
+            {
+                const float* p = frustum[i];
+                if (p[0] * center.x + p[1] * center.y + p[2] * center.z + p[3] < -radius)
                 {
-                    data.CollidableIndex = cursorID;      // cursor ID is index of collidable
-                    data.ObjectHit = owner;
-                    picklist.push_back(data);
+                    return;
                 }
             }
-            ++cursorID;
-        }
-    }
+            ColliderData data(collider);
+            data.HitPosition = glm::vec3(owner->transform()->getModelMatrix()[3]);
+            data.Distance = glm::length(data.HitPosition - eye);
+            data.IsHit = true;
+            picklist.push_back(data);
+        });
+    std::sort(picklist.begin(), picklist.end(), compareColliderData);
     scene->unlockColliders();
 }
 
@@ -171,6 +254,36 @@ void Picker::pickNode(Node *node, float ox, float oy, float oz, float dx, float
         colliderData = collider->isHit(node, rayStart, rayDir);
     }
 }
+
+/*
+ * Pick every triangle of a node's mesh collider hit by the ray,
+ * nearest first. Other colliders return at most one hit.
+ * The input ray is in world coordinates.
+ */
+void Picker::pickNodeAll(Node *node, float ox, float oy, float oz, float dx, float dy, float dz,
+                         std::vector<ColliderData>& pickList)
+{
+    Collider* collider = (Collider*) node->getComponent(Collider::getComponentType());
+    if ((collider == nullptr) || !collider->enabled() || !node->enabled())
+    {
+        return;
+    }
+    glm::vec3 rayStart(ox, oy, oz);
+    glm::vec3 rayDir(dx, dy, dz);
+
+    if (collider->shape_type() == COLLIDER_SHAPE_MESH)
+    {
+        static_cast<MeshCollider*>(collider)->isHitAll(node, rayStart, rayDir, pickList);
+    }
+    else
+    {
+        ColliderData data = collider->isHit(node, rayStart, rayDir);
+        if (data.IsHit)
+        {
+            pickList.push_back(data);
+        }
+    }
+}
 /*
  * Pick against the scene bounding box.
  * The input ray is in world coordinates.
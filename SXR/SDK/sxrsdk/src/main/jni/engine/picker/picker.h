@@ -56,11 +56,21 @@ public:
             Scene* scene,
             std::vector<ColliderData>& picklist,
             const std::vector<Node*>& collidables);
+    static void pickFrustum(
+            Scene* scene,
+            Transform* t,
+            const float planes[6][4],
+            std::vector<ColliderData>& picklist);
     static void pickNode(
             Node* node,
             float ox, float oy, float oz,
             float dx, float dy, float dz,
             ColliderData &colliderData);
+    static void pickNodeAll(
+            Node* node,
+            float ox, float oy, float oz,
+            float dx, float dy, float dz,
+            std::vector<ColliderData>& pickList);
     static glm::vec3 pickNodeAgainstBoundingBox(
             Node* node, float ox, float oy, float oz,
             float dx, float dy, float dz);
@@ -51,6 +51,10 @@ extern "C" {
     Java_com_samsungxr_NativePicker_pickNode(JNIEnv * env,
             jobject obj, jlong jnode, jfloat ox, jfloat oy, jfloat oz,
             jfloat dx, jfloat dy, jfloat dz);
+    JNIEXPORT jobjectArray JNICALL
+    Java_com_samsungxr_NativePicker_pickNodeAll(JNIEnv * env,
+            jobject obj, jlong jnode, jfloat ox, jfloat oy, jfloat oz,
+            jfloat dx, jfloat dy, jfloat dz);
     JNIEXPORT bool JNICALL
     Java_com_samsungxr_NativePicker_pickNodeAgainstBoundingBox(JNIEnv * env,
             jobject obj, jlong jnode, jfloat ox, jfloat oy, jfloat oz, jfloat dx,
@@ -58,6 +62,9 @@ extern "C" {
     JNIEXPORT jobjectArray JNICALL
     Java_com_samsungxr_NativePicker_pickVisible(JNIEnv * env,
             jobject obj, jlong jscene);
+    JNIEXPORT jobjectArray JNICALL
+    Java_com_samsungxr_NativePicker_pickFrustum(JNIEnv * env,
+            jobject obj, jlong jscene, jlong jtransform, jfloatArray jplanes);
 }
 
 JNIEXPORT jlongArray JNICALL
@@ -306,6 +313,52 @@ Java_com_samsungxr_NativePicker_pickNode(JNIEnv * env,
     return hitObject;
 }
 
+JNIEXPORT jobjectArray JNICALL
+Java_com_samsungxr_NativePicker_pickNodeAll(JNIEnv * env,
+                                            jobject obj, jlong jnode,
+                                            jfloat ox, jfloat oy, jfloat oz,
+                                            jfloat dx, jfloat dy, jfloat dz) {
+    jclass pickerClass = env->FindClass("com/samsungxr/SXRPicker");
+    jclass hitClass = env->FindClass("com/samsungxr/SXRPicker$SXRPickedObject");
+    jmethodID makeHitMesh = env->GetStaticMethodID(pickerClass, "makeHitMesh", "(JFFFFIFFFFFFFF)Lcom/samsungxr/SXRPicker$SXRPickedObject;");
+    jmethodID makeHit = env->GetStaticMethodID(pickerClass, "makeHit", "(JFFFF)Lcom/samsungxr/SXRPicker$SXRPickedObject;");
+
+    Node* node = reinterpret_cast<Node*>(jnode);
+    std::vector<ColliderData> hits;
+
+    Picker::pickNodeAll(node, ox, oy, oz, dx, dy, dz, hits);
+    jobjectArray pickList = env->NewObjectArray(hits.size(), hitClass, NULL);
+    int i = 0;
+
+    for (auto it = hits.begin(); it != hits.end(); ++it) {
+        const ColliderData& data = *it;
+        jlong pointerCollider = reinterpret_cast<jlong>(data.ColliderHit);
+        jobject hitObject;
+        MeshCollider* meshCollider = (MeshCollider *) data.ColliderHit;
+        if(meshCollider && meshCollider->shape_type() == COLLIDER_SHAPE_MESH && meshCollider->pickCoordinatesEnabled()) {
+            hitObject = env->CallStaticObjectMethod(pickerClass, makeHitMesh, pointerCollider,
+                                                    data.Distance,
+                                                    data.HitPosition.x, data.HitPosition.y, data.HitPosition.z,
+                                                    data.FaceIndex,
+                                                    data.BarycentricCoordinates.x, data.BarycentricCoordinates.y, data.BarycentricCoordinates.z,
+                                                    data.TextureCoordinates.x, data.TextureCoordinates.y,
+                                                    data.NormalCoordinates.x, data.NormalCoordinates.y, data.NormalCoordinates.z);
+        }
+        else {
+            hitObject = env->CallStaticObjectMethod(pickerClass, makeHit, pointerCollider,
+                                                    data.Distance,
+                                                    data.HitPosition.x, data.HitPosition.y, data.HitPosition.z);
+        }
+        if (hitObject != 0) {
+            env->SetObjectArrayElement(pickList, i++, hitObject);
+            env->DeleteLocalRef(hitObject);
+        }
+    }
+    env->DeleteLocalRef(pickerClass);
+    env->DeleteLocalRef(hitClass);
+    return pickList;
+}
+
 JNIEXPORT bool JNICALL
 Java_com_samsungxr_NativePicker_pickNodeAgainstBoundingBox(JNIEnv * env,
         jobject obj, jlong jnode,  jfloat ox, jfloat oy, jfloat oz, jfloat dx,
@@ -381,4 +434,47 @@ Java_com_samsungxr_NativePicker_pickVisible(JNIEnv * env,
     return pickList;
 }
 
+JNIEXPORT jobjectArray JNICALL
+Java_com_samsungxr_NativePicker_pickFrustum(JNIEnv * env,
+        jobject obj, jlong jscene, jlong jtransform, jfloatArray jplanes)
+{
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    Transform* t = reinterpret_cast<Transform*>(jtransform);
+    std::vector<ColliderData> colliders;
+    float planes[6][4];
+
+    if (t == NULL)
+    {
+        t = scene->main_camera_rig()->getHeadTransform();
+        if (nullptr == t) {
+            return nullptr;
+        }
+    }
+    env->GetFloatArrayRegion(jplanes, 0, 24, &planes[0][0]);
+    Picker::pickFrustum(scene, t, planes, colliders);
+
+    jclass pickerClass = env->FindClass("com/samsungxr/SXRPicker");
+    jclass hitClass = env->FindClass("com/samsungxr/SXRPicker$SXRPickedObject");
+    jmethodID makeHit = env->GetStaticMethodID(pickerClass, "makeHit", "(JFFFF)Lcom/samsungxr/SXRPicker$SXRPickedObject;");
+    jobjectArray pickList = env->NewObjectArray(colliders.size(), hitClass, NULL);
+    int i = 0;
+
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        const ColliderData& data = *it;
+        jlong pointerCollider = reinterpret_cast<jlong>(data.ColliderHit);
+        jobject hitObject = env->CallStaticObjectMethod(pickerClass, makeHit, pointerCollider,
+                                                        data.Distance,
+                                                        data.HitPosition.x, data.HitPosition.y, data.HitPosition.z);
+        if (hitObject != 0)
+        {
+            env->SetObjectArrayElement(pickList, i++, hitObject);
+            env->DeleteLocalRef(hitObject);
+        }
+    }
+    env->DeleteLocalRef(pickerClass);
+    env->DeleteLocalRef(hitClass);
+    return pickList;
+}
+
 }
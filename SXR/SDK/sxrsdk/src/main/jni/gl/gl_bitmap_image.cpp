@@ -17,6 +17,7 @@
  * Texture from a (Java-loaded) byte stream containing a compressed texture
  ***************************************************************************/
 
+#include <algorithm>
 #include <android/bitmap.h>
 #include "gl/gl_bitmap_image.h"
 #include "util/jni_utils.h"
@@ -93,6 +94,10 @@ void GLBitmapImage::update(int texid)
     {
         return;
     }
+    if (mImmutable && ((mBitmap != NULL) || (mData != NULL)))
+    {
+        recreateTexture();
+    }
     if (mBitmap != NULL)
     {
         JNIEnv* env = getCurrentEnv(mJava);
@@ -100,7 +105,10 @@ void GLBitmapImage::update(int texid)
         if (env)
         {
             updateFromBitmap(env);
-            clearData(env);
+            if (mStreamLevel <= 0)
+            {
+                clearData(env);
+            }
         }
     }
     else if (mData != NULL)
@@ -115,6 +123,19 @@ void GLBitmapImage::update(int texid)
     }
 }
 
+/*
+ * The size and format of a texture allocated with glTexStorage2D
+ * cannot change, new data needs a new texture.
+ */
+void GLBitmapImage::recreateTexture()
+{
+    glDeleteTextures(1, &mId);
+    mId = createTexture();
+    glBindTexture(mGLTarget, mId);
+    mImmutable = false;
+    updateTexParams();
+}
+
 void GLBitmapImage::updateFromMemory(JNIEnv* env)
 {
     if (mData == NULL)
@@ -132,7 +153,7 @@ void GLBitmapImage::updateFromMemory(JNIEnv* env)
         else
         {
             glCompressedTexImage2D(mGLTarget, 0, mFormat, mWidth, mHeight, 0,
-                                   mImageSize, pixels + getDataOffset(0));
+                                   getLevelSize(0), pixels + getDataOffset(0));
         }
     }
     else
@@ -152,7 +173,11 @@ void GLBitmapImage::updateFromBitmap(JNIEnv* env)
         LOGE("BitmapImage::updateFromBitmap bitmap is null");
         return;
     }
-    if (mIsBuffer)
+    if (mIsBuffer && mIsCompressed)
+    {
+        updateFromCompressedBuffer(env);
+    }
+    else if (mIsBuffer)
     {
         updateFromBuffer(env, mGLTarget, mBitmap);
     }
@@ -172,14 +197,80 @@ void GLBitmapImage::loadCompressedMipMaps(jbyte *data, int format)
 {
     for (int level = 0; level < mLevels; ++level)
     {
-        int levelOffset = getDataOffset(level);
-        int levelSize = getDataOffset(level + 1) - levelOffset;
         int width = mWidth >> level;
         int height = mHeight >> level;
         if (width < 1) width = 1;
         if (height < 1) height = 1;
-        glCompressedTexImage2D(mGLTarget, level, format, width, height,
-                               levelOffset, levelSize, data);
+        glCompressedTexImage2D(mGLTarget, level, format, width, height, 0,
+                               getLevelSize(level), data + getDataOffset(level));
+    }
+}
+
+/*
+ * Upload compressed data from a direct buffer (a memory-mapped file).
+ * When streaming, storage for all the levels is allocated but only
+ * the smallest level is uploaded. The texture is usable right away,
+ * streamNextLevel() uploads the larger levels on later frames.
+ */
+void GLBitmapImage::updateFromCompressedBuffer(JNIEnv* env)
+{
+    jbyte* pixels = static_cast<jbyte*>(env->GetDirectBufferAddress(mBitmap));
+
+    if (pixels == NULL)
+    {
+        LOGE("BitmapImage::updateFromCompressedBuffer buffer is not direct");
+        return;
+    }
+    if (mStreamLevels)
+    {
+        int level = mLevels - 1;
+
+        glTexStorage2D(mGLTarget, mLevels, mFormat, mWidth, mHeight);
+        mImmutable = true;
+        glCompressedTexSubImage2D(mGLTarget, level, 0, 0,
+                                  std::max(1, mWidth >> level), std::max(1, mHeight >> level),
+                                  mFormat, getLevelSize(level), pixels + getDataOffset(level));
+        glTexParameteri(mGLTarget, GL_TEXTURE_BASE_LEVEL, level);
+        mStreamLevel = level;
+    }
+    else if (mLevels > 1)
+    {
+        loadCompressedMipMaps(pixels, mFormat);
+    }
+    else
+    {
+        glCompressedTexImage2D(mGLTarget, 0, mFormat, mWidth, mHeight, 0,
+                               getLevelSize(0), pixels + getDataOffset(0));
+    }
+    checkGLError("GLBitmapImage::updateFromCompressedBuffer");
+}
+
+/*
+ * Upload the next larger mip level of a streamed texture.
+ * Called with the texture bound. The mapped buffer is
+ * released after the largest level is uploaded.
+ */
+void GLBitmapImage::streamNextLevel()
+{
+    std::lock_guard<std::mutex> lock(mUpdateLock);
+    JNIEnv* env = getCurrentEnv(mJava);
+
+    if ((mStreamLevel <= 0) || (mBitmap == NULL) || (env == NULL))
+    {
+        return;
+    }
+    jbyte* pixels = static_cast<jbyte*>(env->GetDirectBufferAddress(mBitmap));
+    int level = mStreamLevel - 1;
+
+    glCompressedTexSubImage2D(mGLTarget, level, 0, 0,
+                              std::max(1, mWidth >> level), std::max(1, mHeight >> level),
+                              mFormat, getLevelSize(level), pixels + getDataOffset(level));
+    glTexParameteri(mGLTarget, GL_TEXTURE_BASE_LEVEL, level);
+    checkGLError("GLBitmapImage::streamNextLevel");
+    mStreamLevel = level;
+    if (level == 0)
+    {
+        clearData(env);
     }
 }
 
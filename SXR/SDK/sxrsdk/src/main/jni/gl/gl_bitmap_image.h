@@ -29,7 +29,8 @@ namespace sxr {
     {
     public:
         explicit GLBitmapImage(int format) :
-                BitmapImage(format), GLImage(GL_TEXTURE_2D)
+                BitmapImage(format), GLImage(GL_TEXTURE_2D),
+                mImmutable(false)
         { }
 
         virtual ~GLBitmapImage() {}
@@ -40,7 +41,13 @@ namespace sxr {
 
         virtual bool isReady()
         {
-            return updateGPU() && checkForUpdate(mId);
+            bool ready = updateGPU() && checkForUpdate(mId);
+
+            if (ready && (mStreamLevel > 0))
+            {
+                streamNextLevel();
+            }
+            return ready;
         }
 
         virtual void texParamsChanged(const TextureParameters& texparams)
@@ -65,9 +72,14 @@ namespace sxr {
         void updateFromMemory(JNIEnv* env);
         void updateFromBitmap(JNIEnv* env);
         void loadCompressedMipMaps(jbyte *data, int format);
+        void updateFromCompressedBuffer(JNIEnv* env);
+        void streamNextLevel();
 
     private:
         void updateFromBuffer(JNIEnv *env, int target, jobject bitmap);
+        void recreateTexture();
+
+        bool mImmutable;    // storage allocated with glTexStorage2D
     };
 
 }
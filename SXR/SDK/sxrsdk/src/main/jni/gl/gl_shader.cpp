@@ -23,10 +23,27 @@
 #include "engine/renderer/renderer.h"
 #include "gl_light.h"
 #include <GLES3/gl3.h>
+#include <cstdio>
 #include "util/sxr_log.h"
 
 namespace sxr {
 
+std::mutex GLShader::sProgramCacheLock;
+std::string GLShader::sProgramCacheDir;
+
+/*
+ * Header of a program binary file in the cache,
+ * followed by the binary data.
+ */
+struct ProgramBinaryHeader
+{
+    uint32_t magic;
+    uint32_t format;
+    uint32_t length;
+};
+
+static const uint32_t PROGRAM_BINARY_MAGIC = 0x53585250;
+
     GLShader::GLShader(int id,
                const char* signature,
                const char* uniformDescriptor,
@@ -464,11 +481,159 @@ GLuint GLShader::loadShader(GLenum shaderType, const char* sourceString)
     return shader;
 }
 
+void GLShader::setProgramCacheDirectory(const char* dir)
+{
+    std::lock_guard<std::mutex> lock(sProgramCacheLock);
+    sProgramCacheDir = (dir != nullptr) ? dir : "";
+}
+
+static uint64_t hashString(uint64_t hash, const char* s)
+{
+    if (s != nullptr)
+    {
+        while (*s)
+        {
+            hash ^= (unsigned char) *s++;
+            hash *= 1099511628211ULL;
+        }
+    }
+    hash ^= 0xFF;
+    hash *= 1099511628211ULL;
+    return hash;
+}
+
+/*
+ * The binary of a program can only be used with the driver
+ * which made it, so the file name is a hash of the GL vendor,
+ * renderer and version as well as the shader sources.
+ * Returns an empty string if the cache is disabled or the
+ * driver does not support any program binary formats.
+ */
+std::string GLShader::getProgramCachePath() const
+{
+    std::string dir;
+    {
+        std::lock_guard<std::mutex> lock(sProgramCacheLock);
+        dir = sProgramCacheDir;
+    }
+    if (dir.empty())
+    {
+        return dir;
+    }
+    GLint numFormats = 0;
+    glGetIntegerv(GL_NUM_PROGRAM_BINARY_FORMATS, &numFormats);
+    if (numFormats <= 0)
+    {
+        return std::string();
+    }
+    uint64_t hash = 14695981039346656037ULL;
+    hash = hashString(hash, (const char*) glGetString(GL_VENDOR));
+    hash = hashString(hash, (const char*) glGetString(GL_RENDERER));
+    hash = hashString(hash, (const char*) glGetString(GL_VERSION));
+    hash = hashString(hash, mVertexShader.c_str());
+    hash = hashString(hash, mFragmentShader.c_str());
+
+    char name[32];
+    snprintf(name, sizeof(name), "/%016llx.bin", (unsigned long long) hash);
+    return dir + name;
+}
+
+GLuint GLShader::loadProgramBinary(const std::string& path)
+{
+    FILE* file = fopen(path.c_str(), "rb");
+    if (file == nullptr)
+    {
+        return 0;
+    }
+    ProgramBinaryHeader header;
+    std::vector<char> binary;
+    bool valid = (fread(&header, sizeof(header), 1, file) == 1) &&
+                 (header.magic == PROGRAM_BINARY_MAGIC) &&
+                 (header.length > 0);
+    if (valid)
+    {
+        binary.resize(header.length);
+        valid = fread(binary.data(), 1, header.length, file) == header.length;
+    }
+    fclose(file);
+    if (!valid)
+    {
+        remove(path.c_str());
+        return 0;
+    }
+    GLuint program = glCreateProgram();
+    if (program == 0)
+    {
+        return 0;
+    }
+    glProgramBinary(program, header.format, binary.data(), header.length);
+    GLint linkStatus = GL_FALSE;
+    glGetProgramiv(program, GL_LINK_STATUS, &linkStatus);
+    if (linkStatus != GL_TRUE)
+    {
+        // driver rejected the binary, compile again and replace it
+        LOGW("SHADER: cached program binary rejected %s", path.c_str());
+        glDeleteProgram(program);
+        remove(path.c_str());
+        return 0;
+    }
+#ifdef DEBUG_SHADER
+    LOGV("SHADER: loaded program %d from %s", program, path.c_str());
+#endif
+    return program;
+}
+
+void GLShader::saveProgramBinary(GLuint program, const std::string& path)
+{
+    GLint length = 0;
+    glGetProgramiv(program, GL_PROGRAM_BINARY_LENGTH, &length);
+    if (length <= 0)
+    {
+        return;
+    }
+    std::vector<char> binary(length);
+    GLenum format = 0;
+    GLsizei written = 0;
+    glGetProgramBinary(program, length, &written, &format, binary.data());
+    if (written <= 0)
+    {
+        return;
+    }
+    std::string tempPath = path + ".tmp";
+    FILE* file = fopen(tempPath.c_str(), "wb");
+    if (file == nullptr)
+    {
+        LOGW("SHADER: cannot write program binary %s", tempPath.c_str());
+        return;
+    }
+    ProgramBinaryHeader header;
+    header.magic = PROGRAM_BINARY_MAGIC;
+    header.format = format;
+    header.length = written;
+    bool ok = (fwrite(&header, sizeof(header), 1, file) == 1) &&
+              (fwrite(binary.data(), 1, written, file) == (size_t) written);
+    ok = (fclose(file) == 0) && ok;
+    if (!ok || (rename(tempPath.c_str(), path.c_str()) != 0))
+    {
+        remove(tempPath.c_str());
+    }
+}
+
 GLuint GLShader::createProgram()
 {
     const char* vertexSourceString = mVertexShader.c_str();
     const char* fragmentSourceString = mFragmentShader.c_str();
     int vlen = mVertexShader.size();
+    std::string cachePath = getProgramCachePath();
+
+    if (!cachePath.empty())
+    {
+        GLuint program = loadProgramBinary(cachePath);
+        if (program)
+        {
+            return program;
+        }
+    }
     GLuint vertexShader = loadShader(GL_VERTEX_SHADER, mVertexShader.c_str());
     if (!vertexShader)
     {
@@ -496,6 +661,10 @@ GLuint GLShader::createProgram()
         glAttachShader(program, vertexShader);
         glAttachShader(program, pixelShader);
         bindVertexAttribs(program);
+        if (!cachePath.empty())
+        {
+            glProgramParameteri(program, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+        }
         checkGLError("createProgram");
         glLinkProgram(program);
         GLint linkStatus = GL_FALSE;
@@ -517,6 +686,10 @@ GLuint GLShader::createProgram()
             glDeleteProgram(program);
             program = 0;
         }
+        else if (!cachePath.empty())
+        {
+            saveProgramBinary(program, cachePath);
+        }
     }
     return program;
 }
@@ -74,11 +74,22 @@ public:
     int getTextureLoc(int index) const;
     static std::string makeLayout(const DataDescriptor& desc, const char* blockName, bool useGPUBuffer);
 
+    /*
+     * Set the directory where linked program binaries are saved.
+     * A program is loaded from its binary instead of being compiled
+     * if the sources and the GL driver have not changed.
+     * @param dir   cache directory, null or empty to disable the cache
+     */
+    static void setProgramCacheDirectory(const char* dir);
+
 protected:
     void initialize(bool);
     void bindVertexAttribs(int programId);
     GLuint createProgram();
     GLuint loadShader(GLenum shaderType, const char* shaderSource);
+    std::string getProgramCachePath() const;
+    GLuint loadProgramBinary(const std::string& path);
+    void saveProgramBinary(GLuint program, const std::string& path);
 
 private:
     GLShader(const GLShader& shader) = delete;
@@ -90,6 +101,9 @@ private:
     bool mIsReady;
     std::vector<int> mShaderLocs[LAST_UBO_INDEX + 1];
     std::vector<int> mTextureLocs;
+
+    static std::mutex sProgramCacheLock;
+    static std::string sProgramCacheDir;
 };
 
 }
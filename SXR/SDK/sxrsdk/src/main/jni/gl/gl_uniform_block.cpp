@@ -281,32 +281,4 @@ namespace sxr {
         }
     }
 
-    bool GLUniformBlock::setFloatVec(const char* name, const float* val, int n)
-    {
-        int bytesize;
-        n *= sizeof(float);
-        char* data = getData(name, bytesize);
-        if (data != NULL)
-        {
-            memcpy(data, val, n);
-            markDirty();
-            return true;
-        }
-        return false;
-    }
-
-    bool GLUniformBlock::setIntVec(const char* name, const int* val, int n)
-    {
-        int bytesize;
-        n *= sizeof(int);
-        char *data = getData(name, bytesize);
-        if (data != NULL)
-        {
-            memcpy(data, val, n);
-            markDirty();
-            return true;
-        }
-        return false;
-    }
-
 }
\ No newline at end of file
@@ -49,8 +49,6 @@ namespace sxr
         virtual bool bindBuffer(Shader *, Renderer *, int locationOffset = 0);
 
         virtual std::string makeShaderLayout();
-        virtual bool setFloatVec(const char *name, const float *val, int n);
-        virtual bool setIntVec(const char *name, const int *val, int n);
 
         /**
          * Dump the contents of the shader uniforms to the log.
@@ -111,6 +111,18 @@ namespace sxr {
             LOGV("VertexBuffer::updateGPU created vertex buffer %d with %d vertices", mVBufferID, getVertexCount());
             mIsDirty = false;
         }
+        else if (mIsDirty && (mDirtyEnd > mDirtyFirst) &&
+                 ((mDirtyFirst > 0) || (mDirtyEnd < getVertexCount())))
+        {
+            // only part of the buffer changed, copy just those vertices
+            int vsize = getTotalSize();
+            GL(glBindBuffer(GL_ARRAY_BUFFER, mVBufferID));
+            GL(glBufferSubData(GL_ARRAY_BUFFER, mDirtyFirst * vsize, (mDirtyEnd - mDirtyFirst) * vsize,
+                               mVertexData + mDirtyFirst * vsize));
+            GL(glBindBuffer(GL_ARRAY_BUFFER, 0));
+            mIsDirty = false;
+            LOGV("VertexBuffer::updateGPU updated vertices %d to %d of vertex buffer %d", mDirtyFirst, mDirtyEnd, mVBufferID);
+        }
         else if (mIsDirty)
         {
             GL(glBindBuffer(GL_ARRAY_BUFFER, mVBufferID));
@@ -120,6 +132,7 @@ namespace sxr {
             mIsDirty = false;
             LOGV("VertexBuffer::updateGPU updated vertex buffer %d", mVBufferID);
         }
+        mDirtyFirst = mDirtyEnd = 0;
         return true;
     }
 
@@ -47,7 +47,8 @@ namespace sxr {
         {
             glm::vec3 start(rayStart);
             glm::vec3 dir(rayDir);
-            glm::mat4 model_inverse = glm::affineInverse(t->getModelMatrix());
+            model_matrix = t->getModelMatrix();
+            glm::mat4 model_inverse = glm::affineInverse(model_matrix);
             transformRay(model_inverse, start, dir);
             bounds.expand(halfExtent);
             bounds.expand(-halfExtent);
@@ -58,12 +59,39 @@ namespace sxr {
                 hitData.IsHit = true;
                 hitData.HitPosition = hitPos;
                 p = model_matrix * p;
-                hitData.Distance = glm::length(start - glm::vec3(p));
+                hitData.Distance = glm::length(rayStart - glm::vec3(p));
             }
         }
         return hitData;
     }
 
+    /*
+     * Compute the world space box enclosing the collider.
+     * If no extents are given the bounds of the owner are used.
+     */
+    bool BoxCollider::getWorldBounds(Node* owner, glm::vec3& minCorner, glm::vec3& maxCorner)
+    {
+        Transform* t = owner->transform();
+
+        if (glm::length(half_extents_) == 0)
+        {
+            const BoundingVolume& bounds = owner->getBoundingVolume();
+            if (bounds.radius() <= 0)
+            {
+                return false;
+            }
+            minCorner = bounds.min_corner();
+            maxCorner = bounds.max_corner();
+            return true;
+        }
+        if (t == NULL)
+        {
+            return false;
+        }
+        transformBounds(t->getModelMatrix(), -half_extents_, half_extents_, minCorner, maxCorner);
+        return true;
+    }
+
     /*
      * Determine if the sphere hits the box.
      * @param sphere array with sphere center and radius
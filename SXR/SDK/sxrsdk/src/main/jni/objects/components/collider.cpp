@@ -22,6 +22,7 @@
 #include "glm/gtc/matrix_inverse.hpp"
 #include "objects/scene.h"
 #include "objects/node.h"
+#include "engine/picker/collider_bvh.h"
 
 namespace sxr
 {
@@ -45,6 +46,15 @@ namespace sxr
         rayStart = glm::vec3(start);
     }
 
+    Collider::~Collider()
+    {
+        ColliderBVH* bvh = bvh_;
+        if (bvh != nullptr)
+        {
+            bvh->remove(this);
+        }
+    }
+
     void Collider::onAddedToScene(Scene *scene)
     {
         scene->addCollider(this);
@@ -55,6 +65,20 @@ namespace sxr
         scene->removeCollider(this);
     }
 
+    void Collider::onBoundsChanged()
+    {
+        // avoid taking the lock on every transform change of a moving object
+        if (bvh_dirty_)
+        {
+            return;
+        }
+        ColliderBVH* bvh = bvh_;
+        if (bvh != nullptr)
+        {
+            bvh->markDirty(this);
+        }
+    }
+
 /*
  * Transform a sphere in world coordinates to be in the coordinate space of a model.
  * @param model_matrix 4x4 matrix to transform model into world coordinates
@@ -74,6 +98,30 @@ namespace sxr
         sphere[2] = (c1.z + c2.z) / 2;
         sphere[3] = glm::distance(glm::vec3(c1.x, c1.y, c1.z), glm::vec3(c2.x, c2.y, c2.z)) / 2.0f;
     }
-}
 
+/*
+ * Transform an axially aligned box in model coordinates into
+ * the axially aligned box in world coordinates which encloses it.
+ * @param model_matrix 4x4 matrix to transform model into world coordinates
+ * @param localMin     minimum corner of the box in model coordinates
+ * @param localMax     maximum corner of the box in model coordinates
+ */
+    void Collider::transformBounds(const glm::mat4& model_matrix,
+                                   const glm::vec3& localMin, const glm::vec3& localMax,
+                                   glm::vec3& minCorner, glm::vec3& maxCorner)
+    {
+        glm::vec3 center = (localMin + localMax) * 0.5f;
+        glm::vec3 extent = (localMax - localMin) * 0.5f;
+        glm::vec3 worldCenter = glm::vec3(model_matrix * glm::vec4(center, 1));
+        glm::vec3 worldExtent;
 
+        for (int i = 0; i < 3; ++i)
+        {
+            worldExtent[i] = fabs(model_matrix[0][i]) * extent.x +
+                             fabs(model_matrix[1][i]) * extent.y +
+                             fabs(model_matrix[2][i]) * extent.z;
+        }
+        minCorner = worldCenter - worldExtent;
+        maxCorner = worldCenter + worldExtent;
+    }
+}
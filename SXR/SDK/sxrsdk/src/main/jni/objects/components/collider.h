@@ -22,6 +22,7 @@
 #define COLLIDER_H_
 
 #include <vector>
+#include <atomic>
 #include "glm/glm.hpp"
 
 #include "collider_shape_types.h"
@@ -29,6 +30,7 @@
 
 namespace sxr {
 class Collider;
+class ColliderBVH;
 
 /*
  * Information from a collision when a collider is picked.
@@ -60,7 +62,12 @@ public:
 class Collider: public Component
 {
 public:
-    virtual ~Collider() {}
+    /*
+     * Takes the collider out of the bounding volume
+     * hierarchy of its scene, so the hierarchy never
+     * holds a collider which has been destroyed.
+     */
+    virtual ~Collider();
 
     /*
      * Hit test the input ray against this collider.
@@ -91,6 +98,44 @@ public:
      */
     virtual ColliderData isHit(Node* owner, const float sphere[]) = 0;
 
+    /*
+     * Compute an axially aligned box in world coordinates
+     * which encloses everything this collider can hit.
+     *
+     * The scene keeps these boxes in a bounding volume
+     * hierarchy so picking only hit tests the colliders
+     * near the pick ray or sphere.
+     *
+     * @param owner       Node which owns this collider.
+     * @param minCorner   gets the minimum corner of the box
+     * @param maxCorner   gets the maximum corner of the box
+     *
+     * @returns true if the box was computed, false if the collider
+     *          cannot be bounded and must always be hit tested.
+     */
+    virtual bool getWorldBounds(Node* owner, glm::vec3& minCorner, glm::vec3& maxCorner) {
+        return false;
+    }
+
+    /*
+     * Called when the transform or the mesh of the owner
+     * has changed, so the world bounds must be recomputed.
+     * Does nothing if the collider is already marked.
+     */
+    void onBoundsChanged();
+
+    /*
+     * Frame this collider was last found visible in,
+     * used to pick only visible colliders.
+     */
+    int visible_frame() const {
+        return visible_frame_;
+    }
+
+    void set_visible_frame(int frame) {
+        visible_frame_ = frame;
+    }
+
     virtual long shape_type() {
         return COLLIDER_SHAPE_UNKNOWN;
     }
@@ -110,12 +155,28 @@ public:
     virtual void onAddedToScene(Scene* scene);
     virtual void onRemovedFromScene(Scene* scene);
     static void transformSphere(const glm::mat4& model_matrix, float* sphere);
+    static void transformBounds(const glm::mat4& model_matrix,
+                                const glm::vec3& localMin, const glm::vec3& localMax,
+                                glm::vec3& minCorner, glm::vec3& maxCorner);
 
 protected:
-    Collider() : Component(Collider::getComponentType()), pick_distance_(0) {}
-    explicit Collider(long long type) : Component(type), pick_distance_(0) {}
+    Collider() : Component(Collider::getComponentType()), pick_distance_(0),
+                 visible_frame_(-1), bvh_(nullptr), bvh_proxy_(-1),
+                 bvh_dirty_(false), bvh_unbounded_(false) {}
+    explicit Collider(long long type) : Component(type), pick_distance_(0),
+                 visible_frame_(-1), bvh_(nullptr), bvh_proxy_(-1),
+                 bvh_dirty_(false), bvh_unbounded_(false) {}
 
     float pick_distance_;
+    int   visible_frame_;
+
+private:
+    friend class ColliderBVH;
+
+    std::atomic<ColliderBVH*> bvh_;
+    int     bvh_proxy_;
+    std::atomic<bool> bvh_dirty_;
+    bool    bvh_unbounded_;
 
     Collider(const Collider& collider) = delete;
     Collider(Collider&& collider) = delete;
@@ -19,6 +19,7 @@
  ***************************************************************************/
 
 #include <limits>
+#include <algorithm>
 
 #include "glm/glm.hpp"
 #include "glm/gtc/matrix_inverse.hpp"
@@ -30,6 +31,14 @@
 
 namespace sxr
 {
+    /*
+     * Meshes with fewer indices than this are hit tested
+     * one triangle at a time without building a hierarchy.
+     */
+    static const int MIN_BVH_INDEX_COUNT = 64 * 3;
+
+    static void populateSurfaceCoords(const Mesh& mesh, ColliderData& colliderData);
+
     MeshCollider::MeshCollider(Mesh* mesh) :
             Collider(getComponentType()), mesh_(mesh), pickCoordinates_(false),
             useMeshBounds_(false)
@@ -116,6 +125,98 @@ namespace sxr
         return data;
     }
 
+/*
+ * Hit test the triangles in the mesh against the input ray
+ * and return every triangle hit, not just the closest one.
+ *
+ * The hits are sorted by distance from the ray origin,
+ * nearest first. The hit points are in local coordinates,
+ * the distances are in world coordinates.
+ * If the collider uses the mesh bounds there is at most one hit.
+ *
+ * @param owner       Node which owns this collider.
+ * @param rayStart    origin of the ray in world coordinates
+ * @param rayDir      direction of the ray in world coordinates
+ * @param hits        gets a ColliderData structure for each hit
+ */
+    void MeshCollider::isHitAll(Node* owner, const glm::vec3& rayStart, const glm::vec3& rayDir,
+                                std::vector<ColliderData>& hits)
+    {
+        Mesh* mesh = mesh_;
+        RenderData* rd = owner->render_data();
+        glm::mat4 model_matrix = owner->transform()->getModelMatrix();
+        glm::mat4 model_inverse = glm::affineInverse(model_matrix);
+        glm::vec3 O(rayStart);
+        glm::vec3 D(rayDir);
+
+        transformRay(model_inverse, O, D);
+        if ((mesh == NULL) && (rd != NULL))
+        {
+            mesh = rd->mesh();
+        }
+        if (mesh == NULL)
+        {
+            return;
+        }
+        size_t first = hits.size();
+        if (useMeshBounds_)
+        {
+            ColliderData data = MeshCollider::isHit(mesh->getBoundingVolume(), O, D);
+            if (data.IsHit)
+            {
+                hits.push_back(data);
+            }
+        }
+        else
+        {
+            MeshCollider::isHitAll(*mesh, O, D, hits);
+        }
+        for (size_t i = first; i < hits.size(); ++i)
+        {
+            ColliderData& data = hits[i];
+            glm::vec4 p = model_matrix * glm::vec4(data.HitPosition, 1);
+
+            data.Distance = glm::length(rayStart - glm::vec3(p));
+            data.ColliderHit = this;
+            data.ObjectHit = owner;
+            if (pickCoordinates_ && !useMeshBounds_)
+            {
+                populateSurfaceCoords(*mesh, data);
+            }
+        }
+        std::sort(hits.begin() + first, hits.end(),
+                  [](const ColliderData& a, const ColliderData& b)
+        {
+            return a.Distance < b.Distance;
+        });
+    }
+
+/*
+ * Compute the world space box enclosing the mesh.
+ */
+    bool MeshCollider::getWorldBounds(Node* owner, glm::vec3& minCorner, glm::vec3& maxCorner)
+    {
+        Mesh* mesh = mesh_;
+        RenderData* rd = owner->render_data();
+        Transform* t = owner->transform();
+
+        if ((mesh == NULL) && (rd != NULL))
+        {
+            mesh = rd->mesh();
+        }
+        if ((mesh == NULL) || (t == NULL))
+        {
+            return false;
+        }
+        const BoundingVolume& bounds = mesh->getBoundingVolume();
+        if (bounds.radius() <= 0)
+        {
+            return false;
+        }
+        transformBounds(t->getModelMatrix(), bounds.min_corner(), bounds.max_corner(), minCorner, maxCorner);
+        return true;
+    }
+
 /*
  * Hit test the bounding sphere of the mesh against the input sphere.
  *
@@ -274,10 +375,43 @@ static void populateSurfaceCoords(const Mesh& mesh, ColliderData& colliderData)
  * @param pickCoordinates whether or not coordinate picking info will be generated
  * @return ColliderData with the hit point and distance in model coordinates
  */
-    ColliderData MeshCollider::isHit(const Mesh& mesh, const glm::vec3& rayStart, const glm::vec3& rayDir, bool pickCoordinates)
+    ColliderData MeshCollider::isHit(Mesh& mesh, const glm::vec3& rayStart, const glm::vec3& rayDir, bool pickCoordinates)
     {
         ColliderData data;
-        if (mesh.getVertexCount() > 0)
+        std::shared_ptr<const MeshBVH> bvh;
+
+        if (mesh.getVertexCount() <= 0)
+        {
+            return data;
+        }
+        if (mesh.getIndexCount() >= MIN_BVH_INDEX_COUNT)
+        {
+            bvh = mesh.getTriangleBVH();
+        }
+        if (bvh)
+        {
+            /*
+             * Visit the triangles near the ray, nearest first,
+             * skipping everything behind the closest hit so far.
+             */
+            bvh->raycast(rayStart, rayDir, data.Distance,
+                         [&data, &rayStart, &rayDir](int face, const glm::vec3& A, const glm::vec3& B,
+                                                     const glm::vec3& C, float maxDistance) -> float
+            {
+                glm::vec3 hitPos;
+                float distance = rayTriangleIntersect(hitPos, rayStart, rayDir, A, B, C);
+                if ((distance > 0) && (distance < data.Distance))
+                {
+                    data.IsHit = true;
+                    data.HitPosition = hitPos;
+                    data.Distance = distance;
+                    data.FaceIndex = face;
+                    return distance;
+                }
+                return maxDistance;
+            });
+        }
+        else
         {
             mesh.forAllTriangles([&data, rayStart, rayDir](int iter, const float* v1, const float* v2, const float* v3) mutable
             {
@@ -299,12 +433,69 @@ static void populateSurfaceCoords(const Mesh& mesh, ColliderData& colliderData)
                     data.FaceIndex = iter;
                 }
             });
-            if(pickCoordinates && data.IsHit)
+        }
+        if(pickCoordinates && data.IsHit)
+        {
+            populateSurfaceCoords(mesh, data);
+        }
+        return data;
+    }
+
+/*
+ * Hit test the input ray against the triangles of the given mesh
+ * and return every triangle hit, in no particular order.
+ * @param mesh      mesh to hit test
+ * @param rayStart  start of the pick ray in model coordinates
+ * @param rayDir    direction of the pick ray in model coordinates
+ * @param hits      gets the hit point and distance in model coordinates of each hit
+ */
+    void MeshCollider::isHitAll(Mesh& mesh, const glm::vec3& rayStart, const glm::vec3& rayDir,
+                                std::vector<ColliderData>& hits)
+    {
+        std::shared_ptr<const MeshBVH> bvh;
+
+        if (mesh.getVertexCount() <= 0)
+        {
+            return;
+        }
+        if (mesh.getIndexCount() >= MIN_BVH_INDEX_COUNT)
+        {
+            bvh = mesh.getTriangleBVH();
+        }
+        auto addHit = [&hits, &rayStart, &rayDir](int face, const glm::vec3& A, const glm::vec3& B,
+                                                  const glm::vec3& C)
+        {
+            glm::vec3 hitPos;
+            float distance = rayTriangleIntersect(hitPos, rayStart, rayDir, A, B, C);
+            if (distance > 0)
             {
-                populateSurfaceCoords(mesh, data);
+                ColliderData data;
+                data.IsHit = true;
+                data.HitPosition = hitPos;
+                data.Distance = distance;
+                data.FaceIndex = face;
+                hits.push_back(data);
             }
+        };
+        if (bvh)
+        {
+            bvh->raycast(rayStart, rayDir, std::numeric_limits<float>::infinity(),
+                         [&addHit](int face, const glm::vec3& A, const glm::vec3& B,
+                                   const glm::vec3& C, float maxDistance)
+            {
+                addHit(face, A, B, C);
+                return maxDistance;
+            });
+        }
+        else
+        {
+            mesh.forAllTriangles([&addHit](int iter, const float* v1, const float* v2, const float* v3)
+            {
+                addHit(iter, glm::vec3(v1[0], v1[1], v1[2]),
+                       glm::vec3(v2[0], v2[1], v2[2]),
+                       glm::vec3(v3[0], v3[1], v3[2]));
+            });
         }
-        return data;
     }
 
     /*
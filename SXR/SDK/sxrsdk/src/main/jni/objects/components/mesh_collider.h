@@ -22,6 +22,7 @@
 #define MESH_COLLIDER_H_
 
 #include <memory>
+#include <vector>
 
 #include "collider.h"
 
@@ -46,6 +47,7 @@ public:
 
     void set_mesh(Mesh* mesh) {
         mesh_ = mesh;
+        onBoundsChanged();
     }
 
     bool pickCoordinatesEnabled(){
@@ -54,6 +56,8 @@ public:
 
     ColliderData isHit(Node* owner, const float sphere[]);
     ColliderData isHit(Node* owner, const glm::vec3& rayStart, const glm::vec3& rayDir);
+    void isHitAll(Node* owner, const glm::vec3& rayStart, const glm::vec3& rayDir, std::vector<ColliderData>& hits);
+    bool getWorldBounds(Node* owner, glm::vec3& minCorner, glm::vec3& maxCorner);
     static ColliderData isHit(const BoundingVolume& bounds, const glm::vec3& rayStart, const glm::vec3& rayDir);
     static ColliderData isHit(const BoundingVolume& bounds, const float sphere[]);
     static ColliderData isHit(const Mesh& mesh, const float sphere[]);
@@ -63,7 +67,8 @@ private:
     MeshCollider(MeshCollider&& mesh_collider) = delete;
     MeshCollider& operator=(const MeshCollider& mesh_collider) = delete;
     MeshCollider& operator=(MeshCollider&& mesh_collider) = delete;
-    static ColliderData isHit(const Mesh& mesh, const glm::vec3& rayStart, const glm::vec3& rayDir, bool pickCoordinates);
+    static ColliderData isHit(Mesh& mesh, const glm::vec3& rayStart, const glm::vec3& rayDir, bool pickCoordinates);
+    static void isHitAll(Mesh& mesh, const glm::vec3& rayStart, const glm::vec3& rayDir, std::vector<ColliderData>& hits);
     static float rayTriangleIntersect(glm::vec3& hitPos, const glm::vec3& rayStart, const glm::vec3& rayDir,
                                const glm::vec3& V1, const glm::vec3& V2, const glm::vec3& V3);
 private:
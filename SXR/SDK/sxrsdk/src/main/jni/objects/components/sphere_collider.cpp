@@ -82,6 +82,44 @@ ColliderData SphereCollider::isHit(Node* owner, const glm::vec3& rayStart, const
     return data;
 }
 
+/*
+ * Compute the world space box enclosing the sphere.
+ * The center and radius are found the same way as
+ * when hit testing a ray.
+ */
+bool SphereCollider::getWorldBounds(Node* owner, glm::vec3& minCorner, glm::vec3& maxCorner)
+{
+    glm::vec3    sphCenter(0, 0, 0);
+    float        radius = radius_;
+    RenderData*  rd = owner->render_data();
+    Transform*   t = owner->transform();
+
+    if (t == NULL)
+    {
+        return false;
+    }
+    if (rd != NULL)
+    {
+        Mesh* mesh = rd->mesh();
+        if (mesh != NULL)
+        {
+            const BoundingVolume& meshbv = mesh->getBoundingVolume();
+            sphCenter = meshbv.center();
+            if (radius <= 0)
+            {
+                radius = meshbv.radius();
+            }
+        }
+    }
+    if (radius <= 0)
+    {
+        radius = 1;
+    }
+    transformBounds(t->getModelMatrix(), sphCenter - glm::vec3(radius), sphCenter + glm::vec3(radius),
+                    minCorner, maxCorner);
+    return true;
+}
+
 /*
  * Determine if the input sphere hits the sphere collider.
  * @param owner       Node which owns this collider.
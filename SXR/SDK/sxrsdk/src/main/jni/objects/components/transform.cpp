@@ -137,6 +137,27 @@ void Transform::setModelMatrix(glm::mat4 matrix) {
     invalidate(true);
 }
 
+/*
+ * Set the position, rotation and scale together from an
+ * array of ten floats: x, y, z, then w, x, y, z, then x, y, z.
+ * Only the parts selected by the flags are changed.
+ * The lock is taken and the matrix invalidated once.
+ */
+void Transform::setTRS(int flags, const float* trs) {
+    mutex_.lock();
+    if (flags & TRS_POSITION) {
+        position_ = glm::vec3(trs[0], trs[1], trs[2]);
+    }
+    if (flags & TRS_ROTATION) {
+        rotation_ = glm::quat(trs[3], trs[4], trs[5], trs[6]);
+    }
+    if (flags & TRS_SCALE) {
+        scale_ = glm::vec3(trs[7], trs[8], trs[9]);
+    }
+    mutex_.unlock();
+    invalidate((flags & TRS_ROTATION) != 0);
+}
+
 void Transform::translate(float x, float y, float z) {
     mutex_.lock();
     position_ += glm::vec3(x, y, z);
@@ -246,6 +246,18 @@ public:
     void rotateWithPivot(float w, float x, float y, float z, float pivot_x,
             float pivot_y, float pivot_z);
     void setModelMatrix(glm::mat4 mat);
+    void setTRS(int flags, const float* trs);
+
+    /*
+     * Flags for setTRS telling which parts of
+     * the position, rotation, scale record to use.
+     */
+    enum
+    {
+        TRS_POSITION = 1,
+        TRS_ROTATION = 2,
+        TRS_SCALE = 4
+    };
 
 private:
     Transform(const Transform& transform) = delete;
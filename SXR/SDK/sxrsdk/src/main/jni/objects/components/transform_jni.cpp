@@ -13,6 +13,8 @@
  * limitations under the License.
  */
 #include <jni.h>
+#include <cstddef>
+#include <cstring>
 
 #include "transform.h"
 #include "glm/gtc/type_ptr.hpp"
@@ -143,9 +145,45 @@ Java_com_samsungxr_NativeTransform_rotateWithPivot(
         jfloat quat_x, jfloat quat_y, jfloat quat_z, jfloat pivot_x,
         jfloat pivot_y, jfloat pivot_z);
 
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeTransform_commitBatch(JNIEnv * env,
+        jobject obj, jobject jrecords, jint count);
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeTransform_getModelMatrices(JNIEnv * env,
+        jobject obj, jobject jrecords, jint count, jobject jmatrices);
+
 }
 ;
 
+/*
+ * One record of an SXRTransformBatch, the layout
+ * must match SXRTransformBatch.RECORD_SIZE.
+ */
+struct TransformRecord {
+    jlong   transform;
+    jint    flags;
+    float   trs[10];
+    jint    unused;
+};
+
+static_assert(sizeof(TransformRecord) == 56, "TransformRecord must be 56 bytes");
+// same offsets as SXRTransformBatch writes
+static_assert(offsetof(TransformRecord, flags) == 8, "TransformRecord flags must be at 8");
+static_assert(offsetof(TransformRecord, trs) == 12, "TransformRecord position must be at 12");
+static_assert(offsetof(TransformRecord, trs) + 3 * sizeof(float) == 24, "TransformRecord rotation must be at 24");
+static_assert(offsetof(TransformRecord, trs) + 7 * sizeof(float) == 40, "TransformRecord scale must be at 40");
+
+static TransformRecord* getRecords(JNIEnv * env, jobject jrecords, jint count) {
+    TransformRecord* records = static_cast<TransformRecord*>(env->GetDirectBufferAddress(jrecords));
+    if ((records == nullptr) || (count < 0) ||
+        (env->GetDirectBufferCapacity(jrecords) < count * (jlong) sizeof(TransformRecord))) {
+        LOGE("NativeTransform: transform batch buffer is not direct or too small for %d records", count);
+        return nullptr;
+    }
+    return records;
+}
+
 JNIEXPORT jlong JNICALL
 Java_com_samsungxr_NativeTransform_ctor(JNIEnv * env,
         jobject obj) {
@@ -401,5 +439,38 @@ Java_com_samsungxr_NativeTransform_rotateWithPivot(
             pivot_y, pivot_z);
 }
 
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeTransform_commitBatch(JNIEnv * env,
+        jobject obj, jobject jrecords, jint count) {
+    TransformRecord* records = getRecords(env, jrecords, count);
+    if (records == nullptr) {
+        return JNI_FALSE;
+    }
+    for (int i = 0; i < count; ++i) {
+        const TransformRecord& r = records[i];
+        Transform* transform = reinterpret_cast<Transform*>(r.transform);
+        if ((transform != nullptr) && (r.flags != 0)) {
+            transform->setTRS(r.flags, r.trs);
+        }
+    }
+    return JNI_TRUE;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeTransform_getModelMatrices(JNIEnv * env,
+        jobject obj, jobject jrecords, jint count, jobject jmatrices) {
+    TransformRecord* records = getRecords(env, jrecords, count);
+    float* matrices = static_cast<float*>(env->GetDirectBufferAddress(jmatrices));
+    if ((records == nullptr) || (matrices == nullptr) ||
+        (env->GetDirectBufferCapacity(jmatrices) < count * 16 * (jlong) sizeof(float))) {
+        return JNI_FALSE;
+    }
+    for (int i = 0; i < count; ++i) {
+        Transform* transform = reinterpret_cast<Transform*>(records[i].transform);
+        glm::mat4 matrix = (transform != nullptr) ? transform->getModelMatrix() : glm::mat4();
+        memcpy(matrices + 16 * i, glm::value_ptr(matrix), 16 * sizeof(float));
+    }
+    return JNI_TRUE;
+}
 
 }
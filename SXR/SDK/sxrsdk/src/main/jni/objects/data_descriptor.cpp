@@ -26,6 +26,7 @@ namespace sxr
     DataDescriptor::DataDescriptor(const char* descriptor) :
             mTotalSize(0),
             mIsDirty(false),
+            mVersion(0),
             mDescriptor(descriptor)
     {
         if (descriptor)
@@ -145,7 +145,15 @@ namespace sxr {
          * @returns true if data has been updated, else false.
          */
         bool isDirty() const { return mIsDirty; }
-        virtual void markDirty() { mIsDirty = true; }
+        virtual void markDirty() { mIsDirty = true; ++mVersion; }
+
+        /*
+         * Get the number of times the data has changed.
+         * Unlike the dirty flag this is not reset when
+         * the data is sent to the GPU, so it can tell
+         * whether something derived from the data is stale.
+         */
+        unsigned int getVersion() const { return mVersion; }
 
         virtual std::string makeShaderType(const char* type, int byteSize);
 
@@ -168,6 +176,7 @@ namespace sxr {
         int findName(const char* name) const;
 
         mutable bool mIsDirty;          // true if data in block has changed since last render
+        unsigned int mVersion;          // incremented every time the data changes
         std::string mDescriptor;        // descriptor with name, type and size of uniforms
         int         mTotalSize;         // number of bytes in data block or vertex
         std::vector<DataEntry> mLayout; // entries describing layout
@@ -17,6 +17,7 @@ namespace sxr {
       mIndexData(NULL),
       mIndexByteSize(0),
       mIsDirty(false),
+      mVersion(0),
       mUpdateLock()
     {
         if (bytesPerIndex > 0)
@@ -78,6 +79,7 @@ namespace sxr {
         dest = reinterpret_cast<unsigned short*>(mIndexData);
         memcpy(dest, src, srcSize * sizeof(short));
         mIsDirty = true;
+        ++mVersion;
         return 1;
     }
 
@@ -107,6 +109,7 @@ namespace sxr {
         dest = reinterpret_cast<unsigned int*>(mIndexData);
         memcpy(dest, src, srcSize * sizeof(int));
         mIsDirty = true;
+        ++mVersion;
         return 1;
     }
 
@@ -87,6 +87,7 @@ namespace sxr {
         bool    getShortVec(unsigned short* dest, int destSize) const;
 
         bool            isDirty() const { return mIsDirty; }
+        unsigned int    getVersion() const { return mVersion; }
         virtual bool    bindBuffer(Shader*) = 0;
         virtual bool    updateGPU(Renderer*) = 0;
         void            dump() const;
@@ -97,6 +98,7 @@ namespace sxr {
 
         mutable std::mutex mUpdateLock;
         mutable bool    mIsDirty;
+        unsigned int    mVersion;   // incremented every time the indices change
         int     mIndexByteSize;     // index size in bytes (either 2 or 4)
         int     mIndexCount;        // current number of vertices
         char*   mIndexData;         // index data buffer
@@ -74,6 +74,50 @@ namespace sxr
         return bounding_volume;
     }
 
+/*
+ * If only the vertices changed the old hierarchy is copied
+ * and refit, otherwise a new one is built. Pickers still
+ * holding the old hierarchy can keep using it.
+ */
+    std::shared_ptr<const MeshBVH> Mesh::getTriangleBVH()
+    {
+        VertexBuffer* vbuf = mVertices;
+        IndexBuffer* ibuf = mIndices;
+
+        if ((vbuf == nullptr) || (ibuf == nullptr) || (ibuf->getIndexCount() < 3))
+        {
+            return nullptr;
+        }
+        std::lock_guard<std::mutex> lock(mTriangleBVHLock);
+        std::shared_ptr<const MeshBVH> bvh = mTriangleBVH;
+
+        if (bvh && bvh->isCurrent(*vbuf, *ibuf))
+        {
+            return bvh;
+        }
+        std::shared_ptr<MeshBVH> newBVH;
+        if (bvh && bvh->canRefit(*vbuf, *ibuf))
+        {
+            newBVH = std::make_shared<MeshBVH>(*bvh);
+            if (!newBVH->refit(*vbuf, *ibuf))
+            {
+                newBVH->build(*vbuf, *ibuf);
+            }
+        }
+        else
+        {
+            newBVH = std::make_shared<MeshBVH>();
+            newBVH->build(*vbuf, *ibuf);
+        }
+        if (newBVH->getTriangleCount() == 0)
+        {
+            mTriangleBVH.reset();
+            return nullptr;
+        }
+        mTriangleBVH = newBVH;
+        return mTriangleBVH;
+    }
+
     void Mesh::getTransformedBoundingBoxInfo(glm::mat4 *Mat, float* transformed_bounding_box)
     {
         if (!have_bounding_volume_)
@@ -22,6 +22,7 @@
 
 #include <map>
 #include <memory>
+#include <mutex>
 #include <vector>
 #include <string>
 #include <set>
@@ -33,6 +34,7 @@
 #include "objects/bounding_volume.h"
 #include "objects/vertex_buffer.h"
 #include "objects/index_buffer.h"
+#include "objects/mesh_bvh.h"
 #include "bounding_volume.h"
 
 namespace sxr {
@@ -85,6 +87,16 @@ public:
 
     const BoundingVolume& getBoundingVolume();
 
+    /*
+     * Get the bounding volume hierarchy of the triangles in this mesh,
+     * used to speed up hit testing against large meshes.
+     * It is built the first time it is asked for and kept until the
+     * vertex or index data changes. The hierarchy returned is never
+     * modified, a new one is made when the mesh changes.
+     * @returns hierarchy or null if the mesh has no indexed triangles
+     */
+    std::shared_ptr<const MeshBVH> getTriangleBVH();
+
     bool isDirty() const { return mVertices->isDirty(); }
 
 private:
@@ -98,6 +110,8 @@ protected:
     VertexBuffer* mVertices;
     bool have_bounding_volume_;
     BoundingVolume bounding_volume;
+    std::mutex mTriangleBVHLock;
+    std::shared_ptr<const MeshBVH> mTriangleBVH;
 };
 }
 #endif
\ No newline at end of file
@@ -0,0 +1,376 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Bounding volume hierarchy of the triangles in a mesh.
+ ***************************************************************************/
+
+#include <algorithm>
+#include <limits>
+
+#include "objects/mesh_bvh.h"
+#include "objects/vertex_buffer.h"
+#include "objects/index_buffer.h"
+#include "util/sxr_log.h"
+
+namespace sxr
+{
+    static const int   NUM_BINS = 16;           // SAH candidates per axis
+    static const int   MAX_LEAF_SIZE = 4;       // always make a leaf at or below this
+    static const int   MAX_SAH_LEAF_SIZE = 16;  // may make a leaf at or below this if splitting costs more
+    static const float TRAVERSAL_COST = 1.0f;   // cost of a box test relative to a triangle test
+
+    static float surfaceArea(const glm::vec3& minCorner, const glm::vec3& maxCorner)
+    {
+        glm::vec3 d(maxCorner - minCorner);
+        return (d.x * d.y) + (d.y * d.z) + (d.z * d.x);
+    }
+
+    MeshBVH::MeshBVH()
+    : mDepth(0),
+      mVertexBuffer(nullptr),
+      mIndexBuffer(nullptr),
+      mVertexVersion(0),
+      mIndexVersion(0),
+      mVertexCount(0)
+    {
+    }
+
+    bool MeshBVH::isCurrent(const VertexBuffer& vbuf, const IndexBuffer& ibuf) const
+    {
+        return (mVertexBuffer == &vbuf) && (mIndexBuffer == &ibuf) &&
+               (mVertexVersion == vbuf.getVersion()) &&
+               (mIndexVersion == ibuf.getVersion());
+    }
+
+    bool MeshBVH::canRefit(const VertexBuffer& vbuf, const IndexBuffer& ibuf) const
+    {
+        return !mNodes.empty() &&
+               (mVertexBuffer == &vbuf) && (mIndexBuffer == &ibuf) &&
+               (mIndexVersion == ibuf.getVersion()) &&
+               (mVertexCount == vbuf.getVertexCount());
+    }
+
+    void MeshBVH::remember(const VertexBuffer& vbuf, const IndexBuffer& ibuf)
+    {
+        mVertexBuffer = &vbuf;
+        mIndexBuffer = &ibuf;
+        mVertexVersion = vbuf.getVersion();
+        mIndexVersion = ibuf.getVersion();
+        mVertexCount = vbuf.getVertexCount();
+    }
+
+/*
+ * Copy the three positions of every triangle, in the order
+ * given by mFaces, into the positions array.
+ * Indices outside the vertex buffer are clamped to the first vertex.
+ */
+    bool MeshBVH::readTriangles(const VertexBuffer& vbuf, const IndexBuffer& ibuf,
+                                std::vector<glm::vec3>& positions) const
+    {
+        int index, offset, size;
+        const float* vertData = vbuf.getVertexData();
+        const void* indexData = ibuf.getIndexData();
+        int numVerts = vbuf.getVertexCount();
+        int stride = vbuf.getVertexSize();
+        int numFaces = (int) mFaces.size();
+
+        if ((vertData == nullptr) || (indexData == nullptr) || (numVerts <= 0) ||
+            (ibuf.getIndexCount() < numFaces * 3) ||
+            !vbuf.getInfo("a_position", index, offset, size))
+        {
+            return false;
+        }
+        const float* posData = vertData + offset / sizeof(float);
+        const unsigned short* shortData = reinterpret_cast<const unsigned short*>(indexData);
+        const unsigned int* intData = reinterpret_cast<const unsigned int*>(indexData);
+        bool shortIndices = (ibuf.getIndexSize() == 2);
+
+        positions.resize(numFaces * 3);
+        for (int i = 0; i < numFaces; ++i)
+        {
+            int f = mFaces[i] * 3;
+            for (int j = 0; j < 3; ++j)
+            {
+                int v = shortIndices ? shortData[f + j] : (int) intData[f + j];
+                if ((v < 0) || (v >= numVerts))
+                {
+                    v = 0;
+                }
+                const float* p = posData + stride * v;
+                positions[i * 3 + j] = glm::vec3(p[0], p[1], p[2]);
+            }
+        }
+        return true;
+    }
+
+    bool MeshBVH::build(const VertexBuffer& vbuf, const IndexBuffer& ibuf)
+    {
+        int numFaces = ibuf.getIndexCount() / 3;
+
+        mNodes.clear();
+        mFaces.clear();
+        mPositions.clear();
+        mDepth = 0;
+        remember(vbuf, ibuf);
+        if (numFaces <= 0)
+        {
+            return false;
+        }
+        mFaces.resize(numFaces);
+        for (int i = 0; i < numFaces; ++i)
+        {
+            mFaces[i] = i;
+        }
+        std::vector<glm::vec3> positions;
+        if (!readTriangles(vbuf, ibuf, positions))
+        {
+            mFaces.clear();
+            return false;
+        }
+        /*
+         * Bounds and centroids are indexed by face and
+         * mFaces is permuted as the tree is built.
+         */
+        std::vector<BuildTriangle> tris(numFaces);
+        for (int i = 0; i < numFaces; ++i)
+        {
+            const glm::vec3* v = &positions[i * 3];
+            BuildTriangle& t = tris[i];
+            t.minCorner = glm::min(glm::min(v[0], v[1]), v[2]);
+            t.maxCorner = glm::max(glm::max(v[0], v[1]), v[2]);
+            t.centroid = (t.minCorner + t.maxCorner) * 0.5f;
+        }
+        mNodes.reserve(2 * numFaces / MAX_LEAF_SIZE + 1);
+        mNodes.push_back(TreeNode());
+        buildNode(0, 0, numFaces, 1, tris);
+        readTriangles(vbuf, ibuf, mPositions);
+        LOGV("MeshBVH: built %d nodes for %d triangles, depth %d", (int) mNodes.size(), numFaces, mDepth);
+        return true;
+    }
+
+    void MeshBVH::buildNode(int nodeIndex, int first, int count, int depth, std::vector<BuildTriangle>& tris)
+    {
+        glm::vec3 minCorner(std::numeric_limits<float>::max());
+        glm::vec3 maxCorner(-std::numeric_limits<float>::max());
+        glm::vec3 minCenter(minCorner);
+        glm::vec3 maxCenter(maxCorner);
+
+        for (int i = first; i < first + count; ++i)
+        {
+            const BuildTriangle& t = tris[mFaces[i]];
+            minCorner = glm::min(minCorner, t.minCorner);
+            maxCorner = glm::max(maxCorner, t.maxCorner);
+            minCenter = glm::min(minCenter, t.centroid);
+            maxCenter = glm::max(maxCenter, t.centroid);
+        }
+        mNodes[nodeIndex].minCorner = minCorner;
+        mNodes[nodeIndex].maxCorner = maxCorner;
+        mNodes[nodeIndex].index = first;
+        mNodes[nodeIndex].count = count;
+        if (depth > mDepth)
+        {
+            mDepth = depth;
+        }
+        if ((count <= MAX_LEAF_SIZE) || (depth >= MAX_DEPTH))
+        {
+            return;
+        }
+        /*
+         * Find the bin boundary with the lowest surface area cost
+         * along each axis. Splitting after bin b puts bins 0..b on the left.
+         */
+        glm::vec3 extent(maxCenter - minCenter);
+        float bestCost = std::numeric_limits<float>::max();
+        int bestAxis = -1;
+        int bestBin = 0;
+
+        for (int axis = 0; axis < 3; ++axis)
+        {
+            if (extent[axis] <= 0)
+            {
+                continue;
+            }
+            int binCount[NUM_BINS];
+            glm::vec3 binMin[NUM_BINS];
+            glm::vec3 binMax[NUM_BINS];
+            float rightArea[NUM_BINS];
+            float scale = NUM_BINS / extent[axis];
+
+            for (int b = 0; b < NUM_BINS; ++b)
+            {
+                binCount[b] = 0;
+                binMin[b] = glm::vec3(std::numeric_limits<float>::max());
+                binMax[b] = glm::vec3(-std::numeric_limits<float>::max());
+            }
+            for (int i = first; i < first + count; ++i)
+            {
+                const BuildTriangle& t = tris[mFaces[i]];
+                int b = std::min(NUM_BINS - 1, (int) ((t.centroid[axis] - minCenter[axis]) * scale));
+                ++binCount[b];
+                binMin[b] = glm::min(binMin[b], t.minCorner);
+                binMax[b] = glm::max(binMax[b], t.maxCorner);
+            }
+            glm::vec3 lo(std::numeric_limits<float>::max());
+            glm::vec3 hi(-std::numeric_limits<float>::max());
+            for (int b = NUM_BINS - 1; b > 0; --b)
+            {
+                lo = glm::min(lo, binMin[b]);
+                hi = glm::max(hi, binMax[b]);
+                rightArea[b] = surfaceArea(lo, hi);
+            }
+            lo = glm::vec3(std::numeric_limits<float>::max());
+            hi = glm::vec3(-std::numeric_limits<float>::max());
+            int leftCount = 0;
+            for (int b = 0; b < NUM_BINS - 1; ++b)
+            {
+                leftCount += binCount[b];
+                lo = glm::min(lo, binMin[b]);
+                hi = glm::max(hi, binMax[b]);
+                int rightCount = count - leftCount;
+                if ((leftCount == 0) || (rightCount == 0))
+                {
+                    continue;
+                }
+                float cost = surfaceArea(lo, hi) * leftCount + rightArea[b + 1] * rightCount;
+                if (cost < bestCost)
+                {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+        }
+        int mid;
+        if (bestAxis >= 0)
+        {
+            float area = surfaceArea(minCorner, maxCorner);
+            float leafCost = count * area;
+            float splitCost = TRAVERSAL_COST * area + bestCost;
+
+            if ((splitCost >= leafCost) && (count <= MAX_SAH_LEAF_SIZE))
+            {
+                return;
+            }
+            float minCenterAxis = minCenter[bestAxis];
+            float scale = NUM_BINS / extent[bestAxis];
+            int axis = bestAxis;
+            int split = bestBin;
+            int* middle = std::partition(&mFaces[first], &mFaces[first] + count,
+                                         [&tris, axis, minCenterAxis, scale, split](int f)
+            {
+                int b = std::min(NUM_BINS - 1, (int) ((tris[f].centroid[axis] - minCenterAxis) * scale));
+                return b <= split;
+            });
+            mid = (int) (middle - &mFaces[0]);
+        }
+        else
+        {
+            /*
+             * All the centroids are at the same place,
+             * split the triangles in half so the leaves stay small.
+             */
+            mid = first + count / 2;
+        }
+        if ((mid <= first) || (mid >= first + count))
+        {
+            mid = first + count / 2;
+        }
+        int left = (int) mNodes.size();
+        mNodes.push_back(TreeNode());
+        buildNode(left, first, mid - first, depth + 1, tris);
+        int right = (int) mNodes.size();
+        mNodes.push_back(TreeNode());
+        buildNode(right, mid, first + count - mid, depth + 1, tris);
+        mNodes[nodeIndex].index = right;
+        mNodes[nodeIndex].count = 0;
+    }
+
+/*
+ * Children always come after their parent so the boxes
+ * can be recomputed by walking the nodes backwards.
+ */
+    bool MeshBVH::refit(const VertexBuffer& vbuf, const IndexBuffer& ibuf)
+    {
+        if (!canRefit(vbuf, ibuf) || !readTriangles(vbuf, ibuf, mPositions))
+        {
+            return false;
+        }
+        for (int i = (int) mNodes.size() - 1; i >= 0; --i)
+        {
+            TreeNode& node = mNodes[i];
+            if (node.count > 0)
+            {
+                const glm::vec3* v = &mPositions[node.index * 3];
+                glm::vec3 minCorner(v[0]);
+                glm::vec3 maxCorner(v[0]);
+                for (int j = 1; j < node.count * 3; ++j)
+                {
+                    minCorner = glm::min(minCorner, v[j]);
+                    maxCorner = glm::max(maxCorner, v[j]);
+                }
+                node.minCorner = minCorner;
+                node.maxCorner = maxCorner;
+            }
+            else
+            {
+                const TreeNode& child1 = mNodes[i + 1];
+                const TreeNode& child2 = mNodes[node.index];
+                node.minCorner = glm::min(child1.minCorner, child2.minCorner);
+                node.maxCorner = glm::max(child1.maxCorner, child2.maxCorner);
+            }
+        }
+        mVertexVersion = vbuf.getVersion();
+        return true;
+    }
+
+/*
+ * Slab test of a ray against the box of a node.
+ * @param entry gets the distance where the ray enters the box
+ * @returns true if the ray enters the box before maxDistance
+ */
+    bool MeshBVH::intersectRay(const TreeNode& node, const glm::vec3& start,
+                               const glm::vec3& invDir, float maxDistance, float& entry)
+    {
+        glm::vec3 t1((node.minCorner - start) * invDir);
+        glm::vec3 t2((node.maxCorner - start) * invDir);
+        glm::vec3 tmin(glm::min(t1, t2));
+        glm::vec3 tmax(glm::max(t1, t2));
+
+        /*
+         * A ray parallel to an axis is in that slab all the way
+         * if it starts inside it. Without this, a ray lying on
+         * the max face would leave the box at distance 0.
+         */
+        for (int i = 0; i < 3; ++i)
+        {
+            if (invDir[i] == PARALLEL)
+            {
+                if ((start[i] < node.minCorner[i]) || (start[i] > node.maxCorner[i]))
+                {
+                    return false;
+                }
+                tmin[i] = 0;
+                tmax[i] = maxDistance;
+            }
+        }
+        float enter = std::max(std::max(tmin.x, tmin.y), std::max(tmin.z, 0.0f));
+        float exit = std::min(std::min(tmax.x, tmax.y), std::min(tmax.z, maxDistance));
+
+        entry = enter;
+        return enter <= exit;
+    }
+}
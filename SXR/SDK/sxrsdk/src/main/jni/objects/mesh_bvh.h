@@ -0,0 +1,223 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Bounding volume hierarchy of the triangles in a mesh.
+ ***************************************************************************/
+
+#ifndef MESH_BVH_H_
+#define MESH_BVH_H_
+
+#include <vector>
+#include <utility>
+#include "glm/glm.hpp"
+
+namespace sxr {
+class VertexBuffer;
+class IndexBuffer;
+
+/*
+ * Static bounding volume hierarchy over the triangles
+ * of an indexed mesh, used to hit test mesh colliders
+ * without visiting every triangle.
+ *
+ * The tree is built top down, splitting each node
+ * where the surface area heuristic is lowest among
+ * a fixed number of bins along each axis.
+ * The triangle positions are copied into the tree in
+ * leaf order so a query does not touch the vertex buffer.
+ *
+ * The tree remembers which versions of the vertex and index
+ * buffers it was made from. If only the vertices change
+ * the boxes are refit without changing the tree shape,
+ * if the indices change the tree must be built again.
+ *
+ * A tree is not changed after it is built or refit,
+ * so it can be queried from several threads at once.
+ */
+class MeshBVH {
+public:
+    MeshBVH();
+    MeshBVH(const MeshBVH& bvh) = default;
+
+    /*
+     * Build the tree from the triangles of a mesh.
+     * @param vbuf  vertex buffer with a_position
+     * @param ibuf  index buffer with three indices per triangle
+     * @returns true if built, false if there are no triangles
+     */
+    bool build(const VertexBuffer& vbuf, const IndexBuffer& ibuf);
+
+    /*
+     * Recompute the boxes from the current vertices,
+     * keeping the shape of the tree.
+     * Only valid if canRefit returns true.
+     */
+    bool refit(const VertexBuffer& vbuf, const IndexBuffer& ibuf);
+
+    /*
+     * Determine if the tree was made from the current
+     * contents of these buffers.
+     */
+    bool isCurrent(const VertexBuffer& vbuf, const IndexBuffer& ibuf) const;
+
+    /*
+     * Determine if the tree can be updated by refitting
+     * (same buffers and indices, only the vertices changed).
+     */
+    bool canRefit(const VertexBuffer& vbuf, const IndexBuffer& ibuf) const;
+
+    /*
+     * Visit the triangles whose leaf boxes are entered by the
+     * ray nearer than maxDistance, nearest boxes first.
+     * The visitor is called as
+     *  float visit(int face, const glm::vec3& v1, const glm::vec3& v2,
+     *              const glm::vec3& v3, float maxDistance)
+     * and returns the new maximum distance. A closest hit query
+     * returns the distance of the closest hit so far to skip
+     * everything behind it, a query for all hits returns maxDistance.
+     * @param start origin of ray in mesh coordinates
+     * @param dir   direction of ray in mesh coordinates,
+     *              distances are multiples of its length
+     */
+    template <class Visitor>
+    void raycast(const glm::vec3& start, const glm::vec3& dir, float maxDistance, Visitor visit) const;
+
+    int getTriangleCount() const { return (int) mFaces.size(); }
+    int getNodeCount() const { return (int) mNodes.size(); }
+    int getDepth() const { return mDepth; }
+
+    static const int MAX_DEPTH = 48;
+
+private:
+    /*
+     * Interior nodes have count == 0, their first child
+     * immediately follows them and index is the second child.
+     * Leaves have count > 0 and index is their first triangle.
+     */
+    struct TreeNode {
+        glm::vec3   minCorner;
+        int         index;
+        glm::vec3   maxCorner;
+        int         count;
+    };
+
+    struct BuildTriangle {
+        glm::vec3   minCorner;
+        glm::vec3   maxCorner;
+        glm::vec3   centroid;
+    };
+
+    bool readTriangles(const VertexBuffer& vbuf, const IndexBuffer& ibuf, std::vector<glm::vec3>& positions) const;
+    void buildNode(int nodeIndex, int first, int count, int depth, std::vector<BuildTriangle>& tris);
+    void remember(const VertexBuffer& vbuf, const IndexBuffer& ibuf);
+
+    static bool intersectRay(const TreeNode& node, const glm::vec3& start,
+                             const glm::vec3& invDir, float maxDistance, float& entry);
+
+    // marks an axis the ray is parallel to, avoids 0 * infinity in the slab test
+    static constexpr float PARALLEL = 1e30f;
+
+    static float inverse(float d) { return (d != 0) ? 1.0f / d : PARALLEL; }
+
+    std::vector<TreeNode>   mNodes;
+    std::vector<int>        mFaces;         // face index of each triangle in leaf order
+    std::vector<glm::vec3>  mPositions;     // three vertices for each triangle in leaf order
+    int                     mDepth;
+
+    const VertexBuffer*     mVertexBuffer;
+    const IndexBuffer*      mIndexBuffer;
+    unsigned int            mVertexVersion;
+    unsigned int            mIndexVersion;
+    int                     mVertexCount;
+};
+
+template <class Visitor>
+void MeshBVH::raycast(const glm::vec3& start, const glm::vec3& dir, float maxDistance, Visitor visit) const
+{
+    if (mNodes.empty())
+    {
+        return;
+    }
+    glm::vec3 invDir(inverse(dir.x), inverse(dir.y), inverse(dir.z));
+    int stack[MAX_DEPTH + 2];
+    float entries[MAX_DEPTH + 2];
+    int top = 0;
+    float entry;
+
+    if (!intersectRay(mNodes[0], start, invDir, maxDistance, entry))
+    {
+        return;
+    }
+    stack[top] = 0;
+    entries[top++] = entry;
+    while (top > 0)
+    {
+        --top;
+        if (entries[top] > maxDistance)
+        {
+            continue;
+        }
+        const TreeNode* node = &mNodes[stack[top]];
+        while (node->count == 0)
+        {
+            int child1 = (int) (node - &mNodes[0]) + 1;
+            int child2 = node->index;
+            float entry1, entry2;
+            bool hit1 = intersectRay(mNodes[child1], start, invDir, maxDistance, entry1);
+            bool hit2 = intersectRay(mNodes[child2], start, invDir, maxDistance, entry2);
+
+            if (hit1 && hit2)
+            {
+                // descend into the nearer child, save the farther one
+                if (entry2 < entry1)
+                {
+                    std::swap(child1, child2);
+                    std::swap(entry1, entry2);
+                }
+                stack[top] = child2;
+                entries[top++] = entry2;
+                node = &mNodes[child1];
+            }
+            else if (hit1)
+            {
+                node = &mNodes[child1];
+            }
+            else if (hit2)
+            {
+                node = &mNodes[child2];
+            }
+            else
+            {
+                node = nullptr;
+                break;
+            }
+        }
+        if (node == nullptr)
+        {
+            continue;
+        }
+        const glm::vec3* v = &mPositions[node->index * 3];
+        for (int i = 0; i < node->count; ++i, v += 3)
+        {
+            maxDistance = visit(mFaces[node->index + i], v[0], v[1], v[2], maxDistance);
+        }
+    }
+}
+
+}
+
+#endif
@@ -316,6 +316,10 @@ void Node::getDescendants(std::vector<Node*>& descendants) {
 }
 
 void Node::dirtyHierarchicalBoundingVolume() {
+    Collider* collider = static_cast<Collider*>(getComponent(Collider::getComponentType()));
+    if (collider != NULL) {
+        collider->onBoundsChanged();
+    }
     if (bounding_volume_dirty_) {
         return;
     }
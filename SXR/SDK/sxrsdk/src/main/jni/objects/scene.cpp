@@ -39,7 +39,8 @@ Scene::Scene() :
         frustum_flag_(false),
         dirtyFlag_(0),
         occlusion_flag_(false),
-        pick_visible_(true)
+        pick_visible_(true),
+        visible_frame_(0)
 
 { }
 
@@ -122,6 +123,7 @@ void Scene::clearAllColliders() {
     lockColliders();
     allColliders.clear();
     visibleColliders.clear();
+    collider_bvh_.clear();
     unlockColliders();
 }
 
@@ -130,26 +132,29 @@ void Scene::pick(Node* sceneobj) {
          Collider* collider = static_cast<Collider*>(sceneobj->getComponent(Collider::getComponentType()));
         if (collider) {
             visibleColliders.push_back(collider);
+            collider->set_visible_frame(visible_frame_);
         }
      }
 }
 
 void Scene::addCollider(Collider* collider) {
+    lockColliders();
     auto it = std::find(allColliders.begin(), allColliders.end(), collider);
     if (it == allColliders.end()) {
-        lockColliders();
         allColliders.push_back(collider);
-        unlockColliders();
+        collider_bvh_.insert(collider);
     }
+    unlockColliders();
 }
 
 void Scene::removeCollider(Collider* collider) {
+    lockColliders();
     auto it = std::find(allColliders.begin(), allColliders.end(), collider);
     if (it != allColliders.end()) {
-        lockColliders();
         allColliders.erase(it);
-        unlockColliders();
+        collider_bvh_.remove(collider);
     }
+    unlockColliders();
 }
 
 /**
@@ -31,6 +31,7 @@
 #include "engine/renderer/renderer.h"
 #include "objects/lightlist.h"
 #include "objects/node.h"
+#include "engine/picker/collider_bvh.h"
 
 
 namespace sxr {
@@ -151,7 +152,10 @@ public:
      * to contain only the pickable objects that are visible.
      * This function does not lock the collider list!
      */
-    void clearVisibleColliders() { visibleColliders.clear(); }
+    void clearVisibleColliders() {
+        visibleColliders.clear();
+        ++visible_frame_;
+    }
 
     /*
      * Called during culling to add a node's
@@ -165,11 +169,27 @@ public:
      * is returned. Otherwise the list of all colliders is returned.
      * You should call unlockColliders after you are done with the list.
      */
-    const std::vector<Component*> lockColliders() {
+    const std::vector<Component*>& lockColliders() {
         collider_mutex_.lock();
         return pick_visible_ ? visibleColliders : allColliders;
     }
 
+    /*
+     * Get the bounding volume hierarchy of all the colliders.
+     * Only use it after calling lockColliders.
+     */
+    ColliderBVH& getColliderBVH() {
+        return collider_bvh_;
+    }
+
+    /*
+     * Returns true if the collider can be picked:
+     * it is visible or set_pick_visible is not set.
+     */
+    bool isPickable(const Collider* collider) const {
+        return !pick_visible_ || (collider->visible_frame() == visible_frame_);
+    }
+
     /*
      * Unlock the collider list.
      * Don't call this unless you have called lockColliders first.
@@ -216,6 +236,8 @@ private:
     LightList lights_;
     std::vector<Component*> allColliders;
     std::vector<Component*> visibleColliders;
+    ColliderBVH collider_bvh_;
+    int visible_frame_;
 };
 
 }
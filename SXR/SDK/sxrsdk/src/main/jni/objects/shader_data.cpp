@@ -205,6 +205,80 @@ bool  ShaderData::getMat4(const char* name, glm::mat4& m) const
     return uniforms().getMat4(name, m);
 }
 
+/**
+ * Get the handle for a named uniform.
+ * Materials using the same shader share the same handles.
+ * @see UniformBlock::getHandle
+ */
+int ShaderData::getUniformHandle(const char* name) const
+{
+    std::lock_guard<std::mutex> lock(mLock);
+    return uniforms().getHandle(name);
+}
+
+bool  ShaderData::setInt(int handle, int val)
+{
+    std::lock_guard<std::mutex> lock(mLock);
+    makeDirty(MAT_DATA);
+    return uniforms().setInt(handle, val);
+}
+
+bool  ShaderData::setFloat(int handle, float val)
+{
+    std::lock_guard<std::mutex> lock(mLock);
+    makeDirty(MAT_DATA);
+    return uniforms().setFloat(handle, val);
+}
+
+bool  ShaderData::setIntVec(int handle, const int* val, int n)
+{
+    std::lock_guard<std::mutex> lock(mLock);
+    makeDirty(MAT_DATA);
+    return uniforms().setIntVec(handle, val, n);
+}
+
+bool  ShaderData::setFloatVec(int handle, const float* val, int n)
+{
+    std::lock_guard<std::mutex> lock(mLock);
+    makeDirty(MAT_DATA);
+    return uniforms().setFloatVec(handle, val, n);
+}
+
+bool  ShaderData::setVec2(int handle, const glm::vec2& v)
+{
+    std::lock_guard<std::mutex> lock(mLock);
+    makeDirty(MAT_DATA);
+    return uniforms().setVec2(handle, v);
+}
+
+bool  ShaderData::setVec3(int handle, const glm::vec3& v)
+{
+    std::lock_guard<std::mutex> lock(mLock);
+    makeDirty(MAT_DATA);
+    return uniforms().setVec3(handle, v);
+}
+
+bool  ShaderData::setVec4(int handle, const glm::vec4& v)
+{
+    std::lock_guard<std::mutex> lock(mLock);
+    makeDirty(MAT_DATA);
+    return uniforms().setVec4(handle, v);
+}
+
+bool  ShaderData::setMat4(int handle, const glm::mat4& m)
+{
+    std::lock_guard<std::mutex> lock(mLock);
+    makeDirty(MAT_DATA);
+    return uniforms().setMat4(handle, m);
+}
+
+bool  ShaderData::setFloatRange(int handle, const float* val, int n)
+{
+    std::lock_guard<std::mutex> lock(mLock);
+    makeDirty(MAT_DATA);
+    return uniforms().setFloatRange(handle, val, n);
+}
+
 void ShaderData::makeDirty(DIRTY_BITS bits)
 {
     int temp = mDirty;
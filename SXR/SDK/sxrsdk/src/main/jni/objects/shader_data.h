@@ -73,6 +73,16 @@ public:
     bool    setVec4(const char* name, const glm::vec4& v);
     bool    getMat4(const char* name, glm::mat4& m) const;
     bool    setMat4(const char* name, const glm::mat4& m);
+    int     getUniformHandle(const char* name) const;
+    bool    setInt(int handle, int val);
+    bool    setFloat(int handle, float val);
+    bool    setIntVec(int handle, const int* val, int n);
+    bool    setFloatVec(int handle, const float* val, int n);
+    bool    setVec2(int handle, const glm::vec2& v);
+    bool    setVec3(int handle, const glm::vec3& v);
+    bool    setVec4(int handle, const glm::vec4& v);
+    bool    setMat4(int handle, const glm::mat4& m);
+    bool    setFloatRange(int handle, const float* val, int n);
     void    makeDirty(DIRTY_BITS bits);
     void    clearDirty();
     bool    isDirty(DIRTY_BITS bits) const;
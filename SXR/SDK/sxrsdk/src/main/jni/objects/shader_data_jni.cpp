@@ -118,6 +118,48 @@ JNIEXPORT jboolean JNICALL
 Java_com_samsungxr_NativeShaderData_copyUniforms(JNIEnv* env,
                                              jobject obj, jlong jdest, jlong jsrc);
 
+JNIEXPORT jint JNICALL
+Java_com_samsungxr_NativeShaderData_getUniformHandle(JNIEnv* env,
+                                                   jobject obj, jlong jshader_data, jstring key);
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setIntHandle(JNIEnv* env,
+                                               jobject obj, jlong jshader_data, jint handle, jint value);
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setFloatHandle(JNIEnv* env,
+                                                 jobject obj, jlong jshader_data, jint handle, jfloat value);
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setVec2Handle(JNIEnv* env,
+                                                jobject obj, jlong jshader_data, jint handle,
+                                                jfloat x, jfloat y);
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setVec3Handle(JNIEnv* env,
+                                                jobject obj, jlong jshader_data, jint handle,
+                                                jfloat x, jfloat y, jfloat z);
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setVec4Handle(JNIEnv* env,
+                                                jobject obj, jlong jshader_data, jint handle,
+                                                jfloat x, jfloat y, jfloat z, jfloat w);
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setFloatVecHandle(JNIEnv* env,
+                                                    jobject obj, jlong jshader_data, jint handle,
+                                                    jfloatArray jvec, jint size);
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setIntVecHandle(JNIEnv* env,
+                                                  jobject obj, jlong jshader_data, jint handle,
+                                                  jintArray jvec, jint size);
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setFloatRange(JNIEnv* env,
+                                                jobject obj, jlong jshader_data, jint handle,
+                                                jfloatArray jvec, jint offset, jint count);
+
 };
 
 
@@ -375,7 +417,110 @@ Java_com_samsungxr_NativeShaderData_copyUniforms(JNIEnv* env,
     return dest->copyUniforms(src);
 }
 
+JNIEXPORT jint JNICALL
+Java_com_samsungxr_NativeShaderData_getUniformHandle(JNIEnv* env,
+                                                   jobject obj, jlong jshader_data, jstring key)
+{
+    ShaderData* shader_data = reinterpret_cast<ShaderData*>(jshader_data);
+    const char* char_key = env->GetStringUTFChars(key, 0);
+    int handle = shader_data->getUniformHandle(char_key);
+    env->ReleaseStringUTFChars(key, char_key);
+    return handle;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setIntHandle(JNIEnv* env,
+                                               jobject obj, jlong jshader_data, jint handle, jint value)
+{
+    ShaderData* shader_data = reinterpret_cast<ShaderData*>(jshader_data);
+    return shader_data->setInt(handle, value);
+}
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setFloatHandle(JNIEnv* env,
+                                                 jobject obj, jlong jshader_data, jint handle, jfloat value)
+{
+    ShaderData* shader_data = reinterpret_cast<ShaderData*>(jshader_data);
+    return shader_data->setFloat(handle, value);
+}
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setVec2Handle(JNIEnv* env,
+                                                jobject obj, jlong jshader_data, jint handle,
+                                                jfloat x, jfloat y)
+{
+    ShaderData* shader_data = reinterpret_cast<ShaderData*>(jshader_data);
+    return shader_data->setVec2(handle, glm::vec2(x, y));
+}
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setVec3Handle(JNIEnv* env,
+                                                jobject obj, jlong jshader_data, jint handle,
+                                                jfloat x, jfloat y, jfloat z)
+{
+    ShaderData* shader_data = reinterpret_cast<ShaderData*>(jshader_data);
+    return shader_data->setVec3(handle, glm::vec3(x, y, z));
+}
+
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setVec4Handle(JNIEnv* env,
+                                                jobject obj, jlong jshader_data, jint handle,
+                                                jfloat x, jfloat y, jfloat z, jfloat w)
+{
+    ShaderData* shader_data = reinterpret_cast<ShaderData*>(jshader_data);
+    return shader_data->setVec4(handle, glm::vec4(x, y, z, w));
+}
+
+/*
+ * The array setters do not copy the Java array,
+ * the data is copied straight into the uniform block.
+ */
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setFloatVecHandle(JNIEnv* env,
+                                                    jobject obj, jlong jshader_data, jint handle,
+                                                    jfloatArray jvec, jint size)
+{
+    ShaderData* shader_data = reinterpret_cast<ShaderData*>(jshader_data);
+    float* elems = static_cast<float*>(env->GetPrimitiveArrayCritical(jvec, 0));
+    if (elems == nullptr)
+    {
+        return false;
+    }
+    bool rc = shader_data->setFloatVec(handle, elems, size);
+    env->ReleasePrimitiveArrayCritical(jvec, elems, JNI_ABORT);
+    return rc;
+}
 
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setIntVecHandle(JNIEnv* env,
+                                                  jobject obj, jlong jshader_data, jint handle,
+                                                  jintArray jvec, jint size)
+{
+    ShaderData* shader_data = reinterpret_cast<ShaderData*>(jshader_data);
+    int* elems = static_cast<int*>(env->GetPrimitiveArrayCritical(jvec, 0));
+    if (elems == nullptr)
+    {
+        return false;
+    }
+    bool rc = shader_data->setIntVec(handle, elems, size);
+    env->ReleasePrimitiveArrayCritical(jvec, elems, JNI_ABORT);
+    return rc;
+}
 
+JNIEXPORT jboolean JNICALL
+Java_com_samsungxr_NativeShaderData_setFloatRange(JNIEnv* env,
+                                                jobject obj, jlong jshader_data, jint handle,
+                                                jfloatArray jvec, jint offset, jint count)
+{
+    ShaderData* shader_data = reinterpret_cast<ShaderData*>(jshader_data);
+    float* elems = static_cast<float*>(env->GetPrimitiveArrayCritical(jvec, 0));
+    if (elems == nullptr)
+    {
+        return false;
+    }
+    bool rc = shader_data->setFloatRange(handle, elems + offset, count);
+    env->ReleasePrimitiveArrayCritical(jvec, elems, JNI_ABORT);
+    return rc;
 }
 
+}
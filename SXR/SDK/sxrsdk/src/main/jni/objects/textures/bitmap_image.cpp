@@ -23,7 +23,8 @@
 namespace sxr {
 BitmapImage::BitmapImage(int format) :
             Image(Image::BITMAP, format),mData(NULL),
-            mBitmap(NULL), mJava(NULL), mHasTransparency(false)
+            mBitmap(NULL), mJava(NULL), mHasTransparency(false),
+            mPixels(NULL), mStreamLevels(false), mStreamLevel(0)
 {
 }
 
@@ -65,6 +66,7 @@ void BitmapImage::update(JNIEnv* env, jobject bitmap, bool hasAlpha, int format)
         mBitmap = static_cast<jbyteArray>(env->NewGlobalRef(bitmap));
         mFormat = format;
         mIsBuffer = false;
+        mIsCompressed = false;
         if (mBitmap == nullptr)
         {
             return;
@@ -97,6 +99,7 @@ void BitmapImage::update(JNIEnv* env, int xoffset, int yoffset, int width, int h
         mHeight = height;
         mFormat = format;
         mType = type;
+        mIsCompressed = false;
         mBitmap = env->NewGlobalRef(buffer);
         mIsBuffer = true;
         if (mBitmap)
@@ -107,7 +110,8 @@ void BitmapImage::update(JNIEnv* env, int xoffset, int yoffset, int width, int h
 }
 
 void BitmapImage::update(JNIEnv *env, int width, int height, int imageSize,
-                         jbyteArray data, int levels, const int* dataOffsets)
+                         jbyteArray data, int levels, const int* dataOffsets,
+                         const int* levelSizes)
 {
     std::lock_guard<std::mutex> lock(mUpdateLock);
     env->GetJavaVM(&mJava);
@@ -118,6 +122,7 @@ void BitmapImage::update(JNIEnv *env, int width, int height, int imageSize,
     mIsCompressed = true;
     mImageSize = imageSize;
     setDataOffsets(dataOffsets, levels);
+    setLevelSizes(levelSizes, (levelSizes != NULL) ? levels : 0);
     if (data != NULL)
     {
         mData = static_cast<jbyteArray>(env->NewGlobalRef(data));
@@ -132,8 +137,52 @@ void BitmapImage::update(JNIEnv *env, int width, int height, int imageSize,
     }
 }
 
+/*
+ * Compressed data in a direct buffer, usually a memory-mapped file.
+ * The buffer is kept until the GL thread has uploaded all of the
+ * mip levels.
+ */
+void BitmapImage::update(JNIEnv *env, int width, int height, int imageSize,
+                         jobject buffer, int levels, const int* dataOffsets,
+                         const int* levelSizes, bool smallestFirst)
+{
+    std::lock_guard<std::mutex> lock(mUpdateLock);
+    env->GetJavaVM(&mJava);
+    clearData(env);
+    mWidth = width;
+    mHeight = height;
+    mLevels = levels;
+    mIsCompressed = true;
+    mIsBuffer = true;
+    mStreamLevels = smallestFirst && (levels > 1);
+    mImageSize = imageSize;
+    setDataOffsets(dataOffsets, levels);
+    setLevelSizes(levelSizes, levels);
+    if (buffer != NULL)
+    {
+        jbyte* pixels = static_cast<jbyte*>(env->GetDirectBufferAddress(buffer));
+        if (pixels == NULL)
+        {
+            LOGE("BitmapImage::update compressed data is not a direct buffer");
+            return;
+        }
+        mBitmap = env->NewGlobalRef(buffer);
+        if (mBitmap)
+        {
+            int size = mImageSize;
+            mImageSize = getLevelSize(0);
+            mPixels = pixels + getDataOffset(0);
+            set_transparency(hasAlpha(mFormat));
+            mPixels = NULL;
+            mImageSize = size;
+            signalUpdate();
+        }
+    }
+}
+
 void BitmapImage::clearData(JNIEnv* env)
 {
+    mStreamLevel = 0;
     if (mData != NULL)
     {
         env->DeleteGlobalRef(mData);
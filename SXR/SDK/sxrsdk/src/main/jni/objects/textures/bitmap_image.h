@@ -37,7 +37,11 @@ namespace sxr {
         void update(JNIEnv* env, int xoffset, int yoffset, int width, int height,
                     int format, int type, jobject bitmap);
         void update(JNIEnv *env, int width, int height, int imageSize,
-                    jbyteArray bytes, int levels, const int* dataOffsets);
+                    jbyteArray bytes, int levels, const int* dataOffsets,
+                    const int* levelSizes = NULL);
+        void update(JNIEnv *env, int width, int height, int imageSize,
+                    jobject buffer, int levels, const int* dataOffsets,
+                    const int* levelSizes, bool smallestFirst);
 
         void set_transparency(bool hasTransparency) {
             mHasTransparency = hasTransparency;
@@ -49,6 +53,14 @@ namespace sxr {
 
         virtual void clearData(JNIEnv* env);
 
+        /*
+         * True once the Java bitmap passed to update() has been
+         * copied to the GPU and its global reference deleted.
+         */
+        bool isBitmapReleased() const {
+            return hasData() && (mBitmap == NULL);
+        }
+
     private:
         BitmapImage(const BitmapImage& texture) = delete;
         BitmapImage(BitmapImage&& texture) = delete;
@@ -63,6 +75,8 @@ namespace sxr {
         bool mIsBuffer;
         bool mHasTransparency;
         jbyte* mPixels;
+        bool mStreamLevels;     // upload compressed mip levels smallest first
+        int mStreamLevel;       // smallest mip level uploaded while streaming
     };
 
 }
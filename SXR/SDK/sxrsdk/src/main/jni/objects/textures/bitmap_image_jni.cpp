@@ -45,10 +45,26 @@ namespace sxr
                                                         jlong jtexture, jint width, int height, jint imageSize,
                                                         jbyteArray jdata, jint levels, jintArray offset);
 
+    JNIEXPORT void JNICALL
+    Java_com_samsungxr_NativeBitmapImage_updateCompressedLevels(JNIEnv *env, jobject obj,
+                                                        jlong jtexture, jint width, int height, jint imageSize,
+                                                        jbyteArray jdata, jint levels, jintArray joffsets,
+                                                        jintArray jsizes);
+
+    JNIEXPORT void JNICALL
+    Java_com_samsungxr_NativeBitmapImage_updateCompressedBuffer(JNIEnv *env, jobject obj,
+                                                        jlong jtexture, jint width, int height, jint imageSize,
+                                                        jobject jbuffer, jint levels, jintArray joffsets,
+                                                        jintArray jsizes, jboolean smallestFirst);
+
     JNIEXPORT void JNICALL
     Java_com_samsungxr_NativeBitmapImage_updateFromBitmap(JNIEnv *env, jobject obj,
                                                         jlong jtexture, jobject jbitmap,
                                                         jboolean hasAlpha, jstring format);
+
+    JNIEXPORT jboolean JNICALL
+    Java_com_samsungxr_NativeBitmapImage_isBitmapReleased(JNIEnv *env, jobject obj,
+                                                        jlong jtexture);
     }
 
     JNIEXPORT jlong JNICALL
@@ -124,6 +140,43 @@ namespace sxr
         env->DeleteLocalRef(keep2);
     }
 
+    JNIEXPORT void JNICALL
+    Java_com_samsungxr_NativeBitmapImage_updateCompressedLevels(JNIEnv *env, jobject obj,
+                                                        jlong jtexture, jint width, jint height, jint imageSize,
+                                                        jbyteArray jdata, jint levels, jintArray joffsets,
+                                                        jintArray jsizes)
+    {
+        BitmapImage *texture = reinterpret_cast<BitmapImage *>(jtexture);
+        int* offsets = env->GetIntArrayElements(joffsets, 0);
+        int* sizes = env->GetIntArrayElements(jsizes, 0);
+        texture->update(env, width, height, imageSize, jdata, levels, offsets, sizes);
+        env->ReleaseIntArrayElements(jsizes, sizes, JNI_ABORT);
+        env->ReleaseIntArrayElements(joffsets, offsets, JNI_ABORT);
+    }
+
+    JNIEXPORT void JNICALL
+    Java_com_samsungxr_NativeBitmapImage_updateCompressedBuffer(JNIEnv *env, jobject obj,
+                                                        jlong jtexture, jint width, jint height, jint imageSize,
+                                                        jobject jbuffer, jint levels, jintArray joffsets,
+                                                        jintArray jsizes, jboolean smallestFirst)
+    {
+        BitmapImage *texture = reinterpret_cast<BitmapImage *>(jtexture);
+        int* offsets = env->GetIntArrayElements(joffsets, 0);
+        int* sizes = env->GetIntArrayElements(jsizes, 0);
+        texture->update(env, width, height, imageSize, jbuffer, levels, offsets, sizes,
+                        static_cast<bool>(smallestFirst));
+        env->ReleaseIntArrayElements(jsizes, sizes, JNI_ABORT);
+        env->ReleaseIntArrayElements(joffsets, offsets, JNI_ABORT);
+    }
+
+    JNIEXPORT jboolean JNICALL
+    Java_com_samsungxr_NativeBitmapImage_isBitmapReleased(JNIEnv *env, jobject obj,
+                                                        jlong jtexture)
+    {
+        BitmapImage* bmap = reinterpret_cast<BitmapImage *>(jtexture);
+        return static_cast<jboolean>(bmap->isBitmapReleased());
+    }
+
     JNIEXPORT void JNICALL
     Java_com_samsungxr_NativeBitmapImage_setFileName(JNIEnv *env, jobject obj,
                                                    jlong jtexture, jstring jfile)
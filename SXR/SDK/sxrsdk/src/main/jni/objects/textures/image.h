@@ -118,6 +118,28 @@ public:
         }
     }
 
+    int getLevelSize(int level)
+    {
+        if ((level >= 0) && (level < mLevelSizes.size()))
+        {
+            return mLevelSizes[level];
+        }
+        if ((level == 0) && (mLevels <= 1))
+        {
+            return mImageSize;
+        }
+        return getDataOffset(level + 1) - getDataOffset(level);
+    }
+
+    void setLevelSizes(const int* sizes, int n)
+    {
+        mLevelSizes.resize(n);
+        for (int i = 0; i < n; ++i)
+        {
+            mLevelSizes[i] = sizes[i];
+        }
+    }
+
     bool checkForUpdate(int texid)
     {
         if (texid && updatePending())
@@ -164,6 +186,7 @@ protected:
     int     mFormat;
     std::string mFileName;
     std::vector<int>    mDataOffsets;
+    std::vector<int>    mLevelSizes;
 
 private:
     Image(const Image& image) = delete;
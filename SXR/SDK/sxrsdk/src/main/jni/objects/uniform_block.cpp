@@ -14,6 +14,7 @@
  */
 #include "objects/uniform_block.h"
 #include "glm/gtc/type_ptr.hpp"
+#include <algorithm>
 #include <sstream>
 
 #include "util/sxr_log.h"
@@ -71,34 +72,127 @@ namespace sxr
 
     bool UniformBlock::setInt(const char* name, int val)
     {
-        int size = sizeof(int);
-        char *data = getData(name, size);
+        return setInt(getHandle(name), val);
+    }
+
+    bool UniformBlock::setFloat(const char* name, float val)
+    {
+        return setFloat(getHandle(name), val);
+    }
+
+    bool UniformBlock::setVec2(const char* name, const glm::vec2 &val)
+    {
+        return setVec2(getHandle(name), val);
+    }
+
+    bool UniformBlock::setVec3(const char* name, const glm::vec3 &val)
+    {
+        return setVec3(getHandle(name), val);
+    }
+
+    bool UniformBlock::setVec4(const char* name, const glm::vec4 &val)
+    {
+        return setVec4(getHandle(name), val);
+    }
+
+    bool UniformBlock::setMat4(const char* name, const glm::mat4 &val)
+    {
+        return setMat4(getHandle(name), val);
+    }
+
+    bool UniformBlock::setIntVec(const char* name, const int* val, int n)
+    {
+        return setIntVec(getHandle(name), val, n);
+    }
+
+    bool UniformBlock::setFloatVec(const char* name, const float* val, int n)
+    {
+        return setFloatVec(getHandle(name), val, n);
+    }
+
+    int UniformBlock::getHandle(const char* name) const
+    {
+        int i = (name != nullptr) ? findName(name) : -1;
+
+        if (i < 0)
+        {
+            return -1;
+        }
+        if (i > HANDLE_INDEX_MASK)
+        {
+            LOGE("UniformBlock: %s is entry %d, past the last entry with a handle", name, i);
+            return -1;
+        }
+        const DataEntry& entry = mLayout[i];
+        return (entry.Offset << HANDLE_OFFSET_SHIFT) | (entry.IsInt ? HANDLE_INT_FLAG : 0) | i;
+    }
+
+    const DataDescriptor::DataEntry* UniformBlock::getEntry(int handle) const
+    {
+        if (handle < 0)
+        {
+            return NULL;
+        }
+        int i = handle & HANDLE_INDEX_MASK;
+        if (i >= mLayout.size())
+        {
+            return NULL;
+        }
+        // reject handles from a block with a different layout
+        const DataEntry& entry = mLayout[i];
+        if ((entry.Offset != (handle >> HANDLE_OFFSET_SHIFT)) ||
+            ((entry.IsInt != 0) != ((handle & HANDLE_INT_FLAG) != 0)))
+        {
+            return NULL;
+        }
+        return &entry;
+    }
+
+    DataDescriptor::DataEntry* UniformBlock::findEntry(int handle)
+    {
+        return const_cast<DataEntry*>(getEntry(handle));
+    }
+
+    char* UniformBlock::getData(int handle, int bytesize)
+    {
+        DataEntry* u = findEntry(handle);
+
+        if ((u == NULL) || (mUniformData == NULL) ||
+            (bytesize < 0) || (u->Offset + bytesize > mTotalSize))
+        {
+            return NULL;
+        }
+        u->IsSet = true;
+        return mUniformData + u->Offset;
+    }
+
+    bool UniformBlock::setInt(int handle, int val)
+    {
+        int *data = (int *) getData(handle, sizeof(int));
         if (data != NULL)
         {
-            *((int *) data) = val;
+            *data = val;
             markDirty();
             return true;
         }
         return false;
     }
 
-    bool UniformBlock::setFloat(const char* name, float val)
+    bool UniformBlock::setFloat(int handle, float val)
     {
-        int size = sizeof(float);
-        char *data = getData(name, size);
+        float *data = (float *) getData(handle, sizeof(float));
         if (data != NULL)
         {
-            *((float *) data) = val;
+            *data = val;
             markDirty();
             return true;
         }
         return false;
     }
 
-    bool UniformBlock::setVec2(const char* name, const glm::vec2 &val)
+    bool UniformBlock::setVec2(int handle, const glm::vec2 &val)
     {
-        int bytesize = 2 * sizeof(float);
-        float *data = (float *) getData(name, bytesize);
+        float *data = (float *) getData(handle, 2 * sizeof(float));
         if (data != NULL)
         {
             data[0] = val.x;
@@ -109,10 +203,9 @@ namespace sxr
         return false;
     }
 
-    bool UniformBlock::setVec3(const char* name, const glm::vec3 &val)
+    bool UniformBlock::setVec3(int handle, const glm::vec3 &val)
     {
-        int bytesize = 3 * sizeof(float);
-        float *data = (float *) getData(name, bytesize);
+        float *data = (float *) getData(handle, 3 * sizeof(float));
         if (data != NULL)
         {
             data[0] = val.x;
@@ -124,10 +217,9 @@ namespace sxr
         return false;
     }
 
-    bool UniformBlock::setVec4(const char* name, const glm::vec4 &val)
+    bool UniformBlock::setVec4(int handle, const glm::vec4 &val)
     {
-        int bytesize = 4 * sizeof(float);
-        float *data = (float *) getData(name, bytesize);
+        float *data = (float *) getData(handle, 4 * sizeof(float));
         if (data != NULL)
         {
             data[0] = val.x;
@@ -140,20 +232,79 @@ namespace sxr
         return false;
     }
 
-    bool UniformBlock::setMat4(const char* name, const glm::mat4 &val)
+    bool UniformBlock::setMat4(int handle, const glm::mat4 &val)
     {
-        const float *mtxdata = glm::value_ptr(val);
         int bytesize = 16 * sizeof(float);
-        char *data = getData(name, bytesize);
+        char *data = getData(handle, bytesize);
+        if (data != NULL)
+        {
+            memcpy(data, glm::value_ptr(val), bytesize);
+            markDirty();
+            return true;
+        }
+        return false;
+    }
+
+    bool UniformBlock::setIntVec(int handle, const int* val, int n)
+    {
+        const DataEntry* u = getEntry(handle);
+        if (u == NULL)
+        {
+            return false;
+        }
+        int bytesize = std::min(n * (int) sizeof(int), (int) u->Size);
+        char *data = getData(handle, bytesize);
+        if (data != NULL)
+        {
+            memcpy(data, val, bytesize);
+            markDirty();
+            return true;
+        }
+        return false;
+    }
+
+    bool UniformBlock::setFloatVec(int handle, const float* val, int n)
+    {
+        const DataEntry* u = getEntry(handle);
+        if (u == NULL)
+        {
+            return false;
+        }
+        int bytesize = std::min(n * (int) sizeof(float), (int) u->Size);
+        char *data = getData(handle, bytesize);
         if (data != NULL)
         {
-            memcpy(data, mtxdata, bytesize);
+            memcpy(data, val, bytesize);
             markDirty();
             return true;
         }
         return false;
     }
 
+    bool UniformBlock::setFloatRange(int handle, const float* val, int n)
+    {
+        int bytesize = n * sizeof(float);
+        char *data = getData(handle, bytesize);
+        if (data == NULL)
+        {
+            LOGE("UniformBlock::setFloatRange ERROR %d floats do not fit in block %s", n, getBlockName());
+            return false;
+        }
+        memcpy(data, val, bytesize);
+        int start = data - mUniformData;
+        int end = start + bytesize;
+        for (auto it = mLayout.begin(); it != mLayout.end(); ++it)
+        {
+            DataEntry& entry = *it;
+            if ((entry.Offset < end) && (entry.Offset + entry.Size > start))
+            {
+                entry.IsSet = true;
+            }
+        }
+        markDirty();
+        return true;
+    }
+
     const glm::vec2* UniformBlock::getVec2(const char* name) const
     {
         int size = 2 * sizeof(float);
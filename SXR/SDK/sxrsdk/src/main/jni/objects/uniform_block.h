@@ -18,6 +18,7 @@
 #define UNIFORMBLOCK_H_
 
 #include<unordered_map>
+#include <climits>
 #include "data_descriptor.h"
 #include "glm/glm.hpp"
 #include <map>
@@ -132,7 +133,7 @@ namespace sxr
          * @returns true if successfully set, false on error.
          * @see getIntVec
          */
-        virtual bool setIntVec(const char *name, const int *val, int n)=0;
+        virtual bool setIntVec(const char *name, const int *val, int n);
 
         /**
          * Set the value of a floating point vector uniform.
@@ -144,7 +145,7 @@ namespace sxr
          * @returns true if successfully set, false on error.
          * @see getVec
          */
-        virtual bool setFloatVec(const char *name, const float *val, int n)=0;
+        virtual bool setFloatVec(const char *name, const float *val, int n);
 
         /**
          * Set the value of a 2D vector uniform.
@@ -197,6 +198,93 @@ namespace sxr
          */
         virtual bool setMat4(const char *name, const glm::mat4 &val);
 
+        /**
+         * Get a handle for a named uniform.
+         * The handle can be used to set the uniform without
+         * looking up its name again. It encodes the index of the
+         * entry, whether it is an integer and its byte offset:
+         * bits 0-12 are the index, bit 13 is set for integers and
+         * the byte offset is in the bits above. Every entry of a
+         * block has a handle.
+         * Blocks with the same descriptor have the same handles.
+         * The setters taking a name use the handle internally.
+         * @param name name of uniform.
+         * @returns handle or -1 if the uniform is not in the block.
+         * @see getEntry
+         */
+        int getHandle(const char *name) const;
+
+        /**
+         * Get the entry for a uniform handle.
+         * @param handle handle from getHandle
+         * @returns entry or NULL if the handle does not belong to this block.
+         */
+        const DataEntry *getEntry(int handle) const;
+
+        /**
+         * Set the value of an integer uniform from its handle.
+         * @see setInt(const char*, int)
+         */
+        bool setInt(int handle, int val);
+
+        /**
+         * Set the value of a floating point uniform from its handle.
+         * @see setFloat(const char*, float)
+         */
+        bool setFloat(int handle, float val);
+
+        /**
+         * Set the value of a 2D vector uniform from its handle.
+         * @see setVec2(const char*, const glm::vec2&)
+         */
+        bool setVec2(int handle, const glm::vec2 &val);
+
+        /**
+         * Set the value of a 3D vector uniform from its handle.
+         * @see setVec3(const char*, const glm::vec3&)
+         */
+        bool setVec3(int handle, const glm::vec3 &val);
+
+        /**
+         * Set the value of a 4D vector uniform from its handle.
+         * @see setVec4(const char*, const glm::vec4&)
+         */
+        bool setVec4(int handle, const glm::vec4 &val);
+
+        /**
+         * Set the value of a 4x4 matrix uniform from its handle.
+         * @see setMat4(const char*, const glm::mat4&)
+         */
+        bool setMat4(int handle, const glm::mat4 &val);
+
+        /**
+         * Set the value of an integer vector uniform from its handle.
+         * At most the size of the uniform is copied.
+         * @see setIntVec(const char*, const int*, int)
+         */
+        virtual bool setIntVec(int handle, const int *val, int n);
+
+        /**
+         * Set the value of a floating point vector uniform from its handle.
+         * At most the size of the uniform is copied.
+         * @see setFloatVec(const char*, const float*, int)
+         */
+        virtual bool setFloatVec(int handle, const float *val, int n);
+
+        /**
+         * Copy floats into the block starting at a uniform.
+         * Unlike setFloatVec the data may cover several uniforms
+         * and is copied as is, so it must match the layout of the
+         * block (including any padding). Every uniform covered
+         * by the range is marked as set.
+         * @param handle handle of the first uniform.
+         * @param val pointer to floats to copy.
+         * @param n number of floats to copy.
+         * @returns true if copied, false if the handle is not valid
+         *          or the range goes past the end of the block.
+         */
+        bool setFloatRange(int handle, const float *val, int n);
+
         /**
          * Get the value of a 2D vector uniform.
          * If the named uniform is not a 2D vector this function
@@ -375,6 +463,33 @@ namespace sxr
 
         const char* getData(const char *name, int &bytesize) const;
 
+        /**
+         * Get a pointer to the value for a uniform handle
+         * and mark the uniform as set.
+         * @param handle handle of uniform to get.
+         * @param bytesize number of bytes which will be written
+         * @return pointer to start of uniform value or NULL if the handle
+         *         is not valid or the bytes do not fit in the block.
+         */
+        char* getData(int handle, int bytesize);
+
+        DataEntry* findEntry(int handle);
+
+        static const int HANDLE_INDEX_MASK = 0x1FFF;
+        static const int HANDLE_INT_FLAG = 0x2000;
+        static const int HANDLE_OFFSET_SHIFT = 14;
+
+        // entries take at least 4 bytes and their offsets fit in a short,
+        // so the index of every entry fits in the handle
+        static_assert((HANDLE_INDEX_MASK + 1) * 4 > SHRT_MAX,
+                      "handle index field too narrow for a block");
+        static_assert(HANDLE_INT_FLAG == HANDLE_INDEX_MASK + 1,
+                      "integer flag must follow the index field");
+        static_assert((1 << HANDLE_OFFSET_SHIFT) == (HANDLE_INT_FLAG << 1),
+                      "offset field must follow the integer flag");
+        static_assert(HANDLE_OFFSET_SHIFT + 15 <= 31,
+                      "handle offset field overflows a positive int");
+
         int mBindingPoint;           // shader binding point
         unsigned int mOwnData : 1;   // true if this uniform block owns its data
         unsigned int mUseBuffer : 1; // true if this uniform block uses a GPU buffer
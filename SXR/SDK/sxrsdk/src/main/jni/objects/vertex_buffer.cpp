@@ -6,6 +6,7 @@
  ****/
 #include "vertex_buffer.h"
 #include <sstream>
+#include <algorithm>
 #include "glm/gtc/matrix_inverse.hpp"
 
 #define NO_LOGGING
@@ -310,6 +311,77 @@ namespace sxr {
         return 1;
     }
 
+    void VertexBuffer::markDirty()
+    {
+        DataDescriptor::markDirty();
+        mDirtyFirst = 0;
+        mDirtyEnd = mVertexCount;
+    }
+
+/**
+ * Update a float vertex attribute for a range of vertices.
+ * The range is added to the vertices which must be copied
+ * to the GPU, the rest of the vertex buffer is not marked dirty.
+ * @param attributeName name of attribute to update
+ * @param src           pointer to closely packed source float data
+ * @param firstVertex   index of first vertex to update
+ * @param vertexCount   number of vertices to update
+ * @return true if attribute was updated, false on error
+ */
+    bool VertexBuffer::setFloatRange(const char* attributeName, const float* src, int firstVertex, int vertexCount)
+    {
+        std::lock_guard<std::mutex> lock(mLock);
+        DataEntry*      attr = find(attributeName);
+
+        if ((attr == NULL) || attr->IsInt)
+        {
+            LOGE("VertexBuffer: ERROR float attribute %s not found in vertex buffer", attributeName);
+            return false;
+        }
+        if ((src == NULL) || (mVertexData == NULL))
+        {
+            LOGE("VertexBuffer: cannot set attribute %s, no vertex data", attributeName);
+            return false;
+        }
+        if ((firstVertex < 0) || (vertexCount < 0) || (firstVertex + vertexCount > mVertexCount))
+        {
+            LOGE("VertexBuffer: cannot set attribute %s, vertices %d to %d out of range",
+                 attributeName, firstVertex, firstVertex + vertexCount);
+            return false;
+        }
+        if (vertexCount == 0)
+        {
+            return true;
+        }
+        int     attrStride = attr->Size / sizeof(float);
+        int     dstStride = getTotalSize() / sizeof(float);
+        float*  dest = reinterpret_cast<float*>(mVertexData) + attr->Offset / sizeof(float) + firstVertex * dstStride;
+
+        for (int i = 0; i < vertexCount; ++i)
+        {
+            for (int j = 0; j < attrStride; ++j)
+            {
+                dest[j] = src[j];
+            }
+            dest += dstStride;
+            src += attrStride;
+        }
+        if (!mIsDirty || (mDirtyFirst >= mDirtyEnd))
+        {
+            mDirtyFirst = firstVertex;
+            mDirtyEnd = firstVertex + vertexCount;
+        }
+        else
+        {
+            mDirtyFirst = std::min(mDirtyFirst, firstVertex);
+            mDirtyEnd = std::max(mDirtyEnd, firstVertex + vertexCount);
+        }
+        mIsDirty = true;
+        ++mVersion;
+        attr->IsSet = true;
+        return true;
+    }
+
     bool    VertexBuffer::getIntVec(const char* attributeName, int* dest, int destSize, int destStride) const
     {
         std::lock_guard<std::mutex> lock(mLock);
@@ -128,6 +128,22 @@ namespace sxr {
          */
         bool            getIntVec(const char* attributeName, int* data, int dataByteSize, int dataStride) const;
 
+        /**
+         * Set the values of a float vertex attribute for a range of vertices.
+         * Unlike setFloatVec, only the vertices in the range are changed
+         * and only they are copied to the GPU by the next update,
+         * so a small part of a large vertex buffer can be updated every frame.
+         * The vertex count must already be established.
+         *
+         * @param name        name of entry to set.
+         * @param src         closely packed attribute values for the vertices in the range.
+         * @param firstVertex index of first vertex to update.
+         * @param vertexCount number of vertices to update.
+         * @returns true if successfully set, false on error.
+         * @see setFloatVec
+         */
+        bool            setFloatRange(const char* attributeName, const float* src, int firstVertex, int vertexCount);
+
         bool            forAllVertices(const char* attrName, std::function<void (int iter, const float* vertex)> func) const;
         bool            forAllVertices(std::function<void (int iter, const float* vertex)> func) const;
         bool            getInfo(const char* attributeName, int& index, int& offset, int& size) const;
@@ -142,6 +158,11 @@ namespace sxr {
          */
         void            transform(glm::mat4& trans, bool doNormals);
 
+        /**
+         * Mark all the vertices as changed.
+         */
+        virtual void    markDirty();
+
         /**
          * Copy the vertices to the GPU if they have changed.
          * @return true if successful, false on error
@@ -160,6 +181,8 @@ namespace sxr {
         int             mVertexCount;       // current number of vertices
         char*           mVertexData;        // vertex data buffer
         int             mBoneFlags = 0;     // indicates which vertex attributes are bones
+        int             mDirtyFirst = 0;    // first vertex changed since the last GPU update
+        int             mDirtyEnd = 0;      // one past the last vertex changed since the last GPU update
     };
 
 } // end sxrf
@@ -68,6 +68,10 @@ namespace sxr {
     Java_com_samsungxr_NativeVertexBuffer_getVertexCount(JNIEnv* env, jobject obj,
                                                       jlong jvbuf);
 
+    JNIEXPORT int JNICALL
+    Java_com_samsungxr_NativeVertexBuffer_getDataSize(JNIEnv* env, jobject obj,
+                                                   jlong jvbuf);
+
     JNIEXPORT int JNICALL
     Java_com_samsungxr_NativeVertexBuffer_getAttributeSize(JNIEnv* env, jobject obj,
                                                         jlong jvbuf, jstring attribName);
@@ -81,6 +85,10 @@ namespace sxr {
     JNIEXPORT void JNICALL
     Java_com_samsungxr_NativeVertexBuffer_transform(JNIEnv* env, jobject obj,
                                                jlong jvbuf, jfloatArray trans, bool doNormals);
+    JNIEXPORT bool JNICALL
+    Java_com_samsungxr_NativeVertexBuffer_setFloatRange(JNIEnv* env, jobject obj,
+                                                      jlong jvbuf, jstring attribName,
+                                                      jfloatArray data, jint firstVertex, jint vertexCount);
     };
 
 JNIEXPORT jlong JNICALL
@@ -301,6 +309,13 @@ Java_com_samsungxr_NativeVertexBuffer_getVertexCount(JNIEnv* env, jobject obj, j
     return vbuf->getVertexCount();
 }
 
+JNIEXPORT int JNICALL
+Java_com_samsungxr_NativeVertexBuffer_getDataSize(JNIEnv* env, jobject obj, jlong jvbuf)
+{
+    VertexBuffer* vbuf = reinterpret_cast<VertexBuffer*>(jvbuf);
+    return vbuf->getDataSize();
+}
+
 JNIEXPORT int JNICALL
 Java_com_samsungxr_NativeVertexBuffer_getAttributeSize(JNIEnv* env, jobject obj,
                                                      jlong jvbuf, jstring attribName)
@@ -382,4 +397,37 @@ Java_com_samsungxr_NativeVertexBuffer_dump(JNIEnv* env, jobject obj,
     env->ReleaseStringUTFChars(attrName, char_key);
 }
 
+/*
+ * The source array has values for every vertex in the buffer,
+ * only the ones in the range are copied.
+ */
+JNIEXPORT bool JNICALL
+Java_com_samsungxr_NativeVertexBuffer_setFloatRange(JNIEnv* env, jobject obj,
+                                                  jlong jvbuf, jstring attribName,
+                                                  jfloatArray jdata, jint firstVertex, jint vertexCount)
+{
+    VertexBuffer* vbuf = reinterpret_cast<VertexBuffer*>(jvbuf);
+    const char* char_key = env->GetStringUTFChars(attribName, 0);
+    const VertexBuffer::DataEntry* entry = vbuf->find(char_key);
+    bool rc = false;
+
+    if ((entry != nullptr) && (firstVertex >= 0) && (vertexCount >= 0))
+    {
+        int attrSize = entry->Size / sizeof(float);
+        int srcOffset = firstVertex * attrSize;
+
+        if (srcOffset + vertexCount * attrSize <= env->GetArrayLength(jdata))
+        {
+            jfloat* attribData = static_cast<jfloat*>(env->GetPrimitiveArrayCritical(jdata, 0));
+            if (attribData)
+            {
+                rc = vbuf->setFloatRange(char_key, attribData + srcOffset, firstVertex, vertexCount);
+                env->ReleasePrimitiveArrayCritical(jdata, attribData, JNI_ABORT);
+            }
+        }
+    }
+    env->ReleaseStringUTFChars(attribName, char_key);
+    return rc;
+}
+
 }
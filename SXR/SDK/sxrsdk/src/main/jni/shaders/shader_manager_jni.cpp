@@ -45,6 +45,9 @@ extern "C" {
     Java_com_samsungxr_NativeShaderManager_makeLayout(JNIEnv* env, jobject obj,
                                                    jstring descriptor, jstring blockName, jboolean useGPUBuffer);
 
+    JNIEXPORT void JNICALL
+    Java_com_samsungxr_NativeShaderManager_setProgramCacheDirectory(JNIEnv* env, jobject obj, jstring directory);
+
 }
 
 JNIEXPORT jlong JNICALL
@@ -130,5 +133,17 @@ Java_com_samsungxr_NativeShaderManager_makeLayout(JNIEnv* env, jobject obj,
     }
 }
 
+JNIEXPORT void JNICALL
+Java_com_samsungxr_NativeShaderManager_setProgramCacheDirectory(JNIEnv* env, jobject obj, jstring directory)
+{
+    if (directory == nullptr)
+    {
+        GLShader::setProgramCacheDirectory(nullptr);
+        return;
+    }
+    const char* dir = env->GetStringUTFChars(directory, 0);
+    GLShader::setProgramCacheDirectory(dir);
+    env->ReleaseStringUTFChars(directory, dir);
+}
 
 }
@@ -149,8 +149,14 @@ std::map<int, VkFormat> compressed_formats = {
             LOGE("BitmapImage::updateFromMemory array is null");
             return;
         }
-        mLevels = 0;
         jbyte *pixels = env->GetByteArrayElements(mData, 0);
+        updateFromPixels(pixels);
+        env->ReleaseByteArrayElements(mData, pixels, 0);
+        clearData(env);
+    }
+
+    void VkBitmapImage::updateFromPixels(jbyte *pixels) {
+        mLevels = 0;
         std::vector<void *> texData;
         std::vector<VkBufferImageCopy> bufferCopyRegions;
         std::vector<ImageInfo> imageInfos;
@@ -169,7 +175,7 @@ std::map<int, VkFormat> compressed_formats = {
             bufferCopyRegion.bufferOffset = 0;
             imageInfo.width = mWidth;
             imageInfo.height = mHeight;
-            imageInfo.size = mImageSize;
+            imageInfo.size = getLevelSize(0);
             imageInfo.isCompressed = true;
             imageInfo.mipLevel = 0;
             imageInfos.push_back(imageInfo);
@@ -181,11 +187,8 @@ std::map<int, VkFormat> compressed_formats = {
             else
                 internal_format = VK_FORMAT_R8_UNORM;
 
-            updateMipVkImage(mImageSize, texData, imageInfos, bufferCopyRegions, target,
+            updateMipVkImage(getLevelSize(0), texData, imageInfos, bufferCopyRegions, target,
                              internal_format, 1);
-
-        env->ReleaseByteArrayElements(mData, pixels, 0);
-        clearData(env);
     }
 
     void VkBitmapImage::updateFromBitmap(int texid) {
@@ -194,7 +197,13 @@ std::map<int, VkFormat> compressed_formats = {
             LOGE("BitmapImage::updateFromBitmap bitmap is null");
             return;
         }
-        if(mIsBuffer) {
+        if (mIsBuffer && mIsCompressed) {
+            jbyte *pixels = static_cast<jbyte *>(env->GetDirectBufferAddress(mBitmap));
+            if (pixels != NULL) {
+                updateFromPixels(pixels);
+            }
+        }
+        else if(mIsBuffer) {
             updateFromBuffer(env, getImageType(), mBitmap);
         } else {
             updateFromBitmap(env, getImageType(), mBitmap);
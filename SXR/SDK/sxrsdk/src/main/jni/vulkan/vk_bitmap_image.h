@@ -36,6 +36,7 @@ namespace sxr {
     protected:
         virtual void update(int texid);
         void updateFromMemory(int texid);
+        void updateFromPixels(jbyte *pixels);
         void updateFromBitmap(int texid);
         void loadCompressedMipMaps(jbyte *data, int format);
 
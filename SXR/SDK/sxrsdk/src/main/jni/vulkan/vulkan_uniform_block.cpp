@@ -15,6 +15,7 @@
 #include <engine/renderer/vulkan_renderer.h>
 #include "vulkan_headers.h"
 #include "vulkan_shader.h"
+#include <algorithm>
 
 namespace sxr {
 
@@ -152,22 +153,24 @@ namespace sxr {
         buffer_init_ = true;
     }
 
-    bool VulkanUniformBlock::setFloatVec(const char* name, const float *val, int n) {
-        DataEntry *u = find(name);
+    bool VulkanUniformBlock::setFloatVec(int handle, const float *val, int n) {
+        const DataEntry *u = getEntry(handle);
 
         if (u == NULL) {
             return false;
         }
 
-        int bytesize = n * sizeof(float);
-        char *data = getData(name, bytesize);
-
         // For array of vec3 needs padding for every entry in UBO
         if ((u->Type[u->Type.length() - 1] == '3') &&
             (u->Count > 1))
         {
-            float* dest = (float*) data;
-            for (int i = 0; i < n / 3; i++)
+            int nvecs = std::min(n / 3, (int) u->Count);
+            float* dest = (float*) getData(handle, nvecs * 4 * sizeof(float));
+
+            if (dest == NULL) {
+                return false;
+            }
+            for (int i = 0; i < nvecs; i++)
             {
                 *dest++ = *val++;
                 *dest++ = *val++;
@@ -178,6 +181,9 @@ namespace sxr {
             return true;
         }
 
+        int bytesize = std::min(n * (int) sizeof(float), (int) u->Size);
+        char *data = getData(handle, bytesize);
+
         if (data != NULL)
         {
             memcpy(data, val, bytesize);
@@ -187,22 +193,24 @@ namespace sxr {
         return false;
     }
 
-    bool VulkanUniformBlock::setIntVec(const char* name, const int *val, int n) {
-        DataEntry *u = find(name);
+    bool VulkanUniformBlock::setIntVec(int handle, const int *val, int n) {
+        const DataEntry *u = getEntry(handle);
 
         if (u == NULL) {
             return false;
         }
 
-        int bytesize = n * sizeof(float);
-        char *data = getData(name, bytesize);
-
         // For array of vec3 needs padding for every entry in UBO
         if ((u->Type[u->Type.length() - 1] == '3') &&
             (u->Count > 1))
         {
-            int* dest = (int*) data;
-            for (int i = 0; i < n / 3; i++)
+            int nvecs = std::min(n / 3, (int) u->Count);
+            int* dest = (int*) getData(handle, nvecs * 4 * sizeof(int));
+
+            if (dest == NULL) {
+                return false;
+            }
+            for (int i = 0; i < nvecs; i++)
             {
                 *dest++ = *val++;
                 *dest++ = *val++;
@@ -213,6 +221,9 @@ namespace sxr {
             return true;
         }
 
+        int bytesize = std::min(n * (int) sizeof(int), (int) u->Size);
+        char *data = getData(handle, bytesize);
+
         if (data != NULL)
         {
             memcpy(data, val, bytesize);
@@ -72,8 +72,10 @@ namespace sxr {
         }
 
         char * getUniformData() { return mUniformData; }
-        virtual bool setFloatVec(const char *name, const float *val, int n);
-        virtual bool setIntVec(const char *name, const int *val, int n);
+        using UniformBlock::setFloatVec;
+        using UniformBlock::setIntVec;
+        virtual bool setFloatVec(int handle, const float *val, int n);
+        virtual bool setIntVec(int handle, const int *val, int n);
     protected:
         void createBuffer(VulkanCore*);
         void updateBuffer(VulkanCore* vk, int start, int len);
@@ -0,0 +1,132 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Host benchmark of picking through ColliderBVH against testing
+ * every collider, as the collider count grows. Builds without the NDK:
+ *
+ *   g++ -std=c++11 -O2 -I src/main/jni -I src/main/jni/contrib \
+ *       src/test/cpp/collider_bvh_benchmark.cpp -o collider_bvh_benchmark && ./collider_bvh_benchmark
+ */
+
+#include <chrono>
+#include <cstdio>
+#include <cstdlib>
+#include <random>
+#include <vector>
+
+#include "test_collider.h"
+
+using namespace sxr;
+
+static const int QUERY_COUNT = 1000;
+static const float INF = std::numeric_limits<float>::infinity();
+
+static std::mt19937 rng(1234);
+
+static float random(float lo, float hi)
+{
+    return std::uniform_real_distribution<float>(lo, hi)(rng);
+}
+
+static double microsSince(std::chrono::steady_clock::time_point start)
+{
+    return std::chrono::duration<double, std::micro>(std::chrono::steady_clock::now() - start).count();
+}
+
+static void run(int count)
+{
+    // keep the density constant so each ray crosses a similar number of colliders
+    float size = 10.0f * std::cbrt((float) count);
+    std::vector<Collider*> colliders;
+    std::vector<glm::vec3> starts;
+    std::vector<glm::vec3> dirs;
+    ColliderBVH bvh;
+
+    for (int i = 0; i < count; ++i)
+    {
+        glm::vec3 center(random(-size, size), random(-size, size), random(-size, size));
+        colliders.push_back(new Collider(center, random(0.5f, 2.0f)));
+    }
+    for (int q = 0; q < QUERY_COUNT; ++q)
+    {
+        glm::vec3 start(random(-size, size), random(-size, size), -2 * size);
+        glm::vec3 target(random(-size, size), random(-size, size), random(-size, size));
+        starts.push_back(start);
+        dirs.push_back(glm::normalize(target - start));
+    }
+
+    auto start = std::chrono::steady_clock::now();
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        bvh.insert(*it);
+    }
+    bvh.update();
+    double buildTime = microsSince(start);
+
+    float checksum1 = 0;
+    start = std::chrono::steady_clock::now();
+    for (int q = 0; q < QUERY_COUNT; ++q)
+    {
+        float closest = INF;
+        for (auto it = colliders.begin(); it != colliders.end(); ++it)
+        {
+            closest = std::min(closest, (*it)->hitDistance(starts[q], dirs[q]));
+        }
+        checksum1 += (closest < INF) ? closest : 0;
+    }
+    double bruteTime = microsSince(start) / QUERY_COUNT;
+
+    float checksum2 = 0;
+    start = std::chrono::steady_clock::now();
+    for (int q = 0; q < QUERY_COUNT; ++q)
+    {
+        float closest = INF;
+        bvh.queryRay(starts[q], dirs[q], INF, [&](Collider* c, float maxDistance)
+        {
+            closest = std::min(closest, c->hitDistance(starts[q], dirs[q]));
+            return std::min(maxDistance, closest);
+        });
+        checksum2 += (closest < INF) ? closest : 0;
+    }
+    double bvhTime = microsSince(start) / QUERY_COUNT;
+
+    // a tenth of the colliders move far enough to leave their leaf boxes
+    for (int i = 0; i < count; i += 10)
+    {
+        colliders[i]->moveTo(colliders[i]->center_ + glm::vec3(random(-5, 5), random(-5, 5), 5));
+    }
+    start = std::chrono::steady_clock::now();
+    bvh.update();
+    double refitTime = microsSince(start);
+
+    printf("%8d %12.0f %8d %14.2f %12.2f %12.0f %s\n", count, buildTime, bvh.getHeight(),
+           bruteTime, bvhTime, refitTime, (checksum1 == checksum2) ? "" : "MISMATCH");
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        delete *it;
+    }
+}
+
+int main()
+{
+    printf("%8s %12s %8s %14s %12s %12s\n", "count", "build us", "height",
+           "brute ray us", "bvh ray us", "refit us");
+    for (int count = 1000; count <= 100000; count *= 10)
+    {
+        run(count);
+    }
+    return EXIT_SUCCESS;
+}
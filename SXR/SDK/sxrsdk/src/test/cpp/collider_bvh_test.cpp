@@ -0,0 +1,376 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Host test of ColliderBVH queries against brute force. Builds without the NDK:
+ *
+ *   g++ -std=c++11 -fsanitize=address -I src/main/jni -I src/main/jni/contrib \
+ *       src/test/cpp/collider_bvh_test.cpp -o collider_bvh_test && ./collider_bvh_test
+ */
+
+#include <algorithm>
+#include <cstdio>
+#include <cstdlib>
+#include <random>
+#include <set>
+#include <vector>
+
+#include "test_collider.h"
+
+using namespace sxr;
+
+static int failures = 0;
+
+#define CHECK(cond)                                                 \
+    if (!(cond))                                                    \
+    {                                                               \
+        fprintf(stderr, "%s:%d: failed: %s\n", __FILE__, __LINE__, #cond); \
+        ++failures;                                                 \
+    }
+
+static const int COLLIDER_COUNT = 2000;
+static const int QUERY_COUNT = 200;
+static const float INF = std::numeric_limits<float>::infinity();
+
+static std::mt19937 rng(1234);
+
+static float random(float lo, float hi)
+{
+    return std::uniform_real_distribution<float>(lo, hi)(rng);
+}
+
+static glm::vec3 randomPoint()
+{
+    return glm::vec3(random(-50, 50), random(-50, 50), random(-50, 50));
+}
+
+static glm::vec3 randomDirection()
+{
+    glm::vec3 dir;
+    do
+    {
+        dir = glm::vec3(random(-1, 1), random(-1, 1), random(-1, 1));
+    }
+    while (glm::length(dir) < 0.1f);
+    return glm::normalize(dir);
+}
+
+static void makeColliders(std::vector<Collider*>& colliders, int count)
+{
+    for (int i = 0; i < count; ++i)
+    {
+        colliders.push_back(new Collider(randomPoint(), random(0.1f, 2.0f)));
+    }
+}
+
+static void deleteColliders(std::vector<Collider*>& colliders)
+{
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        delete *it;
+    }
+    colliders.clear();
+}
+
+static void closestHitBruteForce(const std::vector<Collider*>& colliders,
+                                 const glm::vec3& start, const glm::vec3& dir,
+                                 Collider*& closest, float& distance)
+{
+    closest = nullptr;
+    distance = INF;
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        float d = (*it)->hitDistance(start, dir);
+        if (d < distance)
+        {
+            distance = d;
+            closest = *it;
+        }
+    }
+}
+
+static void closestHitBVH(ColliderBVH& bvh, const glm::vec3& start, const glm::vec3& dir,
+                          Collider*& closest, float& distance)
+{
+    closest = nullptr;
+    distance = INF;
+    bvh.queryRay(start, dir, INF, [&](Collider* c, float maxDistance)
+    {
+        float d = c->hitDistance(start, dir);
+        if (d < distance)
+        {
+            distance = d;
+            closest = c;
+        }
+        return std::min(maxDistance, d);
+    });
+}
+
+static void checkRays(ColliderBVH& bvh, const std::vector<Collider*>& colliders)
+{
+    for (int q = 0; q < QUERY_COUNT; ++q)
+    {
+        glm::vec3 start = randomPoint() * 2.0f;
+        glm::vec3 dir = glm::normalize(randomPoint() * 0.2f - start);
+        Collider* expected;
+        Collider* actual;
+        float expectedDistance;
+        float actualDistance;
+
+        closestHitBruteForce(colliders, start, dir, expected, expectedDistance);
+        closestHitBVH(bvh, start, dir, actual, actualDistance);
+        CHECK(actual == expected);
+        CHECK(actualDistance == expectedDistance);
+
+        // every collider hit must be visited when the distance is not cut off
+        std::set<Collider*> visited;
+        bvh.queryRay(start, dir, INF, [&](Collider* c, float maxDistance)
+        {
+            visited.insert(c);
+            return maxDistance;
+        });
+        for (auto it = colliders.begin(); it != colliders.end(); ++it)
+        {
+            if ((*it)->hitDistance(start, dir) < INF)
+            {
+                CHECK(visited.count(*it) == 1);
+            }
+        }
+    }
+}
+
+static void testRaysMatchBruteForce()
+{
+    ColliderBVH bvh;
+    std::vector<Collider*> colliders;
+
+    makeColliders(colliders, COLLIDER_COUNT);
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        bvh.insert(*it);
+    }
+    CHECK(bvh.getColliderCount() == COLLIDER_COUNT);
+    checkRays(bvh, colliders);
+
+    // a balanced tree of 2000 leaves is far shorter than a list
+    CHECK(bvh.getHeight() < 40);
+    deleteColliders(colliders);
+    CHECK(bvh.getColliderCount() == 0);
+}
+
+static void testBoxAndFrustumQueries()
+{
+    ColliderBVH bvh;
+    std::vector<Collider*> colliders;
+
+    makeColliders(colliders, COLLIDER_COUNT);
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        bvh.insert(*it);
+    }
+    for (int q = 0; q < QUERY_COUNT; ++q)
+    {
+        glm::vec3 center = randomPoint();
+        glm::vec3 half(random(1, 15), random(1, 15), random(1, 15));
+        glm::vec3 minCorner = center - half;
+        glm::vec3 maxCorner = center + half;
+        std::set<Collider*> visited;
+
+        bvh.queryBox(minCorner, maxCorner, [&](Collider* c) { visited.insert(c); });
+        for (auto it = colliders.begin(); it != colliders.end(); ++it)
+        {
+            glm::vec3 cmin, cmax;
+            (*it)->getWorldBounds(nullptr, cmin, cmax);
+            bool overlaps = glm::all(glm::lessThanEqual(cmin, maxCorner)) &&
+                            glm::all(glm::greaterThanEqual(cmax, minCorner));
+            if (overlaps)
+            {
+                CHECK(visited.count(*it) == 1);
+            }
+        }
+    }
+
+    // an axis aligned "frustum" x, y, z in [-20, 20]
+    const float planes[6][4] = {
+        {  1, 0, 0, 20 }, { -1, 0, 0, 20 },
+        {  0, 1, 0, 20 }, {  0, -1, 0, 20 },
+        {  0, 0, 1, 20 }, {  0, 0, -1, 20 }
+    };
+    std::set<Collider*> visible;
+    bvh.queryFrustum(planes, [&](Collider* c) { visible.insert(c); });
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        glm::vec3 cmin, cmax;
+        (*it)->getWorldBounds(nullptr, cmin, cmax);
+        bool inside = glm::all(glm::lessThanEqual(cmin, glm::vec3(20))) &&
+                      glm::all(glm::greaterThanEqual(cmax, glm::vec3(-20)));
+        if (inside)
+        {
+            CHECK(visible.count(*it) == 1);
+        }
+        // boxes are enlarged by at most a fifth of the 4 unit diameter
+        bool farOutside = glm::any(glm::greaterThan(cmin, glm::vec3(21))) ||
+                          glm::any(glm::lessThan(cmax, glm::vec3(-21)));
+        if (farOutside)
+        {
+            CHECK(visible.count(*it) == 0);
+        }
+    }
+    deleteColliders(colliders);
+}
+
+static void testMoveRemoveAndDestroy()
+{
+    ColliderBVH bvh;
+    std::vector<Collider*> colliders;
+
+    makeColliders(colliders, COLLIDER_COUNT);
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        bvh.insert(*it);
+    }
+    checkRays(bvh, colliders);
+
+    // small moves stay in the leaf boxes, large ones move the leaves
+    for (size_t i = 0; i < colliders.size(); i += 2)
+    {
+        Collider* c = colliders[i];
+        c->moveTo(c->center_ + ((i % 4 == 0) ? glm::vec3(0.01f) : randomPoint()));
+    }
+
+    // a removed collider can be inserted again
+    for (size_t i = 1; i < colliders.size(); i += 7)
+    {
+        bvh.remove(colliders[i]);
+        CHECK(colliders[i]->bvh() == nullptr);
+    }
+    for (size_t i = 1; i < colliders.size(); i += 14)
+    {
+        bvh.insert(colliders[i]);
+    }
+
+    // a destroyed collider leaves the hierarchy
+    int count = bvh.getColliderCount();
+    std::vector<Collider*> alive;
+    for (size_t i = 0; i < colliders.size(); ++i)
+    {
+        if (i % 5 == 3)
+        {
+            if (colliders[i]->bvh() == &bvh)
+            {
+                --count;
+            }
+            delete colliders[i];
+        }
+        else if (colliders[i]->bvh() == &bvh)
+        {
+            alive.push_back(colliders[i]);
+        }
+    }
+    CHECK(bvh.getColliderCount() == count);
+    CHECK(count == (int) alive.size());
+    checkRays(bvh, alive);
+
+    for (size_t i = 0; i < colliders.size(); ++i)
+    {
+        if (i % 5 != 3)
+        {
+            delete colliders[i];
+        }
+    }
+    CHECK(bvh.getColliderCount() == 0);
+}
+
+static void testUnboundedAlwaysVisited()
+{
+    ColliderBVH bvh;
+    Collider bounded(glm::vec3(100, 0, 0), 1);
+    Collider unbounded(glm::vec3(0), -1);
+    int visits = 0;
+
+    bvh.insert(&bounded);
+    bvh.insert(&unbounded);
+    bvh.queryRay(glm::vec3(0), glm::vec3(0, 1, 0), INF, [&](Collider* c, float maxDistance)
+    {
+        CHECK(c == &unbounded);
+        ++visits;
+        return maxDistance;
+    });
+    CHECK(visits == 1);
+
+    // the unbounded collider gets a leaf once it can be bounded
+    unbounded.radius_ = 1;
+    unbounded.onBoundsChanged();
+    bvh.update();
+    CHECK(bvh.getHeight() == 1);
+}
+
+/*
+ * A scene and its colliders are finalized in any order.
+ * Run with -fsanitize=address to catch a use after free.
+ */
+static void testDestructionOrder()
+{
+    std::vector<Collider*> colliders;
+    ColliderBVH* bvh = new ColliderBVH();
+
+    makeColliders(colliders, 100);
+    colliders.push_back(new Collider(glm::vec3(0), -1));
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        bvh->insert(*it);
+    }
+    bvh->update();
+    colliders[0]->moveTo(glm::vec3(1000));
+
+    // hierarchy first: the colliders no longer refer to it
+    delete bvh;
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        CHECK((*it)->bvh() == nullptr);
+    }
+    colliders[1]->moveTo(glm::vec3(0));
+    deleteColliders(colliders);
+
+    // colliders first: the hierarchy no longer refers to them
+    bvh = new ColliderBVH();
+    makeColliders(colliders, 100);
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        bvh->insert(*it);
+    }
+    bvh->update();
+    colliders[0]->moveTo(glm::vec3(1000));
+    deleteColliders(colliders);
+    CHECK(bvh->getColliderCount() == 0);
+    CHECK(bvh->getHeight() == 0);
+    delete bvh;
+}
+
+int main()
+{
+    testRaysMatchBruteForce();
+    testBoxAndFrustumQueries();
+    testMoveRemoveAndDestroy();
+    testUnboundedAlwaysVisited();
+    testDestructionOrder();
+    if (failures > 0)
+    {
+        fprintf(stderr, "%d checks failed\n", failures);
+        return EXIT_FAILURE;
+    }
+    printf("collider_bvh_test passed\n");
+    return EXIT_SUCCESS;
+}
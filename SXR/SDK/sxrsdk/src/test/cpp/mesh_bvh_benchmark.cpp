@@ -0,0 +1,145 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Host benchmark of mesh collider ray casts through MeshBVH against
+ * testing every triangle, from 1k to 1M triangles. Builds without the NDK:
+ *
+ *   g++ -std=c++11 -O2 -I src/test/cpp/stubs -I src/main/jni -I src/main/jni/contrib \
+ *       src/test/cpp/mesh_bvh_benchmark.cpp -o mesh_bvh_benchmark && ./mesh_bvh_benchmark
+ */
+
+#include <chrono>
+#include <cmath>
+#include <cstdio>
+#include <cstdlib>
+#include <random>
+
+#include "test_mesh.h"
+
+using namespace sxr;
+
+static const int QUERY_COUNT = 2000;
+static const float INF = std::numeric_limits<float>::infinity();
+
+static std::mt19937 rng(1234);
+
+static float random(float lo, float hi)
+{
+    return std::uniform_real_distribution<float>(lo, hi)(rng);
+}
+
+static double microsSince(std::chrono::steady_clock::time_point start)
+{
+    return std::chrono::duration<double, std::micro>(std::chrono::steady_clock::now() - start).count();
+}
+
+/*
+ * Wavy square grid of about count triangles, like a terrain mesh.
+ */
+static void makeGrid(TestMesh& mesh, int count)
+{
+    int cells = (int) std::sqrt(count / 2.0);
+    for (int y = 0; y <= cells; ++y)
+    {
+        for (int x = 0; x <= cells; ++x)
+        {
+            mesh.positions.push_back(glm::vec3(x - cells / 2.0f, y - cells / 2.0f,
+                                               std::sin(x * 0.3f) * std::cos(y * 0.2f) * 3));
+        }
+    }
+    for (int y = 0; y < cells; ++y)
+    {
+        for (int x = 0; x < cells; ++x)
+        {
+            unsigned int v = y * (cells + 1) + x;
+            unsigned int tri[6] = { v, v + 1, v + cells + 1, v + 1, v + cells + 2, v + cells + 1 };
+            mesh.indices.insert(mesh.indices.end(), tri, tri + 6);
+        }
+    }
+    mesh.update();
+}
+
+static void run(int count)
+{
+    TestMesh mesh(4);
+    MeshBVH bvh;
+    std::vector<glm::vec3> starts;
+    std::vector<glm::vec3> dirs;
+
+    makeGrid(mesh, count);
+    float size = std::sqrt(count / 2.0f) / 2;
+    for (int q = 0; q < QUERY_COUNT; ++q)
+    {
+        glm::vec3 start(random(-size, size), random(-size, size), 10);
+        glm::vec3 target(random(-size, size), random(-size, size), 0);
+        starts.push_back(start);
+        dirs.push_back(glm::normalize(target - start));
+    }
+
+    auto start = std::chrono::steady_clock::now();
+    bvh.build(mesh.vertexBuffer, mesh.indexBuffer);
+    double buildTime = microsSince(start) / 1000;
+
+    // testing every triangle of the big meshes takes too long for every ray
+    int bruteCount = std::max(10, std::min(QUERY_COUNT, 20000000 / mesh.getTriangleCount()));
+    float checksum1 = 0;
+    start = std::chrono::steady_clock::now();
+    for (int q = 0; q < bruteCount; ++q)
+    {
+        TriangleHit hit = mesh.closestHit(starts[q], dirs[q], INF);
+        checksum1 += (hit.face >= 0) ? hit.distance : 0;
+    }
+    double bruteTime = microsSince(start) / bruteCount;
+
+    float checksum2 = 0;
+    float partialChecksum = 0;
+    start = std::chrono::steady_clock::now();
+    for (int q = 0; q < QUERY_COUNT; ++q)
+    {
+        TriangleHit hit = TestMesh::closestHit(bvh, starts[q], dirs[q], INF);
+        checksum2 += (hit.face >= 0) ? hit.distance : 0;
+        if (q == bruteCount - 1)
+        {
+            partialChecksum = checksum2;
+        }
+    }
+    double bvhTime = microsSince(start) / QUERY_COUNT;
+
+    // the surface moves, so the boxes are refit without changing the tree
+    for (auto it = mesh.positions.begin(); it != mesh.positions.end(); ++it)
+    {
+        it->z += random(-0.5f, 0.5f);
+    }
+    mesh.vertexBuffer.setPositions(mesh.positions);
+    start = std::chrono::steady_clock::now();
+    bvh.refit(mesh.vertexBuffer, mesh.indexBuffer);
+    double refitTime = microsSince(start) / 1000;
+
+    bool same = std::fabs(checksum1 - partialChecksum) <= 1e-4f * std::fabs(checksum1);
+    printf("%9d %8d %6d %10.2f %10.2f %14.2f %12.2f %s\n", mesh.getTriangleCount(), bvh.getNodeCount(),
+           bvh.getDepth(), buildTime, refitTime, bruteTime, bvhTime, same ? "" : "MISMATCH");
+}
+
+int main()
+{
+    printf("%9s %8s %6s %10s %10s %14s %12s\n", "triangles", "nodes", "depth", "build ms", "refit ms",
+           "brute ray us", "bvh ray us");
+    for (int count = 1000; count <= 1000000; count *= 10)
+    {
+        run(count);
+    }
+    return EXIT_SUCCESS;
+}
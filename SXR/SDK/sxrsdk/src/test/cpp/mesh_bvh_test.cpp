@@ -0,0 +1,356 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Host test of MeshBVH ray casts against testing every triangle.
+ * Builds without the NDK:
+ *
+ *   g++ -std=c++11 -fsanitize=address -I src/test/cpp/stubs -I src/main/jni -I src/main/jni/contrib \
+ *       src/test/cpp/mesh_bvh_test.cpp -o mesh_bvh_test && ./mesh_bvh_test
+ */
+
+#include <algorithm>
+#include <cmath>
+#include <cstdio>
+#include <cstdlib>
+#include <random>
+
+#include "test_mesh.h"
+
+using namespace sxr;
+
+static int failures = 0;
+
+#define CHECK(cond)                                                 \
+    if (!(cond))                                                    \
+    {                                                               \
+        fprintf(stderr, "%s:%d: failed: %s\n", __FILE__, __LINE__, #cond); \
+        ++failures;                                                 \
+    }
+
+static const int QUERY_COUNT = 300;
+static const float INF = std::numeric_limits<float>::infinity();
+
+static std::mt19937 rng(1234);
+
+static float random(float lo, float hi)
+{
+    return std::uniform_real_distribution<float>(lo, hi)(rng);
+}
+
+static glm::vec3 randomPoint(float size)
+{
+    return glm::vec3(random(-size, size), random(-size, size), random(-size, size));
+}
+
+/*
+ * Triangles of up to 2 units scattered in a cube, each with its own vertices.
+ */
+static void makeSoup(TestMesh& mesh, int count, float size)
+{
+    for (int i = 0; i < count; ++i)
+    {
+        glm::vec3 center(randomPoint(size));
+        for (int j = 0; j < 3; ++j)
+        {
+            mesh.indices.push_back((unsigned int) mesh.positions.size());
+            mesh.positions.push_back(center + randomPoint(1));
+        }
+    }
+    mesh.update();
+}
+
+/*
+ * Wavy grid in the XY plane with shared vertices, like a terrain mesh.
+ */
+static void makeGrid(TestMesh& mesh, int cells)
+{
+    for (int y = 0; y <= cells; ++y)
+    {
+        for (int x = 0; x <= cells; ++x)
+        {
+            mesh.positions.push_back(glm::vec3(x - cells / 2.0f, y - cells / 2.0f,
+                                               std::sin(x * 0.3f) * std::cos(y * 0.2f) * 3));
+        }
+    }
+    for (int y = 0; y < cells; ++y)
+    {
+        for (int x = 0; x < cells; ++x)
+        {
+            unsigned int v = y * (cells + 1) + x;
+            unsigned int tri[6] = { v, v + 1, v + cells + 1, v + 1, v + cells + 2, v + cells + 1 };
+            mesh.indices.insert(mesh.indices.end(), tri, tri + 6);
+        }
+    }
+    mesh.update();
+}
+
+/*
+ * Compare the closest hit through the tree with testing every triangle.
+ * Triangles sharing an edge or a plane can be hit at the same distance,
+ * give or take rounding, so the faces may differ. A leaf is skipped if
+ * its box is entered after the closest hit so far, so a triangle hit a
+ * few ulps nearer than its box may be missed.
+ */
+static void checkClosestHit(const TestMesh& mesh, const MeshBVH& bvh,
+                            const glm::vec3& start, const glm::vec3& dir, float maxDistance)
+{
+    TriangleHit expected = mesh.closestHit(start, dir, maxDistance);
+    TriangleHit actual = TestMesh::closestHit(bvh, start, dir, maxDistance);
+
+    CHECK((expected.face < 0) == (actual.face < 0));
+    if (expected.face >= 0)
+    {
+        CHECK(std::fabs(expected.distance - actual.distance) <= 1e-5f * expected.distance);
+    }
+}
+
+/*
+ * Every triangle hit must be visited when the
+ * visitor never shortens the ray.
+ */
+static void checkAllHits(const TestMesh& mesh, const MeshBVH& bvh,
+                         const glm::vec3& start, const glm::vec3& dir)
+{
+    std::vector<int> expected;
+    std::vector<int> actual;
+
+    for (int f = 0; f < mesh.getTriangleCount(); ++f)
+    {
+        if (rayTriangle(start, dir, mesh.corner(f, 0), mesh.corner(f, 1), mesh.corner(f, 2)) > 0)
+        {
+            expected.push_back(f);
+        }
+    }
+    bvh.raycast(start, dir, INF, [&actual, &start, &dir](int face, const glm::vec3& A, const glm::vec3& B,
+                                                         const glm::vec3& C, float maxDistance)
+    {
+        if (rayTriangle(start, dir, A, B, C) > 0)
+        {
+            actual.push_back(face);
+        }
+        return maxDistance;
+    });
+    std::sort(actual.begin(), actual.end());
+    CHECK(expected == actual);
+}
+
+static void checkRandomRays(const TestMesh& mesh, const MeshBVH& bvh, float size)
+{
+    for (int q = 0; q < QUERY_COUNT; ++q)
+    {
+        glm::vec3 start(randomPoint(2 * size));
+        glm::vec3 dir(glm::normalize(randomPoint(size) - start));
+        checkClosestHit(mesh, bvh, start, dir, INF);
+        checkAllHits(mesh, bvh, start, dir);
+    }
+}
+
+static void testSoup(int bytesPerIndex)
+{
+    TestMesh mesh(bytesPerIndex);
+    MeshBVH bvh;
+
+    makeSoup(mesh, 3000, 20);
+    CHECK(bvh.build(mesh.vertexBuffer, mesh.indexBuffer));
+    CHECK(bvh.getTriangleCount() == 3000);
+    CHECK(bvh.getDepth() <= MeshBVH::MAX_DEPTH);
+    CHECK(bvh.isCurrent(mesh.vertexBuffer, mesh.indexBuffer));
+    checkRandomRays(mesh, bvh, 20);
+}
+
+static void testGrid()
+{
+    TestMesh mesh(4);
+    MeshBVH bvh;
+
+    makeGrid(mesh, 100);
+    CHECK(bvh.build(mesh.vertexBuffer, mesh.indexBuffer));
+    CHECK(bvh.getTriangleCount() == 20000);
+    checkRandomRays(mesh, bvh, 50);
+
+    // straight down, through vertices and along edges
+    for (int q = 0; q < QUERY_COUNT; ++q)
+    {
+        glm::vec3 start((float) (int) random(-50, 50), random(-50, 50), 10);
+        checkClosestHit(mesh, bvh, start, glm::vec3(0, 0, -1), INF);
+        checkAllHits(mesh, bvh, start, glm::vec3(0, 0, -1));
+    }
+}
+
+static void testAxisRays()
+{
+    TestMesh mesh(2);
+    MeshBVH bvh;
+
+    makeSoup(mesh, 1000, 10);
+    CHECK(bvh.build(mesh.vertexBuffer, mesh.indexBuffer));
+    const glm::vec3 axes[6] = { glm::vec3(1, 0, 0), glm::vec3(-1, 0, 0), glm::vec3(0, 1, 0),
+                                glm::vec3(0, -1, 0), glm::vec3(0, 0, 1), glm::vec3(0, 0, -1) };
+    for (int q = 0; q < QUERY_COUNT; ++q)
+    {
+        const glm::vec3& dir = axes[q % 6];
+        glm::vec3 start(randomPoint(10) - dir * 20.0f);
+        checkClosestHit(mesh, bvh, start, dir, INF);
+        checkAllHits(mesh, bvh, start, dir);
+    }
+}
+
+static void testMaxDistance()
+{
+    TestMesh mesh(4);
+    MeshBVH bvh;
+
+    makeSoup(mesh, 2000, 20);
+    CHECK(bvh.build(mesh.vertexBuffer, mesh.indexBuffer));
+    for (int q = 0; q < QUERY_COUNT; ++q)
+    {
+        glm::vec3 start(randomPoint(20));
+        glm::vec3 dir(glm::normalize(randomPoint(20) - start));
+        float maxDistance = random(0, 30);
+        checkClosestHit(mesh, bvh, start, dir, maxDistance);
+
+        // every triangle hit before maxDistance is visited
+        int expected = 0;
+        int actual = 0;
+        for (int f = 0; f < mesh.getTriangleCount(); ++f)
+        {
+            float d = rayTriangle(start, dir, mesh.corner(f, 0), mesh.corner(f, 1), mesh.corner(f, 2));
+            if ((d > 0) && (d < maxDistance))
+            {
+                ++expected;
+            }
+        }
+        bvh.raycast(start, dir, maxDistance, [&actual, &start, &dir, maxDistance](int face, const glm::vec3& A,
+                                                                                  const glm::vec3& B, const glm::vec3& C,
+                                                                                  float distance)
+        {
+            float d = rayTriangle(start, dir, A, B, C);
+            if ((d > 0) && (d < maxDistance))
+            {
+                ++actual;
+            }
+            return distance;
+        });
+        CHECK(expected == actual);
+    }
+}
+
+static void testRefit()
+{
+    TestMesh mesh(4);
+    MeshBVH bvh;
+
+    makeGrid(mesh, 40);
+    CHECK(bvh.build(mesh.vertexBuffer, mesh.indexBuffer));
+    int nodeCount = bvh.getNodeCount();
+
+    // only the vertices change, so the tree is refit
+    for (auto it = mesh.positions.begin(); it != mesh.positions.end(); ++it)
+    {
+        it->z += random(-2, 2);
+    }
+    mesh.vertexBuffer.setPositions(mesh.positions);
+    CHECK(!bvh.isCurrent(mesh.vertexBuffer, mesh.indexBuffer));
+    CHECK(bvh.canRefit(mesh.vertexBuffer, mesh.indexBuffer));
+    CHECK(bvh.refit(mesh.vertexBuffer, mesh.indexBuffer));
+    CHECK(bvh.isCurrent(mesh.vertexBuffer, mesh.indexBuffer));
+    CHECK(bvh.getNodeCount() == nodeCount);
+    checkRandomRays(mesh, bvh, 20);
+
+    // the indices change, so the tree must be built again
+    std::reverse(mesh.indices.begin(), mesh.indices.end());
+    mesh.indexBuffer.setIndices(mesh.indices);
+    CHECK(!bvh.canRefit(mesh.vertexBuffer, mesh.indexBuffer));
+    CHECK(!bvh.refit(mesh.vertexBuffer, mesh.indexBuffer));
+    CHECK(bvh.build(mesh.vertexBuffer, mesh.indexBuffer));
+    checkRandomRays(mesh, bvh, 20);
+
+    // a different vertex count cannot be refit either
+    mesh.positions.push_back(glm::vec3(0));
+    mesh.vertexBuffer.setPositions(mesh.positions);
+    CHECK(!bvh.canRefit(mesh.vertexBuffer, mesh.indexBuffer));
+}
+
+static void testStackedTriangles()
+{
+    // every centroid at the same place, so no split is better than another
+    TestMesh mesh(4);
+    MeshBVH bvh;
+
+    for (int i = 0; i < 1000; ++i)
+    {
+        float s = random(0.5f, 2);
+        mesh.indices.push_back((unsigned int) mesh.positions.size());
+        mesh.positions.push_back(glm::vec3(-s, -s, 0));
+        mesh.indices.push_back((unsigned int) mesh.positions.size());
+        mesh.positions.push_back(glm::vec3(2 * s, -s, 0));
+        mesh.indices.push_back((unsigned int) mesh.positions.size());
+        mesh.positions.push_back(glm::vec3(-s, 2 * s, 0));
+    }
+    mesh.update();
+    CHECK(bvh.build(mesh.vertexBuffer, mesh.indexBuffer));
+    CHECK(bvh.getDepth() <= MeshBVH::MAX_DEPTH);
+    for (int q = 0; q < QUERY_COUNT; ++q)
+    {
+        glm::vec3 start(random(-3, 3), random(-3, 3), 5);
+        checkClosestHit(mesh, bvh, start, glm::vec3(0, 0, -1), INF);
+        checkAllHits(mesh, bvh, start, glm::vec3(0, 0, -1));
+    }
+}
+
+static void testBadInput()
+{
+    TestMesh empty(4);
+    MeshBVH bvh;
+
+    empty.update();
+    CHECK(!bvh.build(empty.vertexBuffer, empty.indexBuffer));
+    CHECK(bvh.getNodeCount() == 0);
+    CHECK(TestMesh::closestHit(bvh, glm::vec3(0), glm::vec3(0, 0, 1), INF).face < 0);
+
+    // indices past the last vertex use the first one
+    TestMesh mesh(4);
+    mesh.positions.push_back(glm::vec3(-1, -1, 0));
+    mesh.positions.push_back(glm::vec3(1, -1, 0));
+    mesh.positions.push_back(glm::vec3(0, 1, 0));
+    unsigned int indices[6] = { 0, 1, 2, 1, 2, 100 };
+    mesh.indices.assign(indices, indices + 6);
+    mesh.update();
+    CHECK(bvh.build(mesh.vertexBuffer, mesh.indexBuffer));
+    CHECK(bvh.getTriangleCount() == 2);
+    mesh.indices[5] = 0;
+    checkClosestHit(mesh, bvh, glm::vec3(0, 0, 5), glm::vec3(0, 0, -1), INF);
+    checkAllHits(mesh, bvh, glm::vec3(0, -0.5f, 5), glm::vec3(0, 0, -1));
+}
+
+int main()
+{
+    testSoup(2);
+    testSoup(4);
+    testGrid();
+    testAxisRays();
+    testMaxDistance();
+    testRefit();
+    testStackedTriangles();
+    testBadInput();
+    if (failures > 0)
+    {
+        fprintf(stderr, "%d checks failed\n", failures);
+        return EXIT_FAILURE;
+    }
+    printf("all mesh BVH tests passed\n");
+    return EXIT_SUCCESS;
+}
@@ -0,0 +1,70 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Host stand-in for objects/index_buffer.h, which needs GL through
+ * HybridObject. It keeps the members MeshBVH reads and holds
+ * 16 or 32 bit indices.
+ * Put this directory before src/main/jni on the include path.
+ */
+
+#pragma once
+
+#include <vector>
+
+namespace sxr
+{
+    class IndexBuffer
+    {
+    public:
+        explicit IndexBuffer(int bytesPerIndex)
+                : mIndexByteSize(bytesPerIndex), mIndexCount(0), mVersion(0)
+        { }
+
+        void setIndices(const std::vector<unsigned int>& indices)
+        {
+            mIndexCount = (int) indices.size();
+            if (mIndexByteSize == 2)
+            {
+                mShortData.assign(indices.begin(), indices.end());
+            }
+            else
+            {
+                mIntData = indices;
+            }
+            ++mVersion;
+        }
+
+        const unsigned int* getIndexData() const
+        {
+            if (mIndexCount == 0)
+            {
+                return nullptr;
+            }
+            return (mIndexByteSize == 2) ? reinterpret_cast<const unsigned int*>(&mShortData[0]) : &mIntData[0];
+        }
+
+        int getIndexSize() const    { return mIndexByteSize; }
+        int getIndexCount() const   { return mIndexCount; }
+        unsigned int getVersion() const { return mVersion; }
+
+    private:
+        int                         mIndexByteSize;
+        int                         mIndexCount;
+        unsigned int                mVersion;
+        std::vector<unsigned short> mShortData;
+        std::vector<unsigned int>   mIntData;
+    };
+}
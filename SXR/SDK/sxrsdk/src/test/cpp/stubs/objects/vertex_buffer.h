@@ -0,0 +1,77 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Host stand-in for objects/vertex_buffer.h, which needs GL through
+ * HybridObject. It keeps the members MeshBVH reads. Each vertex has
+ * a_texcoord before a_position so the position is not at offset 0.
+ * Put this directory before src/main/jni on the include path.
+ */
+
+#pragma once
+
+#include <cstring>
+#include <vector>
+#include "glm/glm.hpp"
+
+namespace sxr
+{
+    class VertexBuffer
+    {
+    public:
+        static const int TEXCOORD_SIZE = 2;
+        static const int VERTEX_SIZE = TEXCOORD_SIZE + 3;
+
+        VertexBuffer() : mVersion(0) { }
+
+        void setPositions(const std::vector<glm::vec3>& positions)
+        {
+            mData.assign(positions.size() * VERTEX_SIZE, 0.0f);
+            for (size_t i = 0; i < positions.size(); ++i)
+            {
+                float* p = &mData[i * VERTEX_SIZE + TEXCOORD_SIZE];
+                p[0] = positions[i].x;
+                p[1] = positions[i].y;
+                p[2] = positions[i].z;
+            }
+            ++mVersion;
+        }
+
+        const float* getVertexData() const
+        {
+            return mData.empty() ? nullptr : &mData[0];
+        }
+
+        int getVertexSize() const   { return VERTEX_SIZE; }
+        int getVertexCount() const  { return (int) mData.size() / VERTEX_SIZE; }
+        unsigned int getVersion() const { return mVersion; }
+
+        bool getInfo(const char* attributeName, int& index, int& offset, int& size) const
+        {
+            if (strcmp(attributeName, "a_position") != 0)
+            {
+                return false;
+            }
+            index = 1;
+            offset = TEXCOORD_SIZE * sizeof(float);
+            size = 3 * sizeof(float);
+            return true;
+        }
+
+    private:
+        std::vector<float>  mData;
+        unsigned int        mVersion;
+    };
+}
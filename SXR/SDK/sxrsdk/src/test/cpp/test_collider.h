@@ -0,0 +1,137 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Host stand-in for objects/components/collider.h, which needs GL
+ * through Node. It keeps the members ColliderBVH uses and the
+ * destructor which takes the collider out of its hierarchy.
+ * Colliders are spheres, or unbounded if the radius is negative.
+ */
+
+#ifndef TEST_COLLIDER_H_
+#define TEST_COLLIDER_H_
+
+// skip the real collider and its node
+#define COLLIDER_H_
+
+#include <atomic>
+#include <cmath>
+#include <limits>
+#include "glm/glm.hpp"
+
+namespace sxr
+{
+    class ColliderBVH;
+    class Node { };
+
+    class Collider
+    {
+    public:
+        Collider(const glm::vec3& center, float radius)
+                : center_(center), radius_(radius), bvh_(nullptr),
+                  bvh_proxy_(-1), bvh_dirty_(false), bvh_unbounded_(false)
+        { }
+
+        virtual ~Collider();
+
+        Node* owner_object() { return &owner_; }
+
+        bool getWorldBounds(Node* owner, glm::vec3& minCorner, glm::vec3& maxCorner)
+        {
+            if (radius_ < 0)
+            {
+                return false;
+            }
+            minCorner = center_ - glm::vec3(radius_);
+            maxCorner = center_ + glm::vec3(radius_);
+            return true;
+        }
+
+        /*
+         * Distance along the ray to the sphere,
+         * or infinity if the ray misses it.
+         */
+        float hitDistance(const glm::vec3& start, const glm::vec3& dir) const
+        {
+            glm::vec3 d = start - center_;
+            float b = glm::dot(d, dir);
+            float c = glm::dot(d, d) - radius_ * radius_;
+            float disc = b * b - c;
+
+            if ((radius_ < 0) || (disc < 0))
+            {
+                return std::numeric_limits<float>::infinity();
+            }
+            float t = -b - std::sqrt(disc);
+            if (t < 0)
+            {
+                t = -b + std::sqrt(disc);
+            }
+            return (t >= 0) ? t : std::numeric_limits<float>::infinity();
+        }
+
+        void moveTo(const glm::vec3& center);
+        void onBoundsChanged();
+
+        ColliderBVH* bvh() const { return bvh_; }
+
+        glm::vec3   center_;
+        float       radius_;
+
+    private:
+        friend class ColliderBVH;
+
+        Node    owner_;
+        std::atomic<ColliderBVH*> bvh_;
+        int     bvh_proxy_;
+        std::atomic<bool> bvh_dirty_;
+        bool    bvh_unbounded_;
+    };
+}
+
+#include "engine/picker/collider_bvh.cpp"
+
+namespace sxr
+{
+    Collider::~Collider()
+    {
+        ColliderBVH* bvh = bvh_;
+        if (bvh != nullptr)
+        {
+            bvh->remove(this);
+        }
+    }
+
+    void Collider::moveTo(const glm::vec3& center)
+    {
+        center_ = center;
+        onBoundsChanged();
+    }
+
+    void Collider::onBoundsChanged()
+    {
+        if (bvh_dirty_)
+        {
+            return;
+        }
+        ColliderBVH* bvh = bvh_;
+        if (bvh != nullptr)
+        {
+            bvh->markDirty(this);
+        }
+    }
+}
+
+#endif
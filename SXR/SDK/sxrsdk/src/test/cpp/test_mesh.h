@@ -0,0 +1,145 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Host build of MeshBVH over the buffers in stubs/objects, with
+ * a mesh that keeps its positions and indices so rays can be
+ * tested against every triangle as MeshCollider does without a tree.
+ */
+
+#ifndef TEST_MESH_H_
+#define TEST_MESH_H_
+
+// skip the Android parts of util/sxr_log.h, MeshBVH only logs with LOGV
+#define LOG_H_
+#define VERBOSE_LOGGING 0
+
+#include <limits>
+#include <vector>
+
+#include "objects/mesh_bvh.cpp"
+
+namespace sxr
+{
+    struct TriangleHit
+    {
+        int     face;
+        float   distance;
+    };
+
+    /*
+     * Same test as MeshCollider::rayTriangleIntersect,
+     * which cannot be built without GL.
+     * @returns distance along the ray or -1 if missed
+     */
+    static float rayTriangle(const glm::vec3& rayStart, const glm::vec3& rayDir,
+                             const glm::vec3& V1, const glm::vec3& V2, const glm::vec3& V3)
+    {
+        glm::vec3 e1(V2 - V1);
+        glm::vec3 e2(V3 - V1);
+        glm::vec3 P = glm::cross(rayDir, e2);
+        glm::vec3 T(rayStart - V1);
+        float det = glm::dot(e1, P);
+        const float EPSILON = 0.00001f;
+
+        if (det > -EPSILON && det < EPSILON)
+        {
+            return -1;
+        }
+        float inv_det = 1.0f / det;
+        float u = glm::dot(T, P) * inv_det;
+        if (u < 0.0f || u > 1.0f)
+        {
+            return -1;
+        }
+        glm::vec3 Q = glm::cross(T, e1);
+        float v = glm::dot(rayDir, Q) * inv_det;
+        if (v < 0.0f || (u + v) > 1.0f)
+        {
+            return -1;
+        }
+        float t = glm::dot(e2, Q) * inv_det;
+        return (t > EPSILON) ? t : -1;
+    }
+
+    class TestMesh
+    {
+    public:
+        explicit TestMesh(int bytesPerIndex) : indexBuffer(bytesPerIndex) { }
+
+        void update()
+        {
+            vertexBuffer.setPositions(positions);
+            indexBuffer.setIndices(indices);
+        }
+
+        int getTriangleCount() const { return (int) indices.size() / 3; }
+
+        glm::vec3 corner(int face, int i) const
+        {
+            return positions[indices[face * 3 + i]];
+        }
+
+        /*
+         * Closest hit testing every triangle, as MeshCollider::isHit
+         * does for small meshes. The face is -1 if nothing was hit.
+         */
+        TriangleHit closestHit(const glm::vec3& start, const glm::vec3& dir, float maxDistance) const
+        {
+            TriangleHit hit = { -1, maxDistance };
+            for (int f = 0; f < getTriangleCount(); ++f)
+            {
+                float d = rayTriangle(start, dir, corner(f, 0), corner(f, 1), corner(f, 2));
+                if ((d > 0) && (d < hit.distance))
+                {
+                    hit.face = f;
+                    hit.distance = d;
+                }
+            }
+            return hit;
+        }
+
+        /*
+         * Closest hit through the tree, as MeshCollider::isHit
+         * does for large meshes.
+         */
+        static TriangleHit closestHit(const MeshBVH& bvh, const glm::vec3& start,
+                                      const glm::vec3& dir, float maxDistance)
+        {
+            TriangleHit hit = { -1, maxDistance };
+            bvh.raycast(start, dir, maxDistance,
+                        [&hit, &start, &dir](int face, const glm::vec3& A, const glm::vec3& B,
+                                             const glm::vec3& C, float maxDistance) -> float
+            {
+                float d = rayTriangle(start, dir, A, B, C);
+                if ((d > 0) && (d < hit.distance))
+                {
+                    hit.face = face;
+                    hit.distance = d;
+                    return d;
+                }
+                return maxDistance;
+            });
+            return hit;
+        }
+
+        std::vector<glm::vec3>      positions;
+        std::vector<unsigned int>   indices;
+        VertexBuffer                vertexBuffer;
+        IndexBuffer                 indexBuffer;
+    };
+}
+
+#endif
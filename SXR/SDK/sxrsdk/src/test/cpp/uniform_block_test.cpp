@@ -0,0 +1,147 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Host test for UniformBlock handles. Builds without the NDK:
+ *
+ *   g++ -std=c++11 -I src/main/jni -I src/main/jni/contrib \
+ *       src/test/cpp/uniform_block_test.cpp -o uniform_block_test && ./uniform_block_test
+ */
+
+#include <cstdarg>
+#include <cstdio>
+#include <cstdlib>
+#include <sstream>
+
+// skip the Android and GL parts of util/sxr_log.h
+#define LOG_H_
+#define LOG_TAG "sxrf"
+#define ANDROID_LOG_VERBOSE 2
+#define ANDROID_LOG_DEBUG 3
+#define ANDROID_LOG_INFO 4
+#define ANDROID_LOG_WARN 5
+#define ANDROID_LOG_ERROR 6
+
+static int __android_log_print(int prio, const char* tag, const char* fmt, ...)
+{
+    va_list args;
+    va_start(args, fmt);
+    fprintf(stderr, "%s: ", tag);
+    vfprintf(stderr, fmt, args);
+    fprintf(stderr, "\n");
+    va_end(args);
+    return 0;
+}
+
+#include "objects/data_descriptor.cpp"
+#include "objects/uniform_block.cpp"
+
+namespace sxr
+{
+    class TestUniformBlock : public UniformBlock
+    {
+    public:
+        explicit TestUniformBlock(const char* descriptor)
+                : UniformBlock(descriptor, 0, "Test")
+        { }
+
+        virtual bool updateGPU(Renderer*, int, int) { return true; }
+        virtual bool bindBuffer(Shader*, Renderer*, int) { return true; }
+    };
+}
+
+using namespace sxr;
+
+static int failures = 0;
+
+#define CHECK(cond)                                                 \
+    if (!(cond))                                                    \
+    {                                                               \
+        fprintf(stderr, "%s:%d: failed: %s\n", __FILE__, __LINE__, #cond); \
+        ++failures;                                                 \
+    }
+
+static const int ENTRY_COUNT = 300;
+
+static std::string makeDescriptor()
+{
+    std::ostringstream desc;
+
+    for (int i = 0; i < ENTRY_COUNT; ++i)
+    {
+        desc << ((i % 3 == 0) ? "int u" : "float4 u") << i << "; ";
+    }
+    return desc.str();
+}
+
+static void testHandlesPastEntry127()
+{
+    std::string desc = makeDescriptor();
+    TestUniformBlock block(desc.c_str());
+
+    CHECK(block.getNumEntries() == ENTRY_COUNT);
+    for (int i = 0; i < ENTRY_COUNT; ++i)
+    {
+        std::string name = "u" + std::to_string(i);
+        int handle = block.getHandle(name.c_str());
+
+        CHECK(handle >= 0);
+        CHECK(block.getEntry(handle) != NULL);
+        if (i % 3 == 0)
+        {
+            int v = -1;
+            CHECK(block.setInt(name.c_str(), i));
+            CHECK(block.getInt(name.c_str(), v) && (v == i));
+            CHECK(block.setInt(handle, i + 1));
+            CHECK(block.getInt(name.c_str(), v) && (v == i + 1));
+        }
+        else
+        {
+            const glm::vec4* v;
+            CHECK(block.setVec4(name.c_str(), glm::vec4(i, 1, 2, 3)));
+            v = block.getVec4(name.c_str());
+            CHECK((v != NULL) && (v->x == i) && (v->w == 3));
+            CHECK(block.setVec4(handle, glm::vec4(i + 1, 1, 2, 3)));
+            v = block.getVec4(name.c_str());
+            CHECK((v != NULL) && (v->x == i + 1));
+        }
+    }
+}
+
+static void testHandlesRejectOtherLayouts()
+{
+    TestUniformBlock block("float a; int b; float4 c;");
+    TestUniformBlock other("int b; float a; float4 c;");
+
+    int handle = block.getHandle("a");
+    CHECK(handle >= 0);
+    CHECK(block.getHandle("missing") == -1);
+    CHECK(other.getEntry(handle) == NULL);
+    CHECK(!other.setFloat(handle, 1.0f));
+    CHECK(block.getHandle("c") == other.getHandle("c"));
+}
+
+int main()
+{
+    testHandlesPastEntry127();
+    testHandlesRejectOtherLayouts();
+    if (failures > 0)
+    {
+        fprintf(stderr, "%d checks failed\n", failures);
+        return EXIT_FAILURE;
+    }
+    printf("uniform_block_test passed\n");
+    return EXIT_SUCCESS;
+}
@@ -0,0 +1,90 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samsungxr;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Times events sent to a handler through a registered
+ * {@link SXREventManager.IEventInvoker} against the same events sent
+ * through the reflective path, which has no invoker. The two alternate
+ * for a few rounds and the best round of each is printed, in
+ * nanoseconds per event.
+ */
+public class SXREventManagerBenchmark {
+    private static final int EVENT_COUNT = 1000000;
+    private static final int WARMUP_COUNT = 200000;
+    private static final int ROUNDS = 5;
+
+    public interface ITypedEvents extends IEvents {
+        void onTick(Object sender, int count);
+    }
+
+    public interface IReflectedEvents extends IEvents {
+        void onTick(Object sender, int count);
+    }
+
+    private static final class TickHandler implements ITypedEvents, IReflectedEvents {
+        long total = 0;
+
+        @Override
+        public void onTick(Object sender, int count) {
+            total += count;
+        }
+    }
+
+    private final SXREventManager mEventManager = new SXREventManager(null);
+
+    private double time(TickHandler handler, Class<? extends IEvents> eventsClass, int count) {
+        Object[] params = new Object[] { this, 1 };
+        long start = System.nanoTime();
+        for (int i = 0; i < count; ++i) {
+            mEventManager.sendEventWithMask(SXREventManager.SEND_MASK_OBJECT, handler,
+                    eventsClass, "onTick", params);
+        }
+        return (System.nanoTime() - start) / (double) count;
+    }
+
+    @Test
+    public void compareWithReflection() {
+        SXREventManager.registerInvoker(ITypedEvents.class, "onTick",
+                new SXREventManager.IEventInvoker<ITypedEvents>() {
+                    @Override
+                    public void invoke(ITypedEvents handler, Object[] params) {
+                        handler.onTick(params[0], (Integer) params[1]);
+                    }
+                });
+        TickHandler typed = new TickHandler();
+        TickHandler reflected = new TickHandler();
+
+        time(typed, ITypedEvents.class, WARMUP_COUNT);
+        time(reflected, IReflectedEvents.class, WARMUP_COUNT);
+        double typedTime = Double.MAX_VALUE;
+        double reflectedTime = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; ++round) {
+            typedTime = Math.min(typedTime, time(typed, ITypedEvents.class, EVENT_COUNT));
+            reflectedTime = Math.min(reflectedTime, time(reflected, IReflectedEvents.class, EVENT_COUNT));
+        }
+
+        System.out.println(String.format("%-28s %12s %12s", EVENT_COUNT + " events",
+                "invoker ns", "reflect ns"));
+        System.out.println(String.format("%-28s %12.1f %12.1f", "onTick(Object, int)",
+                typedTime, reflectedTime));
+        assertEquals(WARMUP_COUNT + ROUNDS * EVENT_COUNT, typed.total);
+        assertEquals(WARMUP_COUNT + ROUNDS * EVENT_COUNT, reflected.total);
+    }
+}
@@ -0,0 +1,124 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samsungxr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SXREventManagerTest {
+    public interface IOverloadEvents extends IEvents {
+        void onValue(Integer value);
+        void onValue(String value);
+        void onValue(float value);
+    }
+
+    public interface IFailEvents extends IEvents {
+        void onFail(String message);
+    }
+
+    private static final class OverloadHandler implements IOverloadEvents {
+        final List<String> received = new ArrayList<String>();
+
+        @Override
+        public void onValue(Integer value) {
+            received.add("Integer " + value);
+        }
+
+        @Override
+        public void onValue(String value) {
+            received.add("String " + value);
+        }
+
+        @Override
+        public void onValue(float value) {
+            received.add("float " + value);
+        }
+    }
+
+    private static final class FailHandler implements IFailEvents {
+        @Override
+        public void onFail(String message) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    // no context is needed to deliver events to the target itself
+    private final SXREventManager mEventManager = new SXREventManager(null);
+
+    private void send(Object target, Class<? extends IEvents> eventsClass,
+                      String eventName, Object... params) {
+        mEventManager.sendEventWithMask(SXREventManager.SEND_MASK_OBJECT, target,
+                eventsClass, eventName, params);
+    }
+
+    @Test
+    public void sameArityOverloadsAreResolvedByType() {
+        OverloadHandler handler = new OverloadHandler();
+
+        send(handler, IOverloadEvents.class, "onValue", 1);
+        send(handler, IOverloadEvents.class, "onValue", "two");
+        send(handler, IOverloadEvents.class, "onValue", 3.0f);
+        send(handler, IOverloadEvents.class, "onValue", 4);
+        assertEquals(Arrays.asList("Integer 1", "String two", "float 3.0", "Integer 4"),
+                handler.received);
+    }
+
+    @Test
+    public void mismatchedParametersAreRejected() {
+        send(new OverloadHandler(), IOverloadEvents.class, "onValue", "cached");
+        try {
+            send(new OverloadHandler(), IOverloadEvents.class, "onValue", 5.0);
+            fail("double parameter should not match");
+        } catch (RuntimeException e) {
+            assertEquals("The interface contains a method onValue but parameters don't match",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void invokerExceptionsReachTheCaller() {
+        SXREventManager.registerInvoker(IFailEvents.class, "onFail",
+                new SXREventManager.IEventInvoker<IFailEvents>() {
+                    @Override
+                    public void invoke(IFailEvents handler, Object[] params) {
+                        handler.onFail((String) params[0]);
+                    }
+                });
+        try {
+            send(new FailHandler(), IFailEvents.class, "onFail", "broken");
+            fail("handler exception should be rethrown");
+        } catch (IllegalStateException e) {
+            assertEquals("broken", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overloadedEventsCannotHaveInvokers() {
+        SXREventManager.registerInvoker(IOverloadEvents.class, "onValue",
+                new SXREventManager.IEventInvoker<IOverloadEvents>() {
+                    @Override
+                    public void invoke(IOverloadEvents handler, Object[] params) {
+                        handler.onValue((String) params[0]);
+                    }
+                });
+    }
+}
@@ -0,0 +1,154 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samsungxr;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SXRGlTaskSchedulerTest {
+    private final List<String> mOrder = new ArrayList<String>();
+
+    private Runnable record(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                mOrder.add(name);
+            }
+        };
+    }
+
+    private Runnable sleep(final String name, final long millis) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                mOrder.add(name);
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void unlimitedBudgetRunsInQueuedOrder() {
+        SXRGlTaskScheduler scheduler = new SXRGlTaskScheduler();
+
+        scheduler.enqueue(record("low 1"), SXRGlTaskScheduler.PRIORITY_LOW);
+        scheduler.enqueue(record("normal 1"), SXRGlTaskScheduler.PRIORITY_NORMAL);
+        scheduler.enqueue(record("high 1"), SXRGlTaskScheduler.PRIORITY_HIGH);
+        scheduler.enqueue(record("low 2"), SXRGlTaskScheduler.PRIORITY_LOW);
+        scheduler.enqueue(record("normal 2"), SXRGlTaskScheduler.PRIORITY_NORMAL);
+        scheduler.runFrame();
+
+        assertEquals(Arrays.asList("low 1", "normal 1", "high 1", "low 2", "normal 2"), mOrder);
+        assertEquals(5, scheduler.getLastFrameExecuted());
+        assertEquals(0, scheduler.getLastFrameDeferred());
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void unlimitedBudgetRunsTasksQueuedWhileRunning() {
+        final SXRGlTaskScheduler scheduler = new SXRGlTaskScheduler();
+
+        scheduler.enqueue(new Runnable() {
+            @Override
+            public void run() {
+                mOrder.add("first");
+                scheduler.enqueue(record("queued by first"), SXRGlTaskScheduler.PRIORITY_LOW);
+            }
+        }, SXRGlTaskScheduler.PRIORITY_NORMAL);
+        scheduler.enqueue(record("second"), SXRGlTaskScheduler.PRIORITY_NORMAL);
+        scheduler.runFrame();
+
+        assertEquals(Arrays.asList("first", "second", "queued by first"), mOrder);
+    }
+
+    @Test
+    public void runAllRunsInQueuedOrder() {
+        SXRGlTaskScheduler scheduler = new SXRGlTaskScheduler();
+
+        scheduler.setFrameBudget(1);
+        scheduler.enqueue(record("low"), SXRGlTaskScheduler.PRIORITY_LOW);
+        scheduler.enqueue(record("high"), SXRGlTaskScheduler.PRIORITY_HIGH);
+        scheduler.enqueue(record("normal"), SXRGlTaskScheduler.PRIORITY_NORMAL);
+        scheduler.runAll();
+
+        assertEquals(Arrays.asList("low", "high", "normal"), mOrder);
+        assertEquals(3, scheduler.getExecutedCount());
+    }
+
+    @Test
+    public void budgetRunsByPriorityAndCountsDeferredTasks() {
+        final SXRGlTaskScheduler scheduler = new SXRGlTaskScheduler();
+
+        scheduler.setFrameBudget(1000000); // 1 ms
+        scheduler.setMaxDeferredFrames(100);
+        scheduler.enqueue(record("low"), SXRGlTaskScheduler.PRIORITY_LOW);
+        scheduler.enqueue(sleep("normal 1", 5), SXRGlTaskScheduler.PRIORITY_NORMAL);
+        scheduler.enqueue(record("normal 2"), SXRGlTaskScheduler.PRIORITY_NORMAL);
+        scheduler.enqueue(record("high"), SXRGlTaskScheduler.PRIORITY_HIGH);
+        scheduler.runFrame();
+
+        assertEquals(Arrays.asList("high", "normal 1"), mOrder);
+        assertEquals(2, scheduler.getLastFrameDeferred());
+        assertEquals(2, scheduler.getDeferredCount());
+        assertEquals(2, scheduler.getPendingCount());
+
+        // a task queued while the frame runs is not deferred by that frame
+        scheduler.enqueue(new Runnable() {
+            @Override
+            public void run() {
+                sleep("normal 3", 5).run();
+                scheduler.enqueue(record("low 2"), SXRGlTaskScheduler.PRIORITY_LOW);
+            }
+        }, SXRGlTaskScheduler.PRIORITY_NORMAL);
+        scheduler.runFrame();
+
+        assertEquals(Arrays.asList("high", "normal 1", "normal 2", "normal 3"), mOrder);
+        assertEquals(1, scheduler.getLastFrameDeferred());
+        assertEquals(3, scheduler.getDeferredCount());
+        assertEquals(2, scheduler.getPendingCount());
+
+        scheduler.runFrame();
+        assertEquals(Arrays.asList("high", "normal 1", "normal 2", "normal 3", "low", "low 2"),
+                     mOrder);
+        assertEquals(0, scheduler.getLastFrameDeferred());
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void taskDeferredTooLongRunsOverBudget() {
+        SXRGlTaskScheduler scheduler = new SXRGlTaskScheduler();
+
+        scheduler.setFrameBudget(1000000);
+        scheduler.setMaxDeferredFrames(1);
+        scheduler.enqueue(sleep("normal 1", 5), SXRGlTaskScheduler.PRIORITY_NORMAL);
+        scheduler.enqueue(record("low"), SXRGlTaskScheduler.PRIORITY_LOW);
+        scheduler.runFrame();
+        assertEquals(Arrays.asList("normal 1"), mOrder);
+
+        scheduler.enqueue(sleep("normal 2", 5), SXRGlTaskScheduler.PRIORITY_NORMAL);
+        scheduler.runFrame();
+        assertEquals(Arrays.asList("normal 1", "normal 2", "low"), mOrder);
+        assertEquals(0, scheduler.getLastFrameDeferred());
+    }
+}
@@ -0,0 +1,181 @@
+package com.samsungxr;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SXRTransformBatchTest {
+    /*
+     * TransformRecord in transform_jni.cpp, which static_asserts the same numbers.
+     */
+    private static final int NATIVE_RECORD_SIZE = 56;
+    private static final int NATIVE_FLAGS_OFFSET = 8;
+    private static final int NATIVE_TRS_OFFSET = 12;
+
+    /**
+     * Batch whose native calls read the records the way commitBatch and
+     * getModelMatrices do, into a map of transform pointer to its ten
+     * position, rotation and scale floats.
+     */
+    private static class NativeBatch extends SXRTransformBatch {
+        final Map<Long, float[]> mTransforms = new HashMap<Long, float[]>();
+        int mCommitCalls = 0;
+        int mReadCalls = 0;
+
+        NativeBatch(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        boolean commitRecords(ByteBuffer records, int count) {
+            ++mCommitCalls;
+            assertTrue(records.isDirect());
+            assertEquals(ByteOrder.nativeOrder(), records.order());
+            assertTrue(records.capacity() >= count * NATIVE_RECORD_SIZE);
+            for (int i = 0; i < count; ++i) {
+                int record = i * NATIVE_RECORD_SIZE;
+                long transform = records.getLong(record);
+                int flags = records.getInt(record + NATIVE_FLAGS_OFFSET);
+                float[] trs = transform(transform);
+                int first = 0;
+                for (int part = 0; part < 3; ++part) {
+                    int size = (part == 1) ? 4 : 3;
+                    if ((flags & (1 << part)) != 0) {
+                        for (int j = first; j < first + size; ++j) {
+                            trs[j] = records.getFloat(record + NATIVE_TRS_OFFSET + 4 * j);
+                        }
+                    }
+                    first += size;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        boolean readMatrices(ByteBuffer records, int count, ByteBuffer matrices) {
+            ++mReadCalls;
+            assertTrue(matrices.capacity() >= count * 16 * 4);
+            for (int i = 0; i < count; ++i) {
+                float[] trs = transform(records.getLong(i * NATIVE_RECORD_SIZE));
+                // a translation matrix is enough to tell the transforms apart
+                for (int j = 0; j < 16; ++j) {
+                    matrices.putFloat(4 * (16 * i + j), (j % 5 == 0) ? 1 : 0);
+                }
+                matrices.putFloat(4 * (16 * i + 12), trs[0]);
+                matrices.putFloat(4 * (16 * i + 13), trs[1]);
+                matrices.putFloat(4 * (16 * i + 14), trs[2]);
+            }
+            return true;
+        }
+
+        float[] transform(long pointer) {
+            float[] trs = mTransforms.get(pointer);
+            if (trs == null) {
+                trs = new float[] { 0, 0, 0, 1, 0, 0, 0, 1, 1, 1 };
+                mTransforms.put(pointer, trs);
+            }
+            return trs;
+        }
+    }
+
+    @Test
+    public void recordLayoutMatchesNative() {
+        assertEquals(NATIVE_RECORD_SIZE, SXRTransformBatch.RECORD_SIZE);
+        assertEquals(NATIVE_FLAGS_OFFSET, SXRTransformBatch.FLAGS_OFFSET);
+        assertEquals(NATIVE_TRS_OFFSET, SXRTransformBatch.POSITION_OFFSET);
+        assertEquals(NATIVE_TRS_OFFSET + 3 * 4, SXRTransformBatch.ROTATION_OFFSET);
+        assertEquals(NATIVE_TRS_OFFSET + 7 * 4, SXRTransformBatch.SCALE_OFFSET);
+        // the pointer of every record stays 8 byte aligned
+        assertEquals(0, SXRTransformBatch.RECORD_SIZE % 8);
+
+        SXRTransformBatch batch = new SXRTransformBatch(2);
+        batch.addRecord(0x1122334455667788L, 0);
+        int offset = batch.addRecord(0x0102030405060708L, SXRTransformBatch.POSITION | SXRTransformBatch.SCALE);
+        batch.putPosition(offset, 1, 2, 3);
+        batch.putRotation(offset, 4, 5, 6, 7);
+        batch.putScale(offset, 8, 9, 10);
+
+        ByteBuffer records = batch.getRecords();
+        assertEquals(2 * NATIVE_RECORD_SIZE, records.capacity());
+        assertEquals(NATIVE_RECORD_SIZE, offset);
+        assertEquals(0x1122334455667788L, records.getLong(0));
+        assertEquals(0x0102030405060708L, records.getLong(offset));
+        assertEquals(SXRTransformBatch.POSITION | SXRTransformBatch.SCALE, records.getInt(offset + NATIVE_FLAGS_OFFSET));
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(i + 1, records.getFloat(offset + NATIVE_TRS_OFFSET + 4 * i), 0);
+        }
+        // the last four bytes are not written
+        assertEquals(0, records.getInt(offset + NATIVE_RECORD_SIZE - 4));
+    }
+
+    @Test
+    public void commitAppliesRecordsInOrder() {
+        NativeBatch batch = new NativeBatch(4);
+        batch.begin();
+        int offset = batch.addRecord(1, SXRTransformBatch.POSITION);
+        batch.putPosition(offset, 1, 2, 3);
+        offset = batch.addRecord(2, SXRTransformBatch.ROTATION | SXRTransformBatch.SCALE);
+        batch.putRotation(offset, 0, 1, 0, 0);
+        batch.putScale(offset, 2, 2, 2);
+        // a later record for the same transform wins
+        offset = batch.addRecord(1, SXRTransformBatch.POSITION);
+        batch.putPosition(offset, 4, 5, 6);
+        batch.addRecord(3, 0);
+        batch.commit();
+
+        assertEquals(4, batch.size());
+        assertTrue(Arrays.equals(new float[] { 4, 5, 6, 1, 0, 0, 0, 1, 1, 1 }, batch.transform(1)));
+        assertTrue(Arrays.equals(new float[] { 0, 0, 0, 0, 1, 0, 0, 2, 2, 2 }, batch.transform(2)));
+        assertTrue(Arrays.equals(new float[] { 0, 0, 0, 1, 0, 0, 0, 1, 1, 1 }, batch.transform(3)));
+
+        float[] matrices = new float[4 * 16];
+        batch.readModelMatrices().get(matrices);
+        assertEquals(4, matrices[12], 0);
+        assertEquals(6, matrices[14], 0);
+        assertEquals(0, matrices[16 + 12], 0);
+        assertEquals(5, matrices[32 + 13], 0);
+    }
+
+    @Test
+    public void oneNativeCallPerBatch() {
+        int count = 1000;
+        NativeBatch batch = new NativeBatch(count);
+        int perNodeCalls = 0;
+
+        batch.begin();
+        for (int i = 0; i < count; ++i) {
+            int offset = batch.addRecord(i + 1, SXRTransformBatch.POSITION | SXRTransformBatch.ROTATION | SXRTransformBatch.SCALE);
+            batch.putPosition(offset, i, 0, 0);
+            batch.putRotation(offset, 1, 0, 0, 0);
+            batch.putScale(offset, 1, 1, 1);
+            // SXRTransform.setPosition, setRotation and setScale
+            perNodeCalls += 3;
+        }
+        batch.commit();
+        batch.readModelMatrices();
+        // SXRTransform.getModelMatrix
+        perNodeCalls += count;
+
+        assertEquals(1, batch.mCommitCalls);
+        assertEquals(1, batch.mReadCalls);
+        assertEquals(2, batch.getNativeCallCount());
+        assertEquals(4 * count, perNodeCalls);
+        assertEquals(count, batch.mTransforms.size());
+        assertEquals(count - 1, batch.transform(count)[0], 0);
+        System.out.println(count + " transforms: " + batch.getNativeCallCount()
+                + " native calls in a batch, " + perNodeCalls + " with the setters");
+
+        // nothing to cross for an empty batch
+        batch.begin();
+        batch.commit();
+        batch.readModelMatrices();
+        assertEquals(2, batch.getNativeCallCount());
+    }
+}
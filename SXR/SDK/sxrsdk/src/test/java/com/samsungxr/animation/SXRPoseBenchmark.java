@@ -0,0 +1,225 @@
+/* Copyright 2018 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samsungxr.animation;
+
+import static org.junit.Assert.assertEquals;
+
+import org.joml.Matrix4f;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Times one frame of skinned animation for a crowd of skeletons: set the
+ * local rotation of every bone, compute the world matrices down the
+ * hierarchy and copy them out for the native skeleton.
+ * <p>
+ * The flat arrays use the {@link SXRPose} matrix helpers. The per bone
+ * objects are the Bone class SXRPose used before, one pair of
+ * {@link Matrix4f} per bone. Prints the milliseconds taken by each.
+ */
+public class SXRPoseBenchmark
+{
+    private static final int NUM_BONES = 64;
+    private static final int NUM_POSES = 100;
+    private static final int NUM_FRAMES = 500;
+    private static final int WARMUP_FRAMES = 500;
+
+    private final int[] mParents = new int[NUM_BONES];
+    private final float[] mRotations = new float[NUM_FRAMES * NUM_BONES * 4];
+
+    /*
+     * The bone of the old SXRPose, with its setLocalRotation.
+     */
+    private static class Bone
+    {
+        final Matrix4f LocalMatrix = new Matrix4f();
+        final Matrix4f WorldMatrix = new Matrix4f();
+
+        void setLocalRotation(float x, float y, float z, float w)
+        {
+            float posx = LocalMatrix.m30();
+            float posy = LocalMatrix.m31();
+            float posz = LocalMatrix.m32();
+            float scalex = (float) Math.sqrt(LocalMatrix.m00() * LocalMatrix.m00() +
+                                             LocalMatrix.m01() * LocalMatrix.m01() +
+                                             LocalMatrix.m02() * LocalMatrix.m02());
+            float scaley = (float) Math.sqrt(LocalMatrix.m10() * LocalMatrix.m10() +
+                                             LocalMatrix.m11() * LocalMatrix.m11() +
+                                             LocalMatrix.m12() * LocalMatrix.m12());
+            float scalez = (float) Math.sqrt(LocalMatrix.m20() * LocalMatrix.m20() +
+                                             LocalMatrix.m21() * LocalMatrix.m21() +
+                                             LocalMatrix.m22() * LocalMatrix.m22());
+
+            LocalMatrix.translationRotateScale(posx, posy, posz, x, y, z, w, scalex, scaley, scalez);
+        }
+    }
+
+    private interface Poses
+    {
+        void frame(int frame, float[] dest);
+    }
+
+    private class BonePoses implements Poses
+    {
+        private final Bone[][] mBones = new Bone[NUM_POSES][NUM_BONES];
+        private final Matrix4f mTempMtx = new Matrix4f();
+
+        BonePoses()
+        {
+            for (int p = 0; p < NUM_POSES; ++p)
+            {
+                for (int i = 0; i < NUM_BONES; ++i)
+                {
+                    mBones[p][i] = new Bone();
+                    mBones[p][i].LocalMatrix.translation(0, 1, 0);
+                }
+            }
+        }
+
+        public void frame(int frame, float[] dest)
+        {
+            int r = (frame % NUM_FRAMES) * NUM_BONES * 4;
+
+            for (Bone[] bones : mBones)
+            {
+                for (int i = 0; i < NUM_BONES; ++i)
+                {
+                    int t = r + i * 4;
+                    bones[i].setLocalRotation(mRotations[t], mRotations[t + 1], mRotations[t + 2], mRotations[t + 3]);
+                }
+                for (int i = 0; i < NUM_BONES; ++i)
+                {
+                    Bone bone = bones[i];
+                    if (mParents[i] >= 0)
+                    {
+                        mTempMtx.set(bones[mParents[i]].WorldMatrix);
+                        mTempMtx.mul(bone.LocalMatrix);
+                        bone.WorldMatrix.set(mTempMtx);
+                    }
+                    else
+                    {
+                        bone.WorldMatrix.set(bone.LocalMatrix);
+                    }
+                }
+                for (int i = 0; i < NUM_BONES; ++i)
+                {
+                    bones[i].WorldMatrix.get(dest, i * 16);
+                }
+            }
+        }
+    }
+
+    private class ArrayPoses implements Poses
+    {
+        private final float[][] mLocal = new float[NUM_POSES][NUM_BONES * 16];
+        private final float[][] mWorld = new float[NUM_POSES][NUM_BONES * 16];
+
+        ArrayPoses()
+        {
+            for (int p = 0; p < NUM_POSES; ++p)
+            {
+                for (int i = 0; i < NUM_BONES; ++i)
+                {
+                    SXRPose.setIdentity(mLocal[p], i * 16);
+                    SXRPose.setTranslation(mLocal[p], i * 16, 0, 1, 0);
+                }
+            }
+        }
+
+        public void frame(int frame, float[] dest)
+        {
+            int r = (frame % NUM_FRAMES) * NUM_BONES * 4;
+
+            for (int p = 0; p < NUM_POSES; ++p)
+            {
+                float[] local = mLocal[p];
+                float[] world = mWorld[p];
+
+                for (int i = 0; i < NUM_BONES; ++i)
+                {
+                    int t = r + i * 4;
+                    SXRPose.setRotation(local, i * 16, mRotations[t], mRotations[t + 1], mRotations[t + 2], mRotations[t + 3]);
+                }
+                for (int i = 0; i < NUM_BONES; ++i)
+                {
+                    if (mParents[i] >= 0)
+                    {
+                        SXRPose.mulAffine(world, mParents[i] * 16, local, i * 16, world, i * 16);
+                    }
+                    else
+                    {
+                        System.arraycopy(local, i * 16, world, i * 16, 16);
+                    }
+                }
+                System.arraycopy(world, 0, dest, 0, world.length);
+            }
+        }
+    }
+
+    private static double time(Poses poses, float[] dest)
+    {
+        for (int f = 0; f < WARMUP_FRAMES; ++f)
+        {
+            poses.frame(f, dest);
+        }
+        long start = System.nanoTime();
+        for (int f = 0; f < NUM_FRAMES; ++f)
+        {
+            poses.frame(f, dest);
+        }
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    @Test
+    public void compareWithBoneObjects()
+    {
+        // a humanoid sized tree, each bone with up to three children
+        mParents[0] = -1;
+        for (int i = 1; i < NUM_BONES; ++i)
+        {
+            mParents[i] = (i - 1) / 3;
+        }
+        Random random = new Random(1234);
+        for (int t = 0; t < mRotations.length; t += 4)
+        {
+            float x = random.nextFloat() - 0.5f;
+            float y = random.nextFloat() - 0.5f;
+            float z = random.nextFloat() - 0.5f;
+            float w = 1;
+            float len = (float) Math.sqrt(x * x + y * y + z * z + w * w);
+            mRotations[t] = x / len;
+            mRotations[t + 1] = y / len;
+            mRotations[t + 2] = z / len;
+            mRotations[t + 3] = w / len;
+        }
+
+        float[] boneResult = new float[NUM_BONES * 16];
+        float[] arrayResult = new float[NUM_BONES * 16];
+        double boneTime = time(new BonePoses(), boneResult);
+        double arrayTime = time(new ArrayPoses(), arrayResult);
+
+        System.out.println(String.format("%d poses x %d bones x %d frames %12s %12s",
+                                         NUM_POSES, NUM_BONES, NUM_FRAMES, "bones ms", "arrays ms"));
+        System.out.println(String.format("%-36s %12.2f %12.2f", "rotate, world matrices, copy out",
+                                         boneTime, arrayTime));
+
+        // both end on the same frame
+        for (int i = 0; i < boneResult.length; ++i)
+        {
+            assertEquals(boneResult[i], arrayResult[i], 1e-4f);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/* Copyright 2018 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samsungxr.animation.keyframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.joml.Matrix4f;
+import org.junit.Test;
+
+public class SXRCompressedAnimationChannelTest
+{
+    private static final float KEY_RATE = 30.0f;
+    private static final int NUM_KEYS = 61;
+    private static final float EPSILON = 1e-5f;
+    private static final float FAST_KEY_RATE = 120.0f;
+
+    /*
+     * Position keys on a circle, rotation keys turning
+     * around Y and scale keys growing with a sine.
+     */
+    private static SXRAnimationChannel makeCurvedChannel()
+    {
+        float[] pos = new float[NUM_KEYS * 4];
+        float[] rot = new float[NUM_KEYS * 5];
+        float[] scale = new float[NUM_KEYS * 4];
+
+        for (int i = 0; i < NUM_KEYS; ++i)
+        {
+            float t = i / KEY_RATE;
+            float a = t * (float) Math.PI;
+
+            pos[i * 4] = t;
+            pos[i * 4 + 1] = (float) Math.cos(a);
+            pos[i * 4 + 2] = 0.5f * t;
+            pos[i * 4 + 3] = (float) Math.sin(a);
+            rot[i * 5] = t;
+            rot[i * 5 + 1] = 0;
+            rot[i * 5 + 2] = (float) Math.sin(a / 2);
+            rot[i * 5 + 3] = 0;
+            rot[i * 5 + 4] = (float) Math.cos(a / 2);
+            scale[i * 4] = t;
+            scale[i * 4 + 1] = 1 + 0.25f * (float) Math.sin(a);
+            scale[i * 4 + 2] = 1;
+            scale[i * 4 + 3] = 1;
+        }
+        return new SXRAnimationChannel("bone", pos, rot, scale);
+    }
+
+    private static float distance(float[] a, float[] b)
+    {
+        float dx = a[0] - b[0];
+        float dy = a[1] - b[1];
+        float dz = a[2] - b[2];
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /*
+     * Angle between two rotations from the chord between the quaternions.
+     */
+    private static float angle(float[] a, float[] b)
+    {
+        double diff = 0;
+        double sum = 0;
+
+        for (int i = 0; i < 4; ++i)
+        {
+            double d = (double) a[i] - b[i];
+            double s = (double) a[i] + b[i];
+
+            diff += d * d;
+            sum += s * s;
+        }
+        double chord = Math.sqrt(Math.min(diff, sum));
+        return (float) (4 * Math.asin(Math.min(chord / 2, 1)));
+    }
+
+    /*
+     * Position and rotation keys at 120 per second
+     * for one second, wobbling 20 times.
+     */
+    private static SXRAnimationChannel makeFastChannel()
+    {
+        int numKeys = (int) FAST_KEY_RATE + 1;
+        float[] pos = new float[numKeys * 4];
+        float[] rot = new float[numKeys * 5];
+
+        for (int i = 0; i < numKeys; ++i)
+        {
+            float t = i / FAST_KEY_RATE;
+            float a = 0.2f * (float) Math.sin(2 * Math.PI * 20 * t);
+
+            pos[i * 4] = t;
+            pos[i * 4 + 1] = t;
+            pos[i * 4 + 2] = a;
+            pos[i * 4 + 3] = 0;
+            rot[i * 5] = t;
+            rot[i * 5 + 1] = 0;
+            rot[i * 5 + 2] = (float) Math.sin(a / 2);
+            rot[i * 5 + 3] = 0;
+            rot[i * 5 + 4] = (float) Math.cos(a / 2);
+        }
+        return new SXRAnimationChannel("bone", pos, rot, null);
+    }
+
+    private static void assertWithinTolerance(SXRAnimationChannel src,
+                                              SXRCompressedAnimationChannel dst,
+                                              float posTolerance, float rotTolerance,
+                                              float scaleTolerance)
+    {
+        assertWithinTolerance(src, dst, KEY_RATE, NUM_KEYS,
+                              posTolerance, rotTolerance, scaleTolerance);
+    }
+
+    /*
+     * Evaluates both channels at each key time and checks
+     * the compressed one stays within the tolerances.
+     */
+    private static void assertWithinTolerance(SXRAnimationChannel src,
+                                              SXRCompressedAnimationChannel dst,
+                                              float keyRate, int numKeys,
+                                              float posTolerance, float rotTolerance,
+                                              float scaleTolerance)
+    {
+        Matrix4f mtx = new Matrix4f();
+        float[] srcPos = new float[3];
+        float[] srcRot = new float[4];
+        float[] srcScale = new float[3];
+        float[] dstPos = new float[3];
+        float[] dstRot = new float[4];
+        float[] dstScale = new float[3];
+
+        assertTrue(dst.getPositionError() <= posTolerance);
+        assertTrue(dst.getRotationError() <= rotTolerance);
+        assertTrue(dst.getScaleError() <= scaleTolerance);
+        for (int i = 0; i < numKeys; ++i)
+        {
+            float t = i / keyRate;
+
+            src.animate(t, mtx, srcPos, srcRot, srcScale);
+            dst.animate(t, mtx, dstPos, dstRot, dstScale);
+            assertTrue("position error at " + t, distance(srcPos, dstPos) <= posTolerance + EPSILON);
+            assertTrue("rotation error at " + t, angle(srcRot, dstRot) <= rotTolerance + EPSILON);
+            assertTrue("scale error at " + t, distance(srcScale, dstScale) <= scaleTolerance + EPSILON);
+        }
+    }
+
+    @Test
+    public void curvedKeysStayWithinTolerance()
+    {
+        SXRAnimationChannel src = makeCurvedChannel();
+        SXRCompressedAnimationChannel dst = src.compress(KEY_RATE, 0.001f, 0.001f, 0.001f);
+
+        assertWithinTolerance(src, dst, 0.001f, 0.001f, 0.001f);
+        assertTrue(dst.getKeyDataSize() < src.getKeyDataSize());
+    }
+
+    @Test
+    public void looseToleranceDropsKeys()
+    {
+        SXRAnimationChannel src = makeCurvedChannel();
+        SXRCompressedAnimationChannel tight = src.compress(KEY_RATE, 0.0005f, 0.0005f, 0.0005f);
+        SXRCompressedAnimationChannel loose = src.compress(KEY_RATE, 0.1f, 0.1f, 0.1f);
+
+        assertWithinTolerance(src, loose, 0.1f, 0.1f, 0.1f);
+        assertTrue(loose.getNumPosKeys() < tight.getNumPosKeys());
+        assertTrue(loose.getNumRotKeys() < tight.getNumRotKeys());
+        assertTrue(loose.getKeyDataSize() < tight.getKeyDataSize());
+    }
+
+    @Test
+    public void linearKeysKeepEndPoints()
+    {
+        float[] pos = new float[NUM_KEYS * 4];
+
+        for (int i = 0; i < NUM_KEYS; ++i)
+        {
+            float t = i / KEY_RATE;
+
+            pos[i * 4] = t;
+            pos[i * 4 + 1] = 2 * t;
+            pos[i * 4 + 2] = -t;
+            pos[i * 4 + 3] = 1;
+        }
+        SXRAnimationChannel src = new SXRAnimationChannel("bone", pos, null, null);
+        SXRCompressedAnimationChannel dst = src.compress(KEY_RATE, 0.001f, 0.001f, 0.001f);
+
+        assertWithinTolerance(src, dst, 0.001f, 0.001f, 0.001f);
+        assertEquals(2, dst.getNumPosKeys());
+        assertEquals(0, dst.getNumRotKeys());
+        assertEquals(0, dst.getNumScaleKeys());
+    }
+
+    @Test
+    public void constantKeysBecomeOneKey()
+    {
+        float[] rot = new float[NUM_KEYS * 5];
+
+        for (int i = 0; i < NUM_KEYS; ++i)
+        {
+            rot[i * 5] = i / KEY_RATE;
+            rot[i * 5 + 1] = 0.5f;
+            rot[i * 5 + 2] = 0.5f;
+            rot[i * 5 + 3] = 0.5f;
+            rot[i * 5 + 4] = 0.5f;
+        }
+        SXRAnimationChannel src = new SXRAnimationChannel("bone", null, rot, null);
+        SXRCompressedAnimationChannel dst = src.compress(KEY_RATE, 0.001f, 0.001f, 0.001f);
+
+        assertWithinTolerance(src, dst, 0.001f, 0.001f, 0.001f);
+        assertEquals(1, dst.getNumRotKeys());
+        assertEquals(0, dst.getRotationError(), EPSILON);
+    }
+
+    @Test
+    public void seriesWithoutKeysGiveDefaults()
+    {
+        float[] pos = new float[] { 0, 1, 2, 3, 1, 1, 2, 3 };
+        SXRAnimationChannel src = new SXRAnimationChannel("bone", pos, null, null);
+        SXRAnimationChannel[] channels = new SXRAnimationChannel[]
+        {
+            src, src.compress(KEY_RATE, 0.001f, 0.001f, 0.001f)
+        };
+
+        for (SXRAnimationChannel channel : channels)
+        {
+            // left over from another bone
+            float[] p = new float[3];
+            float[] r = new float[] { 0.5f, 0.5f, 0.5f, 0.5f };
+            float[] s = new float[] { 2, 2, 2 };
+
+            channel.animate(0.5f, new Matrix4f(), p, r, s);
+            assertEquals(1, p[0], EPSILON);
+            assertEquals(2, p[1], EPSILON);
+            assertEquals(3, p[2], EPSILON);
+            assertEquals(0, r[0], 0);
+            assertEquals(0, r[1], 0);
+            assertEquals(0, r[2], 0);
+            assertEquals(1, r[3], 0);
+            assertEquals(1, s[0], 0);
+            assertEquals(1, s[1], 0);
+            assertEquals(1, s[2], 0);
+        }
+    }
+}
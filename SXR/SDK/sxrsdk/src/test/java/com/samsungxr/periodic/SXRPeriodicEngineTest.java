@@ -0,0 +1,310 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samsungxr.periodic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.samsungxr.periodic.SXRPeriodicEngine.PeriodicEvent;
+
+public class SXRPeriodicEngineTest {
+    private static final long MILLIS = 1000000L;
+
+    /*
+     * Engine on a clock which only moves when the test says. The batch
+     * of due events runs at the end of the frame which found them due.
+     */
+    private static class TestEngine extends SXRPeriodicEngine {
+        private long mTime = 0;
+        private Runnable mBatch;
+
+        TestEngine() {
+            super(null, 0);
+        }
+
+        @Override
+        long now() {
+            return mTime;
+        }
+
+        @Override
+        void postBatch(Runnable batch) {
+            mBatch = batch;
+        }
+
+        void frame(long nanos) {
+            mTime += nanos;
+            onFrame(mTime);
+            if (mBatch != null) {
+                Runnable batch = mBatch;
+
+                mBatch = null;
+                batch.run();
+            }
+        }
+
+        void framesOf(long nanos, long until) {
+            while (mTime + nanos <= until) {
+                frame(nanos);
+            }
+        }
+    }
+
+    private final TestEngine mEngine = new TestEngine();
+    private final List<String> mOrder = new ArrayList<String>();
+
+    private Runnable record(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                mOrder.add(name);
+            }
+        };
+    }
+
+    /*
+     * Records the times an event runs.
+     */
+    private class Times implements Runnable {
+        final List<Long> mTimes = new ArrayList<Long>();
+
+        @Override
+        public void run() {
+            mTimes.add(mEngine.now());
+        }
+    }
+
+    private static long toNanos(float seconds) {
+        return (long) (seconds * 1e9);
+    }
+
+    @Test
+    public void runsOnTheTickDueAcrossLevels() {
+        // either side of the first slot of levels 1, 2 and 3
+        float[] delays = { 0.001f, 0.063f, 0.064f, 0.065f, 0.127f, 0.128f, 0.5f,
+                           4.095f, 4.096f, 4.097f, 4.2f, 100f, 262.143f, 262.144f, 300f };
+        Times[] times = new Times[delays.length];
+
+        for (int i = 0; i < delays.length; ++i) {
+            times[i] = new Times();
+            mEngine.runAfter(times[i], delays[i]);
+        }
+        // a 1 ms frame advances the wheel one tick at a time
+        mEngine.framesOf(MILLIS, toNanos(301));
+
+        for (int i = 0; i < delays.length; ++i) {
+            assertEquals("delay " + delays[i], 1, times[i].mTimes.size());
+            long tick = toNanos(delays[i]) / MILLIS;
+            assertEquals("delay " + delays[i], tick, times[i].mTimes.get(0) / MILLIS);
+        }
+        assertEquals(delays.length, mEngine.getFiredCount());
+        assertEquals(0, mEngine.getScheduledEventCount());
+    }
+
+    @Test
+    public void runsEventsScheduledAfterTheWheelMoved() {
+        // the current tick is not on a slot boundary when these are added
+        mEngine.framesOf(MILLIS, 37 * MILLIS);
+        Times near = new Times();
+        Times level1 = new Times();
+        Times level2 = new Times();
+        mEngine.runAfter(near, 0.030f);
+        mEngine.runAfter(level1, 0.090f);
+        mEngine.runAfter(level2, 5f);
+
+        mEngine.framesOf(MILLIS, toNanos(6));
+        assertEquals(Arrays.asList(tickAfter(37, 0.030f)), ticks(near));
+        assertEquals(Arrays.asList(tickAfter(37, 0.090f)), ticks(level1));
+        assertEquals(Arrays.asList(tickAfter(37, 5f)), ticks(level2));
+    }
+
+    private static Long tickAfter(long millis, float delay) {
+        return (millis * MILLIS + toNanos(delay)) / MILLIS;
+    }
+
+    private static List<Long> ticks(Times times) {
+        List<Long> ticks = new ArrayList<Long>();
+
+        for (long t : times.mTimes) {
+            ticks.add(t / MILLIS);
+        }
+        return ticks;
+    }
+
+    @Test
+    public void rebuildsAfterMoreThanFourSeconds() {
+        Times soon = new Times();
+        Times middle = new Times();
+        Times later = new Times();
+        Times periodic = new Times();
+
+        mEngine.runAfter(soon, 1f);
+        mEngine.runAfter(middle, 3f);
+        mEngine.runAfter(later, 10f);
+        mEngine.runEvery(periodic, 0.5f, 0.5f);
+        mEngine.frame(MILLIS);
+        assertEquals(4, mEngine.getScheduledEventCount());
+
+        // one frame jumps past the range of two levels
+        mEngine.frame(toNanos(5));
+        assertEquals(1, soon.mTimes.size());
+        assertEquals(1, middle.mTimes.size());
+        assertEquals(0, later.mTimes.size());
+        // the periodic event runs once and skips the executions it missed
+        assertEquals(1, periodic.mTimes.size());
+        assertEquals(8, mEngine.getSkippedCount());
+        assertEquals(3, mEngine.getLateCount());
+        // the execution at 5 s is due, it is not in the wheel
+        assertEquals(1, mEngine.getScheduledEventCount());
+
+        // the events left are still found on their tick
+        mEngine.framesOf(MILLIS, toNanos(11));
+        assertEquals(Arrays.asList(10000L), ticks(later));
+        List<Long> ticks = ticks(periodic);
+        assertEquals(Arrays.asList(5001L, 5002L, 5500L), ticks.subList(0, 3));
+        assertEquals(Long.valueOf(11000L), ticks.get(ticks.size() - 1));
+        assertEquals(2 + 12, ticks.size());
+        assertEquals(8, mEngine.getSkippedCount());
+    }
+
+    @Test
+    public void cancelsFromInsideTask() {
+        final PeriodicEvent[] self = new PeriodicEvent[1];
+        final PeriodicEvent[] other = new PeriodicEvent[1];
+
+        self[0] = mEngine.runEvery(new Runnable() {
+            @Override
+            public void run() {
+                mOrder.add("self " + self[0].getRunCount());
+                if (self[0].getRunCount() == 2) {
+                    self[0].cancel();
+                    other[0].cancel();
+                }
+            }
+        }, 0.101f, 0.1f);
+        // due 2 ms after the third execution, in the same batch
+        other[0] = mEngine.runAfter(record("other"), 0.303f);
+
+        mEngine.framesOf(5 * MILLIS, toNanos(1));
+        assertEquals(Arrays.asList("self 0", "self 1", "self 2"), mOrder);
+        assertEquals(3, self[0].getRunCount());
+        assertEquals(0, other[0].getRunCount());
+        assertEquals(PeriodicEvent.UNSCHEDULED, self[0].getCurrentWait(), 0);
+        assertEquals(PeriodicEvent.UNSCHEDULED, other[0].getCurrentWait(), 0);
+        assertEquals(0, mEngine.getScheduledEventCount());
+    }
+
+    @Test
+    public void reschedulesFromInsideTask() {
+        final PeriodicEvent[] event = new PeriodicEvent[1];
+        Times times = new Times();
+        final Runnable record = times;
+
+        event[0] = mEngine.runEvery(new Runnable() {
+            @Override
+            public void run() {
+                record.run();
+                if (event[0].getRunCount() == 1) {
+                    // a one-shot event now, the period is dropped
+                    event[0].runAfter(0.25f);
+                } else if (event[0].getRunCount() == 2) {
+                    // two more executions after this one
+                    event[0].runEvery(0.05f, 0.05f, 2);
+                }
+            }
+        }, 0.1f, 0.1f);
+
+        mEngine.framesOf(MILLIS, toNanos(1));
+        assertEquals(Arrays.asList(100L, 200L, 450L, 500L, 550L), ticks(times));
+        assertEquals(5, event[0].getRunCount());
+        assertEquals(PeriodicEvent.UNSCHEDULED, event[0].getCurrentWait(), 0);
+    }
+
+    @Test
+    public void reschedulesFromKeepRunning() {
+        Times times = new Times();
+
+        mEngine.runEvery(times, 0.1f, 0.1f, new SXRPeriodicEngine.KeepRunning() {
+            @Override
+            public boolean keepRunning(PeriodicEvent event) {
+                if (event.getRunCount() == 2) {
+                    event.runAfter(0.3f);
+                }
+                return true;
+            }
+        });
+        mEngine.framesOf(MILLIS, toNanos(1));
+        assertEquals(Arrays.asList(100L, 200L, 500L), ticks(times));
+    }
+
+    @Test
+    public void runEveryDoesNotDrift() {
+        Times times = new Times();
+
+        mEngine.runEvery(times, 0f, 0.1f);
+        // frames of 13 to 21 ms, none of them a whole period late
+        long[] frames = { 13, 21, 17, 16, 19, 14, 18, 20, 15 };
+        for (int i = 0; mEngine.now() < toNanos(60); ++i) {
+            mEngine.frame(frames[i % frames.length] * MILLIS);
+        }
+
+        assertEquals(600, times.mTimes.size(), 1);
+        for (int i = 0; i < times.mTimes.size(); ++i) {
+            // each execution is in the first frame which reaches the tick of its multiple of the period
+            long lateness = times.mTimes.get(i) - i * toNanos(0.1f);
+            assertTrue("execution " + i + " late by " + lateness, (lateness > -MILLIS) && (lateness < 21 * MILLIS));
+        }
+        assertEquals(0, mEngine.getSkippedCount());
+        assertEquals(0, mEngine.getLateCount());
+    }
+
+    @Test
+    public void countsSkippedAndLateExecutions() {
+        Times periodic = new Times();
+        Times once = new Times();
+
+        mEngine.runEvery(periodic, 0.1f, 0.1f);
+        mEngine.runAfter(once, 0.12f);
+        mEngine.framesOf(MILLIS, 100 * MILLIS);
+        assertEquals(1, mEngine.getFiredCount());
+        assertEquals(0, mEngine.getLateCount());
+
+        // 350 ms frame: due at 200 ms, runs at 450 ms
+        mEngine.frame(350 * MILLIS);
+        assertEquals(2, periodic.mTimes.size());
+        assertEquals(1, once.mTimes.size());
+        assertEquals(2, mEngine.getLateCount());
+        // the one at 300 ms is skipped, the one at 400 ms is still due
+        assertEquals(1, mEngine.getSkippedCount());
+
+        mEngine.frame(MILLIS);
+        assertEquals(3, periodic.mTimes.size());
+        // 51 ms after it was due
+        assertEquals(3, mEngine.getLateCount());
+
+        // back on time: 500, 600 and 700 ms
+        mEngine.framesOf(MILLIS, 700 * MILLIS);
+        assertEquals(Arrays.asList(100L, 450L, 451L, 500L, 600L, 700L), ticks(periodic));
+        assertEquals(3, mEngine.getLateCount());
+        assertEquals(1, mEngine.getSkippedCount());
+        assertEquals(6 + 1, mEngine.getFiredCount());
+    }
+}